@@ -0,0 +1,99 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import de.charite.compbio.jannovar.Jannovar;
+import de.charite.compbio.jannovar.data.SerializationException;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.variant.vcf.VCFCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end throughput of <code>jannovar annotate-vcf</code> on a synthetic database and VCF file.
+ * <p>
+ * Each invocation runs the whole command including loading the database, the score is reported in variants per
+ * second. With <code>scatter</code>, the input is block-compressed and indexed, and annotated with
+ * <code>--scatter</code> in shards of {@link #SHARD_SIZE} bases.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(AnnotateVCFBenchmark.NUM_VARIANTS)
+public class AnnotateVCFBenchmark {
+
+	/**
+	 * Number of variants in the VCF file
+	 */
+	static final int NUM_VARIANTS = 50_000;
+
+	/**
+	 * Number of threads to pass to <code>annotate-vcf</code>
+	 */
+	@Param({"1", "4"})
+	public int threads;
+
+	/**
+	 * Whether or not to annotate shards of the input with <code>--scatter</code>
+	 */
+	@Param({"false", "true"})
+	public boolean scatter;
+
+	/**
+	 * Length of the shards with {@link #scatter}, the transcripts cover the first 50 Mbp of chr1
+	 */
+	static final int SHARD_SIZE = 5_000_000;
+
+	private File tmpDir;
+	private File dbFile;
+	private File vcfFile;
+	private File vcfGzFile;
+	private File outFile;
+
+	@Setup
+	public void setUp() throws IOException, SerializationException {
+		final SyntheticData data = new SyntheticData(42, 5_000, NUM_VARIANTS);
+		tmpDir = Files.createTempDirectory("jannovar-benchmarks").toFile();
+		dbFile = new File(tmpDir, "synthetic.ser");
+		vcfFile = new File(tmpDir, "synthetic.vcf");
+		outFile = new File(tmpDir, "synthetic.jv.vcf");
+		data.writeDatabase(dbFile);
+		data.writeVCF(vcfFile);
+
+		vcfGzFile = new File(tmpDir, "synthetic.vcf.gz");
+		try (OutputStream out = new BlockCompressedOutputStream(vcfGzFile)) {
+			Files.copy(vcfFile.toPath(), out);
+		}
+		IndexFactory.createTabixIndex(vcfGzFile, new VCFCodec(), TabixFormat.VCF, null)
+			.writeBasedOnFeaturePath(vcfGzFile.toPath());
+	}
+
+	@TearDown
+	public void tearDown() {
+		for (File file : new File[]{dbFile, vcfFile, vcfGzFile, new File(vcfGzFile.getPath() + ".tbi"), outFile})
+			file.delete();
+		tmpDir.delete();
+	}
+
+	@Benchmark
+	public void annotateVCF() {
+		if (scatter)
+			Jannovar.main(new String[]{"annotate-vcf", "-d", dbFile.getPath(), "-i", vcfGzFile.getPath(), "-o",
+				outFile.getPath(), "--threads", Integer.toString(threads), "--scatter", "--scatter-shard-size",
+				Integer.toString(SHARD_SIZE)});
+		else
+			Jannovar.main(new String[]{"annotate-vcf", "-d", dbFile.getPath(), "-i", vcfFile.getPath(), "-o",
+				outFile.getPath(), "--threads", Integer.toString(threads)});
+	}
+
+}
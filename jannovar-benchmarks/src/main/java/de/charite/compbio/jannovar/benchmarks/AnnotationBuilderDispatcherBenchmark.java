@@ -0,0 +1,55 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import de.charite.compbio.jannovar.annotation.InvalidGenomeVariant;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderDispatcher;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Build annotations for pairs of transcripts and overlapping variants with {@link AnnotationBuilderDispatcher}.
+ * <p>
+ * This is the per-transcript work of annotating a variant, without the interval tree lookup.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnnotationBuilderDispatcherBenchmark {
+
+	private final AnnotationBuilderOptions options = new AnnotationBuilderOptions();
+	private TranscriptModel[] transcripts;
+	private GenomeVariant[] changes;
+	private int nextQuery;
+
+	@Setup
+	public void setUp() {
+		final SyntheticData data = new SyntheticData(42, 2_000, 10_000);
+		ArrayList<TranscriptModel> txs = new ArrayList<>();
+		ArrayList<GenomeVariant> vars = new ArrayList<>();
+		for (GenomeVariant var : data.getVariants()) {
+			for (TranscriptModel tm : data.findOverlapping(var)) {
+				txs.add(tm);
+				vars.add(var);
+			}
+		}
+		transcripts = txs.toArray(new TranscriptModel[0]);
+		changes = vars.toArray(new GenomeVariant[0]);
+	}
+
+	@Benchmark
+	public Object build() throws InvalidGenomeVariant {
+		final int q = nextQuery;
+		nextQuery = (q + 1) % transcripts.length;
+		return new AnnotationBuilderDispatcher(transcripts[q], changes[q], options).build();
+	}
+
+}
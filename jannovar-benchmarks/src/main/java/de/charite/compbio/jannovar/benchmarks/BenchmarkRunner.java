@@ -0,0 +1,36 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of <code>benchmarks.jar</code>, runs JMH with JSON result output by default.
+ * <p>
+ * Unless <code>-rf</code> or <code>-rff</code> is given, the results are written to
+ * <code>jannovar-benchmarks.json</code> in the current directory. All arguments are passed on to JMH, e.g., use
+ * <code>-h</code> for help and <code>-l</code> for listing the benchmarks.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class BenchmarkRunner {
+
+	/**
+	 * Default path to the JSON result file
+	 */
+	public static final String DEFAULT_RESULT_FILE = "jannovar-benchmarks.json";
+
+	public static void main(String[] args) throws Exception {
+		List<String> argList = new ArrayList<>(Arrays.asList(args));
+		if (!argList.contains("-rf") && !argList.contains("-rff")) {
+			argList.add(0, "-rf");
+			argList.add(1, "json");
+			argList.add(2, "-rff");
+			argList.add(3, DEFAULT_RESULT_FILE);
+		}
+		Main.main(argList.toArray(new String[0]));
+	}
+
+}
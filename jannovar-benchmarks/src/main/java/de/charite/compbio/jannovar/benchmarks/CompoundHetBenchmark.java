@@ -0,0 +1,83 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.mendel.ChromosomeType;
+import de.charite.compbio.jannovar.mendel.GenotypeCalls;
+import de.charite.compbio.jannovar.mendel.GenotypeMatrix;
+import de.charite.compbio.jannovar.mendel.GenotypeMatrixBuilder;
+import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
+import de.charite.compbio.jannovar.mendel.MendelianInheritanceChecker;
+import de.charite.compbio.jannovar.mendel.SubModeOfInheritance;
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.PedFileContents;
+import de.charite.compbio.jannovar.pedigree.PedParseException;
+import de.charite.compbio.jannovar.pedigree.PedPerson;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Sex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Autosomal recessive compound heterozygous check of all variants in one gene, for a family with two affected and one
+ * unaffected child.
+ * <p>
+ * The variants are rare heterozygous calls as in long genes such as TTN, each inherited from one of the parents or de
+ * novo, and {@link #numVariants} is the number of variants in the gene. The score is reported in genes per second.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompoundHetBenchmark {
+
+	/**
+	 * Number of variants in the gene
+	 */
+	@Param({"10", "100", "1000"})
+	public int numVariants;
+
+	private MendelianInheritanceChecker checker;
+	private GenotypeMatrix matrix;
+
+	@Setup
+	public void setUp() throws PedParseException {
+		final ImmutableList.Builder<PedPerson> individuals = ImmutableList.builder();
+		individuals.add(new PedPerson("ped", "father", "0", "0", Sex.MALE, Disease.UNAFFECTED));
+		individuals.add(new PedPerson("ped", "mother", "0", "0", Sex.FEMALE, Disease.UNAFFECTED));
+		individuals.add(new PedPerson("ped", "child1", "father", "mother", Sex.FEMALE, Disease.AFFECTED));
+		individuals.add(new PedPerson("ped", "child2", "father", "mother", Sex.MALE, Disease.AFFECTED));
+		individuals.add(new PedPerson("ped", "child3", "father", "mother", Sex.MALE, Disease.UNAFFECTED));
+		checker = new MendelianInheritanceChecker(
+			new Pedigree(new PedFileContents(ImmutableList.of(), individuals.build()), "ped"));
+
+		final byte ref = GenotypeMatrix.encode(0, 0);
+		final byte het = GenotypeMatrix.encode(0, 1);
+		final Random rand = new Random(42);
+		final GenotypeMatrixBuilder builder = new GenotypeMatrixBuilder(
+			ImmutableList.of("father", "mother", "child1", "child2", "child3"));
+		for (int i = 0; i < numVariants; ++i) {
+			// inherited from father, mother, or de novo in the first child
+			final int source = rand.nextInt(5);
+			final byte father = (source < 2) ? het : ref;
+			final byte mother = (source >= 2 && source < 4) ? het : ref;
+			final byte[] children = new byte[3];
+			for (int j = 0; j < 3; ++j)
+				children[j] = (source == 4) ? (j == 0 ? het : ref) : (rand.nextBoolean() ? het : ref);
+			builder.addRow(ChromosomeType.AUTOSOMAL, new byte[]{father, mother, children[0], children[1], children[2]},
+				i);
+		}
+		matrix = builder.build();
+	}
+
+	@Benchmark
+	public ImmutableList<GenotypeCalls> checkCompoundHet() throws IncompatiblePedigreeException {
+		return checker.filterCompatibleRecordsSub(matrix, SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET);
+	}
+
+}
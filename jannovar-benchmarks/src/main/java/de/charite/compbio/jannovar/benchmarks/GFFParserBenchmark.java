@@ -0,0 +1,109 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import de.charite.compbio.jannovar.impl.parse.gtfgff.FeatureRecord;
+import de.charite.compbio.jannovar.impl.parse.gtfgff.GFFParser;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Read all records of a gzip-compressed GFF3 file in the style of RefSeq with {@link GFFParser}, as done when building
+ * a transcript database, on the calling thread or with the lines parsed on a pool of <code>threads</code> threads.
+ * <p>
+ * The file describes the synthetic transcripts with one <code>mRNA</code> and one <code>exon</code> and
+ * <code>CDS</code> record per exon.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GFFParserBenchmark {
+
+	/**
+	 * Number of threads for parsing, <code>1</code> for parsing on the calling thread
+	 */
+	@Param({"1", "4"})
+	public int threads;
+
+	private File tmpDir;
+	private File gffFile;
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setUp() throws IOException {
+		tmpDir = Files.createTempDirectory("jannovar-benchmarks").toFile();
+		gffFile = new File(tmpDir, "synthetic.gff3.gz");
+		writeGFF(new SyntheticData(42, 20_000, 0), gffFile);
+		pool = (threads > 1) ? new ForkJoinPool(threads) : null;
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (pool != null)
+			pool.shutdownNow();
+		gffFile.delete();
+		tmpDir.delete();
+	}
+
+	@Benchmark
+	public int parseGFF() throws IOException {
+		GFFParser parser = new GFFParser(gffFile, pool);
+		int result = 0;
+		FeatureRecord record;
+		while ((record = parser.next()) != null)
+			result += record.getAttributes().size();
+		return result;
+	}
+
+	/**
+	 * Write the transcripts of <code>data</code> as gzip-compressed GFF3 file with RefSeq-like attributes
+	 */
+	private static void writeGFF(SyntheticData data, File file) throws IOException {
+		try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+			new GZIPOutputStream(new FileOutputStream(file)), StandardCharsets.UTF_8))) {
+			out.println("##gff-version 3");
+			int rnaNo = 0;
+			for (TranscriptModel tm : data.getTranscripts()) {
+				final String rnaID = "rna" + (rnaNo++);
+				final String strand = (tm.getStrand() == Strand.FWD) ? "+" : "-";
+				final String common = ";Dbxref=GeneID:" + tm.getGeneID() + ",Genbank:" + tm.getAccession() +
+					",HGNC:HGNC:" + rnaNo + ";gbkey=mRNA;gene=" + tm.getGeneSymbol() + ";product=synthetic protein " +
+					rnaNo + ";transcript_id=" + tm.getAccession();
+				final GenomeInterval txRegion = tm.getTXRegion().withStrand(Strand.FWD);
+				out.println(SyntheticData.CONTIG_NAME + "\tBestRefSeq\tmRNA\t" + (txRegion.getBeginPos() + 1) + "\t" +
+					txRegion.getEndPos() + "\t.\t" + strand + "\t.\tID=" + rnaID + ";Parent=gene" + rnaNo + common);
+				final GenomeInterval cdsRegion = tm.getCDSRegion().withStrand(Strand.FWD);
+				int exonNo = 0;
+				for (GenomeInterval exon : tm.getExonRegions()) {
+					final GenomeInterval fwd = exon.withStrand(Strand.FWD);
+					out.println(SyntheticData.CONTIG_NAME + "\tBestRefSeq\texon\t" + (fwd.getBeginPos() + 1) + "\t" +
+						fwd.getEndPos() + "\t.\t" + strand + "\t.\tID=id-" + rnaID + "-" + (++exonNo) + ";Parent=" +
+						rnaID + common);
+					final int cdsBegin = Math.max(fwd.getBeginPos(), cdsRegion.getBeginPos());
+					final int cdsEnd = Math.min(fwd.getEndPos(), cdsRegion.getEndPos());
+					if (cdsBegin < cdsEnd)
+						out.println(SyntheticData.CONTIG_NAME + "\tBestRefSeq\tCDS\t" + (cdsBegin + 1) + "\t" +
+							cdsEnd + "\t.\t" + strand + "\t0\tID=cds-" + rnaID + ";Parent=" + rnaID + common +
+							";protein_id=NP_" + rnaNo);
+				}
+			}
+		}
+	}
+
+}
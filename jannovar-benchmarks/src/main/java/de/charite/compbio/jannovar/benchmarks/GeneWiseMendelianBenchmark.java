@@ -0,0 +1,159 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.mendel.filter.GeneWiseMendelianAnnotationProcessor;
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.PedFileContents;
+import de.charite.compbio.jannovar.pedigree.PedParseException;
+import de.charite.compbio.jannovar.pedigree.PedPerson;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Sex;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.Genotype;
+import htsjdk.variant.variantcontext.GenotypeBuilder;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the gene-wise Mendelian inheritance annotation of <code>annotate-vcf --pedigree-file</code> in a
+ * region of long overlapping genes, on a synthetic cohort.
+ * <p>
+ * Genes of {@link #GENE_LENGTH} bases start every {@link #GENE_SPACING} bases and there is a variant every
+ * {@link #VARIANT_SPACING} bases, such that about {@link #GENE_LENGTH}/{@link #VARIANT_SPACING} variants are buffered
+ * in the active genes. The pedigree consists of one trio with an affected child, all other samples are unrelated and
+ * unaffected. The score is reported in variants per second.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(GeneWiseMendelianBenchmark.NUM_VARIANTS)
+public class GeneWiseMendelianBenchmark {
+
+	/**
+	 * Number of variants per invocation
+	 */
+	static final int NUM_VARIANTS = 1_000;
+
+	/**
+	 * Distance between the variants
+	 */
+	private static final int VARIANT_SPACING = 100;
+
+	/**
+	 * Length of each gene
+	 */
+	private static final int GENE_LENGTH = 100_000;
+
+	/**
+	 * Distance between the gene begin positions
+	 */
+	private static final int GENE_SPACING = 10_000;
+
+	/**
+	 * Number of samples in the VCF file, including the trio
+	 */
+	@Param({"3", "1000"})
+	public int numSamples;
+
+	private JannovarData jannovarData;
+	private Pedigree pedigree;
+	private VariantContext[] variants;
+
+	@Setup
+	public void setUp() throws PedParseException {
+		final Random rand = new Random(42);
+		final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+		final int chr = refDict.getContigNameToID().get("1");
+
+		// genes with one exon at each end
+		final ImmutableList.Builder<TranscriptModel> transcripts = ImmutableList.builder();
+		final TranscriptModelBuilder tmBuilder = new TranscriptModelBuilder();
+		final int regionLength = NUM_VARIANTS * VARIANT_SPACING;
+		for (int i = 0, begin = 1_000; begin < regionLength; ++i, begin += GENE_SPACING) {
+			final int end = begin + GENE_LENGTH;
+			tmBuilder.reset();
+			tmBuilder.setStrand(Strand.FWD);
+			tmBuilder.setAccession(String.format("NM_%06d", i + 1));
+			tmBuilder.setTxVersion("1");
+			tmBuilder.setGeneSymbol(String.format("GENE%d", i + 1));
+			tmBuilder.setGeneID(String.format("ENTREZ%d", i + 1));
+			tmBuilder.setTXRegion(new GenomeInterval(refDict, Strand.FWD, chr, begin, end, PositionType.ZERO_BASED));
+			tmBuilder.setCDSRegion(new GenomeInterval(refDict, Strand.FWD, chr, begin + 10, end - 10,
+				PositionType.ZERO_BASED));
+			tmBuilder.addExonRegion(new GenomeInterval(refDict, Strand.FWD, chr, begin, begin + 100,
+				PositionType.ZERO_BASED));
+			tmBuilder.addExonRegion(new GenomeInterval(refDict, Strand.FWD, chr, end - 101, end,
+				PositionType.ZERO_BASED));
+			final StringBuilder seq = new StringBuilder();
+			for (int j = 0; j < 201; ++j)
+				seq.append("ACGT".charAt(rand.nextInt(4)));
+			tmBuilder.setSequence(seq.toString());
+			transcripts.add(tmBuilder.build());
+		}
+		jannovarData = new JannovarData(refDict, transcripts.build());
+
+		// trio and unrelated unaffected samples
+		final List<String> names = new ArrayList<>();
+		final ImmutableList.Builder<PedPerson> individuals = ImmutableList.builder();
+		individuals.add(new PedPerson("ped", "mother", "0", "0", Sex.FEMALE, Disease.UNAFFECTED));
+		individuals.add(new PedPerson("ped", "father", "0", "0", Sex.MALE, Disease.UNAFFECTED));
+		individuals.add(new PedPerson("ped", "child", "father", "mother", Sex.MALE, Disease.AFFECTED));
+		names.add("mother");
+		names.add("father");
+		names.add("child");
+		for (int i = 3; i < numSamples; ++i) {
+			final String name = String.format("sample%04d", i);
+			individuals.add(new PedPerson("ped", name, "0", "0", Sex.FEMALE, Disease.UNAFFECTED));
+			names.add(name);
+		}
+		pedigree = new Pedigree(new PedFileContents(ImmutableList.of(), individuals.build()), "ped");
+
+		// SNVs with rare genotypes, 5% het and 1% hom. alt.
+		final Allele ref = Allele.create("A", true);
+		final Allele alt = Allele.create("C", false);
+		variants = new VariantContext[NUM_VARIANTS];
+		for (int i = 0; i < NUM_VARIANTS; ++i) {
+			final List<Genotype> genotypes = new ArrayList<>(numSamples);
+			for (String name : names) {
+				final int r = rand.nextInt(100);
+				final Allele second = (r < 6) ? alt : ref;
+				final Allele first = (r < 1) ? alt : ref;
+				genotypes.add(new GenotypeBuilder(name, ImmutableList.of(first, second)).make());
+			}
+			final int pos = 1_000 + i * VARIANT_SPACING;
+			variants[i] = new VariantContextBuilder().chr("1").start(pos).stop(pos).alleles(ImmutableList.of(ref, alt))
+				.genotypes(genotypes).make();
+		}
+	}
+
+	@Benchmark
+	public int annotate() {
+		final int[] count = new int[1];
+		try (GeneWiseMendelianAnnotationProcessor proc = new GeneWiseMendelianAnnotationProcessor(pedigree,
+			jannovarData, vc -> count[0]++, false)) {
+			for (VariantContext vc : variants)
+				proc.put(vc);
+		}
+		return count[0];
+	}
+
+}
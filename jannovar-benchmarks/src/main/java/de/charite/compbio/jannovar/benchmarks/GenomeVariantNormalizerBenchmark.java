@@ -0,0 +1,64 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.GenomeVariantNormalizer;
+import de.charite.compbio.jannovar.reference.ProjectionException;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptPosition;
+import de.charite.compbio.jannovar.reference.TranscriptProjectionDecorator;
+import de.charite.compbio.jannovar.reference.TranscriptSequenceOntologyDecorator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shift exonic indels towards the 3' end with {@link GenomeVariantNormalizer}, as done while building annotations.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenomeVariantNormalizerBenchmark {
+
+	private TranscriptModel[] transcripts;
+	private GenomeVariant[] changes;
+	private TranscriptPosition[] txPositions;
+	private int nextQuery;
+
+	@Setup
+	public void setUp() throws ProjectionException {
+		final SyntheticData data = new SyntheticData(42, 2_000, 50_000);
+		ArrayList<TranscriptModel> txs = new ArrayList<>();
+		ArrayList<GenomeVariant> vars = new ArrayList<>();
+		ArrayList<TranscriptPosition> positions = new ArrayList<>();
+		for (GenomeVariant var : data.getVariants()) {
+			if (var.getRef().length() == var.getAlt().length())
+				continue; // only indels are normalized
+			for (TranscriptModel tm : data.findOverlapping(var)) {
+				// same preconditions as in AnnotationBuilder
+				final GenomeVariant change = var.withStrand(tm.getStrand());
+				if (!new TranscriptSequenceOntologyDecorator(tm).liesInExon(change.getGenomeInterval()))
+					continue;
+				txs.add(tm);
+				vars.add(change);
+				positions.add(new TranscriptProjectionDecorator(tm).genomeToTranscriptPos(change.getGenomePos()));
+			}
+		}
+		transcripts = txs.toArray(new TranscriptModel[0]);
+		changes = vars.toArray(new GenomeVariant[0]);
+		txPositions = positions.toArray(new TranscriptPosition[0]);
+	}
+
+	@Benchmark
+	public GenomeVariant normalizeGenomeChange() {
+		final int q = nextQuery;
+		nextQuery = (q + 1) % transcripts.length;
+		return GenomeVariantNormalizer.normalizeGenomeChange(transcripts[q], changes[q], txPositions[q]);
+	}
+
+}
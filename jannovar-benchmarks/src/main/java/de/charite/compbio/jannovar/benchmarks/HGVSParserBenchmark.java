@@ -0,0 +1,58 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import de.charite.compbio.jannovar.annotation.Annotation;
+import de.charite.compbio.jannovar.annotation.InvalidGenomeVariant;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderDispatcher;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.hgvs.HGVSVariant;
+import de.charite.compbio.jannovar.hgvs.parser.HGVSParser;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse HGVS strings with {@link HGVSParser#parseHGVSString(String)}.
+ * <p>
+ * The strings are the CDS-level nucleotide changes that Jannovar generates for the synthetic variants, prefixed with
+ * the transcript accession, e.g. <code>NM_000001.1:c.123A&gt;G</code>.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HGVSParserBenchmark {
+
+	private final HGVSParser parser = new HGVSParser();
+	private String[] hgvsStrings;
+	private int nextQuery;
+
+	@Setup
+	public void setUp() throws InvalidGenomeVariant {
+		final SyntheticData data = new SyntheticData(42, 2_000, 5_000);
+		final AnnotationBuilderOptions options = new AnnotationBuilderOptions();
+		ArrayList<String> strings = new ArrayList<>();
+		for (GenomeVariant var : data.getVariants()) {
+			for (TranscriptModel tm : data.findOverlapping(var)) {
+				final Annotation anno = new AnnotationBuilderDispatcher(tm, var, options).build();
+				if (anno.getCDSNTChange() != null)
+					strings.add(tm.getAccession() + ":" + anno.getCDSNTChangeStr());
+			}
+		}
+		hgvsStrings = strings.toArray(new String[0]);
+	}
+
+	@Benchmark
+	public HGVSVariant parseHGVSString() {
+		final int q = nextQuery;
+		nextQuery = (q + 1) % hgvsStrings.length;
+		return parser.parseHGVSString(hgvsStrings[q]);
+	}
+
+}
@@ -0,0 +1,135 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalEndExtractor;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare queries on {@link IntervalArray} with queries on {@link IntervalIndex}.
+ * <p>
+ * The intervals mimic the transcripts of a large chromosome: mostly transcripts of some 10 kbp with a few very long
+ * ones, queried with SNV and short indel positions, many of them intergenic.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntervalIndexBenchmark {
+
+	/**
+	 * Number of query positions, queries are performed round robin
+	 */
+	private static final int NUM_QUERIES = 4096;
+
+	/**
+	 * Length of the simulated chromosome
+	 */
+	private static final int CHROM_LENGTH = 250_000_000;
+
+	/**
+	 * Simulated transcript
+	 */
+	static final class Transcript {
+		final int begin;
+		final int end;
+
+		Transcript(int begin, int end) {
+			this.begin = begin;
+			this.end = end;
+		}
+	}
+
+	static final class TranscriptEndExtractor implements IntervalEndExtractor<Transcript> {
+		public int getBegin(Transcript tx) {
+			return tx.begin;
+		}
+
+		public int getEnd(Transcript tx) {
+			return tx.end;
+		}
+	}
+
+	/**
+	 * Number of simulated transcripts
+	 */
+	@Param({"5000", "50000"})
+	public int numTranscripts;
+
+	private IntervalArray<Transcript> array;
+	private IntervalIndex<Transcript> index;
+	private int[] queryBegin;
+	private int[] queryEnd;
+	private int nextQuery;
+	private final ArrayList<Transcript> buffer = new ArrayList<>();
+
+	@Setup
+	public void setUp() {
+		final Random rand = new Random(42);
+		ArrayList<Transcript> transcripts = new ArrayList<>(numTranscripts);
+		for (int i = 0; i < numTranscripts; ++i) {
+			final int begin = rand.nextInt(CHROM_LENGTH);
+			final int length = rand.nextInt(100) == 0 ? rand.nextInt(2_000_000) : 1_000 + rand.nextInt(20_000);
+			transcripts.add(new Transcript(begin, Math.min(CHROM_LENGTH, begin + length)));
+		}
+		array = new IntervalArray<>(transcripts, new TranscriptEndExtractor());
+		index = new IntervalIndex<>(transcripts, new TranscriptEndExtractor());
+
+		queryBegin = new int[NUM_QUERIES];
+		queryEnd = new int[NUM_QUERIES];
+		for (int i = 0; i < NUM_QUERIES; ++i) {
+			queryBegin[i] = rand.nextInt(CHROM_LENGTH);
+			queryEnd[i] = queryBegin[i] + 1 + rand.nextInt(10);
+		}
+	}
+
+	@Benchmark
+	public void intervalArray(Blackhole bh) {
+		final int q = (nextQuery++) & (NUM_QUERIES - 1);
+		IntervalArray<Transcript>.QueryResult qr = array.findOverlappingWithInterval(queryBegin[q], queryEnd[q]);
+		bh.consume(qr.getEntries());
+		bh.consume(qr.getLeft());
+		bh.consume(qr.getRight());
+	}
+
+	@Benchmark
+	public void intervalIndex(Blackhole bh) {
+		final int q = (nextQuery++) & (NUM_QUERIES - 1);
+		buffer.clear();
+		if (index.findOverlappingWithInterval(queryBegin[q], queryEnd[q], buffer) == 0) {
+			bh.consume(index.findLeftNeighbor(queryBegin[q]));
+			bh.consume(index.findRightNeighbor(queryBegin[q]));
+		}
+		bh.consume(buffer);
+	}
+
+	@Benchmark
+	public void intervalArrayPoint(Blackhole bh) {
+		final int q = (nextQuery++) & (NUM_QUERIES - 1);
+		IntervalArray<Transcript>.QueryResult qr = array.findOverlappingWithPoint(queryBegin[q]);
+		bh.consume(qr.getEntries());
+		bh.consume(qr.getLeft());
+		bh.consume(qr.getRight());
+	}
+
+	@Benchmark
+	public void intervalIndexPoint(Blackhole bh) {
+		final int q = (nextQuery++) & (NUM_QUERIES - 1);
+		buffer.clear();
+		if (index.findOverlappingWithPoint(queryBegin[q], buffer) == 0) {
+			bh.consume(index.findLeftNeighbor(queryBegin[q]));
+			bh.consume(index.findRightNeighbor(queryBegin[q]));
+		}
+		bh.consume(buffer);
+	}
+
+}
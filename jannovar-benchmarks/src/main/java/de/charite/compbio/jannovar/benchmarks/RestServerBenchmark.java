@@ -0,0 +1,181 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import com.google.common.io.ByteStreams;
+import de.charite.compbio.jannovar.Jannovar;
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import org.openjdk.jmh.annotations.*;
+import spark.Spark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local load generator for <code>jannovar rest-server</code>, started in the benchmark JVM on a synthetic database.
+ * <p>
+ * Several client threads send SNVs either one per request (<code>POST /annotate-var</code>) or in batches
+ * (<code>POST /annotate-vars</code>). The throughput mode gives the variants per second, the sample mode gives the
+ * latency percentiles (p50, p99, ...) per variant, i.e., the latency of a batch divided by its size.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+public class RestServerBenchmark {
+
+	/**
+	 * Number of variants per batch request
+	 */
+	static final int BATCH_SIZE = 1_000;
+
+	/**
+	 * Port for the server to listen on
+	 */
+	private static final int PORT = 15050;
+
+	@State(Scope.Benchmark)
+	public static class Server {
+
+		/**
+		 * Size of the result cache, 0 for no caching; with caching, the variants are annotated once in the warmup
+		 */
+		@Param({"0", "100000"})
+		public int cacheSize;
+
+		private File tmpDir;
+		private File dbFile;
+
+		/**
+		 * Single variant request bodies
+		 */
+		List<byte[]> singleBodies;
+
+		/**
+		 * NDJSON batch request bodies
+		 */
+		List<byte[]> batchBodies;
+
+		@Setup
+		public void setUp() throws IOException, SerializationException {
+			final SyntheticData data = new SyntheticData(42, 5_000, 50_000);
+			tmpDir = Files.createTempDirectory("jannovar-benchmarks").toFile();
+			dbFile = new File(tmpDir, "hg19_synthetic.ser");
+			data.writeDatabase(dbFile);
+
+			singleBodies = new ArrayList<>();
+			for (GenomeVariant var : data.getVariants())
+				if (var.getRef().length() == 1 && var.getAlt().length() == 1)
+					singleBodies.add(("{\"source\": \"synthetic\", \"assembly\": \"hg19\", \"chr\": \""
+						+ SyntheticData.CONTIG_NAME + "\", \"pos\": " + (var.getGenomePos().getPos() + 1)
+						+ ", \"ref\": \"" + var.getRef() + "\", \"alt\": \"" + var.getAlt() + "\"}")
+						.getBytes(StandardCharsets.UTF_8));
+			batchBodies = new ArrayList<>();
+			for (int i = 0; i + BATCH_SIZE <= singleBodies.size(); i += BATCH_SIZE) {
+				final StringBuilder body = new StringBuilder();
+				for (byte[] line : singleBodies.subList(i, i + BATCH_SIZE))
+					body.append(new String(line, StandardCharsets.UTF_8)).append('\n');
+				batchBodies.add(body.toString().getBytes(StandardCharsets.UTF_8));
+			}
+
+			Jannovar.main(new String[]{"rest-server", "-d", dbFile.getPath(), "--port", Integer.toString(PORT),
+				"--cache-size", Integer.toString(cacheSize), "--preload"});
+			Spark.awaitInitialization();
+			awaitDatabase();
+		}
+
+		/**
+		 * Wait until the database has been loaded in the background.
+		 */
+		private void awaitDatabase() throws IOException {
+			for (int i = 0; i < 600; ++i) {
+				final HttpURLConnection conn = (HttpURLConnection) new URL("http://127.0.0.1:" + PORT + "/databases")
+					.openConnection();
+				try (InputStream in = conn.getInputStream()) {
+					if (new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8).contains("\"READY\""))
+						return;
+				}
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for database", e);
+				}
+			}
+			throw new IOException("Database not loaded after 60s");
+		}
+
+		@TearDown
+		public void tearDown() {
+			Spark.stop();
+			Spark.awaitStop();
+			dbFile.delete();
+			tmpDir.delete();
+		}
+
+	}
+
+	@State(Scope.Thread)
+	public static class Client {
+
+		private int nextSingle;
+		private int nextBatch;
+
+		@Setup
+		public void setUp() {
+			// spread the threads over the variants
+			nextSingle = (int) (Thread.currentThread().getId() * 7919);
+			nextBatch = (int) Thread.currentThread().getId();
+		}
+
+	}
+
+	/**
+	 * Send <code>body</code> to <code>path</code> and read the complete response.
+	 *
+	 * @return number of bytes in the response
+	 */
+	private static int post(String path, byte[] body) throws IOException {
+		final HttpURLConnection conn = (HttpURLConnection) new URL("http://127.0.0.1:" + PORT + path)
+			.openConnection();
+		conn.setRequestMethod("POST");
+		conn.setDoOutput(true);
+		conn.setFixedLengthStreamingMode(body.length);
+		try (OutputStream out = conn.getOutputStream()) {
+			out.write(body);
+		}
+		if (conn.getResponseCode() != HttpURLConnection.HTTP_OK)
+			throw new IOException("Request to " + path + " failed with status " + conn.getResponseCode());
+		try (InputStream in = conn.getInputStream()) {
+			return ByteStreams.toByteArray(in).length;
+		}
+	}
+
+	@Benchmark
+	public int singleVariant(Server server, Client client) throws IOException {
+		final List<byte[]> bodies = server.singleBodies;
+		client.nextSingle = (client.nextSingle + 1) % bodies.size();
+		return post("/annotate-var", bodies.get(client.nextSingle));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public int batch(Server server, Client client) throws IOException {
+		final List<byte[]> bodies = server.batchBodies;
+		client.nextBatch = (client.nextBatch + 1) % bodies.size();
+		return post("/annotate-vars", bodies.get(client.nextBatch));
+	}
+
+}
@@ -0,0 +1,299 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.impl.util.DNAUtils;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic transcript database and variants used as benchmark fixtures.
+ * <p>
+ * A random reference sequence is generated for the first bases of chromosome 1 and random transcripts are placed on
+ * it. The transcript sequences are taken from the reference, such that the annotation yields the same results as
+ * with a real database. The variants are SNVs and short indels, mostly in exons. Everything is derived from the seed
+ * given to the constructor, so all benchmarks see the same data over runs and releases.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class SyntheticData {
+
+	/**
+	 * Average number of reference bases per transcript
+	 */
+	private static final int BASES_PER_TRANSCRIPT = 10_000;
+
+	/**
+	 * Name of the contig that the data is placed on
+	 */
+	public static final String CONTIG_NAME = "1";
+
+	/**
+	 * Reference dictionary to use
+	 */
+	private final ReferenceDictionary refDict;
+
+	/**
+	 * Numeric ID of {@link #CONTIG_NAME}
+	 */
+	private final int chr;
+
+	/**
+	 * Random reference sequence, starting at position 0 of {@link #CONTIG_NAME}
+	 */
+	private final byte[] reference;
+
+	/**
+	 * Generated transcripts
+	 */
+	private final ImmutableList<TranscriptModel> transcripts;
+
+	/**
+	 * Generated variants, sorted by position
+	 */
+	private final ImmutableList<GenomeVariant> variants;
+
+	/**
+	 * {@link JannovarData} with {@link #transcripts}
+	 */
+	private final JannovarData jannovarData;
+
+	/**
+	 * Generate synthetic data set.
+	 *
+	 * @param seed           seed for the random number generator
+	 * @param numTranscripts number of transcripts to generate
+	 * @param numVariants    number of variants to generate
+	 */
+	public SyntheticData(long seed, int numTranscripts, int numVariants) {
+		final Random rand = new Random(seed);
+		this.refDict = HG19RefDictBuilder.build();
+		this.chr = refDict.getContigNameToID().get(CONTIG_NAME);
+		this.reference = new byte[Math.max(1_000_000, numTranscripts * BASES_PER_TRANSCRIPT)];
+		for (int i = 0; i < reference.length; ++i)
+			reference[i] = (byte) "ACGT".charAt(rand.nextInt(4));
+		this.transcripts = buildTranscripts(rand, numTranscripts);
+		this.variants = buildVariants(rand, numVariants);
+		this.jannovarData = new JannovarData(refDict, transcripts);
+	}
+
+	/**
+	 * @return reference dictionary of the data set
+	 */
+	public ReferenceDictionary getRefDict() {
+		return refDict;
+	}
+
+	/**
+	 * @return the generated transcripts
+	 */
+	public ImmutableList<TranscriptModel> getTranscripts() {
+		return transcripts;
+	}
+
+	/**
+	 * @return the generated variants, sorted by position
+	 */
+	public ImmutableList<GenomeVariant> getVariants() {
+		return variants;
+	}
+
+	/**
+	 * @return {@link JannovarData} with the generated transcripts
+	 */
+	public JannovarData getJannovarData() {
+		return jannovarData;
+	}
+
+	/**
+	 * @param var variant to query for
+	 * @return transcripts overlapping with <code>var</code>
+	 */
+	public List<TranscriptModel> findOverlapping(GenomeVariant var) {
+		final GenomeInterval region = var.getGenomeInterval().withStrand(Strand.FWD);
+		ArrayList<TranscriptModel> result = new ArrayList<>();
+		// insertions have an empty interval, query with the position left of it as VariantAnnotator does
+		if (region.length() == 0)
+			jannovarData.getChromosomes().get(chr).getTMIntervalIndex().findOverlappingWithPoint(
+				region.getBeginPos(), result);
+		else
+			jannovarData.getChromosomes().get(chr).getTMIntervalIndex().findOverlappingWithInterval(
+				region.getBeginPos(), region.getEndPos(), result);
+		return result;
+	}
+
+	/**
+	 * Write the transcripts to a Jannovar database file.
+	 *
+	 * @param file path to the <code>.ser</code> file to write
+	 * @throws SerializationException on problems writing the file
+	 */
+	public void writeDatabase(File file) throws SerializationException {
+		new JannovarDataSerializer(file.getPath()).save(jannovarData);
+	}
+
+	/**
+	 * Write the variants to a sites-only VCF file, with indels anchored at the preceding base.
+	 *
+	 * @param file path to the <code>.vcf</code> file to write
+	 * @throws IOException on problems writing the file
+	 */
+	public void writeVCF(File file) throws IOException {
+		try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name())) {
+			out.println("##fileformat=VCFv4.2");
+			out.println("##contig=<ID=" + CONTIG_NAME + ",length=" + refDict.getContigIDToLength().get(chr) + ">");
+			out.println("#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO");
+			// anchoring moves indels one base left, sort by VCF position so the file can be indexed
+			final List<GenomeVariant> sorted = new ArrayList<>(variants);
+			sorted.sort(Comparator.comparingInt(SyntheticData::getVCFPos));
+			for (GenomeVariant var : sorted) {
+				final int pos = var.getGenomePos().getPos();
+				final String ref, alt;
+				if (var.getRef().isEmpty() || var.getAlt().isEmpty()) {
+					final char anchor = (char) reference[pos - 1];
+					ref = anchor + var.getRef();
+					alt = anchor + var.getAlt();
+				} else {
+					ref = var.getRef();
+					alt = var.getAlt();
+				}
+				out.println(CONTIG_NAME + "\t" + getVCFPos(var) + "\t.\t" + ref + "\t" + alt + "\t.\t.\t.");
+			}
+		}
+	}
+
+	/**
+	 * @return one-based position of <code>var</code> in the VCF file, indels are anchored at the preceding base
+	 */
+	private static int getVCFPos(GenomeVariant var) {
+		final int pos = var.getGenomePos().getPos();
+		if (var.getRef().isEmpty() || var.getAlt().isEmpty())
+			return pos;
+		else
+			return pos + 1;
+	}
+
+	/**
+	 * @return reference sequence of <code>[begin, end)</code> on the forward strand
+	 */
+	private String getReference(int begin, int end) {
+		return new String(reference, begin, end - begin, StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Place <code>count</code> transcripts with 2-12 exons on the reference.
+	 */
+	private ImmutableList<TranscriptModel> buildTranscripts(Random rand, int count) {
+		ImmutableList.Builder<TranscriptModel> result = ImmutableList.builder();
+		TranscriptModelBuilder builder = new TranscriptModelBuilder();
+		for (int i = 0; i < count; ++i) {
+			builder.reset();
+			final Strand strand = rand.nextBoolean() ? Strand.FWD : Strand.REV;
+			builder.setStrand(strand);
+			builder.setAccession(String.format("NM_%06d", i + 1));
+			builder.setTxVersion("1");
+			builder.setGeneSymbol(String.format("GENE%d", i + 1));
+			builder.setGeneID(String.format("ENTREZ%d", i + 1));
+
+			// Exons, all positions on the forward strand.
+			final int numExons = 2 + rand.nextInt(11);
+			final int[] exonBegin = new int[numExons];
+			final int[] exonEnd = new int[numExons];
+			int pos = 1 + rand.nextInt(reference.length - 60_000);
+			for (int j = 0; j < numExons; ++j) {
+				if (j > 0)
+					pos += 200 + rand.nextInt(4_000); // intron
+				exonBegin[j] = pos;
+				exonEnd[j] = pos + 80 + rand.nextInt(320);
+				pos = exonEnd[j];
+			}
+
+			StringBuilder seq = new StringBuilder();
+			for (int j = 0; j < numExons; ++j) {
+				builder.addExonRegion(new GenomeInterval(refDict, Strand.FWD, chr, exonBegin[j], exonEnd[j],
+					PositionType.ZERO_BASED));
+				seq.append(getReference(exonBegin[j], exonEnd[j]));
+			}
+			builder.setSequence(strand == Strand.FWD ? seq.toString() : DNAUtils.reverseComplement(seq.toString()));
+			builder.setTXRegion(new GenomeInterval(refDict, Strand.FWD, chr, exonBegin[0], exonEnd[numExons - 1],
+				PositionType.ZERO_BASED));
+			// The CDS starts in the first and ends in the last exon, leaving UTRs on both sides, and has a length
+			// divisible by three.
+			final int cdsBegin = exonBegin[0] + 1 + rand.nextInt(exonEnd[0] - exonBegin[0] - 1);
+			final int last = numExons - 1;
+			int cdsEnd = exonBegin[last] + 3 + rand.nextInt(exonEnd[last] - exonBegin[last] - 4);
+			int cdsLength = (exonEnd[0] - cdsBegin) + (cdsEnd - exonBegin[last]);
+			for (int j = 1; j < last; ++j)
+				cdsLength += exonEnd[j] - exonBegin[j];
+			cdsEnd -= cdsLength % 3;
+			builder.setCDSRegion(new GenomeInterval(refDict, Strand.FWD, chr, cdsBegin, cdsEnd,
+				PositionType.ZERO_BASED));
+
+			result.add(builder.build());
+		}
+		return result.build();
+	}
+
+	/**
+	 * Build <code>count</code> variants, 80% SNVs and 10% insertions and deletions each. About two thirds of the
+	 * variants are placed into exons.
+	 */
+	private ImmutableList<GenomeVariant> buildVariants(Random rand, int count) {
+		ArrayList<GenomeVariant> result = new ArrayList<>(count);
+		for (int i = 0; i < count; ++i) {
+			final int pos;
+			if (rand.nextInt(3) != 0) {
+				final TranscriptModel tm = transcripts.get(rand.nextInt(transcripts.size()));
+				final GenomeInterval exon = tm.getExonRegions().get(rand.nextInt(tm.getExonRegions().size()))
+					.withStrand(Strand.FWD);
+				pos = exon.getBeginPos() + rand.nextInt(exon.length());
+			} else {
+				pos = 1 + rand.nextInt(reference.length - 100);
+			}
+
+			final int kind = rand.nextInt(10);
+			final String ref, alt;
+			if (kind == 0) { // insertion
+				ref = "";
+				alt = randomSequence(rand, 1 + rand.nextInt(6));
+			} else if (kind == 1) { // deletion
+				ref = getReference(pos, pos + 1 + rand.nextInt(6));
+				alt = "";
+			} else { // SNV
+				ref = getReference(pos, pos + 1);
+				alt = Character.toString("ACGT".replace(ref, "").charAt(rand.nextInt(3)));
+			}
+			result.add(new GenomeVariant(new GenomePosition(refDict, Strand.FWD, chr, pos, PositionType.ZERO_BASED),
+				ref, alt));
+		}
+		Collections.sort(result, Comparator.comparingInt(v -> v.getGenomePos().getPos()));
+		return ImmutableList.copyOf(result);
+	}
+
+	private static String randomSequence(Random rand, int length) {
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < length; ++i)
+			result.append("ACGT".charAt(rand.nextInt(4)));
+		return result.toString();
+	}
+
+}
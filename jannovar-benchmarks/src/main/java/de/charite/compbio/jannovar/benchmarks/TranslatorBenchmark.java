@@ -0,0 +1,78 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import de.charite.compbio.jannovar.impl.util.DNAUtils;
+import de.charite.compbio.jannovar.impl.util.Translator;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptProjectionDecorator;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translate and reverse-complement coding sequences with {@link Translator} and {@link DNAUtils}.
+ * <p>
+ * The coding sequences are those of the synthetic transcripts and thus have the length distribution of a few exons.
+ * The <code>*Bytes</code> benchmarks use the kernels on ASCII buffers.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TranslatorBenchmark {
+
+	private final Translator translator = Translator.getTranslator();
+	private String[] sequences;
+	private byte[][] sequenceBytes;
+	private int nextQuery;
+
+	@Setup
+	public void setUp() {
+		final SyntheticData data = new SyntheticData(42, 2_000, 0);
+		sequences = new String[data.getTranscripts().size()];
+		int i = 0;
+		for (TranscriptModel tm : data.getTranscripts())
+			sequences[i++] = new TranscriptProjectionDecorator(tm).getCDSTranscript();
+		sequenceBytes = new byte[sequences.length][];
+		for (i = 0; i < sequences.length; ++i)
+			sequenceBytes[i] = sequences[i].getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private int nextQuery() {
+		final int q = nextQuery;
+		nextQuery = (q + 1) % sequences.length;
+		return q;
+	}
+
+	@Benchmark
+	public String translateDNA() {
+		return translator.translateDNA(sequences[nextQuery()], true);
+	}
+
+	@Benchmark
+	public String translateDNA3() {
+		return translator.translateDNA3(sequences[nextQuery()], true);
+	}
+
+	@Benchmark
+	public byte[] translateDNABytes() {
+		final byte[] seq = sequenceBytes[nextQuery()];
+		return translator.translateDNA(seq, 0, seq.length, true);
+	}
+
+	@Benchmark
+	public String reverseComplement() {
+		return DNAUtils.reverseComplement(sequences[nextQuery()]);
+	}
+
+	@Benchmark
+	public byte[] reverseComplementBytes() {
+		final byte[] seq = sequenceBytes[nextQuery()];
+		return DNAUtils.reverseComplement(seq, 0, seq.length);
+	}
+
+}
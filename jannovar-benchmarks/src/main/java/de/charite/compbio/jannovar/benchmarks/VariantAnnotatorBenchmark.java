@@ -0,0 +1,48 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import de.charite.compbio.jannovar.annotation.AnnotationException;
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Annotate single variants with {@link VariantAnnotator}, including the transcript lookup.
+ * <p>
+ * One operation is one annotated variant, so running this with the GC profiler (<code>-prof gc</code>) gives the
+ * allocation per annotated variant as <code>gc.alloc.rate.norm</code>.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VariantAnnotatorBenchmark {
+
+	private VariantAnnotator annotator;
+	private GenomeVariant[] changes;
+	private int nextQuery;
+
+	@Setup
+	public void setUp() {
+		final SyntheticData data = new SyntheticData(42, 2_000, 10_000);
+		final JannovarData jannovarData = data.getJannovarData();
+		annotator = new VariantAnnotator(jannovarData.getRefDict(), jannovarData.getChromosomes(),
+			new AnnotationBuilderOptions());
+		changes = data.getVariants().toArray(new GenomeVariant[0]);
+	}
+
+	@Benchmark
+	public Object buildAnnotations() throws AnnotationException {
+		final int q = nextQuery;
+		nextQuery = (q + 1) % changes.length;
+		return annotator.buildAnnotations(changes[q]);
+	}
+
+}
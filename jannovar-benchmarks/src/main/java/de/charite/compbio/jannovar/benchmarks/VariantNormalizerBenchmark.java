@@ -0,0 +1,100 @@
+package de.charite.compbio.jannovar.benchmarks;
+
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.VariantDescription;
+import de.charite.compbio.jannovar.vardbs.base.VariantNormalizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Left-shift indels in homopolymers and microsatellites with the {@link VariantNormalizer} of the variant database
+ * annotation, on a synthetic FAI-indexed FASTA file.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VariantNormalizerBenchmark {
+
+	private static final String CONTIG_NAME = "1";
+
+	/**
+	 * Number of repeats in the synthetic contig
+	 */
+	private static final int NUM_REPEATS = 20_000;
+
+	private File tmpDir;
+	private VariantNormalizer normalizer;
+	private VariantDescription[] variants;
+	private int nextQuery;
+
+	@Setup
+	public void setUp() throws IOException, JannovarVarDBException {
+		// random sequence with a homopolymer or dinucleotide repeat of 5-40 bases every 200 bases; each variant
+		// deletes or inserts one repeat unit at the end of a repeat, such that it is shifted through the repeat
+		final Random rand = new Random(42);
+		final String alphabet = "ACGT";
+		final StringBuilder seq = new StringBuilder();
+		final List<VariantDescription> vars = new ArrayList<>();
+		for (int i = 0; i < NUM_REPEATS; ++i) {
+			for (int j = 0; j < 200; ++j)
+				seq.append(alphabet.charAt(rand.nextInt(4)));
+			final String unit = (i % 2 == 0) ? "A" : "CA";
+			final int copies = (5 + rand.nextInt(36)) / unit.length();
+			for (int j = 0; j < copies; ++j)
+				seq.append(unit);
+			// VCF-style description, including the base left of the indel (0-based position)
+			final int pos = seq.length() - 1;
+			final String left = seq.substring(pos, pos + 1);
+			if (i % 4 < 2)
+				vars.add(new VariantDescription(CONTIG_NAME, pos, left + unit, left));
+			else
+				vars.add(new VariantDescription(CONTIG_NAME, pos, left, left + unit));
+		}
+		seq.append("GATTACA");
+		variants = vars.toArray(new VariantDescription[0]);
+
+		tmpDir = Files.createTempDirectory("jannovar-benchmarks").toFile();
+		final File fastaFile = new File(tmpDir, "ref.fa");
+		final String header = ">" + CONTIG_NAME + "\n";
+		try (OutputStream out = new FileOutputStream(fastaFile)) {
+			out.write(header.getBytes(StandardCharsets.US_ASCII));
+			for (int i = 0; i < seq.length(); i += 60)
+				out.write((seq.substring(i, Math.min(i + 60, seq.length())) + "\n").getBytes(StandardCharsets.US_ASCII));
+		}
+		try (OutputStream out = new FileOutputStream(fastaFile.getPath() + ".fai")) {
+			out.write((CONTIG_NAME + "\t" + seq.length() + "\t" + header.length() + "\t60\t61\n")
+				.getBytes(StandardCharsets.US_ASCII));
+		}
+		normalizer = new VariantNormalizer(fastaFile.getPath());
+	}
+
+	@TearDown
+	public void tearDown() {
+		new File(tmpDir, "ref.fa.fai").delete();
+		new File(tmpDir, "ref.fa").delete();
+		tmpDir.delete();
+	}
+
+	@Benchmark
+	public VariantDescription normalizeVariant() {
+		final int q = nextQuery;
+		nextQuery = (q + 1) % variants.length;
+		return normalizer.normalizeVariant(variants[q]);
+	}
+
+}
@@ -4,6 +4,8 @@ import de.charite.compbio.jannovar.cmd.JannovarCommand;
 import de.charite.compbio.jannovar.cmd.annotate_csv.JannovarAnnotateCSVOptions;
 import de.charite.compbio.jannovar.cmd.annotate_pos.JannovarAnnotatePosOptions;
 import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions;
+import de.charite.compbio.jannovar.cmd.convert_db.JannovarConvertDBOptions;
+import de.charite.compbio.jannovar.cmd.convert_fasta.JannovarConvertFASTAOptions;
 import de.charite.compbio.jannovar.cmd.db_list.JannovarDBListOptions;
 import de.charite.compbio.jannovar.cmd.download.JannovarDownloadOptions;
 import de.charite.compbio.jannovar.cmd.hgvs_to_vcf.ProjectTranscriptToChromosomeOptions;
@@ -43,6 +45,8 @@ public final class Jannovar {
 		JannovarAnnotatePosOptions.setupParser(subParsers);
 		JannovarAnnotateCSVOptions.setupParser(subParsers);
 		JannovarAnnotateVCFOptions.setupParser(subParsers);
+		JannovarConvertDBOptions.setupParser(subParsers);
+		JannovarConvertFASTAOptions.setupParser(subParsers);
 		JannovarDBListOptions.setupParser(subParsers);
 		JannovarDownloadOptions.setupParser(subParsers);
 		JannovarGatherStatisticsOptions.setupParser(subParsers);
@@ -6,6 +6,7 @@ import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.JannovarDataSerializer;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.data.TranscriptFilter;
 
 /**
  * Base class for commands needing annotation data.
@@ -38,7 +39,21 @@ public abstract class JannovarAnnotationCommand extends JannovarCommand {
 	 */
 	protected void deserializeTranscriptDefinitionFile(String pathToDataFile)
 		throws JannovarException, HelpRequestedException {
-		this.jannovarData = new JannovarDataSerializer(pathToDataFile).load();
+		deserializeTranscriptDefinitionFile(pathToDataFile, TranscriptFilter.ALL);
+	}
+
+	/**
+	 * Deserialize the transcript definition file from {@link pathToDataFile}, keeping only the transcripts passing
+	 * <code>filter</code>.
+	 *
+	 * @param pathToDataFile String with the path to the data file to deserialize
+	 * @param filter         {@link TranscriptFilter} selecting the transcripts to keep
+	 * @throws JannovarException      when there is a problem with the deserialization
+	 * @throws HelpRequestedException when the user requested the help page
+	 */
+	protected void deserializeTranscriptDefinitionFile(String pathToDataFile, TranscriptFilter filter)
+		throws JannovarException, HelpRequestedException {
+		this.jannovarData = new JannovarDataSerializer(pathToDataFile).load(filter);
 		this.refDict = this.jannovarData.getRefDict();
 		this.chromosomeMap = this.jannovarData.getChromosomes();
 	}
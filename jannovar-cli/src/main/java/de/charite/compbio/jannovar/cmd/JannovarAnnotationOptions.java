@@ -1,11 +1,20 @@
 package de.charite.compbio.jannovar.cmd;
 
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.data.TranscriptFilter;
 import net.sourceforge.argparse4j.impl.Arguments;
 import net.sourceforge.argparse4j.inf.ArgumentGroup;
 import net.sourceforge.argparse4j.inf.ArgumentParser;
 import net.sourceforge.argparse4j.inf.Namespace;
 import net.sourceforge.argparse4j.inf.Subparsers;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Configuration for the annotation commands
  *
@@ -34,6 +43,26 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 	 */
 	private String databaseFilePath = null;
 
+	/**
+	 * Path to file with gene symbols, gene IDs, or transcript accessions to load, <code>null</code> for all
+	 */
+	private String geneListPath = null;
+
+	/**
+	 * Names of the contigs to load transcripts for, empty for all
+	 */
+	private List<String> contigs = new ArrayList<>();
+
+	/**
+	 * Whether to load only coding transcripts
+	 */
+	private boolean codingOnly = false;
+
+	/**
+	 * Whether to load only the transcript with the best support level of each gene
+	 */
+	private boolean canonicalOnly = false;
+
 	/**
 	 * Setup {@link ArgumentParser}
 	 *
@@ -50,6 +79,26 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 		JannovarBaseOptions.setupParser(subParser);
 	}
 
+	/**
+	 * Setup the arguments for restricting the transcripts loaded from the database
+	 *
+	 * @param subParser {@link ArgumentParser} to setup
+	 */
+	public static void setupTranscriptFilterParser(ArgumentParser subParser) {
+		ArgumentGroup filterGroup = subParser.addArgumentGroup("Transcript Selection Arguments (optional)");
+		filterGroup.addArgument("--gene-list")
+			.help("Path to file with gene symbols, gene IDs, or transcript accessions (one per line) to load "
+				+ "transcripts for");
+		filterGroup.addArgument("--contigs").help("Names of the contigs to load transcripts for").nargs("+")
+			.setDefault(new ArrayList<String>());
+		filterGroup.addArgument("--coding-only").help("Load only coding transcripts").setDefault(false)
+			.action(Arguments.storeTrue());
+		filterGroup.addArgument("--canonical-only")
+			.help("Load only the transcript with the best support level of each gene and contig (e.g., "
+				+ "UCSC canonical or longest transcript)")
+			.setDefault(false).action(Arguments.storeTrue());
+	}
+
 
 	@Override
 	public void setFromArgs(Namespace args) throws CommandLineParsingException {
@@ -59,6 +108,31 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 		nt3PrimeShifting = args.getBoolean("3_prime_shifting");
 		databaseFilePath = args.getString("database");
 		showAll = args.getBoolean("show_all");
+		// the transcript selection arguments are only registered for some commands
+		geneListPath = args.getString("gene_list");
+		if (args.getList("contigs") != null)
+			contigs = args.getList("contigs");
+		codingOnly = Boolean.TRUE.equals(args.getBoolean("coding_only"));
+		canonicalOnly = Boolean.TRUE.equals(args.getBoolean("canonical_only"));
+	}
+
+	/**
+	 * Build the {@link TranscriptFilter} from the transcript selection arguments, reading the gene list file
+	 *
+	 * @return the {@link TranscriptFilter} to use for loading the database
+	 * @throws JannovarException if the gene list file could not be read
+	 */
+	public TranscriptFilter buildTranscriptFilter() throws JannovarException {
+		List<String> geneIdentifiers = new ArrayList<>();
+		if (geneListPath != null) {
+			try {
+				geneIdentifiers.addAll(TranscriptFilter.parseGeneList(
+					Files.readAllLines(Paths.get(geneListPath), StandardCharsets.UTF_8)));
+			} catch (IOException e) {
+				throw new JannovarException("Could not read gene list file " + geneListPath, e);
+			}
+		}
+		return new TranscriptFilter(geneIdentifiers, contigs, codingOnly, canonicalOnly);
 	}
 
 	public boolean isUseThreeLetterAminoAcidCode() {
@@ -85,6 +159,38 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 		this.databaseFilePath = databaseFilePath;
 	}
 
+	public String getGeneListPath() {
+		return geneListPath;
+	}
+
+	public void setGeneListPath(String geneListPath) {
+		this.geneListPath = geneListPath;
+	}
+
+	public List<String> getContigs() {
+		return contigs;
+	}
+
+	public void setContigs(List<String> contigs) {
+		this.contigs = contigs;
+	}
+
+	public boolean isCodingOnly() {
+		return codingOnly;
+	}
+
+	public void setCodingOnly(boolean codingOnly) {
+		this.codingOnly = codingOnly;
+	}
+
+	public boolean isCanonicalOnly() {
+		return canonicalOnly;
+	}
+
+	public void setCanonicalOnly(boolean canonicalOnly) {
+		this.canonicalOnly = canonicalOnly;
+	}
+
 	public boolean isShowAll() {
 		return showAll;
 	}
@@ -97,7 +203,8 @@ public class JannovarAnnotationOptions extends JannovarBaseOptions {
 	public String toString() {
 		return "JannovarAnnotationOptions [useThreeLetterAminoAcidCode=" + useThreeLetterAminoAcidCode
 			+ ", nt3PrimeShifting=" + nt3PrimeShifting + ", showAll=" + showAll + ", databaseFilePath="
-			+ databaseFilePath + ", toString()=" + super.toString() + "]";
+			+ databaseFilePath + ", geneListPath=" + geneListPath + ", contigs=" + contigs + ", codingOnly="
+			+ codingOnly + ", canonicalOnly=" + canonicalOnly + ", toString()=" + super.toString() + "]";
 	}
 
 }
@@ -57,7 +57,7 @@ public class AnnotateCSVCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.buildTranscriptFilter());
 
 		final AnnotationBuilderOptions abOptions = new AnnotationBuilderOptions(options.isNt3PrimeShifting(), false);
 		final VariantAnnotator annotator = new VariantAnnotator(refDict, chromosomeMap, abOptions);
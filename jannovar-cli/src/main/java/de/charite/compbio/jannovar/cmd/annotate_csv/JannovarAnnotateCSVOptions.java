@@ -62,6 +62,7 @@ public class JannovarAnnotateCSVOptions extends JannovarAnnotationOptions {
 		subParser.epilog(
 			"Example: java -jar Jannovar.jar annotate-csv -d hg19_refseq.ser -c 1 -p 2 -r 3 -r 4 -t TDF --header -i input.csv");
 
+		JannovarAnnotationOptions.setupTranscriptFilterParser(subParser);
 		JannovarAnnotationOptions.setupParser(subParser);
 	}
 
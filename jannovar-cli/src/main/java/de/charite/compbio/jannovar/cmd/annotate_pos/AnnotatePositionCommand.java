@@ -49,7 +49,7 @@ public class AnnotatePositionCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.buildTranscriptFilter());
 
 
 		final AnnotationBuilderOptions abOptions = new AnnotationBuilderOptions(options.isNt3PrimeShifting(), false);
@@ -46,6 +46,7 @@ public class JannovarAnnotatePosOptions extends JannovarAnnotationOptions {
 
 		subParser.epilog("Example: java -jar Jannovar.jar annotate-pos -d hg19_refseq.ser -c 'chr1:12345C>A'");
 
+		JannovarAnnotationOptions.setupTranscriptFilterParser(subParser);
 		JannovarAnnotationOptions.setupParser(subParser);
 	}
 
@@ -32,8 +32,11 @@ import de.charite.compbio.jannovar.vardbs.generic_vcf.GenericVCFAnnotationOption
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.util.CloseableIterator;
 import htsjdk.samtools.util.Interval;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFCodec;
 import htsjdk.variant.vcf.VCFContigHeaderLine;
 import htsjdk.variant.vcf.VCFFileReader;
 import htsjdk.variant.vcf.VCFHeader;
@@ -46,6 +49,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -90,7 +95,7 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 
 		System.err.println("Deserializing transcripts...");
-		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
+		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath(), options.buildTranscriptFilter());
 
 		final String vcfPath = options.getPathInputVCF();
 
@@ -99,7 +104,7 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 			&& !options.getInterval().equals(""));
 
 		try (VCFFileReader vcfReader = new VCFFileReader(new File(vcfPath), useInterval)) {
-			if (this.options.getVerbosity() >= 1) {
+			if (this.options.getVerbosity() >= 1 && !options.isScatter()) {
 				final SAMSequenceDictionary seqDict = VCFFileReader
 					.getSequenceDictionary(new File(vcfPath));
 				if (seqDict != null) {
@@ -120,10 +125,12 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 			final long startTime = System.nanoTime();
 
 			// Jump to interval if given, otherwise start at beginning
-			CloseableIterator<VariantContext> iter;
-			if (useInterval) {
+			CloseableIterator<VariantContext> iter = null;
+			if (options.isScatter()) {
+				System.err.println("Will read shards of input file");
+			} else if (useInterval) {
 				Interval itv = RegionParser.parse(options.getInterval());
-				int end = 1000 * 1000 * 1000; // "some large number"
+				int end = ShardPlanner.UNKNOWN_CONTIG_LENGTH;
 				for (VCFContigHeaderLine line : vcfHeader.getContigLines()) {
 					if (line.getID().equals(itv.getContig()))
 						end = line.getSAMSequenceRecord().getSequenceLength();
@@ -137,137 +144,11 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 				iter = vcfReader.iterator();
 			}
 
-			// Obtain Java 8 stream from iterator
-			Stream<VariantContext> stream = iter.stream();
-
-			// If configured, annotate using dbSNP VCF file (extend header to
-			// use for writing out)
-			if (options.pathVCFDBSNP != null) {
-				DBAnnotationOptions dbSNPOptions = DBAnnotationOptions.createDefaults();
-				dbSNPOptions.setIdentifierPrefix(options.prefixDBSNP);
-				DBVariantContextAnnotator dbSNPAnno = new DBVariantContextAnnotatorFactory()
-					.constructDBSNP(options.pathVCFDBSNP, options.pathFASTARef, dbSNPOptions);
-				dbSNPAnno.extendHeader(vcfHeader);
-				stream = stream.map(dbSNPAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using ExAC VCF file (extend header to use
-			// for writing out)
-			if (options.pathVCFExac != null) {
-				DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
-				exacOptions.setIdentifierPrefix(options.prefixExac);
-				DBVariantContextAnnotator exacAnno = new DBVariantContextAnnotatorFactory()
-					.constructExac(options.pathVCFExac, options.pathFASTARef, exacOptions);
-				exacAnno.extendHeader(vcfHeader);
-				stream = stream.map(exacAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using gnomAD exomes VCF file (extend
-			// header to use for
-			// writing out)
-			if (options.pathVCFGnomadExomes != null) {
-				DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
-				gnomadOptions.setIdentifierPrefix(options.prefixGnomadExomes);
-				DBVariantContextAnnotator gnomadExomesAnno = new DBVariantContextAnnotatorFactory()
-					.constructGnomad(options.pathVCFGnomadExomes, options.pathFASTARef,
-						gnomadOptions);
-				gnomadExomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(gnomadExomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using gnomAD genomes VCF file (extend
-			// header to use for
-			// writing out)
-			if (options.pathVCFGnomadGenomes != null) {
-				DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
-				gnomadOptions.setIdentifierPrefix(options.prefixGnomadGenomes);
-				DBVariantContextAnnotator gnomadGenomesAnno = new DBVariantContextAnnotatorFactory()
-					.constructGnomad(options.pathVCFGnomadGenomes, options.pathFASTARef,
-						gnomadOptions);
-				gnomadGenomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(gnomadGenomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using thousand genomes VCF file (extend
-			// header to use for writing out)
-			if (options.pathThousandGenomes != null) {
-				DBAnnotationOptions thousandGenomesOptions = DBAnnotationOptions.createDefaults();
-				thousandGenomesOptions.setIdentifierPrefix(options.prefixThousandGenomes);
-				DBVariantContextAnnotator thousandGenomesAnno = new DBVariantContextAnnotatorFactory()
-					.constructThousandGenomes(options.pathThousandGenomes, options.pathFASTARef,
-						thousandGenomesOptions);
-				thousandGenomesAnno.extendHeader(vcfHeader);
-				stream = stream.map(thousandGenomesAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using UK10K VCF file (extend header to
-			// use for writing out)
-			if (options.pathVCFUK10K != null) {
-				DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
-				exacOptions.setIdentifierPrefix(options.prefixUK10K);
-				DBVariantContextAnnotator uk10kAnno = new DBVariantContextAnnotatorFactory()
-					.constructUK10K(options.pathVCFUK10K, options.pathFASTARef, exacOptions);
-				uk10kAnno.extendHeader(vcfHeader);
-				stream = stream.map(uk10kAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using ClinVar VCF file (extend header to
-			// use for writing out)
-			if (options.pathClinVar != null) {
-				DBAnnotationOptions clinVarOptions = DBAnnotationOptions.createDefaults();
-				clinVarOptions.setIdentifierPrefix(options.prefixClinVar);
-				DBVariantContextAnnotator clinvarAnno = new DBVariantContextAnnotatorFactory()
-					.constructClinVar(options.pathClinVar, options.pathFASTARef,
-						clinVarOptions);
-				clinvarAnno.extendHeader(vcfHeader);
-				stream = stream.map(clinvarAnno::annotateVariantContext);
-			}
-
-			// If configured, annotate using COSMIC VCF file (extend header to
-			// use for writing out)
-			if (options.pathCosmic != null) {
-				DBAnnotationOptions cosmicOptions = DBAnnotationOptions.createDefaults();
-				cosmicOptions.setIdentifierPrefix(options.prefixCosmic);
-				DBVariantContextAnnotator cosmicAnno = new DBVariantContextAnnotatorFactory()
-					.constructCosmic(options.pathCosmic, options.pathFASTARef, cosmicOptions);
-				cosmicAnno.extendHeader(vcfHeader);
-				stream = stream.map(cosmicAnno::annotateVariantContext);
-			}
-
-			// Add step for annotating with variant effect
-			VariantEffectHeaderExtender extender = new VariantEffectHeaderExtender();
-			extender.addHeaders(vcfHeader);
-			VariantContextAnnotator variantEffectAnnotator = new VariantContextAnnotator(refDict,
-				chromosomeMap,
-				new VariantContextAnnotator.Options(!options.isShowAll(),
-					(options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER
-						: AminoAcidCode.ONE_LETTER),
-					options.isEscapeAnnField(), options.isNt3PrimeShifting(),
-					options.isOffTargetFilterEnabled(),
-					options.isOffTargetFilterUtrIsOffTarget(),
-					options.isOffTargetFilterIntronicSpliceIsOffTarget()));
-			stream = stream.map(variantEffectAnnotator::annotateVariantContext);
-
-			// If configured, use threshold-based annotation (extend header to
-			// use for writing out)
-			ArrayList<String> affecteds = new ArrayList<>();
+			// If configured, load pedigree for threshold-based annotation; this is done once and shared by all copies
+			// of the annotation steps
+			List<String> affecteds = new ArrayList<>();
+			Pedigree filterPedigree = null;
 			if (options.useThresholdFilters) {
-				// Build options object for threshold filter
-				ThresholdFilterOptions thresholdFilterOptions = new ThresholdFilterOptions(
-					options.getThreshFiltMinGtCovHet(), options.getThreshFiltMinGtCovHomAlt(),
-					options.getThreshFiltMaxCov(), options.getThreshFiltMinGtGq(),
-					options.getThreshFiltMinGtAafHet(), options.getThreshFiltMaxGtAafHet(),
-					options.getThreshFiltMinGtAafHomAlt(),
-					options.getThreshFiltMaxGtAafHomRef(), options.getPrefixExac(),
-					options.getPrefixDBSNP(), options.getPrefixGnomadGenomes(),
-					options.getPrefixGnomadExomes(),
-					options.getPrefixThousandGenomes(),
-					options.getThreshFiltMaxAlleleFrequencyAd(),
-					options.getThreshFiltMaxAlleleFrequencyAr(),
-					options.getThreshFiltMaxExacHomAlt(),
-					options.getThreshFiltMaxThousandGenomesHomAlt());
-				// Add headers
-				new ThresholdFilterHeaderExtender(thresholdFilterOptions).addHeaders(vcfHeader);
 				// Build list of affecteds; take from pedigree file if given.
 				// Otherwise, assume one single individual is always affected and otherwise warn
 				// about missing pedigree.
@@ -300,23 +181,11 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 								+ "only genotype FT");
 					}
 				}
-				GenotypeThresholdFilterAnnotator gtThresholdFilterAnno = new GenotypeThresholdFilterAnnotator(
-					thresholdFilterOptions);
-				stream = stream.map(gtThresholdFilterAnno::annotateVariantContext);
 
-				// When configured to use advanced pedigree filters (must come
-				// after threshold-based filtration)
+				// Load pedigree for the advanced pedigree filters
 				if (options.useAdvancedPedigreeFilters) {
-					// Build options object from configuration and extend headers
-					PedigreeFilterOptions pedFilterOptions = new PedigreeFilterOptions(
-						options.getThreshDeNovoParentAd2(), options.isUseParentGtIsFiltered(),
-						options.isOneParentGtFilteredFiltersAffected());
-					new PedigreeFilterHeaderExtender(pedFilterOptions).addHeaders(vcfHeader);
-
-					// Load pedigree
-					Pedigree pedigree;
 					try {
-						pedigree = loadPedigree(vcfHeader);
+						filterPedigree = loadPedigree(vcfHeader);
 					} catch (IOException e) {
 						System.err.println("Problem loading pedigree from " + options.pathPedFile);
 						System.err.println(e.getMessage());
@@ -324,70 +193,12 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 						e.printStackTrace(System.err);
 						return;
 					}
-
-					// Construct annotator and register with pipeline
-					PedigreeFilterAnnotator pedFilterAnnotator = new PedigreeFilterAnnotator(
-						pedFilterOptions, pedigree);
-					stream = stream.map(pedFilterAnnotator::annotateVariantContext);
 				}
-
-				if (options.useThresholdFilters) {
-					VariantThresholdFilterAnnotator varThresholdFilterAnno = new VariantThresholdFilterAnnotator(
-						thresholdFilterOptions, affecteds);
-					stream = stream.map(varThresholdFilterAnno::annotateVariantContext);
-				}
-			}
-
-			// Annotate from BED files
-			List<BedFileAnnotator> bedFileAnnotators = new ArrayList<>();
-			for (BedAnnotationOptions bedAnnotationOptions : options.getBedAnnotationOptions()) {
-				BedFileAnnotator annotator = new BedFileAnnotator(bedAnnotationOptions);
-				bedFileAnnotators.add(annotator);
-				annotator.extendHeader(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
 			}
 
-			// Annotate using dbNSFP
-			GenericTSVAnnotationDriver dbNsfpAnnotator;
-			if (options.getPathDbNsfp() != null) {
-				Map<String, GenericTSVValueColumnDescription> descriptions = new HashMap<>();
-				for (String colName : options.getColumnsDbNsfp()) {
-					descriptions.put(colName, DbNsfpFields.DBNSFP_FIELDS.get(colName));
-				}
-				GenericTSVAnnotationOptions dbNsfpAnnotationOptions = new GenericTSVAnnotationOptions(
-					true, false, options.getPrefixDbNsfp(), MultipleMatchBehaviour.BEST_ONLY,
-					new File(options.getPathDbNsfp()), GenericTSVAnnotationTarget.VARIANT, true,
-					options.getDbNsfpColContig(), options.getDbNsfpColPosition(),
-					options.getDbNsfpColPosition(), 3, 4, false, options.getColumnsDbNsfp(),
-					descriptions);
-				dbNsfpAnnotator = new GenericTSVAnnotationDriver(options.getPathFASTARef(),
-					dbNsfpAnnotationOptions);
-				dbNsfpAnnotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(dbNsfpAnnotator::annotateVariantContext);
-			}
-
-			// Annotate from generic TSV files
-			List<GenericTSVAnnotationDriver> tsvAnnotators = new ArrayList<>();
-			for (GenericTSVAnnotationOptions tsvAnnotationOptions : options
-				.getTsvAnnotationOptions()) {
-				GenericTSVAnnotationDriver annotator = new GenericTSVAnnotationDriver(
-					options.getPathFASTARef(), tsvAnnotationOptions);
-				tsvAnnotators.add(annotator);
-				annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
-			}
-
-			// Annotate from generic VCF files
-			List<GenericVCFAnnotationDriver> vcfAnnotators = new ArrayList<>();
-			for (GenericVCFAnnotationOptions vcfAnnotationOptions : options
-				.getVcfAnnotationOptions()) {
-				GenericVCFAnnotationDriver annotator = new GenericVCFAnnotationDriver(
-					vcfAnnotationOptions.getPathVcfFile(), options.getPathFASTARef(),
-					vcfAnnotationOptions);
-				vcfAnnotators.add(annotator);
-				annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
-				stream = stream.map(annotator::annotateVariantContext);
-			}
+			// Construct annotation steps, extending the header to use for writing out
+			List<Function<VariantContext, VariantContext>> steps = buildAnnotationSteps(vcfHeader,
+				affecteds, filterPedigree);
 
 			// Extend header with INHERITANCE filter
 			if (options.pathPedFile != null || options.annotateAsSingletonPedigree) {
@@ -400,17 +211,48 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 				new VCFHeaderLine("jannovarVersion", Jannovar.getVersion()),
 				new VCFHeaderLine("jannovarCommand", Joiner.on(' ').join(argv)));
 
-			// Construct VariantContextWriter and start annotationg pipeline
-			try (VariantContextWriter vcfWriter = VariantContextWriterConstructionHelper
-				.openVariantContextWriter(vcfHeader, options.getPathOutputVCF(), jvHeaderLines);
-				 VariantContextProcessor sink = buildMendelianProcessors(vcfWriter, vcfHeader)) {
-				// Make current VC available to progress printer
-				if (this.progressReporter != null)
-					stream = stream.peek(vc -> this.progressReporter.setCurrentVC(vc));
-
-				stream.forEachOrdered(sink::put);
-			} catch (IOException e) {
-				throw new JannovarException("Problem opening file", e);
+			if (options.isScatter()) {
+				// Annotate shards independently and concatenate the results
+				try {
+					runScatterGather(vcfPath, vcfHeader, jvHeaderLines,
+						buildStepCopies(steps, vcfHeader, affecteds, filterPedigree));
+				} catch (IOException e) {
+					throw new JannovarException("Problem writing file", e);
+				}
+			} else {
+				// Construct VariantContextWriter and start annotationg pipeline
+				try (VariantContextWriter vcfWriter = openVariantContextWriter(vcfHeader, jvHeaderLines);
+					 VariantContextProcessor sink = buildMendelianProcessors(vcfWriter::add,
+						 loadMendelianPedigree(vcfHeader), null)) {
+					if (options.getThreads() > 1) {
+						System.err.println("Annotating with " + options.getThreads() + " threads...");
+						List<Function<VariantContext, VariantContext>> stepCopies = buildStepCopies(steps, vcfHeader,
+							affecteds, filterPedigree);
+
+						// Genotypes are only touched by the threshold-based filters
+						try (ParallelVariantContextPipeline pipeline = new ParallelVariantContextPipeline(
+							stepCopies, ParallelVariantContextPipeline.DEFAULT_BLOCK_SIZE,
+							options.useThresholdFilters)) {
+							pipeline.run(iter, vc -> {
+								if (this.progressReporter != null)
+									this.progressReporter.setCurrentVC(vc);
+							}, sink);
+						}
+					} else {
+						// Obtain Java 8 stream from iterator
+						Stream<VariantContext> stream = iter.stream();
+						for (Function<VariantContext, VariantContext> step : steps)
+							stream = stream.map(step);
+
+						// Make current VC available to progress printer
+						if (this.progressReporter != null)
+							stream = stream.peek(vc -> this.progressReporter.setCurrentVC(vc));
+
+						stream.forEachOrdered(sink::put);
+					}
+				} catch (IOException e) {
+					throw new JannovarException("Problem opening file", e);
+				}
 			}
 
 			System.err.println("Wrote annotations to \"" + options.getPathOutputVCF() + "\"");
@@ -441,6 +283,327 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 			progressReporter.done();
 	}
 
+	/**
+	 * Construct the per-record annotation steps and extend <code>vcfHeader</code> accordingly
+	 *
+	 * <p>
+	 * The steps keep open readers to the annotation databases, so the returned steps must only be used from one thread
+	 * at a time. Call this function multiple times for obtaining independent copies.
+	 * </p>
+	 *
+	 * @param vcfHeader      {@link VCFHeader} to extend with the header lines of the annotation steps
+	 * @param affecteds      names of the affected individuals, for the threshold-based filters
+	 * @param filterPedigree {@link Pedigree} to use for the advanced pedigree filters, if any
+	 * @return List of annotation steps, to be applied in order
+	 * @throws JannovarException on problems opening the annotation databases
+	 */
+	private List<Function<VariantContext, VariantContext>> buildAnnotationSteps(VCFHeader vcfHeader,
+																				List<String> affecteds, Pedigree filterPedigree) throws JannovarException {
+		List<Function<VariantContext, VariantContext>> steps = new ArrayList<>();
+
+		// If configured, annotate using dbSNP VCF file (extend header to
+		// use for writing out)
+		if (options.pathVCFDBSNP != null) {
+			DBAnnotationOptions dbSNPOptions = DBAnnotationOptions.createDefaults();
+			dbSNPOptions.setIdentifierPrefix(options.prefixDBSNP);
+			dbSNPOptions.setStreamDatabase(options.isStreamDatabases());
+			DBVariantContextAnnotator dbSNPAnno = new DBVariantContextAnnotatorFactory()
+				.constructDBSNP(options.pathVCFDBSNP, options.pathFASTARef, dbSNPOptions);
+			dbSNPAnno.extendHeader(vcfHeader);
+			steps.add(dbSNPAnno::annotateVariantContext);
+		}
+
+		// If configured, annotate using ExAC VCF file (extend header to use
+		// for writing out)
+		if (options.pathVCFExac != null) {
+			DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
+			exacOptions.setIdentifierPrefix(options.prefixExac);
+			exacOptions.setStreamDatabase(options.isStreamDatabases());
+			DBVariantContextAnnotator exacAnno = new DBVariantContextAnnotatorFactory()
+				.constructExac(options.pathVCFExac, options.pathFASTARef, exacOptions);
+			exacAnno.extendHeader(vcfHeader);
+			steps.add(exacAnno::annotateVariantContext);
+		}
+
+		// If configured, annotate using gnomAD exomes VCF file (extend
+		// header to use for
+		// writing out)
+		if (options.pathVCFGnomadExomes != null) {
+			DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
+			gnomadOptions.setIdentifierPrefix(options.prefixGnomadExomes);
+			gnomadOptions.setStreamDatabase(options.isStreamDatabases());
+			DBVariantContextAnnotator gnomadExomesAnno = new DBVariantContextAnnotatorFactory()
+				.constructGnomad(options.pathVCFGnomadExomes, options.pathFASTARef,
+					gnomadOptions);
+			gnomadExomesAnno.extendHeader(vcfHeader);
+			steps.add(gnomadExomesAnno::annotateVariantContext);
+		}
+
+		// If configured, annotate using gnomAD genomes VCF file (extend
+		// header to use for
+		// writing out)
+		if (options.pathVCFGnomadGenomes != null) {
+			DBAnnotationOptions gnomadOptions = DBAnnotationOptions.createDefaults();
+			gnomadOptions.setIdentifierPrefix(options.prefixGnomadGenomes);
+			gnomadOptions.setStreamDatabase(options.isStreamDatabases());
+			DBVariantContextAnnotator gnomadGenomesAnno = new DBVariantContextAnnotatorFactory()
+				.constructGnomad(options.pathVCFGnomadGenomes, options.pathFASTARef,
+					gnomadOptions);
+			gnomadGenomesAnno.extendHeader(vcfHeader);
+			steps.add(gnomadGenomesAnno::annotateVariantContext);
+		}
+
+		// If configured, annotate using thousand genomes VCF file (extend
+		// header to use for writing out)
+		if (options.pathThousandGenomes != null) {
+			DBAnnotationOptions thousandGenomesOptions = DBAnnotationOptions.createDefaults();
+			thousandGenomesOptions.setIdentifierPrefix(options.prefixThousandGenomes);
+			thousandGenomesOptions.setStreamDatabase(options.isStreamDatabases());
+			DBVariantContextAnnotator thousandGenomesAnno = new DBVariantContextAnnotatorFactory()
+				.constructThousandGenomes(options.pathThousandGenomes, options.pathFASTARef,
+					thousandGenomesOptions);
+			thousandGenomesAnno.extendHeader(vcfHeader);
+			steps.add(thousandGenomesAnno::annotateVariantContext);
+		}
+
+		// If configured, annotate using UK10K VCF file (extend header to
+		// use for writing out)
+		if (options.pathVCFUK10K != null) {
+			DBAnnotationOptions exacOptions = DBAnnotationOptions.createDefaults();
+			exacOptions.setIdentifierPrefix(options.prefixUK10K);
+			exacOptions.setStreamDatabase(options.isStreamDatabases());
+			DBVariantContextAnnotator uk10kAnno = new DBVariantContextAnnotatorFactory()
+				.constructUK10K(options.pathVCFUK10K, options.pathFASTARef, exacOptions);
+			uk10kAnno.extendHeader(vcfHeader);
+			steps.add(uk10kAnno::annotateVariantContext);
+		}
+
+		// If configured, annotate using ClinVar VCF file (extend header to
+		// use for writing out)
+		if (options.pathClinVar != null) {
+			DBAnnotationOptions clinVarOptions = DBAnnotationOptions.createDefaults();
+			clinVarOptions.setIdentifierPrefix(options.prefixClinVar);
+			clinVarOptions.setStreamDatabase(options.isStreamDatabases());
+			DBVariantContextAnnotator clinvarAnno = new DBVariantContextAnnotatorFactory()
+				.constructClinVar(options.pathClinVar, options.pathFASTARef,
+					clinVarOptions);
+			clinvarAnno.extendHeader(vcfHeader);
+			steps.add(clinvarAnno::annotateVariantContext);
+		}
+
+		// If configured, annotate using COSMIC VCF file (extend header to
+		// use for writing out)
+		if (options.pathCosmic != null) {
+			DBAnnotationOptions cosmicOptions = DBAnnotationOptions.createDefaults();
+			cosmicOptions.setIdentifierPrefix(options.prefixCosmic);
+			cosmicOptions.setStreamDatabase(options.isStreamDatabases());
+			DBVariantContextAnnotator cosmicAnno = new DBVariantContextAnnotatorFactory()
+				.constructCosmic(options.pathCosmic, options.pathFASTARef, cosmicOptions);
+			cosmicAnno.extendHeader(vcfHeader);
+			steps.add(cosmicAnno::annotateVariantContext);
+		}
+
+		// Add step for annotating with variant effect
+		VariantEffectHeaderExtender extender = new VariantEffectHeaderExtender();
+		extender.addHeaders(vcfHeader);
+		VariantContextAnnotator variantEffectAnnotator = new VariantContextAnnotator(refDict,
+			chromosomeMap,
+			new VariantContextAnnotator.Options(!options.isShowAll(),
+				(options.isUseThreeLetterAminoAcidCode() ? AminoAcidCode.THREE_LETTER
+					: AminoAcidCode.ONE_LETTER),
+				options.isEscapeAnnField(), options.isNt3PrimeShifting(),
+				options.isOffTargetFilterEnabled(),
+				options.isOffTargetFilterUtrIsOffTarget(),
+				options.isOffTargetFilterIntronicSpliceIsOffTarget()));
+		steps.add(variantEffectAnnotator::annotateVariantContext);
+
+		// If configured, use threshold-based annotation (extend header to
+		// use for writing out)
+		if (options.useThresholdFilters) {
+			// Build options object for threshold filter
+			ThresholdFilterOptions thresholdFilterOptions = new ThresholdFilterOptions(
+				options.getThreshFiltMinGtCovHet(), options.getThreshFiltMinGtCovHomAlt(),
+				options.getThreshFiltMaxCov(), options.getThreshFiltMinGtGq(),
+				options.getThreshFiltMinGtAafHet(), options.getThreshFiltMaxGtAafHet(),
+				options.getThreshFiltMinGtAafHomAlt(),
+				options.getThreshFiltMaxGtAafHomRef(), options.getPrefixExac(),
+				options.getPrefixDBSNP(), options.getPrefixGnomadGenomes(),
+				options.getPrefixGnomadExomes(),
+				options.getPrefixThousandGenomes(),
+				options.getThreshFiltMaxAlleleFrequencyAd(),
+				options.getThreshFiltMaxAlleleFrequencyAr(),
+				options.getThreshFiltMaxExacHomAlt(),
+				options.getThreshFiltMaxThousandGenomesHomAlt());
+			// Add headers
+			new ThresholdFilterHeaderExtender(thresholdFilterOptions).addHeaders(vcfHeader);
+			GenotypeThresholdFilterAnnotator gtThresholdFilterAnno = new GenotypeThresholdFilterAnnotator(
+				thresholdFilterOptions);
+			steps.add(gtThresholdFilterAnno::annotateVariantContext);
+
+			// When configured to use advanced pedigree filters (must come
+			// after threshold-based filtration)
+			if (options.useAdvancedPedigreeFilters) {
+				// Build options object from configuration and extend headers
+				PedigreeFilterOptions pedFilterOptions = new PedigreeFilterOptions(
+					options.getThreshDeNovoParentAd2(), options.isUseParentGtIsFiltered(),
+					options.isOneParentGtFilteredFiltersAffected());
+				new PedigreeFilterHeaderExtender(pedFilterOptions).addHeaders(vcfHeader);
+
+				// Construct annotator and register with pipeline
+				PedigreeFilterAnnotator pedFilterAnnotator = new PedigreeFilterAnnotator(
+					pedFilterOptions, filterPedigree);
+				steps.add(pedFilterAnnotator::annotateVariantContext);
+			}
+
+			VariantThresholdFilterAnnotator varThresholdFilterAnno = new VariantThresholdFilterAnnotator(
+				thresholdFilterOptions, affecteds);
+			steps.add(varThresholdFilterAnno::annotateVariantContext);
+		}
+
+		// Annotate from BED files
+		for (BedAnnotationOptions bedAnnotationOptions : options.getBedAnnotationOptions()) {
+			BedFileAnnotator annotator = new BedFileAnnotator(bedAnnotationOptions, options.isStreamDatabases());
+			annotator.extendHeader(vcfHeader);
+			steps.add(annotator::annotateVariantContext);
+		}
+
+		// Annotate using dbNSFP
+		if (options.getPathDbNsfp() != null) {
+			Map<String, GenericTSVValueColumnDescription> descriptions = new HashMap<>();
+			for (String colName : options.getColumnsDbNsfp()) {
+				descriptions.put(colName, DbNsfpFields.DBNSFP_FIELDS.get(colName));
+			}
+			GenericTSVAnnotationOptions dbNsfpAnnotationOptions = new GenericTSVAnnotationOptions(
+				true, false, options.getPrefixDbNsfp(), MultipleMatchBehaviour.BEST_ONLY,
+				new File(options.getPathDbNsfp()), GenericTSVAnnotationTarget.VARIANT, true,
+				options.getDbNsfpColContig(), options.getDbNsfpColPosition(),
+				options.getDbNsfpColPosition(), 3, 4, false, options.getColumnsDbNsfp(),
+				descriptions);
+			dbNsfpAnnotationOptions.setStreamDatabase(options.isStreamDatabases());
+			GenericTSVAnnotationDriver dbNsfpAnnotator = new GenericTSVAnnotationDriver(options.getPathFASTARef(),
+				dbNsfpAnnotationOptions);
+			dbNsfpAnnotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
+			steps.add(dbNsfpAnnotator::annotateVariantContext);
+		}
+
+		// Annotate from generic TSV files
+		for (GenericTSVAnnotationOptions tsvAnnotationOptions : options
+			.getTsvAnnotationOptions()) {
+			tsvAnnotationOptions.setStreamDatabase(options.isStreamDatabases());
+			GenericTSVAnnotationDriver annotator = new GenericTSVAnnotationDriver(
+				options.getPathFASTARef(), tsvAnnotationOptions);
+			annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
+			steps.add(annotator::annotateVariantContext);
+		}
+
+		// Annotate from generic VCF files
+		for (GenericVCFAnnotationOptions vcfAnnotationOptions : options
+			.getVcfAnnotationOptions()) {
+			vcfAnnotationOptions.setStreamDatabase(options.isStreamDatabases());
+			GenericVCFAnnotationDriver annotator = new GenericVCFAnnotationDriver(
+				vcfAnnotationOptions.getPathVcfFile(), options.getPathFASTARef(),
+				vcfAnnotationOptions);
+			annotator.constructVCFHeaderExtender().addHeaders(vcfHeader);
+			steps.add(annotator::annotateVariantContext);
+		}
+
+		return steps;
+	}
+
+	/**
+	 * Build one copy of the annotation steps for each thread, each chained into one function
+	 * <p>
+	 * Each worker thread needs its own copy of the annotation steps, the header extension of the additional copies goes
+	 * into a scratch header.
+	 *
+	 * @param steps          the annotation steps built for <code>vcfHeader</code>, used as the first copy
+	 * @param vcfHeader      the {@link VCFHeader} of the output, copied for the additional copies
+	 * @param affecteds      names of the affected individuals, for the threshold-based filters
+	 * @param filterPedigree {@link Pedigree} to use for the advanced pedigree filters, if any
+	 * @return list of {@link JannovarAnnotateVCFOptions#getThreads()} copies of the annotation steps
+	 * @throws JannovarException on problems opening the annotation databases
+	 */
+	private List<Function<VariantContext, VariantContext>> buildStepCopies(
+		List<Function<VariantContext, VariantContext>> steps, VCFHeader vcfHeader, List<String> affecteds,
+		Pedigree filterPedigree) throws JannovarException {
+		List<Function<VariantContext, VariantContext>> stepCopies = new ArrayList<>();
+		stepCopies.add(chainSteps(steps));
+		for (int i = 1; i < options.getThreads(); ++i)
+			stepCopies.add(chainSteps(buildAnnotationSteps(new VCFHeader(vcfHeader), affecteds, filterPedigree)));
+		return stepCopies;
+	}
+
+	/**
+	 * Annotate the shards of the tabix-indexed input in parallel and concatenate the results, see
+	 * {@link ScatterGatherPipeline}
+	 *
+	 * @param vcfPath               path to the input VCF file
+	 * @param vcfHeader             the {@link VCFHeader} of the output
+	 * @param additionalHeaderLines additional header lines to write
+	 * @param stepCopies            independent copies of the annotation steps, one per thread
+	 * @throws JannovarException             if the input has no tabix index
+	 * @throws IOException                   on problems with writing the output
+	 * @throws PedParseException             in the case of problems with parsing pedigrees
+	 * @throws IncompatiblePedigreeException If the pedigree is incompatible with the VCF file
+	 */
+	private void runScatterGather(String vcfPath, VCFHeader vcfHeader,
+								  ImmutableList<VCFHeaderLine> additionalHeaderLines,
+								  List<Function<VariantContext, VariantContext>> stepCopies)
+		throws JannovarException, IOException, PedParseException, IncompatiblePedigreeException {
+		// Shards share the gene list and must not split genes for the Mendelian inheritance annotation
+		final Pedigree pedigree = loadMendelianPedigree(vcfHeader);
+		final GeneList geneList = (pedigree == null) ? null : GeneList.build(jannovarData);
+		final ShardPlanner planner = (geneList == null) ? new ShardPlanner(options.getScatterShardSize())
+			: new ShardPlanner(options.getScatterShardSize(), jannovarData.getRefDict(), geneList);
+		final List<Interval> shards = planner.plan(ShardPlanner.getIndexedContigs(vcfPath),
+			ShardPlanner.getContigLengths(vcfHeader));
+
+		System.err.println("Annotating " + shards.size() + " shards with " + stepCopies.size() + " threads...");
+		try (ScatterGatherPipeline pipeline = new ScatterGatherPipeline(new File(vcfPath), shards, stepCopies)) {
+			pipeline.run(vcfHeader, additionalHeaderLines,
+				sink -> buildMendelianProcessors(sink, pedigree, geneList),
+				shard -> {
+					if (options.getVerbosity() >= 2)
+						System.err.println("Annotated shard " + shard.getContig() + ":" + shard.getStart() + "-"
+							+ shard.getEnd());
+				}, options.getPathOutputVCF());
+		}
+
+		if (options.isWriteTabixIndex()) {
+			System.err.println("Writing tabix index...");
+			final File outFile = new File(options.getPathOutputVCF());
+			IndexFactory.createTabixIndex(outFile, new VCFCodec(), TabixFormat.VCF, vcfHeader.getSequenceDictionary())
+				.writeBasedOnFeaturePath(outFile.toPath());
+		}
+	}
+
+	/**
+	 * Combine <code>steps</code> into one function applying them in order
+	 */
+	private static Function<VariantContext, VariantContext> chainSteps(
+		List<Function<VariantContext, VariantContext>> steps) {
+		return steps.stream().reduce(Function.identity(), Function::andThen);
+	}
+
+	/**
+	 * Open the output VCF file, using the asynchronous writer if writer threads are configured
+	 *
+	 * @param vcfHeader             the VCF header to write
+	 * @param additionalHeaderLines additional header lines to write
+	 */
+	private VariantContextWriter openVariantContextWriter(VCFHeader vcfHeader,
+														  ImmutableList<VCFHeaderLine> additionalHeaderLines) {
+		if (options.getWriterThreads() > 0) {
+			System.err.println("Writing with " + options.getWriterThreads() + " compression threads...");
+			return VariantContextWriterConstructionHelper.openAsyncVariantContextWriter(vcfHeader,
+				options.getPathOutputVCF(), additionalHeaderLines, options.getWriterThreads(),
+				options.isWriteTabixIndex());
+		} else {
+			return VariantContextWriterConstructionHelper.openVariantContextWriter(vcfHeader,
+				options.getPathOutputVCF(), additionalHeaderLines);
+		}
+	}
+
 	/**
 	 * Load pedigree from file given in configuration or construct singleton pedigree
 	 *
@@ -468,27 +631,41 @@ public class AnnotateVCFCommand extends JannovarAnnotationCommand {
 	}
 
 	/**
-	 * Construct the mendelian inheritance annotation processors
+	 * Load the pedigree for the Mendelian inheritance annotation, if configured
 	 *
-	 * @param writer    the place to put put the VariantContext to after filtration
 	 * @param vcfHeader {@link VCFHeader}, for checking compatibility and getting sample name in case of singleton
 	 *                  pedigree construction
+	 * @return the compatible {@link Pedigree}, <code>null</code> if no Mendelian inheritance annotation is configured
 	 * @throws IOException                   in case of problems with opening the pedigree file
 	 * @throws PedParseException             in the case of problems with parsing pedigrees
 	 * @throws IncompatiblePedigreeException If the pedigree is incompatible with the VCF file
 	 */
-	private VariantContextProcessor buildMendelianProcessors(VariantContextWriter writer,
-															 VCFHeader vcfHeader)
+	private Pedigree loadMendelianPedigree(VCFHeader vcfHeader)
 		throws PedParseException, IOException, IncompatiblePedigreeException {
-		if (options.pathPedFile != null || options.annotateAsSingletonPedigree) {
-			final Pedigree pedigree = loadPedigree(vcfHeader);
-			checkPedigreeCompatibility(pedigree, vcfHeader);
+		if (options.pathPedFile == null && !options.annotateAsSingletonPedigree)
+			return null;
+		final Pedigree pedigree = loadPedigree(vcfHeader);
+		checkPedigreeCompatibility(pedigree, vcfHeader);
+		return pedigree;
+	}
+
+	/**
+	 * Construct the mendelian inheritance annotation processors
+	 *
+	 * @param writer   the place to put put the VariantContext to after filtration
+	 * @param pedigree {@link Pedigree} as loaded by {@link #loadMendelianPedigree}, <code>null</code> for no Mendelian
+	 *                 inheritance annotation
+	 * @param geneList genes of {@link #jannovarData} to share between processors, <code>null</code> to build them
+	 */
+	private VariantContextProcessor buildMendelianProcessors(Consumer<VariantContext> writer, Pedigree pedigree,
+															 GeneList geneList) {
+		if (pedigree != null) {
 			final GeneWiseMendelianAnnotationProcessor mendelProcessor = new GeneWiseMendelianAnnotationProcessor(
-				pedigree, jannovarData, vc -> writer.add(vc),
+				pedigree, jannovarData, (geneList == null) ? GeneList.build(jannovarData) : geneList, writer,
 				options.isInheritanceAnnoUseFilters());
 			return new CoordinateSortingChecker(mendelProcessor);
 		} else {
-			return new ConsumerProcessor(vc -> writer.add(vc));
+			return new ConsumerProcessor(writer);
 		}
 	}
 
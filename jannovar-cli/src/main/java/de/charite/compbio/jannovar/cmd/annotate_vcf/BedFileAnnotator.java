@@ -1,6 +1,7 @@
 package de.charite.compbio.jannovar.cmd.annotate_vcf;
 
 import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions.BedAnnotationOptions;
+import de.charite.compbio.jannovar.htsjdk.StreamingOverlapQuery;
 import htsjdk.samtools.util.Interval;
 import htsjdk.tribble.TabixFeatureReader;
 import htsjdk.tribble.bed.BEDCodec;
@@ -41,7 +42,21 @@ public class BedFileAnnotator implements Closeable {
 	 */
 	TabixFeatureReader<BEDFeature, LineIterator> reader;
 
+	/**
+	 * Streaming access to {@link #reader} for coordinate-sorted input, <code>null</code> for one query per record.
+	 */
+	private StreamingOverlapQuery<BEDFeature> streamingQuery;
+
 	public BedFileAnnotator(BedAnnotationOptions options) {
+		this(options, false);
+	}
+
+	/**
+	 * @param options   configuration of the annotator
+	 * @param streaming whether or not to stream through the BED file in lockstep with coordinate-sorted input
+	 *                  instead of querying the index for each record
+	 */
+	public BedFileAnnotator(BedAnnotationOptions options, boolean streaming) {
 		this.options = options;
 		this.featureFile = new File(options.getPathBed());
 
@@ -51,6 +66,16 @@ public class BedFileAnnotator implements Closeable {
 		} catch (IOException e) {
 			throw new RuntimeException("Problem opening indexed BED file", e);
 		}
+
+		if (streaming) {
+			this.streamingQuery = new StreamingOverlapQuery<>((contig, beginPos) -> {
+				try {
+					return reader.query(contig, beginPos, Integer.MAX_VALUE);
+				} catch (IOException e) {
+					throw new RuntimeException("Could not query " + contig + ":" + beginPos, e);
+				}
+			}, (feature, beginPos, endPos) -> feature.getStart() <= endPos && feature.getEnd() >= beginPos);
+		}
 	}
 
 	/**
@@ -81,8 +106,12 @@ public class BedFileAnnotator implements Closeable {
 		List<String> overlaps = new ArrayList<>();
 		try {
 			final Interval vcInterval = new Interval(vc.getContig(), vc.getStart(), vc.getEnd());
-			for (BEDFeature bedFeature : reader.query(vc.getContig(), vc.getStart() - 1,
-				vc.getEnd() + 1)) {
+			final Iterable<BEDFeature> features;
+			if (streamingQuery != null)
+				features = streamingQuery.query(vc.getContig(), vc.getStart() - 1, vc.getEnd() + 1);
+			else
+				features = reader.query(vc.getContig(), vc.getStart() - 1, vc.getEnd() + 1);
+			for (BEDFeature bedFeature : features) {
 				final Interval bedItv = new Interval(bedFeature.getContig(), bedFeature.getStart(),
 					bedFeature.getEnd());
 				if (vcInterval.intersects(bedItv)) {
@@ -115,6 +144,10 @@ public class BedFileAnnotator implements Closeable {
 
 	@Override
 	public void close() {
+		if (streamingQuery != null) {
+			streamingQuery.close();
+			streamingQuery = null;
+		}
 		if (reader != null) {
 			try {
 				reader.close();
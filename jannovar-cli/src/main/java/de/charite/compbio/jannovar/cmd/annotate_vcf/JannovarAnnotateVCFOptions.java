@@ -123,6 +123,30 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	 * Path to output VCF file
 	 */
 	private String pathOutputVCF = null;
+	/**
+	 * Number of threads to use for annotation
+	 */
+	private int threads = 1;
+	/**
+	 * Whether or not to annotate shards of the tabix-indexed input in parallel and concatenate the results
+	 */
+	private boolean scatter = false;
+	/**
+	 * Approximate length of the shards with {@link #scatter}, 0 for one shard per contig
+	 */
+	private int scatterShardSize = 0;
+	/**
+	 * Whether or not to stream the annotation databases in lockstep with the sorted input
+	 */
+	private boolean streamDatabases = false;
+	/**
+	 * Number of threads for block compression of the output, 0 to write synchronously
+	 */
+	private int writerThreads = 0;
+	/**
+	 * Whether or not to write a tabix index while writing the output
+	 */
+	private boolean writeTabixIndex = false;
 	/**
 	 * Threshold filter: minimal coverage at a site for heterozygous calls
 	 */
@@ -452,6 +476,31 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 			.action(Arguments.storeTrue());
 		optionalGroup.addArgument("--disable-parent-gt-is-filtered").setDefault(true)
 			.dest("use_parent_gt_is_filtered").action(Arguments.storeFalse());
+		optionalGroup.addArgument("--threads")
+			.help("Number of threads to use for annotation, output order is kept").type(Integer.class)
+			.setDefault(1);
+		optionalGroup.addArgument("--scatter")
+			.help("Split the bgzip-compressed, tabix-indexed input into shards that are annotated independently by " +
+				"--threads threads and concatenated in order, cannot be combined with --interval")
+			.setDefault(false).action(Arguments.storeTrue());
+		optionalGroup.addArgument("--scatter-shard-size")
+			.help("Approximate length of the shards with --scatter, shard boundaries do not split genes with " +
+				"Mendelian inheritance annotation, 0 for one shard per contig").type(Integer.class)
+			.setDefault(0);
+		optionalGroup.addArgument("--stream-databases")
+			.help("Read the annotation databases (VCF, TSV, and BED files) sequentially along the coordinate-sorted " +
+				"input instead of one index query per record, unsorted input still works but is slower")
+			.setDefault(false).action(Arguments.storeTrue());
+		optionalGroup.addArgument("--writer-threads")
+			.help("Encode the output records on a separate writer thread and block-compress .vcf.gz output with the " +
+				"given number of threads, 0 to write on the annotation thread").type(Integer.class)
+			.setDefault(0);
+		optionalGroup.addArgument("--write-tabix-index")
+			.help("Write a tabix index for .vcf.gz output while writing, requires --writer-threads or --scatter and " +
+				"sorted input")
+			.setDefault(false).action(Arguments.storeTrue());
+
+		JannovarAnnotationOptions.setupTranscriptFilterParser(subParser);
 
 		JannovarBaseOptions.setupParser(subParser);
 	}
@@ -464,6 +513,26 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		escapeAnnField = args.getBoolean("escape_ann_field");
 		pathInputVCF = args.getString("input_vcf");
 		pathOutputVCF = args.getString("output_vcf");
+		threads = args.getInt("threads");
+		if (threads < 1)
+			throw new CommandLineParsingException("Number of threads must be at least 1 but was " + threads);
+		scatter = args.getBoolean("scatter");
+		scatterShardSize = args.getInt("scatter_shard_size");
+		if (scatterShardSize < 0)
+			throw new CommandLineParsingException("Shard size must not be negative but was " + scatterShardSize);
+		if (scatter && interval != null && !interval.equals(""))
+			throw new CommandLineParsingException("--scatter cannot be combined with --interval");
+		streamDatabases = args.getBoolean("stream_databases");
+		writerThreads = args.getInt("writer_threads");
+		if (writerThreads < 0)
+			throw new CommandLineParsingException("Number of writer threads must not be negative but was " +
+				writerThreads);
+		writeTabixIndex = args.getBoolean("write_tabix_index");
+		if (writeTabixIndex && writerThreads == 0 && !scatter)
+			throw new CommandLineParsingException("--write-tabix-index requires --writer-threads or --scatter");
+		if (writeTabixIndex && !(pathOutputVCF.endsWith(".vcf.gz") || pathOutputVCF.endsWith(".vcf.bgz")))
+			throw new CommandLineParsingException("--write-tabix-index requires .vcf.gz output but was " +
+				pathOutputVCF);
 		pathPedFile = args.getString("pedigree_file");
 		annotateAsSingletonPedigree = args.getBoolean("annotate_as_singleton_pedigree");
 
@@ -580,6 +649,54 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 		this.pathOutputVCF = pathOutputVCF;
 	}
 
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public boolean isScatter() {
+		return scatter;
+	}
+
+	public void setScatter(boolean scatter) {
+		this.scatter = scatter;
+	}
+
+	public int getScatterShardSize() {
+		return scatterShardSize;
+	}
+
+	public void setScatterShardSize(int scatterShardSize) {
+		this.scatterShardSize = scatterShardSize;
+	}
+
+	public boolean isStreamDatabases() {
+		return streamDatabases;
+	}
+
+	public void setStreamDatabases(boolean streamDatabases) {
+		this.streamDatabases = streamDatabases;
+	}
+
+	public int getWriterThreads() {
+		return writerThreads;
+	}
+
+	public void setWriterThreads(int writerThreads) {
+		this.writerThreads = writerThreads;
+	}
+
+	public boolean isWriteTabixIndex() {
+		return writeTabixIndex;
+	}
+
+	public void setWriteTabixIndex(boolean writeTabixIndex) {
+		this.writeTabixIndex = writeTabixIndex;
+	}
+
 	public boolean isEscapeAnnField() {
 		return escapeAnnField;
 	}
@@ -984,7 +1101,10 @@ public class JannovarAnnotateVCFOptions extends JannovarAnnotationOptions {
 	@Override
 	public String toString() {
 		return "JannovarAnnotateVCFOptions [escapeAnnField=" + escapeAnnField + ", pathInputVCF="
-			+ pathInputVCF + ", interval=" + interval + ", pathOutputVCF=" + pathOutputVCF
+			+ pathInputVCF + ", interval=" + interval + ", pathOutputVCF=" + pathOutputVCF + ", threads=" + threads
+			+ ", scatter=" + scatter + ", scatterShardSize=" + scatterShardSize
+			+ ", streamDatabases=" + streamDatabases + ", writerThreads=" + writerThreads
+			+ ", writeTabixIndex=" + writeTabixIndex
 			+ ", pathVCFDBSNP=" + pathVCFDBSNP + ", prefixDBSNP=" + prefixDBSNP
 			+ ", pathFASTARef=" + pathFASTARef + ", pathVCFExac=" + pathVCFExac
 			+ ", prefixExac=" + prefixExac + ", pathVCFGnomadExomes=" + pathVCFGnomadExomes
@@ -0,0 +1,171 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.mendel.filter.VariantContextProcessor;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Run the per-record annotation steps of <code>annotate-vcf</code> on a pool of worker threads.
+ * <p>
+ * Records are read in blocks on the calling thread, each block is annotated by one of the workers, and the annotated
+ * blocks are handed to the sink in input order, again on the calling thread. Thus, the sink (e.g., the
+ * {@link de.charite.compbio.jannovar.mendel.filter.GeneWiseMendelianAnnotationProcessor} followed by the VCF writer)
+ * sees exactly the same sequence of records as in single-threaded mode.
+ * <p>
+ * Most annotation steps keep open readers (tabix, FASTA) that are not thread-safe. Because of this, each worker gets
+ * its own copy of the annotation steps. A copy is only used by one block at a time.
+ * <p>
+ * htsjdk decodes genotypes lazily through the (shared, non-thread-safe) codec of the VCF reader. If any step accesses
+ * genotypes, set <code>decodeGenotypes</code> so they are decoded on the reading thread before the block is handed to
+ * a worker. Otherwise, the genotypes stay undecoded and are written out verbatim, as in single-threaded mode.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ParallelVariantContextPipeline implements Closeable {
+
+	/**
+	 * Default number of records to read into one block
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1000;
+
+	/**
+	 * Number of records in one block
+	 */
+	private final int blockSize;
+
+	/**
+	 * Whether or not to decode genotypes on the reading thread
+	 */
+	private final boolean decodeGenotypes;
+
+	/**
+	 * Annotation step copies not currently used by a worker
+	 */
+	private final BlockingQueue<Function<VariantContext, VariantContext>> idleSteps;
+
+	/**
+	 * Maximal number of blocks that are submitted but not yet handed to the sink
+	 */
+	private final int maxBlocksInFlight;
+
+	/**
+	 * The worker threads
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Construct pipeline with one worker thread for each element of <code>stepCopies</code>.
+	 *
+	 * @param stepCopies      Independent copies of the annotation steps, one per worker thread
+	 * @param blockSize       Number of records to read into one block
+	 * @param decodeGenotypes Whether or not to decode genotypes before handing records to the workers
+	 */
+	public ParallelVariantContextPipeline(List<Function<VariantContext, VariantContext>> stepCopies,
+										  int blockSize, boolean decodeGenotypes) {
+		if (stepCopies.isEmpty())
+			throw new IllegalArgumentException("Need at least one copy of the annotation steps");
+		if (blockSize < 1)
+			throw new IllegalArgumentException("Block size must be positive but was " + blockSize);
+		this.blockSize = blockSize;
+		this.decodeGenotypes = decodeGenotypes;
+		this.idleSteps = new ArrayBlockingQueue<>(stepCopies.size(), false, stepCopies);
+		this.maxBlocksInFlight = 2 * stepCopies.size();
+
+		final AtomicInteger threadNo = new AtomicInteger(0);
+		this.executor = Executors.newFixedThreadPool(stepCopies.size(), r -> {
+			Thread thread = new Thread(r, "annotate-vcf-worker-" + threadNo.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Annotate all records from <code>iter</code> and put them into <code>sink</code> in input order.
+	 *
+	 * @param iter     Source of the records to annotate
+	 * @param observer Called for each annotated record directly before putting it into <code>sink</code>
+	 * @param sink     Receives the annotated records
+	 * @throws UncheckedJannovarException on problems in the worker threads or when interrupted
+	 */
+	public void run(Iterator<VariantContext> iter, Consumer<VariantContext> observer,
+					VariantContextProcessor sink) {
+		ArrayDeque<Future<List<VariantContext>>> inFlight = new ArrayDeque<>();
+		while (iter.hasNext()) {
+			List<VariantContext> block = new ArrayList<>(blockSize);
+			while (block.size() < blockSize && iter.hasNext()) {
+				VariantContext vc = iter.next();
+				if (decodeGenotypes && vc.getGenotypes() instanceof LazyGenotypesContext)
+					((LazyGenotypesContext) vc.getGenotypes()).decode();
+				block.add(vc);
+			}
+			inFlight.add(executor.submit(() -> annotateBlock(block)));
+
+			while (inFlight.size() >= maxBlocksInFlight)
+				drainBlock(inFlight.remove(), observer, sink);
+		}
+		while (!inFlight.isEmpty())
+			drainBlock(inFlight.remove(), observer, sink);
+	}
+
+	/**
+	 * Annotate <code>block</code> using an idle copy of the annotation steps.
+	 */
+	private List<VariantContext> annotateBlock(List<VariantContext> block) throws InterruptedException {
+		Function<VariantContext, VariantContext> steps = idleSteps.take();
+		try {
+			List<VariantContext> result = new ArrayList<>(block.size());
+			for (VariantContext vc : block)
+				result.add(steps.apply(vc));
+			return result;
+		} finally {
+			idleSteps.put(steps);
+		}
+	}
+
+	/**
+	 * Wait for <code>future</code> and hand its records to <code>sink</code>.
+	 */
+	private void drainBlock(Future<List<VariantContext>> future, Consumer<VariantContext> observer,
+							VariantContextProcessor sink) {
+		final List<VariantContext> block;
+		try {
+			block = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedJannovarException("Interrupted while waiting for annotation", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new UncheckedJannovarException("Problem annotating variants", e.getCause());
+		}
+		for (VariantContext vc : block) {
+			observer.accept(vc);
+			sink.put(vc);
+		}
+	}
+
+	/**
+	 * Stop the worker threads, pending blocks are discarded.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+}
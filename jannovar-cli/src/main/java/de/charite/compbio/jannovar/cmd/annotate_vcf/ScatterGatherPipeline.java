@@ -0,0 +1,274 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.htsjdk.VariantContextWriterConstructionHelper;
+import de.charite.compbio.jannovar.mendel.filter.VariantContextProcessor;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.samtools.util.Interval;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Annotate the shards of a tabix-indexed VCF file independently on a pool of worker threads and concatenate the
+ * results.
+ * <p>
+ * Each shard is read through an index query, as with <code>--interval</code>, and only the records beginning in the
+ * shard are kept, so records overlapping a shard boundary are written exactly once. Each shard is annotated with one
+ * of the copies of the annotation steps, put through its own sink (e.g., a
+ * {@link de.charite.compbio.jannovar.mendel.filter.GeneWiseMendelianAnnotationProcessor}), and written into a
+ * temporary file without header. The shards share nothing but the read-only transcript database, so the same scheme
+ * also works across processes with <code>--interval</code>.
+ * <p>
+ * Afterwards, the header and the shard files are concatenated in shard order. For block-compressed output, each shard
+ * file consists of complete BGZF blocks, which are copied verbatim, only dropping the empty end-of-file block of each
+ * file and writing one at the end.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ScatterGatherPipeline implements Closeable {
+
+	/**
+	 * Path to the input VCF file, must have a tabix index
+	 */
+	private final File inputVCF;
+
+	/**
+	 * The shards to annotate, as one-based, closed intervals
+	 */
+	private final List<Interval> shards;
+
+	/**
+	 * Annotation step copies not currently used by a worker
+	 */
+	private final BlockingQueue<Function<VariantContext, VariantContext>> idleSteps;
+
+	/**
+	 * The worker threads
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Construct pipeline with one worker thread for each element of <code>stepCopies</code>.
+	 *
+	 * @param inputVCF   path to the bgzip-compressed and tabix-indexed input VCF file
+	 * @param shards     the shards to annotate, in output order
+	 * @param stepCopies independent copies of the annotation steps, one per worker thread
+	 */
+	public ScatterGatherPipeline(File inputVCF, List<Interval> shards,
+								 List<Function<VariantContext, VariantContext>> stepCopies) {
+		if (stepCopies.isEmpty())
+			throw new IllegalArgumentException("Need at least one copy of the annotation steps");
+		this.inputVCF = inputVCF;
+		this.shards = shards;
+		this.idleSteps = new ArrayBlockingQueue<>(stepCopies.size(), false, stepCopies);
+
+		final AtomicInteger threadNo = new AtomicInteger(0);
+		this.executor = Executors.newFixedThreadPool(stepCopies.size(), r -> {
+			Thread thread = new Thread(r, "annotate-vcf-shard-" + threadNo.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Annotate all shards and write the result to <code>pathOutput</code>.
+	 *
+	 * @param vcfHeader             the header for the output, already extended by the annotation steps
+	 * @param additionalHeaderLines additional {@link VCFHeaderLine}s to add
+	 * @param sinkFactory           builds the sink for one shard from the consumer writing into the shard file
+	 * @param observer              called with each shard after it has been annotated, from the worker threads
+	 * @param pathOutput            path to the output file, block-compressed if ending in <code>.gz</code> or
+	 *                              <code>.bgz</code>
+	 * @throws IOException                on problems with writing the output or the temporary files
+	 * @throws UncheckedJannovarException on problems in the worker threads or when interrupted
+	 */
+	public void run(VCFHeader vcfHeader, Collection<VCFHeaderLine> additionalHeaderLines,
+					Function<Consumer<VariantContext>, VariantContextProcessor> sinkFactory,
+					Consumer<Interval> observer, String pathOutput) throws IOException {
+		final boolean compress = pathOutput.endsWith(".gz") || pathOutput.endsWith(".bgz");
+		final Path outPath = new File(pathOutput).getAbsoluteFile().toPath();
+		final Path tmpDir = Files.createTempDirectory(outPath.getParent(), ".jannovar-shards");
+		final List<File> parts = new ArrayList<>();
+		try {
+			final File headerFile = tmpDir.resolve("header").toFile();
+			parts.add(headerFile);
+			VariantContextWriterConstructionHelper.openVariantContextWriter(vcfHeader,
+				openPartStream(headerFile, compress), additionalHeaderLines).close();
+
+			final List<Future<File>> futures = new ArrayList<>();
+			for (int i = 0; i < shards.size(); ++i) {
+				final Interval shard = shards.get(i);
+				final File shardFile = tmpDir.resolve("shard-" + i).toFile();
+				parts.add(shardFile);
+				futures.add(executor.submit(() -> {
+					annotateShard(shard, shardFile, compress, vcfHeader, sinkFactory);
+					observer.accept(shard);
+					return shardFile;
+				}));
+			}
+			try {
+				for (Future<File> future : futures)
+					waitFor(future);
+			} finally {
+				for (Future<File> future : futures)
+					future.cancel(true);
+			}
+
+			gather(parts, outPath, compress);
+		} finally {
+			for (File part : parts)
+				deleteQuietly(part.toPath());
+			deleteQuietly(tmpDir);
+		}
+	}
+
+	/**
+	 * Delete <code>path</code> if it exists, ignoring errors such as files still open by cancelled workers.
+	 */
+	private static void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			// ignore, temporary file
+		}
+	}
+
+	/**
+	 * Open output stream for one of the parts of the output, block-compressed if <code>compress</code>
+	 */
+	private static OutputStream openPartStream(File file, boolean compress) throws IOException {
+		if (compress)
+			return new BlockCompressedOutputStream(file);
+		else
+			return new BufferedOutputStream(new FileOutputStream(file));
+	}
+
+	/**
+	 * Annotate the records beginning in <code>shard</code> using an idle copy of the annotation steps and write them
+	 * to <code>shardFile</code>.
+	 */
+	private void annotateShard(Interval shard, File shardFile, boolean compress, VCFHeader vcfHeader,
+							   Function<Consumer<VariantContext>, VariantContextProcessor> sinkFactory)
+		throws IOException, InterruptedException {
+		final Function<VariantContext, VariantContext> steps = idleSteps.take();
+		try (VCFFileReader reader = new VCFFileReader(inputVCF, true);
+			 CloseableIterator<VariantContext> iter = reader.query(shard.getContig(), shard.getStart(),
+				 shard.getEnd());
+			 VariantContextWriter writer = VariantContextWriterConstructionHelper
+				 .openHeaderlessVariantContextWriter(vcfHeader, openPartStream(shardFile, compress));
+			 VariantContextProcessor sink = sinkFactory.apply(writer::add)) {
+			while (iter.hasNext()) {
+				final VariantContext vc = iter.next();
+				if (vc.getStart() >= shard.getStart())
+					sink.put(steps.apply(vc));
+			}
+		} finally {
+			idleSteps.put(steps);
+		}
+	}
+
+	/**
+	 * Wait for <code>future</code>, rethrowing exceptions from the worker thread.
+	 */
+	private static void waitFor(Future<File> future) throws IOException {
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedJannovarException("Interrupted while waiting for annotation", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new UncheckedJannovarException("Problem annotating shard", e.getCause());
+		}
+	}
+
+	/**
+	 * Concatenate <code>parts</code> into <code>outPath</code> without decompressing them.
+	 *
+	 * @param parts    the files to concatenate
+	 * @param outPath  the path to write to
+	 * @param compress whether or not the parts are block-compressed, the empty end-of-file blocks of the parts are
+	 *                 then dropped and one is written at the end
+	 * @throws IOException on problems with reading or writing
+	 */
+	static void gather(List<File> parts, Path outPath, boolean compress) throws IOException {
+		final byte[] eofBlock = BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK;
+		try (FileChannel out = FileChannel.open(outPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			StandardOpenOption.TRUNCATE_EXISTING)) {
+			for (File part : parts) {
+				try (FileChannel in = FileChannel.open(part.toPath(), StandardOpenOption.READ)) {
+					long length = in.size();
+					if (compress && endsWith(in, eofBlock))
+						length -= eofBlock.length;
+					long pos = 0;
+					while (pos < length)
+						pos += in.transferTo(pos, length - pos, out);
+				}
+			}
+			if (compress) {
+				final ByteBuffer buf = ByteBuffer.wrap(eofBlock);
+				while (buf.hasRemaining())
+					out.write(buf);
+			}
+		}
+	}
+
+	/**
+	 * @return whether or not the file read by <code>in</code> ends with <code>suffix</code>
+	 */
+	private static boolean endsWith(FileChannel in, byte[] suffix) throws IOException {
+		if (in.size() < suffix.length)
+			return false;
+		final ByteBuffer buf = ByteBuffer.allocate(suffix.length);
+		long pos = in.size() - suffix.length;
+		while (buf.hasRemaining()) {
+			final int n = in.read(buf, pos);
+			if (n < 0)
+				return false;
+			pos += n;
+		}
+		return Arrays.equals(buf.array(), suffix);
+	}
+
+	/**
+	 * Stop the worker threads, pending shards are discarded.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+}
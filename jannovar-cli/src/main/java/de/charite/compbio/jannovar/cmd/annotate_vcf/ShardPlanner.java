@@ -0,0 +1,141 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.mendel.filter.GeneList;
+import htsjdk.samtools.util.FileExtensions;
+import htsjdk.samtools.util.Interval;
+import htsjdk.tribble.TribbleException;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.variant.vcf.VCFContigHeaderLine;
+import htsjdk.variant.vcf.VCFHeader;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Split the contigs of a tabix-indexed VCF file into shards for {@link ScatterGatherPipeline}.
+ * <p>
+ * By default, there is one shard per contig. With a positive shard size, each contig is split into regions of about
+ * this size. If a {@link GeneList} is given, the boundaries between the regions are moved right until they do not
+ * split any gene, so the gene-wise Mendelian inheritance annotation sees all variants of a gene in one shard.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class ShardPlanner {
+
+	/**
+	 * End position to use for contigs without length in the VCF header, "some large number"
+	 */
+	public static final int UNKNOWN_CONTIG_LENGTH = 1000 * 1000 * 1000;
+
+	/**
+	 * Approximate length of the shards, <code>0</code> for one shard per contig
+	 */
+	private final int shardSize;
+
+	/**
+	 * Reference dictionary for mapping contig names to the IDs of {@link #geneList}, <code>null</code> if no genes
+	 */
+	private final ReferenceDictionary refDict;
+
+	/**
+	 * Genes not to split, <code>null</code> if the boundaries are not to be aligned
+	 */
+	private final GeneList geneList;
+
+	/**
+	 * Construct planner without alignment to gene boundaries
+	 *
+	 * @param shardSize approximate length of the shards, <code>0</code> for one shard per contig
+	 */
+	public ShardPlanner(int shardSize) {
+		this(shardSize, null, null);
+	}
+
+	/**
+	 * Construct planner
+	 *
+	 * @param shardSize approximate length of the shards, <code>0</code> for one shard per contig
+	 * @param refDict   {@link ReferenceDictionary} of the genes, <code>null</code> if no genes are given
+	 * @param geneList  genes not to split between shards, <code>null</code> if the boundaries are not to be aligned
+	 */
+	public ShardPlanner(int shardSize, ReferenceDictionary refDict, GeneList geneList) {
+		if (shardSize < 0)
+			throw new IllegalArgumentException("Shard size must not be negative but was " + shardSize);
+		if ((refDict == null) != (geneList == null))
+			throw new IllegalArgumentException("Either both or none of refDict and geneList must be given");
+		this.shardSize = shardSize;
+		this.refDict = refDict;
+		this.geneList = geneList;
+	}
+
+	/**
+	 * Return the names of the contigs with records in a tabix-indexed VCF file, in the order of the file
+	 *
+	 * @param pathVCF path to the bgzip-compressed VCF file, the index is expected at <code>pathVCF + ".tbi"</code>
+	 * @return contig names from the index
+	 * @throws JannovarException if the index is missing or cannot be read
+	 */
+	public static List<String> getIndexedContigs(String pathVCF) throws JannovarException {
+		final String pathIndex = pathVCF + FileExtensions.TABIX_INDEX;
+		if (!new File(pathIndex).exists())
+			throw new JannovarException("Sharding the input requires a tabix index at " + pathIndex);
+		try {
+			return new ArrayList<>(IndexFactory.loadIndex(pathIndex).getSequenceNames());
+		} catch (TribbleException e) {
+			throw new JannovarException("Problem reading tabix index " + pathIndex, e);
+		}
+	}
+
+	/**
+	 * Return the contig lengths from the <code>##contig</code> lines of a VCF header
+	 *
+	 * @param vcfHeader the {@link VCFHeader} to get the lengths from
+	 * @return contig lengths by name, contigs without length are missing
+	 */
+	public static Map<String, Integer> getContigLengths(VCFHeader vcfHeader) {
+		Map<String, Integer> result = new HashMap<>();
+		for (VCFContigHeaderLine line : vcfHeader.getContigLines()) {
+			final int length = line.getSAMSequenceRecord().getSequenceLength();
+			if (length > 0)
+				result.put(line.getID(), length);
+		}
+		return result;
+	}
+
+	/**
+	 * Split contigs into shards
+	 *
+	 * @param contigs       names of the contigs, in the order of the input file
+	 * @param contigLengths lengths of the contigs by name, contigs without length end at
+	 *                      {@link #UNKNOWN_CONTIG_LENGTH} and are not split
+	 * @return one-based, closed intervals of the shards, in the order of <code>contigs</code>
+	 */
+	public List<Interval> plan(List<String> contigs, Map<String, Integer> contigLengths) {
+		List<Interval> result = new ArrayList<>();
+		for (String contig : contigs) {
+			final Integer length = contigLengths.get(contig);
+			if (shardSize == 0 || length == null) {
+				result.add(new Interval(contig, 1, (length == null) ? UNKNOWN_CONTIG_LENGTH : length));
+				continue;
+			}
+
+			final Integer contigID = (refDict == null) ? null : refDict.getContigNameToID().get(contig);
+			int begin = 1;
+			while (begin <= length) {
+				// the one-based end of the shard is the zero-based position of the boundary
+				int end = (int) Math.min((long) begin + shardSize - 1, length);
+				if (end < length && contigID != null)
+					end = Math.min(geneList.getGeneFreePosition(contigID, end), length);
+				result.add(new Interval(contig, begin, end));
+				begin = end + 1;
+			}
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,48 @@
+package de.charite.compbio.jannovar.cmd.convert_db;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.data.MappedJannovarDataSerializer;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+/**
+ * Jannovar command for converting transcript databases between the serialized and the memory-mappable format.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ConvertDBCommand extends JannovarCommand {
+
+	/**
+	 * Configuration
+	 */
+	private JannovarConvertDBOptions options;
+
+	public ConvertDBCommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarConvertDBOptions();
+		this.options.setFromArgs(args);
+	}
+
+	/**
+	 * Perform the conversion
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		System.err.println("Loading database...");
+		// JannovarDataSerializer detects the input format
+		final JannovarData data = new JannovarDataSerializer(options.getPathInput()).load();
+
+		System.err.println("Writing database...");
+		if (options.getOutputFormat() == JannovarConvertDBOptions.OutputFormat.MAPPED)
+			new MappedJannovarDataSerializer(options.getPathOutput()).save(data);
+		else
+			new JannovarDataSerializer(options.getPathOutput()).save(data);
+		System.err.println("All done.");
+	}
+
+}
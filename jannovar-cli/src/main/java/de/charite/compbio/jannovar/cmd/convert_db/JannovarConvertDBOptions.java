@@ -0,0 +1,115 @@
+package de.charite.compbio.jannovar.cmd.convert_db;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import net.sourceforge.argparse4j.inf.*;
+
+import java.util.function.BiFunction;
+
+/**
+ * Configuration for the <code>convert-db</code> command
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarConvertDBOptions extends JannovarBaseOptions {
+
+	/**
+	 * Supported output formats
+	 */
+	public enum OutputFormat {
+		/**
+		 * Memory-mappable format, see {@link de.charite.compbio.jannovar.data.MappedJannovarDataSerializer}
+		 */
+		MAPPED,
+		/**
+		 * Java serialization format, see {@link de.charite.compbio.jannovar.data.JannovarDataSerializer}
+		 */
+		SER
+	}
+
+	/**
+	 * Path to input database file, in either format
+	 */
+	private String pathInput = null;
+
+	/**
+	 * Path to output database file
+	 */
+	private String pathOutput = null;
+
+	/**
+	 * Format to write
+	 */
+	private OutputFormat outputFormat = OutputFormat.MAPPED;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 *
+	 * @param subParsers {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, ConvertDBCommand> handler = (argv, args) -> {
+			try {
+				return new ConvertDBCommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("convert-db", true)
+			.help("convert database between serialized and memory-mappable format").setDefault("cmd", handler);
+		subParser.description("Convert transcript database between the serialized (.ser) and the memory-mappable "
+			+ "format, the input format is detected automatically");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-i", "--input").help("Path to input database file").required(true);
+		requiredGroup.addArgument("-o", "--output").help("Path to output database file").required(true);
+
+		ArgumentGroup optionalGroup = subParser.addArgumentGroup("Optional Arguments");
+		optionalGroup.addArgument("--output-format").help("Format of the output file").type(OutputFormat.class)
+			.choices(OutputFormat.values()).setDefault(OutputFormat.MAPPED);
+
+		JannovarBaseOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		pathInput = args.getString("input");
+		pathOutput = args.getString("output");
+		outputFormat = args.get("output_format");
+	}
+
+	public String getPathInput() {
+		return pathInput;
+	}
+
+	public void setPathInput(String pathInput) {
+		this.pathInput = pathInput;
+	}
+
+	public String getPathOutput() {
+		return pathOutput;
+	}
+
+	public void setPathOutput(String pathOutput) {
+		this.pathOutput = pathOutput;
+	}
+
+	public OutputFormat getOutputFormat() {
+		return outputFormat;
+	}
+
+	public void setOutputFormat(OutputFormat outputFormat) {
+		this.outputFormat = outputFormat;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarConvertDBOptions [pathInput=" + pathInput + ", pathOutput=" + pathOutput + ", outputFormat="
+			+ outputFormat + "]";
+	}
+
+}
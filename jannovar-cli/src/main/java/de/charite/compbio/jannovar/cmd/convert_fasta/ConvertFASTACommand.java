@@ -0,0 +1,56 @@
+package de.charite.compbio.jannovar.cmd.convert_fasta;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarCommand;
+import de.charite.compbio.jannovar.impl.util.ReferenceSequenceCache;
+import de.charite.compbio.jannovar.impl.util.TwoBitFile;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+import java.io.IOException;
+
+/**
+ * Jannovar command for converting an indexed FASTA file into the packed and memory-mappable <code>.2bit</code>
+ * format.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ConvertFASTACommand extends JannovarCommand {
+
+	/**
+	 * Number of bases to decode at once during the conversion
+	 */
+	private static final int BLOCK_SIZE = 1 << 20;
+
+	/**
+	 * Configuration
+	 */
+	private JannovarConvertFASTAOptions options;
+
+	public ConvertFASTACommand(String argv[], Namespace args) throws CommandLineParsingException {
+		this.options = new JannovarConvertFASTAOptions();
+		this.options.setFromArgs(args);
+	}
+
+	/**
+	 * Perform the conversion
+	 */
+	@Override
+	public void run() throws JannovarException {
+		System.err.println("Options");
+		System.err.println(options.toString());
+
+		// the contigs are read sequentially, so a small private cache is enough
+		final ReferenceSequenceCache source = new ReferenceSequenceCache(options.getPathInput(),
+			options.getPathInput() + ".fai", BLOCK_SIZE, 2);
+
+		System.err.println("Writing " + source.getContigNames().size() + " contigs...");
+		try {
+			TwoBitFile.write(source, options.getPathOutput());
+		} catch (IOException e) {
+			throw new JannovarException("Could not write .2bit file " + options.getPathOutput(), e);
+		}
+		System.err.println("All done.");
+	}
+
+}
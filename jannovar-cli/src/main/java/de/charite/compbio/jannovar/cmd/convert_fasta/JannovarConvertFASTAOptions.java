@@ -0,0 +1,82 @@
+package de.charite.compbio.jannovar.cmd.convert_fasta;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
+import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import net.sourceforge.argparse4j.inf.*;
+
+import java.util.function.BiFunction;
+
+/**
+ * Configuration for the <code>convert-fasta</code> command
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class JannovarConvertFASTAOptions extends JannovarBaseOptions {
+
+	/**
+	 * Path to input FASTA file, must be indexed with <code>samtools faidx</code>
+	 */
+	private String pathInput = null;
+
+	/**
+	 * Path to output <code>.2bit</code> file
+	 */
+	private String pathOutput = null;
+
+	/**
+	 * Setup {@link ArgumentParser}
+	 *
+	 * @param subParsers {@link Subparsers} to setup
+	 */
+	public static void setupParser(Subparsers subParsers) {
+		BiFunction<String[], Namespace, ConvertFASTACommand> handler = (argv, args) -> {
+			try {
+				return new ConvertFASTACommand(argv, args);
+			} catch (CommandLineParsingException e) {
+				throw new UncheckedJannovarException("Could not parse command line", e);
+			}
+		};
+
+		Subparser subParser = subParsers.addParser("convert-fasta", true)
+			.help("convert indexed FASTA file into packed .2bit format").setDefault("cmd", handler);
+		subParser.description("Convert indexed FASTA file into the packed and memory-mappable .2bit format, which can "
+			+ "be used everywhere instead of the FASTA file");
+
+		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
+		requiredGroup.addArgument("-i", "--input").help("Path to input FASTA file, with FAI index").required(true);
+		requiredGroup.addArgument("-o", "--output").help("Path to output .2bit file").required(true);
+
+		JannovarBaseOptions.setupParser(subParser);
+	}
+
+	@Override
+	public void setFromArgs(Namespace args) throws CommandLineParsingException {
+		super.setFromArgs(args);
+
+		pathInput = args.getString("input");
+		pathOutput = args.getString("output");
+	}
+
+	public String getPathInput() {
+		return pathInput;
+	}
+
+	public void setPathInput(String pathInput) {
+		this.pathInput = pathInput;
+	}
+
+	public String getPathOutput() {
+		return pathOutput;
+	}
+
+	public void setPathOutput(String pathOutput) {
+		this.pathOutput = pathOutput;
+	}
+
+	@Override
+	public String toString() {
+		return "JannovarConvertFASTAOptions [pathInput=" + pathInput + ", pathOutput=" + pathOutput + "]";
+	}
+
+}
@@ -35,6 +35,7 @@ public final class DownloadCommand extends JannovarCommand {
 
 		DatasourceOptions dsOptions = new DatasourceOptions(options.getHttpProxy(),
 			options.getHttpsProxy(), options.getFtpProxy(), options.isReportProgress());
+		dsOptions.setThreads(options.getThreads());
 
 		DataSourceFactory factory =
 			new DataSourceFactory(dsOptions, Lists.reverse(options.dataSourceFiles));
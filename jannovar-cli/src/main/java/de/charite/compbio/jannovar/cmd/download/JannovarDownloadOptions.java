@@ -39,6 +39,11 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 	 */
 	private String outputFile = "";
 
+	/**
+	 * Number of threads for parsing the downloaded files
+	 */
+	private int threads = 1;
+
 	/**
 	 * Setup {@link ArgumentParser}
 	 *
@@ -69,6 +74,9 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 		optionalGroup.addArgument("--gene-ids").help("Optional list of genes to limit creation of database to")
 			.setDefault(new ArrayList<String>()).nargs("+");
 		optionalGroup.addArgument("-o", "--output-file").help("Optional path to output file").setDefault("");
+		optionalGroup.addArgument("--threads")
+			.help("Number of threads for parsing the downloaded files, the result is the same as with one thread")
+			.type(Integer.class).setDefault(1);
 
 		JannovarBaseOptions.setupParser(subParser);
 	}
@@ -81,6 +89,9 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 		databaseNames = args.getList("database");
 		geneIdentifiers = args.getList("gene_ids");
 		outputFile = args.getString("output_file");
+		threads = args.getInt("threads");
+		if (threads < 1)
+			throw new CommandLineParsingException("Number of threads must be at least 1 but was " + threads);
 	}
 
 	public String getDownloadDir() {
@@ -115,12 +126,20 @@ public class JannovarDownloadOptions extends JannovarDBOptions {
 		this.outputFile = outputFile;
 	}
 
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
 	@Override
 	public String toString() {
 		return "JannovarDownloadOptions [downloadDir=" + downloadDir + ", getDataSourceFiles()=" + getDataSourceFiles()
 			+ ", isReportProgress()=" + isReportProgress() + ", getHttpProxy()=" + getHttpProxy()
 			+ ", getHttpsProxy()=" + getHttpsProxy() + ", getFtpProxy()=" + getFtpProxy() + ", geneIdentifiers="
-			+ geneIdentifiers + ", outputFile=" + outputFile + "]";
+			+ geneIdentifiers + ", outputFile=" + outputFile + ", threads=" + threads + "]";
 	}
 
 }
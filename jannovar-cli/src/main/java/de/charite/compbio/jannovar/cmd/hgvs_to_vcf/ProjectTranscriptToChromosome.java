@@ -12,12 +12,13 @@ import de.charite.compbio.jannovar.hgvs.bridge.NucleotideChangeToGenomeVariantTr
 import de.charite.compbio.jannovar.hgvs.nts.variant.SingleAlleleNucleotideVariant;
 import de.charite.compbio.jannovar.hgvs.parser.HGVSParser;
 import de.charite.compbio.jannovar.hgvs.parser.HGVSParsingException;
+import de.charite.compbio.jannovar.impl.util.ReferenceSequenceCache;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import de.charite.compbio.jannovar.reference.Strand;
 import de.charite.compbio.jannovar.vardbs.base.VariantDescription;
 import de.charite.compbio.jannovar.vardbs.base.VariantNormalizer;
+import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
@@ -42,9 +43,13 @@ import java.util.TreeMap;
 public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 
 	/**
-	 * FAI-indexed FASTA file to use
+	 * Reference sequence to use, FAI-indexed FASTA or <code>.2bit</code> file
 	 */
-	IndexedFastaSequenceFile fasta;
+	ReferenceSequenceCache reference;
+	/**
+	 * Sequence dictionary, built from the contigs of {@link #reference}
+	 */
+	SAMSequenceDictionary sequenceDictionary;
 	/**
 	 * Translation of variants
 	 */
@@ -69,9 +74,8 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 		System.err.println(options.toString());
 		System.err.println("Loading database file...");
 		deserializeTranscriptDefinitionFile(options.getDatabaseFilePath());
-		System.err.println("Loading FASTA index...");
+		System.err.println("Loading reference index...");
 		loadFASTAIndex();
-		normalizer = new VariantNormalizer(options.getPathReferenceFASTA());
 		System.err.println("Opening output VCF file...");
 		try (VariantContextWriter writer = openOutputFile()) {
 			processFile(writer);
@@ -80,7 +84,7 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 
 	private VariantContextWriter openOutputFile() {
 		VariantContextWriterBuilder builder = new VariantContextWriterBuilder()
-			.setReferenceDictionary(fasta.getSequenceDictionary()).setOutputFile(options.getPathOutputVCF());
+			.setReferenceDictionary(sequenceDictionary).setOutputFile(options.getPathOutputVCF());
 		if (options.getPathOutputVCF().endsWith(".gz") || options.getPathOutputVCF().endsWith(".bcf"))
 			builder.setOption(Options.INDEX_ON_THE_FLY);
 		else
@@ -89,7 +93,7 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 
 		VCFHeader header = new VCFHeader();
 		int i = 0;
-		for (SAMSequenceRecord record : fasta.getSequenceDictionary().getSequences()) {
+		for (SAMSequenceRecord record : sequenceDictionary.getSequences()) {
 			Map<String, String> mapping = new TreeMap<String, String>();
 			mapping.put("ID", record.getSequenceName());
 			mapping.put("length", Integer.toString(record.getSequenceLength()));
@@ -110,19 +114,16 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 		return writer;
 	}
 
-	private void loadFASTAIndex() {
-		try {
-			this.fasta = new IndexedFastaSequenceFile(new File(options.getPathReferenceFASTA()));
-		} catch (FileNotFoundException e) {
-			throw new UncheckedJannovarException("Could not load FASTA index", e);
-		}
-		if (this.fasta.getSequenceDictionary() == null) {
-			throw new UncheckedJannovarException(
-				"FASTA sequence dictionary empty, you have a REFERENCE.dict file (create with Picard "
-					+ "or samtools dict, version >=1.3)");
-		}
+	private void loadFASTAIndex() throws JannovarException {
+		// share the reference cache between translation and normalization
+		this.reference = ReferenceSequenceCache.getShared(options.getPathReferenceFASTA());
+		final List<SAMSequenceRecord> records = new ArrayList<>();
+		for (String name : reference.getContigNames())
+			records.add(new SAMSequenceRecord(name, reference.getContigLength(name)));
+		this.sequenceDictionary = new SAMSequenceDictionary(records);
 
-		this.translator = new NucleotideChangeToGenomeVariantTranslator(jannovarData, fasta);
+		this.translator = new NucleotideChangeToGenomeVariantTranslator(jannovarData, reference);
+		this.normalizer = new VariantNormalizer(reference);
 	}
 
 	/**
@@ -193,9 +194,9 @@ public class ProjectTranscriptToChromosome extends JannovarAnnotationCommand {
 			throw new UncheckedJannovarException("Unknown contig name " + contigName);
 		// Try to find matching contig in fasta
 		String nameInFasta = null;
-		for (SAMSequenceRecord record : fasta.getSequenceDictionary().getSequences()) {
-			if (contigID.equals(jannovarData.getRefDict().getContigNameToID().get(record.getSequenceName()))) {
-				nameInFasta = record.getSequenceName();
+		for (String name : reference.getContigNames()) {
+			if (contigID.equals(jannovarData.getRefDict().getContigNameToID().get(name))) {
+				nameInFasta = name;
 				break;
 			}
 		}
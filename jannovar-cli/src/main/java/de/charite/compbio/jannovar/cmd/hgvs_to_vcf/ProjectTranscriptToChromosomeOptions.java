@@ -49,7 +49,7 @@ public class ProjectTranscriptToChromosomeOptions extends JannovarAnnotationOpti
 			.help("project transcript-level to chromosome-level changes").setDefault("cmd", handler);
 		subParser.description("Project transcript-level changes to chromosome level ones");
 		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
-		requiredGroup.addArgument("-r", "--reference-fasta").help("Path to reference FASTA file").required(true);
+		requiredGroup.addArgument("-r", "--reference-fasta").help("Path to indexed reference FASTA or .2bit file").required(true);
 		requiredGroup.addArgument("-d", "--database").help("Path to database .ser file").required(true);
 		requiredGroup.addArgument("-i", "--input-txt").help("Input file with HGVS transcript-level changes, line-by-line")
 			.required(true);
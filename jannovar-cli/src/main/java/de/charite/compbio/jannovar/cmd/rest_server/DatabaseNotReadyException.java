@@ -0,0 +1,18 @@
+package de.charite.compbio.jannovar.cmd.rest_server;
+
+import de.charite.compbio.jannovar.JannovarException;
+
+/**
+ * Thrown when a database is requested that is not loaded yet (or failed to load).
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class DatabaseNotReadyException extends JannovarException {
+
+	public static final long serialVersionUID = 1L;
+
+	public DatabaseNotReadyException(String msg) {
+		super(msg);
+	}
+
+}
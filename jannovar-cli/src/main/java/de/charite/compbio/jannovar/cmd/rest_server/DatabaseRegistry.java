@@ -0,0 +1,379 @@
+package de.charite.compbio.jannovar.cmd.rest_server;
+
+import com.google.common.collect.ImmutableMap;
+import de.charite.compbio.jannovar.annotation.AnnotationMessage;
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.htsjdk.InvalidCoordinatesException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * The databases of the REST server, loaded on first use and evicted under a memory budget.
+ * <p>
+ * Requesting a database that is not loaded starts loading it on a background thread, the request fails with
+ * {@link DatabaseNotReadyException} until it is ready. Databases are loaded one at a time to limit the peak memory
+ * usage. Before loading, the least recently used databases are evicted until the estimated memory usage of all loaded
+ * databases fits into the budget. The memory usage of a database is estimated from its file size. Other holders of
+ * objects of a database, e.g., a cache of annotation results, are notified of the eviction through the listeners
+ * added with {@link #addEvictionListener}, such that the database can be garbage collected.
+ * <p>
+ * There is no hysteresis: if the databases used in turn do not fit into the budget together, each request for a
+ * database that was evicted loads it again.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class DatabaseRegistry implements AutoCloseable {
+
+	/**
+	 * Estimated heap usage of a loaded database per byte of its (compressed) file
+	 */
+	public static final long HEAP_BYTES_PER_FILE_BYTE = 10;
+
+	/**
+	 * State of a database
+	 */
+	public enum State {
+		/**
+		 * not loaded (yet or after eviction)
+		 */
+		NOT_LOADED,
+		/**
+		 * currently being loaded
+		 */
+		LOADING,
+		/**
+		 * loaded and ready for annotation
+		 */
+		READY,
+		/**
+		 * loading failed, the database is not retried
+		 */
+		FAILED
+	}
+
+	/**
+	 * Loading of a database file, can be replaced for tests
+	 */
+	interface Loader {
+		JannovarData load(String path) throws SerializationException;
+	}
+
+	/**
+	 * Loaded database with the annotators for it
+	 */
+	public static final class Database {
+
+		private final JannovarData jvData;
+		private final VariantAnnotator shiftingAnnotator;
+		private final VariantAnnotator nonShiftingAnnotator;
+
+		Database(JannovarData jvData) {
+			this.jvData = jvData;
+			this.shiftingAnnotator = new VariantAnnotator(jvData.getRefDict(), jvData.getChromosomes(),
+				new AnnotationBuilderOptions(true, false));
+			this.nonShiftingAnnotator = new VariantAnnotator(jvData.getRefDict(), jvData.getChromosomes(),
+				new AnnotationBuilderOptions(false, false));
+		}
+
+		public JannovarData getJannovarData() {
+			return jvData;
+		}
+
+		/**
+		 * @param threePrimeShifting whether or not to shift towards the 3' end of the transcript
+		 * @return the annotator for the given setting
+		 */
+		public VariantAnnotator getAnnotator(boolean threePrimeShifting) {
+			return threePrimeShifting ? shiftingAnnotator : nonShiftingAnnotator;
+		}
+
+	}
+
+	/**
+	 * Per-database bookkeeping, mutable members are guarded by the registry's lock
+	 */
+	private static final class Entry {
+
+		final String key;
+		final String path;
+		final long estimatedBytes;
+		volatile State state = State.NOT_LOADED;
+		volatile Database database = null;
+		volatile long lastUsed = 0;
+		boolean wasEvicted = false;
+		String error = null;
+
+		Entry(String key, String path, long estimatedBytes) {
+			this.key = key;
+			this.path = path;
+			this.estimatedBytes = estimatedBytes;
+		}
+
+	}
+
+	/**
+	 * Databases by key, in configuration order
+	 */
+	private final ImmutableMap<String, Entry> entries;
+
+	/**
+	 * Memory budget in bytes, 0 for no limit
+	 */
+	private final long memoryBudget;
+
+	/**
+	 * Loads the database files
+	 */
+	private final Loader loader;
+
+	/**
+	 * Background thread for loading
+	 */
+	private final ExecutorService loadExecutor;
+
+	/**
+	 * Called with the key of a database when it is evicted
+	 */
+	private final List<Consumer<String>> evictionListeners = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Construct registry, nothing is loaded yet
+	 *
+	 * @param paths        paths to the database files by key (<code>source/assembly</code>)
+	 * @param memoryBudget estimated memory usage allowed for all loaded databases in bytes, 0 for no limit
+	 */
+	public DatabaseRegistry(Map<String, String> paths, long memoryBudget) {
+		this(paths, memoryBudget, path -> new JannovarDataSerializer(path).load());
+	}
+
+	DatabaseRegistry(Map<String, String> paths, long memoryBudget, Loader loader) {
+		ImmutableMap.Builder<String, Entry> builder = ImmutableMap.builder();
+		for (Map.Entry<String, String> e : paths.entrySet())
+			builder.put(e.getKey(), new Entry(e.getKey(), e.getValue(),
+				new File(e.getValue()).length() * HEAP_BYTES_PER_FILE_BYTE));
+		this.entries = builder.build();
+		this.memoryBudget = memoryBudget;
+		this.loader = loader;
+		this.loadExecutor = Executors.newSingleThreadExecutor(r -> {
+			Thread thread = new Thread(r, "database-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Construct registry from databases that are already loaded, without memory budget
+	 *
+	 * @param jvDatas databases by key (<code>source/assembly</code>)
+	 * @return the registry with all databases ready
+	 */
+	public static DatabaseRegistry ofLoaded(Map<String, JannovarData> jvDatas) {
+		final Map<String, String> paths = new LinkedHashMap<>();
+		for (String key : jvDatas.keySet())
+			paths.put(key, key);
+		return new DatabaseRegistry(paths, 0, jvDatas::get).preloadAll().awaitAll();
+	}
+
+	/**
+	 * Register listener that is called with the key of each database that is evicted, while holding the registry's
+	 * lock. It is also called before a database becomes ready after reloading, for objects added by requests that
+	 * were still running during eviction.
+	 *
+	 * @param listener the listener to add
+	 */
+	public void addEvictionListener(Consumer<String> listener) {
+		evictionListeners.add(listener);
+	}
+
+	/**
+	 * @return keys of all configured databases
+	 */
+	public Iterable<String> getKeys() {
+		return entries.keySet();
+	}
+
+	/**
+	 * Obtain loaded database, start loading if necessary
+	 *
+	 * @param key database key, <code>source/assembly</code>
+	 * @return the loaded database
+	 * @throws InvalidCoordinatesException if the database is unknown
+	 * @throws DatabaseNotReadyException   if the database is not loaded yet or failed to load
+	 */
+	public Database get(String key) throws InvalidCoordinatesException, DatabaseNotReadyException {
+		final Entry entry = entries.get(key);
+		if (entry == null)
+			throw new InvalidCoordinatesException("Unknown database " + key,
+				AnnotationMessage.ERROR_PROBLEM_DURING_ANNOTATION);
+		entry.lastUsed = System.nanoTime();
+		final Database database = entry.database;
+		if (database != null)
+			return database;
+
+		synchronized (this) {
+			if (entry.state == State.NOT_LOADED)
+				startLoading(entry);
+			if (entry.state == State.FAILED)
+				throw new DatabaseNotReadyException("Database " + key + " failed to load: " + entry.error);
+		}
+		throw new DatabaseNotReadyException("Database " + key + " is loading, retry later");
+	}
+
+	/**
+	 * Start loading the databases in the background, in configuration order as long as they fit into the memory
+	 * budget; the remaining ones are loaded on first use
+	 *
+	 * @return <code>this</code>
+	 */
+	public synchronized DatabaseRegistry preloadAll() {
+		long used = usedBytes();
+		for (Entry entry : entries.values()) {
+			if (entry.state != State.NOT_LOADED)
+				continue;
+			if (memoryBudget > 0 && used + entry.estimatedBytes > memoryBudget)
+				break;
+			used += entry.estimatedBytes;
+			startLoading(entry);
+		}
+		return this;
+	}
+
+	/**
+	 * Wait until all loading started so far has finished
+	 *
+	 * @return <code>this</code>
+	 */
+	DatabaseRegistry awaitAll() {
+		try {
+			loadExecutor.submit(() -> {
+			}).get();
+		} catch (Exception e) {
+			throw new IllegalStateException("Problem waiting for database loading", e);
+		}
+		return this;
+	}
+
+	/**
+	 * @return state of each database, in the form for serialization with Gson
+	 */
+	public synchronized List<Map<String, Object>> getStatus() {
+		final List<Map<String, Object>> result = new ArrayList<>();
+		final long now = System.nanoTime();
+		for (Entry entry : entries.values()) {
+			final Map<String, Object> status = new LinkedHashMap<>();
+			status.put("key", entry.key);
+			status.put("state", entry.state.toString());
+			status.put("estimatedBytes", entry.estimatedBytes);
+			if (entry.lastUsed != 0)
+				status.put("secondsSinceLastUse", TimeUnit.NANOSECONDS.toSeconds(now - entry.lastUsed));
+			if (entry.error != null)
+				status.put("error", entry.error);
+			result.add(status);
+		}
+		return result;
+	}
+
+	/**
+	 * @param key database key
+	 * @return state of the database, <code>null</code> if unknown
+	 */
+	public State getState(String key) {
+		final Entry entry = entries.get(key);
+		return (entry == null) ? null : entry.state;
+	}
+
+	/**
+	 * Make room for <code>entry</code> and submit loading it, must hold the lock
+	 */
+	private void startLoading(Entry entry) {
+		evictFor(entry);
+		entry.state = State.LOADING;
+		loadExecutor.submit(() -> load(entry));
+	}
+
+	/**
+	 * Evict least recently used databases until <code>entry</code> fits into the budget, must hold the lock
+	 */
+	private void evictFor(Entry entry) {
+		if (memoryBudget <= 0)
+			return;
+		long used = usedBytes() + entry.estimatedBytes;
+		while (used > memoryBudget) {
+			Entry lru = null;
+			for (Entry other : entries.values())
+				if (other.state == State.READY && (lru == null || other.lastUsed < lru.lastUsed))
+					lru = other;
+			if (lru == null)
+				break; // only databases being loaded left, load anyway
+			System.err.println("Evicting database " + lru.key + " to stay in memory budget");
+			lru.database = null;
+			lru.state = State.NOT_LOADED;
+			lru.wasEvicted = true;
+			notifyEvicted(lru);
+			used -= lru.estimatedBytes;
+		}
+	}
+
+	/**
+	 * Call the eviction listeners for <code>entry</code>, must hold the lock
+	 */
+	private void notifyEvicted(Entry entry) {
+		for (Consumer<String> listener : evictionListeners)
+			listener.accept(entry.key);
+	}
+
+	/**
+	 * @return estimated memory usage of the databases loaded or being loaded, must hold the lock
+	 */
+	private long usedBytes() {
+		long result = 0;
+		for (Entry entry : entries.values())
+			if (entry.state == State.LOADING || entry.state == State.READY)
+				result += entry.estimatedBytes;
+		return result;
+	}
+
+	/**
+	 * Load database of <code>entry</code>, called on the loader thread
+	 */
+	private void load(Entry entry) {
+		System.err.println("Loading " + entry.path + "...");
+		try {
+			final Database database = new Database(loader.load(entry.path));
+			synchronized (this) {
+				if (entry.wasEvicted)
+					notifyEvicted(entry);
+				entry.database = database;
+				entry.state = State.READY;
+			}
+			System.err.println("Done loading " + entry.path + ".");
+		} catch (SerializationException | RuntimeException | OutOfMemoryError e) {
+			synchronized (this) {
+				entry.error = e.getMessage();
+				entry.state = State.FAILED;
+			}
+			System.err.println("Problem loading " + entry.path + ": " + e.getMessage());
+		}
+	}
+
+	@Override
+	public void close() {
+		loadExecutor.shutdownNow();
+	}
+
+}
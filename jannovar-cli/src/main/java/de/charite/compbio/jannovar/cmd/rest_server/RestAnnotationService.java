@@ -0,0 +1,365 @@
+package de.charite.compbio.jannovar.cmd.rest_server;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.annotation.Annotation;
+import de.charite.compbio.jannovar.annotation.AnnotationException;
+import de.charite.compbio.jannovar.annotation.AnnotationMessage;
+import de.charite.compbio.jannovar.annotation.VariantAnnotationCache;
+import de.charite.compbio.jannovar.annotation.VariantAnnotations;
+import de.charite.compbio.jannovar.annotation.VariantAnnotator;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.htsjdk.InvalidCoordinatesException;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.PositionType;
+import de.charite.compbio.jannovar.reference.Strand;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Annotation of variants for the REST server, shared between all requests.
+ * <p>
+ * The databases and their {@link VariantAnnotator}s are provided by a {@link DatabaseRegistry}, and the JSON
+ * (de-)serializers are shared as well. Batches of variants are annotated on a pool of worker threads, the results are written out in
+ * input order as soon as they are available. Optionally, the annotation results are kept in a
+ * {@link VariantAnnotationCache} shared by all requests.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class RestAnnotationService implements AutoCloseable {
+
+	/**
+	 * Maximal number of variants per worker thread that are annotated but not written out yet, for each batch
+	 */
+	private static final int IN_FLIGHT_PER_THREAD = 16;
+
+	/**
+	 * Shared Gson instance for writing results
+	 */
+	private final Gson gson = new Gson();
+
+	/**
+	 * Reader for {@link Variant} objects, thread-safe
+	 */
+	private final ObjectReader variantReader = new ObjectMapper().readerFor(Variant.class);
+
+	/**
+	 * The databases to use
+	 */
+	private final DatabaseRegistry registry;
+
+	/**
+	 * Cache of annotation results, <code>null</code> for no caching
+	 */
+	private final VariantAnnotationCache cache;
+
+	/**
+	 * Worker threads for batch annotation
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Maximal number of variants in flight per batch
+	 */
+	private final int maxInFlight;
+
+	/**
+	 * Construct service
+	 *
+	 * @param registry databases by key (<code>source/assembly</code>, e.g., <code>refseq/hg19</code>)
+	 * @param threads  number of worker threads for batch annotation
+	 * @param cache    cache of annotation results shared by all requests, <code>null</code> for no caching
+	 */
+	public RestAnnotationService(DatabaseRegistry registry, int threads, VariantAnnotationCache cache) {
+		this.registry = registry;
+		this.cache = cache;
+		// the cached results reference the transcripts of their database
+		if (cache != null)
+			registry.addEvictionListener(cache::invalidateDatabase);
+
+		final AtomicInteger threadNo = new AtomicInteger(0);
+		this.executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "rest-annotate-worker-" + threadNo.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.maxInFlight = IN_FLIGHT_PER_THREAD * threads;
+	}
+
+	/**
+	 * @return shared {@link Gson} instance
+	 */
+	public Gson getGson() {
+		return gson;
+	}
+
+	/**
+	 * Parse one variant from JSON
+	 *
+	 * @param json JSON object with the variant
+	 * @return the parsed {@link Variant}
+	 * @throws IOException on problems with parsing
+	 */
+	public Variant parseVariant(String json) throws IOException {
+		return variantReader.readValue(json);
+	}
+
+	/**
+	 * Annotate single variant
+	 *
+	 * @param key                database key, <code>source/assembly</code>
+	 * @param chromosome         contig name
+	 * @param position           1-based position
+	 * @param reference          reference bases
+	 * @param alternative        alternative bases
+	 * @param threePrimeShifting whether or not to shift towards the 3' end of the transcript
+	 * @return the annotations for each transcript
+	 * @throws InvalidCoordinatesException on unknown database or contig
+	 * @throws DatabaseNotReadyException   if the database is not loaded yet
+	 * @throws AnnotationException         on problems with the annotation
+	 */
+	public List<VariantAnnotationInfo> annotate(String key, String chromosome, int position, String reference,
+												String alternative, boolean threePrimeShifting)
+		throws InvalidCoordinatesException, DatabaseNotReadyException, AnnotationException {
+		final DatabaseRegistry.Database database = registry.get(key);
+		final JannovarData jvData = database.getJannovarData();
+		final VariantAnnotator annotator = database.getAnnotator(threePrimeShifting);
+
+		final Integer boxedInt = jvData.getRefDict().getContigNameToID().get(chromosome);
+		if (boxedInt == null) {
+			throw new InvalidCoordinatesException("Unknown reference " + chromosome,
+				AnnotationMessage.ERROR_CHROMOSOME_NOT_FOUND);
+		}
+		final int chr = boxedInt.intValue();
+
+		final GenomePosition gPos = new GenomePosition(jvData.getRefDict(), Strand.FWD, chr,
+			position, PositionType.ONE_BASED);
+		final GenomeVariant change = new GenomeVariant(gPos, reference, alternative);
+		final VariantAnnotations annotations = (cache == null) ? annotator.buildAnnotations(change)
+			: cache.get(key, annotator, change);
+
+		final List<VariantAnnotationInfo> result = new ArrayList<>(0);
+		for (Annotation anno : annotations.getAnnotations()) {
+			result.add(new VariantAnnotationInfo(anno.getTranscript().getAccession(),
+				anno.getEffects().stream().map(x -> x.toString().toLowerCase())
+					.collect(Collectors.toList()), anno.getTranscript().isCoding(),
+				anno.getProteinChangeStr(AminoAcidCode.ONE_LETTER),
+				anno.getCDSNTChangeStr()));
+		}
+		return result;
+	}
+
+	/**
+	 * Annotate a batch of variants, given as JSON array or as NDJSON (one JSON object per line).
+	 * <p>
+	 * One line of NDJSON is written to <code>out</code> for each variant, in input order and as soon as available.
+	 * Each line holds the variant and its <code>annotations</code>, or an <code>error</code> message if the variant
+	 * could not be annotated. If the input cannot be parsed, the results for the variants before are written,
+	 * followed by a line with only an <code>error</code> message.
+	 *
+	 * @param in                 stream to read the variants from
+	 * @param out                stream to write the results to, flushed but not closed
+	 * @param threePrimeShifting whether or not to shift towards the 3' end of the transcript
+	 * @throws IOException on problems with writing the output
+	 */
+	public void annotateBatch(InputStream in, OutputStream out, boolean threePrimeShifting) throws IOException {
+		final Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+		final ArrayDeque<Future<BatchResult>> inFlight = new ArrayDeque<>();
+		String parseError = null;
+		try (MappingIterator<Variant> it = variantReader.readValues(in)) {
+			while (it.hasNextValue()) {
+				final Variant variant = it.nextValue();
+				inFlight.add(executor.submit(() -> annotateBatchVariant(variant, threePrimeShifting)));
+				while (!inFlight.isEmpty() && (inFlight.size() >= maxInFlight || inFlight.peek().isDone()))
+					writeResult(writer, inFlight.remove());
+			}
+		} catch (JsonProcessingException e) {
+			parseError = "Invalid input: " + e.getOriginalMessage();
+		}
+
+		while (!inFlight.isEmpty())
+			writeResult(writer, inFlight.remove());
+		if (parseError != null) {
+			gson.toJson(new BatchResult(null, null, parseError), writer);
+			writer.write('\n');
+		}
+		writer.flush();
+	}
+
+	private BatchResult annotateBatchVariant(Variant variant, boolean threePrimeShifting) {
+		if (!variant.isValid())
+			return new BatchResult(variant, null, "Missing required data");
+		try {
+			return new BatchResult(variant, annotate(variant.getKey(), variant.chr, variant.pos, variant.ref,
+				variant.alt, threePrimeShifting), null);
+		} catch (InvalidCoordinatesException | DatabaseNotReadyException | AnnotationException | RuntimeException e) {
+			return new BatchResult(variant, null, e.getMessage());
+		}
+	}
+
+	private void writeResult(Writer writer, Future<BatchResult> future) throws IOException {
+		final BatchResult result;
+		try {
+			result = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedJannovarException("Interrupted while waiting for annotation", e);
+		} catch (ExecutionException e) {
+			throw new UncheckedJannovarException("Problem annotating variant", e.getCause());
+		}
+		gson.toJson(result, writer);
+		writer.write('\n');
+	}
+
+	/**
+	 * @return metrics of the service for the <code>/metrics</code> endpoint, in the form for serialization with Gson
+	 */
+	public Map<String, Object> getMetrics() {
+		final Map<String, Object> cacheMetrics = new LinkedHashMap<>();
+		cacheMetrics.put("enabled", cache != null);
+		if (cache != null) {
+			final CacheStats stats = cache.stats();
+			cacheMetrics.put("size", cache.size());
+			cacheMetrics.put("hitCount", stats.hitCount());
+			cacheMetrics.put("missCount", stats.missCount());
+			cacheMetrics.put("evictionCount", stats.evictionCount());
+			cacheMetrics.put("hitRate", stats.hitRate());
+		}
+		final Map<String, Object> result = new LinkedHashMap<>();
+		result.put("databases", registry.getStatus());
+		result.put("cache", cacheMetrics);
+		return result;
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+		registry.close();
+	}
+
+	/**
+	 * Helper class for simple serialization using Gson.
+	 */
+	static class VariantAnnotationInfo {
+		private final String transcriptId;
+		private final ImmutableList variantEffects;
+		private final boolean isCoding;
+		private final String hgvsProtein;
+		private final String hgvsNucleotides;
+
+		public VariantAnnotationInfo(String transcriptId, Collection<String> variantEffects,
+									 boolean isCoding, String hgvsProtein, String hgvsNucleotides) {
+			this.transcriptId = transcriptId;
+			this.variantEffects = ImmutableList.copyOf(variantEffects);
+			this.isCoding = isCoding;
+			this.hgvsProtein = hgvsProtein;
+			this.hgvsNucleotides = hgvsNucleotides;
+		}
+	}
+
+	/**
+	 * One line of the batch result, <code>null</code> members are not written by Gson.
+	 */
+	private static class BatchResult {
+		private final Variant variant;
+		private final List<VariantAnnotationInfo> annotations;
+		private final String error;
+
+		BatchResult(Variant variant, List<VariantAnnotationInfo> annotations, String error) {
+			this.variant = variant;
+			this.annotations = annotations;
+			this.error = error;
+		}
+	}
+
+	/**
+	 * Variant in requests, deserialized with Jackson.
+	 */
+	static class Variant {
+		private String source;
+		private String assembly;
+		private String chr;
+		private int pos;
+		private String ref;
+		private String alt;
+
+		public void setSource(String source) {
+			this.source = source;
+		}
+
+		public void setAssembly(String assembly) {
+			this.assembly = assembly;
+		}
+
+		public void setChr(String chr) {
+			this.chr = chr;
+		}
+
+		public void setPos(int pos) {
+			this.pos = pos;
+		}
+
+		public void setRef(String ref) {
+			this.ref = ref;
+		}
+
+		public void setAlt(String alt) {
+			this.alt = alt;
+		}
+
+		public String getChr() {
+			return chr;
+		}
+
+		public int getPos() {
+			return pos;
+		}
+
+		public String getRef() {
+			return ref;
+		}
+
+		public String getAlt() {
+			return alt;
+		}
+
+		/**
+		 * @return database key, <code>source/assembly</code>
+		 */
+		public String getKey() {
+			return source + "/" + assembly;
+		}
+
+		public boolean isValid() {
+			return source != null && !source.isEmpty() && assembly != null && !assembly.isEmpty() &&
+				chr != null && !chr.isEmpty() && pos > 0 && ref != null && !ref.isEmpty() &&
+				alt != null && !alt.isEmpty();
+		}
+	}
+
+}
@@ -1,38 +1,28 @@
 package de.charite.compbio.jannovar.cmd.rest_server;
 
 import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+import static spark.Spark.exception;
 import static spark.Spark.get;
 import static spark.Spark.post;
 import static spark.Spark.ipAddress;
 import static spark.Spark.port;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
 import com.google.common.base.Joiner;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
-import com.google.gson.Gson;
 import com.google.gson.JsonParseException;
 import de.charite.compbio.jannovar.JannovarException;
-import de.charite.compbio.jannovar.annotation.*;
-import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.annotation.VariantAnnotationCache;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.JannovarAnnotationCommand;
-import de.charite.compbio.jannovar.data.JannovarData;
-import de.charite.compbio.jannovar.data.JannovarDataSerializer;
-import de.charite.compbio.jannovar.data.SerializationException;
-import de.charite.compbio.jannovar.hgvs.AminoAcidCode;
+import de.charite.compbio.jannovar.cmd.rest_server.RestAnnotationService.Variant;
+import de.charite.compbio.jannovar.cmd.rest_server.RestAnnotationService.VariantAnnotationInfo;
 import de.charite.compbio.jannovar.htsjdk.InvalidCoordinatesException;
 import de.charite.compbio.jannovar.impl.parse.InvalidAttributeException;
-import de.charite.compbio.jannovar.reference.GenomePosition;
-import de.charite.compbio.jannovar.reference.GenomeVariant;
-import de.charite.compbio.jannovar.reference.PositionType;
-import de.charite.compbio.jannovar.reference.Strand;
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 import net.sourceforge.argparse4j.inf.Namespace;
 
 /**
@@ -42,6 +32,11 @@ import net.sourceforge.argparse4j.inf.Namespace;
  */
 public class RestServerCommand extends JannovarAnnotationCommand {
 
+	/**
+	 * Value of the <code>Retry-After</code> header while a database is being loaded
+	 */
+	private static final int RETRY_AFTER_SECONDS = 5;
+
 	/**
 	 * Configuration
 	 */
@@ -58,8 +53,21 @@ public class RestServerCommand extends JannovarAnnotationCommand {
 		port(options.getPort());
 		final boolean isNt3PrimeShifting = options.isNt3PrimeShifting();
 
-		System.err.println("Loading database");
-		final ImmutableMap<String, JannovarData> jvDatas = loadDatabases();
+		final DatabaseRegistry registry = new DatabaseRegistry(getDatabasePaths(),
+			options.getMemoryBudgetMb() * 1024 * 1024);
+		if (options.isPreload()) {
+			System.err.println("Loading databases in the background");
+			registry.preloadAll();
+		}
+		final RestAnnotationService service = new RestAnnotationService(registry, options.getThreads(),
+			buildCache());
+
+		// Databases that are not loaded yet give 503 until they are, the client should retry
+		exception(DatabaseNotReadyException.class, (e, req, res) -> {
+			res.status(HTTP_UNAVAILABLE);
+			res.header("Retry-After", Integer.toString(RETRY_AFTER_SECONDS));
+			res.body(e.getMessage());
+		});
 
 		get("/annotate-var/:release/:database/:chromosome/:position/:reference/:alternative",
 			(req, res) -> {
@@ -71,142 +79,78 @@ public class RestServerCommand extends JannovarAnnotationCommand {
 				final boolean threePrimeShifting = !req.queryMap().hasKey("no-3-prime-shifting") && isNt3PrimeShifting;
 				final String key = Joiner.on("/")
 					.join(req.params(":release"), req.params(":database"));
-				final JannovarData jvData = jvDatas.get(key);
 
-				final List<VariantAnnotationInfo> result = getVariantAnnotations(
-					chromosome, position, reference, alternative, threePrimeShifting, jvData);
+				final List<VariantAnnotationInfo> result = service.annotate(
+					key, chromosome, position, reference, alternative, threePrimeShifting);
 
 				res.type("application/json");
-				return new Gson().toJson(result);
+				return service.getGson().toJson(result);
 			});
 
 		post("/annotate-var", (req, res) -> {
 			try {
-				ObjectMapper mapper = new ObjectMapper();
-				String body = req.body();
-				Variant payload = mapper.readValue(body, Variant.class);
+				Variant payload = service.parseVariant(req.body());
 				if (!payload.isValid()) {
 					throw new InvalidAttributeException("Missing required data");
 				}
 				final boolean threePrimeShifting = !req.queryMap().hasKey("no-3-prime-shifting") && isNt3PrimeShifting;
-				final String key = Joiner.on("/").join(payload.source, payload.assembly);
-				final JannovarData jvData = jvDatas.get(key);
 
-				final List<VariantAnnotationInfo> result = getVariantAnnotations(
-					payload.chr, payload.pos, payload.ref, payload.alt, threePrimeShifting, jvData);
+				final List<VariantAnnotationInfo> result = service.annotate(
+					payload.getKey(), payload.getChr(), payload.getPos(), payload.getRef(), payload.getAlt(),
+					threePrimeShifting);
 
 				res.type("application/json");
-				return new Gson().toJson(result);
+				return service.getGson().toJson(result);
 			} catch (JsonParseException | UnrecognizedPropertyException |
 					 InvalidAttributeException | InvalidCoordinatesException e) {
 				res.status(HTTP_BAD_REQUEST);
 				return e.getMessage();
 			}
 		});
-	}
-
-	private static List<VariantAnnotationInfo> getVariantAnnotations(
-		String chromosome, int position, String reference, String alternative,
-		boolean threePrimeShifting, JannovarData jvData) throws InvalidCoordinatesException, AnnotationException {
-
-		final VariantAnnotator annotator = new VariantAnnotator(jvData.getRefDict(),
-			jvData.getChromosomes(), new AnnotationBuilderOptions(threePrimeShifting, false));
-
-		final Integer boxedInt = jvData.getRefDict().getContigNameToID().get(chromosome);
-		if (boxedInt == null) {
-			throw new InvalidCoordinatesException("Unknown reference " + chromosome,
-				AnnotationMessage.ERROR_CHROMOSOME_NOT_FOUND);
-		}
-		final int chr = boxedInt.intValue();
-
-		final GenomePosition gPos = new GenomePosition(jvData.getRefDict(), Strand.FWD, chr,
-			position, PositionType.ONE_BASED);
-		final VariantAnnotations annotations = annotator
-			.buildAnnotations(new GenomeVariant(gPos, reference, alternative));
-
-		final List<VariantAnnotationInfo> result = new ArrayList<>(0);
-		for (Annotation anno : annotations.getAnnotations()) {
-			result.add(new VariantAnnotationInfo(anno.getTranscript().getAccession(),
-				anno.getEffects().stream().map(x -> x.toString().toLowerCase())
-					.collect(Collectors.toList()), anno.getTranscript().isCoding(),
-				anno.getProteinChangeStr(AminoAcidCode.ONE_LETTER),
-				anno.getCDSNTChangeStr()));
-		}
-		return result;
-	}
 
-	private ImmutableMap<String, JannovarData> loadDatabases() throws SerializationException {
-		ImmutableMap.Builder<String, JannovarData> builder = ImmutableMap.builder();
+		get("/databases", (req, res) -> {
+			res.type("application/json");
+			return service.getGson().toJson(registry.getStatus());
+		});
 
-		for (String dbPath : options.getDbPaths()) {
-			final String fileName = new File(dbPath).getName();
-			final String[] arr = fileName.replace(".ser", "").split("_", 2);
-			final String key = Joiner.on("/").join(arr[1], arr[0]);
-			System.err.println("Loading " + dbPath + "...");
-			builder.put(key, new JannovarDataSerializer(dbPath).load());
-			System.err.println("Done loading.");
-		}
+		get("/metrics", (req, res) -> {
+			res.type("application/json");
+			return service.getGson().toJson(service.getMetrics());
+		});
 
-		return builder.build();
+		// Streams one NDJSON line per variant, see RestAnnotationService.annotateBatch()
+		post("/annotate-vars", (req, res) -> {
+			final boolean threePrimeShifting = !req.queryMap().hasKey("no-3-prime-shifting") && isNt3PrimeShifting;
+			res.type("application/x-ndjson");
+			service.annotateBatch(req.raw().getInputStream(), res.raw().getOutputStream(), threePrimeShifting);
+			return "";
+		});
 	}
 
 	/**
-	 * Helper class for simple serialization using Gson.
+	 * @return result cache as configured, <code>null</code> if disabled
 	 */
-	private static class VariantAnnotationInfo {
-		private final String transcriptId;
-		private final ImmutableList variantEffects;
-		private final boolean isCoding;
-		private final String hgvsProtein;
-		private final String hgvsNucleotides;
-
-		public VariantAnnotationInfo(String transcriptId, Collection<String> variantEffects,
-			boolean isCoding, String hgvsProtein, String hgvsNucleotides) {
-			this.transcriptId = transcriptId;
-			this.variantEffects = ImmutableList.copyOf(variantEffects);
-			this.isCoding = isCoding;
-			this.hgvsProtein = hgvsProtein;
-			this.hgvsNucleotides = hgvsNucleotides;
-		}
+	private VariantAnnotationCache buildCache() {
+		if (options.getCacheMaxWeight() > 0)
+			return VariantAnnotationCache.withMaximumWeight(options.getCacheMaxWeight());
+		else if (options.getCacheSize() > 0)
+			return VariantAnnotationCache.withMaximumSize(options.getCacheSize());
+		else
+			return null;
 	}
 
-	private static class Variant {
-		private String source;
-		private String assembly;
-		private String chr;
-		private int pos;
-		private String ref;
-		private String alt;
-
-		public void setSource(String source) {
-			this.source = source;
-		}
-
-		public void setAssembly(String assembly) {
-			this.assembly = assembly;
-		}
-
-		public void setChr(String chr) {
-			this.chr = chr;
-		}
-
-		public void setPos(int pos) {
-			this.pos = pos;
-		}
-
-		public void setRef(String ref) {
-			this.ref = ref;
-		}
-
-		public void setAlt(String alt) {
-			this.alt = alt;
-		}
-
-		public boolean isValid() {
-			return source != null && !source.isEmpty() && assembly != null && !assembly.isEmpty() &&
-				chr != null && !chr.isEmpty() && pos > 0 && ref != null && !ref.isEmpty() &&
-				alt != null && !alt.isEmpty();
+	/**
+	 * @return database paths by key, the key is derived from the file name, e.g., <code>refseq/hg19</code> for
+	 * <code>hg19_refseq.ser</code>
+	 */
+	private Map<String, String> getDatabasePaths() {
+		final Map<String, String> result = new LinkedHashMap<>();
+		for (String dbPath : options.getDbPaths()) {
+			final String fileName = new File(dbPath).getName();
+			final String[] arr = fileName.replace(".ser", "").split("_", 2);
+			result.put(Joiner.on("/").join(arr[1], arr[0]), dbPath);
 		}
+		return result;
 	}
 
 }
@@ -22,7 +22,7 @@ import net.sourceforge.argparse4j.inf.Subparsers;
 public class RestServerOptions extends JannovarBaseOptions {
 
 	/**
-	 * The {@code .ser} files to load at startup.
+	 * The {@code .ser} files to serve.
 	 */
 	private List<String> dbPaths = new ArrayList<>();
 
@@ -42,6 +42,31 @@ public class RestServerOptions extends JannovarBaseOptions {
 	 */
 	private boolean nt3PrimeShifting=true;
 
+	/**
+	 * Number of threads to use for annotating batches of variants
+	 */
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Maximal number of annotation results to cache, 0 to disable caching
+	 */
+	private long cacheSize = 100_000;
+
+	/**
+	 * Maximal total number of annotations in the cached results, replaces {@link #cacheSize} if greater than 0
+	 */
+	private long cacheMaxWeight = 0;
+
+	/**
+	 * Estimated memory usage allowed for the loaded databases in MiB, 0 for no limit
+	 */
+	private long memoryBudgetMb = 0;
+
+	/**
+	 * Whether or not to load all databases at startup instead of on first use
+	 */
+	private boolean preload = false;
+
 	/**
 	 * Setup {@link ArgumentParser}
 	 *
@@ -58,7 +83,7 @@ public class RestServerOptions extends JannovarBaseOptions {
 
 		Subparser subParser = subParsers.addParser("rest-server", true).help("start REST server")
 			.setDefault("cmd", handler);
-		subParser.description("Start built-in REST server for the annotation of single variants");
+		subParser.description("Start built-in REST server for the annotation of single variants and batches of variants");
 		ArgumentGroup requiredGroup = subParser.addArgumentGroup("Required arguments");
 		requiredGroup.addArgument("--host").help("Host specification to listen on")
 			.setDefault("127.0.0.1");
@@ -67,6 +92,25 @@ public class RestServerOptions extends JannovarBaseOptions {
 		requiredGroup.addArgument("-d", "--database").help(
 			"Path to .ser file(s) with database, naming is $genome_$label; can be given multiple times")
 			.action(Arguments.append()).required(true);
+		subParser.addArgument("--threads")
+			.help("Number of threads to use for annotating batches of variants (POST /annotate-vars)")
+			.type(Integer.class).setDefault(Runtime.getRuntime().availableProcessors());
+		subParser.addArgument("--cache-size")
+			.help("Maximal number of annotation results to cache, 0 to disable the cache")
+			.type(Long.class).setDefault(100_000L);
+		subParser.addArgument("--cache-max-weight")
+			.help("Limit the cache by the total number of transcript annotations in the cached results instead " +
+				"of --cache-size, 0 to limit by --cache-size")
+			.type(Long.class).setDefault(0L);
+		subParser.addArgument("--memory-budget-mb")
+			.help("Estimated memory (in MiB) that the loaded databases may use, the least recently used databases " +
+				"are unloaded to stay within the budget, together with their cached results; 0 for no limit. " +
+				"There is no hysteresis, databases used in turn that do not fit into the budget together are " +
+				"reloaded on each switch")
+			.type(Long.class).setDefault(0L);
+		subParser.addArgument("--preload")
+			.help("Start loading all databases at startup instead of on first use")
+			.action(Arguments.storeTrue()).setDefault(false);
 
 		subParser.epilog(
 			"Example: java -jar Jannovar.jar rest-server --host 0.0.0.0 --port 80 -d hg19_refseq.ser");
@@ -81,6 +125,17 @@ public class RestServerOptions extends JannovarBaseOptions {
 		port = args.getInt("port");
 		dbPaths = args.getList("database");
 		nt3PrimeShifting = args.getBoolean("3_prime_shifting");
+		threads = args.getInt("threads");
+		if (threads < 1)
+			throw new CommandLineParsingException("Number of threads must be at least 1 but was " + threads);
+		cacheSize = args.getLong("cache_size");
+		cacheMaxWeight = args.getLong("cache_max_weight");
+		if (cacheSize < 0 || cacheMaxWeight < 0)
+			throw new CommandLineParsingException("Cache limits must not be negative");
+		memoryBudgetMb = args.getLong("memory_budget_mb");
+		if (memoryBudgetMb < 0)
+			throw new CommandLineParsingException("Memory budget must not be negative");
+		preload = args.getBoolean("preload");
 	}
 
 	public List<String> getDbPaths() {
@@ -115,9 +170,51 @@ public class RestServerOptions extends JannovarBaseOptions {
 		this.nt3PrimeShifting = nt3PrimeShifting;
 	}
 
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public long getCacheSize() {
+		return cacheSize;
+	}
+
+	public void setCacheSize(long cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
+	public long getCacheMaxWeight() {
+		return cacheMaxWeight;
+	}
+
+	public void setCacheMaxWeight(long cacheMaxWeight) {
+		this.cacheMaxWeight = cacheMaxWeight;
+	}
+
+	public long getMemoryBudgetMb() {
+		return memoryBudgetMb;
+	}
+
+	public void setMemoryBudgetMb(long memoryBudgetMb) {
+		this.memoryBudgetMb = memoryBudgetMb;
+	}
+
+	public boolean isPreload() {
+		return preload;
+	}
+
+	public void setPreload(boolean preload) {
+		this.preload = preload;
+	}
+
 	@Override public String toString() {
 		return "RestServerOptions{" + "dbPaths=" + dbPaths + ", host='" + host + '\'' + ", port="
-			+ port + ", 3-prime-shifting=" + nt3PrimeShifting + '}';
+			+ port + ", 3-prime-shifting=" + nt3PrimeShifting + ", threads=" + threads + ", cacheSize=" + cacheSize
+			+ ", cacheMaxWeight=" + cacheMaxWeight + ", memoryBudgetMb=" + memoryBudgetMb + ", preload=" + preload
+			+ '}';
 	}
 
 }
@@ -4,6 +4,7 @@ import com.google.common.base.Objects;
 import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
+import de.charite.compbio.jannovar.vardbs.base.AnnotateOptions;
 import net.sourceforge.argparse4j.inf.*;
 
 import java.util.ArrayList;
@@ -21,6 +22,7 @@ public class JannovarVardbAnnotateOptions extends JannovarBaseOptions {
 	private String inputVcfPath = null;
 	private String outputVcfPath = null;
 	private List<String> tableNames = new ArrayList<>();
+	private int batchSize = AnnotateOptions.DEFAULT_BATCH_SIZE;
 
 	/**
 	 * Setup {@link ArgumentParser}
@@ -49,6 +51,12 @@ public class JannovarVardbAnnotateOptions extends JannovarBaseOptions {
 		requiredGroup.addArgument("--table-names").help("Names of tables to use for annotating")
 			.nargs("+").required(true);
 
+		ArgumentGroup batchGroup = subParser.addArgumentGroup("Batch annotation arguments (optional)");
+		batchGroup.addArgument("--batch-size")
+			.help("Number of records on the same contig to query the database for at once, 1 queries each record " +
+				"on its own")
+			.type(Integer.class).setDefault(AnnotateOptions.DEFAULT_BATCH_SIZE);
+
 		JannovarBaseOptions.setupParser(subParser);
 	}
 
@@ -67,6 +75,10 @@ public class JannovarVardbAnnotateOptions extends JannovarBaseOptions {
 			}
 		}
 		tableNames = tableNameList;
+		batchSize = args.getInt("batch_size");
+
+		if (batchSize < 1)
+			throw new CommandLineParsingException("--batch-size must be positive");
 	}
 
 	public String getGenomeBuild() {
@@ -109,17 +121,25 @@ public class JannovarVardbAnnotateOptions extends JannovarBaseOptions {
 		this.tableNames = tableNames;
 	}
 
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		JannovarVardbAnnotateOptions that = (JannovarVardbAnnotateOptions) o;
-		return Objects.equal(getGenomeBuild(), that.getGenomeBuild()) && Objects.equal(getDbPath(), that.getDbPath()) && Objects.equal(getInputVcfPath(), that.getInputVcfPath()) && Objects.equal(getOutputVcfPath(), that.getOutputVcfPath()) && Objects.equal(getTableNames(), that.getTableNames());
+		return getBatchSize() == that.getBatchSize() && Objects.equal(getGenomeBuild(), that.getGenomeBuild()) && Objects.equal(getDbPath(), that.getDbPath()) && Objects.equal(getInputVcfPath(), that.getInputVcfPath()) && Objects.equal(getOutputVcfPath(), that.getOutputVcfPath()) && Objects.equal(getTableNames(), that.getTableNames());
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hashCode(getGenomeBuild(), getDbPath(), getInputVcfPath(), getOutputVcfPath(), getTableNames());
+		return Objects.hashCode(getGenomeBuild(), getDbPath(), getInputVcfPath(), getOutputVcfPath(), getTableNames(), getBatchSize());
 	}
 
 	@Override
@@ -130,6 +150,7 @@ public class JannovarVardbAnnotateOptions extends JannovarBaseOptions {
 			", inputVcfPath='" + inputVcfPath + '\'' +
 			", outputVcfPath='" + outputVcfPath + '\'' +
 			", tableNames=" + tableNames +
+			", batchSize=" + batchSize +
 			'}';
 	}
 }
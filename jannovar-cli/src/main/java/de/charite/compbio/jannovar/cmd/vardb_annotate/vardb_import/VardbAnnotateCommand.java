@@ -57,7 +57,8 @@ public class VardbAnnotateCommand extends JannovarAnnotationCommand {
 				options.getDbPath(),
 				options.getInputVcfPath(),
 				options.getOutputVcfPath(),
-				options.getTableNames()
+				options.getTableNames(),
+				options.getBatchSize()
 			), conn);
 			cmd.run(conn);
 
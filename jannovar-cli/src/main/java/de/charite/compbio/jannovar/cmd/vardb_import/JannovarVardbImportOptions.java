@@ -6,6 +6,7 @@ import de.charite.compbio.jannovar.cmd.CommandLineParsingException;
 import de.charite.compbio.jannovar.cmd.JannovarBaseOptions;
 import de.charite.compbio.jannovar.cmd.statistics.GatherStatisticsCommand;
 import de.charite.compbio.jannovar.cmd.statistics.JannovarGatherStatisticsOptions;
+import de.charite.compbio.jannovar.vardbs.base.ImportOptions;
 import net.sourceforge.argparse4j.inf.*;
 
 import java.util.ArrayList;
@@ -30,6 +31,10 @@ public class JannovarVardbImportOptions extends JannovarBaseOptions {
 	private String defaultPrefix = null;
 	private List<String> vcfInfoFields = new ArrayList<>();
 	private boolean truncateTable = false;
+	private int batchSize = ImportOptions.DEFAULT_BATCH_SIZE;
+	private int commitInterval = ImportOptions.DEFAULT_COMMIT_INTERVAL;
+	private boolean bulk = false;
+	private int threads = 1;
 
 	/**
 	 * Setup {@link ArgumentParser}
@@ -63,6 +68,19 @@ public class JannovarVardbImportOptions extends JannovarBaseOptions {
 			.action(storeTrue())
 			.setDefault(false);
 
+		ArgumentGroup bulkGroup = subParser.addArgumentGroup("Bulk import arguments (optional)");
+		bulkGroup.addArgument("--batch-size").help("Number of rows to send to the database at once")
+			.type(Integer.class).setDefault(ImportOptions.DEFAULT_BATCH_SIZE);
+		bulkGroup.addArgument("--commit-interval").help("Number of rows after which to commit")
+			.type(Integer.class).setDefault(ImportOptions.DEFAULT_COMMIT_INTERVAL);
+		bulkGroup.addArgument("--bulk")
+			.help("Load empty or truncated table with plain INSERT and create primary key after loading; " +
+				"duplicate variants are removed before, keeping the last one")
+			.action(storeTrue())
+			.setDefault(false);
+		bulkGroup.addArgument("--threads").help("Number of threads for reading VCF files by contig, " +
+			"requires tabix index if greater than 1").type(Integer.class).setDefault(1);
+
 		JannovarBaseOptions.setupParser(subParser);
 	}
 
@@ -87,6 +105,12 @@ public class JannovarVardbImportOptions extends JannovarBaseOptions {
 		}
 		vcfInfoFields = vcfInfoFieldsList;
 		truncateTable = args.getBoolean("truncate_table");
+		batchSize = args.getInt("batch_size");
+		commitInterval = args.getInt("commit_interval");
+		bulk = args.getBoolean("bulk");
+		threads = args.getInt("threads");
+		if (batchSize < 1 || commitInterval < 1 || threads < 1)
+			throw new CommandLineParsingException("--batch-size, --commit-interval, and --threads must be positive");
 	}
 
 	public String getDbName() {
@@ -161,17 +185,49 @@ public class JannovarVardbImportOptions extends JannovarBaseOptions {
 		this.truncateTable = truncateTable;
 	}
 
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public int getCommitInterval() {
+		return commitInterval;
+	}
+
+	public void setCommitInterval(int commitInterval) {
+		this.commitInterval = commitInterval;
+	}
+
+	public boolean isBulk() {
+		return bulk;
+	}
+
+	public void setBulk(boolean bulk) {
+		this.bulk = bulk;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		JannovarVardbImportOptions that = (JannovarVardbImportOptions) o;
-		return isTruncateTable() == that.isTruncateTable() && Objects.equal(getGenomeBuild(), that.getGenomeBuild()) && Objects.equal(getDbPath(), that.getDbPath()) && Objects.equal(getVcfPaths(), that.getVcfPaths()) && Objects.equal(getTableName(), that.getTableName()) && Objects.equal(getDefaultPrefix(), that.getDefaultPrefix()) && Objects.equal(getVcfInfoFields(), that.getVcfInfoFields());
+		return isTruncateTable() == that.isTruncateTable() && getBatchSize() == that.getBatchSize() && getCommitInterval() == that.getCommitInterval() && isBulk() == that.isBulk() && getThreads() == that.getThreads() && Objects.equal(getGenomeBuild(), that.getGenomeBuild()) && Objects.equal(getDbPath(), that.getDbPath()) && Objects.equal(getVcfPaths(), that.getVcfPaths()) && Objects.equal(getTableName(), that.getTableName()) && Objects.equal(getDefaultPrefix(), that.getDefaultPrefix()) && Objects.equal(getVcfInfoFields(), that.getVcfInfoFields());
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hashCode(getGenomeBuild(), getDbPath(), getVcfPaths(), getTableName(), getDefaultPrefix(), getVcfInfoFields(), isTruncateTable());
+		return Objects.hashCode(getGenomeBuild(), getDbPath(), getVcfPaths(), getTableName(), getDefaultPrefix(), getVcfInfoFields(), isTruncateTable(), getBatchSize(), getCommitInterval(), isBulk(), getThreads());
 	}
 
 	@Override
@@ -184,6 +240,10 @@ public class JannovarVardbImportOptions extends JannovarBaseOptions {
 			", defaultPrefix='" + defaultPrefix + '\'' +
 			", vcfInfoFields=" + vcfInfoFields +
 			", truncateTable=" + truncateTable +
+			", batchSize=" + batchSize +
+			", commitInterval=" + commitInterval +
+			", bulk=" + bulk +
+			", threads=" + threads +
 			'}';
 	}
 }
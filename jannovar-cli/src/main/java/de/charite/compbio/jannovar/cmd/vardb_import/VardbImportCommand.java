@@ -60,7 +60,11 @@ public class VardbImportCommand extends JannovarAnnotationCommand {
 				options.getTableName(),
 				options.getDefaultPrefix(),
 				options.getVcfInfoFields(),
-				options.isTruncateTable()
+				options.isTruncateTable(),
+				options.getBatchSize(),
+				options.getCommitInterval(),
+				options.isBulk(),
+				options.getThreads()
 			));
 			cmd.run(conn);
 
@@ -0,0 +1,82 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import de.charite.compbio.jannovar.cmd.annotate_vcf.JannovarAnnotateVCFOptions.BedAnnotationOptions;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.tribble.bed.BEDCodec;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class BedFileAnnotatorTest {
+
+	@TempDir
+	public File tmpFolder;
+
+	private String bedPath;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		// Write out sorted BED file with short and some long features on two contigs, together with tabix index.
+		final Random rand = new Random(42);
+		bedPath = new File(tmpFolder, "features.bed.gz").toString();
+		try (PrintWriter writer = new PrintWriter(new BlockCompressedOutputStream(bedPath))) {
+			for (String contig : new String[]{"1", "2"}) {
+				int beginPos = 0;
+				for (int i = 0; i < 500; ++i) {
+					beginPos += rand.nextInt(200);
+					final int length = 1 + (rand.nextInt(10) == 0 ? rand.nextInt(5_000) : rand.nextInt(20));
+					writer.println(contig + "\t" + beginPos + "\t" + (beginPos + length) + "\tfeature" + i);
+				}
+			}
+		}
+		final Index index = IndexFactory.createTabixIndex(new File(bedPath), new BEDCodec(), TabixFormat.BED, null);
+		index.write(new File(bedPath + ".tbi"));
+	}
+
+	private List<VariantContext> buildVariants() {
+		final Random rand = new Random(23);
+		final List<VariantContext> result = new ArrayList<>();
+		for (String contig : new String[]{"1", "2", "3"}) {
+			int pos = 1;
+			for (int i = 0; i < 500; ++i) {
+				pos += rand.nextInt(rand.nextInt(100) == 0 ? 50_000 : 300);
+				result.add(new VariantContextBuilder().chr(contig).start(pos).stop(pos).alleles("A", "C").make());
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void testStreamingYieldsSameResults() {
+		for (int colNo : new int[]{-1, 4}) {
+			final BedAnnotationOptions options = new BedAnnotationOptions(bedPath, "FEATURE", "Some feature",
+				colNo);
+			int numAnnotated = 0;
+			try (BedFileAnnotator annotator = new BedFileAnnotator(options);
+				 BedFileAnnotator streamingAnnotator = new BedFileAnnotator(options, true)) {
+				for (VariantContext vc : buildVariants()) {
+					final VariantContext expected = annotator.annotateVariantContext(vc);
+					Assertions.assertEquals(expected.toStringDecodeGenotypes(),
+						streamingAnnotator.annotateVariantContext(vc).toStringDecodeGenotypes());
+					if (expected.hasAttribute("FEATURE"))
+						++numAnnotated;
+				}
+			}
+			Assertions.assertTrue(numAnnotated > 50);
+		}
+	}
+
+}
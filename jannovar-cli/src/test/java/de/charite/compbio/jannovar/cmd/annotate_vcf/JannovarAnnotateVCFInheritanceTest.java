@@ -75,4 +75,26 @@ public class JannovarAnnotateVCFInheritanceTest {
 		Assertions.assertEquals(expected, actual);
 	}
 
+	@Test
+	public void testAnnotateARMultiThreaded() throws IOException, URISyntaxException {
+		final File outFolder = new File(tmpFolder, "output");
+		outFolder.mkdirs();
+		final String inputVCFPath = this.getClass().getResource("/pedigree_vars.vcf").toURI().getPath();
+		final String inputPEDPath = this.getClass().getResource("/pedigree_ar.ped").toURI().getPath();
+		String[] argv = new String[]{"annotate-vcf", "-o", outFolder.toString() + "/pedigree_vars.jv_ar.vcf", "-d",
+			pathToSmallSer, "-i", inputVCFPath, "--pedigree-file", inputPEDPath, "--threads", "4"};
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "pedigree_vars.jv_ar.vcf");
+		Assertions.assertTrue(f.exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/pedigree_vars.jv_ar.vcf").toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		final String actual = Files.asCharSource(f, Charsets.UTF_8).read().replaceAll("##jannovarCommand.*", "##jannovarCommand")
+			.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		Assertions.assertEquals(expected, actual);
+	}
+
 }
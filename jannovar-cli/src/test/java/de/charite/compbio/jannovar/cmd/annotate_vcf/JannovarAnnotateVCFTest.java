@@ -2,9 +2,11 @@ package de.charite.compbio.jannovar.cmd.annotate_vcf;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import de.charite.compbio.jannovar.Jannovar;
 import de.charite.compbio.jannovar.JannovarException;
+import htsjdk.samtools.util.BlockCompressedInputStream;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +14,7 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
 
 /**
@@ -52,6 +55,100 @@ public class JannovarAnnotateVCFTest {
 		Assertions.assertEquals(expected, actual);
 	}
 
+	// Test on small.vcf with multiple threads, output must be the same as with a single thread
+	@Test
+	public void testOnSmallExampleMultiThreaded() throws JannovarException, URISyntaxException, IOException {
+		final File outFolder = new File(tmpFolder, "output");
+		outFolder.mkdirs();
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		String[] argv = new String[]{"annotate-vcf", "-o", outFolder.toString() + "/small.jv.vcf", "-d",
+			pathToSmallSer, "-i", inputFilePath, "--threads", "3"};
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "small.jv.vcf");
+		Assertions.assertTrue(f.exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		final String actual = Files.asCharSource(f, Charsets.UTF_8).read().replaceAll("##jannovarCommand.*", "##jannovarCommand")
+			.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		Assertions.assertEquals(expected, actual);
+	}
+
+	// Test on small.vcf with the asynchronous writer, compressed output and tabix index
+	@Test
+	public void testOnSmallExampleAsyncWriter() throws JannovarException, URISyntaxException, IOException {
+		final File outFolder = new File(tmpFolder, "output");
+		outFolder.mkdirs();
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		String[] argv = new String[]{"annotate-vcf", "-o", outFolder.toString() + "/small.jv.vcf.gz", "-d",
+			pathToSmallSer, "-i", inputFilePath, "--writer-threads", "2", "--write-tabix-index"};
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "small.jv.vcf.gz");
+		Assertions.assertTrue(f.exists());
+		Assertions.assertTrue(new File(f.getAbsolutePath() + ".tbi").exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		final String actual;
+		try (InputStream in = new BlockCompressedInputStream(f)) {
+			actual = new String(ByteStreams.toByteArray(in), Charsets.UTF_8)
+				.replaceAll("##jannovarCommand.*", "##jannovarCommand")
+				.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		}
+		Assertions.assertEquals(expected, actual);
+	}
+
+	// Test on small.vcf, loading only the transcripts of the gene from the gold standard, output must not change
+	@Test
+	public void testOnSmallExampleWithGeneList() throws JannovarException, URISyntaxException, IOException {
+		final File outFolder = new File(tmpFolder, "output");
+		outFolder.mkdirs();
+		final File geneList = new File(tmpFolder, "genes.txt");
+		Files.asCharSink(geneList, Charsets.UTF_8).write("# panel\nFAM138A\n");
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		String[] argv = new String[]{"annotate-vcf", "-o", outFolder.toString() + "/small.jv.vcf", "-d",
+			pathToSmallSer, "-i", inputFilePath, "--gene-list", geneList.toString()};
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "small.jv.vcf");
+		Assertions.assertTrue(f.exists());
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		final String actual = Files.asCharSource(f, Charsets.UTF_8).read().replaceAll("##jannovarCommand.*", "##jannovarCommand")
+			.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+		Assertions.assertEquals(expected, actual);
+	}
+
+	// Test on small.vcf, loading only coding transcripts, the non-coding FAM138A transcript must not be used
+	@Test
+	public void testOnSmallExampleCodingOnly() throws JannovarException, URISyntaxException, IOException {
+		final File outFolder = new File(tmpFolder, "output");
+		outFolder.mkdirs();
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		String[] argv = new String[]{"annotate-vcf", "-o", outFolder.toString() + "/small.jv.vcf", "-d",
+			pathToSmallSer, "-i", inputFilePath, "--coding-only"};
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		File f = new File(outFolder.getAbsolutePath() + File.separator + "small.jv.vcf");
+		Assertions.assertTrue(f.exists());
+
+		final String actual = Files.asCharSource(f, Charsets.UTF_8).read();
+		Assertions.assertTrue(actual.contains("\t321052\t"));
+		Assertions.assertFalse(actual.contains("FAM138A"));
+		Assertions.assertFalse(actual.contains("NR_026818.1"));
+	}
+
 	// Test on semicolons.vcf. This file contains trailing semicolons at the end of the INFO and FILTER columns.
 	// Previous versions of Jannovar directly used the HTSJDK, interpreted this as empty entries and moved the semicolon
 	// to the beginning. The new versions remove it.
@@ -0,0 +1,92 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.mendel.filter.ConsumerProcessor;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Tests for {@link ParallelVariantContextPipeline}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ParallelVariantContextPipelineTest {
+
+	private List<VariantContext> buildInput(int count) {
+		List<VariantContext> result = new ArrayList<>();
+		for (int i = 1; i <= count; ++i)
+			result.add(new VariantContextBuilder().chr("1").start(i).stop(i)
+				.alleles(ImmutableList.of(Allele.create("A", true), Allele.create("C"))).make());
+		return result;
+	}
+
+	private Function<VariantContext, VariantContext> buildSteps() {
+		return vc -> {
+			// Make workers finish out of order
+			try {
+				Thread.sleep(ThreadLocalRandom.current().nextInt(2));
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			return new VariantContextBuilder(vc).attribute("THREAD", Thread.currentThread().getName())
+				.make();
+		};
+	}
+
+	@Test
+	public void testKeepsInputOrder() {
+		List<VariantContext> input = buildInput(200);
+		List<VariantContext> output = new ArrayList<>();
+		List<VariantContext> observed = new ArrayList<>();
+
+		try (ParallelVariantContextPipeline pipeline = new ParallelVariantContextPipeline(
+			ImmutableList.of(buildSteps(), buildSteps(), buildSteps()), 7, false)) {
+			pipeline.run(input.iterator(), observed::add, new ConsumerProcessor(output::add));
+		}
+
+		Assertions.assertEquals(input.size(), output.size());
+		Assertions.assertEquals(output, observed);
+		for (int i = 0; i < input.size(); ++i) {
+			Assertions.assertEquals(input.get(i).getStart(), output.get(i).getStart());
+			Assertions.assertTrue(output.get(i).hasAttribute("THREAD"));
+		}
+	}
+
+	@Test
+	public void testEmptyInput() {
+		List<VariantContext> output = new ArrayList<>();
+
+		try (ParallelVariantContextPipeline pipeline = new ParallelVariantContextPipeline(
+			ImmutableList.of(buildSteps(), buildSteps()), 10, false)) {
+			pipeline.run(new ArrayList<VariantContext>().iterator(), vc -> {
+			}, new ConsumerProcessor(output::add));
+		}
+
+		Assertions.assertTrue(output.isEmpty());
+	}
+
+	@Test
+	public void testPropagatesWorkerException() {
+		Function<VariantContext, VariantContext> failing = vc -> {
+			throw new IllegalStateException("failure in worker");
+		};
+
+		try (ParallelVariantContextPipeline pipeline = new ParallelVariantContextPipeline(
+			ImmutableList.of(failing, failing), 10, false)) {
+			IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+				() -> pipeline.run(buildInput(50).iterator(), vc -> {
+				}, new ConsumerProcessor(vc -> {
+				})));
+			Assertions.assertEquals("failure in worker", e.getMessage());
+		}
+	}
+
+}
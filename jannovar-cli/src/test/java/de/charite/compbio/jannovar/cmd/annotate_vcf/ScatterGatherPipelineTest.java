@@ -0,0 +1,135 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import de.charite.compbio.jannovar.Jannovar;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.variant.vcf.VCFCodec;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+
+/**
+ * Tests for {@link ScatterGatherPipeline}, also through <code>annotate-vcf --scatter</code>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ScatterGatherPipelineTest {
+
+	@TempDir
+	public File tmpFolder;
+
+	// path to file with the first 93 lines of hg19 RefSeq (up to "Gnomon exon 459822 459929").
+	private String pathToSmallSer;
+
+	@BeforeEach
+	public void setUp() throws URISyntaxException {
+		this.pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+	}
+
+	/**
+	 * Write the VCF resource <code>name</code> block-compressed into {@link #tmpFolder} and index it
+	 */
+	private String bgzipAndIndex(String name) throws URISyntaxException, IOException {
+		final File inputFile = new File(this.getClass().getResource("/" + name).toURI().getPath());
+		final File result = new File(tmpFolder, name + ".gz");
+		try (OutputStream out = new BlockCompressedOutputStream(result)) {
+			Files.copy(inputFile, out);
+		}
+		IndexFactory.createTabixIndex(result, new VCFCodec(), TabixFormat.VCF, null)
+			.writeBasedOnFeaturePath(result.toPath());
+		return result.getAbsolutePath();
+	}
+
+	private static String readCompressed(File f) throws IOException {
+		try (InputStream in = new BlockCompressedInputStream(f)) {
+			return new String(ByteStreams.toByteArray(in), Charsets.UTF_8);
+		}
+	}
+
+	private static String maskCommand(String vcf) {
+		return vcf.replaceAll("##jannovarCommand.*", "##jannovarCommand")
+			.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+	}
+
+	@Test
+	public void testGatherBlockCompressed() throws IOException {
+		final byte[][] contents = {"header\n".getBytes(Charsets.UTF_8), new byte[0],
+			"first shard\n".getBytes(Charsets.UTF_8), "second shard\n".getBytes(Charsets.UTF_8)};
+		ImmutableList.Builder<File> parts = ImmutableList.builder();
+		for (int i = 0; i < contents.length; ++i) {
+			final File part = new File(tmpFolder, "part-" + i);
+			try (OutputStream out = new BlockCompressedOutputStream(part)) {
+				out.write(contents[i]);
+			}
+			parts.add(part);
+		}
+
+		final File out = new File(tmpFolder, "out.gz");
+		ScatterGatherPipeline.gather(parts.build(), out.toPath(), true);
+
+		Assertions.assertEquals("header\nfirst shard\nsecond shard\n", readCompressed(out));
+		// only one empty block at the end of the file
+		final byte[] bytes = java.nio.file.Files.readAllBytes(out.toPath());
+		final int eofLength = BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK.length;
+		Assertions.assertArrayEquals(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK,
+			Arrays.copyOfRange(bytes, bytes.length - eofLength, bytes.length));
+		Assertions.assertFalse(Arrays.equals(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK,
+			Arrays.copyOfRange(bytes, bytes.length - 2 * eofLength, bytes.length - eofLength)));
+	}
+
+	// Annotate small.vcf in shards, the output must be the same as in single-threaded mode
+	@Test
+	public void testOnSmallExample() throws URISyntaxException, IOException {
+		final String inputFilePath = bgzipAndIndex("small.vcf");
+		final File outFile = new File(tmpFolder, "small.jv.vcf.gz");
+		String[] argv = new String[]{"annotate-vcf", "-o", outFile.getAbsolutePath(), "-d", pathToSmallSer, "-i",
+			inputFilePath, "--scatter", "--scatter-shard-size", "10000000", "--threads", "3", "--write-tabix-index"};
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		Assertions.assertTrue(outFile.exists());
+		Assertions.assertTrue(new File(outFile.getAbsolutePath() + ".tbi").exists());
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		Assertions.assertEquals(expected, maskCommand(readCompressed(outFile)));
+		Assertions.assertEquals(ImmutableList.of("small.jv.vcf.gz", "small.jv.vcf.gz.tbi", "small.vcf.gz",
+			"small.vcf.gz.tbi"), ImmutableList.sortedCopyOf(Arrays.asList(tmpFolder.list())));
+	}
+
+	// Annotate pedigree_vars.vcf in shards with Mendelian inheritance annotation
+	@Test
+	public void testAnnotateAR() throws URISyntaxException, IOException {
+		final String inputFilePath = bgzipAndIndex("pedigree_vars.vcf");
+		final String inputPEDPath = this.getClass().getResource("/pedigree_ar.ped").toURI().getPath();
+		final File outFile = new File(tmpFolder, "pedigree_vars.jv_ar.vcf");
+		String[] argv = new String[]{"annotate-vcf", "-o", outFile.getAbsolutePath(), "-d", pathToSmallSer, "-i",
+			inputFilePath, "--pedigree-file", inputPEDPath, "--scatter", "--scatter-shard-size", "10000000",
+			"--threads", "4"};
+		System.err.println(Joiner.on(" ").join(argv));
+
+		Jannovar.main(argv);
+
+		Assertions.assertTrue(outFile.exists());
+		final File expectedFile = new File(this.getClass().getResource("/pedigree_vars.jv_ar.vcf").toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		Assertions.assertEquals(expected, maskCommand(Files.asCharSource(outFile, Charsets.UTF_8).read()));
+	}
+
+}
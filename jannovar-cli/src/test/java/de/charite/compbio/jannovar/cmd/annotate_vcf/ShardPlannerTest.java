@@ -0,0 +1,48 @@
+package de.charite.compbio.jannovar.cmd.annotate_vcf;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.mendel.filter.GeneList;
+import htsjdk.samtools.util.Interval;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * Tests for {@link ShardPlanner}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class ShardPlannerTest {
+
+	@Test
+	public void testOneShardPerContig() {
+		List<Interval> shards = new ShardPlanner(0).plan(ImmutableList.of("2", "1"), ImmutableMap.of("1", 100));
+		Assertions.assertEquals(ImmutableList.of(new Interval("2", 1, ShardPlanner.UNKNOWN_CONTIG_LENGTH),
+			new Interval("1", 1, 100)), shards);
+	}
+
+	@Test
+	public void testFixedSize() {
+		List<Interval> shards = new ShardPlanner(40).plan(ImmutableList.of("1", "2"),
+			ImmutableMap.of("1", 100, "2", 80));
+		Assertions.assertEquals(ImmutableList.of(new Interval("1", 1, 40), new Interval("1", 41, 80),
+			new Interval("1", 81, 100), new Interval("2", 1, 40), new Interval("2", 41, 80)), shards);
+	}
+
+	@Test
+	public void testAlignedToGenes() throws Exception {
+		final String pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+		final JannovarData jvData = new JannovarDataSerializer(pathToSmallSer).load();
+		final ShardPlanner planner = new ShardPlanner(35000, jvData.getRefDict(), GeneList.build(jvData));
+
+		// 35000 lies within FAM138A (34610-36081), so the first boundary moves to the end of the gene
+		List<Interval> shards = planner.plan(ImmutableList.of("1"), ImmutableMap.of("1", 100000));
+		Assertions.assertEquals(ImmutableList.of(new Interval("1", 1, 36081), new Interval("1", 36082, 71081),
+			new Interval("1", 71082, 100000)), shards);
+	}
+
+}
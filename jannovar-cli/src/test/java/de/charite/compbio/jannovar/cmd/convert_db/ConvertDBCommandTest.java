@@ -0,0 +1,46 @@
+package de.charite.compbio.jannovar.cmd.convert_db;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import de.charite.compbio.jannovar.Jannovar;
+import de.charite.compbio.jannovar.data.MappedJannovarDataSerializer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+/**
+ * This test runs the <code>convert-db</code> command and annotates with the converted databases.
+ */
+public class ConvertDBCommandTest {
+
+	@TempDir
+	public File tmpFolder;
+
+	private String annotate(String dbPath, String outName) throws Exception {
+		final String inputFilePath = this.getClass().getResource("/small.vcf").toURI().getPath();
+		final File outFile = new File(tmpFolder, outName);
+		Jannovar.main(new String[]{"annotate-vcf", "-o", outFile.toString(), "-d", dbPath, "-i", inputFilePath});
+		return Files.asCharSource(outFile, Charsets.UTF_8).read().replaceAll("##jannovarCommand.*", "##jannovarCommand")
+			.replaceAll("##jannovarVersion.*", "##jannovarVersion");
+	}
+
+	@Test
+	public void testConvertAndAnnotate() throws Exception {
+		final String pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+		final String mappedPath = new File(tmpFolder, "hg19_small.jvmm").toString();
+		final String serPath = new File(tmpFolder, "hg19_small.back.ser").toString();
+
+		Jannovar.main(new String[]{"convert-db", "-i", pathToSmallSer, "-o", mappedPath});
+		Assertions.assertTrue(MappedJannovarDataSerializer.isMappedFile(mappedPath));
+		Jannovar.main(new String[]{"convert-db", "-i", mappedPath, "-o", serPath, "--output-format", "SER"});
+		Assertions.assertFalse(MappedJannovarDataSerializer.isMappedFile(serPath));
+
+		final File expectedFile = new File(this.getClass().getResource("/small.jv.vcf").toURI().getPath());
+		final String expected = Files.asCharSource(expectedFile, Charsets.UTF_8).read();
+		Assertions.assertEquals(expected, annotate(mappedPath, "small.mapped.jv.vcf"));
+		Assertions.assertEquals(expected, annotate(serPath, "small.back.jv.vcf"));
+	}
+
+}
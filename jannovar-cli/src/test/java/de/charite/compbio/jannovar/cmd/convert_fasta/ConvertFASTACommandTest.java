@@ -0,0 +1,39 @@
+package de.charite.compbio.jannovar.cmd.convert_fasta;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import de.charite.compbio.jannovar.Jannovar;
+import de.charite.compbio.jannovar.impl.util.ReferenceSequenceCache;
+import de.charite.compbio.jannovar.impl.util.TwoBitFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+/**
+ * This test runs the <code>convert-fasta</code> command and reads back the converted file.
+ */
+public class ConvertFASTACommandTest {
+
+	@TempDir
+	public File tmpFolder;
+
+	@Test
+	public void testConvert() throws Exception {
+		final File fastaFile = new File(tmpFolder, "ref.fa");
+		Files.asCharSink(fastaFile, Charsets.US_ASCII).write(">chr1\nNNNNACGTAC\ngtacRYACGT\nA\n>chr2\nCCCC\n");
+		Files.asCharSink(new File(tmpFolder, "ref.fa.fai"), Charsets.US_ASCII)
+			.write("chr1\t21\t6\t10\t11\nchr2\t4\t36\t4\t5\n");
+		final String twoBitPath = new File(tmpFolder, "ref.2bit").toString();
+
+		Jannovar.main(new String[]{"convert-fasta", "-i", fastaFile.toString(), "-o", twoBitPath});
+		Assertions.assertTrue(TwoBitFile.isTwoBitFile(twoBitPath));
+
+		final ReferenceSequenceCache cache = new ReferenceSequenceCache(twoBitPath);
+		Assertions.assertEquals("[chr1, chr2]", cache.getContigNames().toString());
+		Assertions.assertEquals("NNNNACGTACgtacNNACGTA", cache.getString("chr1", 0, 21));
+		Assertions.assertEquals("CCCC", cache.getString("chr2", 0, 4));
+	}
+
+}
@@ -0,0 +1,146 @@
+package de.charite.compbio.jannovar.cmd.rest_server;
+
+import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.htsjdk.InvalidCoordinatesException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+public class DatabaseRegistryTest {
+
+	static JannovarData jvData;
+
+	@TempDir
+	public File tmpDir;
+
+	/**
+	 * Paths to files of 100 bytes each, i.e., an estimated 1000 bytes per database
+	 */
+	Map<String, String> paths;
+
+	@BeforeAll
+	public static void setUpClass() throws Exception {
+		final String pathToSmallSer = DatabaseRegistryTest.class.getResource("/hg19_small.ser").toURI().getPath();
+		jvData = new JannovarDataSerializer(pathToSmallSer).load();
+	}
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		paths = new LinkedHashMap<>();
+		for (String name : new String[]{"a", "b", "c"}) {
+			final File file = new File(tmpDir, name + ".ser");
+			try (OutputStream out = new FileOutputStream(file)) {
+				out.write(new byte[100]);
+			}
+			paths.put("src/" + name, file.getPath());
+		}
+	}
+
+	@Test
+	public void testLazyLoading() throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		try (DatabaseRegistry registry = new DatabaseRegistry(paths, 0, path -> {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new SerializationException("interrupted");
+			}
+			return jvData;
+		})) {
+			Assertions.assertEquals(DatabaseRegistry.State.NOT_LOADED, registry.getState("src/a"));
+			Assertions.assertThrows(DatabaseNotReadyException.class, () -> registry.get("src/a"));
+			Assertions.assertEquals(DatabaseRegistry.State.LOADING, registry.getState("src/a"));
+			Assertions.assertThrows(DatabaseNotReadyException.class, () -> registry.get("src/a"));
+
+			release.countDown();
+			registry.awaitAll();
+			Assertions.assertEquals(DatabaseRegistry.State.READY, registry.getState("src/a"));
+			Assertions.assertSame(jvData, registry.get("src/a").getJannovarData());
+			Assertions.assertEquals(DatabaseRegistry.State.NOT_LOADED, registry.getState("src/b"));
+		}
+	}
+
+	@Test
+	public void testEvictionUnderBudget() throws Exception {
+		try (DatabaseRegistry registry = new DatabaseRegistry(paths, 2500, path -> jvData)) {
+			registry.preloadAll().awaitAll();
+			// only the first two databases fit
+			Assertions.assertEquals(DatabaseRegistry.State.READY, registry.getState("src/a"));
+			Assertions.assertEquals(DatabaseRegistry.State.READY, registry.getState("src/b"));
+			Assertions.assertEquals(DatabaseRegistry.State.NOT_LOADED, registry.getState("src/c"));
+
+			// "src/a" is least recently used and evicted for "src/c"
+			registry.get("src/b");
+			Assertions.assertThrows(DatabaseNotReadyException.class, () -> registry.get("src/c"));
+			registry.awaitAll();
+			Assertions.assertEquals(DatabaseRegistry.State.NOT_LOADED, registry.getState("src/a"));
+			Assertions.assertEquals(DatabaseRegistry.State.READY, registry.getState("src/b"));
+			Assertions.assertEquals(DatabaseRegistry.State.READY, registry.getState("src/c"));
+		}
+	}
+
+	@Test
+	public void testEvictionListener() throws Exception {
+		final List<String> evicted = new ArrayList<>();
+		try (DatabaseRegistry registry = new DatabaseRegistry(paths, 1500, path -> jvData)) {
+			registry.addEvictionListener(evicted::add);
+			Assertions.assertThrows(DatabaseNotReadyException.class, () -> registry.get("src/a"));
+			registry.awaitAll();
+			Assertions.assertTrue(evicted.isEmpty());
+
+			Assertions.assertThrows(DatabaseNotReadyException.class, () -> registry.get("src/b"));
+			registry.awaitAll();
+			Assertions.assertEquals(ImmutableList.of("src/a"), evicted);
+
+			// notified again when reloading
+			Assertions.assertThrows(DatabaseNotReadyException.class, () -> registry.get("src/a"));
+			registry.awaitAll();
+			Assertions.assertEquals(ImmutableList.of("src/a", "src/b", "src/a"), evicted);
+		}
+	}
+
+	@Test
+	public void testLoadingFailure() throws Exception {
+		try (DatabaseRegistry registry = new DatabaseRegistry(paths, 0, path -> {
+			throw new SerializationException("broken file");
+		})) {
+			Assertions.assertThrows(DatabaseNotReadyException.class, () -> registry.get("src/a"));
+			registry.awaitAll();
+			Assertions.assertEquals(DatabaseRegistry.State.FAILED, registry.getState("src/a"));
+			final DatabaseNotReadyException e = Assertions.assertThrows(DatabaseNotReadyException.class,
+				() -> registry.get("src/a"));
+			Assertions.assertTrue(e.getMessage().contains("broken file"));
+
+			final List<Map<String, Object>> status = registry.getStatus();
+			Assertions.assertEquals(3, status.size());
+			Assertions.assertEquals("src/a", status.get(0).get("key"));
+			Assertions.assertEquals("FAILED", status.get(0).get("state"));
+			Assertions.assertEquals(1000L, status.get(0).get("estimatedBytes"));
+			Assertions.assertEquals("broken file", status.get(0).get("error"));
+		}
+	}
+
+	@Test
+	public void testUnknownDatabase() {
+		try (DatabaseRegistry registry = new DatabaseRegistry(paths, 0, path -> jvData)) {
+			Assertions.assertThrows(InvalidCoordinatesException.class, () -> registry.get("src/unknown"));
+			Assertions.assertNull(registry.getState("src/unknown"));
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+package de.charite.compbio.jannovar.cmd.rest_server;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import de.charite.compbio.jannovar.annotation.VariantAnnotationCache;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RestAnnotationServiceTest {
+
+	RestAnnotationService service;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		final String pathToSmallSer = this.getClass().getResource("/hg19_small.ser").toURI().getPath();
+		final JannovarData jvData = new JannovarDataSerializer(pathToSmallSer).load();
+		service = new RestAnnotationService(DatabaseRegistry.ofLoaded(ImmutableMap.of("refseq/hg19", jvData)), 3,
+			VariantAnnotationCache.withMaximumSize(100));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		service.close();
+	}
+
+	private static String variantJson(int pos) {
+		return "{\"source\": \"refseq\", \"assembly\": \"hg19\", \"chr\": \"1\", \"pos\": " + pos
+			+ ", \"ref\": \"C\", \"alt\": \"T\"}";
+	}
+
+	private List<String> annotateBatch(String body) throws Exception {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		service.annotateBatch(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out, true);
+		final List<String> lines = new ArrayList<>();
+		for (String line : out.toString(StandardCharsets.UTF_8.name()).split("\n"))
+			if (!line.isEmpty())
+				lines.add(line);
+		return lines;
+	}
+
+	@Test
+	public void testBatchSameAsSingle() throws Exception {
+		final List<String> arrayItems = new ArrayList<>();
+		final StringBuilder ndjson = new StringBuilder();
+		for (int pos = 320_000; pos < 330_000; pos += 50) {
+			arrayItems.add(variantJson(pos));
+			ndjson.append(variantJson(pos)).append('\n');
+		}
+
+		final List<String> fromArray = annotateBatch("[" + String.join(",\n", arrayItems) + "]");
+		final List<String> fromNDJSON = annotateBatch(ndjson.toString());
+		Assertions.assertEquals(arrayItems.size(), fromArray.size());
+		Assertions.assertEquals(fromArray, fromNDJSON);
+
+		int numAnnotated = 0;
+		for (int i = 0; i < fromArray.size(); ++i) {
+			final JsonObject line = JsonParser.parseString(fromArray.get(i)).getAsJsonObject();
+			final int pos = 320_000 + 50 * i;
+			Assertions.assertEquals(pos, line.getAsJsonObject("variant").get("pos").getAsInt());
+			Assertions.assertFalse(line.has("error"));
+			final String expected = service.getGson().toJson(service.annotate("refseq/hg19", "1", pos, "C", "T", true));
+			Assertions.assertEquals(expected, line.get("annotations").toString());
+			if (line.getAsJsonArray("annotations").size() > 0)
+				++numAnnotated;
+		}
+		Assertions.assertTrue(numAnnotated > 0);
+	}
+
+	@Test
+	public void testCacheMetrics() throws Exception {
+		for (int i = 0; i < 3; ++i)
+			annotateBatch(variantJson(321052) + "\n" + variantJson(321152) + "\n");
+
+		final JsonObject metrics = JsonParser.parseString(service.getGson().toJson(service.getMetrics()))
+			.getAsJsonObject();
+		Assertions.assertEquals(1, metrics.getAsJsonArray("databases").size());
+		final JsonObject dbStatus = metrics.getAsJsonArray("databases").get(0).getAsJsonObject();
+		Assertions.assertEquals("refseq/hg19", dbStatus.get("key").getAsString());
+		Assertions.assertEquals("READY", dbStatus.get("state").getAsString());
+		final JsonObject cacheMetrics = metrics.getAsJsonObject("cache");
+		Assertions.assertTrue(cacheMetrics.get("enabled").getAsBoolean());
+		Assertions.assertEquals(2, cacheMetrics.get("size").getAsLong());
+		Assertions.assertEquals(2, cacheMetrics.get("missCount").getAsLong());
+		Assertions.assertEquals(4, cacheMetrics.get("hitCount").getAsLong());
+		Assertions.assertEquals(0, cacheMetrics.get("evictionCount").getAsLong());
+	}
+
+	@Test
+	public void testBatchErrors() throws Exception {
+		final List<String> lines = annotateBatch(variantJson(321052) + "\n"
+			+ "{\"source\": \"refseq\", \"assembly\": \"hg38\", \"chr\": \"1\", \"pos\": 1, \"ref\": \"C\", \"alt\": \"T\"}\n"
+			+ "{\"source\": \"refseq\", \"assembly\": \"hg19\", \"chr\": \"1\", \"pos\": 1, \"ref\": \"C\"}\n"
+			+ "{\"source\": \"refseq\", \"assembly\": \"hg19\", \"chr\": \"1\", \"pos\": 1, \n");
+
+		Assertions.assertEquals(4, lines.size());
+		Assertions.assertTrue(JsonParser.parseString(lines.get(0)).getAsJsonObject().has("annotations"));
+		Assertions.assertEquals("Unknown database refseq/hg38",
+			JsonParser.parseString(lines.get(1)).getAsJsonObject().get("error").getAsString());
+		Assertions.assertEquals("Missing required data",
+			JsonParser.parseString(lines.get(2)).getAsJsonObject().get("error").getAsString());
+		final JsonObject last = JsonParser.parseString(lines.get(3)).getAsJsonObject();
+		Assertions.assertFalse(last.has("variant"));
+		Assertions.assertTrue(last.get("error").getAsString().startsWith("Invalid input"));
+	}
+
+}
@@ -40,9 +40,9 @@ public class AnnotationLocationBuilder {
 	public AnnotationLocation build() {
 		int totalRank = -1;
 		if (rankType == RankType.EXON)
-			totalRank = transcript.getExonRegions().size();
+			totalRank = transcript.getExonCount();
 		else if (rankType == RankType.INTRON)
-			totalRank = transcript.getExonRegions().size() - 1;
+			totalRank = transcript.getExonCount() - 1;
 		return new AnnotationLocation(transcript, rankType, rank, totalRank, txLocation);
 	}
 
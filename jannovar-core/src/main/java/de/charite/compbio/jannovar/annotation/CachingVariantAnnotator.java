@@ -0,0 +1,79 @@
+package de.charite.compbio.jannovar.annotation;
+
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+
+/**
+ * Decorator for {@link VariantAnnotator} that keeps the results in a {@link VariantAnnotationCache}.
+ * <p>
+ * Useful when the same variants are annotated over and over, e.g., recurrent variants in a service. The cache can
+ * be shared between several instances, the database name then has to identify the data used by each annotator.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class CachingVariantAnnotator {
+
+	/**
+	 * The annotator to use on cache misses
+	 */
+	private final VariantAnnotator annotator;
+
+	/**
+	 * The cache to use
+	 */
+	private final VariantAnnotationCache cache;
+
+	/**
+	 * Name of the database used by {@link #annotator}, part of the cache key
+	 */
+	private final String database;
+
+	/**
+	 * Construct with own cache, bounded by number of entries
+	 *
+	 * @param annotator   the annotator to use on cache misses
+	 * @param maximumSize maximal number of results to keep
+	 */
+	public CachingVariantAnnotator(VariantAnnotator annotator, long maximumSize) {
+		this(annotator, VariantAnnotationCache.withMaximumSize(maximumSize), "");
+	}
+
+	/**
+	 * Construct with shared cache
+	 *
+	 * @param annotator the annotator to use on cache misses
+	 * @param cache     the cache to use
+	 * @param database  name of the database used by <code>annotator</code>, to distinguish its results from those of
+	 *                  other annotators using <code>cache</code>
+	 */
+	public CachingVariantAnnotator(VariantAnnotator annotator, VariantAnnotationCache cache, String database) {
+		this.annotator = annotator;
+		this.cache = cache;
+		this.database = database;
+	}
+
+	/**
+	 * Return cached annotations or build them, see {@link VariantAnnotator#buildAnnotations(GenomeVariant)}.
+	 *
+	 * @param change the {@link GenomeVariant} to annotate
+	 * @return {@link VariantAnnotations} for the genome change
+	 * @throws AnnotationException on problems building the annotation list
+	 */
+	public VariantAnnotations buildAnnotations(GenomeVariant change) throws AnnotationException {
+		return cache.get(database, annotator, change);
+	}
+
+	/**
+	 * @return the wrapped annotator
+	 */
+	public VariantAnnotator getAnnotator() {
+		return annotator;
+	}
+
+	/**
+	 * @return the cache used
+	 */
+	public VariantAnnotationCache getCache() {
+		return cache;
+	}
+
+}
@@ -5,7 +5,7 @@ import com.google.common.collect.ImmutableMap;
 import de.charite.compbio.jannovar.annotation.builders.SVAnnotationBuilderDispatcher;
 import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
-import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.SVGenomeVariant;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
@@ -82,21 +82,23 @@ public final class SVAnnotator {
 			);
 			// Get the TranscriptModel objects that overlap with changeIntervals.
 			final Chromosome chr = chromosomeMap.get(change.getChr());
-			IntervalArray<TranscriptModel>.QueryResult qr;
+			final IntervalIndex<TranscriptModel> index = chr.getTMIntervalIndex();
+			ArrayList<TranscriptModel> candidateTranscripts = new ArrayList<>();
 			if (paddedChangeInterval.length() == 0) {
-				qr = chr.getTMIntervalTree().findOverlappingWithPoint(paddedChangeInterval.getBeginPos());
+				index.findOverlappingWithPoint(paddedChangeInterval.getBeginPos(), candidateTranscripts);
 			} else {
-				qr = chr.getTMIntervalTree().findOverlappingWithInterval(paddedChangeInterval.getBeginPos(),
-					paddedChangeInterval.getEndPos());
+				index.findOverlappingWithInterval(paddedChangeInterval.getBeginPos(),
+					paddedChangeInterval.getEndPos(), candidateTranscripts);
 			}
 
-			ArrayList<TranscriptModel> candidateTranscripts = new ArrayList<>(qr.getEntries());
 			if (candidateTranscripts.isEmpty()) {
-				if (qr.getLeft() != null) {
-					candidateTranscripts.add(qr.getLeft());
+				final TranscriptModel left = index.findLeftNeighbor(paddedChangeInterval.getBeginPos());
+				if (left != null) {
+					candidateTranscripts.add(left);
 				}
-				if (qr.getRight() != null) {
-					candidateTranscripts.add(qr.getRight());
+				final TranscriptModel right = index.findRightNeighbor(paddedChangeInterval.getBeginPos());
+				if (right != null) {
+					candidateTranscripts.add(right);
 				}
 			}
 
@@ -0,0 +1,167 @@
+package de.charite.compbio.jannovar.annotation;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.Strand;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bounded, thread-safe cache of {@link VariantAnnotations} results.
+ * <p>
+ * Entries are identified by a database name chosen by the caller, the annotation options (e.g., 3' shifting), and the
+ * variant in normalized form (forward strand, common prefix and suffix removed as done by {@link GenomeVariant}).
+ * This allows sharing one cache between several {@link VariantAnnotator}s, e.g., for different databases.
+ * <p>
+ * The cache is bounded either by the number of entries or by their weight, the number of annotations of a result
+ * plus one. Hit, miss, and eviction counts are available through {@link #stats()}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class VariantAnnotationCache {
+
+	/**
+	 * The underlying cache
+	 */
+	private final Cache<Key, VariantAnnotations> cache;
+
+	private VariantAnnotationCache(Cache<Key, VariantAnnotations> cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Construct cache bounded by number of entries.
+	 *
+	 * @param maximumSize maximal number of results to keep
+	 * @return the new cache
+	 */
+	public static VariantAnnotationCache withMaximumSize(long maximumSize) {
+		return new VariantAnnotationCache(CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build());
+	}
+
+	/**
+	 * Construct cache bounded by weight, the weight of a result is its number of annotations plus one.
+	 *
+	 * @param maximumWeight maximal total weight of the results to keep
+	 * @return the new cache
+	 */
+	public static VariantAnnotationCache withMaximumWeight(long maximumWeight) {
+		return new VariantAnnotationCache(CacheBuilder.newBuilder().maximumWeight(maximumWeight)
+			.<Key, VariantAnnotations>weigher((key, value) -> 1 + value.getAnnotations().size())
+			.recordStats().build());
+	}
+
+	/**
+	 * Return cached annotations for <code>change</code> or build them using <code>annotator</code>.
+	 * <p>
+	 * The cached result for an equal variant is returned as is, so {@link VariantAnnotations#getGenomeVariant()}
+	 * may return a variant on the other strand than <code>change</code>.
+	 *
+	 * @param database  name of the database that <code>annotator</code> uses
+	 * @param annotator the annotator to use on cache misses
+	 * @param change    the variant to annotate
+	 * @return {@link VariantAnnotations} for the variant
+	 * @throws AnnotationException on problems building the annotations, such results are not cached
+	 */
+	public VariantAnnotations get(String database, VariantAnnotator annotator, GenomeVariant change)
+		throws AnnotationException {
+		final Key key = new Key(database, annotator.getOptions(), change);
+		try {
+			return cache.get(key, () -> annotator.buildAnnotations(change));
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof AnnotationException)
+				throw (AnnotationException) e.getCause();
+			throw new AnnotationException("Problem building annotations", e.getCause());
+		} catch (UncheckedExecutionException | ExecutionError e) {
+			// rethrow unchecked exceptions and errors as they would be without the cache
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw e;
+		}
+	}
+
+	/**
+	 * @return hit, miss, and eviction counts since construction
+	 */
+	public CacheStats stats() {
+		return cache.stats();
+	}
+
+	/**
+	 * @return approximate number of results in the cache
+	 */
+	public long size() {
+		return cache.size();
+	}
+
+	/**
+	 * Remove all entries from the cache.
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Remove all entries of one database from the cache, e.g., when it is unloaded.
+	 * <p>
+	 * The cached {@link Annotation}s reference the {@link de.charite.compbio.jannovar.reference.TranscriptModel}s of
+	 * their database, so the database cannot be garbage collected while they are cached.
+	 *
+	 * @param database name of the database, as passed to {@link #get}
+	 */
+	public void invalidateDatabase(String database) {
+		cache.asMap().keySet().removeIf(key -> key.database.equals(database));
+	}
+
+	/**
+	 * Key of the cache entries.
+	 */
+	private static final class Key {
+
+		private final String database;
+		private final boolean nt3PrimeShifting;
+		private final boolean overrideTxSeqWithGenomeVariantRef;
+		private final int chr;
+		private final int pos;
+		private final String ref;
+		private final String alt;
+
+		Key(String database, AnnotationBuilderOptions options, GenomeVariant change) {
+			final GenomeVariant fwdChange = change.withStrand(Strand.FWD);
+			this.database = database;
+			this.nt3PrimeShifting = options.isNt3PrimeShifting();
+			this.overrideTxSeqWithGenomeVariantRef = options.isOverrideTxSeqWithGenomeVariantRef();
+			this.chr = fwdChange.getChr();
+			this.pos = fwdChange.getPos();
+			this.ref = fwdChange.getRef();
+			this.alt = fwdChange.getAlt();
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(database, nt3PrimeShifting, overrideTxSeqWithGenomeVariantRef, chr, pos, ref, alt);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			final Key other = (Key) obj;
+			return chr == other.chr && pos == other.pos && nt3PrimeShifting == other.nt3PrimeShifting
+				&& overrideTxSeqWithGenomeVariantRef == other.overrideTxSeqWithGenomeVariantRef
+				&& database.equals(other.database) && ref.equals(other.ref) && alt.equals(other.alt);
+		}
+
+	}
+
+}
@@ -5,7 +5,7 @@ import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderDispatch
 import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
 import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
-import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
 import de.charite.compbio.jannovar.reference.*;
 
 import java.util.ArrayList;
@@ -54,6 +54,13 @@ public final class VariantAnnotator {
 		this.options = options;
 	}
 
+	/**
+	 * @return configuration for building the annotations
+	 */
+	public AnnotationBuilderOptions getOptions() {
+		return options;
+	}
+
 	// TODO(holtgrem): Remove this?
 
 	/**
@@ -93,18 +100,18 @@ public final class VariantAnnotator {
 	 * @throws AnnotationException on problems building the annotation list
 	 */
 	public VariantAnnotations buildAnnotations(GenomeVariant change) throws AnnotationException {
-		// Get genomic change interval and reset the factory.
-		final GenomeInterval changeInterval = change.getGenomeInterval();
+		// Get genomic change interval, as primitive positions to avoid allocating a GenomeInterval.
+		final int beginPos = change.getPos();
+		final int endPos = beginPos + change.getRef().length();
 
-		// Get the TranscriptModel objects that overlap with changeInterval.
+		// Get the TranscriptModel objects that overlap with the change interval.
 		final Chromosome chr = chromosomeMap.get(change.getChr());
-		IntervalArray<TranscriptModel>.QueryResult qr;
-		if (changeInterval.length() == 0)
-			qr = chr.getTMIntervalTree().findOverlappingWithPoint(changeInterval.getBeginPos());
+		final IntervalIndex<TranscriptModel> index = chr.getTMIntervalIndex();
+		ArrayList<TranscriptModel> candidateTranscripts = new ArrayList<TranscriptModel>();
+		if (beginPos == endPos)
+			index.findOverlappingWithPoint(beginPos, candidateTranscripts);
 		else
-			qr = chr.getTMIntervalTree().findOverlappingWithInterval(changeInterval.getBeginPos(),
-				changeInterval.getEndPos());
-		ArrayList<TranscriptModel> candidateTranscripts = new ArrayList<TranscriptModel>(qr.getEntries());
+			index.findOverlappingWithInterval(beginPos, endPos, candidateTranscripts);
 
 		// The annotations collected so far for GenomeVariant.
 		ArrayList<Annotation> annotations = new ArrayList<>();
@@ -112,7 +119,8 @@ public final class VariantAnnotator {
 		// Handle the case of no overlapping transcript. Then, create intergenic, upstream, or downstream annotations
 		// and return the result.
 		if (candidateTranscripts.isEmpty()) {
-			buildAnnotation(annotations, change, qr.getLeft(), qr.getRight());
+			buildAnnotation(annotations, change, index.findLeftNeighbor(beginPos),
+				index.findRightNeighbor(beginPos));
 			return new VariantAnnotations(change, annotations);
 		}
 
@@ -50,6 +50,11 @@ abstract class AnnotationBuilder {
 	 */
 	protected final GenomeVariant change;
 
+	/**
+	 * precomputed CDS sequence, protein, and exon offsets of {@link #transcript}
+	 */
+	protected final TranscriptSequenceCache.Entry sequences;
+
 	/**
 	 * helper for sequence ontology terms
 	 */
@@ -96,13 +101,15 @@ abstract class AnnotationBuilder {
 		change = change.withStrand(transcript.getStrand());
 		this.transcript = transcript;
 
+		this.sequences = TranscriptSequenceCache.getDefault().get(transcript);
 		this.so = new TranscriptSequenceOntologyDecorator(transcript);
-		this.projector = new TranscriptProjectionDecorator(transcript);
-		this.seqChangeHelper = new TranscriptSequenceChangeHelper(transcript);
+		this.projector = new TranscriptProjectionDecorator(transcript, sequences);
+		this.seqChangeHelper = new TranscriptSequenceChangeHelper(projector);
 		this.seqDecorator = new TranscriptSequenceDecorator(transcript);
 
 		// Shift the GenomeChange if lies within precisely one exon.
-		if (so.liesInExon(change.getGenomeInterval()) && options.isNt3PrimeShifting()) {
+		if (so.liesInExon(change.getChr(), change.getGenomePos().getStrand(), change.getPos(),
+			change.getPos() + change.getRef().length()) && options.isNt3PrimeShifting()) {
 			try {
 				// normalize amino acid change and add information about this into {@link messages}
 				this.change = GenomeVariantNormalizer.normalizeGenomeChange(transcript, change,
@@ -149,40 +156,41 @@ abstract class AnnotationBuilder {
 	 */
 	protected Annotation buildNonCodingAnnotation() {
 		// Handle the upstream/downstream and intergenic case for non-coding transcripts.
-		GenomeInterval changeInterval = change.getGenomeInterval();
-		if (so.overlapsWithUpstreamRegion(changeInterval) || so.overlapsWithDownstreamRegion(changeInterval))
+		final int chr = change.getChr();
+		final Strand strand = change.getGenomePos().getStrand();
+		final int beginPos = change.getPos();
+		final int endPos = beginPos + change.getRef().length();
+		if (so.overlapsWithUpstreamRegion(chr, strand, beginPos, endPos)
+			|| so.overlapsWithDownstreamRegion(chr, strand, beginPos, endPos))
 			return buildUpOrDownstreamAnnotation();
-		else if (!changeInterval.overlapsWith(transcript.getTXRegion()))
+		else if (!overlapsWithTXRegion(beginPos, endPos))
 			return buildIntergenicAnnotation();
 
-		// Project genome to CDS position.
-		GenomePosition pos = changeInterval.getGenomeBeginPos();
-
 		EnumSet<VariantEffect> varTypes = EnumSet.noneOf(VariantEffect.class);
-		if (changeInterval.length() == 0) {
-			final GenomePosition lPos = pos.shifted(-1);
+		if (beginPos == endPos) {
+			final int lPos = beginPos - 1;
 			// Check for being a splice site variant. The splice donor, acceptor, and region intervals are disjoint.
-			if (so.liesInSpliceDonorSite(pos) || so.liesInSpliceDonorSite(lPos))
+			if (so.liesInSpliceDonorSite(chr, strand, beginPos) || so.liesInSpliceDonorSite(chr, strand, lPos))
 				varTypes.add(VariantEffect.SPLICE_DONOR_VARIANT);
-			else if (so.liesInSpliceAcceptorSite(lPos) || so.liesInSpliceAcceptorSite(pos))
+			else if (so.liesInSpliceAcceptorSite(chr, strand, lPos) || so.liesInSpliceAcceptorSite(chr, strand, beginPos))
 				varTypes.add(VariantEffect.SPLICE_ACCEPTOR_VARIANT);
-			else if (so.liesInSpliceRegion(pos))
+			else if (so.liesInSpliceRegion(chr, strand, beginPos))
 				varTypes.add(VariantEffect.SPLICE_REGION_VARIANT);
 			// Check for being in intron/exon.
-			if (so.liesInExon(lPos) && so.liesInExon(pos))
+			if (so.liesInExon(chr, strand, lPos) && so.liesInExon(chr, strand, beginPos))
 				varTypes.add(VariantEffect.NON_CODING_TRANSCRIPT_EXON_VARIANT);
 			else
 				varTypes.add(VariantEffect.NON_CODING_TRANSCRIPT_INTRON_VARIANT);
 		} else {
 			// Check for being a splice site variant. The splice donor, acceptor, and region intervals are disjoint.
-			if (so.overlapsWithSpliceDonorSite(changeInterval))
+			if (so.overlapsWithSpliceDonorSite(chr, strand, beginPos, endPos))
 				varTypes.add(VariantEffect.SPLICE_DONOR_VARIANT);
-			else if (so.overlapsWithSpliceAcceptorSite(changeInterval))
+			else if (so.overlapsWithSpliceAcceptorSite(chr, strand, beginPos, endPos))
 				varTypes.add(VariantEffect.SPLICE_ACCEPTOR_VARIANT);
-			else if (so.overlapsWithSpliceRegion(changeInterval))
+			else if (so.overlapsWithSpliceRegion(chr, strand, beginPos, endPos))
 				varTypes.add(VariantEffect.SPLICE_REGION_VARIANT);
 			// Check for being in intron/exon.
-			if (so.overlapsWithExon(changeInterval))
+			if (so.overlapsWithExon(chr, strand, beginPos, endPos))
 				varTypes.add(VariantEffect.NON_CODING_TRANSCRIPT_EXON_VARIANT);
 			else
 				varTypes.add(VariantEffect.NON_CODING_TRANSCRIPT_INTRON_VARIANT);
@@ -195,30 +203,32 @@ abstract class AnnotationBuilder {
 	 * @return intronic anotation
 	 */
 	protected Annotation buildIntronicAnnotation() {
-		GenomePosition pos = change.getGenomeInterval().getGenomeBeginPos();
+		final int chr = change.getChr();
+		final Strand strand = change.getGenomePos().getStrand();
+		final int beginPos = change.getPos();
+		final int endPos = beginPos + change.getRef().length();
 
 		EnumSet<VariantEffect> varTypes = EnumSet.noneOf(VariantEffect.class);
 		if (transcript.isCoding()) // always include intronic as variant type
 			varTypes.add(VariantEffect.CODING_TRANSCRIPT_INTRON_VARIANT);
 		else
 			varTypes.add(VariantEffect.NON_CODING_TRANSCRIPT_INTRON_VARIANT);
-		if (change.getGenomeInterval().length() == 0) {
-			final GenomePosition lPos = pos.shifted(-1);
+		if (beginPos == endPos) {
+			final int lPos = beginPos - 1;
 			// Check for being a splice site variant. The splice donor, acceptor, and region intervals are disjoint.
-			if (so.liesInSpliceDonorSite(pos) || so.liesInSpliceDonorSite(lPos))
+			if (so.liesInSpliceDonorSite(chr, strand, beginPos) || so.liesInSpliceDonorSite(chr, strand, lPos))
 				varTypes.add(VariantEffect.SPLICE_DONOR_VARIANT);
-			else if (so.liesInSpliceAcceptorSite(lPos) || so.liesInSpliceAcceptorSite(pos))
+			else if (so.liesInSpliceAcceptorSite(chr, strand, lPos) || so.liesInSpliceAcceptorSite(chr, strand, beginPos))
 				varTypes.add(VariantEffect.SPLICE_ACCEPTOR_VARIANT);
-			else if (so.liesInSpliceRegion(pos))
+			else if (so.liesInSpliceRegion(chr, strand, beginPos))
 				varTypes.add(VariantEffect.SPLICE_REGION_VARIANT);
 		} else {
-			GenomeInterval changeInterval = change.getGenomeInterval();
 			// Check for being a splice site variant. The splice donor, acceptor, and region intervals are disjoint.
-			if (so.overlapsWithSpliceDonorSite(changeInterval))
+			if (so.overlapsWithSpliceDonorSite(chr, strand, beginPos, endPos))
 				varTypes.add(VariantEffect.SPLICE_DONOR_VARIANT);
-			else if (so.overlapsWithSpliceAcceptorSite(changeInterval))
+			else if (so.overlapsWithSpliceAcceptorSite(chr, strand, beginPos, endPos))
 				varTypes.add(VariantEffect.SPLICE_ACCEPTOR_VARIANT);
-			else if (so.overlapsWithSpliceRegion(changeInterval))
+			else if (so.overlapsWithSpliceRegion(chr, strand, beginPos, endPos))
 				varTypes.add(VariantEffect.SPLICE_REGION_VARIANT);
 		}
 		// intronic variants have no effect on the protein but splice variants lead to "probably no protein produced"
@@ -234,22 +244,25 @@ abstract class AnnotationBuilder {
 	 * @return 3'/5' UTR anotation
 	 */
 	protected Annotation buildUTRAnnotation() {
-		GenomePosition pos = change.getGenomeInterval().getGenomeBeginPos();
+		final int chr = change.getChr();
+		final Strand strand = change.getGenomePos().getStrand();
+		final int beginPos = change.getPos();
+		final int endPos = beginPos + change.getRef().length();
 
 		EnumSet<VariantEffect> varTypes = EnumSet.noneOf(VariantEffect.class);
-		if (change.getGenomeInterval().length() == 0) {
-			GenomePosition lPos = pos.shifted(-1);
+		if (beginPos == endPos) {
+			final int lPos = beginPos - 1;
 			// Check for being a splice site variant. The splice donor, acceptor, and region intervals are disjoint.
-			if ((so.liesInSpliceDonorSite(lPos) && so.liesInSpliceDonorSite(pos)))
+			if ((so.liesInSpliceDonorSite(chr, strand, lPos) && so.liesInSpliceDonorSite(chr, strand, beginPos)))
 				varTypes.add(VariantEffect.SPLICE_DONOR_VARIANT);
-			else if ((so.liesInSpliceAcceptorSite(lPos) && so.liesInSpliceAcceptorSite(pos)))
+			else if ((so.liesInSpliceAcceptorSite(chr, strand, lPos) && so.liesInSpliceAcceptorSite(chr, strand, beginPos)))
 				varTypes.add(VariantEffect.SPLICE_ACCEPTOR_VARIANT);
-			else if ((so.liesInSpliceRegion(lPos) && so.liesInSpliceRegion(pos)))
+			else if ((so.liesInSpliceRegion(chr, strand, lPos) && so.liesInSpliceRegion(chr, strand, beginPos)))
 				varTypes.add(VariantEffect.SPLICE_REGION_VARIANT);
 			// Check for being in 5' or 3' UTR.
-			if (so.liesInFivePrimeUTR(lPos)) {
+			if (so.liesInFivePrimeUTR(chr, strand, lPos)) {
 				// Check if variant overlaps really with an UTR
-				if (so.liesInExon(lPos))
+				if (so.liesInExon(chr, strand, lPos))
 					varTypes.add(VariantEffect.FIVE_PRIME_UTR_EXON_VARIANT);
 				else {
 					// between two UTRs. check for coding or non-coding transcript.
@@ -260,7 +273,7 @@ abstract class AnnotationBuilder {
 				}
 			} else {
 				// Check if variant overlaps really with an UTR
-				if (so.liesInExon(lPos))
+				if (so.liesInExon(chr, strand, lPos))
 					varTypes.add(VariantEffect.THREE_PRIME_UTR_EXON_VARIANT);
 				else {
 					// between two UTRs. check for coding or non-coding transcript.
@@ -271,18 +284,17 @@ abstract class AnnotationBuilder {
 				}
 			}
 		} else {
-			GenomeInterval changeInterval = change.getGenomeInterval();
 			// Check for being a splice site variant. The splice donor, acceptor, and region intervals are disjoint.
-			if (so.overlapsWithSpliceDonorSite(changeInterval))
+			if (so.overlapsWithSpliceDonorSite(chr, strand, beginPos, endPos))
 				varTypes.add(VariantEffect.SPLICE_DONOR_VARIANT);
-			else if (so.overlapsWithSpliceAcceptorSite(changeInterval))
+			else if (so.overlapsWithSpliceAcceptorSite(chr, strand, beginPos, endPos))
 				varTypes.add(VariantEffect.SPLICE_ACCEPTOR_VARIANT);
-			else if (so.overlapsWithSpliceRegion(changeInterval))
+			else if (so.overlapsWithSpliceRegion(chr, strand, beginPos, endPos))
 				varTypes.add(VariantEffect.SPLICE_REGION_VARIANT);
 			// Check for being in 5' or 3' UTR.
-			if (so.overlapsWithFivePrimeUTR(changeInterval)) {
+			if (so.overlapsWithFivePrimeUTR(chr, strand, beginPos, endPos)) {
 				// Check if variant overlaps really with an UTR
-				if (so.overlapsWithExon(changeInterval))
+				if (so.overlapsWithExon(chr, strand, beginPos, endPos))
 					varTypes.add(VariantEffect.FIVE_PRIME_UTR_EXON_VARIANT);
 				else {
 					// between two UTRs. check for coding or non-coding transcript.
@@ -293,7 +305,7 @@ abstract class AnnotationBuilder {
 				}
 			} else {
 				// Check if variant overlaps really with an UTR
-				if (so.overlapsWithExon(changeInterval))
+				if (so.overlapsWithExon(chr, strand, beginPos, endPos))
 					varTypes.add(VariantEffect.THREE_PRIME_UTR_EXON_VARIANT);
 				else {
 					// between two UTRs. check for coding or non-coding transcript.
@@ -312,31 +324,43 @@ abstract class AnnotationBuilder {
 	 * @return upstream/downstream annotation
 	 */
 	protected Annotation buildUpOrDownstreamAnnotation() {
-		GenomePosition pos = change.getGenomeInterval().getGenomeBeginPos();
+		final int chr = change.getChr();
+		final Strand strand = change.getGenomePos().getStrand();
+		final int beginPos = change.getPos();
+		final int endPos = beginPos + change.getRef().length();
 
-		if (change.getGenomeInterval().length() == 0) {
+		if (beginPos == endPos) {
 			// Empty interval, is insertion.
-			GenomePosition lPos = pos.shifted(-1);
-			if (so.liesInUpstreamRegion(lPos))
+			final int lPos = beginPos - 1;
+			if (so.liesInUpstreamRegion(chr, strand, lPos))
 				return new Annotation(transcript, change, UPSTREAM_GENE_VARIANT, null,
 					null, null, null, messages);
 			else
-				// so.liesInDownstreamRegion(pos))
+				// so.liesInDownstreamRegion(chr, strand, beginPos))
 				return new Annotation(transcript, change, DOWNSTREAM_GENE_VARIANT, null,
 					null, null, null, messages);
 		} else {
 			// Non-empty interval, at least one reference base changed/deleted.
-			GenomeInterval changeInterval = change.getGenomeInterval();
-			if (so.overlapsWithUpstreamRegion(changeInterval))
+			if (so.overlapsWithUpstreamRegion(chr, strand, beginPos, endPos))
 				return new Annotation(transcript, change, UPSTREAM_GENE_VARIANT, null,
 					null, null, null, messages);
 			else
-				// so.overlapsWithDownstreamRegion(changeInterval)
+				// so.overlapsWithDownstreamRegion(chr, strand, beginPos, endPos)
 				return new Annotation(transcript, change, DOWNSTREAM_GENE_VARIANT, null,
 					null, null, null, messages);
 		}
 	}
 
+	/**
+	 * @return <code>true</code> if <code>[beginPos, endPos)</code> on the strand of {@link #change} overlaps with the
+	 * transcript region; {@link #change} has already been projected to the transcript's strand
+	 */
+	private boolean overlapsWithTXRegion(int beginPos, int endPos) {
+		final GenomeInterval txRegion = transcript.getTXRegion();
+		return (change.getChr() == transcript.getChr() && txRegion.getBeginPos() < endPos
+			&& beginPos < txRegion.getEndPos());
+	}
+
 	/**
 	 * @return intergenic anotation
 	 */
@@ -352,8 +376,10 @@ abstract class AnnotationBuilder {
 	 */
 	private AnnotationLocation buildLocAnno(TranscriptModel transcript, GenomeVariant change) {
 		// System.err.println("ACCESSION\t" + transcript.accession);
-		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+		final int chr = change.getChr();
+		final Strand strand = change.getGenomePos().getStrand();
+		final int beginPos = change.getPos();
+		final int endPos = beginPos + change.getRef().length();
 
 		AnnotationLocationBuilder locBuilder = new AnnotationLocationBuilder();
 		locBuilder.setTranscript(transcript);
@@ -362,17 +388,16 @@ abstract class AnnotationBuilder {
 		// System.err.println("PROJECTED CHANGE\t" + projector.projectGenomeToTXInterval(change.getGenomeInterval()));
 		locBuilder.setTXLocation(projector.projectGenomeToTXInterval(change.getGenomeInterval()));
 
-		if (change.getGenomeInterval().length() == 0) {
+		if (beginPos == endPos) {
 			// no base is changed => insertion
-			GenomePosition changePos = change.getGenomeInterval().getGenomeBeginPos();
-			GenomePosition lPos = changePos.shifted(-1);
+			final int lPos = beginPos - 1;
 
 			// Handle the cases for which no exon and no intron number is available.
-			if (!soDecorator.liesInExon(changePos) && !soDecorator.liesInIntron(changePos))
+			if (!so.liesInExon(chr, strand, beginPos) && !so.liesInIntron(chr, strand, beginPos))
 				return locBuilder.build(); // no exon information if change pos does not lie in exon
 
-			final int exonNum = projector.locateExon(changePos);
-			final int lExonNum = projector.locateExon(lPos);
+			final int exonNum = projector.locateExon(chr, strand, beginPos);
+			final int lExonNum = projector.locateExon(chr, strand, lPos);
 			if (exonNum != TranscriptProjectionDecorator.INVALID_EXON_ID
 				|| lExonNum != TranscriptProjectionDecorator.INVALID_EXON_ID) {
 				locBuilder.setRankType(AnnotationLocation.RankType.EXON);
@@ -383,7 +408,7 @@ abstract class AnnotationBuilder {
 				return locBuilder.build();
 			}
 
-			final int intronNum = projector.locateIntron(changePos);
+			final int intronNum = projector.locateIntron(chr, strand, beginPos);
 			if (intronNum != TranscriptProjectionDecorator.INVALID_EXON_ID) {
 				locBuilder.setRankType(AnnotationLocation.RankType.INTRON);
 				locBuilder.setRank(intronNum);
@@ -393,25 +418,23 @@ abstract class AnnotationBuilder {
 			throw new Error("Bug: position should be in exon if we reach here");
 		} else {
 			// at least one base is changed
-			GenomePosition firstChangePos = change.getGenomeInterval().getGenomeBeginPos();
-			GenomeInterval firstChangeBase = new GenomeInterval(firstChangePos, 1);
-			GenomePosition lastChangePos = change.getGenomeInterval().getGenomeEndPos().shifted(-1);
-			GenomeInterval lastChangeBase = new GenomeInterval(lastChangePos, 1);
+			final int lastPos = endPos - 1;
 
 			// Handle the cases for which no exon and no intron number is available.
-			if ((!soDecorator.liesInExon(firstChangeBase) || !soDecorator.liesInExon(lastChangeBase))
-				&& (!soDecorator.liesInIntron(firstChangeBase) || !soDecorator.liesInIntron(lastChangeBase)))
+			if ((!so.liesInExon(chr, strand, beginPos, beginPos + 1) || !so.liesInExon(chr, strand, lastPos, endPos))
+				&& (!so.liesInIntron(chr, strand, beginPos, beginPos + 1)
+				|| !so.liesInIntron(chr, strand, lastPos, endPos)))
 				return locBuilder.build(); // no exon/intron information if change pos does not lie in exon
-			final int intronNum = projector.locateIntron(firstChangePos);
+			final int intronNum = projector.locateIntron(chr, strand, beginPos);
 			if (intronNum != TranscriptProjectionDecorator.INVALID_EXON_ID) {
 				locBuilder.setRankType(AnnotationLocation.RankType.INTRON);
 				locBuilder.setRank(intronNum);
 				return locBuilder.build();
 			}
-			final int exonNum = projector.locateExon(firstChangePos);
+			final int exonNum = projector.locateExon(chr, strand, beginPos);
 			if (exonNum == TranscriptProjectionDecorator.INVALID_EXON_ID)
 				throw new Error("Bug: positions should be in exons if we reach here");
-			if (exonNum != projector.locateExon(lastChangePos))
+			if (exonNum != projector.locateExon(chr, strand, lastPos))
 				return locBuilder.build(); // no exon information if the deletion spans more than one
 
 			locBuilder.setRankType(AnnotationLocation.RankType.EXON);
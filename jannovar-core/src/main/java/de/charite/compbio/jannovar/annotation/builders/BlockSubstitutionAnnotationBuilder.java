@@ -11,7 +11,6 @@ import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideChange;
 import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideIndel;
 import de.charite.compbio.jannovar.hgvs.protein.ProteinSeqDescription;
 import de.charite.compbio.jannovar.hgvs.protein.change.*;
-import de.charite.compbio.jannovar.impl.util.Translator;
 import de.charite.compbio.jannovar.reference.*;
 
 import java.util.EnumSet;
@@ -52,18 +51,21 @@ public final class BlockSubstitutionAnnotationBuilder extends AnnotationBuilder
 		if (!transcript.isCoding())
 			return buildNonCodingAnnotation();
 
-		final GenomeInterval changeInterval = change.getGenomeInterval();
-		if (so.containsExon(changeInterval)) // deletion of whole exon
+		final int chr = change.getChr();
+		final Strand strand = change.getGenomePos().getStrand();
+		final int beginPos = change.getPos();
+		final int endPos = beginPos + change.getRef().length();
+		if (so.containsExon(chr, strand, beginPos, endPos)) // deletion of whole exon
 			return buildFeatureAblationAnnotation();
-		else if (so.overlapsWithTranslationalStartSite(changeInterval))
+		else if (so.overlapsWithTranslationalStartSite(chr, strand, beginPos, endPos))
 			return buildStartLossAnnotation();
-		else if (so.overlapsWithCDSExon(changeInterval) && so.overlapsWithCDS(changeInterval))
+		else if (so.overlapsWithCDSExon(chr, strand, beginPos, endPos) && so.overlapsWithCDS(chr, strand, beginPos, endPos))
 			return new CDSExonicAnnotationBuilder().build(); // can affect amino acids
-		else if (so.overlapsWithCDSIntron(changeInterval) && so.overlapsWithCDS(changeInterval))
+		else if (so.overlapsWithCDSIntron(chr, strand, beginPos, endPos) && so.overlapsWithCDS(chr, strand, beginPos, endPos))
 			return buildIntronicAnnotation(); // intron but no exon => intronic variant
-		else if (so.overlapsWithFivePrimeUTR(changeInterval) || so.overlapsWithThreePrimeUTR(changeInterval))
+		else if (so.overlapsWithFivePrimeUTR(chr, strand, beginPos, endPos) || so.overlapsWithThreePrimeUTR(chr, strand, beginPos, endPos))
 			return buildUTRAnnotation();
-		else if (so.overlapsWithUpstreamRegion(changeInterval) || so.overlapsWithDownstreamRegion(changeInterval))
+		else if (so.overlapsWithUpstreamRegion(chr, strand, beginPos, endPos) || so.overlapsWithDownstreamRegion(chr, strand, beginPos, endPos))
 			return buildUpOrDownstreamAnnotation();
 		else
 			return buildIntergenicAnnotation();
@@ -94,10 +96,7 @@ public final class BlockSubstitutionAnnotationBuilder extends AnnotationBuilder
 	private class CDSExonicAnnotationBuilder {
 		final GenomeInterval changeInterval;
 
-		final Translator t = Translator.getTranslator();
-
 		final String wtCDSSeq;
-		final String varCDSSeq;
 		final int delFrameShift;
 
 		final String wtAASeq;
@@ -125,12 +124,11 @@ public final class BlockSubstitutionAnnotationBuilder extends AnnotationBuilder
 		public CDSExonicAnnotationBuilder() {
 			this.changeInterval = change.getGenomeInterval();
 			this.wtCDSSeq = projector.getTranscriptStartingAtCDS();
-			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariant(change);
-			this.delFrameShift = (varCDSSeq.length() - wtCDSSeq.length()) % 3;
+			this.delFrameShift = seqChangeHelper.getCDSLengthChange(change) % 3;
 
 			// Translate the variant CDS sequence.
-			this.wtAASeq = t.translateDNA(wtCDSSeq, !transcript.isMitochondrial());
-			this.varAASeq = t.translateDNA(varCDSSeq, !transcript.isMitochondrial());
+			this.wtAASeq = sequences.getProtein();
+			this.varAASeq = seqChangeHelper.translateCDSWithGenomeVariant(change, sequences);
 
 			// Get the reference change begin position as CDS coordinate, handling introns and positions outside of CDS.
 			this.refChangeBeginPos = projector.projectGenomeToCDSPosition(changeInterval.getGenomeBeginPos());
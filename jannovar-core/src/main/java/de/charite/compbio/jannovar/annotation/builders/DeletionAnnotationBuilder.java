@@ -9,7 +9,6 @@ import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideChange;
 import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideDeletion;
 import de.charite.compbio.jannovar.hgvs.protein.ProteinSeqDescription;
 import de.charite.compbio.jannovar.hgvs.protein.change.*;
-import de.charite.compbio.jannovar.impl.util.Translator;
 import de.charite.compbio.jannovar.reference.*;
 
 import java.util.EnumSet;
@@ -46,18 +45,21 @@ public final class DeletionAnnotationBuilder extends AnnotationBuilder {
 
 		// TODO(holtgrewe): differentiate between transcript ablation and whole exon deletion here
 
-		final GenomeInterval changeInterval = change.getGenomeInterval();
-		if (so.containsExon(changeInterval)) // deletion of whole exon
+		final int chr = change.getChr();
+		final Strand strand = change.getGenomePos().getStrand();
+		final int beginPos = change.getPos();
+		final int endPos = beginPos + change.getRef().length();
+		if (so.containsExon(chr, strand, beginPos, endPos)) // deletion of whole exon
 			return buildExonLossAnnotation();
-		else if (so.overlapsWithTranslationalStartSite(changeInterval))
+		else if (so.overlapsWithTranslationalStartSite(chr, strand, beginPos, endPos))
 			return buildStartLossAnnotation();
-		else if (so.overlapsWithCDSExon(changeInterval) && so.overlapsWithCDS(changeInterval))
+		else if (so.overlapsWithCDSExon(chr, strand, beginPos, endPos) && so.overlapsWithCDS(chr, strand, beginPos, endPos))
 			return new CDSExonicAnnotationBuilder().build(); // can affect amino acids
-		else if (so.overlapsWithCDSIntron(changeInterval) && so.overlapsWithCDS(changeInterval))
+		else if (so.overlapsWithCDSIntron(chr, strand, beginPos, endPos) && so.overlapsWithCDS(chr, strand, beginPos, endPos))
 			return buildIntronicAnnotation(); // intron but no exon => intronic variant
-		else if (so.overlapsWithFivePrimeUTR(changeInterval) || so.overlapsWithThreePrimeUTR(changeInterval))
+		else if (so.overlapsWithFivePrimeUTR(chr, strand, beginPos, endPos) || so.overlapsWithThreePrimeUTR(chr, strand, beginPos, endPos))
 			return buildUTRAnnotation();
-		else if (so.overlapsWithUpstreamRegion(changeInterval) || so.overlapsWithDownstreamRegion(changeInterval))
+		else if (so.overlapsWithUpstreamRegion(chr, strand, beginPos, endPos) || so.overlapsWithDownstreamRegion(chr, strand, beginPos, endPos))
 			return buildUpOrDownstreamAnnotation();
 		else
 			return buildIntergenicAnnotation();
@@ -88,10 +90,7 @@ public final class DeletionAnnotationBuilder extends AnnotationBuilder {
 	private class CDSExonicAnnotationBuilder {
 		final GenomeInterval changeInterval;
 
-		final Translator t = Translator.getTranslator();
-
 		final String wtCDSSeq;
-		final String varCDSSeq;
 		final int delFrameShift;
 
 		final String wtAASeq;
@@ -114,7 +113,6 @@ public final class DeletionAnnotationBuilder extends AnnotationBuilder {
 		public CDSExonicAnnotationBuilder() {
 			this.changeInterval = change.getGenomeInterval();
 			this.wtCDSSeq = projector.getTranscriptStartingAtCDS();
-			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariant(change);
 			this.delFrameShift = DeletionAnnotationBuilder.this.change.getRef().length() % 3;
 
 			// Get the change begin position as CDS coordinate, handling introns and positions outside of CDS.
@@ -122,8 +120,8 @@ public final class DeletionAnnotationBuilder extends AnnotationBuilder {
 			this.changeLastPos = projector.projectGenomeToCDSPosition(changeInterval.getGenomeEndPos().shifted(-1));
 
 			// Translate the variant CDS sequence and look for stop codon.
-			this.wtAASeq = t.translateDNA(wtCDSSeq, !transcript.isMitochondrial());
-			this.varAASeq = t.translateDNA(varCDSSeq, !transcript.isMitochondrial());
+			this.wtAASeq = sequences.getProtein();
+			this.varAASeq = seqChangeHelper.translateCDSWithGenomeVariant(change, sequences);
 			this.varAAStopPos = varAASeq.indexOf('*', this.changeBeginPos.getPos() / 3);
 
 			// protect against going behind transcript
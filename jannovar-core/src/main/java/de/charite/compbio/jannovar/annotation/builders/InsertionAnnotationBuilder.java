@@ -11,7 +11,6 @@ import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideDuplication;
 import de.charite.compbio.jannovar.hgvs.nts.change.NucleotideInsertion;
 import de.charite.compbio.jannovar.hgvs.protein.ProteinSeqDescription;
 import de.charite.compbio.jannovar.hgvs.protein.change.*;
-import de.charite.compbio.jannovar.impl.util.Translator;
 import de.charite.compbio.jannovar.reference.*;
 
 import java.util.EnumSet;
@@ -57,15 +56,17 @@ public final class InsertionAnnotationBuilder extends AnnotationBuilder {
 			return buildNonCodingAnnotation();
 
 		// We have the base left and/or right of the insertion to determine the cases.
-		final GenomePosition pos = change.getGenomePos();
-		final GenomePosition lPos = change.getGenomePos().shifted(-1);
-		if ((so.liesInCDSExon(lPos) && so.liesInCDSExon(pos)) && so.liesInCDS(lPos) && so.liesInCDS(pos))
+		final int chr = change.getChr();
+		final Strand strand = change.getGenomePos().getStrand();
+		final int pos = change.getPos();
+		final int lPos = pos - 1;
+		if ((so.liesInCDSExon(chr, strand, lPos) && so.liesInCDSExon(chr, strand, pos)) && so.liesInCDS(chr, strand, lPos) && so.liesInCDS(chr, strand, pos))
 			return buildCDSExonicAnnotation(); // can affect amino acids
-		else if ((so.liesInCDSIntron(lPos) || so.liesInCDSIntron(pos)) && so.liesInCDS(lPos) && so.liesInCDS(pos))
+		else if ((so.liesInCDSIntron(chr, strand, lPos) || so.liesInCDSIntron(chr, strand, pos)) && so.liesInCDS(chr, strand, lPos) && so.liesInCDS(chr, strand, pos))
 			return buildIntronicAnnotation(); // intron but no exon => intronic variant
-		else if (so.liesInFivePrimeUTR(lPos) || so.liesInThreePrimeUTR(pos))
+		else if (so.liesInFivePrimeUTR(chr, strand, lPos) || so.liesInThreePrimeUTR(chr, strand, pos))
 			return buildUTRAnnotation();
-		else if (so.liesInUpstreamRegion(lPos) || so.liesInDownstreamRegion(pos))
+		else if (so.liesInUpstreamRegion(chr, strand, lPos) || so.liesInDownstreamRegion(chr, strand, pos))
 			return buildUpOrDownstreamAnnotation();
 		else
 			return buildIntergenicAnnotation();
@@ -124,12 +125,8 @@ public final class InsertionAnnotationBuilder extends AnnotationBuilder {
 	 * We use this helper class to simplify the access to the parameters such as {@link #wtCDSSeq} etc.
 	 */
 	private class CDSExonicAnnotationBuilder {
-		final Translator t = Translator.getTranslator();
-
 		// wild type CDS nucleotide sequence
 		final String wtCDSSeq;
-		// variant CDS nucleotide sequence
-		final String varCDSSeq;
 
 		// wild type amino acid sequence
 		final String wtAASeq;
@@ -157,15 +154,14 @@ public final class InsertionAnnotationBuilder extends AnnotationBuilder {
 
 		public CDSExonicAnnotationBuilder() {
 			this.wtCDSSeq = projector.getTranscriptStartingAtCDS();
-			this.varCDSSeq = seqChangeHelper.getCDSWithGenomeVariant(change);
 
 			// Get position of insertion on CDS level, will obtain AA change pos after normalization.
 			this.insertPos = projector.projectGenomeToCDSPosition(change.getGenomePos());
 
 			// Translate the variant CDS sequence and look for stop codon.
-			this.wtAASeq = t.translateDNA(wtCDSSeq, !transcript.isMitochondrial());
+			this.wtAASeq = sequences.getProtein();
 			this.wtAAStopPos = wtAASeq.indexOf('*', this.insertPos.getPos() / 3);
-			this.varAASeq = t.translateDNA(varCDSSeq, !transcript.isMitochondrial());
+			this.varAASeq = seqChangeHelper.translateCDSWithGenomeVariant(change, sequences);
 			this.varAAStopPos = varAASeq.indexOf('*', this.insertPos.getPos() / 3);
 
 			// Build initial aaChange. This is correct for non-FS insertions, and the first affected bases for FS
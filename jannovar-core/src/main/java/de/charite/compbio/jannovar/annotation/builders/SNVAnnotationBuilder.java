@@ -50,14 +50,17 @@ public final class SNVAnnotationBuilder extends AnnotationBuilder {
 		if (!transcript.isCoding())
 			return buildNonCodingAnnotation();
 
-		final GenomeInterval changeInterval = change.getGenomeInterval();
-		if (so.liesInCDSExon(changeInterval) && transcript.getCDSRegion().contains(changeInterval))
+		final int chr = change.getChr();
+		final Strand strand = change.getGenomePos().getStrand();
+		final int beginPos = change.getPos();
+		final int endPos = beginPos + change.getRef().length();
+		if (so.liesInCDSExon(chr, strand, beginPos, endPos))
 			return buildCDSExonicAnnotation(); // lies in coding part of exon
-		else if (so.overlapsWithCDSIntron(changeInterval) && so.overlapsWithCDS(changeInterval))
+		else if (so.overlapsWithCDSIntron(chr, strand, beginPos, endPos) && so.overlapsWithCDS(chr, strand, beginPos, endPos))
 			return buildIntronicAnnotation(); // intron but no exon => intronic variant
-		else if (so.overlapsWithFivePrimeUTR(changeInterval) || so.overlapsWithThreePrimeUTR(changeInterval))
+		else if (so.overlapsWithFivePrimeUTR(chr, strand, beginPos, endPos) || so.overlapsWithThreePrimeUTR(chr, strand, beginPos, endPos))
 			return buildUTRAnnotation();
-		else if (so.overlapsWithUpstreamRegion(changeInterval) || so.overlapsWithDownstreamRegion(changeInterval))
+		else if (so.overlapsWithUpstreamRegion(chr, strand, beginPos, endPos) || so.overlapsWithDownstreamRegion(chr, strand, beginPos, endPos))
 			return buildUpOrDownstreamAnnotation();
 		else
 			return buildIntergenicAnnotation();
@@ -117,28 +120,30 @@ public final class SNVAnnotationBuilder extends AnnotationBuilder {
 
 		// Compute variant type.
 		EnumSet<VariantEffect> varTypes = computeVariantTypes(wtAA, varAA);
-		GenomeInterval changeInterval = change.getGenomeInterval();
-		if (so.overlapsWithTranslationalStartSite(changeInterval)) {
+		final int chr = change.getChr();
+		final Strand strand = change.getGenomePos().getStrand();
+		final int beginPos = change.getPos();
+		final int endPos = beginPos + change.getRef().length();
+		if (so.overlapsWithTranslationalStartSite(chr, strand, beginPos, endPos)) {
 			varTypes.add(VariantEffect.START_LOST);
 			proteinChange = ProteinMiscChange.build(true, ProteinMiscChangeType.NO_PROTEIN);
-		} else if (so.overlapsWithTranslationalStopSite(changeInterval)) {
+		} else if (so.overlapsWithTranslationalStopSite(chr, strand, beginPos, endPos)) {
 			if (wtAA.equals(varAA)) { // change in stop codon, but no AA change
 				varTypes.add(VariantEffect.STOP_RETAINED_VARIANT);
 			} else { // change in stop codon, AA change
 				varTypes.add(VariantEffect.STOP_LOST);
-				String varNTString = seqChangeHelper.getCDSWithGenomeVariant(change);
-				String varAAString = Translator.getTranslator().translateDNA(varNTString, !transcript.isMitochondrial());
+				String varAAString = seqChangeHelper.translateCDSWithGenomeVariant(change, sequences);
 				int stopCodonPos = varAAString.indexOf('*', cdsPos.getPos() / 3);
 				int shift = stopCodonPos - cdsPos.getPos() / 3;
 				proteinChange = ProteinExtension.build(true, wtAA, cdsPos.getPos() / 3, varAA, shift);
 			}
 		}
 		// Check for being a splice site variant. The splice donor, acceptor, and region intervals are disjoint.
-		if (so.overlapsWithSpliceDonorSite(changeInterval))
+		if (so.overlapsWithSpliceDonorSite(chr, strand, beginPos, endPos))
 			varTypes.add(VariantEffect.SPLICE_DONOR_VARIANT);
-		else if (so.overlapsWithSpliceAcceptorSite(changeInterval))
+		else if (so.overlapsWithSpliceAcceptorSite(chr, strand, beginPos, endPos))
 			varTypes.add(VariantEffect.SPLICE_ACCEPTOR_VARIANT);
-		else if (so.overlapsWithSpliceRegion(changeInterval))
+		else if (so.overlapsWithSpliceRegion(chr, strand, beginPos, endPos))
 			varTypes.add(VariantEffect.SPLICE_REGION_VARIANT);
 
 		// Build the resulting Annotation.
@@ -1,15 +1,23 @@
 package de.charite.compbio.jannovar.data;
 
+import de.charite.compbio.jannovar.impl.intervals.Interval;
 import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
+import java.util.ArrayList;
 
 /**
  * This class encapsulates a chromosome and all of the genes its contains. It is intended to be used together with the
  * {@link TranscriptModel} class to make a list of gene models that will be used to annotate chromosomal variants. We
- * use an {@link IntervalArray} to store all of the {@link TranscriptModel} objects that belong to this Chromosome and
+ * use an {@link IntervalIndex} to store all of the {@link TranscriptModel} objects that belong to this Chromosome and
  * to search for all transcripts that overlap with any given variant. Note that the IntervalTree class has functionality
  * also to find the neighbors (5' and 3') of the closest gene in order to find the right and left genes of intergenic
  * variants and to find the correct gene in the cases of complex regions of the chromosome with one gene located in the
@@ -40,21 +48,45 @@ public final class Chromosome implements Serializable {
 	private final int chrID;
 
 	/**
-	 * An {@link IntervalArray} that contains all of the {@link TranscriptModel} objects for transcripts located on this
+	 * An {@link IntervalIndex} that contains all of the {@link TranscriptModel} objects for transcripts located on this
 	 * chromosome.
 	 */
-	private final IntervalArray<TranscriptModel> tmIntervalTree;
+	private final IntervalIndex<TranscriptModel> tmIntervalIndex;
+
+	/**
+	 * An {@link IntervalArray} with the same transcripts as {@link #tmIntervalIndex}, built on first use and not
+	 * serialized.
+	 */
+	private transient volatile IntervalArray<TranscriptModel> tmIntervalTree;
+
+	/**
+	 * Chromosome constructed by {@link #readObject}, only set in the temporary object that {@link #readResolve}
+	 * replaces with it.
+	 */
+	private transient Chromosome serialFields;
 
 	/**
 	 * Initialize object.
 	 *
+	 * @param refDict         the {@link ReferenceDictionary} to use
+	 * @param chrID           the chromosome
+	 * @param tmIntervalIndex An interval index with all transcripts on this chromosome.
+	 */
+	public Chromosome(ReferenceDictionary refDict, int chrID, IntervalIndex<TranscriptModel> tmIntervalIndex) {
+		this.refDict = refDict;
+		this.chrID = chrID;
+		this.tmIntervalIndex = tmIntervalIndex;
+	}
+
+	/**
+	 * Initialize object from an {@link IntervalArray}, the {@link IntervalIndex} is built from its transcripts.
+	 *
 	 * @param refDict        the {@link ReferenceDictionary} to use
 	 * @param chrID          the chromosome
 	 * @param tmIntervalTree An interval tree with all transcripts on this chromosome.
 	 */
 	public Chromosome(ReferenceDictionary refDict, int chrID, IntervalArray<TranscriptModel> tmIntervalTree) {
-		this.refDict = refDict;
-		this.chrID = chrID;
+		this(refDict, chrID, buildIntervalIndex(tmIntervalTree));
 		this.tmIntervalTree = tmIntervalTree;
 	}
 
@@ -83,14 +115,73 @@ public final class Chromosome implements Serializable {
 	 * @return Number of genes contained in this chromosome.
 	 */
 	public int getNumberOfGenes() {
-		return this.tmIntervalTree.size();
+		return this.tmIntervalIndex.size();
 	}
 
 	/**
-	 * @return the {@link IntervalArray} of the chromosome.
+	 * The returned tree contains the same transcripts as {@link #getTMIntervalIndex()}, which should be preferred.
+	 *
+	 * @return the {@link IntervalArray} of the chromosome, built on first call.
 	 */
 	public IntervalArray<TranscriptModel> getTMIntervalTree() {
-		return tmIntervalTree;
+		IntervalArray<TranscriptModel> result = tmIntervalTree;
+		if (result == null) {
+			synchronized (this) {
+				result = tmIntervalTree;
+				if (result == null) {
+					ArrayList<TranscriptModel> transcripts = new ArrayList<>(tmIntervalIndex.size());
+					for (int i = 0; i < tmIntervalIndex.size(); ++i)
+						transcripts.add(tmIntervalIndex.getValue(i));
+					tmIntervalTree = result = new IntervalArray<>(transcripts, new TranscriptIntervalEndExtractor());
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the {@link IntervalIndex} of the chromosome
+	 */
+	public IntervalIndex<TranscriptModel> getTMIntervalIndex() {
+		return tmIntervalIndex;
+	}
+
+	/**
+	 * @return {@link IntervalIndex} with the transcripts of <code>tree</code>
+	 */
+	private static IntervalIndex<TranscriptModel> buildIntervalIndex(IntervalArray<TranscriptModel> tree) {
+		ArrayList<TranscriptModel> transcripts = new ArrayList<>(tree.size());
+		for (Interval<TranscriptModel> itv : tree.getIntervals())
+			transcripts.add(itv.getValue());
+		return new IntervalIndex<>(transcripts, new TranscriptIntervalEndExtractor());
+	}
+
+	/**
+	 * Read the fields, {@link #readResolve} returns the result.
+	 * <p>
+	 * Files written by previous versions of Jannovar store an {@link IntervalArray} instead of the
+	 * {@link IntervalIndex}, the index is built from it.
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		final ReferenceDictionary refDict = (ReferenceDictionary) fields.get("refDict", null);
+		final int chrID = fields.get("chrID", 0);
+		if (fields.defaulted("tmIntervalIndex"))
+			serialFields = new Chromosome(refDict, chrID,
+				buildIntervalIndex((IntervalArray<TranscriptModel>) fields.get("tmIntervalTree", null)));
+		else
+			serialFields = new Chromosome(refDict, chrID,
+				(IntervalIndex<TranscriptModel>) fields.get("tmIntervalIndex", null));
+	}
+
+	/**
+	 * @return the chromosome constructed by {@link #readObject}, replacing this temporary object
+	 */
+	private Object readResolve() throws ObjectStreamException {
+		if (serialFields == null)
+			throw new InvalidObjectException("Chromosome was not read");
+		return serialFields;
 	}
 
 }
@@ -0,0 +1,280 @@
+package de.charite.compbio.jannovar.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Grouping of the transcripts of a {@link JannovarData} into genes, as used for the gene-wise Mendelian inheritance
+ * annotation.
+ * <p>
+ * The transcripts are grouped by gene symbol. A transcript is only added to the gene of its symbol if it lies within
+ * 10 kbp of a transcript that was added before, such that far-away matches of the same symbol do not result in huge
+ * genes. The region of a gene is the smallest interval on the forward strand containing all its transcripts.
+ * <p>
+ * The index is stored in flat arrays, sorted by chromosome, begin, and end position, and transcripts are referenced
+ * by their number in {@link JannovarData#getTmByAccession()}. It is computed when writing a database and stored in the
+ * database file, such that loading it is cheap.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class GeneIndex implements Serializable {
+
+	/**
+	 * Serial version ID.
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Transcripts of a gene must lie within this distance of a previously added one
+	 */
+	static final int MAX_TRANSCRIPT_DISTANCE = 10_000;
+
+	/**
+	 * gene symbols, may contain <code>null</code> for transcripts without a symbol
+	 */
+	private final String[] geneSymbols;
+
+	/**
+	 * numeric chromosome IDs of the genes
+	 */
+	private final int[] chr;
+
+	/**
+	 * 0-based begin and end positions of the genes on the forward strand
+	 */
+	private final int[] beginPos, endPos;
+
+	/**
+	 * offsets of the genes into {@link #transcripts}, one more than genes
+	 */
+	private final int[] transcriptOffsets;
+
+	/**
+	 * numbers of the transcripts of each gene, in the order of {@link JannovarData#getTmByAccession()}
+	 */
+	private final int[] transcripts;
+
+	GeneIndex(String[] geneSymbols, int[] chr, int[] beginPos, int[] endPos, int[] transcriptOffsets,
+			  int[] transcripts) {
+		this.geneSymbols = geneSymbols;
+		this.chr = chr;
+		this.beginPos = beginPos;
+		this.endPos = endPos;
+		this.transcriptOffsets = transcriptOffsets;
+		this.transcripts = transcripts;
+	}
+
+	/**
+	 * Group the transcripts into genes.
+	 *
+	 * @param chromosomes the {@link Chromosome}s with the transcripts
+	 * @param transcripts all transcripts, defining the transcript numbers
+	 * @return {@link GeneIndex} of the genes
+	 */
+	static GeneIndex build(ImmutableMap<Integer, Chromosome> chromosomes, List<TranscriptModel> transcripts) {
+		final IdentityHashMap<TranscriptModel, Integer> numbers = new IdentityHashMap<>();
+		for (int i = 0; i < transcripts.size(); ++i)
+			numbers.put(transcripts.get(i), i);
+
+		// Visit transcripts by chromosome and begin position, first transcript of each symbol is always added.
+		final HashMap<String, GeneBuilder> builders = new HashMap<>();
+		for (Chromosome chrom : chromosomes.values()) {
+			final IntervalIndex<TranscriptModel> index = chrom.getTMIntervalIndex();
+			for (int i = 0; i < index.size(); ++i) {
+				final TranscriptModel tm = index.getValue(i);
+				builders.computeIfAbsent(tm.getGeneSymbol(), GeneBuilder::new).add(tm, numbers.get(tm));
+			}
+		}
+
+		final ArrayList<GeneBuilder> genes = new ArrayList<>(builders.values());
+		genes.sort(Comparator.<GeneBuilder>comparingInt(g -> g.chr).thenComparingInt(g -> g.beginPos)
+			.thenComparingInt(g -> g.endPos)
+			.thenComparing(g -> g.geneSymbol, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+		final int n = genes.size();
+		final String[] geneSymbols = new String[n];
+		final int[] chr = new int[n], beginPos = new int[n], endPos = new int[n];
+		final int[] transcriptOffsets = new int[n + 1];
+		int numTranscripts = 0;
+		for (GeneBuilder gene : genes)
+			numTranscripts += gene.numbers.size();
+		final int[] geneTranscripts = new int[numTranscripts];
+		for (int i = 0; i < n; ++i) {
+			final GeneBuilder gene = genes.get(i);
+			geneSymbols[i] = gene.geneSymbol;
+			chr[i] = gene.chr;
+			beginPos[i] = gene.beginPos;
+			endPos[i] = gene.endPos;
+			transcriptOffsets[i + 1] = transcriptOffsets[i] + gene.numbers.size();
+			for (int j = 0; j < gene.numbers.size(); ++j)
+				geneTranscripts[transcriptOffsets[i] + j] = gene.numbers.get(j);
+		}
+		return new GeneIndex(geneSymbols, chr, beginPos, endPos, transcriptOffsets, geneTranscripts);
+	}
+
+	/**
+	 * @return number of genes
+	 */
+	public int size() {
+		return geneSymbols.length;
+	}
+
+	/**
+	 * @param i 0-based number of the gene
+	 * @return gene symbol, may be <code>null</code> for the transcripts without gene symbol
+	 */
+	public String getGeneSymbol(int i) {
+		return geneSymbols[i];
+	}
+
+	/**
+	 * @param i 0-based number of the gene
+	 * @return numeric chromosome ID of the gene
+	 */
+	public int getChr(int i) {
+		return chr[i];
+	}
+
+	/**
+	 * @param i 0-based number of the gene
+	 * @return 0-based begin position of the gene on the forward strand
+	 */
+	public int getBeginPos(int i) {
+		return beginPos[i];
+	}
+
+	/**
+	 * @param i 0-based number of the gene
+	 * @return 0-based end position of the gene on the forward strand
+	 */
+	public int getEndPos(int i) {
+		return endPos[i];
+	}
+
+	/**
+	 * @param refDict the {@link ReferenceDictionary} to use for the interval
+	 * @param i       0-based number of the gene
+	 * @return region of the gene on the forward strand
+	 */
+	public GenomeInterval getRegion(ReferenceDictionary refDict, int i) {
+		return new GenomeInterval(refDict, Strand.FWD, chr[i], beginPos[i], endPos[i]);
+	}
+
+	/**
+	 * @param i 0-based number of the gene
+	 * @return number of transcripts of the gene
+	 */
+	public int getTranscriptCount(int i) {
+		return transcriptOffsets[i + 1] - transcriptOffsets[i];
+	}
+
+	/**
+	 * @param i 0-based number of the gene
+	 * @param j 0-based number of the transcript within the gene
+	 * @return number of the transcript in {@link JannovarData#getTmByAccession()}
+	 */
+	public int getTranscriptNumber(int i, int j) {
+		if (j < 0 || j >= getTranscriptCount(i))
+			throw new IndexOutOfBoundsException("Invalid transcript " + j + " of gene " + i);
+		return transcripts[transcriptOffsets[i] + j];
+	}
+
+	/**
+	 * @param data the {@link JannovarData} that the index was built for
+	 * @param i    0-based number of the gene
+	 * @return the transcripts of the gene
+	 */
+	public ImmutableList<TranscriptModel> getTranscripts(JannovarData data, int i) {
+		ImmutableList.Builder<TranscriptModel> builder = ImmutableList.builder();
+		for (int k = transcriptOffsets[i]; k < transcriptOffsets[i + 1]; ++k)
+			builder.add(data.getTranscriptModel(transcripts[k]));
+		return builder.build();
+	}
+
+	/**
+	 * Collects the transcripts of one gene symbol while building.
+	 */
+	private static final class GeneBuilder {
+
+		final String geneSymbol;
+		final ArrayList<Integer> numbers = new ArrayList<>();
+		/** forward strand regions of the added transcripts */
+		final ArrayList<int[]> regions = new ArrayList<>();
+		int chr, beginPos, endPos;
+
+		GeneBuilder(String geneSymbol) {
+			this.geneSymbol = geneSymbol;
+		}
+
+		void add(TranscriptModel tm, int number) {
+			final GenomeInterval region = tm.getTXRegion().withStrand(Strand.FWD);
+			if (numbers.isEmpty()) {
+				chr = region.getChr();
+				beginPos = region.getBeginPos();
+				endPos = region.getEndPos();
+			} else {
+				if (region.getChr() != chr)
+					return;
+				boolean close = false;
+				for (int[] other : regions)
+					if (other[0] < region.getEndPos() + MAX_TRANSCRIPT_DISTANCE &&
+						region.getBeginPos() - MAX_TRANSCRIPT_DISTANCE < other[1]) {
+						close = true;
+						break;
+					}
+				if (!close)
+					return;
+				beginPos = Math.min(beginPos, region.getBeginPos());
+				endPos = Math.max(endPos, region.getEndPos());
+			}
+			numbers.add(number);
+			regions.add(new int[]{region.getBeginPos(), region.getEndPos()});
+		}
+
+	}
+
+	@Override
+	public int hashCode() {
+		int result = Arrays.hashCode(geneSymbols);
+		result = 31 * result + Arrays.hashCode(chr);
+		result = 31 * result + Arrays.hashCode(beginPos);
+		result = 31 * result + Arrays.hashCode(endPos);
+		result = 31 * result + Arrays.hashCode(transcriptOffsets);
+		result = 31 * result + Arrays.hashCode(transcripts);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		GeneIndex other = (GeneIndex) obj;
+		return Arrays.equals(geneSymbols, other.geneSymbols) && Arrays.equals(chr, other.chr) &&
+			Arrays.equals(beginPos, other.beginPos) && Arrays.equals(endPos, other.endPos) &&
+			Arrays.equals(transcriptOffsets, other.transcriptOffsets) && Arrays.equals(transcripts, other.transcripts);
+	}
+
+	@Override
+	public String toString() {
+		return "GeneIndex [size=" + size() + "]";
+	}
+
+}
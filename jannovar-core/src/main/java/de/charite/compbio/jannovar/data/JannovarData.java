@@ -4,13 +4,19 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import de.charite.compbio.jannovar.Immutable;
-import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
 import de.charite.compbio.jannovar.reference.TranscriptIntervalEndExtractor;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * This data type is used for serialization after downloading.
@@ -33,20 +39,42 @@ public final class JannovarData implements Serializable {
 	private final ImmutableMap<Integer, Chromosome> chromosomes;
 
 	/**
-	 * map from transcript accession to {@link TranscriptModel} instance.
+	 * map from transcript accession to {@link TranscriptModel} instance, built on first access for transcripts loaded
+	 * by {@link #transcriptLoader}
 	 */
-	private final ImmutableMap<String, TranscriptModel> tmByAccession;
+	private volatile ImmutableMap<String, TranscriptModel> tmByAccession;
 
 	/**
-	 * map from transcript accession to {@link TranscriptModel} instance.
+	 * map from gene symbol to {@link TranscriptModel} instances, built together with {@link #tmByAccession}
 	 */
-	private final ImmutableMultimap<String, TranscriptModel> tmByGeneSymbol;
+	private volatile ImmutableMultimap<String, TranscriptModel> tmByGeneSymbol;
 
 	/**
 	 * information about reference lengths and identities
 	 */
 	private final ReferenceDictionary refDict;
 
+	/**
+	 * grouping of the transcripts into genes, built on first access unless stored in the database file
+	 */
+	private volatile GeneIndex geneIndex;
+
+	/**
+	 * loads the {@link GeneIndex} on first access, e.g., from a mapped file, <code>null</code> if there is none
+	 */
+	private transient Supplier<GeneIndex> geneIndexLoader;
+
+	/**
+	 * number of transcripts loaded by {@link #transcriptLoader}
+	 */
+	private final transient int transcriptCount;
+
+	/**
+	 * loads transcripts by their number, e.g., from a mapped file, <code>null</code> if all transcripts are in
+	 * {@link #tmByAccession}
+	 */
+	private transient volatile IntFunction<TranscriptModel> transcriptLoader;
+
 	/**
 	 * Initialize the object with the given values.
 	 *
@@ -54,10 +82,47 @@ public final class JannovarData implements Serializable {
 	 * @param transcriptModels the list of {@link TranscriptModel} objects to use in this object
 	 */
 	public JannovarData(ReferenceDictionary refDict, ImmutableList<TranscriptModel> transcriptModels) {
+		this(refDict, transcriptModels, null);
+	}
+
+	/**
+	 * Initialize the object with the given values and a loader for the {@link GeneIndex} stored in a database file.
+	 *
+	 * @param refDict          the {@link ReferenceDictionary} to use in this object
+	 * @param transcriptModels the list of {@link TranscriptModel} objects to use in this object
+	 * @param geneIndexLoader  loads the {@link GeneIndex} of <code>transcriptModels</code> on first access, may
+	 *                         return <code>null</code> for building it instead; <code>null</code> for always building
+	 */
+	JannovarData(ReferenceDictionary refDict, ImmutableList<TranscriptModel> transcriptModels,
+				 Supplier<GeneIndex> geneIndexLoader) {
 		this.refDict = refDict;
 		this.chromosomes = makeChromsomes(refDict, transcriptModels);
 		this.tmByAccession = makeTMByAccession(transcriptModels);
 		this.tmByGeneSymbol = makeTMByGeneSymbol(transcriptModels);
+		this.geneIndexLoader = geneIndexLoader;
+		this.transcriptCount = transcriptModels.size();
+	}
+
+	/**
+	 * Initialize the object with {@link Chromosome}s whose transcripts are loaded on access, e.g., from a mapped file.
+	 * <p>
+	 * {@link #getTmByAccession()} and {@link #getTmByGeneSymbol()} load all transcripts on their first call.
+	 *
+	 * @param refDict          the {@link ReferenceDictionary} to use in this object
+	 * @param chromosomes      the {@link Chromosome}s of all contigs of <code>refDict</code>
+	 * @param transcriptCount  number of transcripts
+	 * @param transcriptLoader loads a transcript by its number, must be thread-safe and return the same object for
+	 *                         the same number
+	 * @param geneIndexLoader  loads the {@link GeneIndex} of the transcripts on first access, may return
+	 *                         <code>null</code> for building it instead
+	 */
+	JannovarData(ReferenceDictionary refDict, ImmutableMap<Integer, Chromosome> chromosomes, int transcriptCount,
+				 IntFunction<TranscriptModel> transcriptLoader, Supplier<GeneIndex> geneIndexLoader) {
+		this.refDict = refDict;
+		this.chromosomes = chromosomes;
+		this.transcriptCount = transcriptCount;
+		this.transcriptLoader = transcriptLoader;
+		this.geneIndexLoader = geneIndexLoader;
 	}
 
 	/**
@@ -71,6 +136,7 @@ public final class JannovarData implements Serializable {
 	 * @return map from transcript accession to {@link TranscriptModel} instance.
 	 */
 	public ImmutableMap<String, TranscriptModel> getTmByAccession() {
+		loadTranscripts();
 		return tmByAccession;
 	}
 
@@ -79,9 +145,21 @@ public final class JannovarData implements Serializable {
 	 * symbol.
 	 */
 	public ImmutableMultimap<String, TranscriptModel> getTmByGeneSymbol() {
+		loadTranscripts();
 		return tmByGeneSymbol;
 	}
 
+	/**
+	 * @param number 0-based number of the transcript, in the order of {@link #getTmByAccession()}
+	 * @return the transcript with the given number
+	 */
+	TranscriptModel getTranscriptModel(int number) {
+		final IntFunction<TranscriptModel> loader = transcriptLoader;
+		if (loader != null)
+			return loader.apply(number);
+		return getTmByAccession().values().asList().get(number);
+	}
+
 	/**
 	 * @return information about reference lengths and identities
 	 */
@@ -89,6 +167,65 @@ public final class JannovarData implements Serializable {
 		return refDict;
 	}
 
+	/**
+	 * Obtain the grouping of the transcripts into genes.
+	 * <p>
+	 * The index is stored in database files written by this version of Jannovar and loaded on the first call. For
+	 * older files and for objects constructed directly, it is built on the first call.
+	 *
+	 * @return {@link GeneIndex} of the transcripts
+	 */
+	public GeneIndex getGeneIndex() {
+		GeneIndex result = geneIndex;
+		if (result == null) {
+			synchronized (this) {
+				result = geneIndex;
+				if (result == null && geneIndexLoader != null)
+					result = geneIndexLoader.get();
+				if (result == null)
+					result = GeneIndex.build(chromosomes, getTmByAccession().values().asList());
+				geneIndex = result;
+				geneIndexLoader = null;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return whether the {@link GeneIndex} has already been loaded or built
+	 */
+	boolean hasGeneIndex() {
+		return geneIndex != null;
+	}
+
+	/**
+	 * Load all transcripts through {@link #transcriptLoader} and build the maps, unless already done
+	 */
+	private void loadTranscripts() {
+		if (tmByAccession != null)
+			return;
+		synchronized (this) {
+			if (tmByAccession != null)
+				return;
+			ImmutableList.Builder<TranscriptModel> builder = ImmutableList.builder();
+			for (int i = 0; i < transcriptCount; ++i)
+				builder.add(transcriptLoader.apply(i));
+			final ImmutableList<TranscriptModel> transcriptModels = builder.build();
+			// tmByAccession is checked above, assign it last
+			tmByGeneSymbol = makeTMByGeneSymbol(transcriptModels);
+			tmByAccession = makeTMByAccession(transcriptModels);
+			transcriptLoader = null;
+		}
+	}
+
+	/**
+	 * Load all transcripts before writing, such that the object can be read without the file they are loaded from
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		loadTranscripts();
+		out.defaultWriteObject();
+	}
+
 	/**
 	 * @param transcriptModels set of {@link TranscriptModel}s to build multi-mapping for
 	 * @return multi-mapping from gene symbol to {@link TranscriptModel}
@@ -118,7 +255,7 @@ public final class JannovarData implements Serializable {
 
 	/**
 	 * This function constructs a HashMap<Byte,Chromosome> map of Chromosome objects in which the {@link
-	 * TranscriptModel} objects are entered into an {@link IntervalArray} for the appropriate Chromosome.
+	 * TranscriptModel} objects are entered into an {@link IntervalIndex} for the appropriate Chromosome.
 	 *
 	 * @param refDict          the {@link ReferenceDictionary} to use for the construction
 	 * @param transcriptModels list of {@link TranscriptModel} objects with the transcripts of all chromosomes
@@ -138,12 +275,15 @@ public final class JannovarData implements Serializable {
 		for (TranscriptModel transcript : transcriptModels)
 			transcripts.get(transcript.getChr()).add(transcript);
 
-		// Then, construct an interval tree for each chromosome and add the lists of intervals.
-		for (Integer chrID : transcripts.keySet()) {
-			IntervalArray<TranscriptModel> iTree = new IntervalArray<TranscriptModel>(transcripts.get(chrID),
+		// Then, construct an interval tree for each chromosome and add the lists of intervals. The chromosomes are
+		// independent, so their trees are built in parallel.
+		List<Chromosome> chromosomes = new ArrayList<>(transcripts.keySet()).parallelStream().map(chrID -> {
+			IntervalIndex<TranscriptModel> index = new IntervalIndex<TranscriptModel>(transcripts.get(chrID),
 				new TranscriptIntervalEndExtractor());
-			builder.put(chrID, new Chromosome(refDict, chrID, iTree));
-		}
+			return new Chromosome(refDict, chrID, index);
+		}).collect(Collectors.toList());
+		for (Chromosome chromosome : chromosomes)
+			builder.put(chromosome.getChrID(), chromosome);
 
 		return builder.build();
 	}
@@ -94,6 +94,8 @@ public final class JannovarDataSerializer {
 			// write version
 			final String version = getVersion();
 			oos.writeObject(version);
+			// store the gene index with the data instead of building it on each load
+			data.getGeneIndex();
 			oos.writeObject(data);
 		} catch (IOException i) {
 			error = String.format("Could not serialize data file list: %s", i.toString());
@@ -121,11 +123,38 @@ public final class JannovarDataSerializer {
 
 	/**
 	 * Deserialize a {@link JannovarData} object from a file.
+	 * <p>
+	 * Files written by {@link MappedJannovarDataSerializer} are also accepted, their transcripts are only built when
+	 * accessed (see {@link MappedJannovarData#toJannovarData()}).
 	 *
 	 * @return {@link JannovarData} object yielded by deserialization
 	 * @throws SerializationException on problems with the deserialization
 	 */
 	public JannovarData load() throws SerializationException {
+		return load(TranscriptFilter.ALL);
+	}
+
+	/**
+	 * Deserialize a {@link JannovarData} object from a file, keeping only the transcripts that pass
+	 * <code>filter</code>.
+	 * <p>
+	 * For files written by {@link MappedJannovarDataSerializer}, only the kept transcripts are built, and without
+	 * restriction only when accessed (see {@link MappedJannovarData#toJannovarData()}). Files in the Java
+	 * serialization format are fully deserialized before the {@link Chromosome}s are rebuilt from the kept
+	 * transcripts, the excluded ones can be garbage collected afterwards.
+	 *
+	 * @param filter the {@link TranscriptFilter} to apply
+	 * @return {@link JannovarData} object with the kept transcripts
+	 * @throws SerializationException on problems with the deserialization
+	 */
+	public JannovarData load(TranscriptFilter filter) throws SerializationException {
+		try {
+			if (MappedJannovarDataSerializer.isMappedFile(filename))
+				return new MappedJannovarDataSerializer(filename).load().toJannovarData(filter);
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not deserialize data list: %s", e.toString()));
+		}
+
 		logger.info(StringUtil.concatenate("Deserializing JannovarData from ", filename));
 		final long startTime = System.nanoTime();
 
@@ -173,6 +202,8 @@ public final class JannovarDataSerializer {
 				throw new SerializationException(error);
 		}
 
+		result = filter.apply(result);
+
 		logger.info(String.format("Deserialization took %.2f sec.",
 			(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
 		return result;
@@ -0,0 +1,371 @@
+package de.charite.compbio.jannovar.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
+import de.charite.compbio.jannovar.reference.Alignment;
+import de.charite.compbio.jannovar.reference.Anchor;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Read-only view of a memory-mapped file written by {@link MappedJannovarDataSerializer}.
+ * <p>
+ * Transcripts are identified by their 0-based number in the file. {@link TranscriptModel} objects are only built on
+ * first access and cached afterwards. This class is thread-safe.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class MappedJannovarData {
+
+	/**
+	 * the mapped columns
+	 */
+	private final MappedJannovarDataSerializer.Columns columns;
+
+	/**
+	 * already decoded {@link TranscriptModel}s
+	 */
+	private final AtomicReferenceArray<TranscriptModel> transcripts;
+
+	MappedJannovarData(MappedJannovarDataSerializer.Columns columns) {
+		this.columns = columns;
+		this.transcripts = new AtomicReferenceArray<>(columns.accession.limit());
+	}
+
+	/**
+	 * @return version of Jannovar that wrote the file
+	 */
+	public String getVersion() {
+		return columns.version;
+	}
+
+	/**
+	 * @return information about reference lengths and identities
+	 */
+	public ReferenceDictionary getRefDict() {
+		return columns.refDict;
+	}
+
+	/**
+	 * @return number of transcripts in the file
+	 */
+	public int getTranscriptCount() {
+		return transcripts.length();
+	}
+
+	/**
+	 * Obtain accession of a transcript without building the {@link TranscriptModel}.
+	 *
+	 * @param i 0-based number of the transcript
+	 * @return accession of the transcript
+	 */
+	public String getAccession(int i) {
+		return getString(columns, columns.accession.get(i));
+	}
+
+	/**
+	 * Obtain gene symbol of a transcript without building the {@link TranscriptModel}.
+	 *
+	 * @param i 0-based number of the transcript
+	 * @return gene symbol of the transcript, may be <code>null</code>
+	 */
+	public String getGeneSymbol(int i) {
+		return getString(columns, columns.geneSymbol.get(i));
+	}
+
+	/**
+	 * @param i 0-based number of the transcript
+	 * @return the transcript, built on first access
+	 */
+	public TranscriptModel getTranscriptModel(int i) {
+		TranscriptModel result = transcripts.get(i);
+		if (result == null) {
+			// Concurrent callers might both build the transcript, the result is equal in any case.
+			transcripts.compareAndSet(i, null, buildTranscriptModel(i));
+			result = transcripts.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * @param i 0-based number of the transcript
+	 * @return whether the transcript has already been built
+	 */
+	boolean hasTranscriptModel(int i) {
+		return transcripts.get(i) != null;
+	}
+
+	/**
+	 * Query for transcripts overlapping with a region, using the same semantics as querying the
+	 * {@link de.charite.compbio.jannovar.impl.intervals.IntervalIndex} of a {@link Chromosome}.
+	 *
+	 * @param chr   numeric chromosome ID
+	 * @param begin 0-based begin position on the forward strand
+	 * @param end   0-based end position on the forward strand
+	 * @return transcripts overlapping with <code>[begin, end)</code>, sorted by begin and end position
+	 */
+	public ImmutableList<TranscriptModel> findOverlapping(int chr, int begin, int end) {
+		final MappedJannovarDataSerializer.Columns c = columns;
+		final int chrIdx = binarySearch(c.indexChr, 0, c.indexChr.limit(), chr);
+		if (chrIdx < 0)
+			return ImmutableList.of();
+		final int first = c.indexChrOffsets.get(chrIdx);
+		final int last = c.indexChrOffsets.get(chrIdx + 1);
+
+		// Find first entry starting at or right of end, all entries left of it start left of end.
+		int lo = first, hi = last;
+		while (lo < hi) {
+			final int mid = (lo + hi) >>> 1;
+			if (c.indexBegin.get(mid) < end)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+
+		// Scan to the left as long as an interval might still reach into the query.
+		ArrayList<TranscriptModel> result = new ArrayList<>();
+		for (int k = lo - 1; k >= first && c.indexMaxEnd.get(k) > begin; --k)
+			if (c.indexEnd.get(k) > begin)
+				result.add(getTranscriptModel(c.indexTranscript.get(k)));
+		Collections.reverse(result);
+		return ImmutableList.copyOf(result);
+	}
+
+	/**
+	 * Obtain a {@link JannovarData} with all transcripts, equal to the one that the file was written from.
+	 * <p>
+	 * The interval indices of the {@link Chromosome}s are built from the index stored in the file and the transcripts
+	 * are only built when returned by a query, such that annotation only builds the transcripts that overlap with the
+	 * variants or are their neighbors. {@link JannovarData#getTmByAccession()} and
+	 * {@link JannovarData#getTmByGeneSymbol()} build all transcripts on their first call.
+	 *
+	 * @return {@link JannovarData} with all transcripts
+	 */
+	public JannovarData toJannovarData() {
+		return new JannovarData(columns.refDict, buildChromosomes(), getTranscriptCount(), this::getTranscriptModel,
+			this::getGeneIndex);
+	}
+
+	/**
+	 * @return {@link Chromosome}s for all contigs of the reference dictionary, with transcripts built on access
+	 */
+	private ImmutableMap<Integer, Chromosome> buildChromosomes() {
+		final MappedJannovarDataSerializer.Columns c = columns;
+		ImmutableMap.Builder<Integer, Chromosome> builder = ImmutableMap.builder();
+		for (int chrID : c.refDict.getContigIDToName().keySet()) {
+			final int chrIdx = binarySearch(c.indexChr, 0, c.indexChr.limit(), chrID);
+			final int first = (chrIdx < 0) ? 0 : c.indexChrOffsets.get(chrIdx);
+			final int last = (chrIdx < 0) ? 0 : c.indexChrOffsets.get(chrIdx + 1);
+			final IntervalIndex<TranscriptModel> index = new IntervalIndex<>(toArray(c.indexBegin, first, last),
+				toArray(c.indexEnd, first, last), toArray(c.indexTranscript, first, last), this::getTranscriptModel);
+			builder.put(chrID, new Chromosome(c.refDict, chrID, index));
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Obtain the {@link GeneIndex} stored in the file.
+	 *
+	 * @return {@link GeneIndex} of all transcripts, <code>null</code> for files written before it was stored
+	 */
+	public GeneIndex getGeneIndex() {
+		final MappedJannovarDataSerializer.Columns c = columns;
+		if (c.geneIndexSymbol == null)
+			return null;
+		final int n = c.geneIndexSymbol.limit();
+		final String[] geneSymbols = new String[n];
+		for (int i = 0; i < n; ++i)
+			geneSymbols[i] = getString(c, c.geneIndexSymbol.get(i));
+		return new GeneIndex(geneSymbols, toArray(c.geneIndexChr), toArray(c.geneIndexBegin),
+			toArray(c.geneIndexEnd), toArray(c.geneIndexTranscriptOffsets), toArray(c.geneIndexTranscript));
+	}
+
+	/**
+	 * Build a {@link JannovarData} from the transcripts that pass <code>filter</code>.
+	 * <p>
+	 * The filter is evaluated on the columns, {@link TranscriptModel} objects are only built for the kept transcripts.
+	 *
+	 * @param filter the {@link TranscriptFilter} to apply
+	 * @return {@link JannovarData} with the kept transcripts
+	 */
+	public JannovarData toJannovarData(TranscriptFilter filter) {
+		if (filter.isAcceptAll())
+			return toJannovarData();
+		final MappedJannovarDataSerializer.Columns c = columns;
+		final BitSet selected = filter.select(c.refDict, new TranscriptFilter.Records() {
+			@Override
+			public int size() {
+				return getTranscriptCount();
+			}
+
+			@Override
+			public int getChr(int i) {
+				return c.chr.get(i);
+			}
+
+			@Override
+			public boolean isCoding(int i) {
+				return c.cdsBegin.get(i) < c.cdsEnd.get(i);
+			}
+
+			@Override
+			public int getTranscriptSupportLevel(int i) {
+				return c.tsl.get(i);
+			}
+
+			@Override
+			public int getTXLength(int i) {
+				return c.txEnd.get(i) - c.txBegin.get(i);
+			}
+
+			@Override
+			public String getGeneSymbol(int i) {
+				return MappedJannovarData.this.getGeneSymbol(i);
+			}
+
+			@Override
+			public boolean matchesGeneIdentifier(int i, ImmutableSet<String> identifiers) {
+				if (identifiers.contains(getString(c, c.accession.get(i))) ||
+					identifiers.contains(getString(c, c.geneSymbol.get(i))) ||
+					identifiers.contains(getString(c, c.geneID.get(i))))
+					return true;
+				for (int j = c.altIDOffsets.get(i); j < c.altIDOffsets.get(i + 1); ++j)
+					if (identifiers.contains(getString(c, c.altIDValue.get(j))))
+						return true;
+				return false;
+			}
+		});
+
+		ImmutableList.Builder<TranscriptModel> builder = ImmutableList.builder();
+		for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1))
+			builder.add(getTranscriptModel(i));
+		return new JannovarData(c.refDict, builder.build());
+	}
+
+	/**
+	 * Build {@link TranscriptModel} from the columns.
+	 */
+	private TranscriptModel buildTranscriptModel(int i) {
+		final MappedJannovarDataSerializer.Columns c = columns;
+		final ReferenceDictionary refDict = c.refDict;
+		final int flags = c.flags.get(i);
+		final Strand strand = (flags & MappedJannovarDataSerializer.FLAG_REV) != 0 ? Strand.REV : Strand.FWD;
+		final int chr = c.chr.get(i);
+
+		final GenomeInterval txRegion = new GenomeInterval(refDict, strand, chr, c.txBegin.get(i), c.txEnd.get(i));
+		final GenomeInterval cdsRegion = new GenomeInterval(refDict, strand, chr, c.cdsBegin.get(i),
+			c.cdsEnd.get(i));
+		ImmutableList.Builder<GenomeInterval> exons = ImmutableList.builder();
+		for (int j = c.exonOffsets.get(i); j < c.exonOffsets.get(i + 1); ++j)
+			exons.add(new GenomeInterval(refDict, strand, chr, c.exonBegin.get(j), c.exonEnd.get(j)));
+
+		ImmutableMap.Builder<String, String> altGeneIDs = ImmutableMap.builder();
+		for (int j = c.altIDOffsets.get(i); j < c.altIDOffsets.get(i + 1); ++j)
+			altGeneIDs.put(getString(c, c.altIDKey.get(j)), getString(c, c.altIDValue.get(j)));
+
+		final String sequence;
+		if ((flags & MappedJannovarDataSerializer.FLAG_NO_SEQUENCE) != 0)
+			sequence = null;
+		else
+			sequence = buildSequence(i);
+
+		final Alignment alignment;
+		if ((flags & MappedJannovarDataSerializer.FLAG_NO_ALIGNMENT) != 0)
+			alignment = null;
+		else if ((flags & MappedJannovarDataSerializer.FLAG_UNGAPPED) != 0)
+			alignment = Alignment.createUngappedAlignment(sequence.length());
+		else
+			alignment = new Alignment(
+				buildAnchors(c.refAnchorOffsets, c.refAnchorGapPos, c.refAnchorSeqPos, i),
+				buildAnchors(c.qryAnchorOffsets, c.qryAnchorGapPos, c.qryAnchorSeqPos, i));
+
+		return new TranscriptModel(getString(c, c.accession.get(i)), getString(c, c.geneSymbol.get(i)), txRegion,
+			cdsRegion, exons.build(), sequence, getString(c, c.geneID.get(i)), c.tsl.get(i),
+			(flags & MappedJannovarDataSerializer.FLAG_HAS_SUBSTITUTIONS) != 0,
+			(flags & MappedJannovarDataSerializer.FLAG_HAS_INDELS) != 0, altGeneIDs.build(), alignment);
+	}
+
+	/**
+	 * Unpack the 2-bit encoded sequence of transcript <code>i</code> and apply the exceptions.
+	 */
+	private String buildSequence(int i) {
+		final MappedJannovarDataSerializer.Columns c = columns;
+		final long offset = c.seqOffsets.get(i);
+		final char[] result = new char[(int) (c.seqOffsets.get(i + 1) - offset)];
+		for (int j = 0; j < result.length; ++j) {
+			final long pos = offset + j;
+			final int code = (c.seqPacked.get((int) (pos >>> 2)) >>> (6 - 2 * (pos & 3))) & 3;
+			result[j] = "ACGT".charAt(code);
+		}
+		for (int j = c.seqExceptionOffsets.get(i); j < c.seqExceptionOffsets.get(i + 1); ++j)
+			result[c.seqExceptionPos.get(j)] = (char) c.seqExceptionChar.get(j);
+		return new String(result);
+	}
+
+	private static int[] toArray(IntBuffer buf) {
+		return toArray(buf, 0, buf.limit());
+	}
+
+	private static int[] toArray(IntBuffer buf, int from, int to) {
+		final int[] result = new int[to - from];
+		// Use duplicate for thread-safety, relative get() moves the position.
+		final IntBuffer dup = buf.duplicate();
+		dup.position(from);
+		dup.get(result);
+		return result;
+	}
+
+	private static ImmutableList<Anchor> buildAnchors(IntBuffer offsets, IntBuffer gapPos, IntBuffer seqPos, int i) {
+		ImmutableList.Builder<Anchor> builder = ImmutableList.builder();
+		for (int j = offsets.get(i); j < offsets.get(i + 1); ++j)
+			builder.add(new Anchor(gapPos.get(j), seqPos.get(j)));
+		return builder.build();
+	}
+
+	/**
+	 * @return string with the given ID from the string pool, <code>null</code> for <code>-1</code>
+	 */
+	static String getString(MappedJannovarDataSerializer.Columns c, int id) {
+		if (id < 0)
+			return null;
+		final int begin = c.stringOffsets.get(id);
+		final byte[] bytes = new byte[c.stringOffsets.get(id + 1) - begin];
+		// Use duplicate for thread-safety, relative get() moves the position.
+		final ByteBuffer buf = c.stringBytes.duplicate();
+		buf.position(begin);
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @return index of <code>key</code> in sorted <code>buf[from, to)</code> or <code>-1</code>
+	 */
+	private static int binarySearch(IntBuffer buf, int from, int to, int key) {
+		int lo = from, hi = to - 1;
+		while (lo <= hi) {
+			final int mid = (lo + hi) >>> 1;
+			final int value = buf.get(mid);
+			if (value < key)
+				lo = mid + 1;
+			else if (value > key)
+				hi = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,763 @@
+package de.charite.compbio.jannovar.data;
+
+import de.charite.compbio.jannovar.impl.util.StringUtil;
+import de.charite.compbio.jannovar.reference.Alignment;
+import de.charite.compbio.jannovar.reference.Anchor;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Manager for writing and memory-mapping {@link JannovarData} in the flat <code>JVMM</code> format.
+ * <p>
+ * In contrast to {@link JannovarDataSerializer}, no Java object serialization is involved. The transcripts are stored
+ * as flat big-endian columns (coordinates, exon begin/end positions, offsets into a string pool, a 2-bit packed
+ * sequence blob) that are accessed in place through {@link FileChannel#map}. Loading thus only maps the file and
+ * {@link TranscriptModel} objects are only created when accessed through {@link MappedJannovarData}. All JVMs on a
+ * host loading the same file share the same pages in the page cache.
+ * <p>
+ * As the file is mapped into a single buffer, its size is limited to 2 GiB, {@link #save} fails for larger data.
+ * <p>
+ * Conversion between the two formats is lossless, {@link JannovarDataSerializer#load()} also accepts files in this
+ * format.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class MappedJannovarDataSerializer {
+
+	/**
+	 * magic bytes
+	 */
+	final static byte[] MAGIC_BYTES = {'J', 'V', 'M', 'M'};
+
+	/**
+	 * version of the file format, to be incremented on incompatible changes
+	 */
+	final static int FORMAT_VERSION = 2;
+
+	/**
+	 * first version of the file format with the {@link GeneIndex} columns
+	 */
+	final static int FORMAT_VERSION_GENE_INDEX = 2;
+
+	/**
+	 * flag for transcripts on the reverse strand
+	 */
+	final static int FLAG_REV = 1;
+
+	/**
+	 * flag for transcripts aligning with mismatches
+	 */
+	final static int FLAG_HAS_SUBSTITUTIONS = 1 << 1;
+
+	/**
+	 * flag for transcripts aligning with indels
+	 */
+	final static int FLAG_HAS_INDELS = 1 << 2;
+
+	/**
+	 * flag for transcripts with ungapped alignment, no anchors are stored for these
+	 */
+	final static int FLAG_UNGAPPED = 1 << 3;
+
+	/**
+	 * flag for transcripts without a sequence
+	 */
+	final static int FLAG_NO_SEQUENCE = 1 << 4;
+
+	/**
+	 * flag for transcripts without an alignment
+	 */
+	final static int FLAG_NO_ALIGNMENT = 1 << 5;
+
+	/**
+	 * largest supported file size, the file is mapped into a single {@link ByteBuffer} with <code>int</code> offsets
+	 */
+	final static long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+	/**
+	 * the logger object to use
+	 */
+	private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+	/**
+	 * path to file to write to or map from
+	 */
+	private final String filename;
+
+	/**
+	 * Initialize the serializer with the path to the file to load/save.
+	 *
+	 * @param filename path to the file to map from or write to
+	 */
+	public MappedJannovarDataSerializer(String filename) {
+		this.filename = filename;
+	}
+
+	/**
+	 * @param filename path to the file to check
+	 * @return whether or not the file at <code>filename</code> starts with the magic bytes of this format
+	 * @throws IOException on problems reading the file
+	 */
+	public static boolean isMappedFile(String filename) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			if (file.length() < MAGIC_BYTES.length)
+				return false;
+			byte[] word = new byte[MAGIC_BYTES.length];
+			file.readFully(word);
+			return Arrays.equals(word, MAGIC_BYTES);
+		}
+	}
+
+	/**
+	 * Write a {@link JannovarData} object to a file.
+	 *
+	 * @param data the {@link JannovarData} object to write
+	 * @throws SerializationException on problems with writing
+	 */
+	public void save(JannovarData data) throws SerializationException {
+		logger.info(StringUtil.concatenate("Writing memory-mappable JannovarData to ", filename));
+		final long startTime = System.nanoTime();
+
+		if (data == null || data.getRefDict().getContigNameToID().isEmpty())
+			throw new SerializationException("Attempting to serialize empty data set");
+
+		try (DataOutputStream out = new DataOutputStream(
+			new BufferedOutputStream(new FileOutputStream(filename), 1024 * 1024))) {
+			new Writer(data, out).write();
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not write data file: %s", e.toString()));
+		}
+
+		// Fail on writing rather than on each load.
+		final long length = new File(filename).length();
+		if (length > MAX_FILE_SIZE) {
+			new File(filename).delete();
+			throw new SerializationException(tooLargeMessage(length));
+		}
+
+		logger.info(String.format("Writing took %.2f sec.", (System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+	}
+
+	/**
+	 * @return error message for a file of <code>length</code> bytes exceeding {@link #MAX_FILE_SIZE}
+	 */
+	private String tooLargeMessage(long length) {
+		return String.format("%s has %d bytes but the memory-mappable format supports at most %d bytes (2 GiB), keep "
+			+ "this database in the .ser format", filename, length, MAX_FILE_SIZE);
+	}
+
+	/**
+	 * Map the file into memory.
+	 *
+	 * @return {@link MappedJannovarData} giving access to the mapped file
+	 * @throws SerializationException on problems with reading the file or the file not being in this format
+	 */
+	public MappedJannovarData load() throws SerializationException {
+		logger.info(StringUtil.concatenate("Mapping JannovarData from ", filename));
+		final long startTime = System.nanoTime();
+
+		final ByteBuffer buf;
+		try (RandomAccessFile file = new RandomAccessFile(filename, "r")) {
+			if (file.length() > MAX_FILE_SIZE)
+				throw new SerializationException(tooLargeMessage(file.length()));
+			// The mapping stays valid after closing the channel.
+			buf = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+		} catch (IOException e) {
+			throw new SerializationException(String.format("Could not map data file: %s", e.toString()));
+		}
+
+		final MappedJannovarData result;
+		try {
+			result = new MappedJannovarData(new Reader(buf).read());
+		} catch (RuntimeException e) {
+			// Truncated or otherwise broken files lead to BufferUnderflowException and the like.
+			throw new SerializationException(filename + " is not a valid memory-mappable Jannovar database: " + e);
+		}
+
+		logger.info(String.format("Mapping took %.2f sec.", (System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+		return result;
+	}
+
+	/**
+	 * The columns of a mapped file, read-only views into the mapped buffer.
+	 */
+	static final class Columns {
+		/** Jannovar version that wrote the file */
+		String version;
+		/** reference dictionary, fully decoded as it is small */
+		ReferenceDictionary refDict;
+
+		/** string pool: offsets of each string into <code>stringBytes</code>, one more than strings */
+		IntBuffer stringOffsets;
+		/** string pool: UTF-8 encoded strings */
+		ByteBuffer stringBytes;
+
+		/** per-transcript string IDs, <code>-1</code> for <code>null</code> */
+		IntBuffer accession, geneSymbol, geneID;
+		/** per-transcript chromosome, flags, and transcript support level */
+		IntBuffer chr, flags, tsl;
+		/** per-transcript regions, in coordinates of the transcript's strand */
+		IntBuffer txBegin, txEnd, cdsBegin, cdsEnd;
+		/** offsets into the exon columns, one more than transcripts */
+		IntBuffer exonOffsets;
+		/** exon regions, in coordinates of the transcript's strand */
+		IntBuffer exonBegin, exonEnd;
+		/** offsets into the alternative gene ID columns, one more than transcripts */
+		IntBuffer altIDOffsets;
+		/** string IDs of alternative gene ID keys and values */
+		IntBuffer altIDKey, altIDValue;
+		/** offsets into the reference anchor columns, one more than transcripts */
+		IntBuffer refAnchorOffsets;
+		/** reference anchors of gapped alignments */
+		IntBuffer refAnchorGapPos, refAnchorSeqPos;
+		/** offsets into the query anchor columns, one more than transcripts */
+		IntBuffer qryAnchorOffsets;
+		/** query anchors of gapped alignments */
+		IntBuffer qryAnchorGapPos, qryAnchorSeqPos;
+		/** offsets of the transcript sequences in bases, one more than transcripts */
+		LongBuffer seqOffsets;
+		/** 2-bit packed sequences, 4 bases per byte, most significant bits first */
+		ByteBuffer seqPacked;
+		/** offsets into the sequence exception columns, one more than transcripts */
+		IntBuffer seqExceptionOffsets;
+		/** position (in transcript) and character of all non-<code>ACGT</code> characters */
+		IntBuffer seqExceptionPos, seqExceptionChar;
+
+		/** interval index: sorted chromosome IDs */
+		IntBuffer indexChr;
+		/** interval index: offsets of each chromosome's block, one more than chromosomes */
+		IntBuffer indexChrOffsets;
+		/** interval index: transcript number, sorted by chromosome, begin, end */
+		IntBuffer indexTranscript;
+		/** interval index: forward strand begin, end, and maximal end up to this entry within the chromosome */
+		IntBuffer indexBegin, indexEnd, indexMaxEnd;
+
+		/** gene index: string IDs of the gene symbols, <code>null</code> for files without gene index */
+		IntBuffer geneIndexSymbol;
+		/** gene index: chromosome, forward strand begin and end position of each gene */
+		IntBuffer geneIndexChr, geneIndexBegin, geneIndexEnd;
+		/** gene index: offsets into the transcript numbers, one more than genes */
+		IntBuffer geneIndexTranscriptOffsets;
+		/** gene index: numbers of the transcripts of each gene */
+		IntBuffer geneIndexTranscript;
+	}
+
+	/**
+	 * Helper for writing a {@link JannovarData} in the flat format.
+	 * <p>
+	 * Each array is written as its length (<code>int</code>), four bytes of padding, and its big-endian elements. The
+	 * array is followed by zero bytes such that the next array starts on an 8 byte boundary.
+	 */
+	private static final class Writer {
+
+		private final JannovarData data;
+		private final DataOutputStream out;
+		private final List<TranscriptModel> transcripts;
+		private final ArrayList<String> strings = new ArrayList<>();
+		private final HashMap<String, Integer> stringIDs = new HashMap<>();
+
+		Writer(JannovarData data, DataOutputStream out) {
+			this.data = data;
+			this.out = out;
+			this.transcripts = new ArrayList<>(data.getTmByAccession().values());
+		}
+
+		void write() throws IOException, SerializationException {
+			final int n = transcripts.size();
+			final ReferenceDictionary refDict = data.getRefDict();
+
+			// Collect transcript columns, register strings on the fly
+			int[] accession = new int[n], geneSymbol = new int[n], geneID = new int[n];
+			int[] chr = new int[n], flags = new int[n], tsl = new int[n];
+			int[] txBegin = new int[n], txEnd = new int[n], cdsBegin = new int[n], cdsEnd = new int[n];
+			int[] exonOffsets = new int[n + 1], altIDOffsets = new int[n + 1];
+			int[] refAnchorOffsets = new int[n + 1], qryAnchorOffsets = new int[n + 1];
+			int[] seqExceptionOffsets = new int[n + 1];
+			long[] seqOffsets = new long[n + 1];
+			IntList exonBegin = new IntList(), exonEnd = new IntList();
+			IntList altIDKey = new IntList(), altIDValue = new IntList();
+			IntList refAnchorGapPos = new IntList(), refAnchorSeqPos = new IntList();
+			IntList qryAnchorGapPos = new IntList(), qryAnchorSeqPos = new IntList();
+			IntList seqExceptionPos = new IntList(), seqExceptionChar = new IntList();
+
+			for (int i = 0; i < n; ++i) {
+				final TranscriptModel tm = transcripts.get(i);
+				final Strand strand = tm.getStrand();
+				checkStrand(tm, tm.getCDSRegion(), strand);
+
+				accession[i] = stringID(tm.getAccession());
+				geneSymbol[i] = stringID(tm.getGeneSymbol());
+				geneID[i] = stringID(tm.getGeneID());
+				chr[i] = tm.getChr();
+				tsl[i] = tm.getTranscriptSupportLevel();
+				txBegin[i] = tm.getTXRegion().getBeginPos();
+				txEnd[i] = tm.getTXRegion().getEndPos();
+				cdsBegin[i] = tm.getCDSRegion().getBeginPos();
+				cdsEnd[i] = tm.getCDSRegion().getEndPos();
+
+				for (GenomeInterval exon : tm.getExonRegions()) {
+					checkStrand(tm, exon, strand);
+					exonBegin.add(exon.getBeginPos());
+					exonEnd.add(exon.getEndPos());
+				}
+				exonOffsets[i + 1] = exonBegin.size();
+
+				for (Map.Entry<String, String> e : tm.getAltGeneIDs().entrySet()) {
+					altIDKey.add(stringID(e.getKey()));
+					altIDValue.add(stringID(e.getValue()));
+				}
+				altIDOffsets[i + 1] = altIDKey.size();
+
+				int flag = 0;
+				if (strand == Strand.REV)
+					flag |= FLAG_REV;
+				if (tm.isHasSubstitutions())
+					flag |= FLAG_HAS_SUBSTITUTIONS;
+				if (tm.isHasIndels())
+					flag |= FLAG_HAS_INDELS;
+
+				final String seq = tm.getSequence();
+				if (seq == null) {
+					flag |= FLAG_NO_SEQUENCE;
+				} else {
+					for (int j = 0; j < seq.length(); ++j) {
+						if (baseCode(seq.charAt(j)) < 0) {
+							seqExceptionPos.add(j);
+							seqExceptionChar.add(seq.charAt(j));
+						}
+					}
+				}
+				seqOffsets[i + 1] = seqOffsets[i] + (seq == null ? 0 : seq.length());
+				seqExceptionOffsets[i + 1] = seqExceptionPos.size();
+
+				final Alignment alignment = tm.getSeqAlignment();
+				if (alignment == null) {
+					flag |= FLAG_NO_ALIGNMENT;
+				} else if (seq != null && alignment.equals(Alignment.createUngappedAlignment(seq.length()))) {
+					flag |= FLAG_UNGAPPED;
+				} else {
+					for (Anchor anchor : alignment.getRefAnchors()) {
+						refAnchorGapPos.add(anchor.getGapPos());
+						refAnchorSeqPos.add(anchor.getSeqPos());
+					}
+					for (Anchor anchor : alignment.getQryAnchors()) {
+						qryAnchorGapPos.add(anchor.getGapPos());
+						qryAnchorSeqPos.add(anchor.getSeqPos());
+					}
+				}
+				refAnchorOffsets[i + 1] = refAnchorGapPos.size();
+				qryAnchorOffsets[i + 1] = qryAnchorGapPos.size();
+				flags[i] = flag;
+			}
+
+			// Gene symbols are the ones of the transcripts and thus already in the pool
+			final GeneIndex geneIndex = data.getGeneIndex();
+
+			// Reference dictionary strings also go into the pool
+			for (String name : refDict.getContigNameToID().keySet())
+				stringID(name);
+			for (String name : refDict.getContigIDToName().values())
+				stringID(name);
+
+			// Header
+			out.write(MAGIC_BYTES);
+			out.writeInt(FORMAT_VERSION);
+			writeBytes(JannovarDataSerializer.getVersion().getBytes(StandardCharsets.UTF_8));
+
+			// String pool
+			int[] stringOffsets = new int[strings.size() + 1];
+			ByteArrayOutputStream stringBytes = new ByteArrayOutputStream();
+			for (int i = 0; i < strings.size(); ++i) {
+				stringBytes.write(strings.get(i).getBytes(StandardCharsets.UTF_8));
+				stringOffsets[i + 1] = stringBytes.size();
+			}
+			writeInts(stringOffsets);
+			writeBytes(stringBytes.toByteArray());
+
+			// Reference dictionary
+			IntList names = new IntList(), ids = new IntList();
+			for (Map.Entry<String, Integer> e : refDict.getContigNameToID().entrySet()) {
+				names.add(stringID(e.getKey()));
+				ids.add(e.getValue());
+			}
+			writeInts(names.toArray());
+			writeInts(ids.toArray());
+			names = new IntList();
+			ids = new IntList();
+			for (Map.Entry<Integer, String> e : refDict.getContigIDToName().entrySet()) {
+				ids.add(e.getKey());
+				names.add(stringID(e.getValue()));
+			}
+			writeInts(ids.toArray());
+			writeInts(names.toArray());
+			IntList lengths = new IntList();
+			ids = new IntList();
+			for (Map.Entry<Integer, Integer> e : refDict.getContigIDToLength().entrySet()) {
+				ids.add(e.getKey());
+				lengths.add(e.getValue());
+			}
+			writeInts(ids.toArray());
+			writeInts(lengths.toArray());
+
+			// Transcript columns
+			writeInts(accession);
+			writeInts(geneSymbol);
+			writeInts(geneID);
+			writeInts(chr);
+			writeInts(flags);
+			writeInts(tsl);
+			writeInts(txBegin);
+			writeInts(txEnd);
+			writeInts(cdsBegin);
+			writeInts(cdsEnd);
+			writeInts(exonOffsets);
+			writeInts(exonBegin.toArray());
+			writeInts(exonEnd.toArray());
+			writeInts(altIDOffsets);
+			writeInts(altIDKey.toArray());
+			writeInts(altIDValue.toArray());
+			writeInts(refAnchorOffsets);
+			writeInts(refAnchorGapPos.toArray());
+			writeInts(refAnchorSeqPos.toArray());
+			writeInts(qryAnchorOffsets);
+			writeInts(qryAnchorGapPos.toArray());
+			writeInts(qryAnchorSeqPos.toArray());
+			writeLongs(seqOffsets);
+			writeBytes(packSequences(seqOffsets[n]));
+			writeInts(seqExceptionOffsets);
+			writeInts(seqExceptionPos.toArray());
+			writeInts(seqExceptionChar.toArray());
+
+			writeIndex();
+			writeGeneIndex(geneIndex);
+		}
+
+		/**
+		 * Write the {@link GeneIndex} of the transcripts.
+		 */
+		private void writeGeneIndex(GeneIndex geneIndex) throws IOException {
+			final int n = geneIndex.size();
+			int[] symbol = new int[n], chr = new int[n], begin = new int[n], end = new int[n];
+			int[] offsets = new int[n + 1];
+			IntList numbers = new IntList();
+			for (int i = 0; i < n; ++i) {
+				symbol[i] = stringID(geneIndex.getGeneSymbol(i));
+				chr[i] = geneIndex.getChr(i);
+				begin[i] = geneIndex.getBeginPos(i);
+				end[i] = geneIndex.getEndPos(i);
+				for (int j = 0; j < geneIndex.getTranscriptCount(i); ++j)
+					numbers.add(geneIndex.getTranscriptNumber(i, j));
+				offsets[i + 1] = numbers.size();
+			}
+			writeInts(symbol);
+			writeInts(chr);
+			writeInts(begin);
+			writeInts(end);
+			writeInts(offsets);
+			writeInts(numbers.toArray());
+		}
+
+		/**
+		 * Write interval index of the transcripts' forward strand regions, sorted by chromosome, begin, and end.
+		 */
+		private void writeIndex() throws IOException {
+			final int n = transcripts.size();
+			final int[] begin = new int[n], end = new int[n];
+			Integer[] order = new Integer[n];
+			for (int i = 0; i < n; ++i) {
+				GenomeInterval fwd = transcripts.get(i).getTXRegion().withStrand(Strand.FWD);
+				begin[i] = fwd.getBeginPos();
+				end[i] = fwd.getEndPos();
+				order[i] = i;
+			}
+			Arrays.sort(order, Comparator.<Integer>comparingInt(i -> transcripts.get(i).getChr())
+				.thenComparingInt(i -> begin[i]).thenComparingInt(i -> end[i]).thenComparingInt(i -> i));
+
+			TreeMap<Integer, Integer> chrOffsets = new TreeMap<>();
+			int[] sortedTranscript = new int[n], sortedBegin = new int[n], sortedEnd = new int[n];
+			int[] maxEnd = new int[n];
+			for (int k = 0; k < n; ++k) {
+				final int i = order[k];
+				final int chr = transcripts.get(i).getChr();
+				final boolean first = !chrOffsets.containsKey(chr);
+				if (first)
+					chrOffsets.put(chr, k);
+				sortedTranscript[k] = i;
+				sortedBegin[k] = begin[i];
+				sortedEnd[k] = end[i];
+				maxEnd[k] = first ? end[i] : Math.max(maxEnd[k - 1], end[i]);
+			}
+
+			int[] chrs = new int[chrOffsets.size()];
+			int[] offsets = new int[chrOffsets.size() + 1];
+			int j = 0;
+			for (Map.Entry<Integer, Integer> e : chrOffsets.entrySet()) {
+				chrs[j] = e.getKey();
+				offsets[j++] = e.getValue();
+			}
+			offsets[j] = n;
+
+			writeInts(chrs);
+			writeInts(offsets);
+			writeInts(sortedTranscript);
+			writeInts(sortedBegin);
+			writeInts(sortedEnd);
+			writeInts(maxEnd);
+		}
+
+		/**
+		 * @return all transcript sequences as 2-bit packed blob, non-<code>ACGT</code> characters are stored as
+		 * <code>A</code> here and as exceptions separately.
+		 */
+		private byte[] packSequences(long totalLength) throws SerializationException {
+			if ((totalLength + 3) / 4 > Integer.MAX_VALUE)
+				throw new SerializationException("Transcript sequences too long for packing");
+			byte[] result = new byte[(int) ((totalLength + 3) / 4)];
+			long pos = 0;
+			for (TranscriptModel tm : transcripts) {
+				final String seq = tm.getSequence();
+				if (seq == null)
+					continue;
+				for (int j = 0; j < seq.length(); ++j, ++pos) {
+					final int code = Math.max(0, baseCode(seq.charAt(j)));
+					result[(int) (pos >>> 2)] |= code << (6 - 2 * (pos & 3));
+				}
+			}
+			return result;
+		}
+
+		private void checkStrand(TranscriptModel tm, GenomeInterval region, Strand strand)
+			throws SerializationException {
+			if (region.getStrand() != strand)
+				throw new SerializationException("Inconsistent strands in transcript " + tm.getAccession());
+		}
+
+		private int stringID(String s) {
+			if (s == null)
+				return -1;
+			Integer id = stringIDs.get(s);
+			if (id == null) {
+				id = strings.size();
+				strings.add(s);
+				stringIDs.put(s, id);
+			}
+			return id;
+		}
+
+		private void writeInts(int[] arr) throws IOException {
+			out.writeInt(arr.length);
+			out.writeInt(0);
+			for (int x : arr)
+				out.writeInt(x);
+			pad();
+		}
+
+		private void writeLongs(long[] arr) throws IOException {
+			out.writeInt(arr.length);
+			out.writeInt(0);
+			for (long x : arr)
+				out.writeLong(x);
+		}
+
+		private void writeBytes(byte[] arr) throws IOException {
+			out.writeInt(arr.length);
+			out.writeInt(0);
+			out.write(arr);
+			pad();
+		}
+
+		/**
+		 * Pad to 8 byte boundary.
+		 */
+		private void pad() throws IOException {
+			while (out.size() % 8 != 0)
+				out.writeByte(0);
+		}
+
+	}
+
+	/**
+	 * Helper for reading the columns from a mapped buffer, counterpart to {@link Writer}.
+	 */
+	private static final class Reader {
+
+		private final ByteBuffer buf;
+
+		Reader(ByteBuffer buf) {
+			this.buf = buf;
+		}
+
+		Columns read() throws SerializationException {
+			byte[] word = new byte[MAGIC_BYTES.length];
+			buf.get(word);
+			if (!Arrays.equals(word, MAGIC_BYTES))
+				throw new SerializationException("File does not look like a memory-mappable Jannovar database");
+			final int formatVersion = buf.getInt();
+			if (formatVersion < 1 || formatVersion > FORMAT_VERSION)
+				throw new SerializationException("Unsupported file format version " + formatVersion + ", expected "
+					+ "at most " + FORMAT_VERSION);
+
+			Columns c = new Columns();
+			ByteBuffer versionBytes = nextBytes();
+			byte[] version = new byte[versionBytes.remaining()];
+			versionBytes.get(version);
+			c.version = new String(version, StandardCharsets.UTF_8);
+
+			c.stringOffsets = nextInts();
+			c.stringBytes = nextBytes();
+
+			ReferenceDictionaryBuilder builder = new ReferenceDictionaryBuilder();
+			IntBuffer names = nextInts(), ids = nextInts();
+			for (int i = 0; i < names.limit(); ++i)
+				builder.putContigID(MappedJannovarData.getString(c, names.get(i)), ids.get(i));
+			ids = nextInts();
+			names = nextInts();
+			for (int i = 0; i < ids.limit(); ++i)
+				builder.putContigName(ids.get(i), MappedJannovarData.getString(c, names.get(i)));
+			ids = nextInts();
+			IntBuffer lengths = nextInts();
+			for (int i = 0; i < ids.limit(); ++i)
+				builder.putContigLength(ids.get(i), lengths.get(i));
+			c.refDict = builder.build();
+
+			c.accession = nextInts();
+			c.geneSymbol = nextInts();
+			c.geneID = nextInts();
+			c.chr = nextInts();
+			c.flags = nextInts();
+			c.tsl = nextInts();
+			c.txBegin = nextInts();
+			c.txEnd = nextInts();
+			c.cdsBegin = nextInts();
+			c.cdsEnd = nextInts();
+			c.exonOffsets = nextInts();
+			c.exonBegin = nextInts();
+			c.exonEnd = nextInts();
+			c.altIDOffsets = nextInts();
+			c.altIDKey = nextInts();
+			c.altIDValue = nextInts();
+			c.refAnchorOffsets = nextInts();
+			c.refAnchorGapPos = nextInts();
+			c.refAnchorSeqPos = nextInts();
+			c.qryAnchorOffsets = nextInts();
+			c.qryAnchorGapPos = nextInts();
+			c.qryAnchorSeqPos = nextInts();
+			c.seqOffsets = nextLongs();
+			c.seqPacked = nextBytes();
+			c.seqExceptionOffsets = nextInts();
+			c.seqExceptionPos = nextInts();
+			c.seqExceptionChar = nextInts();
+
+			c.indexChr = nextInts();
+			c.indexChrOffsets = nextInts();
+			c.indexTranscript = nextInts();
+			c.indexBegin = nextInts();
+			c.indexEnd = nextInts();
+			c.indexMaxEnd = nextInts();
+
+			if (formatVersion >= FORMAT_VERSION_GENE_INDEX) {
+				c.geneIndexSymbol = nextInts();
+				c.geneIndexChr = nextInts();
+				c.geneIndexBegin = nextInts();
+				c.geneIndexEnd = nextInts();
+				c.geneIndexTranscriptOffsets = nextInts();
+				c.geneIndexTranscript = nextInts();
+			}
+			return c;
+		}
+
+		private ByteBuffer nextSlice(int byteCount) {
+			ByteBuffer slice = buf.slice();
+			slice.limit(byteCount);
+			buf.position(buf.position() + byteCount);
+			while (buf.position() % 8 != 0)
+				buf.get();
+			return slice;
+		}
+
+		private IntBuffer nextInts() {
+			final int count = buf.getInt();
+			buf.getInt();
+			return nextSlice(4 * count).asIntBuffer();
+		}
+
+		private LongBuffer nextLongs() {
+			final int count = buf.getInt();
+			buf.getInt();
+			return nextSlice(8 * count).asLongBuffer();
+		}
+
+		private ByteBuffer nextBytes() {
+			final int count = buf.getInt();
+			buf.getInt();
+			return nextSlice(count);
+		}
+
+	}
+
+	/**
+	 * @return 2-bit code of <code>c</code> or <code>-1</code> if not one of <code>ACGT</code>
+	 */
+	static int baseCode(char c) {
+		switch (c) {
+			case 'A':
+				return 0;
+			case 'C':
+				return 1;
+			case 'G':
+				return 2;
+			case 'T':
+				return 3;
+			default:
+				return -1;
+		}
+	}
+
+	/**
+	 * Minimal growable <code>int</code> array, avoids boxing for the large coordinate columns.
+	 */
+	private static final class IntList {
+		private int[] data = new int[1024];
+		private int size = 0;
+
+		void add(int x) {
+			if (size == data.length)
+				data = Arrays.copyOf(data, 2 * data.length);
+			data[size++] = x;
+		}
+
+		int size() {
+			return size;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(data, size);
+		}
+	}
+
+}
@@ -0,0 +1,321 @@
+package de.charite.compbio.jannovar.data;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptSupportLevels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+// NOTE(holtgrem): Part of the public interface of the Jannovar library.
+
+/**
+ * Selection of the transcripts to keep when loading a transcript database.
+ * <p>
+ * The criteria are combined with "and", empty sets do not restrict the selection:
+ *
+ * <ul>
+ * <li>gene identifiers: keep transcripts whose gene symbol, gene ID, alternative gene ID, or accession is in the
+ * set</li>
+ * <li>contig names: keep transcripts on the given contigs, names are resolved with the {@link ReferenceDictionary}
+ * and may thus also be aliases</li>
+ * <li>coding only: keep only coding transcripts</li>
+ * <li>canonical only: of the transcripts passing the criteria above, keep one transcript per gene symbol and contig
+ * (such that genes in the pseudoautosomal regions or on alternative contigs keep one copy each), the one with the
+ * best transcript support level (see {@link TranscriptSupportLevels}; e.g., the UCSC canonical or the longest
+ * transcript for RefSeq and UCSC), using the longer transcript as tie breaker</li>
+ * </ul>
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class TranscriptFilter {
+
+	/**
+	 * the logger object to use
+	 */
+	private static final Logger LOGGER = LoggerFactory.getLogger(TranscriptFilter.class);
+
+	/**
+	 * Filter that keeps all transcripts
+	 */
+	public static final TranscriptFilter ALL = new TranscriptFilter(ImmutableSet.of(), ImmutableSet.of(), false,
+		false);
+
+	/**
+	 * gene symbols, gene IDs, and accessions to keep, empty for all
+	 */
+	private final ImmutableSet<String> geneIdentifiers;
+
+	/**
+	 * names of the contigs to keep, empty for all
+	 */
+	private final ImmutableSet<String> contigNames;
+
+	/**
+	 * whether to keep only coding transcripts
+	 */
+	private final boolean codingOnly;
+
+	/**
+	 * whether to keep only the transcript with the best support level of each gene
+	 */
+	private final boolean canonicalOnly;
+
+	/**
+	 * Initialize the filter.
+	 *
+	 * @param geneIdentifiers gene symbols, gene IDs, and transcript accessions to keep, empty for all
+	 * @param contigNames     names of the contigs to keep, empty for all
+	 * @param codingOnly      whether to keep only coding transcripts
+	 * @param canonicalOnly   whether to keep only the transcript with the best support level of each gene
+	 */
+	public TranscriptFilter(Collection<String> geneIdentifiers, Collection<String> contigNames, boolean codingOnly,
+							boolean canonicalOnly) {
+		this.geneIdentifiers = ImmutableSet.copyOf(geneIdentifiers);
+		this.contigNames = ImmutableSet.copyOf(contigNames);
+		this.codingOnly = codingOnly;
+		this.canonicalOnly = canonicalOnly;
+	}
+
+	/**
+	 * @return gene symbols, gene IDs, and transcript accessions to keep, empty for all
+	 */
+	public ImmutableSet<String> getGeneIdentifiers() {
+		return geneIdentifiers;
+	}
+
+	/**
+	 * @return names of the contigs to keep, empty for all
+	 */
+	public ImmutableSet<String> getContigNames() {
+		return contigNames;
+	}
+
+	/**
+	 * @return whether to keep only coding transcripts
+	 */
+	public boolean isCodingOnly() {
+		return codingOnly;
+	}
+
+	/**
+	 * @return whether to keep only the transcript with the best support level of each gene
+	 */
+	public boolean isCanonicalOnly() {
+		return canonicalOnly;
+	}
+
+	/**
+	 * @return <code>true</code> if the filter keeps all transcripts
+	 */
+	public boolean isAcceptAll() {
+		return geneIdentifiers.isEmpty() && contigNames.isEmpty() && !codingOnly && !canonicalOnly;
+	}
+
+	/**
+	 * Build a {@link JannovarData} with the transcripts from <code>data</code> that pass the filter.
+	 *
+	 * @param data the {@link JannovarData} to filter
+	 * @return <code>data</code> if the filter keeps all transcripts, otherwise a new {@link JannovarData} with the
+	 * {@link Chromosome}s built from the kept transcripts only
+	 */
+	public JannovarData apply(JannovarData data) {
+		if (isAcceptAll())
+			return data;
+		final ImmutableList<TranscriptModel> transcripts = data.getTmByAccession().values().asList();
+		final BitSet selected = select(data.getRefDict(), new Records() {
+			@Override
+			public int size() {
+				return transcripts.size();
+			}
+
+			@Override
+			public int getChr(int i) {
+				return transcripts.get(i).getChr();
+			}
+
+			@Override
+			public boolean isCoding(int i) {
+				return transcripts.get(i).isCoding();
+			}
+
+			@Override
+			public int getTranscriptSupportLevel(int i) {
+				return transcripts.get(i).getTranscriptSupportLevel();
+			}
+
+			@Override
+			public int getTXLength(int i) {
+				return transcripts.get(i).getTXRegion().length();
+			}
+
+			@Override
+			public String getGeneSymbol(int i) {
+				return transcripts.get(i).getGeneSymbol();
+			}
+
+			@Override
+			public boolean matchesGeneIdentifier(int i, ImmutableSet<String> identifiers) {
+				final TranscriptModel tm = transcripts.get(i);
+				return identifiers.contains(tm.getAccession()) || identifiers.contains(tm.getGeneSymbol()) ||
+					identifiers.contains(tm.getGeneID()) ||
+					tm.getAltGeneIDs().values().stream().anyMatch(identifiers::contains);
+			}
+		});
+
+		ImmutableList.Builder<TranscriptModel> builder = ImmutableList.builder();
+		for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1))
+			builder.add(transcripts.get(i));
+		return new JannovarData(data.getRefDict(), builder.build());
+	}
+
+	/**
+	 * Column-wise access to the properties of the transcripts that the filter looks at, such that transcripts need
+	 * not be built before the selection.
+	 */
+	interface Records {
+
+		/**
+		 * @return number of transcripts
+		 */
+		int size();
+
+		/**
+		 * @return numeric chromosome ID of transcript <code>i</code>
+		 */
+		int getChr(int i);
+
+		/**
+		 * @return whether transcript <code>i</code> is coding
+		 */
+		boolean isCoding(int i);
+
+		/**
+		 * @return transcript support level of transcript <code>i</code>
+		 */
+		int getTranscriptSupportLevel(int i);
+
+		/**
+		 * @return length of the transcribed region of transcript <code>i</code> on the genome
+		 */
+		int getTXLength(int i);
+
+		/**
+		 * @return gene symbol of transcript <code>i</code>, may be <code>null</code>
+		 */
+		String getGeneSymbol(int i);
+
+		/**
+		 * @return whether the accession, gene symbol, gene ID, or an alternative gene ID of transcript <code>i</code>
+		 * is in <code>identifiers</code>
+		 */
+		boolean matchesGeneIdentifier(int i, ImmutableSet<String> identifiers);
+
+	}
+
+	/**
+	 * Select the transcripts passing the filter.
+	 *
+	 * @param refDict {@link ReferenceDictionary} for resolving contig names
+	 * @param records the transcripts to select from
+	 * @return the 0-based numbers of the selected transcripts
+	 */
+	BitSet select(ReferenceDictionary refDict, Records records) {
+		final HashSet<Integer> chrIDs = new HashSet<>();
+		for (String name : contigNames) {
+			final Integer chrID = refDict.getContigNameToID().get(name);
+			if (chrID == null)
+				LOGGER.warn("Contig {} is not in the reference dictionary, ignoring", name);
+			else
+				chrIDs.add(chrID);
+		}
+		if (!contigNames.isEmpty() && chrIDs.isEmpty())
+			return new BitSet();
+
+		final BitSet result = new BitSet(records.size());
+		// best transcript for each contig and gene symbol, when selecting the canonical transcripts
+		final HashMap<Integer, HashMap<String, Integer>> bestOfGene = new HashMap<>();
+		for (int i = 0; i < records.size(); ++i) {
+			// cheap criteria first, they do not decode strings from mapped files
+			if (!chrIDs.isEmpty() && !chrIDs.contains(records.getChr(i)))
+				continue;
+			if (codingOnly && !records.isCoding(i))
+				continue;
+			if (!geneIdentifiers.isEmpty() && !records.matchesGeneIdentifier(i, geneIdentifiers))
+				continue;
+			if (!canonicalOnly) {
+				result.set(i);
+				continue;
+			}
+
+			final String geneSymbol = records.getGeneSymbol(i);
+			if (geneSymbol == null) {
+				// no gene to select for, keep
+				result.set(i);
+				continue;
+			}
+			final HashMap<String, Integer> bestOfContig =
+				bestOfGene.computeIfAbsent(records.getChr(i), chr -> new HashMap<>());
+			final Integer best = bestOfContig.get(geneSymbol);
+			if (best == null || isBetter(records, i, best))
+				bestOfContig.put(geneSymbol, i);
+		}
+		for (HashMap<String, Integer> bestOfContig : bestOfGene.values())
+			for (int i : bestOfContig.values())
+				result.set(i);
+
+		LOGGER.info("Transcript filter keeps {} of {} transcripts", result.cardinality(), records.size());
+		return result;
+	}
+
+	/**
+	 * @return whether transcript <code>i</code> is a better canonical transcript than transcript <code>j</code>
+	 */
+	private static boolean isBetter(Records records, int i, int j) {
+		final int levelI = supportLevelRank(records.getTranscriptSupportLevel(i));
+		final int levelJ = supportLevelRank(records.getTranscriptSupportLevel(j));
+		if (levelI != levelJ)
+			return levelI < levelJ;
+		return records.getTXLength(i) > records.getTXLength(j);
+	}
+
+	/**
+	 * @return rank of transcript support level, smaller is better, {@link TranscriptSupportLevels#NOT_AVAILABLE} last
+	 */
+	private static int supportLevelRank(int level) {
+		return (level == TranscriptSupportLevels.NOT_AVAILABLE) ? Integer.MAX_VALUE : level;
+	}
+
+	/**
+	 * Parse a gene list with one identifier per line, the first white-space separated field of each line is used,
+	 * empty lines and lines starting with <code>#</code> are ignored.
+	 *
+	 * @param lines the lines of the gene list
+	 * @return the identifiers from <code>lines</code>
+	 */
+	public static ImmutableSet<String> parseGeneList(List<String> lines) {
+		ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+		for (String line : lines) {
+			final String trimmed = line.trim();
+			if (trimmed.isEmpty() || trimmed.startsWith("#"))
+				continue;
+			builder.add(trimmed.split("\\s+")[0]);
+		}
+		return builder.build();
+	}
+
+	@Override
+	public String toString() {
+		return "TranscriptFilter [geneIdentifiers=" + geneIdentifiers + ", contigNames=" + contigNames
+			+ ", codingOnly=" + codingOnly + ", canonicalOnly=" + canonicalOnly + "]";
+	}
+
+}
@@ -29,10 +29,16 @@ public class DatasourceOptions {
 	 */
 	private boolean printProgressBars = false;
 
+	/**
+	 * number of threads for parsing the downloaded files
+	 */
+	private int threads = 1;
+
 	/**
 	 * Initialize with default settings.
 	 * <p>
-	 * Proxy URLs are set to <code>null</code>, {@link #printProgressBars} is set to <code>false</code>.
+	 * Proxy URLs are set to <code>null</code>, {@link #printProgressBars} is set to <code>false</code>, and
+	 * {@link #threads} to <code>1</code>.
 	 */
 	public DatasourceOptions() {
 	}
@@ -100,4 +106,20 @@ public class DatasourceOptions {
 		this.printProgressBars = printProgressBars;
 	}
 
+	/**
+	 * @return number of threads for parsing the downloaded files
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set number of threads for parsing the downloaded files, <code>1</code> for parsing on the calling thread
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Number of threads must be positive but was " + threads);
+		this.threads = threads;
+	}
+
 }
@@ -8,6 +8,7 @@ import de.charite.compbio.jannovar.reference.TranscriptModel;
 import org.ini4j.Profile.Section;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * {@link JannovarDataFactory} for flat BED files.
@@ -32,7 +33,7 @@ public class FlatBEDJannovarDataFactory extends JannovarDataFactory {
 
 	@Override
 	protected ImmutableList<TranscriptModel> parseTranscripts(ReferenceDictionary refDict, String targetDir,
-															  List<String> geneIdentifiers) throws TranscriptParseException {
+															  List<String> geneIdentifiers, ForkJoinPool pool) throws TranscriptParseException {
 		return new FlatBEDParser(refDict, targetDir, iniSection, options.doPrintProgressBars()).run();
 	}
 
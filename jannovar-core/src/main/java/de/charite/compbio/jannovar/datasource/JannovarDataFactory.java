@@ -13,9 +13,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -57,6 +61,11 @@ public abstract class JannovarDataFactory {
 	}
 
 	/**
+	 * Download the files and build the {@link JannovarData} from them.
+	 * <p>
+	 * With more than one thread in {@link #options}, the files are parsed on a {@link ForkJoinPool} with this many
+	 * threads, the result is the same. The time and peak heap usage of building are logged at the end.
+	 *
 	 * @param downloadDir       path of directory to download files to
 	 * @param printProgressBars whether or not to print progress bars
 	 * @param geneIdentifiers   List of gene identifiers to limit to
@@ -92,6 +101,8 @@ public abstract class JannovarDataFactory {
 		}
 
 		// Parse files for building ReferenceDictionary objects.
+		final long startTime = System.nanoTime();
+		resetPeakHeapUsage();
 		LOGGER.info("Building ReferenceDictionary...");
 		final String chromInfoPath = PathUtil.join(downloadDir, dataSource.getName(),
 			dataSource.getFileName("chromInfo"));
@@ -103,9 +114,40 @@ public abstract class JannovarDataFactory {
 
 		// Parse transcript files.
 		LOGGER.info("Parsing transcripts...");
-		ImmutableList<TranscriptModel> transcripts = parseTranscripts(refDict, targetDir, geneIdentifiers);
+		final ForkJoinPool pool = (options.getThreads() > 1) ? new ForkJoinPool(options.getThreads()) : null;
+		final JannovarData result;
+		try {
+			ImmutableList<TranscriptModel> transcripts = parseTranscripts(refDict, targetDir, geneIdentifiers, pool);
+			result = new JannovarData(refDict, transcripts);
+		} finally {
+			if (pool != null)
+				pool.shutdownNow();
+		}
 
-		return new JannovarData(refDict, transcripts);
+		LOGGER.info("Built database with {} transcripts in {} s using {} thread(s), peak heap usage {} MB",
+			result.getTmByAccession().size(), String.format("%.1f", (System.nanoTime() - startTime) * 1e-9),
+			options.getThreads(), getPeakHeapUsage() / (1024 * 1024));
+		return result;
+	}
+
+	/**
+	 * Reset the peak usage of the heap memory pools, such that {@link #getPeakHeapUsage()} reports the peak from now on.
+	 */
+	private static void resetPeakHeapUsage() {
+		for (MemoryPoolMXBean bean : ManagementFactory.getMemoryPoolMXBeans())
+			if (bean.getType() == MemoryType.HEAP && bean.isValid())
+				bean.resetPeakUsage();
+	}
+
+	/**
+	 * @return sum of the peak usage of the heap memory pools in bytes, an upper bound of the peak heap usage
+	 */
+	private static long getPeakHeapUsage() {
+		long result = 0;
+		for (MemoryPoolMXBean bean : ManagementFactory.getMemoryPoolMXBeans())
+			if (bean.getType() == MemoryType.HEAP && bean.isValid())
+				result += bean.getPeakUsage().getUsed();
+		return result;
 	}
 
 	/**
@@ -165,11 +207,14 @@ public abstract class JannovarDataFactory {
 	 * @param refDict         {@link ReferenceDictionary} to use
 	 * @param targetDir       path where the downloaded files are
 	 * @param geneIdentifiers List of gene identifiers to extract data for
+	 * @param pool            {@link ForkJoinPool} for parsing the files, <code>null</code> for parsing them on the
+	 *                        calling thread
 	 * @return list of {@link TranscriptModel} objects that are parsed from the files in
 	 * <code>targetDir</code>
 	 * @throws TranscriptParseException on problems with parsing the transcript database
 	 */
 	protected abstract ImmutableList<TranscriptModel> parseTranscripts(ReferenceDictionary refDict, String targetDir,
-																	   List<String> geneIdentifiers) throws TranscriptParseException;
+																	   List<String> geneIdentifiers, ForkJoinPool pool)
+		throws TranscriptParseException;
 
 }
@@ -8,6 +8,7 @@ import de.charite.compbio.jannovar.reference.TranscriptModel;
 import org.ini4j.Profile.Section;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 // TODO(holtgrem): Report longest transcript as primary one for RefSeq.
 
@@ -31,9 +32,9 @@ final class RefSeqJannovarDataFactory extends JannovarDataFactory {
 
 	@Override
 	protected ImmutableList<TranscriptModel> parseTranscripts(ReferenceDictionary refDict, String targetDir,
-															  List<String> geneIdentifiers)
+															  List<String> geneIdentifiers, ForkJoinPool pool)
 		throws TranscriptParseException {
-		return new RefSeqParser(refDict, targetDir, geneIdentifiers, iniSection).run();
+		return new RefSeqParser(refDict, targetDir, geneIdentifiers, iniSection, pool).run();
 	}
 
 }
@@ -8,6 +8,7 @@ import de.charite.compbio.jannovar.reference.TranscriptModel;
 import org.ini4j.Profile.Section;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Creation of {@link JannovarData} objects from a {@link UCSCDataSource}.
@@ -29,8 +30,8 @@ final class UCSCJannovarDataFactory extends JannovarDataFactory {
 
 	@Override
 	protected ImmutableList<TranscriptModel> parseTranscripts(ReferenceDictionary refDict, String targetDir,
-															  List<String> geneIdentifiers) throws TranscriptParseException {
-		return new UCSCParser(refDict, targetDir, geneIdentifiers, iniSection).run();
+															  List<String> geneIdentifiers, ForkJoinPool pool) throws TranscriptParseException {
+		return new UCSCParser(refDict, targetDir, geneIdentifiers, iniSection, pool).run();
 	}
 
 }
@@ -0,0 +1,303 @@
+package de.charite.compbio.jannovar.impl.intervals;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Immutable interval tree over primitive arrays, drop-in replacement for the queries of {@link IntervalArray}.
+ * <p>
+ * The intervals are stored as parallel <code>int</code> arrays sorted by <code>(begin, end)</code>, using the same
+ * implicit tree layout and <code>maxEnd</code> pruning as {@link IntervalArray}. Query results are appended to a
+ * caller-supplied {@link List} in the same order as returned by {@link IntervalArray}, and the queries themselves do
+ * not allocate any objects. Thus, callers can reuse a buffer list over many queries.
+ * <p>
+ * The values can also be loaded on access by their number, e.g., from a memory-mapped file (see
+ * {@link #IntervalIndex(int[], int[], int[], IntFunction)}). Such an index is serialized with all values loaded.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class IntervalIndex<T> implements Serializable {
+
+	/**
+	 * version number to use when serializing
+	 */
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * begin positions, sorted by <code>(begin, end)</code>
+	 */
+	private final int[] begin;
+
+	/**
+	 * end positions, in the order of {@link #begin}
+	 */
+	private final int[] end;
+
+	/**
+	 * largest end position in the implicit subtree rooted at each entry
+	 */
+	private final int[] maxEnd;
+
+	/**
+	 * values, in the order of {@link #begin}, <code>null</code> if loaded by {@link #valueLoader}
+	 */
+	private final Object[] values;
+
+	/**
+	 * numbers of the values for {@link #valueLoader}, in the order of {@link #begin}, <code>null</code> if the
+	 * values are stored in {@link #values}
+	 */
+	private final int[] valueNumbers;
+
+	/**
+	 * loads values by their number, <code>null</code> if the values are stored in {@link #values}
+	 */
+	private final transient IntFunction<? extends T> valueLoader;
+
+	/**
+	 * end positions, sorted by <code>(end, begin)</code>
+	 */
+	private final int[] endSorted;
+
+	/**
+	 * index into {@link #begin} for each entry of {@link #endSorted}
+	 */
+	private final int[] endSortedIdx;
+
+	/**
+	 * Construct object with the given values.
+	 *
+	 * @param elements  the values to store
+	 * @param extractor for obtaining begin and end positions of the values
+	 */
+	public IntervalIndex(Collection<T> elements, IntervalEndExtractor<T> extractor) {
+		this(elements.toArray(), extractor);
+	}
+
+	@SuppressWarnings("unchecked")
+	private IntervalIndex(Object[] tmpValues, IntervalEndExtractor<T> extractor) {
+		this(getPositions(tmpValues, x -> extractor.getBegin((T) x)), getPositions(tmpValues, x -> extractor.getEnd((T) x)),
+			tmpValues, null, null);
+	}
+
+	/**
+	 * Construct object with values that are loaded on access.
+	 *
+	 * @param begin       begin positions of the intervals
+	 * @param end         end positions of the intervals
+	 * @param numbers     numbers of the intervals' values to pass to <code>valueLoader</code>
+	 * @param valueLoader loads a value by its number on each access, must be thread-safe for concurrent queries
+	 */
+	public IntervalIndex(int[] begin, int[] end, int[] numbers, IntFunction<? extends T> valueLoader) {
+		this(begin, end, null, numbers, valueLoader);
+	}
+
+	private IntervalIndex(int[] tmpBegin, int[] tmpEnd, Object[] tmpValues, int[] tmpNumbers,
+						  IntFunction<? extends T> valueLoader) {
+		final int n = tmpBegin.length;
+
+		// Sort stably by (begin, end), as Collections.sort() does for IntervalArray.
+		final Integer[] order = new Integer[n];
+		for (int i = 0; i < n; ++i)
+			order[i] = i;
+		Arrays.sort(order, Comparator.<Integer>comparingInt(x -> tmpBegin[x]).thenComparingInt(x -> tmpEnd[x]));
+
+		this.begin = new int[n];
+		this.end = new int[n];
+		this.maxEnd = new int[n];
+		this.values = (tmpValues == null) ? null : new Object[n];
+		this.valueNumbers = (tmpNumbers == null) ? null : new int[n];
+		this.valueLoader = valueLoader;
+		for (int i = 0; i < n; ++i) {
+			begin[i] = tmpBegin[order[i]];
+			end[i] = tmpEnd[order[i]];
+			maxEnd[i] = end[i];
+			if (values != null)
+				values[i] = tmpValues[order[i]];
+			else
+				valueNumbers[i] = tmpNumbers[order[i]];
+		}
+		computeMaxEnd(0, n);
+
+		// Sort stably by (end, begin) for the left neighbor search.
+		final Integer[] endOrder = new Integer[n];
+		for (int i = 0; i < n; ++i)
+			endOrder[i] = i;
+		Arrays.sort(endOrder, Comparator.<Integer>comparingInt(x -> end[x]).thenComparingInt(x -> begin[x]));
+		this.endSorted = new int[n];
+		this.endSortedIdx = new int[n];
+		for (int i = 0; i < n; ++i) {
+			endSorted[i] = end[endOrder[i]];
+			endSortedIdx[i] = endOrder[i];
+		}
+	}
+
+	/**
+	 * Copy of <code>other</code> with all values loaded, the position arrays are shared.
+	 */
+	private IntervalIndex(IntervalIndex<T> other) {
+		this.begin = other.begin;
+		this.end = other.end;
+		this.maxEnd = other.maxEnd;
+		this.endSorted = other.endSorted;
+		this.endSortedIdx = other.endSortedIdx;
+		this.values = new Object[other.size()];
+		for (int i = 0; i < values.length; ++i)
+			values[i] = other.getValue(i);
+		this.valueNumbers = null;
+		this.valueLoader = null;
+	}
+
+	private static int[] getPositions(Object[] values, ToIntFunction<Object> extractor) {
+		final int[] result = new int[values.length];
+		for (int i = 0; i < values.length; ++i)
+			result[i] = extractor.applyAsInt(values[i]);
+		return result;
+	}
+
+	/**
+	 * @return the number of elements in the tree
+	 */
+	public int size() {
+		return begin.length;
+	}
+
+	/**
+	 * @param i index of the entry, entries are sorted by <code>(begin, end)</code>
+	 * @return value of the entry
+	 */
+	@SuppressWarnings("unchecked")
+	public T getValue(int i) {
+		if (values != null)
+			return (T) values[i];
+		else
+			return valueLoader.apply(valueNumbers[i]);
+	}
+
+	/**
+	 * @param i index of the entry, entries are sorted by <code>(begin, end)</code>
+	 * @return begin position of the entry
+	 */
+	public int getBegin(int i) {
+		return begin[i];
+	}
+
+	/**
+	 * @param i index of the entry, entries are sorted by <code>(begin, end)</code>
+	 * @return end position of the entry
+	 */
+	public int getEnd(int i) {
+		return end[i];
+	}
+
+	/**
+	 * Append all values with intervals overlapping with <code>point</code> to <code>result</code>.
+	 *
+	 * @param point  zero-based point for the query
+	 * @param result list to append the values to, sorted by <code>(begin, end)</code>
+	 * @return number of appended values
+	 */
+	public int findOverlappingWithPoint(int point, List<? super T> result) {
+		return findOverlappingWithInterval(0, begin.length, begin.length / 2, point, point + 1, result);
+	}
+
+	/**
+	 * Append all values with intervals overlapping with <code>[begin, end)</code> to <code>result</code>.
+	 *
+	 * @param begin  zero-based begin position of the query interval
+	 * @param end    zero-based end position of the query interval
+	 * @param result list to append the values to, sorted by <code>(begin, end)</code>
+	 * @return number of appended values
+	 */
+	public int findOverlappingWithInterval(int begin, int end, List<? super T> result) {
+		return findOverlappingWithInterval(0, this.begin.length, this.begin.length / 2, begin, end, result);
+	}
+
+	/**
+	 * @return value of the interval ending closest left of (or at) <code>point</code>, or <code>null</code>
+	 */
+	public T findLeftNeighbor(int point) {
+		int idx = Arrays.binarySearch(endSorted, point);
+		if (idx >= 0)
+			idx += 1;
+		else
+			idx = -(idx + 1); // convert to insertion point
+
+		if (idx == 0)
+			return null;
+		else
+			return getValue(endSortedIdx[idx - 1]);
+	}
+
+	/**
+	 * @return value of the interval starting closest right of <code>point</code>, or <code>null</code>
+	 */
+	public T findRightNeighbor(int point) {
+		int idx = Arrays.binarySearch(begin, point);
+		if (idx < 0)
+			idx = -(idx + 1); // convert to insertion point
+
+		if (idx == begin.length)
+			return null;
+		else
+			return getValue(idx);
+	}
+
+	/**
+	 * In-order traversal of the implicit tree with pruning using {@link #maxEnd}, see {@link IntervalArray}.
+	 */
+	private int findOverlappingWithInterval(int lo, int hi, int center, int iBegin, int iEnd,
+											List<? super T> result) {
+		if (lo >= hi) // handle base case of empty interval
+			return 0;
+
+		if (maxEnd[center] <= iBegin) // iBegin is right of the rightmost point of any interval in this node
+			return 0;
+
+		int count = 0;
+		if (lo < center) // recurse left
+			count += findOverlappingWithInterval(lo, center, lo + (center - lo) / 2, iBegin, iEnd, result);
+
+		if (iBegin < end[center] && begin[center] < iEnd) { // check this node
+			result.add(getValue(center));
+			count += 1;
+		}
+
+		if (iEnd <= begin[center]) // query ends left of this node, can't go to the right
+			return count;
+
+		if (center + 1 < hi) // recurse right
+			count += findOverlappingWithInterval(center + 1, hi, (center + 1) + (hi - (center + 1)) / 2, iBegin,
+				iEnd, result);
+		return count;
+	}
+
+	/**
+	 * @return this index, or a copy with all values loaded if they are loaded on access
+	 */
+	private Object writeReplace() throws ObjectStreamException {
+		return (values != null) ? this : new IntervalIndex<>(this);
+	}
+
+	/**
+	 * Compute {@link #maxEnd} for the implicit subtree of <code>[lo, hi)</code>.
+	 */
+	private int computeMaxEnd(int lo, int hi) {
+		if (lo == hi)
+			return -1;
+
+		final int center = (lo + hi) / 2;
+		if (lo + 1 == hi)
+			return maxEnd[center];
+
+		maxEnd[center] = Math.max(maxEnd[center], Math.max(computeMaxEnd(lo, center), computeMaxEnd(center + 1, hi)));
+		return maxEnd[center];
+	}
+
+}
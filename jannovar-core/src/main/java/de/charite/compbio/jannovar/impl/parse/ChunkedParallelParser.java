@@ -0,0 +1,201 @@
+package de.charite.compbio.jannovar.impl.parse;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * Parse chunks of raw items (e.g., lines) on a {@link ForkJoinPool} and return the results in input order.
+ * <p>
+ * The raw items are read on the calling thread and collected into chunks of <code>chunkSize</code> items, up to
+ * <code>maxPendingChunks</code> chunks are parsed ahead of the consumer. Thus, reading (and decompressing) the input,
+ * parsing it, and consuming the results overlap, while the consumer sees the results in the same order as when
+ * parsing sequentially.
+ * <p>
+ * The parse function must be thread-safe, <code>null</code> results are skipped. Unchecked exceptions thrown by the
+ * parse function are rethrown from {@link #next()}, the chunks parsed ahead are then discarded.
+ * <p>
+ * This class is state-ful and not thread safe.
+ *
+ * @param <S> type of the raw items
+ * @param <T> type of the parsed items
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class ChunkedParallelParser<S, T> {
+
+	/**
+	 * Default number of raw items per chunk
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+	/**
+	 * Source of raw items
+	 */
+	public interface Source<S> {
+
+		/**
+		 * @return next raw item or <code>null</code> at the end of the input
+		 * @throws IOException on problems with reading the input
+		 */
+		S next() throws IOException;
+
+	}
+
+	/**
+	 * Pool to parse the chunks on
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Source to read the raw items from
+	 */
+	private final Source<S> source;
+
+	/**
+	 * Function for parsing one raw item
+	 */
+	private final Function<S, T> parseFun;
+
+	/**
+	 * Number of raw items per chunk
+	 */
+	private final int chunkSize;
+
+	/**
+	 * Maximal number of chunks submitted but not yet consumed
+	 */
+	private final int maxPendingChunks;
+
+	/**
+	 * Chunks submitted to {@link #pool}, in input order
+	 */
+	private final ArrayDeque<CompletableFuture<List<T>>> pending = new ArrayDeque<>();
+
+	/**
+	 * Parsed chunk currently consumed
+	 */
+	private List<T> current = new ArrayList<>();
+
+	/**
+	 * Position of the next item in {@link #current}
+	 */
+	private int pos = 0;
+
+	/**
+	 * Whether or not {@link #source} is at its end
+	 */
+	private boolean exhausted = false;
+
+	/**
+	 * Construct parser with {@link #DEFAULT_CHUNK_SIZE} and twice as many pending chunks as the pool has threads.
+	 *
+	 * @param pool     {@link ForkJoinPool} to parse the chunks on
+	 * @param source   {@link Source} of raw items
+	 * @param parseFun thread-safe function for parsing a raw item, may return <code>null</code> for skipping it
+	 */
+	public ChunkedParallelParser(ForkJoinPool pool, Source<S> source, Function<S, T> parseFun) {
+		this(pool, source, parseFun, DEFAULT_CHUNK_SIZE, 2 * pool.getParallelism());
+	}
+
+	/**
+	 * Construct parser
+	 *
+	 * @param pool             {@link ForkJoinPool} to parse the chunks on
+	 * @param source           {@link Source} of raw items
+	 * @param parseFun         thread-safe function for parsing a raw item, may return <code>null</code> for skipping it
+	 * @param chunkSize        number of raw items per chunk
+	 * @param maxPendingChunks maximal number of chunks to parse ahead
+	 */
+	public ChunkedParallelParser(ForkJoinPool pool, Source<S> source, Function<S, T> parseFun, int chunkSize,
+								 int maxPendingChunks) {
+		if (chunkSize < 1 || maxPendingChunks < 1)
+			throw new IllegalArgumentException("Chunk size and number of pending chunks must be positive");
+		this.pool = pool;
+		this.source = source;
+		this.parseFun = parseFun;
+		this.chunkSize = chunkSize;
+		this.maxPendingChunks = maxPendingChunks;
+	}
+
+	/**
+	 * @return next parsed item, <code>null</code> at the end of the input
+	 * @throws IOException on problems with reading the input
+	 */
+	public T next() throws IOException {
+		while (pos == current.size()) {
+			fill();
+			if (pending.isEmpty())
+				return null;
+			current = waitFor(pending.poll());
+			pos = 0;
+		}
+		return current.get(pos++);
+	}
+
+	/**
+	 * Wait for <code>task</code> and return its result, rethrowing exceptions of the parse function
+	 */
+	private List<T> waitFor(CompletableFuture<List<T>> task) {
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			cancelPending();
+			Thread.currentThread().interrupt();
+			throw new UncheckedJannovarException("Interrupted while waiting for parsing", e);
+		} catch (ExecutionException e) {
+			cancelPending();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new UncheckedJannovarException("Problem parsing chunk", e.getCause());
+		}
+	}
+
+	/**
+	 * Cancel and discard all pending chunks
+	 */
+	private void cancelPending() {
+		for (CompletableFuture<List<T>> task : pending)
+			task.cancel(true);
+		pending.clear();
+		exhausted = true;
+	}
+
+	/**
+	 * Read and submit chunks until {@link #maxPendingChunks} are pending or the input is at its end
+	 */
+	private void fill() throws IOException {
+		while (!exhausted && pending.size() < maxPendingChunks) {
+			final List<S> chunk = new ArrayList<>(chunkSize);
+			S item;
+			while (chunk.size() < chunkSize && (item = source.next()) != null)
+				chunk.add(item);
+			if (chunk.size() < chunkSize)
+				exhausted = true;
+			if (!chunk.isEmpty())
+				pending.add(CompletableFuture.supplyAsync(() -> parseChunk(chunk), pool));
+		}
+	}
+
+	/**
+	 * Parse all items of <code>chunk</code>, skipping <code>null</code> results
+	 */
+	private List<T> parseChunk(List<S> chunk) {
+		final List<T> result = new ArrayList<>(chunk.size());
+		for (S item : chunk) {
+			final T parsed = parseFun.apply(item);
+			if (parsed != null)
+				result.add(parsed);
+		}
+		return result;
+	}
+
+}
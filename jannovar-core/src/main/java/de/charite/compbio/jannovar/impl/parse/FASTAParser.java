@@ -5,10 +5,14 @@ import com.google.common.base.Joiner;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.GZIPInputStream;
 
 /**
  * Generic FASTA parser that allow record-wise loading of FASTA files
+ * <p>
+ * Optionally, the records are built from their lines on a {@link ForkJoinPool} while the file is being read, the
+ * records are still returned in file order.
  *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
@@ -25,9 +29,9 @@ public final class FASTAParser {
 	private String lastLine = null;
 
 	/**
-	 * Lines collect for this record so far
+	 * Builds the records on a thread pool, <code>null</code> for building them in {@link #next()}
 	 */
-	private final List<String> recordBuffer = new ArrayList<>();
+	private final ChunkedParallelParser<List<String>, FASTARecord> parallelParser;
 
 	/**
 	 * Initialize with a file, gzip compression is automatically recognized.
@@ -39,6 +43,18 @@ public final class FASTAParser {
 		this(new FileInputStream(file));
 	}
 
+	/**
+	 * Initialize with a file, gzip compression is automatically recognized.
+	 *
+	 * @param file The file to read from
+	 * @param pool {@link ForkJoinPool} for building the records, <code>null</code> for building them on the calling
+	 *             thread
+	 * @throws IOException on I/O problems
+	 */
+	public FASTAParser(File file, ForkJoinPool pool) throws IOException {
+		this(new FileInputStream(file), pool);
+	}
+
 	/**
 	 * Initialize from a {@link InputStream}, gzip compression is automatically recognized.
 	 *
@@ -46,10 +62,27 @@ public final class FASTAParser {
 	 * @throws IOException on I/O problems
 	 */
 	public FASTAParser(InputStream stream) throws IOException {
+		this(stream, null);
+	}
+
+	/**
+	 * Initialize from a {@link InputStream}, gzip compression is automatically recognized.
+	 *
+	 * @param stream {@link InputStream} to read from
+	 * @param pool   {@link ForkJoinPool} for building the records, <code>null</code> for building them on the calling
+	 *               thread
+	 * @throws IOException on I/O problems
+	 */
+	public FASTAParser(InputStream stream, ForkJoinPool pool) throws IOException {
 		this.reader = new BufferedReader(new InputStreamReader(openStream(stream)));
 		this.lastLine = reader.readLine(); // read first line
 		if (this.lastLine != null)
 			this.lastLine = this.lastLine.trim();
+		if (pool == null)
+			this.parallelParser = null;
+		else
+			this.parallelParser = new ChunkedParallelParser<>(pool, this::nextRecordLines, FASTAParser::buildRecord,
+				ChunkedParallelParser.DEFAULT_CHUNK_SIZE / 16, 2 * pool.getParallelism());
 	}
 
 	/**
@@ -59,15 +92,30 @@ public final class FASTAParser {
 	 * @throws IOException on problems with reading the GFF files
 	 */
 	public FASTARecord next() throws IOException {
+		if (parallelParser != null)
+			return parallelParser.next();
+		final List<String> lines = nextRecordLines();
+		if (lines == null)
+			return null;
+		return buildRecord(lines);
+	}
+
+	/**
+	 * @return the non-empty lines of the next record, starting with the header line, <code>null</code> when the file
+	 * is at its end
+	 * @throws IOException on problems with reading the FASTA file
+	 */
+	private List<String> nextRecordLines() throws IOException {
 		if (lastLine == null)
 			return null;
 
 		assert lastLine.startsWith(">");
 
+		final List<String> result = new ArrayList<>();
 		while (true) {
 			// add current line to buffer
 			if (lastLine != null && !lastLine.isEmpty())
-				recordBuffer.add(lastLine);
+				result.add(lastLine);
 
 			// read next line, skipping empty lines
 			lastLine = reader.readLine();
@@ -76,23 +124,22 @@ public final class FASTAParser {
 				break;
 		}
 
-		return buildRecord();
+		return result;
 	}
 
 	/**
-	 * Build record from {@link #recordBuffer}
+	 * Build record from its lines, <code>null</code> if there are none
 	 */
-	private FASTARecord buildRecord() {
-		if (recordBuffer.isEmpty())
+	private static FASTARecord buildRecord(List<String> lines) {
+		if (lines.isEmpty())
 			return null;
 
-		final String firstLine = recordBuffer.get(0);
+		final String firstLine = lines.get(0);
 		String[] tokens = firstLine.substring(1).split("\\s", 2);
 		String id = tokens[0];
 		String comment = (tokens.length > 1) ? tokens[1] : "";
-		String sequence = Joiner.on("").join(recordBuffer.subList(1, recordBuffer.size()));
+		String sequence = Joiner.on("").join(lines.subList(1, lines.size()));
 
-		recordBuffer.clear();
 		return new FASTARecord(id, comment, sequence);
 	}
 
@@ -0,0 +1,170 @@
+package de.charite.compbio.jannovar.impl.parse;
+
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.impl.util.ReferenceSequenceCache;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Uncompressed, FAI-indexed copy of selected FASTA sequences in a temporary file, for fetching each sequence when it
+ * is needed instead of keeping all of them in memory.
+ * <p>
+ * While streaming through a (possibly gzip-compressed) FASTA file, the sequences to keep are {@link #add added} under
+ * a key, e.g., the transcript accession. They are written to a temporary single-line FASTA file with the keys as
+ * record names and only their positions are kept in memory. On the first {@link #getSequence(String)}, the FAI file
+ * for the temporary file is written and the sequences are read through a {@link ReferenceSequenceCache} from then on.
+ * If a key is added twice, the last sequence is used.
+ * <p>
+ * The temporary files are deleted on {@link #close()}. This class is state-ful and not thread safe.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class FASTASequenceStore implements Closeable {
+
+	/**
+	 * Number of blocks for the {@link ReferenceSequenceCache}, each sequence is usually read once
+	 */
+	private static final int MAX_BLOCKS = 64;
+
+	/**
+	 * Path to the temporary FASTA file
+	 */
+	private final File fastaFile;
+
+	/**
+	 * Path to the temporary FAI file
+	 */
+	private final File faiFile;
+
+	/**
+	 * Stream for adding sequences, <code>null</code> after switching to reading
+	 */
+	private OutputStream out;
+
+	/**
+	 * Number of bytes written to {@link #fastaFile} so far
+	 */
+	private long fileSize = 0;
+
+	/**
+	 * Offset of the first base and length of the sequence in {@link #fastaFile}, by key
+	 */
+	private final Map<String, long[]> index = new LinkedHashMap<>();
+
+	/**
+	 * Reads from {@link #fastaFile}, <code>null</code> before switching to reading
+	 */
+	private ReferenceSequenceCache cache;
+
+	/**
+	 * Create store with its temporary files in <code>tmpDir</code>
+	 *
+	 * @param tmpDir directory for the temporary files, e.g., next to the FASTA file for having enough space
+	 * @throws IOException on problems creating the temporary files
+	 */
+	public FASTASequenceStore(File tmpDir) throws IOException {
+		this.fastaFile = File.createTempFile("jannovar-sequences", ".fa", tmpDir);
+		this.faiFile = new File(fastaFile.getPath() + ".fai");
+		this.out = new BufferedOutputStream(new FileOutputStream(fastaFile));
+	}
+
+	/**
+	 * Add a sequence
+	 *
+	 * @param key      key to store the sequence under, must not contain whitespace
+	 * @param sequence the sequence
+	 * @throws IOException           on problems writing the temporary file
+	 * @throws IllegalStateException if {@link #getSequence(String)} has already been called
+	 */
+	public void add(String key, String sequence) throws IOException {
+		if (out == null)
+			throw new IllegalStateException("Cannot add sequences after reading from the store");
+		final byte[] header = (">" + key + "\n").getBytes(StandardCharsets.US_ASCII);
+		final byte[] bases = sequence.getBytes(StandardCharsets.US_ASCII);
+		out.write(header);
+		out.write(bases);
+		out.write('\n');
+		index.put(key, new long[]{fileSize + header.length, bases.length});
+		fileSize += header.length + bases.length + 1;
+	}
+
+	/**
+	 * @param key the key to look for
+	 * @return whether or not a sequence has been added for <code>key</code>
+	 */
+	public boolean contains(String key) {
+		return index.containsKey(key);
+	}
+
+	/**
+	 * @return number of distinct keys
+	 */
+	public int size() {
+		return index.size();
+	}
+
+	/**
+	 * Read the sequence stored for <code>key</code>
+	 *
+	 * @param key the key to read the sequence for
+	 * @return the sequence or <code>null</code> if there is no sequence for <code>key</code>
+	 * @throws UncheckedJannovarException on problems writing the FAI file or reading the temporary file
+	 */
+	public String getSequence(String key) {
+		final long[] entry = index.get(key);
+		if (entry == null)
+			return null;
+		if (cache == null)
+			openCache();
+		return cache.getString(key, 0, (int) entry[1]);
+	}
+
+	/**
+	 * Finish writing {@link #fastaFile}, write its FAI file, and open it for reading
+	 */
+	private void openCache() {
+		try {
+			out.close();
+			out = null;
+			try (PrintWriter fai = new PrintWriter(faiFile, StandardCharsets.US_ASCII.name())) {
+				for (Map.Entry<String, long[]> e : index.entrySet()) {
+					final long length = e.getValue()[1];
+					// one line per sequence, lines of empty sequences are treated as one base long
+					final long lineBases = Math.max(length, 1);
+					fai.println(e.getKey() + "\t" + length + "\t" + e.getValue()[0] + "\t" + lineBases + "\t" +
+						(lineBases + 1));
+				}
+			}
+			cache = new ReferenceSequenceCache(fastaFile.getPath(), faiFile.getPath(),
+				ReferenceSequenceCache.DEFAULT_BLOCK_SIZE, MAX_BLOCKS);
+		} catch (IOException | JannovarException e) {
+			throw new UncheckedJannovarException("Problem indexing temporary FASTA file " + fastaFile, e);
+		}
+	}
+
+	/**
+	 * Delete the temporary files
+	 */
+	@Override
+	public void close() throws IOException {
+		if (out != null)
+			out.close();
+		out = null;
+		cache = null;
+		if (!fastaFile.delete() && fastaFile.exists())
+			throw new IOException("Could not delete temporary file " + fastaFile);
+		if (!faiFile.delete() && faiFile.exists())
+			throw new IOException("Could not delete temporary file " + faiFile);
+	}
+
+}
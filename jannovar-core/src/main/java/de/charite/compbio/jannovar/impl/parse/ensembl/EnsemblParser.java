@@ -7,6 +7,7 @@ import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.datasource.TranscriptModelBuilderHGNCExtender;
 import de.charite.compbio.jannovar.hgnc.AltGeneIDType;
 import de.charite.compbio.jannovar.impl.parse.FASTAParser;
+import de.charite.compbio.jannovar.impl.parse.FASTASequenceStore;
 import de.charite.compbio.jannovar.impl.parse.FASTARecord;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParseException;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParser;
@@ -25,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.GZIPInputStream;
 
 // TODO(holtgrewe): Factor out common paths with RefSeqParser
@@ -67,6 +69,11 @@ public class EnsemblParser implements TranscriptParser {
 	 */
 	private final List<String> geneIdentifiers;
 
+	/**
+	 * Pool for parsing the GTF and FASTA files, <code>null</code> for parsing on the calling thread.
+	 */
+	private final ForkJoinPool pool;
+
 	/**
 	 * @param refDict path to {@link ReferenceDictionary} to use for name/id and id/length mapping.
 	 * @param basePath path to where the to-be-parsed files live
@@ -75,6 +82,20 @@ public class EnsemblParser implements TranscriptParser {
 	 */
 	public EnsemblParser(ReferenceDictionary refDict, String basePath, List<String> geneIdentifiers,
 		Section iniSection) {
+		this(refDict, basePath, geneIdentifiers, iniSection, null);
+	}
+
+	/**
+	 * @param refDict path to {@link ReferenceDictionary} to use for name/id and id/length mapping.
+	 * @param basePath path to where the to-be-parsed files live
+	 * @param iniSection {@link Section} with configuration from INI file
+	 * @param geneIdentifiers list of gene identifiers to include if non-empty
+	 * @param pool {@link ForkJoinPool} for parsing the GTF and FASTA files, <code>null</code> for parsing them on
+	 *        the calling thread
+	 */
+	public EnsemblParser(ReferenceDictionary refDict, String basePath, List<String> geneIdentifiers,
+		Section iniSection, ForkJoinPool pool) {
+		this.pool = pool;
 		this.refDict = refDict;
 		this.contigDict = refDict.getContigNameToID();
 		this.basePath = basePath;
@@ -126,31 +147,36 @@ public class EnsemblParser implements TranscriptParser {
 			}
 		}
 
-		// Load the FASTA file and assign to the builders.
+		// Load the FASTA file and spool the sequences of the builders to an indexed temporary file, they are only
+		// assigned to the builders when the TranscriptModel objects are finalized.
 		final String pathFASTA = PathUtil.join(basePath, getINIFileName("cdna"));
-		LOGGER.info("Adding sequence information from cdna FASTA...");
-		loadFASTA(builders, pathFASTA);
-
-		LOGGER.info("Finalising TranscriptModels...");
-		// Create final list of TranscriptModels.
-		ImmutableList.Builder<TranscriptModel> result = new ImmutableList.Builder<>();
-		for (Entry<String, TranscriptModelBuilder> entry : builders.entrySet()) {
-			TranscriptModelBuilder builder = entry.getValue();
-			if (geneIdentifiers == null || geneIdentifiers.isEmpty()) {
-				result.add(builder.build());
-			} else {
-				if (geneIdentifiers.contains(builder.getAccession()) || geneIdentifiers.contains(builder.getGeneID())
+		try (FASTASequenceStore sequences = new FASTASequenceStore(new File(basePath))) {
+			LOGGER.info("Adding sequence information from cdna FASTA...");
+			loadFASTA(builders, pathFASTA, sequences);
+
+			LOGGER.info("Finalising TranscriptModels...");
+			// Create final list of TranscriptModels.
+			ImmutableList.Builder<TranscriptModel> result = new ImmutableList.Builder<>();
+			Iterator<Entry<String, TranscriptModelBuilder>> it = builders.entrySet().iterator();
+			while (it.hasNext()) {
+				Entry<String, TranscriptModelBuilder> entry = it.next();
+				TranscriptModelBuilder builder = entry.getValue();
+				if (geneIdentifiers == null || geneIdentifiers.isEmpty() ||
+					geneIdentifiers.contains(builder.getAccession()) || geneIdentifiers.contains(builder.getGeneID())
 					|| !Sets.intersection(ImmutableSet.copyOf(geneIdentifiers),
-					ImmutableSet.copyOf(builder.getAltGeneIDs().values())).isEmpty()
-
-				) {
+					ImmutableSet.copyOf(builder.getAltGeneIDs().values())).isEmpty()) {
+					if (sequences.contains(entry.getKey()))
+						builder.setSequence(sequences.getSequence(entry.getKey()));
 					result.add(builder.build());
 				}
+				it.remove();
 			}
+			ImmutableList<TranscriptModel> transcriptModels = result.build();
+			LOGGER.info("Built {} TranscriptModels", transcriptModels.size());
+			return transcriptModels;
+		} catch (IOException e) {
+			throw new TranscriptParseException("Problem with temporary FASTA file", e);
 		}
-		ImmutableList<TranscriptModel> transcriptModels = result.build();
-		LOGGER.info("Built {} TranscriptModels", transcriptModels.size());
-		return transcriptModels;
 	}
 
 	/**
@@ -284,12 +310,12 @@ public class EnsemblParser implements TranscriptParser {
 	}
 
 	/**
-	 * Load FASTA from pathFASTA and set the sequence into builders.
+	 * Load FASTA from pathFASTA and add the sequences of the builders to <code>sequences</code>, by builder key.
 	 *
 	 * @throws TranscriptParseException on problems with parsing the FASTA
 	 */
-	private void loadFASTA(Map<String, TranscriptModelBuilder> builders, String pathFASTA)
-		throws TranscriptParseException {
+	private void loadFASTA(Map<String, TranscriptModelBuilder> builders, String pathFASTA,
+						   FASTASequenceStore sequences) throws TranscriptParseException {
 
 		// First, build mapping from RNA accession to builder
 		Map<String, TranscriptModelBuilder> txMap = new HashMap<>();
@@ -307,7 +333,7 @@ public class EnsemblParser implements TranscriptParser {
 		// Next iterate over the FASTA file and assign sequence to the transcript
 		FASTAParser fastaParser;
 		try {
-			fastaParser = new FASTAParser(new File(pathFASTA));
+			fastaParser = new FASTAParser(new File(pathFASTA), pool);
 		} catch (IOException e) {
 			throw new TranscriptParseException("Problem with opening FASTA file", e);
 		}
@@ -322,11 +348,12 @@ public class EnsemblParser implements TranscriptParser {
 					continue;
 				}
 
-				assert missingSequence.contains(builder.getAccession());
-				missingSequence.remove(builder.getAccession());
+				final String key = builder.getAccession();
+				assert missingSequence.contains(key);
+				missingSequence.remove(key);
 
 				builder.setAccession(builder.getSequence());
-				builder.setSequence(record.getSequence());
+				sequences.add(key, record.getSequence());
 				LOGGER.debug("Found sequence for transcript {}", builder.getAccession());
 			}
 		} catch (IOException e) {
@@ -358,7 +385,7 @@ public class EnsemblParser implements TranscriptParser {
 		// Open file using GFFParser
 		GFFParser parser;
 		try {
-			parser = new GFFParser(new File(pathGFF));
+			parser = new GFFParser(new File(pathGFF), pool);
 		} catch (IOException e) {
 			throw new TranscriptParseException("Problem opening GFF file", e);
 		}
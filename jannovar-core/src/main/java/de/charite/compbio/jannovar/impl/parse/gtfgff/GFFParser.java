@@ -1,9 +1,11 @@
 package de.charite.compbio.jannovar.impl.parse.gtfgff;
 
+import de.charite.compbio.jannovar.impl.parse.ChunkedParallelParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.GZIPInputStream;
 
 // TODO: interpret only curated flag
@@ -11,6 +13,9 @@ import java.util.zip.GZIPInputStream;
 /**
  * A class for parsing a stream of GFFRecord objects from a GTF or GFF file.
  * <p>
+ * Optionally, chunks of lines are parsed ahead on a {@link ForkJoinPool} while the file is being read, the records
+ * are still returned in file order.
+ * <p>
  * This class is state-ful and not thread safe.
  *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
@@ -53,6 +58,11 @@ public class GFFParser {
 	 */
 	private final FeatureRecordParser recordParser;
 
+	/**
+	 * Parses the lines on a thread pool, <code>null</code> for parsing them in {@link #next()}
+	 */
+	private final ChunkedParallelParser<String, FeatureRecord> parallelParser;
+
 	/**
 	 * Initialize with a file, gzip compression is automatically recognized.
 	 *
@@ -63,6 +73,17 @@ public class GFFParser {
 		this(new FileInputStream(file));
 	}
 
+	/**
+	 * Initialize with a file, gzip compression is automatically recognized.
+	 *
+	 * @param file The file to read from
+	 * @param pool {@link ForkJoinPool} for parsing the lines, <code>null</code> for parsing on the calling thread
+	 * @throws IOException on I/O problems
+	 */
+	public GFFParser(File file, ForkJoinPool pool) throws IOException {
+		this(new FileInputStream(file), pool);
+	}
+
 	/**
 	 * Reads next record from the GFF file and return it, <code>null</code> when the file is at its end.
 	 *
@@ -70,9 +91,22 @@ public class GFFParser {
 	 * @throws IOException on problems with reading the GFF files
 	 */
 	public FeatureRecord next() throws IOException {
-		if (lastLine == null)
+		if (parallelParser != null)
+			return parallelParser.next();
+		final String line = nextLine();
+		if (line == null)
+			return null;
+		return recordParser.parseLine(line);
+	}
+
+	/**
+	 * @return the next line that is not a comment, <code>null</code> when the file is at its end
+	 * @throws IOException on problems with reading the GFF files
+	 */
+	private String nextLine() throws IOException {
+		final String result = lastLine;
+		if (result == null)
 			return null;
-		FeatureRecord result = recordParser.parseLine(lastLine);
 		do {
 			lastLine = reader.readLine();
 		} while (lastLine != null && lastLine.startsWith("#"));
@@ -86,12 +120,27 @@ public class GFFParser {
 	 * @throws IOException on I/O problems
 	 */
 	public GFFParser(InputStream stream) throws IOException {
+		this(stream, null);
+	}
+
+	/**
+	 * Initialize from a {@link InputStream}, gzip compression is automatically recognized.
+	 *
+	 * @param stream {@link InputStream} to read from
+	 * @param pool   {@link ForkJoinPool} for parsing the lines, <code>null</code> for parsing on the calling thread
+	 * @throws IOException on I/O problems
+	 */
+	public GFFParser(InputStream stream, ForkJoinPool pool) throws IOException {
 		this.reader = new BufferedReader(new InputStreamReader(openStream(stream)));
 		this.gffVersion = initializeStream();
 		if (gffVersion == GFFVersion.GTF)
 			recordParser = new GTFRecordParser();
 		else
 			recordParser = new GFFRecordParser();
+		if (pool == null)
+			parallelParser = null;
+		else
+			parallelParser = new ChunkedParallelParser<>(pool, this::nextLine, recordParser::parseLine);
 	}
 
 	/**
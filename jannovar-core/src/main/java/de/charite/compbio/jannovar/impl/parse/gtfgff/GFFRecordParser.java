@@ -13,6 +13,16 @@ import java.util.Map;
  */
 public class GFFRecordParser extends FeatureRecordParser {
 
+	/**
+	 * Splits the attributes field into the <code>key=value</code> fields
+	 */
+	private static final Splitter FIELD_SPLITTER = Splitter.on(';').trimResults();
+
+	/**
+	 * Splits a <code>key=value</code> field
+	 */
+	private static final Splitter KEY_VALUE_SPLITTER = Splitter.on('=').trimResults().limit(2);
+
 	/**
 	 * Parse GFF attributes
 	 */
@@ -20,8 +30,8 @@ public class GFFRecordParser extends FeatureRecordParser {
 	protected Map<String, String> parseAttributes(String string) {
 		Map<String, String> result = new HashMap<>();
 
-		for (String field : Splitter.on(';').trimResults().split(string)) {
-			List<String> arr = Splitter.on("=").trimResults().limit(2).splitToList(field);
+		for (String field : FIELD_SPLITTER.split(string)) {
+			List<String> arr = KEY_VALUE_SPLITTER.splitToList(field);
 			if (arr.size() != 2) {
 				LOGGER.warn("Found attribute not following key=value format (skipping) {}",
 					new Object[]{field.trim()});
@@ -14,6 +14,7 @@ import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.datasource.TranscriptModelBuilderHGNCExtender;
 import de.charite.compbio.jannovar.hgnc.AltGeneIDType;
 import de.charite.compbio.jannovar.impl.parse.FASTAParser;
+import de.charite.compbio.jannovar.impl.parse.FASTASequenceStore;
 import de.charite.compbio.jannovar.impl.parse.FASTARecord;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParseException;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParser;
@@ -30,11 +31,13 @@ import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import javax.annotation.Nullable;
 import org.ini4j.Profile.Section;
 import org.slf4j.Logger;
@@ -76,6 +79,11 @@ public class RefSeqParser implements TranscriptParser {
 	 */
 	private final List<String> geneIdentifiers;
 
+	/**
+	 * Pool for parsing the GFF and FASTA files, <code>null</code> for parsing on the calling thread.
+	 */
+	private final ForkJoinPool pool;
+
 	/**
 	 * @param refDict         path to {@link ReferenceDictionary} to use for name/id and id/length mapping.
 	 * @param basePath        path to where the to-be-parsed files live
@@ -84,6 +92,20 @@ public class RefSeqParser implements TranscriptParser {
 	 */
 	public RefSeqParser(ReferenceDictionary refDict, String basePath, List<String> geneIdentifiers,
 						Section iniSection) {
+		this(refDict, basePath, geneIdentifiers, iniSection, null);
+	}
+
+	/**
+	 * @param refDict         path to {@link ReferenceDictionary} to use for name/id and id/length mapping.
+	 * @param basePath        path to where the to-be-parsed files live
+	 * @param iniSection      {@link Section} with configuration from INI file
+	 * @param geneIdentifiers list of gene identifiers to include if non-empty
+	 * @param pool            {@link ForkJoinPool} for parsing the GFF and FASTA files, <code>null</code> for parsing
+	 *                        them on the calling thread
+	 */
+	public RefSeqParser(ReferenceDictionary refDict, String basePath, List<String> geneIdentifiers,
+						Section iniSection, ForkJoinPool pool) {
+		this.pool = pool;
 		this.refDict = refDict;
 		this.contigDict = refDict.getContigNameToID();
 
@@ -116,29 +138,34 @@ public class RefSeqParser implements TranscriptParser {
 			}
 		}
 
-		// Load the FASTA file and assign to the builders.
+		// Load the FASTA file and spool the sequences of the builders to an indexed temporary file, they are only
+		// assigned to the builders when the TranscriptModel objects are finalized.
 		final String pathFASTA = PathUtil.join(basePath, getINIFileName("rna"));
 		loadMitochondrialFASTA(builders);
 
-		loadFASTA(builders, pathFASTA);
-
-		// Create final list of TranscriptModels.
-		ImmutableList.Builder<TranscriptModel> result = new ImmutableList.Builder<>();
-		for (Entry<String, TranscriptModelBuilder> entry : builders.entrySet()) {
-			TranscriptModelBuilder builder = entry.getValue();
-			if (geneIdentifiers == null || geneIdentifiers.isEmpty()) {
-				result.add(builder.build());
-			} else {
-				if (geneIdentifiers.contains(builder.getAccession()) || geneIdentifiers.contains(builder.getGeneID())
+		try (FASTASequenceStore sequences = new FASTASequenceStore(new File(basePath))) {
+			loadFASTA(builders, pathFASTA, sequences);
+
+			// Create final list of TranscriptModels.
+			ImmutableList.Builder<TranscriptModel> result = new ImmutableList.Builder<>();
+			Iterator<Entry<String, TranscriptModelBuilder>> it = builders.entrySet().iterator();
+			while (it.hasNext()) {
+				Entry<String, TranscriptModelBuilder> entry = it.next();
+				TranscriptModelBuilder builder = entry.getValue();
+				if (geneIdentifiers == null || geneIdentifiers.isEmpty() ||
+					geneIdentifiers.contains(builder.getAccession()) || geneIdentifiers.contains(builder.getGeneID())
 					|| !Sets.intersection(ImmutableSet.copyOf(geneIdentifiers),
-					ImmutableSet.copyOf(builder.getAltGeneIDs().values())).isEmpty()
-
-				) {
+					ImmutableSet.copyOf(builder.getAltGeneIDs().values())).isEmpty()) {
+					if (sequences.contains(entry.getKey()))
+						builder.setSequence(sequences.getSequence(entry.getKey()));
 					result.add(builder.build());
 				}
+				it.remove();
 			}
+			return result.build();
+		} catch (IOException e) {
+			throw new TranscriptParseException("Problem with temporary FASTA file", e);
 		}
-		return result.build();
 	}
 
 	/**
@@ -215,11 +242,12 @@ public class RefSeqParser implements TranscriptParser {
 	}
 
 	/**
-	 * Load FASTA from pathFASTA and set the sequence into builders.
+	 * Load FASTA from pathFASTA and add the sequences of the builders to <code>sequences</code>, by builder key.
 	 *
 	 * @throws TranscriptParseException on problems with parsing the FASTA
 	 */
-	private void loadFASTA(Map<String, TranscriptModelBuilder> builders, String pathFASTA) throws TranscriptParseException {
+	private void loadFASTA(Map<String, TranscriptModelBuilder> builders, String pathFASTA,
+						   FASTASequenceStore sequences) throws TranscriptParseException {
 		// We must remove variants for which we did not find any sequence.  The only exception
 		// is chrMT if we could load the corresponding sequence.
 		Set<String> missingSequence = new HashSet<>(builders.keySet());
@@ -239,7 +267,7 @@ public class RefSeqParser implements TranscriptParser {
 		// Next iterate over the FASTA file and assign sequence to the transcript
 		FASTAParser fastaParser;
 		try {
-			fastaParser = new FASTAParser(new File(pathFASTA));
+			fastaParser = new FASTAParser(new File(pathFASTA), pool);
 		} catch (IOException e) {
 			throw new TranscriptParseException("Problem with opening FASTA file", e);
 		}
@@ -262,7 +290,7 @@ public class RefSeqParser implements TranscriptParser {
 				missingSequence.remove(accession);
 
 				builder.setAccession(accession);
-				builder.setSequence(record.getSequence());
+				sequences.add(accession, record.getSequence());
 				LOGGER.debug("Found sequence for transcript {}", builder.getAccession());
 			}
 		} catch (IOException e) {
@@ -293,7 +321,7 @@ public class RefSeqParser implements TranscriptParser {
 		// Open file using GFFParser
 		GFFParser parser;
 		try {
-			parser = new GFFParser(new File(pathGFF));
+			parser = new GFFParser(new File(pathGFF), pool);
 		} catch (IOException e) {
 			throw new TranscriptParseException("Problem opening GFF file", e);
 		}
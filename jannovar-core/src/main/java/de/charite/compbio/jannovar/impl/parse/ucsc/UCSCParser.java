@@ -9,6 +9,7 @@ import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.datasource.TranscriptModelBuilderHGNCExtender;
 import de.charite.compbio.jannovar.hgnc.AltGeneIDType;
+import de.charite.compbio.jannovar.impl.parse.ChunkedParallelParser;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParseException;
 import de.charite.compbio.jannovar.impl.parse.TranscriptParser;
 import de.charite.compbio.jannovar.impl.parse.TranscriptSupportLevelsSetterFromLengths;
@@ -22,6 +23,7 @@ import java.io.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.zip.GZIPInputStream;
 
 // TODO(holtgrem): Interpret knownCanonical!
@@ -109,6 +111,11 @@ public class UCSCParser implements TranscriptParser {
 	 */
 	private final List<String> geneIdentifiers;
 
+	/**
+	 * Pool for parsing the knownGene file, <code>null</code> for parsing on the calling thread.
+	 */
+	private final ForkJoinPool pool;
+
 	/**
 	 * @param refDict         path to {@link ReferenceDictionary} to use for name/id and id/length mapping.
 	 * @param basePath        path to where the to-be-parsed files live
@@ -117,6 +124,20 @@ public class UCSCParser implements TranscriptParser {
 	 */
 	public UCSCParser(ReferenceDictionary refDict, String basePath, List<String> geneIdentifiers,
 					  Section iniSection) {
+		this(refDict, basePath, geneIdentifiers, iniSection, null);
+	}
+
+	/**
+	 * @param refDict         path to {@link ReferenceDictionary} to use for name/id and id/length mapping.
+	 * @param basePath        path to where the to-be-parsed files live
+	 * @param iniSection      {@link Section} with configuration from INI file
+	 * @param geneIdentifiers list of gene identifiers to include if non-empty
+	 * @param pool            {@link ForkJoinPool} for parsing the knownGene file, <code>null</code> for parsing it on
+	 *                        the calling thread
+	 */
+	public UCSCParser(ReferenceDictionary refDict, String basePath, List<String> geneIdentifiers,
+					  Section iniSection, ForkJoinPool pool) {
+		this.pool = pool;
 		this.refDict = refDict;
 		this.basePath = basePath;
 		this.iniSection = iniSection;
@@ -353,15 +374,30 @@ public class UCSCParser implements TranscriptParser {
 		try {
 			br = getBufferedReaderFromFilePath(kgPath, kgPath.endsWith(".gz"));
 
-			String line;
-
-			while ((line = br.readLine()) != null) {
-				// linecount++;
-				try {
-					TranscriptModelBuilder tib = parseTranscriptModelFromLine(line);
+			if (pool != null) {
+				// parse chunks of lines in parallel, lines that cannot be parsed are skipped as below
+				final ChunkedParallelParser<String, TranscriptModelBuilder> parser = new ChunkedParallelParser<>(pool,
+					br::readLine, line -> {
+					try {
+						return parseTranscriptModelFromLine(line);
+					} catch (TranscriptParseException e) {
+						return null;
+					}
+				});
+				TranscriptModelBuilder tib;
+				while ((tib = parser.next()) != null)
 					this.knownGeneMap.put(tib.getAccession(), tib);
-				} catch (TranscriptParseException e) {
-					// exceptionCount++;
+			} else {
+				String line;
+
+				while ((line = br.readLine()) != null) {
+					// linecount++;
+					try {
+						TranscriptModelBuilder tib = parseTranscriptModelFromLine(line);
+						this.knownGeneMap.put(tib.getAccession(), tib);
+					} catch (TranscriptParseException e) {
+						// exceptionCount++;
+					}
 				}
 			}
 			// System.out.println("[INFO] Parsed " + knownGeneMap.size()
@@ -1,5 +1,7 @@
 package de.charite.compbio.jannovar.impl.util;
 
+import java.util.Arrays;
+
 /**
  * Utility class for DNA string manipulation.
  *
@@ -8,6 +10,26 @@ package de.charite.compbio.jannovar.impl.util;
  */
 public final class DNAUtils {
 
+	/**
+	 * Complement of each base by ASCII character, <code>0</code> for characters other than <code>ACGTN</code>
+	 */
+	private static final char[] COMPLEMENT = new char[128];
+
+	static {
+		COMPLEMENT['A'] = 'T';
+		COMPLEMENT['C'] = 'G';
+		COMPLEMENT['G'] = 'C';
+		COMPLEMENT['T'] = 'A';
+		COMPLEMENT['N'] = 'N';
+	}
+
+	/**
+	 * @return complement of <code>c</code>, <code>0</code> for characters other than <code>ACGTN</code>
+	 */
+	private static char complement(int c) {
+		return (c >= 0 && c < COMPLEMENT.length) ? COMPLEMENT[c] : 0;
+	}
+
 	/**
 	 * Return the reverse complement version of a DNA string in upper case. Note that no checking is done in this code
 	 * since the parse code checks for valid DNA and upper-cases the input. This code will break if these assumptions
@@ -20,31 +42,34 @@ public final class DNAUtils {
 		if (sq.isEmpty())
 			return sq; // deletion, insertion do not need rc
 
-		StringBuffer sb = new StringBuffer();
+		final char[] result = new char[sq.length()];
+		int n = 0;
 		for (int i = sq.length() - 1; i >= 0; i--) {
-			char c = sq.charAt(i);
-			char match = 0;
-			switch (c) {
-				case 'A':
-					match = 'T';
-					break;
-				case 'C':
-					match = 'G';
-					break;
-				case 'G':
-					match = 'C';
-					break;
-				case 'T':
-					match = 'A';
-					break;
-				case 'N':
-					match = 'N';
-					break;
-			}
+			final char match = complement(sq.charAt(i));
+			if (match > 0)
+				result[n++] = match;
+		}
+		return new String(result, 0, n);
+	}
+
+	/**
+	 * Return the reverse complement of an upper-case DNA sequence in an ASCII buffer, see
+	 * {@link #reverseComplement(String)}.
+	 *
+	 * @param sq    buffer with the original, upper-case DNA sequence
+	 * @param begin begin position of the sequence in <code>sq</code>
+	 * @param end   end position of the sequence in <code>sq</code>
+	 * @return reverse complement of the sequence, in ASCII
+	 */
+	public static byte[] reverseComplement(byte[] sq, int begin, int end) {
+		final byte[] result = new byte[end - begin];
+		int n = 0;
+		for (int i = end - 1; i >= begin; i--) {
+			final char match = complement(sq[i]);
 			if (match > 0)
-				sb.append(match);
+				result[n++] = (byte) match;
 		}
-		return sb.toString();
+		return (n == result.length) ? result : Arrays.copyOf(result, n);
 	}
 
 }
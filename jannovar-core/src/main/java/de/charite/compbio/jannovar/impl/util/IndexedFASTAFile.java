@@ -0,0 +1,137 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.JannovarException;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Memory-mapped FAI-indexed FASTA file, the bases are read as stored (no case conversion).
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class IndexedFASTAFile implements ReferenceSequenceSource {
+
+	/**
+	 * The FAI records, in the order of the FAI file
+	 */
+	private final ImmutableList<FAIRecord> faiRecords;
+
+	/**
+	 * Contig names, in the order of the FAI file
+	 */
+	private final ImmutableList<String> contigNames;
+
+	/**
+	 * The mapped FASTA file
+	 */
+	private final MappedFile file;
+
+	/**
+	 * Open FASTA file
+	 *
+	 * @param fastaPath path to the FASTA file
+	 * @param faiPath   path to the FAI file
+	 * @throws JannovarException on problems reading the FAI file or mapping the FASTA file
+	 */
+	IndexedFASTAFile(String fastaPath, String faiPath) throws JannovarException {
+		this.faiRecords = loadFAIRecords(faiPath);
+		final ImmutableList.Builder<String> builder = ImmutableList.builder();
+		for (FAIRecord record : faiRecords)
+			builder.add(record.name);
+		this.contigNames = builder.build();
+		try {
+			this.file = new MappedFile(fastaPath);
+		} catch (IOException e) {
+			throw new JannovarException("Could not map FASTA file " + fastaPath, e);
+		}
+	}
+
+	@Override
+	public ImmutableList<String> getContigNames() {
+		return contigNames;
+	}
+
+	@Override
+	public int getContigLength(int contigIdx) {
+		return faiRecords.get(contigIdx).length;
+	}
+
+	/**
+	 * Read the bases line by line, skipping the line breaks
+	 */
+	@Override
+	public void readBases(int contigIdx, int beginPos, byte[] dst, int dstOffset, int len) {
+		final FAIRecord record = faiRecords.get(contigIdx);
+		final int endPos = beginPos + len;
+		int pos = beginPos;
+		while (pos < endPos) {
+			final int line = pos / record.lineBases;
+			final int column = pos - line * record.lineBases;
+			final int lineLen = Math.min(record.lineBases - column, endPos - pos);
+			file.read(record.offset + (long) line * record.lineWidth + column, dst, dstOffset + pos - beginPos,
+				lineLen);
+			pos += lineLen;
+		}
+	}
+
+	private static ImmutableList<FAIRecord> loadFAIRecords(String faiPath) throws JannovarException {
+		final ImmutableList.Builder<FAIRecord> builder = ImmutableList.builder();
+		try (
+			FileInputStream fis = new FileInputStream(faiPath);
+			InputStreamReader reader = new InputStreamReader(fis, StandardCharsets.UTF_8);
+			BufferedReader bufReader = new BufferedReader(reader)
+		) {
+			String line;
+			while ((line = bufReader.readLine()) != null) {
+				if (line.trim().isEmpty())
+					continue;
+				final String[] arr = line.trim().split("\t");
+				builder.add(new FAIRecord(
+					arr[0],
+					Integer.parseInt(arr[1]),
+					Long.parseLong(arr[2]),
+					Integer.parseInt(arr[3]),
+					Integer.parseInt(arr[4])
+				));
+			}
+		} catch (Exception e) {
+			throw new JannovarException("Could not load FAI file " + faiPath, e);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Record in an FAI file.
+	 */
+	private static final class FAIRecord {
+
+		/** Contig name. */
+		final String name;
+
+		/** Length of the sequence. */
+		final int length;
+
+		/** Offset of first sequence base in file. */
+		final long offset;
+
+		/** Number of bases per line. */
+		final int lineBases;
+
+		/** Characters in each line. */
+		final int lineWidth;
+
+		FAIRecord(String name, int length, long offset, int lineBases, int lineWidth) {
+			this.name = name;
+			this.length = length;
+			this.offset = offset;
+			this.lineBases = lineBases;
+			this.lineWidth = lineWidth;
+		}
+	}
+
+}
@@ -1,20 +1,17 @@
 package de.charite.compbio.jannovar.impl.util;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMap.Builder;
 import de.charite.compbio.jannovar.Immutable;
 import de.charite.compbio.jannovar.JannovarException;
-import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
-import java.io.BufferedReader;
-import java.io.FileInputStream;
-import java.io.InputStreamReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Helper class for reading FAI-indexed FASTA files.
+ * <p>
+ * The bases are read through the {@link ReferenceSequenceCache} shared by all users of the same FASTA file.
  *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
@@ -26,21 +23,15 @@ public class IndexedFASTAReader {
 	/** Reference dictionary. */
 	private final ReferenceDictionary refDict;
 
-	/** Path to FASTA file. */
-	private final String fastaPath;
-
-	/** Path to FAI file. */
-	private final String faiPath;
-
-	/** The FAI records from the file. */
-	private final ImmutableList<FAIRecord> faiRecords;
+	/** Cache for reading from the FASTA file. */
+	private final ReferenceSequenceCache cache;
 
 	/**
-	 * Mapping from {@code refDict} index to {@code faiRecords} index.
+	 * Mapping from {@code refDict} index to contig name in the FASTA file.
 	 * <p>
-	 * The mapping is only created for existing entries in {@code faiRecords}.
+	 * The mapping is only created for contigs present in the FASTA file.
 	 */
-	private final ImmutableMap<Integer, Integer> idx2idx;
+	private final ImmutableMap<Integer, String> idx2name;
 
 	/**
 	 * Construct with default FAI path ({@code fastaPath + ".fai"}.
@@ -64,52 +55,33 @@ public class IndexedFASTAReader {
 	 */
 	public IndexedFASTAReader(ReferenceDictionary refDict, String fastaPath, String faiPath)
 		throws JannovarException {
-		this.refDict = refDict;
-		this.fastaPath = fastaPath;
-		this.faiPath = faiPath;
-		this.faiRecords = loadFAIRecord();
-		this.idx2idx = buildIdx2Idx();
+		this(refDict, ReferenceSequenceCache.getShared(fastaPath, faiPath));
 	}
 
-	private ImmutableList<FAIRecord> loadFAIRecord() throws JannovarException {
-		final ImmutableList.Builder<FAIRecord> builder = ImmutableList.builder();
-		try (
-			FileInputStream fis = new FileInputStream(faiPath);
-			InputStreamReader reader = new InputStreamReader(fis);
-			BufferedReader bufReader = new BufferedReader(reader)
-		) {
-			String line;
-			while ((line = bufReader.readLine()) != null) {
-				final String[] arr = line.trim().split("\t");
-				builder.add(new FAIRecord(
-					arr[0],
-					Integer.parseInt(arr[1]),
-					Long.parseLong(arr[2]),
-					Integer.parseInt(arr[3]),
-					Integer.parseInt(arr[4])
-				));
-			}
-		} catch (Exception e) {
-			throw new JannovarException("Could not load FAI file", e);
-		}
-
-		return builder.build();
+	/**
+	 * Construct with explicit {@link ReferenceSequenceCache}.
+	 *
+	 * @param refDict The {@link ReferenceDictionary} to use for contig name mapping.
+	 * @param cache The cache to read the FASTA file through.
+	 */
+	public IndexedFASTAReader(ReferenceDictionary refDict, ReferenceSequenceCache cache) {
+		this.refDict = refDict;
+		this.cache = cache;
+		this.idx2name = buildIdx2Name();
 	}
 
-	private ImmutableMap<Integer, Integer> buildIdx2Idx() {
-		final Builder<Integer, Integer> builder = ImmutableMap.builder();
-		int i = 0;
-		for (FAIRecord record: faiRecords) {
-			final Integer id = refDict.getContigNameToID().get(record.name);
+	private ImmutableMap<Integer, String> buildIdx2Name() {
+		final Builder<Integer, String> builder = ImmutableMap.builder();
+		for (String name : cache.getContigNames()) {
+			final Integer id = refDict.getContigNameToID().get(name);
 			if (id == null) {
 				LOGGER.info(
 					"Contig {} from FAI not found in reference dictionary!",
-					new Object[]{ record.name }
+					new Object[]{ name }
 				);
 			} else {
-				builder.put(id, i);
+				builder.put(id, name);
 			}
-			++i;
 		}
 		return builder.build();
 	}
@@ -125,68 +97,11 @@ public class IndexedFASTAReader {
 	 * @throws JannovarException on problems with I/O.
 	 */
 	public String readBases(String contigName, int beginPos, int endPos) throws JannovarException {
-		final int faiIdx = idx2idx.get(refDict.getContigNameToID().get(contigName));
-		final FAIRecord faiRecord = faiRecords.get(faiIdx);
-
-		int beginLine = beginPos / faiRecord.lineBases;
-		int beginRow = beginPos - beginLine * faiRecord.lineBases;
-		long beginOffset = faiRecord.offset + beginLine * faiRecord.lineWidth + beginRow;
-
-		int endLine = endPos / faiRecord.lineBases;
-		int endRow = endPos - endLine * faiRecord.lineBases;
-		long endOffset = faiRecord.offset + endLine * faiRecord.lineWidth + endRow;
-
-		final char[] buffer = new char[(int)(endOffset - beginOffset)];
-		try (
-			FileInputStream fis = new FileInputStream(faiPath);
-			InputStreamReader reader = new InputStreamReader(fis);
-			BufferedReader bufReader = new BufferedReader(reader)
-		) {
-			bufReader.skip(beginOffset);
-			bufReader.read(buffer, 0, (int)(endOffset - beginOffset));
-		} catch (Exception e) {
-			throw new UncheckedJannovarException("Could not load FAI file", e);
-		}
-
-		final StringBuilder builder = new StringBuilder();
-		for (int i = 0; i < buffer.length; ++i) {
-			if (!Character.isSpaceChar(buffer[i])) {
-				builder.append(buffer[i]);
-			}
-		}
-		return builder.toString();
-	}
-
-	/**
-	 * Record in an FAI file.
-	 */
-	private static final class FAIRecord {
-
-		/** Contig name. */
-		final String name;
-
-		/** Length of the sequence. */
-		final int length;
-
-		/** Offset of first sequence base in file. */
-		final long offset;
-
-		/** Number of basese per line. */
-		final int lineBases;
-
-		/** Characters in each line. */
-		final int lineWidth;
-
-		/**
-		 * Construct the {@code FAIRecord}.
-		 */
-		public FAIRecord(String name, int length, long offset, int lineBases, int lineWidth) {
-			this.name = name;
-			this.length = length;
-			this.offset = offset;
-			this.lineBases = lineBases;
-			this.lineWidth = lineWidth;
-		}
+		final Integer id = refDict.getContigNameToID().get(contigName);
+		final String nameInFasta = (id == null) ? null : idx2name.get(id);
+		if (nameInFasta == null)
+			throw new JannovarException("Contig " + contigName + " not found in FASTA file " + cache.getFastaPath());
+		return cache.getString(nameInFasta, beginPos, endPos);
 	}
 
 }
@@ -0,0 +1,109 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only memory mapping of a whole file, in segments such that files larger than 2 GB can be mapped.
+ * <p>
+ * All reads are absolute and go through duplicates of the mapped buffers, so instances are safe for concurrent use.
+ * The mapping stays valid after construction without keeping the file open.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class MappedFile {
+
+	/**
+	 * Size of the memory-mapped segments, must be a power of two
+	 */
+	private static final long SEGMENT_SIZE = 1L << 30;
+
+	/**
+	 * The file, mapped in segments of {@link #SEGMENT_SIZE}
+	 */
+	private final MappedByteBuffer[] segments;
+
+	/**
+	 * Size of the file in bytes
+	 */
+	private final long size;
+
+	/**
+	 * Map the file at <code>path</code>
+	 *
+	 * @param path path to the file
+	 * @throws IOException on problems opening or mapping the file
+	 */
+	MappedFile(String path) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(path, "r");
+			 FileChannel channel = file.getChannel()) {
+			this.size = channel.size();
+			this.segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+			for (int i = 0; i < segments.length; ++i) {
+				final long offset = i * SEGMENT_SIZE;
+				segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(SEGMENT_SIZE, size - offset));
+			}
+		}
+	}
+
+	/**
+	 * @return size of the file in bytes
+	 */
+	long size() {
+		return size;
+	}
+
+	/**
+	 * Copy <code>len</code> bytes from <code>offset</code> in the file to <code>dst</code>
+	 *
+	 * @throws IndexOutOfBoundsException if the range is not within the file
+	 */
+	void read(long offset, byte[] dst, int dstOffset, int len) {
+		if (offset < 0 || offset + len > size)
+			throw new IndexOutOfBoundsException("Cannot read " + len + " bytes at " + offset + " from file of size "
+				+ size);
+		while (len > 0) {
+			final int segmentOffset = (int) (offset & (SEGMENT_SIZE - 1));
+			final int chunk = (int) Math.min(len, SEGMENT_SIZE - segmentOffset);
+			final ByteBuffer buffer = segments[(int) (offset / SEGMENT_SIZE)].duplicate();
+			((Buffer) buffer).position(segmentOffset); // cast for running on Java 8
+			buffer.get(dst, dstOffset, chunk);
+			offset += chunk;
+			dstOffset += chunk;
+			len -= chunk;
+		}
+	}
+
+	/**
+	 * @return byte at <code>offset</code> in the file
+	 */
+	byte get(long offset) {
+		final byte[] result = new byte[1];
+		read(offset, result, 0, 1);
+		return result[0];
+	}
+
+	/**
+	 * @return 32 bit integer at <code>offset</code> in the file
+	 */
+	int getInt(long offset, ByteOrder order) {
+		final byte[] bytes = new byte[4];
+		read(offset, bytes, 0, 4);
+		return ByteBuffer.wrap(bytes).order(order).getInt();
+	}
+
+	/**
+	 * @return 64 bit integer at <code>offset</code> in the file
+	 */
+	long getLong(long offset, ByteOrder order) {
+		final byte[] bytes = new byte[8];
+		read(offset, bytes, 0, 8);
+		return ByteBuffer.wrap(bytes).order(order).getLong();
+	}
+
+}
@@ -0,0 +1,254 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Thread-safe, block-based cache for random access to reference sequence files.
+ * <p>
+ * Two file formats are supported, both of which are memory-mapped: FAI-indexed FASTA files and packed
+ * <code>.2bit</code> files (see {@link TwoBitFile}), the latter are detected by their signature. The sequence is
+ * decoded (i.e., with line breaks removed or unpacked) in blocks of {@link #DEFAULT_BLOCK_SIZE} bases. The decoded
+ * blocks are kept in an LRU cache, such that repeated access to the same region, e.g., by left-shifting indels base by
+ * base, does not touch the file again.
+ * <p>
+ * Use {@link #getShared(String)} for sharing one cache between all users of the same file.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class ReferenceSequenceCache {
+
+	/**
+	 * Default number of bases per block
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+	/**
+	 * Default number of decoded blocks to keep
+	 */
+	public static final int DEFAULT_MAX_BLOCKS = 4096;
+
+	/**
+	 * Caches returned by {@link #getShared(String, String)}, by FASTA and FAI path
+	 */
+	private static final Map<String, ReferenceSequenceCache> SHARED = new HashMap<>();
+
+	/**
+	 * Path to the FASTA or <code>.2bit</code> file
+	 */
+	private final String fastaPath;
+
+	/**
+	 * The file to read from
+	 */
+	private final ReferenceSequenceSource source;
+
+	/**
+	 * Contig index in {@link #source} by contig name
+	 */
+	private final ImmutableMap<String, Integer> contigIndices;
+
+	/**
+	 * Number of bases per block
+	 */
+	private final int blockSize;
+
+	/**
+	 * Decoded blocks, by contig index (upper 32 bits) and block number (lower 32 bits)
+	 */
+	private final Cache<Long, byte[]> blocks;
+
+	/**
+	 * Construct with default FAI path (<code>fastaPath + ".fai"</code>) and default block settings.
+	 *
+	 * @param fastaPath path to the FASTA or <code>.2bit</code> file
+	 * @throws JannovarException on problems reading the FAI file or mapping the file
+	 */
+	public ReferenceSequenceCache(String fastaPath) throws JannovarException {
+		this(fastaPath, fastaPath + ".fai", DEFAULT_BLOCK_SIZE, DEFAULT_MAX_BLOCKS);
+	}
+
+	/**
+	 * Construct with explicit FAI path and block settings.
+	 *
+	 * @param fastaPath path to the FASTA or <code>.2bit</code> file
+	 * @param faiPath   path to the FAI file, ignored for <code>.2bit</code> files
+	 * @param blockSize number of bases per block
+	 * @param maxBlocks number of decoded blocks to keep
+	 * @throws JannovarException on problems reading the FAI file or mapping the file
+	 */
+	public ReferenceSequenceCache(String fastaPath, String faiPath, int blockSize, int maxBlocks)
+		throws JannovarException {
+		if (blockSize < 1)
+			throw new IllegalArgumentException("Block size must be positive but was " + blockSize);
+		this.fastaPath = fastaPath;
+		this.source = openSource(fastaPath, faiPath);
+		final ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+		for (int i = 0; i < source.getContigNames().size(); ++i)
+			builder.put(source.getContigNames().get(i), i);
+		this.contigIndices = builder.build();
+		this.blockSize = blockSize;
+		this.blocks = CacheBuilder.newBuilder().maximumSize(maxBlocks).build();
+	}
+
+	private static ReferenceSequenceSource openSource(String fastaPath, String faiPath) throws JannovarException {
+		if (!TwoBitFile.isTwoBitFile(fastaPath))
+			return new IndexedFASTAFile(fastaPath, faiPath);
+		try {
+			return new TwoBitFile(fastaPath);
+		} catch (IOException e) {
+			throw new JannovarException("Could not open .2bit file " + fastaPath, e);
+		}
+	}
+
+	/**
+	 * Return the cache shared by all callers for <code>fastaPath</code>, with default FAI path and block settings.
+	 *
+	 * @param fastaPath path to the FASTA or <code>.2bit</code> file
+	 * @return the shared cache, constructed on first call
+	 * @throws JannovarException on problems reading the FAI file or mapping the file
+	 */
+	public static ReferenceSequenceCache getShared(String fastaPath) throws JannovarException {
+		return getShared(fastaPath, fastaPath + ".fai");
+	}
+
+	/**
+	 * Return the cache shared by all callers for <code>fastaPath</code> and <code>faiPath</code>, with default block
+	 * settings.
+	 *
+	 * @param fastaPath path to the FASTA or <code>.2bit</code> file
+	 * @param faiPath   path to the FAI file, ignored for <code>.2bit</code> files
+	 * @return the shared cache, constructed on first call
+	 * @throws JannovarException on problems reading the FAI file or mapping the file
+	 */
+	public static ReferenceSequenceCache getShared(String fastaPath, String faiPath) throws JannovarException {
+		final String key = new File(fastaPath).getAbsolutePath() + "\t" + new File(faiPath).getAbsolutePath();
+		synchronized (SHARED) {
+			ReferenceSequenceCache result = SHARED.get(key);
+			if (result == null) {
+				result = new ReferenceSequenceCache(fastaPath, faiPath, DEFAULT_BLOCK_SIZE, DEFAULT_MAX_BLOCKS);
+				SHARED.put(key, result);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * @return path to the FASTA or <code>.2bit</code> file
+	 */
+	public String getFastaPath() {
+		return fastaPath;
+	}
+
+	/**
+	 * @return whether or not the sequence is read from a <code>.2bit</code> file
+	 */
+	public boolean isTwoBit() {
+		return source instanceof TwoBitFile;
+	}
+
+	/**
+	 * @return names of the contigs, in file order
+	 */
+	public ImmutableList<String> getContigNames() {
+		return source.getContigNames();
+	}
+
+	/**
+	 * @param contigName name of the contig
+	 * @return whether or not the file contains the contig
+	 */
+	public boolean hasContig(String contigName) {
+		return contigIndices.containsKey(contigName);
+	}
+
+	/**
+	 * @param contigName name of the contig
+	 * @return length of the contig
+	 * @throws UncheckedJannovarException if the contig is not in the file
+	 */
+	public int getContigLength(String contigName) {
+		return source.getContigLength(getContigIndex(contigName));
+	}
+
+	/**
+	 * Return bases of a contig, as stored in the file (no case conversion)
+	 *
+	 * @param contigName name of the contig
+	 * @param beginPos   0-based begin position
+	 * @param endPos     0-based end position (exclusive)
+	 * @return the bases
+	 * @throws UncheckedJannovarException if the contig is not in the file
+	 * @throws IllegalArgumentException   if the range is not within the contig
+	 */
+	public byte[] getBases(String contigName, int beginPos, int endPos) {
+		final int contigIdx = getContigIndex(contigName);
+		final int length = source.getContigLength(contigIdx);
+		if (beginPos < 0 || endPos < beginPos || endPos > length)
+			throw new IllegalArgumentException("Range " + beginPos + "-" + endPos + " is not within contig "
+				+ contigName + " of length " + length);
+
+		final byte[] result = new byte[endPos - beginPos];
+		int pos = beginPos;
+		while (pos < endPos) {
+			final int blockNo = pos / blockSize;
+			final byte[] block = getBlock(contigIdx, blockNo);
+			final int offset = pos - blockNo * blockSize;
+			final int len = Math.min(block.length - offset, endPos - pos);
+			System.arraycopy(block, offset, result, pos - beginPos, len);
+			pos += len;
+		}
+		return result;
+	}
+
+	/**
+	 * Return bases of a contig as a string, see {@link #getBases(String, int, int)}
+	 */
+	public String getString(String contigName, int beginPos, int endPos) {
+		return new String(getBases(contigName, beginPos, endPos), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Remove all decoded blocks from the cache
+	 */
+	public void invalidateAll() {
+		blocks.invalidateAll();
+	}
+
+	private int getContigIndex(String contigName) {
+		final Integer result = contigIndices.get(contigName);
+		if (result == null)
+			throw new UncheckedJannovarException("Unknown contig " + contigName + " in " + fastaPath);
+		return result;
+	}
+
+	/**
+	 * @return decoded block <code>blockNo</code> of the contig, from the cache if possible
+	 */
+	private byte[] getBlock(int contigIdx, int blockNo) {
+		final long key = ((long) contigIdx << 32) | blockNo;
+		try {
+			return blocks.get(key, () -> {
+				final int beginPos = blockNo * blockSize;
+				final int endPos = Math.min(beginPos + blockSize, source.getContigLength(contigIdx));
+				final byte[] result = new byte[endPos - beginPos];
+				source.readBases(contigIdx, beginPos, result, 0, result.length);
+				return result;
+			});
+		} catch (ExecutionException e) {
+			throw new UncheckedJannovarException("Problem reading from " + fastaPath, e.getCause());
+		}
+	}
+
+}
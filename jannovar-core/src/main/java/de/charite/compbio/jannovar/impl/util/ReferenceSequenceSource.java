@@ -0,0 +1,31 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Random access to the contigs of a reference sequence file, used by {@link ReferenceSequenceCache}.
+ * <p>
+ * Implementations must be safe for concurrent use.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+interface ReferenceSequenceSource {
+
+	/**
+	 * @return names of the contigs, in file order
+	 */
+	ImmutableList<String> getContigNames();
+
+	/**
+	 * @param contigIdx index of the contig in {@link #getContigNames()}
+	 * @return length of the contig
+	 */
+	int getContigLength(int contigIdx);
+
+	/**
+	 * Copy <code>len</code> bases of contig <code>contigIdx</code>, starting at 0-based <code>beginPos</code>, to
+	 * <code>dst</code>; the range has been checked by the caller.
+	 */
+	void readBases(int contigIdx, int beginPos, byte[] dst, int dstOffset, int len);
+
+}
@@ -0,0 +1,406 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Memory-mapped reader and writer for reference sequences in the UCSC <code>.2bit</code> format.
+ * <p>
+ * The format stores each base in two bits, plus runs of <code>N</code> and of lower case (soft-masked) bases as
+ * blocks, so the bases read back are the same as in the FASTA file, except that IUPAC codes other than
+ * <code>ACGTN</code> become <code>N</code>. The human genome takes about 800 MB, and as the file is memory-mapped, the
+ * pages are shared by all processes on one host. Files written by <code>faToTwoBit</code> can be read as well.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class TwoBitFile implements ReferenceSequenceSource {
+
+	/**
+	 * Signature at the beginning of the file, gives the byte order
+	 */
+	private static final int SIGNATURE = 0x1A412743;
+
+	/**
+	 * Bases by their two bit code
+	 */
+	private static final byte[] BASES = {'T', 'C', 'A', 'G'};
+
+	/**
+	 * Largest offset that can be stored in version 0 files
+	 */
+	private static final long MAX_VERSION_0_OFFSET = 0xFFFFFFFFL;
+
+	/**
+	 * Size of the packed bases above which version 1 (64 bit offsets) is written, leaves room for the block lists
+	 */
+	private static final long VERSION_1_THRESHOLD = 0xE0000000L;
+
+	/**
+	 * Path to the file
+	 */
+	private final String path;
+
+	/**
+	 * The mapped file
+	 */
+	private final MappedFile file;
+
+	/**
+	 * Byte order of the file
+	 */
+	private final ByteOrder order;
+
+	/**
+	 * Contig names, in file order
+	 */
+	private final ImmutableList<String> contigNames;
+
+	/**
+	 * Offsets of the sequence records, by contig index
+	 */
+	private final long[] recordOffsets;
+
+	/**
+	 * Contig lengths, by contig index
+	 */
+	private final int[] contigLengths;
+
+	/**
+	 * Block lists and offset of the packed bases, by contig index, read on first use
+	 */
+	private final AtomicReferenceArray<SequenceRecord> records;
+
+	/**
+	 * Open <code>.2bit</code> file
+	 *
+	 * @param path path to the file
+	 * @throws IOException on problems reading the file or if it is not a <code>.2bit</code> file
+	 */
+	public TwoBitFile(String path) throws IOException {
+		this.path = path;
+		this.file = new MappedFile(path);
+		if (file.size() < 16)
+			throw new IOException("File " + path + " is too short for a .2bit file");
+		if (file.getInt(0, ByteOrder.BIG_ENDIAN) == SIGNATURE)
+			this.order = ByteOrder.BIG_ENDIAN;
+		else if (file.getInt(0, ByteOrder.LITTLE_ENDIAN) == SIGNATURE)
+			this.order = ByteOrder.LITTLE_ENDIAN;
+		else
+			throw new IOException("File " + path + " is not a .2bit file");
+		final int version = file.getInt(4, order);
+		if (version != 0 && version != 1)
+			throw new IOException("Unsupported .2bit version " + version + " in " + path);
+		final int seqCount = file.getInt(8, order);
+
+		final ImmutableList.Builder<String> names = ImmutableList.builder();
+		this.recordOffsets = new long[seqCount];
+		this.contigLengths = new int[seqCount];
+		long offset = 16;
+		for (int i = 0; i < seqCount; ++i) {
+			final int nameSize = file.get(offset) & 0xFF;
+			final byte[] name = new byte[nameSize];
+			file.read(offset + 1, name, 0, nameSize);
+			names.add(new String(name, StandardCharsets.US_ASCII));
+			offset += 1 + nameSize;
+			if (version == 0) {
+				recordOffsets[i] = file.getInt(offset, order) & 0xFFFFFFFFL;
+				offset += 4;
+			} else {
+				recordOffsets[i] = file.getLong(offset, order);
+				offset += 8;
+			}
+			contigLengths[i] = file.getInt(recordOffsets[i], order);
+		}
+		this.contigNames = names.build();
+		this.records = new AtomicReferenceArray<>(seqCount);
+	}
+
+	/**
+	 * @param path path to the file
+	 * @return whether or not the file starts with the <code>.2bit</code> signature
+	 */
+	public static boolean isTwoBitFile(String path) {
+		final byte[] bytes = new byte[4];
+		try (InputStream in = new FileInputStream(path)) {
+			if (in.read(bytes) != 4)
+				return false;
+		} catch (IOException e) {
+			return false;
+		}
+		final int be = ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8)
+			| (bytes[3] & 0xFF);
+		return be == SIGNATURE || Integer.reverseBytes(be) == SIGNATURE;
+	}
+
+	/**
+	 * @return path to the file
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	@Override
+	public ImmutableList<String> getContigNames() {
+		return contigNames;
+	}
+
+	@Override
+	public int getContigLength(int contigIdx) {
+		return contigLengths[contigIdx];
+	}
+
+	@Override
+	public void readBases(int contigIdx, int beginPos, byte[] dst, int dstOffset, int len) {
+		if (len == 0)
+			return;
+		final SequenceRecord record = getRecord(contigIdx);
+		final int endPos = beginPos + len;
+
+		// unpack bases
+		final int firstByte = beginPos / 4;
+		final byte[] packed = new byte[(endPos - 1) / 4 - firstByte + 1];
+		file.read(record.packedOffset + firstByte, packed, 0, packed.length);
+		for (int pos = beginPos; pos < endPos; ++pos) {
+			final int code = (packed[pos / 4 - firstByte] >> (6 - 2 * (pos % 4))) & 3;
+			dst[dstOffset + pos - beginPos] = BASES[code];
+		}
+
+		// apply N blocks and mask blocks
+		for (int i = firstBlock(record.nStarts, record.nSizes, beginPos); i < record.nStarts.length
+			&& record.nStarts[i] < endPos; ++i) {
+			final int from = Math.max(beginPos, record.nStarts[i]);
+			final int to = Math.min(endPos, record.nStarts[i] + record.nSizes[i]);
+			Arrays.fill(dst, dstOffset + from - beginPos, dstOffset + to - beginPos, (byte) 'N');
+		}
+		for (int i = firstBlock(record.maskStarts, record.maskSizes, beginPos); i < record.maskStarts.length
+			&& record.maskStarts[i] < endPos; ++i) {
+			final int from = Math.max(beginPos, record.maskStarts[i]);
+			final int to = Math.min(endPos, record.maskStarts[i] + record.maskSizes[i]);
+			for (int j = dstOffset + from - beginPos; j < dstOffset + to - beginPos; ++j)
+				dst[j] = (byte) Character.toLowerCase(dst[j]);
+		}
+	}
+
+	/**
+	 * @return index of the first block ending after <code>pos</code>, blocks are sorted and do not overlap
+	 */
+	private static int firstBlock(int[] starts, int[] sizes, int pos) {
+		int idx = Arrays.binarySearch(starts, pos);
+		if (idx < 0)
+			idx = -idx - 2; // last block starting before pos
+		if (idx < 0)
+			return 0;
+		return (starts[idx] + sizes[idx] > pos) ? idx : idx + 1;
+	}
+
+	private SequenceRecord getRecord(int contigIdx) {
+		SequenceRecord result = records.get(contigIdx);
+		if (result == null) {
+			// parsing twice in concurrent first use is harmless
+			result = new SequenceRecord(recordOffsets[contigIdx]);
+			records.set(contigIdx, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Write the contigs of <code>source</code> to a <code>.2bit</code> file, in big-endian byte order.
+	 *
+	 * @param source the sequences to write
+	 * @param path   path to the output file
+	 * @throws IOException on problems writing the file
+	 */
+	public static void write(ReferenceSequenceCache source, String path) throws IOException {
+		final ImmutableList<String> names = source.getContigNames();
+		long totalPacked = 0;
+		for (String name : names)
+			totalPacked += (source.getContigLength(name) + 3) / 4;
+		final int version = (totalPacked > VERSION_1_THRESHOLD) ? 1 : 0;
+
+		long indexSize = 16;
+		for (String name : names) {
+			if (name.length() > 255)
+				throw new IOException("Contig name too long for .2bit file: " + name);
+			indexSize += 1 + name.length() + (version == 0 ? 4 : 8);
+		}
+
+		// write the sequence records after space for the index, then the index with the record offsets
+		final long[] offsets = new long[names.size()];
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path),
+			1 << 20))) {
+			for (long i = 0; i < indexSize; ++i)
+				out.write(0);
+			long offset = indexSize;
+			for (int i = 0; i < names.size(); ++i) {
+				if (version == 0 && offset > MAX_VERSION_0_OFFSET)
+					throw new IOException("Sequences too large for .2bit file");
+				offsets[i] = offset;
+				offset += writeRecord(out, source, names.get(i));
+			}
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(path, "rw")) {
+			raf.writeInt(SIGNATURE);
+			raf.writeInt(version);
+			raf.writeInt(names.size());
+			raf.writeInt(0);
+			for (int i = 0; i < names.size(); ++i) {
+				raf.writeByte(names.get(i).length());
+				raf.write(names.get(i).getBytes(StandardCharsets.US_ASCII));
+				if (version == 0)
+					raf.writeInt((int) offsets[i]);
+				else
+					raf.writeLong(offsets[i]);
+			}
+		}
+	}
+
+	/**
+	 * Write sequence record for one contig
+	 *
+	 * @return number of bytes written
+	 */
+	private static long writeRecord(DataOutputStream out, ReferenceSequenceCache source, String name)
+		throws IOException {
+		final int length = source.getContigLength(name);
+		final byte[] packed = new byte[(length + 3) / 4];
+		final IntList nStarts = new IntList();
+		final IntList nSizes = new IntList();
+		final IntList maskStarts = new IntList();
+		final IntList maskSizes = new IntList();
+
+		final int chunkSize = 1 << 20;
+		int nBegin = -1;
+		int maskBegin = -1;
+		for (int chunkBegin = 0; chunkBegin < length; chunkBegin += chunkSize) {
+			final byte[] bases = source.getBases(name, chunkBegin, Math.min(chunkBegin + chunkSize, length));
+			for (int i = 0; i < bases.length; ++i) {
+				final int pos = chunkBegin + i;
+				final byte base = bases[i];
+				final boolean lower = base >= 'a' && base <= 'z';
+				final int code;
+				switch (lower ? base - 'a' + 'A' : base) {
+					case 'T':
+						code = 0;
+						break;
+					case 'C':
+						code = 1;
+						break;
+					case 'A':
+						code = 2;
+						break;
+					case 'G':
+						code = 3;
+						break;
+					default:
+						code = -1;
+				}
+				packed[pos / 4] |= (byte) (Math.max(code, 0) << (6 - 2 * (pos % 4)));
+
+				if (code < 0 && nBegin < 0) {
+					nBegin = pos;
+				} else if (code >= 0 && nBegin >= 0) {
+					nStarts.add(nBegin);
+					nSizes.add(pos - nBegin);
+					nBegin = -1;
+				}
+				if (lower && maskBegin < 0) {
+					maskBegin = pos;
+				} else if (!lower && maskBegin >= 0) {
+					maskStarts.add(maskBegin);
+					maskSizes.add(pos - maskBegin);
+					maskBegin = -1;
+				}
+			}
+		}
+		if (nBegin >= 0) {
+			nStarts.add(nBegin);
+			nSizes.add(length - nBegin);
+		}
+		if (maskBegin >= 0) {
+			maskStarts.add(maskBegin);
+			maskSizes.add(length - maskBegin);
+		}
+
+		out.writeInt(length);
+		nStarts.writeWithCount(out);
+		nSizes.write(out);
+		maskStarts.writeWithCount(out);
+		maskSizes.write(out);
+		out.writeInt(0); // reserved
+		out.write(packed);
+		return 4 + 4 + 8L * nStarts.size + 4 + 8L * maskStarts.size + 4 + packed.length;
+	}
+
+	/**
+	 * Block lists and offset of the packed bases of one sequence record
+	 */
+	private final class SequenceRecord {
+
+		final int[] nStarts;
+		final int[] nSizes;
+		final int[] maskStarts;
+		final int[] maskSizes;
+		final long packedOffset;
+
+		SequenceRecord(long offset) {
+			offset += 4; // skip dnaSize
+			final int nCount = file.getInt(offset, order);
+			nStarts = readInts(offset + 4, nCount);
+			nSizes = readInts(offset + 4 + 4L * nCount, nCount);
+			offset += 4 + 8L * nCount;
+			final int maskCount = file.getInt(offset, order);
+			maskStarts = readInts(offset + 4, maskCount);
+			maskSizes = readInts(offset + 4 + 4L * maskCount, maskCount);
+			offset += 4 + 8L * maskCount;
+			packedOffset = offset + 4; // skip reserved
+		}
+
+		private int[] readInts(long offset, int count) {
+			final byte[] bytes = new byte[4 * count];
+			file.read(offset, bytes, 0, bytes.length);
+			final int[] result = new int[count];
+			ByteBuffer.wrap(bytes).order(order).asIntBuffer().get(result);
+			return result;
+		}
+
+	}
+
+	/**
+	 * Growable list of <code>int</code> values for writing blocks
+	 */
+	private static final class IntList {
+
+		int[] values = new int[16];
+		int size = 0;
+
+		void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, 2 * size);
+			values[size++] = value;
+		}
+
+		void writeWithCount(DataOutputStream out) throws IOException {
+			out.writeInt(size);
+			write(out);
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			for (int i = 0; i < size; ++i)
+				out.writeInt(values[i]);
+		}
+
+	}
+
+}
@@ -15,6 +15,8 @@ import java.util.Map.Entry;
  * This list is not called <code>GenotypeList</code> as "list" indicates more of a "vertical" arrangement (multiple
  * sites) of genotypes instead of a "horizontal" one (one site, multiple samples).
  * <p>
+ * Objects can also be views of a row in a {@link GenotypeMatrix}, see {@link GenotypeMatrix#getCalls(int)}.
+ * <p>
  * Note: of course, the class is only immutable as long as <code>payload</code> is immutable!
  *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
@@ -29,17 +31,21 @@ public final class GenotypeCalls implements Iterable<Entry<String, Genotype>> {
 	 */
 	private final ChromosomeType chromType;
 	/**
-	 * Mapping from sample name to {@link Genotype}
-	 */
-	private final ImmutableSortedMap<String, Genotype> sampleToGenotype;
-	/**
-	 * List of sample names
+	 * Mapping from sample name to {@link Genotype}, built on first use for views of a {@link GenotypeMatrix} row
 	 */
-	private final ImmutableList<String> sampleNames;
+	private ImmutableSortedMap<String, Genotype> sampleToGenotype;
 	/**
 	 * A payload object for later easier reidentification
 	 */
 	private final Object payload;
+	/**
+	 * The matrix that this is a view of, <code>null</code> if not a view
+	 */
+	private final GenotypeMatrix matrix;
+	/**
+	 * The row in {@link #matrix}
+	 */
+	private final int row;
 
 	/**
 	 * Initialize {@link GenotypeCalls} with mapping from sample to genotype
@@ -64,15 +70,34 @@ public final class GenotypeCalls implements Iterable<Entry<String, Genotype>> {
 						 Object payload) {
 		this.chromType = chromType;
 		this.sampleToGenotype = ImmutableSortedMap.copyOf(sampleToGenotype);
-		this.sampleNames = ImmutableList.copyOf(this.sampleToGenotype.keySet());
 		this.payload = payload;
+		this.matrix = null;
+		this.row = -1;
+	}
+
+	/**
+	 * Initialize {@link GenotypeCalls} as a view of a row in a {@link GenotypeMatrix}
+	 *
+	 * @param matrix    the matrix
+	 * @param row       the row in <code>matrix</code>
+	 * @param chromType type of the chromosome of this genotype call site
+	 * @param payload   An arbitrary payload object, see {@link #GenotypeCalls(ChromosomeType, Iterable, Object)}
+	 */
+	GenotypeCalls(GenotypeMatrix matrix, int row, ChromosomeType chromType, Object payload) {
+		this.chromType = chromType;
+		this.sampleToGenotype = null;
+		this.payload = payload;
+		this.matrix = matrix;
+		this.row = row;
 	}
 
 	/**
 	 * @return number of samples in genotype list
 	 */
 	public int getNSamples() {
-		return sampleNames.size();
+		if (matrix != null)
+			return matrix.getNSamples();
+		return sampleToGenotype.size();
 	}
 
 	/**
@@ -81,6 +106,10 @@ public final class GenotypeCalls implements Iterable<Entry<String, Genotype>> {
 	 * <code>null</code>
 	 */
 	public Genotype getGenotypeForSample(String sample) {
+		if (matrix != null) {
+			final int column = matrix.getColumn(sample);
+			return (column < 0) ? GT_NO_CALL : GenotypeMatrix.decode(matrix.get(row, column));
+		}
 		Genotype result = sampleToGenotype.get(sample);
 		// TODO(holtgrewe): using Optional<> here would make handling empty return values more elegant in the calling
 		// code such that the behaviour could change then
@@ -94,7 +123,7 @@ public final class GenotypeCalls implements Iterable<Entry<String, Genotype>> {
 	 * @return {@link Genotype} by sample number
 	 */
 	public Genotype getGenotypeBySampleNo(int sampleNo) {
-		return sampleToGenotype.get(sampleNames.get(sampleNo));
+		return getSampleToGenotype().values().asList().get(sampleNo);
 	}
 
 	/**
@@ -108,14 +137,22 @@ public final class GenotypeCalls implements Iterable<Entry<String, Genotype>> {
 	 * @return Sample to genotype map
 	 */
 	public ImmutableSortedMap<String, Genotype> getSampleToGenotype() {
-		return sampleToGenotype;
+		ImmutableSortedMap<String, Genotype> result = sampleToGenotype;
+		if (result == null) {
+			// benign race, the map is immutable and the same for all threads
+			final ImmutableSortedMap.Builder<String, Genotype> builder = ImmutableSortedMap.naturalOrder();
+			for (int column = 0; column < matrix.getNSamples(); ++column)
+				builder.put(matrix.getSampleNames().get(column), GenotypeMatrix.decode(matrix.get(row, column)));
+			sampleToGenotype = result = builder.build();
+		}
+		return result;
 	}
 
 	/**
 	 * @return Sample names
 	 */
 	public ImmutableList<String> getSampleNames() {
-		return sampleNames;
+		return getSampleToGenotype().keySet().asList();
 	}
 
 	/**
@@ -127,13 +164,13 @@ public final class GenotypeCalls implements Iterable<Entry<String, Genotype>> {
 
 	@Override
 	public String toString() {
-		return "GenotypeCalls [chromType=" + chromType + ", sampleToGenotype=" + sampleToGenotype + ", sampleNames="
-			+ sampleNames + ", payload=" + payload + "]";
+		return "GenotypeCalls [chromType=" + chromType + ", sampleToGenotype=" + getSampleToGenotype()
+			+ ", sampleNames=" + getSampleNames() + ", payload=" + payload + "]";
 	}
 
 	@Override
 	public Iterator<Entry<String, Genotype>> iterator() {
-		return sampleToGenotype.entrySet().iterator();
+		return getSampleToGenotype().entrySet().iterator();
 	}
 
 	@Override
@@ -0,0 +1,354 @@
+package de.charite.compbio.jannovar.mendel;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Person;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map.Entry;
+import java.util.TreeSet;
+
+/**
+ * Compact genotypes of multiple sites (rows) in multiple samples (columns), e.g., of the variants of one gene
+ * <p>
+ * Each genotype is stored as a one byte code, a combination of the flags {@link #HOM_REF}, {@link #HET},
+ * {@link #HOM_ALT}, and {@link #NOT_OBSERVED} with the same semantics as the corresponding {@link Genotype} methods
+ * (e.g., <code>0/.</code> is both het. and hom. ref.). This is what the Mendelian checkers work on and avoids
+ * allocating one {@link Genotype} per sample and site for large cohorts.
+ * <p>
+ * Each row can be accessed as a {@link GenotypeCalls} through {@link #getCalls(int)}. For matrices built with
+ * {@link #of(Collection)}, these are the original objects. Otherwise, they are views whose {@link Genotype}s are
+ * reconstructed from the codes, i.e., with canonical allele numbers (e.g., <code>0/1</code> for any het. call).
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+public final class GenotypeMatrix {
+
+	/**
+	 * Flag for hom. ref. genotypes, see {@link Genotype#isHomRef()}
+	 */
+	public static final byte HOM_REF = 1;
+	/**
+	 * Flag for het. genotypes, see {@link Genotype#isHet()}
+	 */
+	public static final byte HET = 2;
+	/**
+	 * Flag for hom. alt. genotypes, see {@link Genotype#isHomAlt()}
+	 */
+	public static final byte HOM_ALT = 4;
+	/**
+	 * Flag for genotypes without observed alleles, see {@link Genotype#isNotObserved()}, also used for samples that
+	 * are not in the matrix
+	 */
+	public static final byte NOT_OBSERVED = 8;
+
+	/**
+	 * {@link Genotype} with canonical allele numbers, by code
+	 */
+	private static final Genotype[] CANONICAL_GENOTYPES = new Genotype[16];
+
+	static {
+		final int[][] alleleNumbers = {{-1, -1}, {0, 0}, {0, 1}, {1, 1}, {0, -1}, {1, -1}, {0, 1, 2}};
+		for (int[] a : alleleNumbers) {
+			final Genotype gt = new Genotype(Arrays.stream(a).boxed().collect(ImmutableList.toImmutableList()));
+			CANONICAL_GENOTYPES[encode(gt)] = gt;
+		}
+	}
+
+	/**
+	 * Names of the samples, by column
+	 */
+	private final ImmutableList<String> sampleNames;
+	/**
+	 * Column by sample name
+	 */
+	private final ImmutableMap<String, Integer> sampleColumns;
+	/**
+	 * Chromosome type, by row
+	 */
+	private final ChromosomeType[] chromTypes;
+	/**
+	 * Genotype codes, row by row
+	 */
+	private final byte[] codes;
+	/**
+	 * {@link GenotypeCalls} by row
+	 */
+	private final GenotypeCalls[] calls;
+
+	/**
+	 * Pedigree and its columns from the last call to {@link #getColumns(Pedigree)}
+	 */
+	private volatile PedigreeColumns pedigreeColumns;
+
+	/**
+	 * Construct from the given arrays, which are not copied, use {@link GenotypeMatrixBuilder} for building
+	 *
+	 * @param sampleNames names of the samples
+	 * @param chromTypes  chromosome type by row
+	 * @param codes       genotype codes, row by row
+	 * @param payloads    payload by row, used for the {@link GenotypeCalls} views
+	 */
+	GenotypeMatrix(ImmutableList<String> sampleNames, ChromosomeType[] chromTypes, byte[] codes, Object[] payloads) {
+		this(sampleNames, chromTypes, codes, new GenotypeCalls[chromTypes.length]);
+		for (int row = 0; row < calls.length; ++row)
+			calls[row] = new GenotypeCalls(this, row, chromTypes[row], payloads[row]);
+	}
+
+	private GenotypeMatrix(ImmutableList<String> sampleNames, ChromosomeType[] chromTypes, byte[] codes,
+						   GenotypeCalls[] calls) {
+		this.sampleNames = sampleNames;
+		final ImmutableMap.Builder<String, Integer> builder = ImmutableMap.builder();
+		for (int i = 0; i < sampleNames.size(); ++i)
+			builder.put(sampleNames.get(i), i);
+		this.sampleColumns = builder.build();
+		this.chromTypes = chromTypes;
+		this.codes = codes;
+		this.calls = calls;
+	}
+
+	/**
+	 * Build matrix from {@link GenotypeCalls} objects
+	 * <p>
+	 * The columns are the union of the samples of <code>calls</code>, in lexicographic order. Samples missing in one
+	 * of the <code>calls</code> are not observed there, as in {@link GenotypeCalls#getGenotypeForSample(String)}.
+	 *
+	 * @param calls the {@link GenotypeCalls} to use for the rows
+	 * @return the matrix, with <code>calls</code> as the {@link GenotypeCalls} of the rows
+	 */
+	public static GenotypeMatrix of(Collection<GenotypeCalls> calls) {
+		final TreeSet<String> names = new TreeSet<>();
+		for (GenotypeCalls gc : calls)
+			names.addAll(gc.getSampleNames());
+		final ImmutableList<String> sampleNames = ImmutableList.copyOf(names);
+
+		final GenotypeCalls[] rowCalls = calls.toArray(new GenotypeCalls[0]);
+		final ChromosomeType[] chromTypes = new ChromosomeType[rowCalls.length];
+		final byte[] codes = new byte[rowCalls.length * sampleNames.size()];
+		final GenotypeMatrix result = new GenotypeMatrix(sampleNames, chromTypes, codes, rowCalls);
+		for (int row = 0; row < rowCalls.length; ++row) {
+			chromTypes[row] = rowCalls[row].getChromType();
+			Arrays.fill(codes, row * sampleNames.size(), (row + 1) * sampleNames.size(), NOT_OBSERVED);
+			for (Entry<String, Genotype> e : rowCalls[row])
+				codes[row * sampleNames.size() + result.getColumn(e.getKey())] = encode(e.getValue());
+		}
+		return result;
+	}
+
+	/**
+	 * @param rows the rows to select
+	 * @return matrix with the selected rows and the same columns, sharing the {@link GenotypeCalls} of the rows
+	 */
+	public GenotypeMatrix selectRows(BitSet rows) {
+		final int nSamples = getNSamples();
+		final int nRows = rows.cardinality();
+		final ChromosomeType[] newChromTypes = new ChromosomeType[nRows];
+		final byte[] newCodes = new byte[nRows * nSamples];
+		final GenotypeCalls[] newCalls = new GenotypeCalls[nRows];
+		int i = 0;
+		for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1), ++i) {
+			newChromTypes[i] = chromTypes[row];
+			System.arraycopy(codes, row * nSamples, newCodes, i * nSamples, nSamples);
+			newCalls[i] = calls[row];
+		}
+		return new GenotypeMatrix(sampleNames, newChromTypes, newCodes, newCalls);
+	}
+
+	/**
+	 * @param alleleNumbers allele numbers of the genotype, see {@link Genotype}
+	 * @return genotype code, with the same semantics as {@link Genotype}
+	 */
+	public static byte encode(int... alleleNumbers) {
+		int numObserved = 0;
+		boolean hasRef = false;
+		boolean allRefOrNoCall = true;
+		boolean allObservedEqual = true;
+		int firstObserved = Genotype.NO_CALL;
+		for (int x : alleleNumbers) {
+			if (x == Genotype.NO_CALL)
+				continue;
+			if (numObserved++ == 0)
+				firstObserved = x;
+			else if (x != firstObserved)
+				allObservedEqual = false;
+			if (x == Genotype.REF_CALL)
+				hasRef = true;
+			else
+				allRefOrNoCall = false;
+		}
+		if (numObserved == 0)
+			return NOT_OBSERVED;
+
+		byte result = 0;
+		if (alleleNumbers.length == 2 && alleleNumbers[0] != alleleNumbers[1])
+			result |= HET;
+		if (allRefOrNoCall)
+			result |= HOM_REF;
+		if (!hasRef && allObservedEqual)
+			result |= HOM_ALT;
+		return result;
+	}
+
+	/**
+	 * @param gt the {@link Genotype} to encode
+	 * @return genotype code of <code>gt</code>
+	 */
+	public static byte encode(Genotype gt) {
+		byte result = 0;
+		if (gt.isHomRef())
+			result |= HOM_REF;
+		if (gt.isHet())
+			result |= HET;
+		if (gt.isHomAlt())
+			result |= HOM_ALT;
+		if (gt.isNotObserved())
+			result |= NOT_OBSERVED;
+		return result;
+	}
+
+	/**
+	 * @param code genotype code
+	 * @return {@link Genotype} with canonical allele numbers for <code>code</code>, e.g., <code>0/1</code> for
+	 * {@link #HET}
+	 */
+	static Genotype decode(byte code) {
+		return CANONICAL_GENOTYPES[code];
+	}
+
+	/**
+	 * @return whether <code>code</code> is hom. ref., see {@link Genotype#isHomRef()}
+	 */
+	public static boolean isHomRef(byte code) {
+		return (code & HOM_REF) != 0;
+	}
+
+	/**
+	 * @return whether <code>code</code> is het., see {@link Genotype#isHet()}
+	 */
+	public static boolean isHet(byte code) {
+		return (code & HET) != 0;
+	}
+
+	/**
+	 * @return whether <code>code</code> is hom. alt., see {@link Genotype#isHomAlt()}
+	 */
+	public static boolean isHomAlt(byte code) {
+		return (code & HOM_ALT) != 0;
+	}
+
+	/**
+	 * @return whether <code>code</code> is not observed, see {@link Genotype#isNotObserved()}
+	 */
+	public static boolean isNotObserved(byte code) {
+		return (code & NOT_OBSERVED) != 0;
+	}
+
+	/**
+	 * @return number of rows (sites)
+	 */
+	public int getNRows() {
+		return chromTypes.length;
+	}
+
+	/**
+	 * @return number of columns (samples)
+	 */
+	public int getNSamples() {
+		return sampleNames.size();
+	}
+
+	/**
+	 * @return names of the samples, by column
+	 */
+	public ImmutableList<String> getSampleNames() {
+		return sampleNames;
+	}
+
+	/**
+	 * @param sampleName name of the sample
+	 * @return column of the sample, <code>-1</code> if not in the matrix
+	 */
+	public int getColumn(String sampleName) {
+		final Integer result = sampleColumns.get(sampleName);
+		return (result == null) ? -1 : result;
+	}
+
+	/**
+	 * @param pedigree the pedigree to get the columns for
+	 * @return column of each member of <code>pedigree</code>, in the order of {@link Pedigree#getMembers()},
+	 * <code>-1</code> for members not in the matrix, must not be modified
+	 */
+	public int[] getColumns(Pedigree pedigree) {
+		PedigreeColumns result = pedigreeColumns;
+		if (result == null || result.pedigree != pedigree) {
+			final int[] columns = new int[pedigree.getNMembers()];
+			int i = 0;
+			for (Person p : pedigree.getMembers())
+				columns[i++] = getColumn(p.getName());
+			pedigreeColumns = result = new PedigreeColumns(pedigree, columns);
+		}
+		return result.columns;
+	}
+
+	/**
+	 * @param row    the row (site)
+	 * @param column the column (sample), <code>-1</code> for a sample that is not in the matrix
+	 * @return genotype code in the given row and column, {@link #NOT_OBSERVED} for column <code>-1</code>
+	 */
+	public byte get(int row, int column) {
+		if (column < 0)
+			return NOT_OBSERVED;
+		return codes[row * sampleNames.size() + column];
+	}
+
+	/**
+	 * @return chromosome type of <code>row</code>
+	 */
+	public ChromosomeType getChromType(int row) {
+		return chromTypes[row];
+	}
+
+	/**
+	 * @return {@link GenotypeCalls} of <code>row</code>
+	 */
+	public GenotypeCalls getCalls(int row) {
+		return calls[row];
+	}
+
+	/**
+	 * @param rows the rows to return the {@link GenotypeCalls} for
+	 * @return {@link GenotypeCalls} of <code>rows</code>, in row order
+	 */
+	public ImmutableList<GenotypeCalls> getCalls(BitSet rows) {
+		final ImmutableList.Builder<GenotypeCalls> builder = ImmutableList.builder();
+		for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1))
+			builder.add(calls[row]);
+		return builder.build();
+	}
+
+	@Override
+	public String toString() {
+		return "GenotypeMatrix [nRows=" + getNRows() + ", sampleNames=" + sampleNames + "]";
+	}
+
+	/**
+	 * Cache entry for {@link #getColumns(Pedigree)}
+	 */
+	private static final class PedigreeColumns {
+
+		final Pedigree pedigree;
+		final int[] columns;
+
+		PedigreeColumns(Pedigree pedigree, int[] columns) {
+			this.pedigree = pedigree;
+			this.columns = columns;
+		}
+
+	}
+
+}
@@ -0,0 +1,79 @@
+package de.charite.compbio.jannovar.mendel;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Helper class for building {@link GenotypeMatrix} objects row by row
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class GenotypeMatrixBuilder {
+
+	/**
+	 * Names of the samples, by column
+	 */
+	private final ImmutableList<String> sampleNames;
+	/**
+	 * Chromosome type, by row
+	 */
+	private final List<ChromosomeType> chromTypes;
+	/**
+	 * Payload, by row
+	 */
+	private final List<Object> payloads;
+	/**
+	 * Genotype codes, row by row, the first <code>chromTypes.size() * sampleNames.size()</code> entries are used
+	 */
+	private byte[] codes;
+
+	/**
+	 * @param sampleNames names of the samples, by column
+	 */
+	public GenotypeMatrixBuilder(List<String> sampleNames) {
+		this.sampleNames = ImmutableList.copyOf(sampleNames);
+		this.chromTypes = new ArrayList<>();
+		this.payloads = new ArrayList<>();
+		this.codes = new byte[16 * Math.max(1, sampleNames.size())];
+	}
+
+	/**
+	 * Add a row
+	 *
+	 * @param chromType type of the chromosome of the site
+	 * @param rowCodes  genotype codes of the samples (see {@link GenotypeMatrix#encode(int...)}), by column, copied
+	 * @param payload   payload of the {@link GenotypeCalls} view of the row
+	 * @throws IllegalArgumentException if the length of <code>rowCodes</code> is not the number of samples
+	 */
+	public void addRow(ChromosomeType chromType, byte[] rowCodes, Object payload) {
+		final int nSamples = sampleNames.size();
+		if (rowCodes.length != nSamples)
+			throw new IllegalArgumentException("Expected " + nSamples + " genotypes but got " + rowCodes.length);
+		final int offset = chromTypes.size() * nSamples;
+		if (offset + nSamples > codes.length)
+			codes = Arrays.copyOf(codes, 2 * codes.length);
+		System.arraycopy(rowCodes, 0, codes, offset, nSamples);
+		chromTypes.add(chromType);
+		payloads.add(payload);
+	}
+
+	public GenotypeMatrix build() {
+		return new GenotypeMatrix(sampleNames, chromTypes.toArray(new ChromosomeType[0]),
+			Arrays.copyOf(codes, chromTypes.size() * sampleNames.size()), payloads.toArray());
+	}
+
+	public ImmutableList<String> getSampleNames() {
+		return sampleNames;
+	}
+
+	/**
+	 * @return number of rows added so far
+	 */
+	public int getNRows() {
+		return chromTypes.size();
+	}
+
+}
@@ -2,17 +2,20 @@ package de.charite.compbio.jannovar.mendel;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
 import de.charite.compbio.jannovar.Immutable;
 import de.charite.compbio.jannovar.mendel.impl.*;
 import de.charite.compbio.jannovar.pedigree.Pedigree;
 import de.charite.compbio.jannovar.pedigree.PedigreeQueryDecorator;
 
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Map;
 
 /**
  * Facade class for checking lists of {@link GenotypeCalls} for compatibility with mendelian inheritance
+ * <p>
+ * The checks are performed on a {@link GenotypeMatrix}, the {@link GenotypeCalls}-based methods build one. For large
+ * cohorts, build the {@link GenotypeMatrix} directly with a {@link GenotypeMatrixBuilder}.
  *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
@@ -65,26 +68,37 @@ public final class MendelianInheritanceChecker {
 	 */
 	public ImmutableMap<ModeOfInheritance, ImmutableList<GenotypeCalls>> checkMendelianInheritance(
 		Collection<GenotypeCalls> calls, Collection<GenotypeCalls> recessiveCalls) throws IncompatiblePedigreeException {
-		ImmutableMap.Builder<ModeOfInheritance, ImmutableList<GenotypeCalls>> builder = new ImmutableMap.Builder<>();
-		for (ModeOfInheritance mode : ModeOfInheritance.values()) {
-			if (mode == ModeOfInheritance.ANY) {
-				builder.put(mode, ImmutableList.copyOf(calls));
-			} else {
-				if (mode == ModeOfInheritance.AUTOSOMAL_RECESSIVE || mode == ModeOfInheritance.X_RECESSIVE) {
-					builder.put(mode, filterCompatibleRecords(recessiveCalls, mode));
-				} else {
-					builder.put(mode, filterCompatibleRecords(calls, mode));
-				}
-			}
-		}
-		return builder.build();
+		return checkMendelianInheritance(GenotypeMatrix.of(calls), GenotypeMatrix.of(recessiveCalls));
 	}
 
 	public ImmutableMap<ModeOfInheritance, ImmutableList<GenotypeCalls>> checkMendelianInheritance(
 		Collection<GenotypeCalls> calls) throws IncompatiblePedigreeException {
-		return checkMendelianInheritance(calls, calls);
+		final GenotypeMatrix matrix = GenotypeMatrix.of(calls);
+		return checkMendelianInheritance(matrix, matrix);
 	}
 
+	/**
+	 * Perform checking for compatible mode of inheritance
+	 *
+	 * @param matrix          {@link GenotypeMatrix} to perform the mode of inheritance check for in case of
+	 *                        non-recessive mode of inheritance
+	 * @param recessiveMatrix {@link GenotypeMatrix} to perform the mode of inheritance check for in case of recessive
+	 *                        mode of inheritance
+	 * @return {@link Map} that, for each {@link ModeOfInheritance}, contains the {@link GenotypeCalls} of the
+	 * compatible rows
+	 * @throws IncompatiblePedigreeException if the individuals in the matrices do not fit to the pedigree
+	 */
+	public ImmutableMap<ModeOfInheritance, ImmutableList<GenotypeCalls>> checkMendelianInheritance(
+		GenotypeMatrix matrix, GenotypeMatrix recessiveMatrix) throws IncompatiblePedigreeException {
+		ImmutableMap.Builder<ModeOfInheritance, ImmutableList<GenotypeCalls>> builder = new ImmutableMap.Builder<>();
+		for (ModeOfInheritance mode : ModeOfInheritance.values()) {
+			if (mode == ModeOfInheritance.AUTOSOMAL_RECESSIVE || mode == ModeOfInheritance.X_RECESSIVE)
+				builder.put(mode, filterCompatibleRecords(recessiveMatrix, mode));
+			else
+				builder.put(mode, filterCompatibleRecords(matrix, mode));
+		}
+		return builder.build();
+	}
 
 	/**
 	 * Perform checking for compatible sub mode of inheritance
@@ -98,24 +112,35 @@ public final class MendelianInheritanceChecker {
 	 */
 	public ImmutableMap<SubModeOfInheritance, ImmutableList<GenotypeCalls>> checkMendelianInheritanceSub(
 		Collection<GenotypeCalls> calls, Collection<GenotypeCalls> compHetRecessiveCalls) throws IncompatiblePedigreeException {
-		ImmutableMap.Builder<SubModeOfInheritance, ImmutableList<GenotypeCalls>> builder = new ImmutableMap.Builder<>();
-		for (SubModeOfInheritance mode : SubModeOfInheritance.values()) {
-			if (mode == SubModeOfInheritance.ANY) {
-				builder.put(mode, ImmutableList.copyOf(calls));
-			} else {
-				if (mode == SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET || mode == SubModeOfInheritance.X_RECESSIVE_COMP_HET) {
-					builder.put(mode, filterCompatibleRecordsSub(compHetRecessiveCalls, mode));
-				} else {
-					builder.put(mode, filterCompatibleRecordsSub(calls, mode));
-				}
-			}
-		}
-		return builder.build();
+		return checkMendelianInheritanceSub(GenotypeMatrix.of(calls), GenotypeMatrix.of(compHetRecessiveCalls));
 	}
 
 	public ImmutableMap<SubModeOfInheritance, ImmutableList<GenotypeCalls>> checkMendelianInheritanceSub(
 		Collection<GenotypeCalls> calls) throws IncompatiblePedigreeException {
-		return checkMendelianInheritanceSub(calls, calls);
+		final GenotypeMatrix matrix = GenotypeMatrix.of(calls);
+		return checkMendelianInheritanceSub(matrix, matrix);
+	}
+
+	/**
+	 * Perform checking for compatible sub mode of inheritance
+	 *
+	 * @param matrix                 {@link GenotypeMatrix} to perform the mode of inheritance check for
+	 * @param compHetRecessiveMatrix {@link GenotypeMatrix} to perform the mode of inheritance check for in case of
+	 *                               compound het. recessive mode of inheritance
+	 * @return {@link Map} that, for each {@link SubModeOfInheritance}, contains the {@link GenotypeCalls} of the
+	 * compatible rows
+	 * @throws IncompatiblePedigreeException if the individuals in the matrices do not fit to the pedigree
+	 */
+	public ImmutableMap<SubModeOfInheritance, ImmutableList<GenotypeCalls>> checkMendelianInheritanceSub(
+		GenotypeMatrix matrix, GenotypeMatrix compHetRecessiveMatrix) throws IncompatiblePedigreeException {
+		ImmutableMap.Builder<SubModeOfInheritance, ImmutableList<GenotypeCalls>> builder = new ImmutableMap.Builder<>();
+		for (SubModeOfInheritance mode : SubModeOfInheritance.values()) {
+			if (mode == SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET || mode == SubModeOfInheritance.X_RECESSIVE_COMP_HET)
+				builder.put(mode, filterCompatibleRecordsSub(compHetRecessiveMatrix, mode));
+			else
+				builder.put(mode, filterCompatibleRecordsSub(matrix, mode));
+		}
+		return builder.build();
 	}
 
 	/**
@@ -127,45 +152,51 @@ public final class MendelianInheritanceChecker {
 	 * @throws IncompatiblePedigreeException if the individuals in <code>calls</code> do not fit to the pedigree
 	 */
 	public ImmutableList<GenotypeCalls> filterCompatibleRecords(Collection<GenotypeCalls> calls, ModeOfInheritance mode)
+		throws IncompatiblePedigreeException {
+		return filterCompatibleRecords(GenotypeMatrix.of(calls), mode);
+	}
+
+	/**
+	 * Filters rows in <code>matrix</code> for compatibility with <code>mode</code>
+	 *
+	 * @param matrix {@link GenotypeMatrix} to filter
+	 * @param mode   {@link ModeOfInheritance} to check for
+	 * @return {@link GenotypeCalls} of the rows of <code>matrix</code> that are compatible with <code>mode</code>, in
+	 * row order
+	 * @throws IncompatiblePedigreeException if the individuals in <code>matrix</code> do not fit to the pedigree
+	 */
+	public ImmutableList<GenotypeCalls> filterCompatibleRecords(GenotypeMatrix matrix, ModeOfInheritance mode)
 		throws IncompatiblePedigreeException {
 		// Check for compatibility of calls with pedigree
-		if (!calls.stream().allMatch(c -> isCompatibleWithPedigree(c)))
+		if (!isCompatibleWithPedigree(matrix))
 			throw new IncompatiblePedigreeException("GenotypeCalls not compatible with pedigree");
 		// Filter down to the compatible records
-		ImmutableSet<GenotypeCalls> calls1;
-		ImmutableSet<GenotypeCalls> calls2;
-		ImmutableList.Builder<GenotypeCalls> builder;
+		final BitSet rows;
 		switch (mode) {
 			case AUTOSOMAL_DOMINANT:
-				return checkers.get(SubModeOfInheritance.AUTOSOMAL_DOMINANT).filterCompatibleRecords(calls);
+				rows = checkers.get(SubModeOfInheritance.AUTOSOMAL_DOMINANT).filterCompatibleRows(matrix);
+				break;
 			case AUTOSOMAL_RECESSIVE:
-				calls1 = ImmutableSet.copyOf(
-					checkers.get(SubModeOfInheritance.AUTOSOMAL_RECESSIVE_HOM_ALT).filterCompatibleRecords(calls));
-				calls2 = ImmutableSet.copyOf(
-					checkers.get(SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET).filterCompatibleRecords(calls));
-				builder = new ImmutableList.Builder<>();
-				for (GenotypeCalls c : calls)
-					if (calls1.contains(c) || calls2.contains(c))
-						builder.add(c);
-				return builder.build();
+				rows = checkers.get(SubModeOfInheritance.AUTOSOMAL_RECESSIVE_HOM_ALT).filterCompatibleRows(matrix);
+				rows.or(checkers.get(SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET).filterCompatibleRows(matrix));
+				break;
 			case X_DOMINANT:
-				return checkers.get(SubModeOfInheritance.X_DOMINANT).filterCompatibleRecords(calls);
+				rows = checkers.get(SubModeOfInheritance.X_DOMINANT).filterCompatibleRows(matrix);
+				break;
 			case X_RECESSIVE:
-				calls1 = ImmutableSet
-					.copyOf(checkers.get(SubModeOfInheritance.X_RECESSIVE_HOM_ALT).filterCompatibleRecords(calls));
-				calls2 = ImmutableSet
-					.copyOf(checkers.get(SubModeOfInheritance.X_RECESSIVE_COMP_HET).filterCompatibleRecords(calls));
-				builder = new ImmutableList.Builder<>();
-				for (GenotypeCalls c : calls)
-					if (calls1.contains(c) || calls2.contains(c))
-						builder.add(c);
-				return builder.build();
+				rows = checkers.get(SubModeOfInheritance.X_RECESSIVE_HOM_ALT).filterCompatibleRows(matrix);
+				rows.or(checkers.get(SubModeOfInheritance.X_RECESSIVE_COMP_HET).filterCompatibleRows(matrix));
+				break;
 			case MITOCHONDRIAL:
-				return checkers.get(SubModeOfInheritance.MITOCHONDRIAL).filterCompatibleRecords(calls);
+				rows = checkers.get(SubModeOfInheritance.MITOCHONDRIAL).filterCompatibleRows(matrix);
+				break;
 			default:
 			case ANY:
-				return ImmutableList.copyOf(calls);
+				rows = new BitSet();
+				rows.set(0, matrix.getNRows());
+				break;
 		}
+		return matrix.getCalls(rows);
 	}
 
 	/**
@@ -178,14 +209,31 @@ public final class MendelianInheritanceChecker {
 	 */
 	public ImmutableList<GenotypeCalls> filterCompatibleRecordsSub(Collection<GenotypeCalls> calls,
 																   SubModeOfInheritance subMode) throws IncompatiblePedigreeException {
+		return filterCompatibleRecordsSub(GenotypeMatrix.of(calls), subMode);
+	}
+
+	/**
+	 * Filters rows in <code>matrix</code> for compatibility with <code>subMode</code>
+	 *
+	 * @param matrix  {@link GenotypeMatrix} to filter
+	 * @param subMode {@link SubModeOfInheritance} to check for
+	 * @return {@link GenotypeCalls} of the rows of <code>matrix</code> that are compatible with <code>subMode</code>,
+	 * in row order
+	 * @throws IncompatiblePedigreeException if the individuals in <code>matrix</code> do not fit to the pedigree
+	 */
+	public ImmutableList<GenotypeCalls> filterCompatibleRecordsSub(GenotypeMatrix matrix,
+																   SubModeOfInheritance subMode) throws IncompatiblePedigreeException {
 		// Check for compatibility of calls with pedigree
-		if (!calls.stream().allMatch(c -> isCompatibleWithPedigree(c)))
+		if (!isCompatibleWithPedigree(matrix))
 			throw new IncompatiblePedigreeException("GenotypeCalls not compatible with pedigree");
 		// Filter down to the compatible records
-		if (subMode == SubModeOfInheritance.ANY)
-			return ImmutableList.copyOf(calls);
-		else
-			return checkers.get(subMode).filterCompatibleRecords(calls);
+		if (subMode == SubModeOfInheritance.ANY) {
+			final BitSet rows = new BitSet();
+			rows.set(0, matrix.getNRows());
+			return matrix.getCalls(rows);
+		} else {
+			return matrix.getCalls(checkers.get(subMode).filterCompatibleRows(matrix));
+		}
 	}
 
 	/**
@@ -196,10 +244,13 @@ public final class MendelianInheritanceChecker {
 	}
 
 	/**
-	 * @return <code>true</code> if <code>call</code> is compatible with this pedigree
+	 * @return <code>true</code> if the samples of <code>matrix</code> are compatible with this pedigree
 	 */
-	private boolean isCompatibleWithPedigree(GenotypeCalls calls) {
-		return pedigree.getNames().containsAll(calls.getSampleNames());
+	private boolean isCompatibleWithPedigree(GenotypeMatrix matrix) {
+		if (matrix.getNRows() == 0)
+			return true; // no calls to check
+		// hash lookups, the name list of the pedigree would make this quadratic in the number of samples
+		return pedigree.getNameToMember().keySet().containsAll(matrix.getSampleNames());
 	}
 
 }
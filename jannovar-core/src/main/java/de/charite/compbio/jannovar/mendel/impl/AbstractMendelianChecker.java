@@ -1,18 +1,25 @@
 package de.charite.compbio.jannovar.mendel.impl;
 
 import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.mendel.ChromosomeType;
 import de.charite.compbio.jannovar.mendel.GenotypeCalls;
+import de.charite.compbio.jannovar.mendel.GenotypeMatrix;
 import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
 import de.charite.compbio.jannovar.mendel.MendelianInheritanceChecker;
 import de.charite.compbio.jannovar.pedigree.Pedigree;
 import de.charite.compbio.jannovar.pedigree.PedigreeQueryDecorator;
+import de.charite.compbio.jannovar.pedigree.Person;
 
+import java.util.BitSet;
 import java.util.Collection;
 
 // TODO: check compatibility of pedigree with GenotypeCalls
 
 /**
  * Abstract base class for mendelian checkers
+ * <p>
+ * The checkers work on a {@link GenotypeMatrix} with the pedigree members resolved to columns, the
+ * {@link GenotypeCalls}-based {@link #filterCompatibleRecords(Collection)} builds such a matrix.
  *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
@@ -30,11 +37,16 @@ public abstract class AbstractMendelianChecker {
 	 * The pedigree query helper
 	 */
 	final protected PedigreeQueryDecorator queryDecorator;
+	/**
+	 * The members of {@link #pedigree}, the member index is the index in {@link GenotypeMatrix#getColumns(Pedigree)}
+	 */
+	final protected ImmutableList<Person> members;
 
 	public AbstractMendelianChecker(MendelianInheritanceChecker parent) {
 		this.parent = parent;
 		this.pedigree = parent.getPedigree();
 		this.queryDecorator = new PedigreeQueryDecorator(this.pedigree);
+		this.members = this.pedigree.getMembers();
 	}
 
 	/**
@@ -44,7 +56,39 @@ public abstract class AbstractMendelianChecker {
 	 * @return Filtered {@link ImmutableList} of {@link GenotypeCalls} objects, subset of <code>calls</code>
 	 * @throws IncompatiblePedigreeException if <code>calls</code> is incompatible with the pedigree
 	 */
-	public abstract ImmutableList<GenotypeCalls> filterCompatibleRecords(Collection<GenotypeCalls> calls)
-		throws IncompatiblePedigreeException;
+	public ImmutableList<GenotypeCalls> filterCompatibleRecords(Collection<GenotypeCalls> calls)
+		throws IncompatiblePedigreeException {
+		final GenotypeMatrix matrix = GenotypeMatrix.of(calls);
+		return matrix.getCalls(filterCompatibleRows(matrix));
+	}
+
+	/**
+	 * Filter rows of a {@link GenotypeMatrix} for fitting to mode
+	 *
+	 * @param matrix The genotypes to check for compatibility
+	 * @return The rows of <code>matrix</code> that are compatible
+	 * @throws IncompatiblePedigreeException if <code>matrix</code> is incompatible with the pedigree
+	 */
+	public abstract BitSet filterCompatibleRows(GenotypeMatrix matrix) throws IncompatiblePedigreeException;
+
+	/**
+	 * @return rows of <code>matrix</code> on a chromosome of type <code>chromType</code>
+	 */
+	protected static BitSet getRowsOfChromType(GenotypeMatrix matrix, ChromosomeType chromType) {
+		final BitSet result = new BitSet(matrix.getNRows());
+		for (int row = 0; row < matrix.getNRows(); ++row)
+			if (matrix.getChromType(row) == chromType)
+				result.set(row);
+		return result;
+	}
+
+	/**
+	 * @return genotype code of the first sample in <code>row</code>, for single-individual pedigrees
+	 */
+	protected static byte getSingletonCode(GenotypeMatrix matrix, int row) {
+		if (matrix.getNSamples() == 0)
+			return GenotypeMatrix.NOT_OBSERVED; // no calls!
+		return matrix.get(row, 0);
+	}
 
 }
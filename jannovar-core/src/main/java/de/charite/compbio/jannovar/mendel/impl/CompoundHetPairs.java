@@ -0,0 +1,178 @@
+package de.charite.compbio.jannovar.mendel.impl;
+
+import de.charite.compbio.jannovar.mendel.GenotypeMatrix;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pairs of rows in a {@link GenotypeMatrix} that are compatible with compound heterozygous inheritance
+ * <p>
+ * Helper for the compound heterozygous checkers. Instead of enumerating the pairs of candidate rows, the checkers
+ * describe them through bit vectors over the rows. Each call to {@link #addCandidates}, {@link #requirePairs}, and
+ * {@link #excludePairs} takes two row sets <code>x</code> and <code>y</code>, which stand for the pairs in <code>x
+ * &times; y</code> and <code>y &times; x</code>. A pair is compatible if it is in any of the candidate products, in
+ * each of the required products, in none of the excluded products, and neither row is excluded. Only the rows of the
+ * candidates can be part of compatible pairs, so the checkers add the candidates first and restrict the remaining
+ * conditions to {@link #getCandidateRows()}.
+ * <p>
+ * {@link #selectRows()} computes the compatible partners of a row with bitwise operations. The sets only depend on
+ * the genotypes of the pedigree members, so for more than {@link #MIN_ROWS_TO_SHARE} candidate rows, rows with the same
+ * genotypes share the computation. This bounds the work by the number of distinct genotype combinations instead of the
+ * number of rows.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class CompoundHetPairs {
+
+	/**
+	 * Minimal number of candidate rows for sharing the partners between rows with the same genotypes, below this, the
+	 * rows fit into one word and hashing the genotypes costs more than the bitwise operations
+	 */
+	static final int MIN_ROWS_TO_SHARE = 64;
+
+	/**
+	 * Genotypes of the pedigree members
+	 */
+	private final TrioGenotypes trios;
+	/**
+	 * Products of row sets, the union of which gives the candidate pairs
+	 */
+	private final List<BitSet[]> candidates = new ArrayList<>();
+	/**
+	 * Products of row sets, all of which must contain a compatible pair, the third entry is the union of the first two
+	 */
+	private final List<BitSet[]> required = new ArrayList<>();
+	/**
+	 * Products of row sets, none of which may contain a compatible pair
+	 */
+	private final List<BitSet[]> excluded = new ArrayList<>();
+	/**
+	 * The rows of the candidate pairs
+	 */
+	private final BitSet candidateRows = new BitSet();
+	/**
+	 * The rows that may not be part of a compatible pair
+	 */
+	private final BitSet excludedRows = new BitSet();
+
+	CompoundHetPairs(TrioGenotypes trios) {
+		this.trios = trios;
+	}
+
+	/**
+	 * Add the pairs in <code>x &times; y</code> and <code>y &times; x</code> to the candidates
+	 */
+	void addCandidates(BitSet x, BitSet y) {
+		if (x.isEmpty() || y.isEmpty())
+			return;
+		candidates.add(new BitSet[]{x, y});
+		candidateRows.or(x);
+		candidateRows.or(y);
+	}
+
+	/**
+	 * @return the rows of the candidate pairs added so far, must not be modified
+	 */
+	BitSet getCandidateRows() {
+		return candidateRows;
+	}
+
+	/**
+	 * Require compatible pairs to be in <code>x &times; y</code> or <code>y &times; x</code>
+	 */
+	void requirePairs(BitSet x, BitSet y) {
+		final BitSet union = (BitSet) x.clone();
+		union.or(y);
+		required.add(new BitSet[]{x, y, union});
+	}
+
+	/**
+	 * Require compatible pairs not to be in <code>x &times; y</code> or <code>y &times; x</code>
+	 */
+	void excludePairs(BitSet x, BitSet y) {
+		excluded.add(new BitSet[]{x, y});
+	}
+
+	/**
+	 * Require both rows of compatible pairs not to be in <code>x</code>
+	 */
+	void excludeRows(BitSet x) {
+		excludedRows.or(x);
+	}
+
+	/**
+	 * @return the rows that are part of at least one compatible pair of two different rows
+	 */
+	BitSet selectRows() {
+		final Map<ByteBuffer, BitSet> partnersByGenotypes = new HashMap<>();
+		final boolean share = candidateRows.cardinality() > MIN_ROWS_TO_SHARE;
+		final BitSet result = new BitSet();
+		for (int row = candidateRows.nextSetBit(0); row >= 0; row = candidateRows.nextSetBit(row + 1)) {
+			final int r = row;
+			final BitSet partners = share ? partnersByGenotypes.computeIfAbsent(trios.getMemberGenotypes(row),
+				key -> getPartners(r)) : getPartners(row);
+			// exclude if variants are identical
+			final int first = partners.nextSetBit(0);
+			if (first >= 0 && (first != row || partners.nextSetBit(row + 1) >= 0))
+				result.set(row);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the rows forming a compatible pair with <code>row</code>, possibly including <code>row</code> itself
+	 */
+	private BitSet getPartners(int row) {
+		final BitSet result = new BitSet();
+		if (excludedRows.get(row))
+			return result;
+
+		for (BitSet[] product : candidates)
+			addPartners(result, product, row);
+		for (BitSet[] product : required) {
+			final boolean inX = product[0].get(row);
+			final boolean inY = product[1].get(row);
+			if (inX && inY)
+				result.and(product[2]);
+			else if (inX)
+				result.and(product[1]);
+			else if (inY)
+				result.and(product[0]);
+			else
+				result.clear();
+		}
+		for (BitSet[] product : excluded) {
+			if (product[0].get(row))
+				result.andNot(product[1]);
+			if (product[1].get(row))
+				result.andNot(product[0]);
+		}
+		result.andNot(excludedRows);
+		return result;
+	}
+
+	/**
+	 * Add the rows paired with <code>row</code> in <code>product</code> to <code>result</code>
+	 */
+	private static void addPartners(BitSet result, BitSet[] product, int row) {
+		if (product[0].get(row))
+			result.or(product[1]);
+		if (product[1].get(row))
+			result.or(product[0]);
+	}
+
+	/**
+	 * @return the rows in <code>a</code> but not in <code>b</code>, as a new {@link BitSet}
+	 */
+	static BitSet andNot(BitSet a, BitSet b) {
+		final BitSet result = (BitSet) a.clone();
+		result.andNot(b);
+		return result;
+	}
+
+}
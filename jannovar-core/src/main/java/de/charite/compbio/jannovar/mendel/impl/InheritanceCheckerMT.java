@@ -1,14 +1,10 @@
 package de.charite.compbio.jannovar.mendel.impl;
 
-import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.mendel.*;
 import de.charite.compbio.jannovar.pedigree.Disease;
-import de.charite.compbio.jannovar.pedigree.Pedigree;
 import de.charite.compbio.jannovar.pedigree.Person;
 
-import java.util.Collection;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.BitSet;
 
 /**
  * Helper class for checking a {@link GenotypeCalls} for compatibility with a
@@ -40,21 +36,17 @@ public class InheritanceCheckerMT extends AbstractMendelianChecker {
 	}
 
 	@Override
-	public ImmutableList<GenotypeCalls> filterCompatibleRecords(Collection<GenotypeCalls> calls)
-		throws IncompatiblePedigreeException {
-
-		// Filter to calls on the mitochondrion
-		Stream<GenotypeCalls> mitoCalls = calls.stream()
-			.filter(call -> call.getChromType() == ChromosomeType.MITOCHONDRIAL);
-
-		// Filter to calls compatible with mitochondrial inheritance
-		Stream<GenotypeCalls> compatibleCalls;
-		if (this.pedigree.getNMembers() == 1)
-			compatibleCalls = mitoCalls.filter(this::isCompatibleSingleton);
-		else
-			compatibleCalls = mitoCalls.filter(this::isCompatibleFamily);
-		return ImmutableList.copyOf(compatibleCalls.collect(Collectors.toList()));
-
+	public BitSet filterCompatibleRows(GenotypeMatrix matrix) throws IncompatiblePedigreeException {
+		// Filter to calls on the mitochondrion and compatible with mitochondrial inheritance
+		final int[] columns = matrix.getColumns(pedigree);
+		final BitSet result = getRowsOfChromType(matrix, ChromosomeType.MITOCHONDRIAL);
+		for (int row = result.nextSetBit(0); row >= 0; row = result.nextSetBit(row + 1)) {
+			final boolean compatible = (this.pedigree.getNMembers() == 1) ? isCompatibleSingleton(matrix, row)
+				: isCompatibleFamily(matrix, row, columns);
+			if (!compatible)
+				result.clear(row);
+		}
+		return result;
 	}
 
 	/**
@@ -66,11 +58,12 @@ public class InheritanceCheckerMT extends AbstractMendelianChecker {
 	 * mutation in a low copy number and thus is not substantially affected
 	 * clinically.
 	 *
-	 * @return whether <code>calls</code> is compatible with mitochondrial
+	 * @return whether <code>row</code> is compatible with mitochondrial
 	 * inheritance in the case of multiple individuals in the pedigree
 	 */
-	private boolean isCompatibleFamily(GenotypeCalls calls) {
-		return (affectedsAreCompatible(calls) && parentsAreCompatible(calls) && unaffectedAreCompatible(calls));
+	private boolean isCompatibleFamily(GenotypeMatrix matrix, int row, int[] columns) {
+		return (affectedsAreCompatible(matrix, row, columns) && parentsAreCompatible(matrix, row, columns)
+			&& unaffectedAreCompatible(matrix, row, columns));
 	}
 
 	/**
@@ -82,29 +75,27 @@ public class InheritanceCheckerMT extends AbstractMendelianChecker {
 	 * mito doesnot currently assess heteroplasmy, but any amount // of called
 	 * mutation will be assessed as potentially disease causing here.
 	 *
-	 * @param calls
 	 * @return true if no affected is homozygous wildtype
 	 */
-	private boolean affectedsAreCompatible(GenotypeCalls calls) {
+	private boolean affectedsAreCompatible(GenotypeMatrix matrix, int row, int[] columns) {
 		int numHetOrHomAlt = 0;
 
-		for (Pedigree.IndexedPerson entry : pedigree.getNameToMember().values()) {
-			if (entry.getPerson().getDisease() == Disease.AFFECTED) {
-				final Genotype gt = calls.getGenotypeForSample(entry.getPerson().getName());
-				if (gt.isHomRef())
+		for (int i = 0; i < members.size(); ++i) {
+			if (members.get(i).getDisease() == Disease.AFFECTED) {
+				final byte gt = matrix.get(row, columns[i]);
+				if (GenotypeMatrix.isHomRef(gt))
 					return false;
-				else if (gt.isHomAlt() || gt.isHet())
+				else if (GenotypeMatrix.isHomAlt(gt) || GenotypeMatrix.isHet(gt))
 					numHetOrHomAlt += 1;
 			}
 		}
 		return (numHetOrHomAlt > 0); // no affected is homozygous wildtype and at least one has a call
 	}
 
-	private boolean unaffectedAreCompatible(GenotypeCalls calls) {
-		for (Person p : pedigree.getMembers()) {
-			final String name = p.getName();
-			final Genotype gt = calls.getGenotypeForSample(name);
-			if (p.getDisease() == Disease.UNAFFECTED && gt.isHomAlt())
+	private boolean unaffectedAreCompatible(GenotypeMatrix matrix, int row, int[] columns) {
+		for (int i = 0; i < members.size(); ++i) {
+			if (members.get(i).getDisease() == Disease.UNAFFECTED
+				&& GenotypeMatrix.isHomAlt(matrix.get(row, columns[i])))
 				return false;
 		}
 		return true; // no unaffected is homozygous alternative
@@ -120,12 +111,12 @@ public class InheritanceCheckerMT extends AbstractMendelianChecker {
 	 *
 	 * @return true the variant is not transmitted by the mother
 	 */
-	private boolean parentsAreCompatible(GenotypeCalls calls) {
-		for (Person p : pedigree.getMembers()) {
+	private boolean parentsAreCompatible(GenotypeMatrix matrix, int row, int[] columns) {
+		for (int i = 0; i < members.size(); ++i) {
+			final Person p = members.get(i);
 			if (p.getDisease() == Disease.AFFECTED) {
-				final String name = p.getName();
-				final Genotype gt = calls.getGenotypeForSample(name);
-				if (p.getMother() != null && p.getMother().isUnaffected() && !gt.isHet()) {
+				final byte gt = matrix.get(row, columns[i]);
+				if (p.getMother() != null && p.getMother().isUnaffected() && !GenotypeMatrix.isHet(gt)) {
 					// if mother affected it is already checked that she is het or HomAlt by the
 					// affectedsAreCompatible function
 					return false;
@@ -140,14 +131,12 @@ public class InheritanceCheckerMT extends AbstractMendelianChecker {
 	 * is any call from a variant on the mitochondrion, a singleton sample is
 	 * compatible with mitochondrial inheritance.
 	 *
-	 * @return whether <code>calls</code> is compatible with mitochondrial
+	 * @return whether <code>row</code> is compatible with mitochondrial
 	 * inheritance in the case of a single individual in the pedigree
 	 */
-	private boolean isCompatibleSingleton(GenotypeCalls calls) {
-		if (calls.getNSamples() == 0)
-			return false; // no calls!
-
-		return calls.getGenotypeBySampleNo(0).isHet() || calls.getGenotypeBySampleNo(0).isHomAlt();
+	private boolean isCompatibleSingleton(GenotypeMatrix matrix, int row) {
+		final byte gt = getSingletonCode(matrix, row);
+		return GenotypeMatrix.isHet(gt) || GenotypeMatrix.isHomAlt(gt);
 	}
 
 }
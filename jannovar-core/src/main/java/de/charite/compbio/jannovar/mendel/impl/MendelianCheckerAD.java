@@ -1,16 +1,12 @@
 package de.charite.compbio.jannovar.mendel.impl;
 
-import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.mendel.ChromosomeType;
 import de.charite.compbio.jannovar.mendel.Genotype;
-import de.charite.compbio.jannovar.mendel.GenotypeCalls;
+import de.charite.compbio.jannovar.mendel.GenotypeMatrix;
 import de.charite.compbio.jannovar.mendel.MendelianInheritanceChecker;
 import de.charite.compbio.jannovar.pedigree.Disease;
-import de.charite.compbio.jannovar.pedigree.Person;
 
-import java.util.Collection;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.BitSet;
 
 /**
  * Implementation of Mendelian compatibility check for autosomal dominant case
@@ -32,47 +28,45 @@ public class MendelianCheckerAD extends AbstractMendelianChecker {
 	}
 
 	@Override
-	public ImmutableList<GenotypeCalls> filterCompatibleRecords(Collection<GenotypeCalls> calls) {
-		// Filter to calls on autosomal chromosomes
-		Stream<GenotypeCalls> autosomalCalls = calls.stream()
-			.filter(call -> call.getChromType() == ChromosomeType.AUTOSOMAL);
-		// Filter to calls compatible with AD inheritance
-		Stream<GenotypeCalls> compatibleCalls;
-		if (this.pedigree.getNMembers() == 1)
-			compatibleCalls = autosomalCalls.filter(this::isCompatibleSingleton);
-		else
-			compatibleCalls = autosomalCalls.filter(this::isCompatibleFamily);
-		return ImmutableList.copyOf(compatibleCalls.collect(Collectors.toList()));
+	public BitSet filterCompatibleRows(GenotypeMatrix matrix) {
+		// Filter to calls on autosomal chromosomes and compatible with AD inheritance
+		final int[] columns = matrix.getColumns(pedigree);
+		final BitSet result = getRowsOfChromType(matrix, ChromosomeType.AUTOSOMAL);
+		for (int row = result.nextSetBit(0); row >= 0; row = result.nextSetBit(row + 1)) {
+			final boolean compatible = (this.pedigree.getNMembers() == 1) ? isCompatibleSingleton(matrix, row)
+				: isCompatibleFamily(matrix, row, columns);
+			if (!compatible)
+				result.clear(row);
+		}
+		return result;
 	}
 
 	/**
-	 * @return whether <code>calls</code> is compatible with AD inheritance in the case of a single individual in the
+	 * @return whether <code>row</code> is compatible with AD inheritance in the case of a single individual in the
 	 * pedigree
 	 */
-	private boolean isCompatibleSingleton(GenotypeCalls calls) {
-		if (calls.getNSamples() == 0)
-			return false; // no calls!
-		return calls.getGenotypeBySampleNo(0).isHet();
+	private boolean isCompatibleSingleton(GenotypeMatrix matrix, int row) {
+		return GenotypeMatrix.isHet(getSingletonCode(matrix, row));
 	}
 
 	/**
-	 * @return whether <code>calls</code> is compatible with AD inheritance in the case of multiple individuals in the
+	 * @return whether <code>row</code> is compatible with AD inheritance in the case of multiple individuals in the
 	 * pedigree
 	 */
-	private boolean isCompatibleFamily(GenotypeCalls calls) {
+	private boolean isCompatibleFamily(GenotypeMatrix matrix, int row, int[] columns) {
 		int numAffectedWithHet = 0;
 
-		for (Person p : pedigree.getMembers()) {
-			final Genotype gt = calls.getGenotypeForSample(p.getName());
-			final Disease d = p.getDisease();
+		for (int i = 0; i < members.size(); ++i) {
+			final byte gt = matrix.get(row, columns[i]);
+			final Disease d = members.get(i).getDisease();
 
 			if (d == Disease.AFFECTED) {
-				if (gt.isHomRef() || gt.isHomAlt())
+				if (GenotypeMatrix.isHomRef(gt) || GenotypeMatrix.isHomAlt(gt))
 					return false;
-				else if (gt.isHet())
+				else if (GenotypeMatrix.isHet(gt))
 					numAffectedWithHet++;
 			} else if (d == Disease.UNAFFECTED) {
-				if (gt.isHet() || gt.isHomAlt())
+				if (GenotypeMatrix.isHet(gt) || GenotypeMatrix.isHomAlt(gt))
 					return false;
 			}
 		}
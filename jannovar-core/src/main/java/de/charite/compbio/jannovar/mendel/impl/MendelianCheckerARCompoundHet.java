@@ -7,8 +7,8 @@ import de.charite.compbio.jannovar.pedigree.Disease;
 import de.charite.compbio.jannovar.pedigree.Pedigree;
 import de.charite.compbio.jannovar.pedigree.Person;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.BitSet;
+import java.util.Collection;
 
 // TODO: also return no-call/not-observed variant
 
@@ -19,6 +19,10 @@ import java.util.stream.Collectors;
  * <h2>Compatibility Check</h2>
  * <p>
  * In the case of a single individual, we require at least two heterozygous genotype calls.
+ * <p>
+ * In the case of multiple individuals, the candidate pairs of variants from the trios around the affected individuals
+ * and the conditions on them are described by bit vectors over the variants (see {@link CompoundHetPairs}) instead of
+ * being enumerated.
  *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  * @author <a href="mailto:max.schubach@charite.de">Max Schubach</a>
@@ -27,239 +31,163 @@ import java.util.stream.Collectors;
 public class MendelianCheckerARCompoundHet extends AbstractMendelianChecker {
 
 	/**
-	 * list of siblings for each person in {@link #pedigree}
+	 * member indices of the unaffected siblings for each person in {@link #pedigree}, by member index
 	 */
-	private final ImmutableMap<Person, ImmutableList<Person>> siblings;
+	private final int[][] unaffectedSiblings;
 
 	public MendelianCheckerARCompoundHet(MendelianInheritanceChecker parent) {
 		super(parent);
 
-		this.siblings = queryDecorator.buildSiblings();
+		this.unaffectedSiblings = buildUnaffectedSiblings(pedigree, queryDecorator.buildSiblings());
+	}
+
+	/**
+	 * @return member indices of the unaffected siblings in <code>siblings</code>, by member index
+	 */
+	static int[][] buildUnaffectedSiblings(Pedigree pedigree, ImmutableMap<Person, ImmutableList<Person>> siblings) {
+		final int[][] result = new int[pedigree.getNMembers()][];
+		for (int i = 0; i < result.length; ++i) {
+			final ImmutableList<Person> lst = siblings.get(pedigree.getMembers().get(i));
+			result[i] = (lst == null) ? new int[0] : lst.stream().filter(s -> s.getDisease() == Disease.UNAFFECTED)
+				.mapToInt(s -> pedigree.getNameToMember().get(s.getName()).getIdx()).toArray();
+		}
+		return result;
 	}
 
 	/**
-	 * @param calls Genotypes for all pedigree members at all sites of the 'unit' being investigated (e.g., a gene, or a regulon).
-	 * @return Genotypes for all variants that are compatible with autosomal recessive compound heterozygous inheritance.
+	 * @param matrix Genotypes for all pedigree members at all sites of the 'unit' being investigated (e.g., a gene, or
+	 *               a regulon).
+	 * @return Rows of all variants that are compatible with autosomal recessive compound heterozygous inheritance.
 	 */
 	@Override
-	public ImmutableList<GenotypeCalls> filterCompatibleRecords(Collection<GenotypeCalls> calls)
-		throws IncompatiblePedigreeException {
-		List<GenotypeCalls> autosomalCalls = calls.stream()
-			.filter(call -> call.getChromType() == ChromosomeType.AUTOSOMAL).collect(Collectors.toList());
+	public BitSet filterCompatibleRows(GenotypeMatrix matrix) throws IncompatiblePedigreeException {
+		final BitSet autosomalRows = getRowsOfChromType(matrix, ChromosomeType.AUTOSOMAL);
 		if (pedigree.getNMembers() == 1)
-			return filterCompatibleRecordsSingleSample(autosomalCalls);
+			return filterCompatibleRowsSingleSample(matrix, autosomalRows);
 		else
-			return filterCompatibleRecordsMultiSample(autosomalCalls);
+			return filterCompatibleRowsMultiSample(matrix, autosomalRows);
 	}
 
 	/**
 	 * In the single sample case, if we find two or more heterozygous variants, then there is compatibility with
 	 * autosomal recessive compound heterozygous inheritance.
 	 */
-	ImmutableList<GenotypeCalls> filterCompatibleRecordsSingleSample(Collection<GenotypeCalls> calls) {
-		ImmutableList.Builder<GenotypeCalls> builder = new ImmutableList.Builder<>();
-		for (GenotypeCalls gc : calls) {
-			if (gc.getGenotypeBySampleNo(0).isHet())
-				builder.add(gc);
-		}
+	static BitSet filterCompatibleRowsSingleSample(GenotypeMatrix matrix, BitSet rows) {
+		final BitSet result = new BitSet();
+		for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1))
+			if (GenotypeMatrix.isHet(getSingletonCode(matrix, row)))
+				result.set(row);
 
-		ImmutableList<GenotypeCalls> result = builder.build();
-		if (result.size() > 1)
+		if (result.cardinality() > 1)
 			return result;
 		else
-			return ImmutableList.of();
+			return new BitSet();
 	}
 
-	private ImmutableList<GenotypeCalls> filterCompatibleRecordsMultiSample(Collection<GenotypeCalls> calls) {
-		// First, collect candidate genotype call lists from trios around affected individuals
-		ArrayList<Candidate> candidates = collectTrioCandidates(calls);
+	private BitSet filterCompatibleRowsMultiSample(GenotypeMatrix matrix, BitSet rows) {
+		final TrioGenotypes trios = new TrioGenotypes(pedigree, matrix, rows);
+		final CompoundHetPairs pairs = new CompoundHetPairs(trios);
 
-		// Then, check the candidates for all trios around affected individuals
-		Set<GenotypeCalls> result = new HashSet<>();
-		for (Candidate c : candidates) {
-			if (isCompatibleWithTriosAroundAffected(c)) {
-				// If candidate holds, check all unaffected for not being homozygous alt
-				if (isCompatibleWithUnaffected(c)) {
-					result.add(c.getMaternal());
-					result.add(c.getPaternal());
-				}
-			}
-		}
-		return ImmutableList.copyOf(result);
+		// First, collect candidate pairs of rows from trios around affected individuals
+		collectTrioCandidates(trios, rows, pairs);
+		// Only the rows of candidates can be part of compatible pairs
+		final BitSet candidateRows = pairs.getCandidateRows();
+		if (candidateRows.cardinality() < 2)
+			return new BitSet();
+
+		// Then, the candidates must be compatible with all trios around affected individuals
+		for (int i = 0; i < members.size(); ++i)
+			if (members.get(i).getDisease() == Disease.AFFECTED)
+				addTrioAroundAffectedConstraints(trios, candidateRows, pairs, i);
+
+		// Finally, check all unaffected for not being homozygous alt or compound heterozygous
+		addUnaffectedConstraints(trios, candidateRows, pairs);
+
+		return pairs.selectRows();
 	}
 
-	private boolean isCompatibleWithUnaffected(Candidate c) {
-		for (Person p : pedigree.getMembers()) {
+	private void addUnaffectedConstraints(TrioGenotypes trios, BitSet rows, CompoundHetPairs pairs) {
+		for (int i = 0; i < members.size(); ++i) {
+			final Person p = members.get(i);
 			if (p.getDisease() == Disease.UNAFFECTED) {
-				boolean patHet = false;
-				boolean matHet = false;
-				// None of the genotypes from the paternal or maternal call lists may be homozygous in the index
-				if (c.getPaternal() != null) {
-					final Genotype pGT = c.getPaternal().getGenotypeForSample(p.getName());
-					if (pGT.isHomAlt())
-						return false;
-					if (pGT.isHet())
-						patHet = true;
-				}
-				if (c.getMaternal() != null) {
-					final Genotype mGT = c.getMaternal().getGenotypeForSample(p.getName());
-					if (mGT.isHomAlt())
-						return false;
-					if (mGT.isHet())
-						matHet = true;
-				}
-
-				// If mat and pat variant are heterozygous in an unaffected, check if they are on the same allele or not
-				// The variants in the Candidate are labeled paternal/maternal according to where they were found
-				// ppGT is the genotype of the father of p for the 'paternal' variant
-				// mpGT is the genotype of the mother of p for the 'paternal' variant
-				// pmGT is the genotype of the father of p for the 'maternal' variant
-				// mmGT is the genotype of the mother of p for the 'maternal' variant
-				// If an unaffected person is compound het for a pair of variants and the parents of p eachcontribute one variant, then
-				// it cannot be a cause of autosomal recessive disease since p is unaffected.
-				if (patHet && matHet) {
-					if (c.getPaternal() != null && p.getFather() != null && c.getMaternal() != null
-						&& p.getMother() != null) {
-						final Genotype ppGT = c.getPaternal().getGenotypeForSample(p.getFather().getName());
-						final Genotype mpGT = c.getPaternal().getGenotypeForSample(p.getMother().getName());
-						final Genotype pmGT = c.getMaternal().getGenotypeForSample(p.getFather().getName());
-						final Genotype mmGT = c.getMaternal().getGenotypeForSample(p.getMother().getName());
-						// way one (paternal and maternal can now be switched around!
-						if (ppGT.isHet() && mpGT.isHomRef() && pmGT.isHomRef() && mmGT.isHet())
-							return false;
-						if (ppGT.isHomRef() && mpGT.isHet() && pmGT.isHet() && mmGT.isHomRef())
-							return false;
-					}
-				}
+				// None of the genotypes from the paternal or maternal rows may be homozygous in the index
+				pairs.excludeRows(trios.select(rows, i, GenotypeMatrix.HOM_ALT));
+
+				// If mat and pat variant are heterozygous in an unaffected, check if they are on the same allele or not.
+				// If an unaffected person is compound het for a pair of variants and the parents of p each contribute one
+				// variant, then it cannot be a cause of autosomal recessive disease since p is unaffected.
+				if (p.getFather() != null && p.getMother() != null)
+					excludeCompoundHetFromParents(trios, rows, pairs, i);
 			}
 		}
+	}
 
-		return true;
+	/**
+	 * Exclude pairs of rows that are heterozygous in member <code>i</code>, with one variant inherited from each parent
+	 */
+	static void excludeCompoundHetFromParents(TrioGenotypes trios, BitSet rows, CompoundHetPairs pairs, int i) {
+		final BitSet het = trios.select(rows, i, GenotypeMatrix.HET);
+		final BitSet fromFather = trios.selectFather(het, i, GenotypeMatrix.HET);
+		fromFather.and(trios.selectMother(het, i, GenotypeMatrix.HOM_REF));
+		final BitSet fromMother = trios.selectFather(het, i, GenotypeMatrix.HOM_REF);
+		fromMother.and(trios.selectMother(het, i, GenotypeMatrix.HET));
+		pairs.excludePairs(fromFather, fromMother);
 	}
 
 	/**
 	 * This function looks for candidate pairs of variants in each of the affected-parent trios of the pedigree.
-	 *
-	 * @return A list of {@link Candidate} pairs of variants for each member of the pedigree.
 	 */
-	private ArrayList<Candidate> collectTrioCandidates(Collection<GenotypeCalls> calls) {
-		ArrayList<Candidate> result = new ArrayList<Candidate>();
-
+	private void collectTrioCandidates(TrioGenotypes trios, BitSet rows, CompoundHetPairs pairs) {
 		// fist collect the candidates only over the affected if at least one parent is avaiable
 		boolean noParent = true;
-		for (Person p : pedigree.getMembers()) {
+		for (int i = 0; i < members.size(); ++i) {
+			final Person p = members.get(i);
 			// Check if at least one parent is available
 			if (p.getDisease() == Disease.AFFECTED && (p.getFather() != null || p.getMother() != null)) {
-				collectTroCandidatesWithParents(calls, result, p);
+				collectTrioCandidatesWithParents(trios, rows, pairs, i);
 				noParent = false;
 			}
 		}
 
 		// If no parent was available (e.g. only siblings)
 		if (noParent) {
-			for (Person p : pedigree.getMembers()) {
-				// Check if at least one parent is available
-				if (p.getDisease() == Disease.AFFECTED) {
-					collectTroCandidatesWithoutParents(calls, result, p);
-				}
+			for (int i = 0; i < members.size(); ++i) {
+				if (members.get(i).getDisease() == Disease.AFFECTED)
+					collectTrioCandidatesWithoutParents(trios, rows, pairs, i);
 			}
 		}
-		return result;
 	}
 
-	private void collectTroCandidatesWithParents(Collection<GenotypeCalls> calls, ArrayList<Candidate> result,
-												 Person p) {
-		List<GenotypeCalls> paternal = new ArrayList<GenotypeCalls>();
-		List<GenotypeCalls> maternal = new ArrayList<GenotypeCalls>();
+	private void collectTrioCandidatesWithParents(TrioGenotypes trios, BitSet rows, CompoundHetPairs pairs, int i) {
+		final Person p = members.get(i);
+		// Heterozygous or not observed in child, exclude if not observed in all of the trio
+		final BitSet child = CompoundHetPairs.andNot(
+			trios.select(rows, i, GenotypeMatrix.HET | GenotypeMatrix.NOT_OBSERVED),
+			trios.selectNotObservedInTrio(rows, i));
 
 		// Collect candidates towards the paternal side (heterozygous or not observed in child and father, not
 		// hom_alt or het in mother)
-		for (GenotypeCalls gc : calls) {
-			final Genotype gtP = gc.getGenotypeForSample(p.getName());
-			final Genotype gtF = (p.getFather() == null) ? null : gc.getGenotypeForSample(p.getFather().getName());
-			final Genotype gtM = (p.getMother() == null) ? null : gc.getGenotypeForSample(p.getMother().getName());
-
-			if ((gtP.isHet() || gtP.isNotObserved()) && (gtF == null || gtF.isHet() || gtF.isNotObserved())
-				&& (gtM == null || gtM.isNotObserved() || gtM.isHomRef()))
-				paternal.add(gc);
-		}
-		// Collect candidates towards the paternal side (heterozygous or not observed in child and mother. Not
+		final BitSet paternal = (BitSet) child.clone();
+		if (p.getFather() != null)
+			paternal.and(trios.selectFather(rows, i, GenotypeMatrix.HET | GenotypeMatrix.NOT_OBSERVED));
+		if (p.getMother() != null)
+			paternal.and(trios.selectMother(rows, i, GenotypeMatrix.NOT_OBSERVED | GenotypeMatrix.HOM_REF));
+		// Collect candidates towards the maternal side (heterozygous or not observed in child and mother. Not
 		// hom_alt or het in father)
-		for (GenotypeCalls gc : calls) {
-			final Genotype gtP = gc.getGenotypeForSample(p.getName());
-			final Genotype gtF = (p.getFather() == null) ? null : gc.getGenotypeForSample(p.getFather().getName());
-			final Genotype gtM = (p.getMother() == null) ? null : gc.getGenotypeForSample(p.getMother().getName());
-
-			if ((gtP.isHet() || gtP.isNotObserved()) && (gtM == null || gtM.isHet() || gtM.isNotObserved())
-				&& (gtF == null || gtF.isNotObserved() || gtF.isHomRef()))
-				maternal.add(gc);
-
-			// Combine compatible paternal and maternal heterozygous variants
-			for (GenotypeCalls pat : paternal)
-				for (GenotypeCalls mat : maternal) {
-					if (pat == mat) // FIXME what means this NOW?
-						continue; // exclude if variants are identical
+		final BitSet maternal = (BitSet) child.clone();
+		if (p.getMother() != null)
+			maternal.and(trios.selectMother(rows, i, GenotypeMatrix.HET | GenotypeMatrix.NOT_OBSERVED));
+		if (p.getFather() != null)
+			maternal.and(trios.selectFather(rows, i, GenotypeMatrix.NOT_OBSERVED | GenotypeMatrix.HOM_REF));
 
-					if (pat.getGenotypeForSample(p.getName()).isNotObserved()
-						&& (p.getFather() == null
-						|| pat.getGenotypeForSample(p.getFather().getName()).isNotObserved())
-						&& (p.getMother() == null
-						|| pat.getGenotypeForSample(p.getMother().getName()).isNotObserved()))
-						continue; // exclude if not observed in all from paternal
-					if (mat.getGenotypeForSample(p.getName()).isNotObserved()
-						&& (p.getFather() == null
-						|| mat.getGenotypeForSample(p.getFather().getName()).isNotObserved())
-						&& (p.getMother() == null
-						|| mat.getGenotypeForSample(p.getMother().getName()).isNotObserved()))
-						continue; // exclude if not observed in all from maternal
-					result.add(new Candidate(pat, mat));
-				}
-		}
-	}
-
-	private void collectTroCandidatesWithoutParents(Collection<GenotypeCalls> calls, ArrayList<Candidate> result,
-													Person p) {
-		List<GenotypeCalls> paternal = new ArrayList<GenotypeCalls>();
-		List<GenotypeCalls> maternal = new ArrayList<GenotypeCalls>();
-
-		// Collect candidates and do not look at the parents
-		for (GenotypeCalls gc : calls) {
-			final Genotype gtP = gc.getGenotypeForSample(p.getName());
-			if (gtP.isHet() || gtP.isNotObserved()) {
-				paternal.add(gc);
-				maternal.add(gc);
-			}
-		}
 		// Combine compatible paternal and maternal heterozygous variants
-		for (GenotypeCalls pat : paternal)
-			for (GenotypeCalls mat : maternal) {
-				if (pat == mat) // FIXME what means this NOW?
-					continue; // exclude if variants are identical
-				else if (pat.getGenotypeForSample(p.getName()).isNotObserved()
-					&& mat.getGenotypeForSample(p.getName()).isNotObserved())
-					continue;
-
-				result.add(new Candidate(pat, mat));
-			}
+		pairs.addCandidates(paternal, maternal);
 	}
 
-	/**
-	 * This function takes a candidate pair of compound het variants and checks whether it is compatible with all affecteds in the pedigree.
-	 */
-	private boolean isCompatibleWithTriosAroundAffected(Candidate c) {
-		for (Person p : pedigree.getMembers()) {
-			if (p.getDisease() == Disease.AFFECTED) {
-				// We have to check this for paternal,maternal and vice versa. Paternal maternal inheritance can be
-				// different for other parents in the pedigree.
-				if (!isCompatibleWithTriosAndMaternalPaternalInheritanceAroundAffected(p, c.getPaternal(),
-					c.getMaternal()))
-					if (!isCompatibleWithTriosAndMaternalPaternalInheritanceAroundAffected(p, c.getMaternal(),
-						c.getPaternal()))
-						return false;
-			}
-		}
-
-		return true;
+	private void collectTrioCandidatesWithoutParents(TrioGenotypes trios, BitSet rows, CompoundHetPairs pairs, int i) {
+		// Collect candidates and do not look at the parents, exclude if not observed in both variants
+		final BitSet child = trios.select(rows, i, GenotypeMatrix.HET | GenotypeMatrix.NOT_OBSERVED);
+		pairs.addCandidates(child, CompoundHetPairs.andNot(child, trios.select(rows, i, GenotypeMatrix.NOT_OBSERVED)));
 	}
 
 	/**
@@ -268,47 +196,39 @@ public class MendelianCheckerARCompoundHet extends AbstractMendelianChecker {
 	 * of the variants must be inherited from the father of p and one from the mother of p (the variant is not filtered out
 	 * if some or all of this data is missing). For each of the unaffected siblings of the affected person, it is checked
 	 * whether the sibling is compound het for the variants, inwhich case they are filtered out.
-	 *
-	 * @return true if this candidate pair of variants is compatible with AR compound het inheritance.
+	 * <p>
+	 * This is checked for paternal/maternal and vice versa, as the paternal maternal inheritance can be different for
+	 * other parents in the pedigree.
 	 */
-	private boolean isCompatibleWithTriosAndMaternalPaternalInheritanceAroundAffected(Person p, GenotypeCalls paternal,
-																					  GenotypeCalls maternal) {
-		// None of the genotypes from the paternal or maternal call lists may be homozygous in the index
-		if (paternal != null) {
-			final Genotype pGT = paternal.getGenotypeForSample(p.getName());
-			if (pGT.isHomAlt() || pGT.isHomRef())
-				return false;
-		}
-		if (maternal != null) {
-			final Genotype mGT = maternal.getGenotypeForSample(p.getName());
-			if (mGT.isHomAlt() || mGT.isHomRef())
-				return false;
-		}
+	private void addTrioAroundAffectedConstraints(TrioGenotypes trios, BitSet rows, CompoundHetPairs pairs, int i) {
+		final Person p = members.get(i);
+		final int hom = GenotypeMatrix.HOM_REF | GenotypeMatrix.HOM_ALT;
 
+		// None of the genotypes from the paternal or maternal rows may be homozygous in the index
+		final BitSet notHom = CompoundHetPairs.andNot(rows, trios.select(rows, i, hom));
 		// The paternal variant may not be homozygous in the father of p, if any
-		if (paternal != null && p.getFather() != null) {
-			final Genotype pGT = paternal.getGenotypeForSample(p.getFather().getName());
-			if (pGT.isHomAlt() || pGT.isHomRef())
-				return false;
-		}
-
+		final BitSet paternal = (BitSet) notHom.clone();
+		if (p.getFather() != null)
+			paternal.andNot(trios.selectFather(rows, i, hom));
 		// The maternal variant may not be homozygous in the mother of p, if any
-		if (maternal != null && p.getMother() != null) {
-			final Genotype mGT = maternal.getGenotypeForSample(p.getMother().getName());
-			if (mGT.isHomAlt() || mGT.isHomRef())
-				return false;
-		}
+		final BitSet maternal = (BitSet) notHom.clone();
+		if (p.getMother() != null)
+			maternal.andNot(trios.selectMother(rows, i, hom));
+		pairs.requirePairs(paternal, maternal);
 
 		// None of the unaffected siblings may have the same genotypes as p
-		if (siblings != null && !siblings.isEmpty() && siblings.containsKey(p))
-			for (Person sibling : siblings.get(p))
-				if (sibling.getDisease() == Disease.UNAFFECTED) {
-					final Genotype pGT = paternal.getGenotypeForSample(sibling.getName());
-					final Genotype mGT = maternal.getGenotypeForSample(sibling.getName());
-					if (pGT.isHet() && mGT.isHet())
-						return false;
-				}
-		return true;
+		excludeCompoundHetInSiblings(trios, rows, pairs, unaffectedSiblings[i]);
+	}
+
+	/**
+	 * Exclude pairs of rows that are both heterozygous in any of the members <code>siblings</code>
+	 */
+	static void excludeCompoundHetInSiblings(TrioGenotypes trios, BitSet rows, CompoundHetPairs pairs,
+											 int[] siblings) {
+		for (int sibling : siblings) {
+			final BitSet het = trios.select(rows, sibling, GenotypeMatrix.HET);
+			pairs.excludePairs(het, het);
+		}
 	}
 
 }
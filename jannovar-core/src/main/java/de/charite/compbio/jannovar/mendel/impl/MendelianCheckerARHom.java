@@ -1,15 +1,13 @@
 package de.charite.compbio.jannovar.mendel.impl;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import de.charite.compbio.jannovar.mendel.*;
 import de.charite.compbio.jannovar.pedigree.Disease;
 import de.charite.compbio.jannovar.pedigree.Pedigree;
 import de.charite.compbio.jannovar.pedigree.Person;
 
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Helper class for checking a {@link Collection} of {@link GenotypeCalls} for compatibility with a {@link Pedigree} and
@@ -30,53 +28,59 @@ import java.util.stream.Stream;
  */
 public class MendelianCheckerARHom extends AbstractMendelianChecker {
 
+	/**
+	 * Names of the unaffected parents of affected individuals
+	 */
+	private final ImmutableSet<String> unaffectedParentNamesOfAffecteds;
+
 	public MendelianCheckerARHom(MendelianInheritanceChecker parent) {
 		super(parent);
+
+		this.unaffectedParentNamesOfAffecteds = getUnaffectedParentNamesOfAffecteds();
 	}
 
 	@Override
-	public ImmutableList<GenotypeCalls> filterCompatibleRecords(Collection<GenotypeCalls> calls)
-		throws IncompatiblePedigreeException {
-		// Filter to calls on autosomal chromosomes
-		Stream<GenotypeCalls> autosomalCalls = calls.stream()
-			.filter(call -> call.getChromType() == ChromosomeType.AUTOSOMAL);
-		// Filter to calls compatible with AD inheritance
-		Stream<GenotypeCalls> compatibleCalls;
-		if (this.pedigree.getNMembers() == 1)
-			compatibleCalls = autosomalCalls.filter(this::isCompatibleSingleton);
-		else
-			compatibleCalls = autosomalCalls.filter(this::isCompatibleFamily);
-		return ImmutableList.copyOf(compatibleCalls.collect(Collectors.toList()));
+	public BitSet filterCompatibleRows(GenotypeMatrix matrix) {
+		// Filter to calls on autosomal chromosomes and compatible with AR hom. alt. inheritance
+		final int[] columns = matrix.getColumns(pedigree);
+		final int[] parentColumns = unaffectedParentNamesOfAffecteds.stream().mapToInt(matrix::getColumn).toArray();
+		final BitSet result = getRowsOfChromType(matrix, ChromosomeType.AUTOSOMAL);
+		for (int row = result.nextSetBit(0); row >= 0; row = result.nextSetBit(row + 1)) {
+			final boolean compatible = (this.pedigree.getNMembers() == 1) ? isCompatibleSingleton(matrix, row)
+				: isCompatibleFamily(matrix, row, columns, parentColumns);
+			if (!compatible)
+				result.clear(row);
+		}
+		return result;
 	}
 
 	/**
-	 * @return whether <code>calls</code> is compatible with AR homozygous inheritance in the case of a single
+	 * @return whether <code>row</code> is compatible with AR homozygous inheritance in the case of a single
 	 * individual in the pedigree
 	 */
-	private boolean isCompatibleSingleton(GenotypeCalls calls) {
-		if (calls.getNSamples() == 0)
-			return false; // no calls!
-		return calls.getGenotypeBySampleNo(0).isHomAlt();
+	private boolean isCompatibleSingleton(GenotypeMatrix matrix, int row) {
+		return GenotypeMatrix.isHomAlt(getSingletonCode(matrix, row));
 	}
 
 	/**
-	 * @return whether <code>calls</code> is compatible with AR homozygous inheritance in the case of multiple
+	 * @return whether <code>row</code> is compatible with AR homozygous inheritance in the case of multiple
 	 * individuals in the pedigree
 	 */
-	private boolean isCompatibleFamily(GenotypeCalls calls) {
-		return (affectedsAreCompatible(calls) && unaffectedParentsOfAffectedAreNotHomozygous(calls)
-			&& unaffectedsAreNotHomozygousAlt(calls));
+	private boolean isCompatibleFamily(GenotypeMatrix matrix, int row, int[] columns, int[] parentColumns) {
+		return (affectedsAreCompatible(matrix, row, columns)
+			&& unaffectedParentsOfAffectedAreNotHomozygous(matrix, row, parentColumns)
+			&& unaffectedsAreNotHomozygousAlt(matrix, row, columns));
 	}
 
-	private boolean affectedsAreCompatible(GenotypeCalls calls) {
+	private boolean affectedsAreCompatible(GenotypeMatrix matrix, int row, int[] columns) {
 		int numHomozygousAlt = 0;
 
-		for (Pedigree.IndexedPerson entry : pedigree.getNameToMember().values()) {
-			if (entry.getPerson().getDisease() == Disease.AFFECTED) {
-				final Genotype gt = calls.getGenotypeForSample(entry.getPerson().getName());
-				if (gt.isHomRef() || gt.isHet())
+		for (int i = 0; i < members.size(); ++i) {
+			if (members.get(i).getDisease() == Disease.AFFECTED) {
+				final byte gt = matrix.get(row, columns[i]);
+				if (GenotypeMatrix.isHomRef(gt) || GenotypeMatrix.isHet(gt))
 					return false;
-				else if (gt.isHomAlt())
+				else if (GenotypeMatrix.isHomAlt(gt))
 					numHomozygousAlt += 1;
 			}
 		}
@@ -84,10 +88,11 @@ public class MendelianCheckerARHom extends AbstractMendelianChecker {
 		return (numHomozygousAlt > 0);
 	}
 
-	private boolean unaffectedParentsOfAffectedAreNotHomozygous(GenotypeCalls calls) {
-		for (String name : getUnaffectedParentNamesOfAffecteds()) {
-			final Genotype gt = calls.getGenotypeForSample(name);
-			if (gt.isHomAlt() || gt.isHomRef())
+	private boolean unaffectedParentsOfAffectedAreNotHomozygous(GenotypeMatrix matrix, int row,
+																int[] parentColumns) {
+		for (int column : parentColumns) {
+			final byte gt = matrix.get(row, column);
+			if (GenotypeMatrix.isHomAlt(gt) || GenotypeMatrix.isHomRef(gt))
 				return false;
 		}
 		return true;
@@ -110,10 +115,10 @@ public class MendelianCheckerARHom extends AbstractMendelianChecker {
 		return builder.build();
 	}
 
-	private boolean unaffectedsAreNotHomozygousAlt(GenotypeCalls calls) {
-		for (Pedigree.IndexedPerson entry : pedigree.getNameToMember().values())
-			if (entry.getPerson().getDisease() == Disease.UNAFFECTED
-				&& calls.getGenotypeForSample(entry.getPerson().getName()).isHomAlt())
+	private boolean unaffectedsAreNotHomozygousAlt(GenotypeMatrix matrix, int row, int[] columns) {
+		for (int i = 0; i < members.size(); ++i)
+			if (members.get(i).getDisease() == Disease.UNAFFECTED
+				&& GenotypeMatrix.isHomAlt(matrix.get(row, columns[i])))
 				return false;
 		return true;
 	}
@@ -1,17 +1,14 @@
 package de.charite.compbio.jannovar.mendel.impl;
 
-import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.mendel.ChromosomeType;
 import de.charite.compbio.jannovar.mendel.Genotype;
-import de.charite.compbio.jannovar.mendel.GenotypeCalls;
+import de.charite.compbio.jannovar.mendel.GenotypeMatrix;
 import de.charite.compbio.jannovar.mendel.MendelianInheritanceChecker;
 import de.charite.compbio.jannovar.pedigree.Disease;
 import de.charite.compbio.jannovar.pedigree.Person;
 import de.charite.compbio.jannovar.pedigree.Sex;
 
-import java.util.Collection;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.BitSet;
 
 /**
  * Implementation of Mendelian compatibility check for autosomal dominant case
@@ -31,61 +28,60 @@ public class MendelianCheckerXD extends AbstractMendelianChecker {
 	}
 
 	@Override
-	public ImmutableList<GenotypeCalls> filterCompatibleRecords(Collection<GenotypeCalls> calls) {
-		// Filter to calls on X chromosomes
-		Stream<GenotypeCalls> xCalls = calls.stream()
-			.filter(call -> call.getChromType() == ChromosomeType.X_CHROMOSOMAL);
-		// Filter to calls compatible with AD inheritance
-		Stream<GenotypeCalls> compatibleCalls;
-		if (this.pedigree.getNMembers() == 1)
-			compatibleCalls = xCalls.filter(this::isCompatibleSingleton);
-		else
-			compatibleCalls = xCalls.filter(this::isCompatibleFamily);
-		return ImmutableList.copyOf(compatibleCalls.collect(Collectors.toList()));
+	public BitSet filterCompatibleRows(GenotypeMatrix matrix) {
+		// Filter to calls on X chromosomes and compatible with XD inheritance
+		final int[] columns = matrix.getColumns(pedigree);
+		final BitSet result = getRowsOfChromType(matrix, ChromosomeType.X_CHROMOSOMAL);
+		for (int row = result.nextSetBit(0); row >= 0; row = result.nextSetBit(row + 1)) {
+			final boolean compatible = (this.pedigree.getNMembers() == 1) ? isCompatibleSingleton(matrix, row)
+				: isCompatibleFamily(matrix, row, columns);
+			if (!compatible)
+				result.clear(row);
+		}
+		return result;
 	}
 
 	/**
-	 * @return whether <code>calls</code> is compatible with AD inheritance in the case of a single individual in the
+	 * @return whether <code>row</code> is compatible with XD inheritance in the case of a single individual in the
 	 * pedigree
 	 */
-	private boolean isCompatibleSingleton(GenotypeCalls calls) {
-		if (calls.getNSamples() == 0)
-			return false; // no calls!
-		final Genotype gt = calls.getGenotypeBySampleNo(0);
+	private boolean isCompatibleSingleton(GenotypeMatrix matrix, int row) {
+		final byte gt = getSingletonCode(matrix, row);
 		if (pedigree.getMembers().get(0).getSex() == Sex.FEMALE) {
 			// Allow only heterozygous calls
-			return calls.getGenotypeBySampleNo(0).isHet();
+			return GenotypeMatrix.isHet(gt);
 		} else {
 			// We allow homozygous (actually hemizygous) and heterozygous (false call)
-			return (gt.isHet() || gt.isHomAlt());
+			return (GenotypeMatrix.isHet(gt) || GenotypeMatrix.isHomAlt(gt));
 		}
 	}
 
 	/**
-	 * @return whether <code>calls</code> is compatible with AD inheritance in the case of multiple individuals in the
+	 * @return whether <code>row</code> is compatible with XD inheritance in the case of multiple individuals in the
 	 * pedigree
 	 */
-	private boolean isCompatibleFamily(GenotypeCalls calls) {
+	private boolean isCompatibleFamily(GenotypeMatrix matrix, int row, int[] columns) {
 		int numAffectedWithVar = 0;
 
-		for (Person p : pedigree.getMembers()) {
+		for (int i = 0; i < members.size(); ++i) {
+			final Person p = members.get(i);
 			final Sex sex = p.getSex();
-			final Genotype gt = calls.getGenotypeForSample(p.getName());
+			final byte gt = matrix.get(row, columns[i]);
 			final Disease d = p.getDisease();
 
 			if (d == Disease.AFFECTED) {
-				if (gt.isHomRef() || (sex == Sex.FEMALE && gt.isHomAlt())) {
+				if (GenotypeMatrix.isHomRef(gt) || (sex == Sex.FEMALE && GenotypeMatrix.isHomAlt(gt))) {
 					// We do not allow hom. alternative for females to have the same behaviour as AD for females
 					return false;
-				} else if (sex == Sex.FEMALE && gt.isHet()) {
+				} else if (sex == Sex.FEMALE && GenotypeMatrix.isHet(gt)) {
 					numAffectedWithVar++;
-				} else if (sex != Sex.FEMALE && (gt.isHet() || gt.isHomAlt())) {
+				} else if (sex != Sex.FEMALE && (GenotypeMatrix.isHet(gt) || GenotypeMatrix.isHomAlt(gt))) {
 					// We allow heterozygous here as well in the case of mis-calls in the one X copy in the male or
 					// unknown
 					numAffectedWithVar++;
 				}
 			} else if (d == Disease.UNAFFECTED) {
-				if (gt.isHet() || gt.isHomAlt())
+				if (GenotypeMatrix.isHet(gt) || GenotypeMatrix.isHomAlt(gt))
 					return false; // unaffected must not have it!
 			}
 		}
@@ -1,14 +1,11 @@
 package de.charite.compbio.jannovar.mendel.impl;
 
-import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.mendel.GenotypeCalls;
+import de.charite.compbio.jannovar.mendel.GenotypeMatrix;
 import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
 import de.charite.compbio.jannovar.mendel.MendelianInheritanceChecker;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.BitSet;
 
 /**
  * Implementation of Mendelian compatibility check for autosomal recessive case
@@ -34,14 +31,11 @@ public class MendelianCheckerXR extends AbstractMendelianChecker {
 	}
 
 	@Override
-	public ImmutableList<GenotypeCalls> filterCompatibleRecords(Collection<GenotypeCalls> calls)
-		throws IncompatiblePedigreeException {
+	public BitSet filterCompatibleRows(GenotypeMatrix matrix) throws IncompatiblePedigreeException {
 		// Apply homozygous and compound heterozygous checker, then select distinct records
-		Stream<GenotypeCalls> joint = Stream.concat(checkerCompound.filterCompatibleRecords(calls).stream(),
-			checkerHom.filterCompatibleRecords(calls).stream());
-		HashSet<GenotypeCalls> set = new HashSet<>();
-		set.addAll(joint.collect(Collectors.toList()));
-		return ImmutableList.copyOf(set);
+		final BitSet result = checkerCompound.filterCompatibleRows(matrix);
+		result.or(checkerHom.filterCompatibleRows(matrix));
+		return result;
 	}
 
 }
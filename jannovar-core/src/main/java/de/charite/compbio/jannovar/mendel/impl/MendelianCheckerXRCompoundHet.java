@@ -1,15 +1,12 @@
 package de.charite.compbio.jannovar.mendel.impl;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import de.charite.compbio.jannovar.mendel.*;
 import de.charite.compbio.jannovar.pedigree.Disease;
 import de.charite.compbio.jannovar.pedigree.Pedigree;
 import de.charite.compbio.jannovar.pedigree.Person;
 import de.charite.compbio.jannovar.pedigree.Sex;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.BitSet;
 
 // TODO: also return no-call/not-observed variant
 
@@ -35,217 +32,138 @@ import java.util.stream.Collectors;
 public class MendelianCheckerXRCompoundHet extends AbstractMendelianChecker {
 
 	/**
-	 * list of siblings for each person in {@link #pedigree}
+	 * member indices of the unaffected siblings for each person in {@link #pedigree}, by member index
 	 */
-	private final ImmutableMap<Person, ImmutableList<Person>> siblings;
+	private final int[][] unaffectedSiblings;
 
 	public MendelianCheckerXRCompoundHet(MendelianInheritanceChecker parent) {
 		super(parent);
 
-		this.siblings = queryDecorator.buildSiblings();
+		this.unaffectedSiblings = MendelianCheckerARCompoundHet.buildUnaffectedSiblings(pedigree,
+			queryDecorator.buildSiblings());
 	}
 
 	@Override
-	public ImmutableList<GenotypeCalls> filterCompatibleRecords(Collection<GenotypeCalls> calls)
-		throws IncompatiblePedigreeException {
-		List<GenotypeCalls> xCalls = calls.stream().filter(call -> call.getChromType() == ChromosomeType.X_CHROMOSOMAL)
-			.collect(Collectors.toList());
+	public BitSet filterCompatibleRows(GenotypeMatrix matrix) throws IncompatiblePedigreeException {
+		final BitSet xRows = getRowsOfChromType(matrix, ChromosomeType.X_CHROMOSOMAL);
 
 		if (pedigree.getNMembers() == 1)
-			return filterCompatibleRecordsSingleSample(xCalls);
+			return filterCompatibleRowsSingleSample(matrix, xRows);
 		else
-			return filterCompatibleRecordsMultiSample(xCalls);
+			return filterCompatibleRowsMultiSample(matrix, xRows);
 	}
 
-	private ImmutableList<GenotypeCalls> filterCompatibleRecordsSingleSample(Collection<GenotypeCalls> calls) {
+	private BitSet filterCompatibleRowsSingleSample(GenotypeMatrix matrix, BitSet rows) {
 		if (pedigree.getMembers().get(0).getSex() == Sex.MALE)
-			return ImmutableList.of();
+			return new BitSet();
 		else
-			return new MendelianCheckerARCompoundHet(parent).filterCompatibleRecordsSingleSample(calls);
+			return MendelianCheckerARCompoundHet.filterCompatibleRowsSingleSample(matrix, rows);
 	}
 
-	private ImmutableList<GenotypeCalls> filterCompatibleRecordsMultiSample(Collection<GenotypeCalls> calls) {
-		List<GenotypeCalls> autosomalCalls = calls.stream()
-			.filter(call -> call.getChromType() == ChromosomeType.AUTOSOMAL).collect(Collectors.toList());
-
-		// First, collect candidate genotype call lists from trios around affected individuals
-		ArrayList<Candidate> candidates = collectTrioCandidates(autosomalCalls);
-
-		// Then, check the candidates for all trios around affected individuals
-		Set<GenotypeCalls> result = new HashSet<>();
-		for (Candidate c : candidates) {
-			if (isCompatibleWithTriosAroundAffected(c)) {
-				// If candidate holds, check all unaffected for not being homozygous alt
-				if (isCompatibleWithUnaffected(c)) {
-					result.add(c.getMaternal());
-					result.add(c.getPaternal());
-				}
-			}
-		}
-		return ImmutableList.copyOf(result);
-	}
+	private BitSet filterCompatibleRowsMultiSample(GenotypeMatrix matrix, BitSet rows) {
+		final BitSet autosomalRows = (BitSet) rows.clone();
+		autosomalRows.and(getRowsOfChromType(matrix, ChromosomeType.AUTOSOMAL));
+		final TrioGenotypes trios = new TrioGenotypes(pedigree, matrix, autosomalRows);
+		final CompoundHetPairs pairs = new CompoundHetPairs(trios);
 
-	private ArrayList<Candidate> collectTrioCandidates(Collection<GenotypeCalls> calls) {
-		ArrayList<Candidate> result = new ArrayList<Candidate>();
-
-		for (Person p : pedigree.getMembers()) {
-			if (p.getDisease() == Disease.AFFECTED && (p.getFather() != null || p.getMother() != null)) {
-				List<GenotypeCalls> paternal = new ArrayList<GenotypeCalls>();
-				List<GenotypeCalls> maternal = new ArrayList<GenotypeCalls>();
-
-				for (GenotypeCalls gc : calls) {
-					// Child is heterozygous. male child/ukn can be homozygous
-					if ((gc.getGenotypeForSample(p.getName()).isHet()
-						|| gc.getGenotypeForSample(p.getName()).isNotObserved()
-						|| (p.getSex() != Sex.FEMALE && gc.getGenotypeForSample(p.getName()).isHomAlt()))) {
-						// collect candidates towards the paternal side
-						// (heterozygous (false call in father) or not observed
-						// in child and father. Not hom_alt or het in mother).
-						if ((p.getFather() == null || gc.getGenotypeForSample(p.getFather().getName()).isHet()
-							|| gc.getGenotypeForSample(p.getFather().getName()).isNotObserved()
-							|| gc.getGenotypeForSample(p.getFather().getName()).isHomAlt())
-							&& (p.getMother() == null
-							|| gc.getGenotypeForSample(p.getMother().getName()).isNotObserved()
-							|| gc.getGenotypeForSample(p.getMother().getName()).isHomRef()))
-							paternal.add(gc);
-						// collect candidates towards the maternal side
-						// (heterozygous or not observed in child and mother.
-						// For father no restriction, cause father should be affected if present.
-						if ((p.getMother() == null || gc.getGenotypeForSample(p.getMother().getName()).isHet()
-							|| gc.getGenotypeForSample(p.getMother().getName()).isNotObserved()))
-							maternal.add(gc);
-					}
-				}
+		// First, collect candidate pairs of rows from trios around affected individuals
+		collectTrioCandidates(trios, autosomalRows, pairs);
+		// Only the rows of candidates can be part of compatible pairs
+		final BitSet candidateRows = pairs.getCandidateRows();
+		if (candidateRows.cardinality() < 2)
+			return new BitSet();
 
-				// Combine compatible paternal and maternal heterozygous variants
-				for (GenotypeCalls pat : paternal)
-					for (GenotypeCalls mat : maternal) {
-						if (pat == mat) // FIXME what means this NOW?
-							continue; // exclude if variants are identical
-						if (pat.getGenotypeForSample(p.getName()).isNotObserved()
-							&& (p.getFather() == null
-							|| pat.getGenotypeForSample(p.getFather().getName()).isNotObserved())
-							&& (p.getMother() == null
-							|| pat.getGenotypeForSample(p.getMother().getName()).isNotObserved()))
-							continue; // exclude if not observed in all from paternal
-						if (mat.getGenotypeForSample(p.getName()).isNotObserved()
-							&& (p.getFather() == null
-							|| mat.getGenotypeForSample(p.getFather().getName()).isNotObserved())
-							&& (p.getMother() == null
-							|| mat.getGenotypeForSample(p.getMother().getName()).isNotObserved()))
-							continue; // exclude if not observed in all from maternal
-						result.add(new Candidate(pat, mat));
-					}
+		// Then, the candidates must be compatible with all trios around affected individuals
+		for (int i = 0; i < members.size(); ++i)
+			if (members.get(i).getDisease() == Disease.AFFECTED)
+				addTrioAroundAffectedConstraints(trios, candidateRows, pairs, i);
 
-			}
-		}
+		// Finally, check all unaffected for not being homozygous alt or compound heterozygous
+		addUnaffectedConstraints(trios, candidateRows, pairs);
 
-		return result;
+		return pairs.selectRows();
 	}
 
-	private boolean isCompatibleWithTriosAroundAffected(Candidate c) {
-		for (Person p : pedigree.getMembers()) {
-			if (p.getDisease() == Disease.AFFECTED) {
-				// we have to check this for paternal,maternal and vice versa.
-				// Paternal maternal inheritance can be different for other
-				// parents in the pedigree.
-				if (!isCompatibleWithTriosAndMaternalPaternalInheritanceAroundAffected(p, c.getPaternal(),
-					c.getMaternal()))
-					if (!isCompatibleWithTriosAndMaternalPaternalInheritanceAroundAffected(p, c.getMaternal(),
-						c.getPaternal()))
-						return false;
+	private void collectTrioCandidates(TrioGenotypes trios, BitSet rows, CompoundHetPairs pairs) {
+		for (int i = 0; i < members.size(); ++i) {
+			final Person p = members.get(i);
+			if (p.getDisease() == Disease.AFFECTED && (p.getFather() != null || p.getMother() != null)) {
+				// Child is heterozygous. male child/ukn can be homozygous. Exclude if not observed in all of the trio.
+				final int childFlags = GenotypeMatrix.HET | GenotypeMatrix.NOT_OBSERVED
+					| (p.getSex() != Sex.FEMALE ? GenotypeMatrix.HOM_ALT : 0);
+				final BitSet child = CompoundHetPairs.andNot(trios.select(rows, i, childFlags),
+					trios.selectNotObservedInTrio(rows, i));
+
+				// collect candidates towards the paternal side
+				// (heterozygous (false call in father) or not observed
+				// in child and father. Not hom_alt or het in mother).
+				final BitSet paternal = (BitSet) child.clone();
+				if (p.getFather() != null)
+					paternal.and(trios.selectFather(rows, i,
+						GenotypeMatrix.HET | GenotypeMatrix.NOT_OBSERVED | GenotypeMatrix.HOM_ALT));
+				if (p.getMother() != null)
+					paternal.and(trios.selectMother(rows, i, GenotypeMatrix.NOT_OBSERVED | GenotypeMatrix.HOM_REF));
+				// collect candidates towards the maternal side
+				// (heterozygous or not observed in child and mother.
+				// For father no restriction, cause father should be affected if present.
+				final BitSet maternal = (BitSet) child.clone();
+				if (p.getMother() != null)
+					maternal.and(trios.selectMother(rows, i, GenotypeMatrix.HET | GenotypeMatrix.NOT_OBSERVED));
+
+				// Combine compatible paternal and maternal heterozygous variants
+				pairs.addCandidates(paternal, maternal);
 			}
 		}
-
-		return true;
 	}
 
-	private boolean isCompatibleWithTriosAndMaternalPaternalInheritanceAroundAffected(Person p, GenotypeCalls paternal,
-																					  GenotypeCalls maternal) {
-		// None of the genotypes from the paternal or maternal call lists may be homozygous in a female index. can be
+	/**
+	 * We have to check this for paternal,maternal and vice versa. Paternal maternal inheritance can be different for
+	 * other parents in the pedigree.
+	 */
+	private void addTrioAroundAffectedConstraints(TrioGenotypes trios, BitSet rows, CompoundHetPairs pairs, int i) {
+		final Person p = members.get(i);
+
+		// None of the genotypes from the paternal or maternal rows may be homozygous in a female index. can be
 		// homozygous else
-		if (paternal != null) {
-			final Genotype pGT = paternal.getGenotypeForSample(p.getName());
-			if ((pGT.isHomAlt() && p.getSex() == Sex.FEMALE) || pGT.isHomRef())
-				return false;
-		}
-		if (maternal != null) {
-			final Genotype mGT = maternal.getGenotypeForSample(p.getName());
-			if (p.getSex() == Sex.FEMALE && (mGT.isHomAlt() && mGT.isHomRef()))
-				return false;
+		final BitSet paternal = CompoundHetPairs.andNot(rows, trios.select(rows, i,
+			GenotypeMatrix.HOM_REF | (p.getSex() == Sex.FEMALE ? GenotypeMatrix.HOM_ALT : 0)));
+		final BitSet maternal = (BitSet) rows.clone();
+		if (p.getSex() == Sex.FEMALE) {
+			final BitSet homAltAndHomRef = trios.select(rows, i, GenotypeMatrix.HOM_ALT);
+			homAltAndHomRef.and(trios.select(rows, i, GenotypeMatrix.HOM_REF));
+			maternal.andNot(homAltAndHomRef);
 		}
 
 		// the paternal variant may not be homozygous REF in the father of
 		// p, if any
-		if (paternal != null && p.getFather() != null) {
-			final Genotype pGT = paternal.getGenotypeForSample(p.getFather().getName());
-			if (pGT.isHomRef())
-				return false;
-		}
+		if (p.getFather() != null)
+			paternal.andNot(trios.selectFather(rows, i, GenotypeMatrix.HOM_REF));
 
 		// the maternal variant may not be homozygous in the mother of
 		// p, if any
-		if (maternal != null && p.getMother() != null) {
-			final Genotype mGT = maternal.getGenotypeForSample(p.getMother().getName());
-			if (mGT.isHomAlt() || mGT.isHomRef())
-				return false;
-		}
+		if (p.getMother() != null)
+			maternal.andNot(trios.selectMother(rows, i, GenotypeMatrix.HOM_ALT | GenotypeMatrix.HOM_REF));
+		pairs.requirePairs(paternal, maternal);
 
 		// none of the unaffected siblings may have the same genotypes
 		// as p
-		if (siblings != null && !siblings.isEmpty() && siblings.containsKey(p))
-			for (Person sibling : siblings.get(p))
-				if (sibling.getDisease() == Disease.UNAFFECTED) {
-					final Genotype pGT = paternal.getGenotypeForSample(sibling.getName());
-					final Genotype mGT = maternal.getGenotypeForSample(sibling.getName());
-					if (pGT.isHet() && mGT.isHet())
-						return false;
-				}
-		return true;
+		MendelianCheckerARCompoundHet.excludeCompoundHetInSiblings(trios, rows, pairs, unaffectedSiblings[i]);
 	}
 
-	private boolean isCompatibleWithUnaffected(Candidate c) {
-		for (Person p : pedigree.getMembers()) {
+	private void addUnaffectedConstraints(TrioGenotypes trios, BitSet rows, CompoundHetPairs pairs) {
+		for (int i = 0; i < members.size(); ++i) {
+			final Person p = members.get(i);
 			if (p.getDisease() == Disease.UNAFFECTED) {
-				boolean patHet = false;
-				boolean matHet = false;
-				// None of the genotypes from the paternal or maternal call lists may be homozygous in the index
-				if (c.getPaternal() != null) {
-					final Genotype pGT = c.getPaternal().getGenotypeForSample(p.getName());
-					if (pGT.isHomAlt() || (p.getSex() == Sex.MALE && pGT.isHet()))
-						return false;
-					if (pGT.isHet())
-						patHet = true;
-				}
-				if (c.getMaternal() != null) {
-					final Genotype mGT = c.getMaternal().getGenotypeForSample(p.getName());
-					if (mGT.isHomAlt() || (p.getSex() == Sex.MALE && mGT.isHet()))
-						return false;
-					if (mGT.isHet())
-						matHet = true;
-				}
+				// None of the genotypes from the paternal or maternal rows may be homozygous in the index, or
+				// heterozygous in a male index
+				pairs.excludeRows(trios.select(rows, i,
+					GenotypeMatrix.HOM_ALT | (p.getSex() == Sex.MALE ? GenotypeMatrix.HET : 0)));
 
 				// If mat and pat variant are heterozygous in an unaffected, check if they are on the same allele or not
-				if (patHet && matHet) {
-					if (c.getPaternal() != null && p.getFather() != null && c.getMaternal() != null
-						&& p.getMother() != null) {
-						final Genotype ppGT = c.getPaternal().getGenotypeForSample(p.getFather().getName());
-						final Genotype mpGT = c.getPaternal().getGenotypeForSample(p.getMother().getName());
-						final Genotype pmGT = c.getMaternal().getGenotypeForSample(p.getFather().getName());
-						final Genotype mmGT = c.getMaternal().getGenotypeForSample(p.getMother().getName());
-						// way one (paternal and maternal can now be switched
-						// around!
-						if (ppGT.isHet() && mpGT.isHomRef() && pmGT.isHomRef() && mmGT.isHet())
-							return false;
-						if (ppGT.isHomRef() && mpGT.isHet() && pmGT.isHet() && mmGT.isHomRef())
-							return false;
-					}
-
-				}
+				if (p.getFather() != null && p.getMother() != null)
+					MendelianCheckerARCompoundHet.excludeCompoundHetFromParents(trios, rows, pairs, i);
 			}
 		}
-
-		return true;
 	}
 
 }
@@ -1,6 +1,5 @@
 package de.charite.compbio.jannovar.mendel.impl;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import de.charite.compbio.jannovar.mendel.*;
 import de.charite.compbio.jannovar.pedigree.Disease;
@@ -8,9 +7,7 @@ import de.charite.compbio.jannovar.pedigree.Pedigree;
 import de.charite.compbio.jannovar.pedigree.Person;
 import de.charite.compbio.jannovar.pedigree.Sex;
 
-import java.util.Collection;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.BitSet;
 
 /**
  * Helper class for checking a {@link GenotypeCalls} for compatibility with a
@@ -33,66 +30,82 @@ import java.util.stream.Stream;
  */
 public class MendelianCheckerXRHom extends AbstractMendelianChecker {
 
+	/**
+	 * Whether or not each member is a parent of an affected female, by member index
+	 */
+	private final boolean[] isFemaleParent;
+	/**
+	 * Whether or not each member is unaffected, by member index
+	 */
+	private final boolean[] isUnaffected;
+
 	public MendelianCheckerXRHom(MendelianInheritanceChecker parent) {
 		super(parent);
+
+		final ImmutableSet<String> femaleParentNames = queryDecorator.getAffectedFemaleParentNames();
+		final ImmutableSet<String> unaffectedNames = queryDecorator.getUnaffectedNames();
+		this.isFemaleParent = new boolean[members.size()];
+		this.isUnaffected = new boolean[members.size()];
+		for (int i = 0; i < members.size(); ++i) {
+			isFemaleParent[i] = femaleParentNames.contains(members.get(i).getName());
+			isUnaffected[i] = unaffectedNames.contains(members.get(i).getName());
+		}
 	}
 
 	@Override
-	public ImmutableList<GenotypeCalls> filterCompatibleRecords(Collection<GenotypeCalls> calls)
-		throws IncompatiblePedigreeException {
-		// Filter to calls on X chromosome
-		Stream<GenotypeCalls> xCalls = calls.stream()
-			.filter(call -> call.getChromType() == ChromosomeType.X_CHROMOSOMAL);
-
-		// Filter to calls compatible with AD inheritance
-		Stream<GenotypeCalls> compatibleCalls;
-		if (this.pedigree.getNMembers() == 1)
-			compatibleCalls = xCalls.filter(this::isCompatibleSingleton);
-		else
-			compatibleCalls = xCalls.filter(this::isCompatibleFamily);
-		return ImmutableList.copyOf(compatibleCalls.collect(Collectors.toList()));
+	public BitSet filterCompatibleRows(GenotypeMatrix matrix) throws IncompatiblePedigreeException {
+		// Filter to calls on X chromosome and compatible with XR hom. alt. inheritance
+		final int[] columns = matrix.getColumns(pedigree);
+		final BitSet result = getRowsOfChromType(matrix, ChromosomeType.X_CHROMOSOMAL);
+		for (int row = result.nextSetBit(0); row >= 0; row = result.nextSetBit(row + 1)) {
+			final boolean compatible = (this.pedigree.getNMembers() == 1) ? isCompatibleSingleton(matrix, row)
+				: isCompatibleFamily(matrix, row, columns);
+			if (!compatible)
+				result.clear(row);
+		}
+		return result;
 	}
 
 	/**
-	 * @return whether <code>calls</code> is compatible with XR homozygous
+	 * @return whether <code>row</code> is compatible with XR homozygous
 	 * inheritance in the case of a single individual in the pedigree
 	 */
-	private boolean isCompatibleSingleton(GenotypeCalls calls) {
-		if (calls.getNSamples() == 0)
-			return false; // no calls!
-		if (calls.getGenotypeBySampleNo(0).isHomAlt())
+	private boolean isCompatibleSingleton(GenotypeMatrix matrix, int row) {
+		final byte gt = getSingletonCode(matrix, row);
+		if (GenotypeMatrix.isHomAlt(gt))
 			return true;
-		else if (pedigree.getMembers().get(0).getSex() != Sex.FEMALE && calls.getGenotypeBySampleNo(0).isHet())
+		else if (pedigree.getMembers().get(0).getSex() != Sex.FEMALE && GenotypeMatrix.isHet(gt))
 			return true;
 		else
 			return false;
 	}
 
 	/**
-	 * @return whether <code>calls</code> is compatible with XR homozygous
+	 * @return whether <code>row</code> is compatible with XR homozygous
 	 * inheritance in the case of multiple individuals in the pedigree
 	 */
-	private boolean isCompatibleFamily(GenotypeCalls calls) {
-		return (affectedsAreCompatible(calls) && parentsAreCompatible(calls) && unaffectedsAreCompatible(calls));
+	private boolean isCompatibleFamily(GenotypeMatrix matrix, int row, int[] columns) {
+		return (affectedsAreCompatible(matrix, row, columns) && parentsAreCompatible(matrix, row, columns)
+			&& unaffectedsAreCompatible(matrix, row, columns));
 	}
 
-	private boolean affectedsAreCompatible(GenotypeCalls calls) {
+	private boolean affectedsAreCompatible(GenotypeMatrix matrix, int row, int[] columns) {
 		int numVar = 0;
 
-		for (Person p : pedigree.getMembers()) {
-			final String name = p.getName();
-			final Genotype gt = calls.getGenotypeForSample(name);
+		for (int i = 0; i < members.size(); ++i) {
+			final Person p = members.get(i);
+			final byte gt = matrix.get(row, columns[i]);
 			if (p.getDisease() == Disease.AFFECTED) {
-				if (gt.isHomRef()) {
+				if (GenotypeMatrix.isHomRef(gt)) {
 					// Cannot be disease-causing mutation, an affected male or female does not have
 					// it
 					return false;
-				} else if (p.getSex() == Sex.FEMALE && gt.isHet()) {
+				} else if (p.getSex() == Sex.FEMALE && GenotypeMatrix.isHet(gt)) {
 					// Cannot be disease-causing mutation if a female have it heterozygous. For a
 					// male we think it is a
 					// misscall (alt instead of het)
 					return false;
-				} else if (gt.isHomAlt() || (p.getSex() != Sex.FEMALE && gt.isHet())) {
+				} else if (GenotypeMatrix.isHomAlt(gt) || (p.getSex() != Sex.FEMALE && GenotypeMatrix.isHet(gt))) {
 					numVar += 1;
 				}
 			}
@@ -109,21 +122,17 @@ public class MendelianCheckerXRHom extends AbstractMendelianChecker {
 	 * inherited from the mother or the father! Not from both. Because we do not
 	 * know the specific parents of one affected (only all of them) at this part we
 	 * have to skip the parents of male affected.
-	 *
-	 * @param calls
-	 * @return
 	 */
-	private boolean parentsAreCompatible(GenotypeCalls calls) {
-		final ImmutableSet<String> femaleParentNames = queryDecorator.getAffectedFemaleParentNames();
-
-		for (Person p : pedigree.getMembers()) {
-			final Genotype gt = calls.getGenotypeForSample(p.getName());
-			if (femaleParentNames.contains(p.getName())) {
+	private boolean parentsAreCompatible(GenotypeMatrix matrix, int row, int[] columns) {
+		for (int i = 0; i < members.size(); ++i) {
+			final Person p = members.get(i);
+			if (isFemaleParent[i]) {
+				final byte gt = matrix.get(row, columns[i]);
 				if (p.getSex() == Sex.MALE && p.getDisease() == Disease.UNAFFECTED) {
 					// Must always be affected. If affected it is already checked!
 					return false;
 				}
-				if (p.getSex() == Sex.FEMALE && (gt.isHomAlt() || gt.isHomRef())) {
+				if (p.getSex() == Sex.FEMALE && (GenotypeMatrix.isHomAlt(gt) || GenotypeMatrix.isHomRef(gt))) {
 					// Cannot be disease-causing mutation if mother of patient is homozygous or not
 					// the carrier
 					return false;
@@ -134,17 +143,16 @@ public class MendelianCheckerXRHom extends AbstractMendelianChecker {
 		return true;
 	}
 
-	private boolean unaffectedsAreCompatible(GenotypeCalls calls) {
-		final ImmutableSet<String> unaffectedNames = queryDecorator.getUnaffectedNames();
-
-		for (Person p : pedigree.getMembers()) {
-			if (unaffectedNames.contains(p.getName())) {
-				final Genotype gt = calls.getGenotypeForSample(p.getName());
+	private boolean unaffectedsAreCompatible(GenotypeMatrix matrix, int row, int[] columns) {
+		for (int i = 0; i < members.size(); ++i) {
+			final Person p = members.get(i);
+			if (isUnaffected[i]) {
+				final byte gt = matrix.get(row, columns[i]);
 				// Strict handling. Males cannot be called heterozygous (will be seen as a
 				// homozygous mutation)
-				if (p.isMale() && (gt.isHet() || gt.isHomAlt()))
+				if (p.isMale() && (GenotypeMatrix.isHet(gt) || GenotypeMatrix.isHomAlt(gt)))
 					return false;
-				else if (gt.isHomAlt())
+				else if (GenotypeMatrix.isHomAlt(gt))
 					return false; // cannot be disease-causing mutation (female or unknown)
 			}
 		}
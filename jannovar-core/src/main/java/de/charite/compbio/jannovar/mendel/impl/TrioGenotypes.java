@@ -0,0 +1,135 @@
+package de.charite.compbio.jannovar.mendel.impl;
+
+import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.mendel.GenotypeMatrix;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Person;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+/**
+ * Genotypes of the pedigree members and their parents in a {@link GenotypeMatrix}, by member index
+ * <p>
+ * Helper for the compound heterozygous checkers. On construction, the genotypes of each member are converted into one
+ * bit vector over the rows for each genotype flag (hom. ref., het., hom. alt., not observed). The <code>select</code>
+ * functions combine these with bitwise operations.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+final class TrioGenotypes {
+
+	/**
+	 * Number of genotype flags in {@link GenotypeMatrix}
+	 */
+	private static final int NUM_FLAGS = 4;
+
+	/**
+	 * The pedigree members
+	 */
+	private final ImmutableList<Person> members;
+	/**
+	 * The genotypes
+	 */
+	private final GenotypeMatrix matrix;
+	/**
+	 * Column of each member, by member index
+	 */
+	private final int[] columns;
+	/**
+	 * Member index of each member's father, by member index, <code>-1</code> if none
+	 */
+	private final int[] fathers;
+	/**
+	 * Member index of each member's mother, by member index, <code>-1</code> if none
+	 */
+	private final int[] mothers;
+	/**
+	 * Bit vector of the rows with each genotype flag, by member index and number of the flag bit
+	 */
+	private final BitSet[][] flagRows;
+
+	/**
+	 * @param pedigree the pedigree with the members
+	 * @param matrix   the genotypes
+	 * @param rows     the rows to build the bit vectors for, all rows passed to the <code>select</code> functions must be
+	 *                 in here
+	 */
+	TrioGenotypes(Pedigree pedigree, GenotypeMatrix matrix, BitSet rows) {
+		this.members = pedigree.getMembers();
+		this.matrix = matrix;
+		this.columns = matrix.getColumns(pedigree);
+		this.fathers = new int[members.size()];
+		this.mothers = new int[members.size()];
+		for (int i = 0; i < members.size(); ++i) {
+			final Person father = members.get(i).getFather();
+			final Person mother = members.get(i).getMother();
+			fathers[i] = (father == null) ? -1 : pedigree.getNameToMember().get(father.getName()).getIdx();
+			mothers[i] = (mother == null) ? -1 : pedigree.getNameToMember().get(mother.getName()).getIdx();
+		}
+
+		this.flagRows = new BitSet[members.size()][NUM_FLAGS];
+		for (int i = 0; i < members.size(); ++i) {
+			for (int f = 0; f < NUM_FLAGS; ++f)
+				flagRows[i][f] = new BitSet();
+			for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+				final byte code = matrix.get(row, columns[i]);
+				for (int f = 0; f < NUM_FLAGS; ++f)
+					if ((code & (1 << f)) != 0)
+						flagRows[i][f].set(row);
+			}
+		}
+	}
+
+	/**
+	 * @return genotype codes of all members in <code>row</code>, by member index, for use as a hash key
+	 */
+	ByteBuffer getMemberGenotypes(int row) {
+		final byte[] result = new byte[columns.length];
+		for (int i = 0; i < columns.length; ++i)
+			result[i] = matrix.get(row, columns[i]);
+		return ByteBuffer.wrap(result);
+	}
+
+	/**
+	 * @return the rows in <code>rows</code> where the genotype code of member <code>i</code> has any of
+	 * <code>flags</code>
+	 */
+	BitSet select(BitSet rows, int i, int flags) {
+		final BitSet result = new BitSet();
+		for (int f = 0; f < NUM_FLAGS; ++f)
+			if ((flags & (1 << f)) != 0)
+				result.or(flagRows[i][f]);
+		result.and(rows);
+		return result;
+	}
+
+	/**
+	 * @return the rows in <code>rows</code> where the genotype code of the father of member <code>i</code> has any of
+	 * <code>flags</code>, the father must not be <code>null</code>
+	 */
+	BitSet selectFather(BitSet rows, int i, int flags) {
+		return select(rows, fathers[i], flags);
+	}
+
+	/**
+	 * @return the rows in <code>rows</code> where the genotype code of the mother of member <code>i</code> has any of
+	 * <code>flags</code>, the mother must not be <code>null</code>
+	 */
+	BitSet selectMother(BitSet rows, int i, int flags) {
+		return select(rows, mothers[i], flags);
+	}
+
+	/**
+	 * @return the rows in <code>rows</code> that are not observed in member <code>i</code> and its parents (if any)
+	 */
+	BitSet selectNotObservedInTrio(BitSet rows, int i) {
+		final BitSet result = select(rows, i, GenotypeMatrix.NOT_OBSERVED);
+		if (fathers[i] != -1)
+			result.and(selectFather(rows, i, GenotypeMatrix.NOT_OBSERVED));
+		if (mothers[i] != -1)
+			result.and(selectMother(rows, i, GenotypeMatrix.NOT_OBSERVED));
+		return result;
+	}
+
+}
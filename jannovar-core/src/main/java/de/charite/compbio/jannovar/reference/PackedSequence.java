@@ -0,0 +1,175 @@
+package de.charite.compbio.jannovar.reference;
+
+import de.charite.compbio.jannovar.Immutable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Nucleotide sequence with two bits per base and an exception list for the characters other than <code>ACGT</code>.
+ * <p>
+ * Sequences with many exceptions (e.g., soft-masked lower-case sequence) or characters outside of ASCII are kept as
+ * {@link String} as packing would not save memory for them.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Immutable
+final class PackedSequence {
+
+	/**
+	 * Bases by 2-bit code
+	 */
+	private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+	/**
+	 * Length of the sequence
+	 */
+	private final int length;
+
+	/**
+	 * Four bases per byte, the first base in the most significant bits, <code>null</code> if not packed
+	 */
+	private final byte[] packed;
+
+	/**
+	 * Sorted positions of the characters other than <code>ACGT</code>, <code>null</code> if not packed
+	 */
+	private final int[] exceptionPos;
+
+	/**
+	 * Characters at {@link #exceptionPos}, <code>null</code> if not packed
+	 */
+	private final byte[] exceptionChars;
+
+	/**
+	 * The sequence if it is not packed, <code>null</code> otherwise
+	 */
+	private final String plain;
+
+	/**
+	 * Pack <code>seq</code>
+	 *
+	 * @param seq the sequence to pack
+	 */
+	PackedSequence(String seq) {
+		this.length = seq.length();
+
+		int numExceptions = 0;
+		boolean ascii = true;
+		for (int i = 0; i < length; ++i) {
+			final char c = seq.charAt(i);
+			if (baseCode(c) < 0)
+				numExceptions += 1;
+			ascii = ascii && c < 0x80;
+		}
+
+		// Each exception takes five bytes, do not pack if this takes more than the two bits per base save.
+		if (!ascii || 5L * numExceptions > (3L * length) / 4) {
+			this.packed = null;
+			this.exceptionPos = null;
+			this.exceptionChars = null;
+			this.plain = seq;
+			return;
+		}
+
+		this.packed = new byte[(length + 3) / 4];
+		this.exceptionPos = new int[numExceptions];
+		this.exceptionChars = new byte[numExceptions];
+		this.plain = null;
+		int e = 0;
+		for (int i = 0; i < length; ++i) {
+			final char c = seq.charAt(i);
+			final int code = baseCode(c);
+			if (code < 0) {
+				exceptionPos[e] = i;
+				exceptionChars[e++] = (byte) c;
+			} else {
+				packed[i >>> 2] |= code << (6 - 2 * (i & 3));
+			}
+		}
+	}
+
+	/**
+	 * @return length of the sequence
+	 */
+	int length() {
+		return length;
+	}
+
+	/**
+	 * @return the unpacked sequence
+	 */
+	@Override
+	public String toString() {
+		if (plain != null)
+			return plain;
+		return new String(getBytes(0, length), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Unpack the bases in <code>[beginPos, endPos)</code>
+	 *
+	 * @param beginPos 0-based begin position
+	 * @param endPos   0-based end position
+	 * @return the bases as ASCII characters
+	 */
+	byte[] getBytes(int beginPos, int endPos) {
+		if (beginPos < 0 || endPos > length || beginPos > endPos)
+			throw new IndexOutOfBoundsException("Invalid range [" + beginPos + ", " + endPos + ") for length " + length);
+		final byte[] result = new byte[endPos - beginPos];
+		if (plain != null) {
+			for (int i = beginPos; i < endPos; ++i)
+				result[i - beginPos] = (byte) plain.charAt(i);
+			return result;
+		}
+		for (int i = beginPos; i < endPos; ++i)
+			result[i - beginPos] = BASES[(packed[i >>> 2] >>> (6 - 2 * (i & 3))) & 3];
+		int e = Arrays.binarySearch(exceptionPos, beginPos);
+		for (e = (e >= 0) ? e : -(e + 1); e < exceptionPos.length && exceptionPos[e] < endPos; ++e)
+			result[exceptionPos[e] - beginPos] = exceptionChars[e];
+		return result;
+	}
+
+	/**
+	 * @return 2-bit code of <code>c</code> or <code>-1</code> if not one of <code>ACGT</code>
+	 */
+	private static int baseCode(char c) {
+		switch (c) {
+			case 'A':
+				return 0;
+			case 'C':
+				return 1;
+			case 'G':
+				return 2;
+			case 'T':
+				return 3;
+			default:
+				return -1;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		if (plain != null)
+			return plain.hashCode();
+		int result = length;
+		result = 31 * result + Arrays.hashCode(packed);
+		result = 31 * result + Arrays.hashCode(exceptionPos);
+		result = 31 * result + Arrays.hashCode(exceptionChars);
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null || getClass() != obj.getClass())
+			return false;
+		PackedSequence other = (PackedSequence) obj;
+		if (plain != null || other.plain != null)
+			return plain != null && plain.equals(other.plain);
+		return length == other.length && Arrays.equals(packed, other.packed) &&
+			Arrays.equals(exceptionPos, other.exceptionPos) && Arrays.equals(exceptionChars, other.exceptionChars);
+	}
+
+}
@@ -1,20 +1,80 @@
 package de.charite.compbio.jannovar.reference;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import de.charite.compbio.jannovar.Immutable;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 /**
  * The information representing a transcript model.
+ * <p>
+ * As a transcript database holds hundreds of thousands of transcripts, they are kept in a compact form: the exon
+ * boundaries are packed into an <code>int[]</code>, the sequence is stored with two bits per base, ungapped
+ * alignments are only stored as a flag, and gene symbols, gene IDs, and alternative gene ID maps are shared between
+ * transcripts through pools. {@link #getExonRegions()}, {@link #getSequence()}, and {@link #getSeqAlignment()} expand
+ * the compact form, the expanded objects of recently used transcripts are kept in a bounded cache.
+ * <p>
+ * The serialized form is the same as for the expanded representation, so existing <code>.ser</code> files keep
+ * working. Deserialization reads the fields into a temporary object that is replaced by a newly constructed one, such
+ * that all fields are final.
  *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
 @Immutable
 public final class TranscriptModel implements Serializable, Comparable<TranscriptModel> {
 
+	/**
+	 * Maximal number of transcripts to keep in {@link #EXPANDED}
+	 */
+	private static final int MAX_EXPANDED = 4096;
+
+	/**
+	 * Pool for gene symbols, gene IDs, and the keys and values of the alternative gene IDs
+	 */
+	private static final Interner<String> STRING_POOL = Interners.newWeakInterner();
+
+	/**
+	 * Pool for the alternative gene IDs, they are the same for all transcripts of a gene
+	 */
+	private static final Interner<ImmutableSortedMap<String, String>> ALT_GENE_IDS_POOL =
+		Interners.newWeakInterner();
+
+	/**
+	 * Number of slots of {@link #RECENTLY_EXPANDED}, a power of two
+	 */
+	private static final int RECENT_SLOTS = 16;
+
+	/**
+	 * Expanded exon regions, sequence, and ungapped alignment of recently used transcripts, by identity
+	 */
+	private static final LoadingCache<TranscriptModel, Expanded> EXPANDED = CacheBuilder.newBuilder()
+		.maximumSize(MAX_EXPANDED).weakKeys().build(CacheLoader.from(Expanded::new));
+
+	/**
+	 * Per-thread direct-mapped cache in front of {@link #EXPANDED}, the annotation of a variant accesses the same
+	 * transcripts many times. The slots only hold weak references, such that long-lived threads do not keep
+	 * transcripts or their expanded representation alive.
+	 */
+	private static final ThreadLocal<RecentlyExpanded[]> RECENTLY_EXPANDED =
+		ThreadLocal.withInitial(() -> new RecentlyExpanded[RECENT_SLOTS]);
+
 	/**
 	 * Accession number of the transcript (e.g., the UCSC knownGene id - uc011nca.2). The version number may be
 	 * included.
@@ -40,14 +100,14 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	private final GenomeInterval cdsRegion;
 
 	/**
-	 * Genomic intervals with the exons, order is dictated by strand of transcript.
+	 * Begin and end positions of the exons on the transcript's strand, order is dictated by strand of transcript.
 	 */
-	private final ImmutableList<GenomeInterval> exonRegions;
+	private final int[] exonPositions;
 
 	/**
-	 * cDNA sequence of the spliced RNA of this known gene transcript.
+	 * cDNA sequence of the spliced RNA of this known gene transcript, <code>null</code> if there is none.
 	 */
-	private final String sequence;
+	private final PackedSequence sequence;
 
 	/**
 	 * The gene ID, from Ensembl (<code>"ENS[MUS]*G0+([0-9]+)"</code>), Entrez ("<code>ENTREZ([0-9]+)</code>
@@ -73,10 +133,15 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	private final int transcriptSupportLevel;
 
 	/**
-	 * The alignment of the transcript sequence to the genomic exon region.
+	 * The alignment of the transcript sequence to the genomic exon region, <code>null</code> if it is ungapped.
 	 */
 	private final Alignment seqAlignment;
 
+	/**
+	 * Length of the alignment if it is ungapped, <code>-1</code> otherwise.
+	 */
+	private final int ungappedAlignmentLength;
+
 	/**
 	 * Whether or not the transcript aligns with mismatches to the reference.
 	 */
@@ -92,6 +157,30 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 */
 	private static final long serialVersionUID = 4L;
 
+	/**
+	 * Fields of the serialized form, as for the expanded representation.
+	 */
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("accession", String.class),
+		new ObjectStreamField("geneSymbol", String.class),
+		new ObjectStreamField("txRegion", GenomeInterval.class),
+		new ObjectStreamField("cdsRegion", GenomeInterval.class),
+		new ObjectStreamField("exonRegions", ImmutableList.class),
+		new ObjectStreamField("sequence", String.class),
+		new ObjectStreamField("geneID", String.class),
+		new ObjectStreamField("altGeneIDs", ImmutableSortedMap.class),
+		new ObjectStreamField("transcriptSupportLevel", int.class),
+		new ObjectStreamField("seqAlignment", Alignment.class),
+		new ObjectStreamField("hasSubstitutions", boolean.class),
+		new ObjectStreamField("hasIndels", boolean.class),
+	};
+
+	/**
+	 * Transcript constructed by {@link #readObject}, only set in the temporary object that {@link #readResolve}
+	 * replaces with it.
+	 */
+	private transient TranscriptModel serialFields;
+
 	/**
 	 * Initialize the {@link TranscriptModel} object from the given parameters.
 	 */
@@ -110,19 +199,122 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		GenomeInterval cdsRegion, ImmutableList<GenomeInterval> exonRegions, String sequence,
 		String geneID, int transcriptSupportLevel, boolean hasSubstitutions, boolean hasIndels,
 		Map<String, String> altGeneIDs, Alignment seqAlignment) {
+		this(accession, geneSymbol, txRegion, cdsRegion, exonRegions, sequence, geneID,
+			transcriptSupportLevel, hasSubstitutions, hasIndels, altGeneIDs, seqAlignment, true);
+	}
+
+	/**
+	 * Set the fields to the compact form of the given values, shared by the public constructors and
+	 * deserialization.
+	 */
+	private TranscriptModel(String accession, String geneSymbol, GenomeInterval txRegion, GenomeInterval cdsRegion,
+		List<GenomeInterval> exonRegions, String sequence, String geneID, int transcriptSupportLevel,
+		boolean hasSubstitutions, boolean hasIndels, Map<String, String> altGeneIDs, Alignment seqAlignment,
+		boolean checkConsistency) {
 		this.accession = accession;
-		this.geneSymbol = geneSymbol;
+		this.geneSymbol = intern(geneSymbol);
 		this.txRegion = txRegion;
 		this.cdsRegion = cdsRegion;
-		this.exonRegions = exonRegions;
-		this.sequence = sequence;
-		this.geneID = geneID;
+		final int[] exonPositions = new int[2 * exonRegions.size()];
+		for (int i = 0; i < exonRegions.size(); ++i) {
+			final GenomeInterval region = exonRegions.get(i).withStrand(txRegion.getStrand());
+			if (region.getChr() != txRegion.getChr())
+				throw new IllegalArgumentException("Exon " + region + " is not on the chromosome of " + txRegion);
+			exonPositions[2 * i] = region.getBeginPos();
+			exonPositions[2 * i + 1] = region.getEndPos();
+		}
+		this.exonPositions = exonPositions;
+		this.sequence = (sequence == null) ? null : new PackedSequence(sequence);
+		this.geneID = intern(geneID);
 		this.transcriptSupportLevel = transcriptSupportLevel;
-		this.altGeneIDs = ImmutableSortedMap.copyOf(altGeneIDs);
-		this.seqAlignment = seqAlignment;
+		ImmutableSortedMap.Builder<String, String> altBuilder = ImmutableSortedMap.naturalOrder();
+		for (Map.Entry<String, String> e : altGeneIDs.entrySet())
+			altBuilder.put(intern(e.getKey()), intern(e.getValue()));
+		this.altGeneIDs = ALT_GENE_IDS_POOL.intern(altBuilder.build());
+		this.ungappedAlignmentLength = ungappedLength(seqAlignment);
+		this.seqAlignment = (ungappedAlignmentLength >= 0) ? null : seqAlignment;
 		this.hasSubstitutions = hasSubstitutions;
 		this.hasIndels = hasIndels;
-		checkForConsistency();
+		if (checkConsistency)
+			checkForConsistency();
+	}
+
+	/**
+	 * @return length of <code>alignment</code> if it is ungapped, <code>-1</code> otherwise
+	 */
+	private static int ungappedLength(Alignment alignment) {
+		if (alignment == null || alignment.getRefAnchors().size() != 2)
+			return -1;
+		final int length = alignment.getRefAnchors().get(1).getSeqPos();
+		return alignment.equals(Alignment.createUngappedAlignment(length)) ? length : -1;
+	}
+
+	/**
+	 * @return <code>s</code> from {@link #STRING_POOL}, <code>null</code> for <code>null</code>
+	 */
+	private static String intern(String s) {
+		return (s == null) ? null : STRING_POOL.intern(s);
+	}
+
+	/**
+	 * @return expanded representation of this transcript, from {@link #RECENTLY_EXPANDED} or {@link #EXPANDED}
+	 */
+	private Expanded expanded() {
+		final RecentlyExpanded[] slots = RECENTLY_EXPANDED.get();
+		final int slot = System.identityHashCode(this) & (RECENT_SLOTS - 1);
+		final RecentlyExpanded recent = slots[slot];
+		if (recent != null && recent.get() == this) {
+			final Expanded result = recent.expanded.get();
+			if (result != null)
+				return result;
+		}
+		final Expanded result = EXPANDED.getUnchecked(this);
+		slots[slot] = new RecentlyExpanded(this, result);
+		return result;
+	}
+
+	/**
+	 * Write the expanded representation
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("accession", accession);
+		fields.put("geneSymbol", geneSymbol);
+		fields.put("txRegion", txRegion);
+		fields.put("cdsRegion", cdsRegion);
+		fields.put("exonRegions", getExonRegions());
+		fields.put("sequence", getSequence());
+		fields.put("geneID", geneID);
+		fields.put("altGeneIDs", altGeneIDs);
+		fields.put("transcriptSupportLevel", transcriptSupportLevel);
+		fields.put("seqAlignment", getSeqAlignment());
+		fields.put("hasSubstitutions", hasSubstitutions);
+		fields.put("hasIndels", hasIndels);
+		out.writeFields();
+	}
+
+	/**
+	 * Read the expanded representation and convert it into the compact one, {@link #readResolve} returns the result
+	 */
+	@SuppressWarnings("unchecked")
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		serialFields = new TranscriptModel((String) fields.get("accession", null),
+			(String) fields.get("geneSymbol", null), (GenomeInterval) fields.get("txRegion", null),
+			(GenomeInterval) fields.get("cdsRegion", null), (List<GenomeInterval>) fields.get("exonRegions", null),
+			(String) fields.get("sequence", null), (String) fields.get("geneID", null),
+			fields.get("transcriptSupportLevel", 0), fields.get("hasSubstitutions", false),
+			fields.get("hasIndels", false), (Map<String, String>) fields.get("altGeneIDs", ImmutableSortedMap.of()),
+			(Alignment) fields.get("seqAlignment", null), false);
+	}
+
+	/**
+	 * @return the transcript constructed by {@link #readObject}, replacing this temporary object
+	 */
+	private Object readResolve() throws ObjectStreamException {
+		if (serialFields == null)
+			throw new InvalidObjectException("Transcript was not read");
+		return serialFields;
 	}
 
 	/**
@@ -157,14 +349,37 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 * @return genomic intervals with the exons, order is dictated by strand of transcript.
 	 */
 	public ImmutableList<GenomeInterval> getExonRegions() {
-		return exonRegions;
+		return expanded().exonRegions;
+	}
+
+	/**
+	 * @return number of exons
+	 */
+	public int getExonCount() {
+		return exonPositions.length / 2;
+	}
+
+	/**
+	 * @param i 0-based index of the exon, order is dictated by strand of transcript
+	 * @return 0-based begin position of the exon on the transcript's strand
+	 */
+	public int getExonBeginPos(int i) {
+		return exonPositions[2 * i];
+	}
+
+	/**
+	 * @param i 0-based index of the exon, order is dictated by strand of transcript
+	 * @return 0-based end position of the exon on the transcript's strand
+	 */
+	public int getExonEndPos(int i) {
+		return exonPositions[2 * i + 1];
 	}
 
 	/**
 	 * @return mDNA sequence of the spliced RNA of this known gene transcript.
 	 */
 	public String getSequence() {
-		return sequence;
+		return (sequence == null) ? null : expanded().sequence;
 	}
 
 	/**
@@ -172,14 +387,19 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 * trailing sequences removed.
 	 */
 	public String getTrimmedSequence() {
+		final String seq = getSequence();
+		if (ungappedAlignmentLength >= 0)
+			return seq;
 		final Alignment ali = seqAlignment;
-		return sequence.substring(ali.refLeadingGapLength(), sequence.length() - ali.refTrailingGapLength());
+		return seq.substring(ali.refLeadingGapLength(), seq.length() - ali.refTrailingGapLength());
 	}
 
 	/**
 	 * @Return the sequence alignment to the exonic genome reference
 	 */
-	public Alignment getSeqAlignment() { return seqAlignment; }
+	public Alignment getSeqAlignment() {
+		return (ungappedAlignmentLength >= 0) ? expanded().seqAlignment : seqAlignment;
+	}
 
 	/**
 	 * @return The gene ID, from Ensembl (<code>"ENS[MUS]*G0+([0-9]+)"</code>), Entrez ("<code>ENTREZ([0-9]+)</code>
@@ -239,9 +459,13 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 * @return the length of the coding exon sequence
 	 */
 	public int cdsTranscriptLength() {
+		if (cdsRegion.getChr() != txRegion.getChr())
+			return 0;
+		final GenomeInterval cds = cdsRegion.withStrand(txRegion.getStrand());
 		int result = 0;
-		for (GenomeInterval region : exonRegions)
-			result += region.intersection(cdsRegion).length();
+		for (int i = 0; i < exonPositions.length; i += 2)
+			result += Math.max(0, Math.min(exonPositions[i + 1], cds.getEndPos()) -
+				Math.max(exonPositions[i], cds.getBeginPos()));
 		return result;
 	}
 
@@ -250,8 +474,8 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 */
 	public int transcriptLength() {
 		int result = 0;
-		for (GenomeInterval region : exonRegions)
-			result += region.length();
+		for (int i = 0; i < exonPositions.length; i += 2)
+			result += exonPositions[i + 1] - exonPositions[i];
 		return result;
 	}
 
@@ -275,10 +499,8 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 	 */
 	public GenomeInterval intronRegion(int i) {
 		// TODO(holtgrem): test me!
-		GenomeInterval exonRegionL = exonRegions.get(i);
-		GenomeInterval exonRegionR = exonRegions.get(i + 1);
-		return new GenomeInterval(exonRegionL.refDict, exonRegionL.getStrand(), exonRegionL.getChr(),
-			exonRegionL.getEndPos(), exonRegionR.getBeginPos(), PositionType.ZERO_BASED);
+		return new GenomeInterval(txRegion.refDict, txRegion.getStrand(), txRegion.getChr(), getExonEndPos(i),
+			getExonBeginPos(i + 1), PositionType.ZERO_BASED);
 	}
 
 	/**
@@ -288,8 +510,6 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		Strand strand = txRegion.getStrand();
 		assert (txRegion.getStrand() == strand);
 		assert (cdsRegion.getStrand() == strand);
-		for (GenomeInterval region : exonRegions)
-			assert (region.getStrand() == strand);
 	}
 
 	@Override
@@ -303,14 +523,14 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		int result = 1;
 		result = prime * result + ((accession == null) ? 0 : accession.hashCode());
 		result = prime * result + ((cdsRegion == null) ? 0 : cdsRegion.hashCode());
-		result = prime * result + ((exonRegions == null) ? 0 : exonRegions.hashCode());
+		result = prime * result + getExonCount();
 		result = prime * result + ((geneID == null) ? 0 : geneID.hashCode());
 		result = prime * result + ((geneSymbol == null) ? 0 : geneSymbol.hashCode());
 		result = prime * result + ((sequence == null) ? 0 : sequence.hashCode());
 		result = prime * result + transcriptSupportLevel;
 		result = prime * result + ((txRegion == null) ? 0 : txRegion.hashCode());
 		result = prime * result + ((seqAlignment == null) ? 0 : seqAlignment.hashCode());
-		result = prime * result + ((seqAlignment == null) ? 0 : seqAlignment.hashCode());
+		result = prime * result + ungappedAlignmentLength;
 		return result;
 	}
 
@@ -333,10 +553,10 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 				return false;
 		} else if (!cdsRegion.equals(other.cdsRegion))
 			return false;
-		if (exonRegions == null) {
-			if (other.exonRegions != null)
+		if (getStrand() == other.getStrand()) {
+			if (!Arrays.equals(exonPositions, other.exonPositions))
 				return false;
-		} else if (!exonRegions.equals(other.exonRegions))
+		} else if (!getExonRegions().equals(other.getExonRegions()))
 			return false;
 		if (geneID == null) {
 			if (other.geneID != null)
@@ -360,6 +580,8 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 				return false;
 		} else if (!txRegion.equals(other.txRegion))
 			return false;
+		if (ungappedAlignmentLength != other.ungappedAlignmentLength)
+			return false;
 		if (seqAlignment == null) {
 			if (other.seqAlignment != null)
 				return false;
@@ -383,4 +605,41 @@ public final class TranscriptModel implements Serializable, Comparable<Transcrip
 		return accession.compareTo(o.accession);
 	}
 
+	/**
+	 * Slot of {@link #RECENTLY_EXPANDED}, weakly referencing a transcript and its expanded representation.
+	 */
+	private static final class RecentlyExpanded extends WeakReference<TranscriptModel> {
+
+		private final WeakReference<Expanded> expanded;
+
+		RecentlyExpanded(TranscriptModel tm, Expanded expanded) {
+			super(tm);
+			this.expanded = new WeakReference<>(expanded);
+		}
+
+	}
+
+	/**
+	 * Expanded representation of the exon regions, sequence, and ungapped alignment of a transcript.
+	 */
+	private static final class Expanded {
+
+		private final ImmutableList<GenomeInterval> exonRegions;
+		private final String sequence;
+		private final Alignment seqAlignment;
+
+		Expanded(TranscriptModel tm) {
+			final GenomeInterval txRegion = tm.txRegion;
+			ImmutableList.Builder<GenomeInterval> builder = ImmutableList.builder();
+			for (int i = 0; i < tm.getExonCount(); ++i)
+				builder.add(new GenomeInterval(txRegion.refDict, txRegion.getStrand(), txRegion.getChr(),
+					tm.getExonBeginPos(i), tm.getExonEndPos(i), PositionType.ZERO_BASED));
+			this.exonRegions = builder.build();
+			this.sequence = (tm.sequence == null) ? null : tm.sequence.toString();
+			this.seqAlignment = (tm.ungappedAlignmentLength >= 0) ?
+				Alignment.createUngappedAlignment(tm.ungappedAlignmentLength) : null;
+		}
+
+	}
+
 }
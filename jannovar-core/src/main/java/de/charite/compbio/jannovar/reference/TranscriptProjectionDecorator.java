@@ -24,13 +24,30 @@ public final class TranscriptProjectionDecorator {
 	 */
 	private final TranscriptModel transcript;
 
+	/**
+	 * precomputed sequence information for {@link #transcript}, <code>null</code> if not available
+	 */
+	private final TranscriptSequenceCache.Entry sequences;
+
 	/**
 	 * Initialize the object with the given {@link TranscriptModel}
 	 *
 	 * @param transcript the {@link TranscriptModel} to decorate
 	 */
 	public TranscriptProjectionDecorator(TranscriptModel transcript) {
+		this(transcript, null);
+	}
+
+	/**
+	 * Initialize the object with the given {@link TranscriptModel} and precomputed sequence information
+	 *
+	 * @param transcript the {@link TranscriptModel} to decorate
+	 * @param sequences  precomputed sequence information for <code>transcript</code>, <code>null</code> if not
+	 *                   available
+	 */
+	public TranscriptProjectionDecorator(TranscriptModel transcript, TranscriptSequenceCache.Entry sequences) {
 		this.transcript = transcript;
+		this.sequences = sequences;
 	}
 
 	/**
@@ -57,6 +74,8 @@ public final class TranscriptProjectionDecorator {
 	 * @return the CDS transcript string extended to the right for the full transcript
 	 */
 	public String getTranscriptStartingAtCDS() {
+		if (sequences != null)
+			return sequences.getCDSSequence();
 		try {
 			TranscriptPosition tBeginPos = genomeToTranscriptPos(transcript.getCDSRegion().getGenomeBeginPos());
 			return transcript.getTrimmedSequence().substring(tBeginPos.getPos(), transcript.getTrimmedSequence().length());
@@ -78,6 +97,18 @@ public final class TranscriptProjectionDecorator {
 				+ transcript.getTXRegion());
 		pos = pos.withStrand(transcript.getStrand());
 
+		// Use precomputed exon offsets if available.
+		if (sequences != null) {
+			final int exonID = sequences.findExon(pos);
+			if (exonID == INVALID_EXON_ID)
+				throw new ProjectionException("Position " + pos + " does not lie in an exon.");
+			final GenomeInterval region = transcript.getExonRegions().get(exonID);
+			final int transcriptPos = sequences.getExonTxOffset(exonID) + pos.differenceTo(region.getGenomeBeginPos());
+			final int projectedTranscriptPos = transcript.getSeqAlignment().projectRefToQry(transcriptPos) -
+				transcript.getSeqAlignment().refLeadingGapLength();
+			return new TranscriptPosition(transcript, projectedTranscriptPos, PositionType.ZERO_BASED);
+		}
+
 		// Look through all exons, find containing one, and compute the position.
 		int tOffset = 0; // offset in transcript
 		for (GenomeInterval region : transcript.getExonRegions()) {
@@ -184,7 +215,7 @@ public final class TranscriptProjectionDecorator {
 
 		// handling case of transcript end position
 		// TODO(holtgrewe): add test for this
-		GenomeInterval lastRegion = transcript.getExonRegions().get(transcript.getExonRegions().size() - 1);
+		GenomeInterval lastRegion = transcript.getExonRegions().get(transcript.getExonCount() - 1);
 		if (targetPos == currPos)
 			return lastRegion.getGenomeEndPos();
 
@@ -202,7 +233,7 @@ public final class TranscriptProjectionDecorator {
 		if (transcript.getStrand().isForward())
 			return exonID;
 		else
-			return transcript.getExonRegions().size() - exonID - 1;
+			return transcript.getExonCount() - exonID - 1;
 	}
 
 	/**
@@ -213,23 +244,35 @@ public final class TranscriptProjectionDecorator {
 	 * region but in transcript interval
 	 */
 	public int locateIntron(GenomePosition pos) {
-		if (pos.getChr() != transcript.getChr()) // guard against different chromosomes
+		return locateIntron(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * Returns (0-based) index of the intron (in the order determined by the transcript's strand), see
+	 * {@link #locateIntron(GenomePosition)}.
+	 *
+	 * @param chr    chromosome of the position
+	 * @param strand strand of the position
+	 * @param pos    0-based position on <code>strand</code>
+	 * @return (0 - based) index of the selected intron, or {@link #INVALID_INTRON_ID} if the position is not in exonic
+	 * region but in transcript interval
+	 */
+	public int locateIntron(int chr, Strand strand, int pos) {
+		if (chr != transcript.getChr()) // guard against different chromosomes
 			return INVALID_INTRON_ID;
-		if (pos.getStrand() != transcript.getStrand()) // ensure pos is on the same strand
-			pos = pos.withStrand(transcript.getStrand());
+		pos = toTranscriptStrand(strand, pos);
 
 		// handle the case that the position is outside the transcript region
-		if (transcript.getTXRegion().isLeftOf(pos) || transcript.getTXRegion().isRightOf(pos))
+		final GenomeInterval txRegion = transcript.getTXRegion();
+		if (pos >= txRegion.getEndPos() || pos < txRegion.getBeginPos())
 			return INVALID_INTRON_ID;
 
 		// find exon containing pos or return null
-		int i = 0;
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.isRightOf(pos))
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			if (pos < transcript.getExonBeginPos(i))
 				return i - 1;
-			if (region.contains(pos))
+			if (pos < transcript.getExonEndPos(i))
 				return INVALID_INTRON_ID; // not in intron
-			++i;
 		}
 
 		return INVALID_INTRON_ID;
@@ -243,27 +286,47 @@ public final class TranscriptProjectionDecorator {
 	 * but in transcript interval
 	 */
 	public int locateExon(GenomePosition pos) {
-		if (pos.getChr() != transcript.getChr()) // guard against different chromosomes
+		return locateExon(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * Returns (0-based) index of the exon (in the order determined by the transcript's strand), see
+	 * {@link #locateExon(GenomePosition)}.
+	 *
+	 * @param chr    chromosome of the position
+	 * @param strand strand of the position
+	 * @param pos    0-based position on <code>strand</code>
+	 * @return (0 - based) index of the selected exon, or {@link #INVALID_EXON_ID} if the position is not in exonic
+	 * region but in transcript interval
+	 */
+	public int locateExon(int chr, Strand strand, int pos) {
+		if (chr != transcript.getChr()) // guard against different chromosomes
 			return INVALID_EXON_ID;
-		if (pos.getStrand() != transcript.getStrand()) // ensure pos is on the same strand
-			pos = pos.withStrand(transcript.getStrand());
+		pos = toTranscriptStrand(strand, pos);
 
 		// handle the case that the position is outside the transcript region
-		if (transcript.getTXRegion().isLeftOf(pos) || transcript.getTXRegion().isRightOf(pos))
+		final GenomeInterval txRegion = transcript.getTXRegion();
+		if (pos >= txRegion.getEndPos() || pos < txRegion.getBeginPos())
 			return INVALID_EXON_ID;
 
 		// find exon containing pos or return null
-		GenomeInterval posBase = new GenomeInterval(pos, 1); // region of referenced base
-		int i = 0;
-		for (GenomeInterval region : transcript.getExonRegions()) {
-			if (region.contains(posBase))
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			if (pos >= transcript.getExonBeginPos(i) && pos < transcript.getExonEndPos(i))
 				return i;
-			++i;
 		}
 
 		return INVALID_EXON_ID;
 	}
 
+	/**
+	 * @return <code>pos</code> on <code>strand</code> converted to the transcript's strand
+	 */
+	private int toTranscriptStrand(Strand strand, int pos) {
+		if (strand == transcript.getStrand())
+			return pos;
+		return transcript.getTXRegion().getRefDict().getContigIDToLength().get(transcript.getChr()) - pos - 1;
+	}
+
 	/**
 	 * Returns (0-based) index of the exon (in the order determined by the transcript's strand).
 	 *
@@ -304,7 +367,7 @@ public final class TranscriptProjectionDecorator {
 	public CDSPosition projectGenomeToCDSPosition(GenomePosition pos) {
 		// TODO: adjust for possibly gapped alignments
 		// TODO(holtgrem): Test me!
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+		TranscriptProjectionDecorator projector = this;
 		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
 
 		try {
@@ -352,7 +415,7 @@ public final class TranscriptProjectionDecorator {
 	 */
 	public TranscriptPosition projectGenomeToTXPosition(GenomePosition pos) {
 		// TODO(holtgrem): Test me!
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+		TranscriptProjectionDecorator projector = this;
 		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
 
 		try {
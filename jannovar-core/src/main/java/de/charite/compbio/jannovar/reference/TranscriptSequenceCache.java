@@ -0,0 +1,237 @@
+package de.charite.compbio.jannovar.reference;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import de.charite.compbio.jannovar.Immutable;
+import de.charite.compbio.jannovar.impl.util.Translator;
+
+import java.util.Arrays;
+
+/**
+ * Bounded, thread-safe cache of precomputed per-transcript sequence information.
+ * <p>
+ * The annotation builders need the CDS sequence of a transcript (extended to the transcript end), the reference
+ * protein translation, and the exon offsets in the transcript for every variant. Recomputing these for each variant
+ * is expensive for long transcripts (e.g., TTN), so they are computed once per transcript and kept in this cache.
+ * <p>
+ * Transcripts are compared by identity, and entries are evicted in LRU order once there are more than the configured
+ * maximal number of entries.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class TranscriptSequenceCache {
+
+	/**
+	 * Default maximal number of transcripts to keep in the cache
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+	/**
+	 * The instance shared by the annotation builders
+	 */
+	private static final TranscriptSequenceCache DEFAULT_INSTANCE = new TranscriptSequenceCache(DEFAULT_MAXIMUM_SIZE);
+
+	/**
+	 * The underlying cache, using weak keys for identity comparison of the transcripts
+	 */
+	private final LoadingCache<TranscriptModel, Entry> cache;
+
+	/**
+	 * @param maximumSize maximal number of transcripts to keep in the cache
+	 */
+	public TranscriptSequenceCache(int maximumSize) {
+		this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).weakKeys()
+			.build(CacheLoader.from(Entry::new));
+	}
+
+	/**
+	 * @return the cache instance shared by the annotation builders
+	 */
+	public static TranscriptSequenceCache getDefault() {
+		return DEFAULT_INSTANCE;
+	}
+
+	/**
+	 * @param transcript the transcript to get the precomputed information for
+	 * @return the precomputed information for <code>transcript</code>, computed on first access
+	 */
+	public Entry get(TranscriptModel transcript) {
+		return cache.getUnchecked(transcript);
+	}
+
+	/**
+	 * @return approximate number of transcripts in the cache
+	 */
+	public long size() {
+		return cache.size();
+	}
+
+	/**
+	 * Remove all entries from the cache.
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * Precomputed sequence information for one transcript.
+	 * <p>
+	 * The exon offset tables are computed on construction, the CDS sequence and the protein translation on first
+	 * access as they are only needed for variants in coding exons.
+	 */
+	@Immutable
+	public static final class Entry {
+
+		/**
+		 * The transcript that the information was computed for
+		 */
+		private final TranscriptModel transcript;
+		/**
+		 * Begin positions of the exons on the transcript's strand, in transcript order, <code>null</code> if the exons
+		 * are not sorted and disjoint
+		 */
+		private final int[] exonBeginPos;
+		/**
+		 * Offset of each exon in the (unaligned) transcript, with the transcript length as the last element
+		 */
+		private final int[] exonTxOffsets;
+		/**
+		 * Transcript sequence starting at the CDS begin position
+		 */
+		private final Supplier<String> cdsSequence;
+		/**
+		 * Translation of {@link #cdsSequence}
+		 */
+		private final Supplier<String> protein;
+
+		Entry(TranscriptModel transcript) {
+			this.transcript = transcript;
+
+			final int numExons = transcript.getExonCount();
+			int[] beginPos = new int[numExons];
+			this.exonTxOffsets = new int[numExons + 1];
+			boolean sorted = true;
+			int prevEndPos = Integer.MIN_VALUE;
+			for (int i = 0; i < numExons; ++i) {
+				beginPos[i] = transcript.getExonBeginPos(i);
+				exonTxOffsets[i + 1] = exonTxOffsets[i] + transcript.getExonEndPos(i) - transcript.getExonBeginPos(i);
+				sorted = sorted && transcript.getExonBeginPos(i) >= prevEndPos;
+				prevEndPos = transcript.getExonEndPos(i);
+			}
+			this.exonBeginPos = sorted ? beginPos : null;
+
+			this.cdsSequence = Suppliers.memoize(
+				() -> new TranscriptProjectionDecorator(transcript).getTranscriptStartingAtCDS());
+			this.protein = Suppliers.memoize(
+				() -> Translator.getTranslator().translateDNA(cdsSequence.get(), !transcript.isMitochondrial()));
+		}
+
+		/**
+		 * @return the transcript that the information was computed for
+		 */
+		public TranscriptModel getTranscript() {
+			return transcript;
+		}
+
+		/**
+		 * @return the transcript sequence starting at the CDS begin position, see
+		 * {@link TranscriptProjectionDecorator#getTranscriptStartingAtCDS}
+		 */
+		public String getCDSSequence() {
+			return cdsSequence.get();
+		}
+
+		/**
+		 * @return the translation of {@link #getCDSSequence}
+		 */
+		public String getProtein() {
+			return protein.get();
+		}
+
+		/**
+		 * @param exonID 0-based exon index in transcript order
+		 * @return offset of the exon in the (unaligned) transcript
+		 */
+		public int getExonTxOffset(int exonID) {
+			return exonTxOffsets[exonID];
+		}
+
+		/**
+		 * Find the exon containing the given position.
+		 *
+		 * @param pos the position to query for
+		 * @return 0-based index of the exon containing <code>pos</code> in transcript order,
+		 * {@link TranscriptProjectionDecorator#INVALID_EXON_ID} if <code>pos</code> is not exonic
+		 */
+		public int findExon(GenomePosition pos) {
+			if (exonBeginPos == null) {
+				for (int i = 0; i < transcript.getExonCount(); ++i)
+					if (transcript.getExonRegions().get(i).contains(pos))
+						return i;
+				return TranscriptProjectionDecorator.INVALID_EXON_ID;
+			}
+
+			if (pos.getChr() != transcript.getChr())
+				return TranscriptProjectionDecorator.INVALID_EXON_ID;
+			final int txPos = pos.withStrand(transcript.getStrand()).getPos();
+			final int idx = Arrays.binarySearch(exonBeginPos, txPos);
+			final int exonID = (idx >= 0) ? idx : -(idx + 1) - 1;
+			if (exonID >= 0 && txPos < transcript.getExonEndPos(exonID))
+				return exonID;
+			else
+				return TranscriptProjectionDecorator.INVALID_EXON_ID;
+		}
+
+		/**
+		 * Translate the CDS sequence of a variant, as {@link Translator#translateDNA} would do.
+		 * <p>
+		 * The variant CDS is {@link #getCDSSequence} with the bases in <code>[beginPos, endPos)</code> replaced by
+		 * <code>alt</code>. It is not built as a whole, only the codons that differ are assembled and translated, the
+		 * rest is taken from {@link #getProtein}. For in-frame changes, this is the window of changed codons, for
+		 * frameshifts it is everything downstream of the change.
+		 *
+		 * @param beginPos 0-based begin position of the replaced bases in {@link #getCDSSequence}
+		 * @param endPos   0-based end position of the replaced bases in {@link #getCDSSequence}
+		 * @param alt      the bases to put in place of the replaced ones
+		 * @return the translation of the variant CDS sequence
+		 */
+		public String translateVariantCDS(int beginPos, int endPos, String alt) {
+			final String wtCDSSeq = getCDSSequence();
+			final String wtAASeq = getProtein();
+			final int wtLen = wtCDSSeq.length();
+			final int delta = alt.length() - (endPos - beginPos);
+			final int varLen = wtLen + delta;
+
+			// All codons before the one containing beginPos translate to the same amino acids.
+			final int firstCodon = beginPos / 3;
+			if (wtAASeq.length() < firstCodon)
+				return wtAASeq; // translation stopped at invalid codon in common prefix
+
+			// The suffix behind the change is shifted by delta, its codons translate to the same amino acids if in
+			// frame.
+			final int suffixLen = wtLen - endPos;
+
+			// Translate window from the first changed codon on, up to the start of the common suffix if in frame.
+			final Translator t = Translator.getTranslator();
+			final boolean inFrame = delta % 3 == 0;
+			final int lastCodon = Math.max(firstCodon, (varLen - suffixLen + 2) / 3);
+			final int wtLastCodon = lastCodon - delta / 3;
+			final boolean reuseSuffix = inFrame && 3 * lastCodon < varLen && wtAASeq.length() >= wtLastCodon;
+			final int windowEnd = reuseSuffix ? 3 * lastCodon : varLen;
+			StringBuilder window = new StringBuilder(windowEnd - 3 * firstCodon);
+			window.append(wtCDSSeq, 3 * firstCodon, beginPos).append(alt).append(wtCDSSeq, endPos, windowEnd - delta);
+			final String windowAASeq = t.translateDNA(window.toString(), !transcript.isMitochondrial());
+
+			StringBuilder builder = new StringBuilder(wtAASeq.length() + delta / 3 + 1);
+			builder.append(wtAASeq, 0, firstCodon).append(windowAASeq);
+			if (reuseSuffix && windowAASeq.length() == lastCodon - firstCodon)
+				builder.append(wtAASeq, wtLastCodon, wtAASeq.length());
+			return builder.toString();
+		}
+
+	}
+
+}
@@ -15,13 +15,29 @@ public final class TranscriptSequenceChangeHelper {
 	 */
 	private final TranscriptModel transcript;
 
+	/**
+	 * Helper for coordinate transformations on {@link #transcript}.
+	 */
+	private final TranscriptProjectionDecorator projector;
+
 	/**
 	 * Construct helper with the given {@link TranscriptModel}
 	 *
 	 * @param transcript with position and sequence information
 	 */
 	public TranscriptSequenceChangeHelper(TranscriptModel transcript) {
-		this.transcript = transcript;
+		this(new TranscriptProjectionDecorator(transcript));
+	}
+
+	/**
+	 * Construct helper with the given {@link TranscriptProjectionDecorator}, e.g., one using precomputed sequence
+	 * information from a {@link TranscriptSequenceCache}
+	 *
+	 * @param projector for the transcript with position and sequence information
+	 */
+	public TranscriptSequenceChangeHelper(TranscriptProjectionDecorator projector) {
+		this.transcript = projector.getTranscript();
+		this.projector = projector;
 	}
 
 	/**
@@ -53,7 +69,6 @@ public final class TranscriptSequenceChangeHelper {
 			return transcript.getTrimmedSequence(); // non-coding change, does not affect transcript
 
 		// Get transcript position for the change position.
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
 		TranscriptPosition tPos;
 		try {
 			tPos = projector.genomeToTranscriptPos(change.getGenomePos());
@@ -111,7 +126,6 @@ public final class TranscriptSequenceChangeHelper {
 	 * @throws ProjectionException in case of problems with the position conversion
 	 */
 	private TranscriptPosition translateGenomeToTranscriptPosition(GenomePosition pos) throws ProjectionException {
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
 		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
 
 		// Get transcript begin position.
@@ -139,63 +153,98 @@ public final class TranscriptSequenceChangeHelper {
 	 * @return CDS of transcript with applied {@link GenomeVariant}
 	 */
 	public String getCDSWithGenomeVariant(GenomeVariant change) {
+		final String cdsSeq = projector.getTranscriptStartingAtCDS();
+		final CDSChange cdsChange = getCDSChange(change);
+		if (cdsChange == null)
+			return cdsSeq;
+
+		// Build resulting transcript string.
+		StringBuilder builder = new StringBuilder(cdsSeq);
+		builder.replace(cdsChange.beginPos, cdsChange.endPos, cdsChange.alt);
+		return builder.toString();
+	}
+
+	/**
+	 * Translate the CDS of the transcript with applied {@link GenomeVariant}.
+	 * <p>
+	 * The result is the same as translating {@link #getCDSWithGenomeVariant} but only the changed codons are
+	 * translated, using the precomputed CDS sequence and protein of <code>sequences</code>.
+	 *
+	 * @param change    {@link GenomeVariant} to apply to the CDS region of the transcript
+	 * @param sequences precomputed sequences of the transcript
+	 * @return translation of the CDS of the transcript with applied {@link GenomeVariant}
+	 */
+	public String translateCDSWithGenomeVariant(GenomeVariant change, TranscriptSequenceCache.Entry sequences) {
+		final CDSChange cdsChange = getCDSChange(change);
+		if (cdsChange == null)
+			return sequences.getProtein();
+		return sequences.translateVariantCDS(cdsChange.beginPos, cdsChange.endPos, cdsChange.alt);
+	}
+
+	/**
+	 * @param change {@link GenomeVariant} to apply to the CDS region of the transcript
+	 * @return difference of the lengths of {@link #getCDSWithGenomeVariant} and the unchanged CDS
+	 */
+	public int getCDSLengthChange(GenomeVariant change) {
+		final CDSChange cdsChange = getCDSChange(change);
+		if (cdsChange == null)
+			return 0;
+		return cdsChange.alt.length() - (cdsChange.endPos - cdsChange.beginPos);
+	}
+
+	/**
+	 * @param change {@link GenomeVariant} to apply to the CDS region of the transcript
+	 * @return the replacement in the CDS sequence that <code>change</code> leads to, <code>null</code> if the CDS is
+	 * not affected
+	 */
+	private CDSChange getCDSChange(GenomeVariant change) {
 		change = change.withStrand(transcript.getStrand());
 
 		switch (change.getType()) {
 			case SNV:
 			case INSERTION:
-				return getCDSWithPointInRefAffected(change);
+				return getCDSChangeWithPointInRefAffected(change);
 			case DELETION:
 			case BLOCK_SUBSTITUTION:
-				return getCDSWithRangeInRefAffected(change);
+				return getCDSChangeWithRangeInRefAffected(change);
 			default:
 				throw new Error("Unhandled change type " + change.getType());
 		}
 	}
 
-	private String getCDSWithPointInRefAffected(GenomeVariant change) {
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+	private CDSChange getCDSChangeWithPointInRefAffected(GenomeVariant change) {
 		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
 
-		// Obtain CDS transcript sequence.
-		String cdsSeq = projector.getTranscriptStartingAtCDS();
-
 		// Short-circuit in the case of change that does not affect the transcript.
 		if (change.getType() == GenomeVariantType.SNV) {
 			if (!transcript.getCDSRegion().overlapsWith(change.getGenomeInterval())
 				|| !soDecorator.overlapsWithExon(change.getGenomeInterval()))
-				return cdsSeq;
+				return null;
 		} else { // insertion
 			// Get change position and the one left of it.
 			GenomePosition lPos = change.getGenomePos().shifted(-1);
 			if (!transcript.getCDSRegion().contains(change.getGenomePos()) || !transcript.getCDSRegion().contains(lPos)
 				|| (!soDecorator.liesInExon(change.getGenomePos()) && !soDecorator.liesInExon(lPos)))
-				return cdsSeq;
+				return null;
 		}
 
 		// Get transcript position for the change position.
-		CDSPosition cdsChangePos = projector.projectGenomeToCDSPosition(change.getGenomePos());
+		final int cdsChangePos = projector.projectGenomeToCDSPosition(change.getGenomePos()).getPos();
 
-		// Update base in string using StringBuilder.
-		StringBuilder builder = new StringBuilder(cdsSeq);
+		// Replace the base for SNVs, insert before it otherwise.
 		if (change.getType() == GenomeVariantType.SNV)
-			builder.setCharAt(cdsChangePos.getPos(), change.getAlt().charAt(0));
+			return new CDSChange(cdsChangePos, cdsChangePos + 1, change.getAlt().substring(0, 1));
 		else
-			builder.insert(cdsChangePos.getPos(), change.getAlt());
-		return builder.toString();
+			return new CDSChange(cdsChangePos, cdsChangePos, change.getAlt());
 	}
 
-	private String getCDSWithRangeInRefAffected(GenomeVariant change) {
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+	private CDSChange getCDSChangeWithRangeInRefAffected(GenomeVariant change) {
 		TranscriptSequenceOntologyDecorator soDecorator = new TranscriptSequenceOntologyDecorator(transcript);
 
-		// Obtain CDS transcript sequence.
-		String cdsSeq = projector.getTranscriptStartingAtCDS();
-
 		// Short-circuit in the case of change that does not affect the transcript.
 		if (!transcript.getCDSRegion().overlapsWith(change.getGenomeInterval())
 			|| !soDecorator.overlapsWithExon(change.getGenomeInterval()))
-			return cdsSeq;
+			return null;
 
 		// Get transcript begin and end position.
 		GenomePosition changeBeginPos = change.getGenomeInterval().getGenomeBeginPos();
@@ -208,11 +257,24 @@ public final class TranscriptSequenceChangeHelper {
 		CDSPosition cdsChangeEndPos = new CDSPosition(
 			transcript, txChangeEndPos.getPos() - txCDSStartPos.getPos());
 
-		// Build resulting transcript string.
-		StringBuilder builder = new StringBuilder(cdsSeq);
-		builder.delete(cdsChangeBeginPos.getPos(), Math.min(cdsChangeEndPos.getPos(), cdsSeq.length()));
-		builder.insert(cdsChangeBeginPos.getPos(), change.getAlt());
-		return builder.toString();
+		final int cdsLength = projector.getTranscriptStartingAtCDS().length();
+		return new CDSChange(cdsChangeBeginPos.getPos(), Math.min(cdsChangeEndPos.getPos(), cdsLength),
+			change.getAlt());
+	}
+
+	/**
+	 * Replacement of the bases <code>[beginPos, endPos)</code> in the CDS sequence by <code>alt</code>.
+	 */
+	private static final class CDSChange {
+		final int beginPos;
+		final int endPos;
+		final String alt;
+
+		CDSChange(int beginPos, int endPos, String alt) {
+			this.beginPos = beginPos;
+			this.endPos = endPos;
+			this.alt = alt;
+		}
 	}
 
 }
@@ -6,6 +6,10 @@ import de.charite.compbio.jannovar.Immutable;
 /**
  * Functionality for finding out about certain points/regions of {@link TranscriptModel} using <b>genomic</b>
  * positions.
+ * <p>
+ * Besides the methods taking {@link GenomePosition} and {@link GenomeInterval} objects, there are overloads taking
+ * the chromosome, strand, and 0-based positions as primitive values. These do not allocate any objects and are used
+ * on the hot path of the annotation builders. Positions are converted to the transcript's strand if necessary.
  *
  * @author <a href="mailto:manuel.holtgrewe@charite.de">Manuel Holtgrewe</a>
  */
@@ -17,6 +21,11 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	private final TranscriptModel transcript;
 
+	/**
+	 * projector for locating exons and introns of {@link #transcript}
+	 */
+	private final TranscriptProjectionDecorator projector;
+
 	/**
 	 * Initialize the object with the given {@link TranscriptModel}.
 	 *
@@ -24,6 +33,7 @@ public final class TranscriptSequenceOntologyDecorator {
 	 */
 	public TranscriptSequenceOntologyDecorator(TranscriptModel transcript) {
 		this.transcript = transcript;
+		this.projector = new TranscriptProjectionDecorator(transcript);
 	}
 
 	/**
@@ -85,12 +95,19 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return {@code true} if this is the case
 	 */
 	public boolean overlapsWithFivePrimeUTRExon(GenomeInterval itv) {
-		for (GenomeInterval exon : getIntersectedExons(getFivePrimeUTRInterval())) {
-			if (exon.overlapsWith(itv)) {
-				return true;
-			}
-		}
-		return false;
+		return overlapsWithFivePrimeUTRExon(itv.getChr(), itv.getStrand(), itv.getBeginPos(), itv.getEndPos());
+	}
+
+	/**
+	 * Query whether interval overlaps with exonic 5' UTR sequence.
+	 *
+	 * @return {@code true} if this is the case
+	 */
+	public boolean overlapsWithFivePrimeUTRExon(int chr, Strand strand, int beginPos, int endPos) {
+		if (chr != transcript.getChr())
+			return false;
+		return overlapsWithExonIntersection(txBegin(strand, beginPos, endPos), txEnd(strand, beginPos, endPos),
+			transcript.getTXRegion().getBeginPos(), transcript.getCDSRegion().getBeginPos());
 	}
 
 	/**
@@ -119,10 +136,31 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return {@code true} if this is the case
 	 */
 	public boolean overlapsWithThreePrimeUTRExon(GenomeInterval itv) {
-		for (GenomeInterval exon : getIntersectedExons(getThreePrimeUTRInterval())) {
-			if (exon.overlapsWith(itv)) {
+		return overlapsWithThreePrimeUTRExon(itv.getChr(), itv.getStrand(), itv.getBeginPos(), itv.getEndPos());
+	}
+
+	/**
+	 * Query whether interval overlaps with exonic 3' UTR sequence.
+	 *
+	 * @return {@code true} if this is the case
+	 */
+	public boolean overlapsWithThreePrimeUTRExon(int chr, Strand strand, int beginPos, int endPos) {
+		if (chr != transcript.getChr())
+			return false;
+		return overlapsWithExonIntersection(txBegin(strand, beginPos, endPos), txEnd(strand, beginPos, endPos),
+			transcript.getCDSRegion().getEndPos(), transcript.getTXRegion().getEndPos());
+	}
+
+	/**
+	 * @return whether <code>[beginPos, endPos)</code> overlaps with a non-empty intersection of an exon and
+	 * <code>[otherBeginPos, otherEndPos)</code>, all on the transcript's strand
+	 */
+	private boolean overlapsWithExonIntersection(int beginPos, int endPos, int otherBeginPos, int otherEndPos) {
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			final int itvBeginPos = Math.max(transcript.getExonBeginPos(i), otherBeginPos);
+			final int itvEndPos = Math.min(transcript.getExonEndPos(i), otherEndPos);
+			if (itvEndPos > itvBeginPos && overlaps(beginPos, endPos, itvBeginPos, itvEndPos))
 				return true;
-			}
 		}
 		return false;
 	}
@@ -132,9 +170,21 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>interval</code> contains a full exon (coding or non-coding).
 	 */
 	public boolean containsExon(GenomeInterval interval) {
-		for (GenomeInterval region : transcript.getExonRegions())
-			if (interval.contains(region))
+		return containsExon(interval.getChr(), interval.getStrand(), interval.getBeginPos(), interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval contains a full exon (coding or non-coding).
+	 */
+	public boolean containsExon(int chr, Strand strand, int beginPos, int endPos) {
+		if (chr != transcript.getChr())
+			return false;
+		final int txBeginPos = txBegin(strand, beginPos, endPos);
+		final int txEndPos = txEnd(strand, beginPos, endPos);
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			if (transcript.getExonBeginPos(i) >= txBeginPos && transcript.getExonEndPos(i) <= txEndPos)
 				return true;
+		}
 		return false;
 	}
 
@@ -143,9 +193,24 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>interval</code> overlaps with a CDS-overlapping exon
 	 */
 	public boolean overlapsWithCDSExon(GenomeInterval interval) {
-		for (GenomeInterval region : transcript.getExonRegions())
-			if (transcript.getCDSRegion().overlapsWith(region) && interval.overlapsWith(region))
+		return overlapsWithCDSExon(interval.getChr(), interval.getStrand(), interval.getBeginPos(),
+			interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval overlaps with a CDS-overlapping exon
+	 */
+	public boolean overlapsWithCDSExon(int chr, Strand strand, int beginPos, int endPos) {
+		if (chr != transcript.getChr())
+			return false;
+		final int txBeginPos = txBegin(strand, beginPos, endPos);
+		final int txEndPos = txEnd(strand, beginPos, endPos);
+		final GenomeInterval cdsRegion = transcript.getCDSRegion();
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			if (overlaps(cdsRegion.getBeginPos(), cdsRegion.getEndPos(), transcript.getExonBeginPos(i), transcript.getExonEndPos(i))
+				&& overlaps(txBeginPos, txEndPos, transcript.getExonBeginPos(i), transcript.getExonEndPos(i)))
 				return true;
+		}
 		return false;
 	}
 
@@ -154,7 +219,18 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} falls fully into the coding part of an exon
 	 */
 	public boolean liesInCDSExon(GenomeInterval interval) {
-		return (transcript.getCDSRegion().contains(interval) && liesInExon(interval));
+		return liesInCDSExon(interval.getChr(), interval.getStrand(), interval.getBeginPos(), interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval falls fully into the coding part of an exon
+	 */
+	public boolean liesInCDSExon(int chr, Strand strand, int beginPos, int endPos) {
+		if (chr != transcript.getChr())
+			return false;
+		final GenomeInterval cdsRegion = transcript.getCDSRegion();
+		return (txBegin(strand, beginPos, endPos) >= cdsRegion.getBeginPos()
+			&& txEnd(strand, beginPos, endPos) <= cdsRegion.getEndPos() && liesInExon(chr, strand, beginPos, endPos));
 	}
 
 	/**
@@ -162,7 +238,14 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} points to a base in the coding part of an exon
 	 */
 	public boolean liesInCDSExon(GenomePosition pos) {
-		return (transcript.getCDSRegion().contains(pos) && liesInExon(pos));
+		return liesInCDSExon(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the position points to a base in the coding part of an exon
+	 */
+	public boolean liesInCDSExon(int chr, Strand strand, int pos) {
+		return (liesInCDS(chr, strand, pos) && liesInExon(chr, strand, pos));
 	}
 
 	/**
@@ -170,14 +253,30 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>interval</code> overlaps with the CDS region of the transcript
 	 */
 	public boolean overlapsWithCDS(GenomeInterval interval) {
-		return transcript.getCDSRegion().overlapsWith(interval);
+		return overlapsWithCDS(interval.getChr(), interval.getStrand(), interval.getBeginPos(), interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval overlaps with the CDS region of the transcript
+	 */
+	public boolean overlapsWithCDS(int chr, Strand strand, int beginPos, int endPos) {
+		return overlapsWithRegion(chr, strand, beginPos, endPos, transcript.getCDSRegion().getBeginPos(),
+			transcript.getCDSRegion().getEndPos());
 	}
 
 	/**
 	 * @return <code>true</code> if <code>pos</code> lies within the CDS of {@link #transcript}
 	 */
 	public boolean liesInCDS(GenomePosition pos) {
-		return transcript.getCDSRegion().contains(pos);
+		return liesInCDS(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the position lies within the CDS of {@link #transcript}
+	 */
+	public boolean liesInCDS(int chr, Strand strand, int pos) {
+		return liesInRegion(chr, strand, pos, transcript.getCDSRegion().getBeginPos(),
+			transcript.getCDSRegion().getEndPos());
 	}
 
 	/**
@@ -185,10 +284,21 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>changeInterval</code> overlaps with an intron of {@link #transcript}
 	 */
 	public boolean overlapsWithIntron(GenomeInterval changeInterval) {
+		return overlapsWithIntron(changeInterval.getChr(), changeInterval.getStrand(), changeInterval.getBeginPos(),
+			changeInterval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval overlaps with an intron of {@link #transcript}
+	 */
+	public boolean overlapsWithIntron(int chr, Strand strand, int beginPos, int endPos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (changeInterval.overlapsWith(intronRegion))
+		if (chr != transcript.getChr())
+			return false;
+		final int txBeginPos = txBegin(strand, beginPos, endPos);
+		final int txEndPos = txEnd(strand, beginPos, endPos);
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
+			if (overlaps(txBeginPos, txEndPos, intronBeginPos(i), intronEndPos(i)))
 				return true;
 		}
 		return false;
@@ -198,10 +308,19 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if <code>pos</code> lies within an intron of {@link #transcript}
 	 */
 	public boolean liesInIntron(GenomePosition pos) {
+		return liesInIntron(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the position lies within an intron of {@link #transcript}
+	 */
+	public boolean liesInIntron(int chr, Strand strand, int pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (intronRegion.contains(pos))
+		if (chr != transcript.getChr())
+			return false;
+		final int txPos = txPos(strand, pos);
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
+			if (txPos >= intronBeginPos(i) && txPos < intronEndPos(i))
 				return true;
 		}
 		return false;
@@ -213,10 +332,24 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * overlaps with the CDS
 	 */
 	public boolean overlapsWithCDSIntron(GenomeInterval changeInterval) {
+		return overlapsWithCDSIntron(changeInterval.getChr(), changeInterval.getStrand(),
+			changeInterval.getBeginPos(), changeInterval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval overlaps with an intron of {@link #transcript} that overlaps with the
+	 * CDS
+	 */
+	public boolean overlapsWithCDSIntron(int chr, Strand strand, int beginPos, int endPos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (transcript.getCDSRegion().overlapsWith(intronRegion) && changeInterval.overlapsWith(intronRegion))
+		if (chr != transcript.getChr())
+			return false;
+		final int txBeginPos = txBegin(strand, beginPos, endPos);
+		final int txEndPos = txEnd(strand, beginPos, endPos);
+		final GenomeInterval cdsRegion = transcript.getCDSRegion();
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
+			if (overlaps(cdsRegion.getBeginPos(), cdsRegion.getEndPos(), intronBeginPos(i), intronEndPos(i))
+				&& overlaps(txBeginPos, txEndPos, intronBeginPos(i), intronEndPos(i)))
 				return true;
 		}
 		return false;
@@ -227,10 +360,22 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * overlaps with the CDS
 	 */
 	public boolean liesInCDSIntron(GenomePosition pos) {
+		return liesInCDSIntron(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the position lies within an intron of {@link #transcript} that overlaps with the
+	 * CDS
+	 */
+	public boolean liesInCDSIntron(int chr, Strand strand, int pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval intronRegion = transcript.intronRegion(i);
-			if (transcript.getCDSRegion().overlapsWith(intronRegion) && intronRegion.contains(pos))
+		if (chr != transcript.getChr())
+			return false;
+		final int txPos = txPos(strand, pos);
+		final GenomeInterval cdsRegion = transcript.getCDSRegion();
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
+			if (overlaps(cdsRegion.getBeginPos(), cdsRegion.getEndPos(), intronBeginPos(i), intronEndPos(i))
+				&& txPos >= intronBeginPos(i) && txPos < intronEndPos(i))
 				return true;
 		}
 		return false;
@@ -241,14 +386,31 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the translational start site
 	 */
 	public boolean overlapsWithTranslationalStartSite(GenomeInterval interval) {
-		return interval.overlapsWith(getStartCodonInterval());
+		return overlapsWithTranslationalStartSite(interval.getChr(), interval.getStrand(), interval.getBeginPos(),
+			interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval overlaps with the translational start site
+	 */
+	public boolean overlapsWithTranslationalStartSite(int chr, Strand strand, int beginPos, int endPos) {
+		final int cdsBeginPos = transcript.getCDSRegion().getBeginPos();
+		return overlapsWithRegion(chr, strand, beginPos, endPos, cdsBeginPos, cdsBeginPos + 3);
 	}
 
 	/**
 	 * @return <code>true</code> if the {@link GenomePosition} lies within the translational start site
 	 */
 	public boolean liesInTranslationalStartSite(GenomePosition pos) {
-		return getStartCodonInterval().contains(pos);
+		return liesInTranslationalStartSite(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the position lies within the translational start site
+	 */
+	public boolean liesInTranslationalStartSite(int chr, Strand strand, int pos) {
+		final int cdsBeginPos = transcript.getCDSRegion().getBeginPos();
+		return liesInRegion(chr, strand, pos, cdsBeginPos, cdsBeginPos + 3);
 	}
 
 	/**
@@ -256,14 +418,31 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the translational stop site
 	 */
 	public boolean overlapsWithTranslationalStopSite(GenomeInterval interval) {
-		return interval.overlapsWith(getStopCodonInterval());
+		return overlapsWithTranslationalStopSite(interval.getChr(), interval.getStrand(), interval.getBeginPos(),
+			interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval overlaps with the translational stop site
+	 */
+	public boolean overlapsWithTranslationalStopSite(int chr, Strand strand, int beginPos, int endPos) {
+		final int cdsEndPos = transcript.getCDSRegion().getEndPos();
+		return overlapsWithRegion(chr, strand, beginPos, endPos, cdsEndPos - 3, cdsEndPos);
 	}
 
 	/**
 	 * @return <code>true</code> if the {@link GenomePosition} lies within the translational stop site
 	 */
 	public boolean liesInTranslationalStopSite(GenomePosition pos) {
-		return getStopCodonInterval().contains(pos);
+		return liesInTranslationalStopSite(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the position lies within the translational stop site
+	 */
+	public boolean liesInTranslationalStopSite(int chr, Strand strand, int pos) {
+		final int cdsEndPos = transcript.getCDSRegion().getEndPos();
+		return liesInRegion(chr, strand, pos, cdsEndPos - 3, cdsEndPos);
 	}
 
 	/**
@@ -276,20 +455,31 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with a splice region.
 	 */
 	public boolean overlapsWithSpliceRegion(GenomeInterval interval) {
+		return overlapsWithSpliceRegion(interval.getChr(), interval.getStrand(), interval.getBeginPos(),
+			interval.getEndPos());
+	}
+
+	/**
+	 * Returns whether the given interval overlaps with a splice region, see
+	 * {@link #overlapsWithSpliceRegion(GenomeInterval)}.
+	 *
+	 * @return <code>true</code> if the interval overlaps with a splice region.
+	 */
+	public boolean overlapsWithSpliceRegion(int chr, Strand strand, int beginPos, int endPos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			if (i + 1 < transcript.getExonRegions().size()) {
+		if (chr != transcript.getChr())
+			return false;
+		final int txBeginPos = txBegin(strand, beginPos, endPos);
+		final int txEndPos = txEnd(strand, beginPos, endPos);
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			if (i + 1 < transcript.getExonCount()) {
 				// check for donor region
-				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeEndPos().shifted(-3), 11);
-				if (interval.overlapsWith(spliceRegionInterval))
+				if (overlaps(txBeginPos, txEndPos, transcript.getExonEndPos(i) - 3, transcript.getExonEndPos(i) + 8))
 					return true;
 			}
 			if (i > 0) {
 				// check for acceptor region
-				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-8),
-					11);
-				if (interval.overlapsWith(spliceRegionInterval))
+				if (overlaps(txBeginPos, txEndPos, transcript.getExonBeginPos(i) - 8, transcript.getExonBeginPos(i) + 3))
 					return true;
 			}
 		}
@@ -306,20 +496,28 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies within a splice donor site.
 	 */
 	public boolean liesInSpliceRegion(GenomePosition pos) {
+		return liesInSpliceRegion(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * Returns whether the given position lies within a splice region, see {@link #liesInSpliceRegion(GenomePosition)}.
+	 *
+	 * @return <code>true</code> if the position lies within a splice region.
+	 */
+	public boolean liesInSpliceRegion(int chr, Strand strand, int pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			if (i + 1 < transcript.getExonRegions().size()) {
+		if (chr != transcript.getChr())
+			return false;
+		final int txPos = txPos(strand, pos);
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			if (i + 1 < transcript.getExonCount()) {
 				// check for donor region
-				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeEndPos().shifted(-3), 11);
-				if (spliceRegionInterval.contains(pos))
+				if (txPos >= transcript.getExonEndPos(i) - 3 && txPos < transcript.getExonEndPos(i) + 8)
 					return true;
 			}
 			if (i > 0) {
 				// check for acceptor region
-				GenomeInterval spliceRegionInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-8),
-					11);
-				if (spliceRegionInterval.contains(pos))
+				if (txPos >= transcript.getExonBeginPos(i) - 8 && txPos < transcript.getExonBeginPos(i) + 3)
 					return true;
 			}
 		}
@@ -335,11 +533,25 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with a splice donor site.
 	 */
 	public boolean overlapsWithSpliceDonorSite(GenomeInterval interval) {
+		return overlapsWithSpliceDonorSite(interval.getChr(), interval.getStrand(), interval.getBeginPos(),
+			interval.getEndPos());
+	}
+
+	/**
+	 * Returns whether the given interval overlaps with a splice donor site, see
+	 * {@link #overlapsWithSpliceDonorSite(GenomeInterval)}.
+	 *
+	 * @return <code>true</code> if the interval overlaps with a splice donor site.
+	 */
+	public boolean overlapsWithSpliceDonorSite(int chr, Strand strand, int beginPos, int endPos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			GenomeInterval donorInterval = new GenomeInterval(exonInterval.getGenomeEndPos(), 2);
-			if (interval.overlapsWith(donorInterval))
+		if (chr != transcript.getChr())
+			return false;
+		final int txBeginPos = txBegin(strand, beginPos, endPos);
+		final int txEndPos = txEnd(strand, beginPos, endPos);
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
+			final int exonEndPos = transcript.getExonEndPos(i);
+			if (overlaps(txBeginPos, txEndPos, exonEndPos, exonEndPos + 2))
 				return true;
 		}
 		return false;
@@ -354,11 +566,23 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies within a splice donor site.
 	 */
 	public boolean liesInSpliceDonorSite(GenomePosition pos) {
+		return liesInSpliceDonorSite(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * Returns whether the given position lies within a splice donor site, see
+	 * {@link #liesInSpliceDonorSite(GenomePosition)}.
+	 *
+	 * @return <code>true</code> if the position lies within a splice donor site.
+	 */
+	public boolean liesInSpliceDonorSite(int chr, Strand strand, int pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 0; i + 1 < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			GenomeInterval donorInterval = new GenomeInterval(exonInterval.getGenomeEndPos(), 2);
-			if (donorInterval.contains(pos))
+		if (chr != transcript.getChr())
+			return false;
+		final int txPos = txPos(strand, pos);
+		for (int i = 0; i + 1 < transcript.getExonCount(); ++i) {
+			final int exonEndPos = transcript.getExonEndPos(i);
+			if (txPos >= exonEndPos && txPos < exonEndPos + 2)
 				return true;
 		}
 		return false;
@@ -373,11 +597,25 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with a splice acceptor site.
 	 */
 	public boolean overlapsWithSpliceAcceptorSite(GenomeInterval interval) {
+		return overlapsWithSpliceAcceptorSite(interval.getChr(), interval.getStrand(), interval.getBeginPos(),
+			interval.getEndPos());
+	}
+
+	/**
+	 * Returns whether the given interval overlaps with a splice acceptor site, see
+	 * {@link #overlapsWithSpliceAcceptorSite(GenomeInterval)}.
+	 *
+	 * @return <code>true</code> if the interval overlaps with a splice acceptor site.
+	 */
+	public boolean overlapsWithSpliceAcceptorSite(int chr, Strand strand, int beginPos, int endPos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 1; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			GenomeInterval acceptorInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-2), 2);
-			if (interval.overlapsWith(acceptorInterval))
+		if (chr != transcript.getChr())
+			return false;
+		final int txBeginPos = txBegin(strand, beginPos, endPos);
+		final int txEndPos = txEnd(strand, beginPos, endPos);
+		for (int i = 1; i < transcript.getExonCount(); ++i) {
+			final int exonBeginPos = transcript.getExonBeginPos(i);
+			if (overlaps(txBeginPos, txEndPos, exonBeginPos - 2, exonBeginPos))
 				return true;
 		}
 		return false;
@@ -392,11 +630,23 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies within a splice acceptor site.
 	 */
 	public boolean liesInSpliceAcceptorSite(GenomePosition pos) {
+		return liesInSpliceAcceptorSite(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * Returns whether the given position lies within a splice acceptor site, see
+	 * {@link #liesInSpliceAcceptorSite(GenomePosition)}.
+	 *
+	 * @return <code>true</code> if the position lies within a splice acceptor site.
+	 */
+	public boolean liesInSpliceAcceptorSite(int chr, Strand strand, int pos) {
 		// TODO(holtgrem): Test me!
-		for (int i = 1; i < transcript.getExonRegions().size(); ++i) {
-			GenomeInterval exonInterval = transcript.getExonRegions().get(i);
-			GenomeInterval acceptorInterval = new GenomeInterval(exonInterval.getGenomeBeginPos().shifted(-2), 2);
-			if (acceptorInterval.contains(pos))
+		if (chr != transcript.getChr())
+			return false;
+		final int txPos = txPos(strand, pos);
+		for (int i = 1; i < transcript.getExonCount(); ++i) {
+			final int exonBeginPos = transcript.getExonBeginPos(i);
+			if (txPos >= exonBeginPos - 2 && txPos < exonBeginPos)
 				return true;
 		}
 		return false;
@@ -424,8 +674,16 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the upstream region of the transcript.
 	 */
 	public boolean overlapsWithUpstreamRegion(GenomeInterval interval) {
-		GenomeInterval upstream = getUpstreamInterval();
-		return interval.overlapsWith(upstream);
+		return overlapsWithUpstreamRegion(interval.getChr(), interval.getStrand(), interval.getBeginPos(),
+			interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval overlaps with the upstream region of the transcript.
+	 */
+	public boolean overlapsWithUpstreamRegion(int chr, Strand strand, int beginPos, int endPos) {
+		final int txBeginPos = transcript.getTXRegion().getBeginPos();
+		return overlapsWithRegion(chr, strand, beginPos, endPos, txBeginPos - UPSTREAM_LENGTH, txBeginPos);
 	}
 
 	/**
@@ -437,8 +695,15 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies within the upstream region of the transcript.
 	 */
 	public boolean liesInUpstreamRegion(GenomePosition pos) {
-		GenomeInterval upstream = getUpstreamInterval();
-		return upstream.contains(pos);
+		return liesInUpstreamRegion(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the position lies within the upstream region of the transcript.
+	 */
+	public boolean liesInUpstreamRegion(int chr, Strand strand, int pos) {
+		final int txBeginPos = transcript.getTXRegion().getBeginPos();
+		return liesInRegion(chr, strand, pos, txBeginPos - UPSTREAM_LENGTH, txBeginPos);
 	}
 
 	/**
@@ -462,8 +727,16 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the downstream region of the transcript.
 	 */
 	public boolean overlapsWithDownstreamRegion(GenomeInterval interval) {
-		GenomeInterval downstream = getDownstreamInterval();
-		return interval.overlapsWith(downstream);
+		return overlapsWithDownstreamRegion(interval.getChr(), interval.getStrand(), interval.getBeginPos(),
+			interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval overlaps with the downstream region of the transcript.
+	 */
+	public boolean overlapsWithDownstreamRegion(int chr, Strand strand, int beginPos, int endPos) {
+		final int txEndPos = transcript.getTXRegion().getEndPos();
+		return overlapsWithRegion(chr, strand, beginPos, endPos, txEndPos, txEndPos + DOWNSTREAM_LENGTH);
 	}
 
 	/**
@@ -475,8 +748,15 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies within the downstream region of the transcript.
 	 */
 	public boolean liesInDownstreamRegion(GenomePosition pos) {
-		GenomeInterval downstream = getDownstreamInterval();
-		return downstream.contains(pos);
+		return liesInDownstreamRegion(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the position lies within the downstream region of the transcript.
+	 */
+	public boolean liesInDownstreamRegion(int chr, Strand strand, int pos) {
+		final int txEndPos = transcript.getTXRegion().getEndPos();
+		return liesInRegion(chr, strand, pos, txEndPos, txEndPos + DOWNSTREAM_LENGTH);
 	}
 
 	/**
@@ -484,7 +764,16 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the 5' UTR
 	 */
 	public boolean overlapsWithFivePrimeUTR(GenomeInterval interval) {
-		return interval.overlapsWith(getFivePrimeUTRInterval());
+		return overlapsWithFivePrimeUTR(interval.getChr(), interval.getStrand(), interval.getBeginPos(),
+			interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval overlaps with the 5' UTR
+	 */
+	public boolean overlapsWithFivePrimeUTR(int chr, Strand strand, int beginPos, int endPos) {
+		return overlapsWithRegion(chr, strand, beginPos, endPos, transcript.getTXRegion().getBeginPos(),
+			transcript.getCDSRegion().getBeginPos());
 	}
 
 	/**
@@ -492,7 +781,15 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies in the 5' UTR
 	 */
 	public boolean liesInFivePrimeUTR(GenomePosition pos) {
-		return getFivePrimeUTRInterval().contains(pos);
+		return liesInFivePrimeUTR(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the position lies in the 5' UTR
+	 */
+	public boolean liesInFivePrimeUTR(int chr, Strand strand, int pos) {
+		return liesInRegion(chr, strand, pos, transcript.getTXRegion().getBeginPos(),
+			transcript.getCDSRegion().getBeginPos());
 	}
 
 	/**
@@ -500,7 +797,16 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} overlaps with the 3' UTR
 	 */
 	public boolean overlapsWithThreePrimeUTR(GenomeInterval interval) {
-		return interval.overlapsWith(getThreePrimeUTRInterval());
+		return overlapsWithThreePrimeUTR(interval.getChr(), interval.getStrand(), interval.getBeginPos(),
+			interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval overlaps with the 3' UTR
+	 */
+	public boolean overlapsWithThreePrimeUTR(int chr, Strand strand, int beginPos, int endPos) {
+		return overlapsWithRegion(chr, strand, beginPos, endPos, transcript.getCDSRegion().getEndPos(),
+			transcript.getTXRegion().getEndPos());
 	}
 
 	/**
@@ -508,7 +814,15 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} lies in the 3' UTR
 	 */
 	public boolean liesInThreePrimeUTR(GenomePosition pos) {
-		return getThreePrimeUTRInterval().contains(pos);
+		return liesInThreePrimeUTR(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the position lies in the 3' UTR
+	 */
+	public boolean liesInThreePrimeUTR(int chr, Strand strand, int pos) {
+		return liesInRegion(chr, strand, pos, transcript.getCDSRegion().getEndPos(),
+			transcript.getTXRegion().getEndPos());
 	}
 
 	/**
@@ -516,14 +830,25 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} falls fully into an intron
 	 */
 	public boolean liesInIntron(GenomeInterval interval) {
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+		return liesInIntron(interval.getChr(), interval.getStrand(), interval.getBeginPos(), interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval falls fully into an intron
+	 */
+	public boolean liesInIntron(int chr, Strand strand, int beginPos, int endPos) {
+		if (chr != transcript.getChr())
+			return false;
+		final int txBeginPos = txBegin(strand, beginPos, endPos);
+		final int txEndPos = txEnd(strand, beginPos, endPos);
 
 		// locate intron, return false on any errors
-		final int intronNo = projector.locateIntron(interval.getGenomeBeginPos());
+		final int intronNo = projector.locateIntron(chr, transcript.getStrand(), txBeginPos);
 		if (intronNo == TranscriptProjectionDecorator.INVALID_INTRON_ID)
 			return false;
 
-		return !transcript.getExonRegions().get(intronNo + 1).contains(interval.getGenomeEndPos().shifted(-1));
+		return !(txEndPos - 1 >= transcript.getExonBeginPos(intronNo + 1) &&
+			txEndPos - 1 < transcript.getExonEndPos(intronNo + 1));
 	}
 
 	/**
@@ -531,14 +856,24 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomeInterval} falls fully into an exon
 	 */
 	public boolean liesInExon(GenomeInterval interval) {
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+		return liesInExon(interval.getChr(), interval.getStrand(), interval.getBeginPos(), interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval falls fully into an exon
+	 */
+	public boolean liesInExon(int chr, Strand strand, int beginPos, int endPos) {
+		if (chr != transcript.getChr())
+			return false;
+		final int txBeginPos = txBegin(strand, beginPos, endPos);
+		final int txEndPos = txEnd(strand, beginPos, endPos);
 
 		// locate exon, return false on any errors
-		final int exonNo = projector.locateExon(interval.getGenomeBeginPos());
+		final int exonNo = projector.locateExon(chr, transcript.getStrand(), txBeginPos);
 		if (exonNo == TranscriptProjectionDecorator.INVALID_EXON_ID)
 			return false;
 
-		return transcript.getExonRegions().get(exonNo).contains(interval);
+		return (txBeginPos >= transcript.getExonBeginPos(exonNo) && txEndPos <= transcript.getExonEndPos(exonNo));
 	}
 
 	/**
@@ -546,15 +881,16 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the {@link GenomePosition} points to a base an exon
 	 */
 	public boolean liesInExon(GenomePosition pos) {
-		// TODO(holtgrem): Test me!
-		TranscriptProjectionDecorator projector = new TranscriptProjectionDecorator(transcript);
+		return liesInExon(pos.getChr(), pos.getStrand(), pos.getPos());
+	}
 
+	/**
+	 * @return <code>true</code> if the position points to a base an exon
+	 */
+	public boolean liesInExon(int chr, Strand strand, int pos) {
+		// TODO(holtgrem): Test me!
 		// locate exon, return false on any errors
-		final int exonNo = projector.locateExon(pos);
-		if (exonNo == TranscriptProjectionDecorator.INVALID_EXON_ID)
-			return false;
-
-		return transcript.getExonRegions().get(exonNo).contains(pos);
+		return projector.locateExon(chr, strand, pos) != TranscriptProjectionDecorator.INVALID_EXON_ID;
 	}
 
 	/**
@@ -562,10 +898,100 @@ public final class TranscriptSequenceOntologyDecorator {
 	 * @return <code>true</code> if the interval overlaps with an exon
 	 */
 	public boolean overlapsWithExon(GenomeInterval interval) {
-		for (int i = 0; i < transcript.getExonRegions().size(); ++i)
-			if (interval.overlapsWith(transcript.getExonRegions().get(i)))
+		return overlapsWithExon(interval.getChr(), interval.getStrand(), interval.getBeginPos(), interval.getEndPos());
+	}
+
+	/**
+	 * @return <code>true</code> if the interval overlaps with an exon
+	 */
+	public boolean overlapsWithExon(int chr, Strand strand, int beginPos, int endPos) {
+		if (chr != transcript.getChr())
+			return false;
+		final int txBeginPos = txBegin(strand, beginPos, endPos);
+		final int txEndPos = txEnd(strand, beginPos, endPos);
+		for (int i = 0; i < transcript.getExonCount(); ++i) {
+			if (overlaps(txBeginPos, txEndPos, transcript.getExonBeginPos(i), transcript.getExonEndPos(i)))
 				return true;
+		}
 		return false;
 	}
 
+	/**
+	 * @return whether the interval overlaps with <code>[regionBeginPos, regionEndPos)</code> on the transcript's
+	 * strand
+	 */
+	private boolean overlapsWithRegion(int chr, Strand strand, int beginPos, int endPos, int regionBeginPos,
+									   int regionEndPos) {
+		if (chr != transcript.getChr())
+			return false;
+		return overlaps(txBegin(strand, beginPos, endPos), txEnd(strand, beginPos, endPos), regionBeginPos,
+			regionEndPos);
+	}
+
+	/**
+	 * @return whether the position lies in <code>[regionBeginPos, regionEndPos)</code> on the transcript's strand
+	 */
+	private boolean liesInRegion(int chr, Strand strand, int pos, int regionBeginPos, int regionEndPos) {
+		if (chr != transcript.getChr())
+			return false;
+		final int txPos = txPos(strand, pos);
+		return (txPos >= regionBeginPos && txPos < regionEndPos);
+	}
+
+	/**
+	 * @return whether the two 0-based half-open intervals overlap, using the same semantics as
+	 * {@link GenomeInterval#overlapsWith}
+	 */
+	private static boolean overlaps(int beginPos, int endPos, int otherBeginPos, int otherEndPos) {
+		return (otherBeginPos < endPos && beginPos < otherEndPos);
+	}
+
+	/**
+	 * @return begin position of the <code>i</code>-th intron, see {@link TranscriptModel#intronRegion}
+	 */
+	private int intronBeginPos(int i) {
+		return transcript.getExonEndPos(i);
+	}
+
+	/**
+	 * @return end position of the <code>i</code>-th intron, see {@link TranscriptModel#intronRegion}
+	 */
+	private int intronEndPos(int i) {
+		return transcript.getExonBeginPos(i + 1);
+	}
+
+	/**
+	 * @return position on the transcript's strand
+	 */
+	private int txPos(Strand strand, int pos) {
+		if (strand == transcript.getStrand())
+			return pos;
+		return contigLength() - pos - 1;
+	}
+
+	/**
+	 * @return interval begin position on the transcript's strand
+	 */
+	private int txBegin(Strand strand, int beginPos, int endPos) {
+		if (strand == transcript.getStrand())
+			return beginPos;
+		return contigLength() - endPos;
+	}
+
+	/**
+	 * @return interval end position on the transcript's strand
+	 */
+	private int txEnd(Strand strand, int beginPos, int endPos) {
+		if (strand == transcript.getStrand())
+			return endPos;
+		return contigLength() - beginPos;
+	}
+
+	/**
+	 * @return length of the transcript's contig, only needed for converting between strands
+	 */
+	private int contigLength() {
+		return transcript.getTXRegion().getRefDict().getContigIDToLength().get(transcript.getChr());
+	}
+
 }
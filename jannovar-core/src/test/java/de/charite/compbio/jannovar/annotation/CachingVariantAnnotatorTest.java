@@ -0,0 +1,122 @@
+package de.charite.compbio.jannovar.annotation;
+
+import com.google.common.io.Files;
+import de.charite.compbio.jannovar.annotation.builders.AnnotationBuilderOptions;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.data.JannovarDataSerializer;
+import de.charite.compbio.jannovar.reference.GenomePosition;
+import de.charite.compbio.jannovar.reference.GenomeVariant;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.testutils.ResourceUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+public class CachingVariantAnnotatorTest {
+
+	static JannovarData jvData;
+
+	static TranscriptModel oma1;
+
+	@BeforeAll
+	public static void setUpClass() throws Exception {
+		File tmpDir = Files.createTempDir();
+		String dbPath = tmpDir + "/chr1_oma1_to_jun.ser";
+		ResourceUtils.copyResourceToFile("/chr1_oma1_to_jun.ser", new File(dbPath));
+		jvData = new JannovarDataSerializer(dbPath).load();
+		oma1 = jvData.getTmByAccession().get("NM_145243.3");
+	}
+
+	private static VariantAnnotator makeAnnotator(boolean threePrimeShifting) {
+		return new VariantAnnotator(jvData.getRefDict(), jvData.getChromosomes(),
+			new AnnotationBuilderOptions(threePrimeShifting, false));
+	}
+
+	private static GenomeVariant makeVariant(int pos, String ref, String alt) {
+		return new GenomeVariant(new GenomePosition(jvData.getRefDict(), Strand.FWD, oma1.getChr(), pos), ref, alt);
+	}
+
+	@Test
+	public void testSameResultAsUncached() throws AnnotationException {
+		final VariantAnnotator annotator = makeAnnotator(true);
+		final CachingVariantAnnotator cachingAnnotator = new CachingVariantAnnotator(annotator, 100);
+
+		for (int round = 0; round < 2; ++round) {
+			for (int pos = 58946400; pos < 58947400; pos += 100) {
+				final GenomeVariant change = makeVariant(pos, "A", "C");
+				Assertions.assertEquals(annotator.buildAnnotations(change).toString(),
+					cachingAnnotator.buildAnnotations(change).toString());
+			}
+		}
+
+		Assertions.assertEquals(10, cachingAnnotator.getCache().stats().missCount());
+		Assertions.assertEquals(10, cachingAnnotator.getCache().stats().hitCount());
+		Assertions.assertEquals(10, cachingAnnotator.getCache().size());
+	}
+
+	@Test
+	public void testKeyNormalization() throws AnnotationException {
+		final CachingVariantAnnotator cachingAnnotator = new CachingVariantAnnotator(makeAnnotator(true), 100);
+
+		final GenomeVariant change = makeVariant(58946660, "A", "C");
+		final VariantAnnotations annotations = cachingAnnotator.buildAnnotations(change);
+		// same variant on other strand and with a common prefix
+		Assertions.assertSame(annotations, cachingAnnotator.buildAnnotations(change.withStrand(Strand.REV)));
+		Assertions.assertSame(annotations, cachingAnnotator.buildAnnotations(makeVariant(58946659, "GA", "GC")));
+		Assertions.assertEquals(1, cachingAnnotator.getCache().stats().missCount());
+	}
+
+	@Test
+	public void testSharedCacheSeparatesDatabasesAndOptions() throws AnnotationException {
+		final VariantAnnotationCache cache = VariantAnnotationCache.withMaximumSize(100);
+		final GenomeVariant change = makeVariant(58946660, "A", "C");
+
+		new CachingVariantAnnotator(makeAnnotator(true), cache, "refseq").buildAnnotations(change);
+		new CachingVariantAnnotator(makeAnnotator(false), cache, "refseq").buildAnnotations(change);
+		new CachingVariantAnnotator(makeAnnotator(true), cache, "ensembl").buildAnnotations(change);
+		new CachingVariantAnnotator(makeAnnotator(true), cache, "refseq").buildAnnotations(change);
+
+		Assertions.assertEquals(3, cache.stats().missCount());
+		Assertions.assertEquals(1, cache.stats().hitCount());
+	}
+
+	@Test
+	public void testInvalidateDatabase() throws AnnotationException {
+		final VariantAnnotationCache cache = VariantAnnotationCache.withMaximumSize(100);
+		final VariantAnnotator annotator = makeAnnotator(true);
+		for (int pos = 58946400; pos < 58947400; pos += 100) {
+			cache.get("refseq", annotator, makeVariant(pos, "A", "C"));
+			cache.get("ensembl", annotator, makeVariant(pos, "A", "C"));
+		}
+		Assertions.assertEquals(20, cache.size());
+
+		cache.invalidateDatabase("refseq");
+		Assertions.assertEquals(10, cache.size());
+		cache.get("ensembl", annotator, makeVariant(58946400, "A", "C"));
+		cache.get("refseq", annotator, makeVariant(58946400, "A", "C"));
+		Assertions.assertEquals(21, cache.stats().missCount());
+		Assertions.assertEquals(1, cache.stats().hitCount());
+	}
+
+	@Test
+	public void testEviction() throws AnnotationException {
+		final VariantAnnotationCache sizeBounded = VariantAnnotationCache.withMaximumSize(5);
+		final VariantAnnotationCache weightBounded = VariantAnnotationCache.withMaximumWeight(5);
+		final VariantAnnotator annotator = makeAnnotator(true);
+
+		for (int pos = 58946400; pos < 58947400; pos += 100) {
+			sizeBounded.get("refseq", annotator, makeVariant(pos, "A", "C"));
+			weightBounded.get("refseq", annotator, makeVariant(pos, "A", "C"));
+		}
+
+		Assertions.assertEquals(5, sizeBounded.size());
+		Assertions.assertEquals(5, sizeBounded.stats().evictionCount());
+		// each result has at least one annotation and thus weight of at least two
+		Assertions.assertTrue(weightBounded.size() <= 2);
+		Assertions.assertTrue(weightBounded.stats().evictionCount() >= 8);
+	}
+
+}
@@ -0,0 +1,62 @@
+package de.charite.compbio.jannovar.data;
+
+import de.charite.compbio.jannovar.impl.intervals.Interval;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.testutils.ResourceUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ChromosomeTest {
+
+	@TempDir
+	public Path tmpDir;
+
+	private static List<String> getAccessions(IntervalIndex<TranscriptModel> index) {
+		ArrayList<String> result = new ArrayList<>();
+		for (int i = 0; i < index.size(); ++i)
+			result.add(index.getValue(i).getAccession());
+		return result;
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"chr1_oma1_to_jun.ser", "hg19_refseq_indels.ser"})
+	public void testSerialization(String name) throws SerializationException {
+		// the resource files were written with an IntervalArray in each Chromosome
+		File serFile = new File(tmpDir.toFile(), name);
+		ResourceUtils.copyResourceToFile("/" + name, serFile);
+		final JannovarData old = new JannovarDataSerializer(serFile.getPath()).load();
+		final JannovarData expected = new JannovarData(old.getRefDict(), old.getTmByAccession().values().asList());
+
+		final String serPath = tmpDir.resolve(name + ".new.ser").toString();
+		new JannovarDataSerializer(serPath).save(old);
+		final JannovarData actual = new JannovarDataSerializer(serPath).load();
+
+		Assertions.assertEquals(expected.getChromosomes().keySet(), old.getChromosomes().keySet());
+		Assertions.assertEquals(expected.getChromosomes().keySet(), actual.getChromosomes().keySet());
+		for (Chromosome chrom : expected.getChromosomes().values()) {
+			final List<String> accessions = getAccessions(chrom.getTMIntervalIndex());
+			Assertions.assertEquals(accessions,
+				getAccessions(old.getChromosomes().get(chrom.getChrID()).getTMIntervalIndex()));
+			final Chromosome actualChrom = actual.getChromosomes().get(chrom.getChrID());
+			Assertions.assertEquals(chrom.getChrID(), actualChrom.getChrID());
+			Assertions.assertEquals(accessions, getAccessions(actualChrom.getTMIntervalIndex()));
+			Assertions.assertEquals(chrom.getNumberOfGenes(), actualChrom.getNumberOfGenes());
+
+			// the IntervalArray is built on demand from the index
+			ArrayList<String> fromTree = new ArrayList<>();
+			for (Interval<TranscriptModel> itv : actualChrom.getTMIntervalTree().getIntervals())
+				fromTree.add(itv.getValue().getAccession());
+			Assertions.assertEquals(accessions, fromTree);
+			Assertions.assertSame(actualChrom.getTMIntervalTree(), actualChrom.getTMIntervalTree());
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+package de.charite.compbio.jannovar.data;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.testutils.ResourceUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.HashSet;
+
+public class GeneIndexTest {
+
+	@TempDir
+	public Path tmpDir;
+
+	private JannovarData loadResource(String name) throws SerializationException {
+		File serFile = new File(tmpDir.toFile(), name);
+		ResourceUtils.copyResourceToFile("/" + name, serFile);
+		return new JannovarDataSerializer(serFile.getPath()).load();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"chr1_oma1_to_jun.ser", "hg19_refseq_indels.ser"})
+	public void testBuild(String name) throws SerializationException {
+		final JannovarData data = loadResource(name);
+		// the resource files were written before the index was stored
+		Assertions.assertFalse(data.hasGeneIndex());
+		final GeneIndex index = data.getGeneIndex();
+		Assertions.assertTrue(data.hasGeneIndex());
+		Assertions.assertSame(index, data.getGeneIndex());
+
+		final HashSet<String> symbols = new HashSet<>();
+		final HashSet<Integer> numbers = new HashSet<>();
+		for (int i = 0; i < index.size(); ++i) {
+			Assertions.assertTrue(symbols.add(index.getGeneSymbol(i)));
+			if (i > 0)
+				Assertions.assertTrue(index.getChr(i - 1) < index.getChr(i) ||
+					(index.getChr(i - 1) == index.getChr(i) && index.getBeginPos(i - 1) <= index.getBeginPos(i)));
+
+			final ImmutableList<TranscriptModel> tms = index.getTranscripts(data, i);
+			Assertions.assertEquals(index.getTranscriptCount(i), tms.size());
+			int beginPos = Integer.MAX_VALUE, endPos = Integer.MIN_VALUE;
+			for (int j = 0; j < tms.size(); ++j) {
+				final TranscriptModel tm = tms.get(j);
+				Assertions.assertTrue(numbers.add(index.getTranscriptNumber(i, j)));
+				Assertions.assertEquals(index.getGeneSymbol(i), tm.getGeneSymbol());
+				Assertions.assertEquals(index.getChr(i), tm.getChr());
+				final GenomeInterval region = tm.getTXRegion().withStrand(Strand.FWD);
+				beginPos = Math.min(beginPos, region.getBeginPos());
+				endPos = Math.max(endPos, region.getEndPos());
+			}
+			Assertions.assertEquals(beginPos, index.getBeginPos(i));
+			Assertions.assertEquals(endPos, index.getEndPos(i));
+		}
+		// each symbol has a gene
+		for (TranscriptModel tm : data.getTmByAccession().values())
+			Assertions.assertTrue(symbols.contains(tm.getGeneSymbol()));
+	}
+
+	@Test
+	public void testFarTranscriptsAreNotGrouped() {
+		final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+		final ImmutableList<TranscriptModel> tms = ImmutableList.of(
+			buildTranscript(refDict, "NM_1.1", "GENE", Strand.FWD, 1000, 2000),
+			buildTranscript(refDict, "NM_2.1", "GENE", Strand.REV, 11_500, 12_500),
+			buildTranscript(refDict, "NM_3.1", "GENE", Strand.FWD, 30_000, 31_000),
+			buildTranscript(refDict, "NM_4.1", "OTHER", Strand.FWD, 1500, 1600));
+		final GeneIndex index = new JannovarData(refDict, tms).getGeneIndex();
+
+		Assertions.assertEquals(2, index.size());
+		Assertions.assertEquals("GENE", index.getGeneSymbol(0));
+		Assertions.assertEquals(1000, index.getBeginPos(0));
+		Assertions.assertEquals(12_500, index.getEndPos(0));
+		Assertions.assertEquals(2, index.getTranscriptCount(0));
+		Assertions.assertEquals(0, index.getTranscriptNumber(0, 0));
+		Assertions.assertEquals(1, index.getTranscriptNumber(0, 1));
+		Assertions.assertEquals("OTHER", index.getGeneSymbol(1));
+		Assertions.assertEquals(3, index.getTranscriptNumber(1, 0));
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> index.getTranscriptNumber(1, 1));
+	}
+
+	private static TranscriptModel buildTranscript(ReferenceDictionary refDict, String accession, String geneSymbol,
+												   Strand strand, int beginPos, int endPos) {
+		final GenomeInterval txRegion = new GenomeInterval(refDict, Strand.FWD, 1, beginPos, endPos)
+			.withStrand(strand);
+		final TranscriptModelBuilder builder = new TranscriptModelBuilder();
+		builder.setAccession(accession);
+		builder.setGeneSymbol(geneSymbol);
+		builder.setStrand(strand);
+		builder.setTXRegion(txRegion);
+		builder.setCDSRegion(txRegion);
+		builder.addExonRegion(txRegion);
+		builder.setSequence(Strings.repeat("A", txRegion.length()));
+		return builder.build();
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"chr1_oma1_to_jun.ser", "hg19_refseq_indels.ser"})
+	public void testStoredInDatabaseFiles(String name) throws SerializationException {
+		final JannovarData data = loadResource(name);
+		final GeneIndex expected = data.getGeneIndex();
+
+		final String serPath = tmpDir.resolve(name + ".new.ser").toString();
+		new JannovarDataSerializer(serPath).save(data);
+		final JannovarData fromSer = new JannovarDataSerializer(serPath).load();
+		Assertions.assertTrue(fromSer.hasGeneIndex());
+		Assertions.assertEquals(expected, fromSer.getGeneIndex());
+
+		final String mappedPath = tmpDir.resolve(name + ".mapped").toString();
+		new MappedJannovarDataSerializer(mappedPath).save(data);
+		final MappedJannovarData mapped = new MappedJannovarDataSerializer(mappedPath).load();
+		Assertions.assertEquals(expected, mapped.getGeneIndex());
+		final JannovarData fromMapped = mapped.toJannovarData();
+		// loaded on first access only
+		Assertions.assertFalse(fromMapped.hasGeneIndex());
+		Assertions.assertEquals(expected, fromMapped.getGeneIndex());
+	}
+
+}
@@ -0,0 +1,170 @@
+package de.charite.compbio.jannovar.data;
+
+import com.google.common.collect.ImmutableSet;
+import de.charite.compbio.jannovar.impl.intervals.Interval;
+import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.testutils.ResourceUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Tests for {@link MappedJannovarDataSerializer} and {@link MappedJannovarData}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class MappedJannovarDataSerializerTest {
+
+	@TempDir
+	public Path tmpDir;
+
+	private JannovarData loadResource(String name) throws SerializationException {
+		File serFile = new File(tmpDir.toFile(), name);
+		ResourceUtils.copyResourceToFile("/" + name, serFile);
+		return new JannovarDataSerializer(serFile.getPath()).load();
+	}
+
+	private void assertSameTranscript(TranscriptModel expected, TranscriptModel actual) {
+		Assertions.assertEquals(expected, actual);
+		// not covered by TranscriptModel.equals()
+		Assertions.assertEquals(expected.getStrand(), actual.getStrand());
+		Assertions.assertEquals(expected.getAltGeneIDs(), actual.getAltGeneIDs());
+		Assertions.assertEquals(expected.isHasSubstitutions(), actual.isHasSubstitutions());
+		Assertions.assertEquals(expected.isHasIndels(), actual.isHasIndels());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"chr1_oma1_to_jun.ser", "hg19_refseq_indels.ser", "chr15_whammp3.ser"})
+	public void testRoundTrip(String name) throws SerializationException {
+		final JannovarData expected = loadResource(name);
+		final String mappedPath = tmpDir.resolve(name + ".mapped").toString();
+		new MappedJannovarDataSerializer(mappedPath).save(expected);
+
+		final MappedJannovarData mapped = new MappedJannovarDataSerializer(mappedPath).load();
+		Assertions.assertEquals(JannovarDataSerializer.getVersion(), mapped.getVersion());
+		Assertions.assertEquals(expected.getTmByAccession().size(), mapped.getTranscriptCount());
+		Assertions.assertEquals(expected.getRefDict().getContigNameToID(), mapped.getRefDict().getContigNameToID());
+		Assertions.assertEquals(expected.getRefDict().getContigIDToName(), mapped.getRefDict().getContigIDToName());
+		Assertions.assertEquals(expected.getRefDict().getContigIDToLength(),
+			mapped.getRefDict().getContigIDToLength());
+
+		int i = 0;
+		for (TranscriptModel tm : expected.getTmByAccession().values()) {
+			Assertions.assertEquals(tm.getAccession(), mapped.getAccession(i));
+			Assertions.assertEquals(tm.getGeneSymbol(), mapped.getGeneSymbol(i));
+			assertSameTranscript(tm, mapped.getTranscriptModel(i));
+			Assertions.assertSame(mapped.getTranscriptModel(i), mapped.getTranscriptModel(i));
+			++i;
+		}
+
+		// Loading through JannovarDataSerializer detects the format
+		final JannovarData actual = new JannovarDataSerializer(mappedPath).load();
+		Assertions.assertEquals(expected.getTmByAccession().keySet().asList(),
+			actual.getTmByAccession().keySet().asList());
+		for (TranscriptModel tm : expected.getTmByAccession().values())
+			assertSameTranscript(tm, actual.getTmByAccession().get(tm.getAccession()));
+
+		// Converting back to the serialized format yields the same data again
+		final String serPath = tmpDir.resolve(name + ".back.ser").toString();
+		new JannovarDataSerializer(serPath).save(actual);
+		final JannovarData back = new JannovarDataSerializer(serPath).load();
+		for (TranscriptModel tm : expected.getTmByAccession().values())
+			assertSameTranscript(tm, back.getTmByAccession().get(tm.getAccession()));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"chr1_oma1_to_jun.ser", "hg19_refseq_indels.ser"})
+	public void testFindOverlapping(String name) throws SerializationException {
+		final JannovarData data = loadResource(name);
+		final String mappedPath = tmpDir.resolve(name + ".mapped").toString();
+		new MappedJannovarDataSerializer(mappedPath).save(data);
+		final MappedJannovarData mapped = new MappedJannovarDataSerializer(mappedPath).load();
+
+		for (Chromosome chrom : data.getChromosomes().values()) {
+			final IntervalArray<TranscriptModel> tree = chrom.getTMIntervalTree();
+			assertSameOverlaps(tree, mapped, chrom.getChrID(), 0, Integer.MAX_VALUE);
+			for (TranscriptModel tm : chrom.getTMIntervalTree().getIntervals().stream().map(Interval::getValue)
+				.collect(Collectors.toList())) {
+				final GenomeInterval fwd = tm.getTXRegion().withStrand(Strand.FWD);
+				assertSameOverlaps(tree, mapped, chrom.getChrID(), fwd.getBeginPos() - 1, fwd.getBeginPos());
+				assertSameOverlaps(tree, mapped, chrom.getChrID(), fwd.getBeginPos(), fwd.getBeginPos() + 1);
+				assertSameOverlaps(tree, mapped, chrom.getChrID(), fwd.getEndPos() - 1, fwd.getEndPos());
+				assertSameOverlaps(tree, mapped, chrom.getChrID(), fwd.getEndPos(), fwd.getEndPos() + 1000);
+			}
+		}
+		Assertions.assertTrue(mapped.findOverlapping(-1, 0, Integer.MAX_VALUE).isEmpty());
+	}
+
+	private void assertSameOverlaps(IntervalArray<TranscriptModel> tree, MappedJannovarData mapped, int chr,
+									int begin, int end) {
+		Assertions.assertEquals(ImmutableSet.copyOf(tree.findOverlappingWithInterval(begin, end).getEntries()),
+			ImmutableSet.copyOf(mapped.findOverlapping(chr, begin, end)));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"chr1_oma1_to_jun.ser", "hg19_refseq_indels.ser"})
+	public void testToJannovarDataBuildsTranscriptsOnAccess(String name) throws SerializationException {
+		final JannovarData expected = loadResource(name);
+		final String mappedPath = tmpDir.resolve(name + ".mapped").toString();
+		new MappedJannovarDataSerializer(mappedPath).save(expected);
+		final MappedJannovarData mapped = new MappedJannovarDataSerializer(mappedPath).load();
+
+		final JannovarData data = mapped.toJannovarData();
+		Assertions.assertEquals(0, getBuiltCount(mapped));
+		Assertions.assertEquals(expected.getChromosomes().keySet(), data.getChromosomes().keySet());
+		for (Chromosome chrom : expected.getChromosomes().values()) {
+			final IntervalIndex<TranscriptModel> expectedIndex = chrom.getTMIntervalIndex();
+			final IntervalIndex<TranscriptModel> index = data.getChromosomes().get(chrom.getChrID())
+				.getTMIntervalIndex();
+			Assertions.assertEquals(expectedIndex.size(), index.size());
+			for (int i = 0; i < index.size(); ++i) {
+				Assertions.assertEquals(expectedIndex.getBegin(i), index.getBegin(i));
+				Assertions.assertEquals(expectedIndex.getEnd(i), index.getEnd(i));
+			}
+		}
+		Assertions.assertEquals(0, getBuiltCount(mapped));
+
+		// queries only build the returned transcripts
+		final TranscriptModel first = expected.getTmByAccession().values().asList().get(0);
+		final int pos = first.getTXRegion().withStrand(Strand.FWD).getBeginPos();
+		final ArrayList<TranscriptModel> overlapping = new ArrayList<>();
+		data.getChromosomes().get(first.getChr()).getTMIntervalIndex().findOverlappingWithPoint(pos, overlapping);
+		Assertions.assertTrue(overlapping.contains(mapped.getTranscriptModel(0)));
+		Assertions.assertEquals(overlapping.size(), getBuiltCount(mapped));
+		Assertions.assertSame(mapped.getTranscriptModel(0), data.getTmByAccession().get(first.getAccession()));
+
+		// the maps build all of them
+		Assertions.assertEquals(expected.getTmByAccession().keySet().asList(),
+			data.getTmByAccession().keySet().asList());
+		Assertions.assertEquals(expected.getTmByGeneSymbol().size(), data.getTmByGeneSymbol().size());
+		Assertions.assertEquals(mapped.getTranscriptCount(), getBuiltCount(mapped));
+	}
+
+	private static int getBuiltCount(MappedJannovarData mapped) {
+		int result = 0;
+		for (int i = 0; i < mapped.getTranscriptCount(); ++i)
+			if (mapped.hasTranscriptModel(i))
+				++result;
+		return result;
+	}
+
+	@Test
+	public void testLoadRejectsSerializedFormat() {
+		final File serFile = new File(tmpDir.toFile(), "chr1_oma1_to_jun.ser");
+		ResourceUtils.copyResourceToFile("/chr1_oma1_to_jun.ser", serFile);
+		Assertions.assertThrows(SerializationException.class,
+			() -> new MappedJannovarDataSerializer(serFile.getPath()).load());
+	}
+
+}
@@ -0,0 +1,150 @@
+package de.charite.compbio.jannovar.data;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import de.charite.compbio.jannovar.reference.GenomeInterval;
+import de.charite.compbio.jannovar.reference.HG19RefDictBuilder;
+import de.charite.compbio.jannovar.reference.Strand;
+import de.charite.compbio.jannovar.reference.TranscriptModel;
+import de.charite.compbio.jannovar.reference.TranscriptModelBuilder;
+import de.charite.compbio.jannovar.testutils.ResourceUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+public class TranscriptFilterTest {
+
+	@TempDir
+	public Path tmpDir;
+
+	String serPath;
+	String mappedPath;
+	JannovarData all;
+
+	@BeforeEach
+	public void setUp() throws SerializationException {
+		File serFile = new File(tmpDir.toFile(), "hg19_refseq_indels.ser");
+		ResourceUtils.copyResourceToFile("/hg19_refseq_indels.ser", serFile);
+		serPath = serFile.getPath();
+		all = new JannovarDataSerializer(serPath).load();
+		mappedPath = tmpDir.resolve("hg19_refseq_indels.mapped").toString();
+		new MappedJannovarDataSerializer(mappedPath).save(all);
+	}
+
+	/**
+	 * Load with <code>filter</code> from both formats and check that the transcripts passing <code>pred</code> are
+	 * kept, in the original order, and that the chromosomes hold only these
+	 */
+	private void assertLoaded(TranscriptFilter filter, Predicate<TranscriptModel> pred) throws SerializationException {
+		final List<String> expected = all.getTmByAccession().values().stream().filter(pred)
+			.map(TranscriptModel::getAccession).collect(Collectors.toList());
+		Assertions.assertFalse(expected.isEmpty());
+		for (String path : Arrays.asList(serPath, mappedPath)) {
+			final JannovarData data = new JannovarDataSerializer(path).load(filter);
+			Assertions.assertEquals(expected, data.getTmByAccession().keySet().asList());
+			int numInTrees = 0;
+			for (Chromosome chrom : data.getChromosomes().values())
+				numInTrees += chrom.getTMIntervalTree().size();
+			Assertions.assertEquals(expected.size(), numInTrees);
+		}
+	}
+
+	@Test
+	public void testAcceptAll() throws SerializationException {
+		Assertions.assertTrue(TranscriptFilter.ALL.isAcceptAll());
+		Assertions.assertSame(all, TranscriptFilter.ALL.apply(all));
+		assertLoaded(TranscriptFilter.ALL, tm -> true);
+	}
+
+	@Test
+	public void testGeneIdentifiers() throws SerializationException {
+		final ImmutableList<TranscriptModel> tms = all.getTmByAccession().values().asList();
+		final String geneSymbol = tms.get(0).getGeneSymbol();
+		final String geneID = tms.get(tms.size() - 1).getGeneID();
+		final String accession = tms.get(tms.size() / 2).getAccession();
+		final TranscriptFilter filter = new TranscriptFilter(ImmutableSet.of(geneSymbol, geneID, accession),
+			ImmutableSet.of(), false, false);
+		assertLoaded(filter, tm -> geneSymbol.equals(tm.getGeneSymbol()) || geneID.equals(tm.getGeneID()) ||
+			accession.equals(tm.getAccession()));
+	}
+
+	@Test
+	public void testContigs() throws SerializationException {
+		final TranscriptModel first = all.getTmByAccession().values().asList().get(0);
+		final String name = all.getRefDict().getContigIDToName().get(first.getChr());
+		final TranscriptFilter filter = new TranscriptFilter(ImmutableSet.of(), ImmutableSet.of(name, "no-such"),
+			false, false);
+		assertLoaded(filter, tm -> tm.getChr() == first.getChr());
+	}
+
+	@Test
+	public void testCodingOnly() throws SerializationException {
+		assertLoaded(new TranscriptFilter(ImmutableSet.of(), ImmutableSet.of(), true, false),
+			TranscriptModel::isCoding);
+	}
+
+	@Test
+	public void testCanonicalOnly() throws SerializationException {
+		// expected: the best support level of each gene on each contig, longest transcript of these, first one on ties
+		final Map<String, TranscriptModel> best = new HashMap<>();
+		for (TranscriptModel tm : all.getTmByAccession().values()) {
+			final String key = tm.getChr() + ":" + tm.getGeneSymbol();
+			final TranscriptModel other = best.get(key);
+			if (other == null || tm.getTranscriptSupportLevel() < other.getTranscriptSupportLevel() ||
+				(tm.getTranscriptSupportLevel() == other.getTranscriptSupportLevel() &&
+					tm.getTXRegion().length() > other.getTXRegion().length()))
+				best.put(key, tm);
+		}
+		Assertions.assertTrue(best.size() < all.getTmByAccession().size());
+		assertLoaded(new TranscriptFilter(ImmutableSet.of(), ImmutableSet.of(), false, true),
+			tm -> best.get(tm.getChr() + ":" + tm.getGeneSymbol()) == tm);
+	}
+
+	@Test
+	public void testCanonicalOnlyKeepsGeneOnEachContig() {
+		// genes in the pseudoautosomal regions have transcripts on both chrX and chrY
+		final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+		final int chrX = refDict.getContigNameToID().get("X");
+		final int chrY = refDict.getContigNameToID().get("Y");
+		final ImmutableList<TranscriptModel> tms = ImmutableList.of(
+			buildTranscript(refDict, "NM_1.1", chrX, 1000, 2000),
+			buildTranscript(refDict, "NM_2.1", chrX, 1000, 3000),
+			buildTranscript(refDict, "NM_3.1", chrY, 1000, 2000),
+			buildTranscript(refDict, "NM_4.1", chrY, 1000, 1500));
+		final JannovarData data = new TranscriptFilter(ImmutableSet.of(), ImmutableSet.of(), false, true)
+			.apply(new JannovarData(refDict, tms));
+		Assertions.assertEquals(ImmutableList.of("NM_2.1", "NM_3.1"), data.getTmByAccession().keySet().asList());
+	}
+
+	private static TranscriptModel buildTranscript(ReferenceDictionary refDict, String accession, int chr,
+												   int beginPos, int endPos) {
+		final GenomeInterval txRegion = new GenomeInterval(refDict, Strand.FWD, chr, beginPos, endPos);
+		final TranscriptModelBuilder builder = new TranscriptModelBuilder();
+		builder.setAccession(accession);
+		builder.setGeneSymbol("SHOX");
+		builder.setStrand(Strand.FWD);
+		builder.setTXRegion(txRegion);
+		builder.setCDSRegion(txRegion);
+		builder.addExonRegion(txRegion);
+		builder.setSequence(Strings.repeat("A", txRegion.length()));
+		return builder.build();
+	}
+
+	@Test
+	public void testParseGeneList() {
+		Assertions.assertEquals(ImmutableSet.of("BRCA1", "HGNC:1101", "NM_000059.3"), TranscriptFilter.parseGeneList(
+			Arrays.asList("# panel", "BRCA1", "", "  HGNC:1101\tbreast cancer 2", "NM_000059.3")));
+	}
+
+}
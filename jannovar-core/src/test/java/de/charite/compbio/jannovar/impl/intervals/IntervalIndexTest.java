@@ -0,0 +1,187 @@
+package de.charite.compbio.jannovar.impl.intervals;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class IntervalIndexTest {
+
+	static class Pair {
+
+		final int beginPos;
+		final int endPos;
+
+		Pair(int beginPos, int endPos) {
+			this.beginPos = beginPos;
+			this.endPos = endPos;
+		}
+
+		@Override
+		public String toString() {
+			return "Pair [beginPos=" + beginPos + ", endPos=" + endPos + "]";
+		}
+
+	}
+
+	static class PairEndExtractor implements IntervalEndExtractor<Pair> {
+
+		public int getBegin(Pair pair) {
+			return pair.beginPos;
+		}
+
+		public int getEnd(Pair pair) {
+			return pair.endPos;
+		}
+
+	}
+
+	ArrayList<Pair> getList() {
+		ArrayList<Pair> lst = new ArrayList<Pair>();
+
+		lst.add(new Pair(1, 4));
+		lst.add(new Pair(5, 9));
+		lst.add(new Pair(4, 8));
+		lst.add(new Pair(5, 7));
+		lst.add(new Pair(16, 20));
+		lst.add(new Pair(11, 16));
+		lst.add(new Pair(30, 67));
+
+		return lst;
+	}
+
+	ArrayList<Pair> getRandomList(Random rand, int count) {
+		ArrayList<Pair> lst = new ArrayList<Pair>();
+		for (int i = 0; i < count; ++i) {
+			final int begin = rand.nextInt(10_000);
+			// mostly short intervals with some long ones and some duplicates
+			final int length = 1 + (rand.nextInt(10) == 0 ? rand.nextInt(3_000) : rand.nextInt(100));
+			lst.add(new Pair(begin, begin + length));
+			if (rand.nextInt(20) == 0)
+				lst.add(new Pair(begin, begin + length));
+		}
+		return lst;
+	}
+
+	@Test
+	public void testSearchInterval() {
+		IntervalIndex<Pair> index = new IntervalIndex<Pair>(getList(), new PairEndExtractor());
+		ArrayList<Pair> res = new ArrayList<>();
+
+		Assertions.assertEquals(3, index.findOverlappingWithInterval(6, 8, res));
+		Assertions.assertEquals(3, res.size());
+		Assertions.assertEquals(4, res.get(0).beginPos);
+		Assertions.assertEquals(5, res.get(1).beginPos);
+		Assertions.assertEquals(7, res.get(1).endPos);
+		Assertions.assertEquals(5, res.get(2).beginPos);
+		Assertions.assertEquals(9, res.get(2).endPos);
+
+		// results are appended
+		Assertions.assertEquals(1, index.findOverlappingWithInterval(11, 13, res));
+		Assertions.assertEquals(4, res.size());
+		Assertions.assertEquals(11, res.get(3).beginPos);
+	}
+
+	@Test
+	public void testSearchPoint() {
+		IntervalIndex<Pair> index = new IntervalIndex<Pair>(getList(), new PairEndExtractor());
+		ArrayList<Pair> res = new ArrayList<>();
+
+		Assertions.assertEquals(1, index.findOverlappingWithPoint(16, res));
+		Assertions.assertEquals(16, res.get(0).beginPos);
+
+		res.clear();
+		Assertions.assertEquals(0, index.findOverlappingWithPoint(25, res));
+		Assertions.assertTrue(res.isEmpty());
+		Assertions.assertEquals(16, index.findLeftNeighbor(25).beginPos);
+		Assertions.assertEquals(30, index.findRightNeighbor(25).beginPos);
+	}
+
+	@Test
+	public void testEmpty() {
+		IntervalIndex<Pair> index = new IntervalIndex<Pair>(new ArrayList<Pair>(), new PairEndExtractor());
+		ArrayList<Pair> res = new ArrayList<>();
+
+		Assertions.assertEquals(0, index.size());
+		Assertions.assertEquals(0, index.findOverlappingWithInterval(0, 100, res));
+		Assertions.assertNull(index.findLeftNeighbor(10));
+		Assertions.assertNull(index.findRightNeighbor(10));
+	}
+
+	@Test
+	public void testSameResultsAsIntervalArray() {
+		final Random rand = new Random(42);
+		for (int round = 0; round < 20; ++round) {
+			ArrayList<Pair> lst = getRandomList(rand, rand.nextInt(500));
+			IntervalArray<Pair> array = new IntervalArray<Pair>(lst, new PairEndExtractor());
+			IntervalIndex<Pair> index = new IntervalIndex<Pair>(lst, new PairEndExtractor());
+			ArrayList<Pair> res = new ArrayList<>();
+
+			for (int i = 0; i < 200; ++i) {
+				final int begin = rand.nextInt(14_000) - 1_000;
+				final int end = begin + rand.nextInt(200);
+
+				res.clear();
+				index.findOverlappingWithPoint(begin, res);
+				IntervalArray<Pair>.QueryResult expected = array.findOverlappingWithPoint(begin);
+				assertSameEntries(expected.getEntries(), res);
+				if (res.isEmpty()) {
+					Assertions.assertSame(expected.getLeft(), index.findLeftNeighbor(begin));
+					Assertions.assertSame(expected.getRight(), index.findRightNeighbor(begin));
+				}
+
+				if (end > begin) {
+					res.clear();
+					index.findOverlappingWithInterval(begin, end, res);
+					expected = array.findOverlappingWithInterval(begin, end);
+					assertSameEntries(expected.getEntries(), res);
+					if (res.isEmpty()) {
+						Assertions.assertSame(expected.getLeft(), index.findLeftNeighbor(begin));
+						Assertions.assertSame(expected.getRight(), index.findRightNeighbor(begin));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testValuesLoadedOnAccess() {
+		final Random rand = new Random(42);
+		ArrayList<Pair> lst = getRandomList(rand, 500);
+		final int n = lst.size();
+		int[] begin = new int[n], end = new int[n], numbers = new int[n];
+		for (int i = 0; i < n; ++i) {
+			begin[i] = lst.get(i).beginPos;
+			end[i] = lst.get(i).endPos;
+			numbers[i] = i;
+		}
+		IntervalIndex<Pair> expected = new IntervalIndex<Pair>(lst, new PairEndExtractor());
+		IntervalIndex<Pair> index = new IntervalIndex<Pair>(begin, end, numbers, lst::get);
+		ArrayList<Pair> res = new ArrayList<>();
+		ArrayList<Pair> expectedRes = new ArrayList<>();
+
+		Assertions.assertEquals(expected.size(), index.size());
+		for (int i = 0; i < n; ++i)
+			Assertions.assertSame(expected.getValue(i), index.getValue(i));
+		for (int i = 0; i < 200; ++i) {
+			final int pos = rand.nextInt(12_000);
+			final int posEnd = pos + 1 + rand.nextInt(200);
+			res.clear();
+			expectedRes.clear();
+			index.findOverlappingWithInterval(pos, posEnd, res);
+			expected.findOverlappingWithInterval(pos, posEnd, expectedRes);
+			assertSameEntries(expectedRes, res);
+			Assertions.assertSame(expected.findLeftNeighbor(pos), index.findLeftNeighbor(pos));
+			Assertions.assertSame(expected.findRightNeighbor(pos), index.findRightNeighbor(pos));
+		}
+	}
+
+	private void assertSameEntries(List<Pair> expected, List<Pair> actual) {
+		Assertions.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); ++i)
+			Assertions.assertSame(expected.get(i), actual.get(i));
+	}
+
+}
@@ -0,0 +1,86 @@
+package de.charite.compbio.jannovar.impl.parse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class ChunkedParallelParserTest {
+
+	ForkJoinPool pool;
+
+	@BeforeEach
+	public void setUp() {
+		pool = new ForkJoinPool(3);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * @return source of the numbers <code>0, ..., n - 1</code> as strings
+	 */
+	private static ChunkedParallelParser.Source<String> numbers(int n) {
+		final Iterator<Integer> it = IntStream.range(0, n).iterator();
+		return () -> it.hasNext() ? Integer.toString(it.next()) : null;
+	}
+
+	@Test
+	public void testOrderIsKept() throws IOException {
+		ChunkedParallelParser<String, Integer> parser = new ChunkedParallelParser<>(pool, numbers(1000),
+			Integer::parseInt, 7, 4);
+		List<Integer> result = new ArrayList<>();
+		Integer x;
+		while ((x = parser.next()) != null)
+			result.add(x);
+
+		Assertions.assertEquals(1000, result.size());
+		for (int i = 0; i < result.size(); ++i)
+			Assertions.assertEquals(i, (int) result.get(i));
+		Assertions.assertNull(parser.next());
+	}
+
+	@Test
+	public void testNullResultsAreSkipped() throws IOException {
+		ChunkedParallelParser<String, Integer> parser = new ChunkedParallelParser<>(pool, numbers(20),
+			s -> (Integer.parseInt(s) % 3 == 0) ? Integer.parseInt(s) : null, 4, 2);
+		List<Integer> result = new ArrayList<>();
+		Integer x;
+		while ((x = parser.next()) != null)
+			result.add(x);
+
+		Assertions.assertEquals("[0, 3, 6, 9, 12, 15, 18]", result.toString());
+	}
+
+	@Test
+	public void testEmptySource() throws IOException {
+		ChunkedParallelParser<String, Integer> parser = new ChunkedParallelParser<>(pool, numbers(0),
+			Integer::parseInt);
+		Assertions.assertNull(parser.next());
+	}
+
+	@Test
+	public void testExceptionIsRethrown() {
+		ChunkedParallelParser<String, Integer> parser = new ChunkedParallelParser<>(pool, numbers(10), s -> {
+			if (s.equals("5"))
+				throw new IllegalStateException("Invalid record " + s);
+			return Integer.parseInt(s);
+		}, 2, 2);
+		IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> {
+			while (parser.next() != null) {
+				// consume
+			}
+		});
+		Assertions.assertEquals("Invalid record 5", e.getMessage());
+	}
+
+}
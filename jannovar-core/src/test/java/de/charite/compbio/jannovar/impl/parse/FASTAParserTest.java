@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.ForkJoinPool;
 
 public class FASTAParserTest {
 
@@ -37,4 +38,25 @@ public class FASTAParserTest {
 		Assertions.assertNull(third);
 	}
 
+	@Test
+	public void testParallel() throws IOException {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			FASTAParser parser = new FASTAParser(stream, pool);
+
+			FASTARecord first = parser.next();
+			Assertions.assertEquals("1", first.getID());
+			Assertions.assertEquals("comment 1", first.getComment());
+			Assertions.assertEquals("ACGTAACTACGT", first.getSequence());
+
+			FASTARecord second = parser.next();
+			Assertions.assertEquals("2", second.getID());
+			Assertions.assertEquals("AAAA", second.getSequence());
+
+			Assertions.assertNull(parser.next());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
 }
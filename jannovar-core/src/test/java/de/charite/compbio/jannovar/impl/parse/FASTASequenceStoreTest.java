@@ -0,0 +1,53 @@
+package de.charite.compbio.jannovar.impl.parse;
+
+import com.google.common.io.Files;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class FASTASequenceStoreTest {
+
+	File tmpDir;
+
+	@BeforeEach
+	public void setUp() {
+		tmpDir = Files.createTempDir();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		tmpDir.delete();
+	}
+
+	@Test
+	public void testAddAndGet() throws IOException {
+		StringBuilder longSeq = new StringBuilder();
+		for (int i = 0; i < 10_000; ++i)
+			longSeq.append("ACGT".charAt((i * 7) % 4));
+
+		try (FASTASequenceStore store = new FASTASequenceStore(tmpDir)) {
+			store.add("NM_1.1", "ACGTACGT");
+			store.add("NM_2.1", longSeq.toString());
+			store.add("NM_3.1", "");
+			store.add("NM_1.1", "GATTACA");
+
+			Assertions.assertEquals(3, store.size());
+			Assertions.assertTrue(store.contains("NM_2.1"));
+			Assertions.assertFalse(store.contains("NM_4.1"));
+
+			Assertions.assertEquals(longSeq.toString(), store.getSequence("NM_2.1"));
+			Assertions.assertEquals("GATTACA", store.getSequence("NM_1.1"));
+			Assertions.assertEquals("", store.getSequence("NM_3.1"));
+			Assertions.assertNull(store.getSequence("NM_4.1"));
+
+			Assertions.assertThrows(IllegalStateException.class, () -> store.add("NM_5.1", "A"));
+		}
+
+		Assertions.assertEquals(0, tmpDir.listFiles().length);
+	}
+
+}
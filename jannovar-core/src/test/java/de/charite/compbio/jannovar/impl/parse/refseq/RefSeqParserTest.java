@@ -34,6 +34,7 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.StringJoiner;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -128,6 +129,27 @@ public class RefSeqParserTest {
 			result.get(0).getAltGeneIDs().toString());
 	}
 
+	@Test public void testAllParallel() throws TranscriptParseException {
+		ImmutableList<TranscriptModel> expected = new RefSeqParser(refDict, dataDirectory.getAbsolutePath(),
+			new ArrayList<String>(), allIniSection).run();
+
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			ImmutableList<TranscriptModel> result = new RefSeqParser(refDict, dataDirectory.getAbsolutePath(),
+				new ArrayList<String>(), allIniSection, pool).run();
+
+			Assertions.assertEquals(expected.size(), result.size());
+			for (int i = 0; i < expected.size(); ++i) {
+				Assertions.assertEquals(expected.get(i).toString(), result.get(i).toString());
+				Assertions.assertEquals(expected.get(i).getSequence(), result.get(i).getSequence());
+				Assertions.assertEquals(expected.get(i).getExonRegions(), result.get(i).getExonRegions());
+				Assertions.assertEquals(expected.get(i).getAltGeneIDs(), result.get(i).getAltGeneIDs());
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
 	@Test public void testOnlyCurated() throws TranscriptParseException {
 		RefSeqParser parser = new RefSeqParser(refDict, dataDirectory.getAbsolutePath(),
 			new ArrayList<>(), curatedIniSection);
@@ -0,0 +1,32 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link DNAUtils}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class DNAUtilsTest {
+
+	@Test
+	public void testReverseComplement() {
+		Assertions.assertEquals("", DNAUtils.reverseComplement(""));
+		Assertions.assertEquals("NCGTA", DNAUtils.reverseComplement("TACGN"));
+		// characters other than ACGTN are dropped
+		Assertions.assertEquals("CGT", DNAUtils.reverseComplement("AC-gG"));
+	}
+
+	@Test
+	public void testReverseComplementBytes() {
+		final byte[] seq = "xxTACGN-ACGTyy".getBytes(StandardCharsets.US_ASCII);
+		Assertions.assertEquals("NCGTA", new String(DNAUtils.reverseComplement(seq, 2, 7), StandardCharsets.US_ASCII));
+		Assertions.assertEquals("ACGTNCGTA",
+			new String(DNAUtils.reverseComplement(seq, 0, seq.length), StandardCharsets.US_ASCII));
+		Assertions.assertEquals(0, DNAUtils.reverseComplement(seq, 3, 3).length);
+	}
+
+}
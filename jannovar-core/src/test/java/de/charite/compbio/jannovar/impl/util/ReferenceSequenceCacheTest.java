@@ -0,0 +1,96 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import de.charite.compbio.jannovar.data.ReferenceDictionaryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class ReferenceSequenceCacheTest {
+
+	/**
+	 * Sequence of contig "one", written with 5 bases per line
+	 */
+	static final String SEQ_ONE = "ACGTAcgtaaCCCCCGGGGGTTT";
+
+	/**
+	 * Sequence of contig "two", written with 5 bases per line
+	 */
+	static final String SEQ_TWO = "TTTTTAAAAAG";
+
+	@TempDir
+	public File tmpDir;
+
+	String fastaPath;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		fastaPath = new File(tmpDir, "ref.fa").getPath();
+		final StringBuilder fasta = new StringBuilder();
+		final StringBuilder fai = new StringBuilder();
+		appendContig(fasta, fai, "one", SEQ_ONE);
+		appendContig(fasta, fai, "two", SEQ_TWO);
+		write(fastaPath, fasta.toString());
+		write(fastaPath + ".fai", fai.toString());
+	}
+
+	private static void appendContig(StringBuilder fasta, StringBuilder fai, String name, String seq) {
+		fasta.append('>').append(name).append('\n');
+		fai.append(name).append('\t').append(seq.length()).append('\t').append(fasta.length()).append("\t5\t6\n");
+		for (int i = 0; i < seq.length(); i += 5)
+			fasta.append(seq, i, Math.min(i + 5, seq.length())).append('\n');
+	}
+
+	private static void write(String path, String content) throws IOException {
+		try (OutputStream out = new FileOutputStream(path)) {
+			out.write(content.getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+
+	@Test
+	public void testGetBasesAllRanges() throws Exception {
+		// small blocks, such that ranges span several blocks and lines
+		final ReferenceSequenceCache cache = new ReferenceSequenceCache(fastaPath, fastaPath + ".fai", 3, 2);
+		Assertions.assertEquals(2, cache.getContigNames().size());
+		Assertions.assertEquals(SEQ_ONE.length(), cache.getContigLength("one"));
+		for (String contig : new String[]{"one", "two"}) {
+			final String seq = contig.equals("one") ? SEQ_ONE : SEQ_TWO;
+			for (int begin = 0; begin <= seq.length(); ++begin)
+				for (int end = begin; end <= seq.length(); ++end)
+					Assertions.assertEquals(seq.substring(begin, end), cache.getString(contig, begin, end));
+		}
+	}
+
+	@Test
+	public void testErrors() throws Exception {
+		final ReferenceSequenceCache cache = new ReferenceSequenceCache(fastaPath);
+		Assertions.assertFalse(cache.hasContig("three"));
+		Assertions.assertThrows(UncheckedJannovarException.class, () -> cache.getBases("three", 0, 1));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> cache.getBases("two", -1, 1));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> cache.getBases("two", 0, SEQ_TWO.length() + 1));
+	}
+
+	@Test
+	public void testShared() throws Exception {
+		Assertions.assertSame(ReferenceSequenceCache.getShared(fastaPath), ReferenceSequenceCache.getShared(fastaPath));
+	}
+
+	@Test
+	public void testIndexedFASTAReader() throws Exception {
+		final ReferenceDictionaryBuilder builder = new ReferenceDictionaryBuilder();
+		builder.putContigID("one", 1);
+		builder.putContigID("chrOne", 1);
+		builder.putContigName(1, "one");
+		builder.putContigLength(1, SEQ_ONE.length());
+		final IndexedFASTAReader reader = new IndexedFASTAReader(builder.build(), fastaPath);
+		Assertions.assertEquals("cgtaaCC", reader.readBases("chrOne", 5, 12));
+	}
+
+}
@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * Test for the TranscriptModel class.
  *
@@ -90,4 +92,15 @@ public class TranslatorTest {
 		Assertions.assertEquals("Met", translator.translateDNA3("ATA", false));
 		Assertions.assertEquals("Trp", translator.translateDNA3("TGA", false));
 	}
+
+	/**
+	 * Test for translateDNA() on ASCII buffers
+	 */
+	@Test
+	public void testTranslateDna_bytes() throws AnnotationException {
+		final byte[] dna = "xxTGATAGAGTxx".getBytes(StandardCharsets.US_ASCII);
+		Assertions.assertArrayEquals("**S".getBytes(StandardCharsets.US_ASCII), translator.translateDNA(dna, 2, 11, true));
+		Assertions.assertArrayEquals("W*S".getBytes(StandardCharsets.US_ASCII), translator.translateDNA(dna, 2, 11, false));
+		Assertions.assertArrayEquals("W".getBytes(StandardCharsets.US_ASCII), translator.translateDNA(dna, 2, 7, false));
+	}
 }
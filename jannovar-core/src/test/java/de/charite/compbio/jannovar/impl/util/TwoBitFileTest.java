@@ -0,0 +1,97 @@
+package de.charite.compbio.jannovar.impl.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+public class TwoBitFileTest {
+
+	/**
+	 * Sequence of contig "one", with N runs, soft-masked and IUPAC bases
+	 */
+	static final String SEQ_ONE = "NNACGTacgtNNNNnnCCRYGGGGtttAN";
+
+	/**
+	 * Sequence of contig "two", without any N or masked bases
+	 */
+	static final String SEQ_TWO = "TTTTTAAAAAGC";
+
+	@TempDir
+	public File tmpDir;
+
+	String fastaPath;
+
+	String twoBitPath;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		fastaPath = new File(tmpDir, "ref.fa").getPath();
+		twoBitPath = new File(tmpDir, "ref.2bit").getPath();
+		final StringBuilder fasta = new StringBuilder();
+		final StringBuilder fai = new StringBuilder();
+		appendContig(fasta, fai, "one", SEQ_ONE);
+		appendContig(fasta, fai, "two", SEQ_TWO);
+		write(fastaPath, fasta.toString());
+		write(fastaPath + ".fai", fai.toString());
+
+		TwoBitFile.write(new ReferenceSequenceCache(fastaPath), twoBitPath);
+	}
+
+	private static void appendContig(StringBuilder fasta, StringBuilder fai, String name, String seq) {
+		fasta.append('>').append(name).append('\n');
+		fai.append(name).append('\t').append(seq.length()).append('\t').append(fasta.length()).append("\t7\t8\n");
+		for (int i = 0; i < seq.length(); i += 7)
+			fasta.append(seq, i, Math.min(i + 7, seq.length())).append('\n');
+	}
+
+	private static void write(String path, String content) throws IOException {
+		try (OutputStream out = new FileOutputStream(path)) {
+			out.write(content.getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+
+	/**
+	 * @return <code>seq</code> with all upper case non-ACGT characters replaced by N, soft-masked N stays lower case
+	 */
+	private static String expected(String seq) {
+		return seq.replaceAll("[^ACGTacgtn]", "N");
+	}
+
+	@Test
+	public void testDetection() throws Exception {
+		Assertions.assertTrue(TwoBitFile.isTwoBitFile(twoBitPath));
+		Assertions.assertFalse(TwoBitFile.isTwoBitFile(fastaPath));
+		Assertions.assertFalse(TwoBitFile.isTwoBitFile(new File(tmpDir, "missing.2bit").getPath()));
+
+		Assertions.assertTrue(new ReferenceSequenceCache(twoBitPath).isTwoBit());
+		Assertions.assertFalse(new ReferenceSequenceCache(fastaPath).isTwoBit());
+	}
+
+	@Test
+	public void testContigs() throws Exception {
+		final TwoBitFile file = new TwoBitFile(twoBitPath);
+		Assertions.assertEquals("[one, two]", file.getContigNames().toString());
+		Assertions.assertEquals(SEQ_ONE.length(), file.getContigLength(0));
+		Assertions.assertEquals(SEQ_TWO.length(), file.getContigLength(1));
+	}
+
+	@Test
+	public void testGetBasesAllRanges() throws Exception {
+		// small blocks, such that ranges span several blocks and N/mask blocks
+		final ReferenceSequenceCache cache = new ReferenceSequenceCache(twoBitPath, twoBitPath + ".fai", 3, 2);
+		for (String contig : new String[]{"one", "two"}) {
+			final String seq = expected(contig.equals("one") ? SEQ_ONE : SEQ_TWO);
+			for (int begin = 0; begin <= seq.length(); ++begin)
+				for (int end = begin; end <= seq.length(); ++end)
+					Assertions.assertEquals(seq.substring(begin, end), cache.getString(contig, begin, end));
+		}
+	}
+
+}
@@ -0,0 +1,155 @@
+package de.charite.compbio.jannovar.mendel;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import de.charite.compbio.jannovar.pedigree.Disease;
+import de.charite.compbio.jannovar.pedigree.Pedigree;
+import de.charite.compbio.jannovar.pedigree.Person;
+import de.charite.compbio.jannovar.pedigree.Sex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+public class GenotypeMatrixTest {
+
+	private static Genotype gt(Integer... alleleNumbers) {
+		return new Genotype(ImmutableList.copyOf(alleleNumbers));
+	}
+
+	@Test
+	public void testEncodeSameAsGenotype() {
+		final int[] alleles = {Genotype.NO_CALL, Genotype.REF_CALL, 1, 2};
+		final List<List<Integer>> all = new ArrayList<>();
+		all.add(ImmutableList.of());
+		for (int a : alleles) {
+			all.add(ImmutableList.of(a));
+			for (int b : alleles) {
+				all.add(ImmutableList.of(a, b));
+				for (int c : alleles)
+					all.add(ImmutableList.of(a, b, c));
+			}
+		}
+
+		for (List<Integer> lst : all) {
+			final Genotype gt = new Genotype(lst);
+			final byte code = GenotypeMatrix.encode(lst.stream().mapToInt(i -> i).toArray());
+			Assertions.assertEquals(GenotypeMatrix.encode(gt), code, lst.toString());
+			Assertions.assertEquals(gt.isHomRef(), GenotypeMatrix.isHomRef(code), lst.toString());
+			Assertions.assertEquals(gt.isHet(), GenotypeMatrix.isHet(code), lst.toString());
+			Assertions.assertEquals(gt.isHomAlt(), GenotypeMatrix.isHomAlt(code), lst.toString());
+			Assertions.assertEquals(gt.isNotObserved(), GenotypeMatrix.isNotObserved(code), lst.toString());
+		}
+	}
+
+	@Test
+	public void testOfCalls() {
+		final GenotypeCalls calls1 = new GenotypeCalls(ChromosomeType.AUTOSOMAL,
+			ImmutableMap.of("b", gt(0, 1), "a", gt(1, 1)).entrySet(), "one");
+		final GenotypeCalls calls2 = new GenotypeCalls(ChromosomeType.X_CHROMOSOMAL,
+			ImmutableMap.of("c", gt(0, 0)).entrySet(), "two");
+		final GenotypeMatrix matrix = GenotypeMatrix.of(ImmutableList.of(calls1, calls2));
+
+		Assertions.assertEquals(2, matrix.getNRows());
+		Assertions.assertEquals(ImmutableList.of("a", "b", "c"), matrix.getSampleNames());
+		Assertions.assertEquals(GenotypeMatrix.HOM_ALT, matrix.get(0, matrix.getColumn("a")));
+		Assertions.assertEquals(GenotypeMatrix.HET, matrix.get(0, matrix.getColumn("b")));
+		Assertions.assertEquals(GenotypeMatrix.NOT_OBSERVED, matrix.get(0, matrix.getColumn("c")));
+		Assertions.assertEquals(GenotypeMatrix.HOM_REF, matrix.get(1, matrix.getColumn("c")));
+		Assertions.assertEquals(GenotypeMatrix.NOT_OBSERVED, matrix.get(1, matrix.getColumn("unknown")));
+		Assertions.assertEquals(ChromosomeType.X_CHROMOSOMAL, matrix.getChromType(1));
+		Assertions.assertSame(calls1, matrix.getCalls(0));
+		Assertions.assertSame(calls2, matrix.getCalls(1));
+
+		final BitSet rows = new BitSet();
+		rows.set(1);
+		final GenotypeMatrix selected = matrix.selectRows(rows);
+		Assertions.assertEquals(1, selected.getNRows());
+		Assertions.assertEquals(GenotypeMatrix.HOM_REF, selected.get(0, selected.getColumn("c")));
+		Assertions.assertSame(calls2, selected.getCalls(0));
+	}
+
+	@Test
+	public void testBuilderAndView() {
+		final GenotypeMatrixBuilder builder = new GenotypeMatrixBuilder(ImmutableList.of("b", "a"));
+		builder.addRow(ChromosomeType.AUTOSOMAL,
+			new byte[]{GenotypeMatrix.encode(0, 1), GenotypeMatrix.encode(0, Genotype.NO_CALL)}, 42);
+		final GenotypeMatrix matrix = builder.build();
+		Assertions.assertArrayEquals(new int[]{1, 0, -1},
+			matrix.getColumns(new Pedigree("ped", ImmutableList.of(
+				new Person("a", null, null, Sex.MALE, Disease.AFFECTED),
+				new Person("b", null, null, Sex.MALE, Disease.AFFECTED),
+				new Person("c", null, null, Sex.MALE, Disease.AFFECTED)))));
+
+		final GenotypeCalls calls = matrix.getCalls(0);
+		Assertions.assertEquals(42, calls.getPayload());
+		Assertions.assertEquals(ChromosomeType.AUTOSOMAL, calls.getChromType());
+		Assertions.assertEquals(2, calls.getNSamples());
+		Assertions.assertEquals(ImmutableList.of("a", "b"), calls.getSampleNames());
+		Assertions.assertEquals(gt(0, Genotype.NO_CALL), calls.getGenotypeForSample("a"));
+		Assertions.assertEquals(gt(0, 1), calls.getGenotypeForSample("b"));
+		Assertions.assertEquals(gt(0, 1), calls.getGenotypeBySampleNo(1));
+		Assertions.assertTrue(calls.getGenotypeForSample("c").isNotObserved());
+
+		Assertions.assertThrows(IllegalArgumentException.class,
+			() -> builder.addRow(ChromosomeType.AUTOSOMAL, new byte[1], null));
+	}
+
+	@Test
+	public void testCheckerOnMatrix() throws IncompatiblePedigreeException {
+		final Person father = new Person("father", null, null, Sex.MALE, Disease.UNAFFECTED);
+		final Person mother = new Person("mother", null, null, Sex.FEMALE, Disease.UNAFFECTED);
+		final Person child = new Person("child", father, mother, Sex.MALE, Disease.AFFECTED);
+		final MendelianInheritanceChecker checker = new MendelianInheritanceChecker(
+			new Pedigree("ped", ImmutableList.of(father, mother, child)));
+
+		// rows: de novo (AD), hom. alt. in child (AR), paternal and maternal het. (AR comp. het.)
+		final byte homRef = GenotypeMatrix.encode(0, 0);
+		final byte het = GenotypeMatrix.encode(0, 1);
+		final byte homAlt = GenotypeMatrix.encode(1, 1);
+		final GenotypeMatrixBuilder builder = new GenotypeMatrixBuilder(ImmutableList.of("child", "father", "mother"));
+		builder.addRow(ChromosomeType.AUTOSOMAL, new byte[]{het, homRef, homRef}, 0);
+		builder.addRow(ChromosomeType.AUTOSOMAL, new byte[]{homAlt, het, het}, 1);
+		builder.addRow(ChromosomeType.AUTOSOMAL, new byte[]{het, het, homRef}, 2);
+		builder.addRow(ChromosomeType.AUTOSOMAL, new byte[]{het, homRef, het}, 3);
+		final GenotypeMatrix matrix = builder.build();
+
+		final ImmutableMap<SubModeOfInheritance, ImmutableList<GenotypeCalls>> result = checker
+			.checkMendelianInheritanceSub(matrix, matrix);
+		Assertions.assertEquals(ImmutableList.of(0), payloads(result.get(SubModeOfInheritance.AUTOSOMAL_DOMINANT)));
+		Assertions.assertEquals(ImmutableList.of(1),
+			payloads(result.get(SubModeOfInheritance.AUTOSOMAL_RECESSIVE_HOM_ALT)));
+		Assertions.assertEquals(ImmutableList.of(2, 3),
+			payloads(result.get(SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET)));
+		Assertions.assertEquals(ImmutableList.of(0, 1, 2, 3), payloads(result.get(SubModeOfInheritance.ANY)));
+
+		// same result through the GenotypeCalls API
+		final List<GenotypeCalls> calls = new ArrayList<>();
+		for (int row = 0; row < matrix.getNRows(); ++row)
+			calls.add(new GenotypeCalls(ChromosomeType.AUTOSOMAL, matrix.getCalls(row), row));
+		final ImmutableMap<SubModeOfInheritance, ImmutableList<GenotypeCalls>> result2 = checker
+			.checkMendelianInheritanceSub(calls);
+		for (SubModeOfInheritance subMode : SubModeOfInheritance.values())
+			Assertions.assertEquals(payloads(result.get(subMode)), payloads(result2.get(subMode)));
+	}
+
+	@Test
+	public void testIncompatiblePedigree() {
+		final MendelianInheritanceChecker checker = new MendelianInheritanceChecker(
+			Pedigree.constructSingleSamplePedigree("index"));
+		final GenotypeMatrixBuilder builder = new GenotypeMatrixBuilder(ImmutableList.of("other"));
+		builder.addRow(ChromosomeType.AUTOSOMAL, new byte[]{GenotypeMatrix.HET}, null);
+		Assertions.assertThrows(IncompatiblePedigreeException.class,
+			() -> checker.filterCompatibleRecords(builder.build(), ModeOfInheritance.AUTOSOMAL_DOMINANT));
+	}
+
+	private static List<Object> payloads(List<GenotypeCalls> calls) {
+		final List<Object> result = new ArrayList<>();
+		for (GenotypeCalls gc : calls)
+			result.add(gc.getPayload());
+		return result;
+	}
+
+}
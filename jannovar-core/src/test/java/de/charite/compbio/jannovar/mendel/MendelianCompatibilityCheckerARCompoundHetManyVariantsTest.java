@@ -0,0 +1,82 @@
+package de.charite.compbio.jannovar.mendel;
+
+import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.pedigree.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compound heterozygous check for a gene with many heterozygous variants in a trio with an unaffected sibling
+ */
+public class MendelianCompatibilityCheckerARCompoundHetManyVariantsTest {
+
+	static final byte REF = GenotypeMatrix.encode(0, 0);
+	static final byte HET = GenotypeMatrix.encode(0, 1);
+	static final byte ALT = GenotypeMatrix.encode(1, 1);
+
+	MendelianInheritanceChecker checker;
+	GenotypeMatrixBuilder builder;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		ImmutableList.Builder<PedPerson> individuals = new ImmutableList.Builder<PedPerson>();
+		individuals.add(new PedPerson("ped", "father", "0", "0", Sex.MALE, Disease.UNAFFECTED));
+		individuals.add(new PedPerson("ped", "mother", "0", "0", Sex.FEMALE, Disease.UNAFFECTED));
+		individuals.add(new PedPerson("ped", "index", "father", "mother", Sex.FEMALE, Disease.AFFECTED));
+		individuals.add(new PedPerson("ped", "sibling", "father", "mother", Sex.MALE, Disease.UNAFFECTED));
+		PedFileContents pedFileContents = new PedFileContents(new ImmutableList.Builder<String>().build(),
+			individuals.build());
+		this.checker = new MendelianInheritanceChecker(new Pedigree(pedFileContents, "ped"));
+		this.builder = new GenotypeMatrixBuilder(ImmutableList.of("father", "mother", "index", "sibling"));
+	}
+
+	private void addRows(int count, byte father, byte mother, byte index, byte sibling) {
+		for (int i = 0; i < count; ++i)
+			builder.addRow(ChromosomeType.AUTOSOMAL, new byte[]{father, mother, index, sibling}, builder.getNRows());
+	}
+
+	private List<Object> getCompHetPayloads() throws IncompatiblePedigreeException {
+		final GenotypeMatrix matrix = builder.build();
+		final List<Object> result = new ArrayList<>();
+		for (GenotypeCalls gc : checker.filterCompatibleRecordsSub(matrix,
+			SubModeOfInheritance.AUTOSOMAL_RECESSIVE_COMP_HET))
+			result.add(gc.getPayload());
+		return result;
+	}
+
+	@Test
+	public void testManyPaternalAndMaternalVariants() throws IncompatiblePedigreeException {
+		addRows(500, HET, REF, HET, REF); // 0..499: paternal
+		addRows(500, REF, HET, HET, REF); // 500..999: maternal
+		addRows(1, HET, REF, HET, HET); // 1000: paternal, het. in sibling
+		addRows(1, REF, HET, HET, HET); // 1001: maternal, het. in sibling
+		addRows(1, HET, HET, ALT, REF); // 1002: hom. alt. in index
+		addRows(1, REF, REF, HET, REF); // 1003: de novo
+
+		final List<Object> expected = new ArrayList<>();
+		for (int i = 0; i < 1002; ++i)
+			expected.add(i);
+		Assertions.assertEquals(expected, getCompHetPayloads());
+	}
+
+	@Test
+	public void testOnlyPairsCompoundHetInSibling() throws IncompatiblePedigreeException {
+		addRows(100, HET, REF, HET, HET);
+		addRows(100, REF, HET, HET, HET);
+		addRows(100, HET, REF, HET, ALT);
+
+		Assertions.assertEquals(ImmutableList.of(), getCompHetPayloads());
+	}
+
+	@Test
+	public void testOnlyPaternalVariants() throws IncompatiblePedigreeException {
+		addRows(1000, HET, REF, HET, REF);
+
+		Assertions.assertEquals(ImmutableList.of(), getCompHetPayloads());
+	}
+
+}
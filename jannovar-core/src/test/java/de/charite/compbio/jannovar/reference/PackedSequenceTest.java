@@ -0,0 +1,40 @@
+package de.charite.compbio.jannovar.reference;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class PackedSequenceTest {
+
+	@Test
+	public void testRoundTrip() {
+		for (String seq : new String[]{"", "A", "ACGTT", "ACGTACGTACGTA", "NACGTNNACGTACGTACGTACGTACGTACGTN",
+			"acgtacgtacgt", "ACGTRYKM"}) {
+			PackedSequence packed = new PackedSequence(seq);
+			Assertions.assertEquals(seq.length(), packed.length());
+			Assertions.assertEquals(seq, packed.toString());
+		}
+	}
+
+	@Test
+	public void testGetBytes() {
+		final String seq = "ACGTNACGTACGTACGTACGTAACNNGTACGT";
+		PackedSequence packed = new PackedSequence(seq);
+		for (int beginPos = 0; beginPos <= seq.length(); ++beginPos)
+			for (int endPos = beginPos; endPos <= seq.length(); ++endPos)
+				Assertions.assertEquals(seq.substring(beginPos, endPos),
+					new String(packed.getBytes(beginPos, endPos), StandardCharsets.US_ASCII));
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> packed.getBytes(0, seq.length() + 1));
+	}
+
+	@Test
+	public void testEquals() {
+		Assertions.assertEquals(new PackedSequence("ACGTNA"), new PackedSequence("ACGTNA"));
+		Assertions.assertEquals(new PackedSequence("ACGTNA").hashCode(), new PackedSequence("ACGTNA").hashCode());
+		Assertions.assertNotEquals(new PackedSequence("ACGTNA"), new PackedSequence("ACGTNAA"));
+		Assertions.assertNotEquals(new PackedSequence("ACGTA"), new PackedSequence("ACGTN"));
+		Assertions.assertNotEquals(new PackedSequence("acgt"), new PackedSequence("ACGT"));
+	}
+
+}
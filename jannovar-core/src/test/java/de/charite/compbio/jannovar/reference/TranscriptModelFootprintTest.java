@@ -0,0 +1,155 @@
+package de.charite.compbio.jannovar.reference;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compare the live heap of compact {@link TranscriptModel} objects against the same data held in the plain
+ * representation (strings, lists of {@link GenomeInterval}s, and alignment objects), using the heap histogram of the
+ * running JVM.
+ */
+public class TranscriptModelFootprintTest {
+
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	static final int NUM_TRANSCRIPTS = 3000;
+	static final int NUM_EXONS = 10;
+	static final int EXON_LENGTH = 300;
+	static final int TRANSCRIPTS_PER_GENE = 3;
+
+	/**
+	 * The plain representation, as the fields of {@link TranscriptModel} before it was made compact.
+	 */
+	static final class PlainTranscript {
+		final String accession;
+		final String geneSymbol;
+		final GenomeInterval txRegion;
+		final GenomeInterval cdsRegion;
+		final ImmutableList<GenomeInterval> exonRegions;
+		final String sequence;
+		final String geneID;
+		final ImmutableSortedMap<String, String> altGeneIDs;
+		final Alignment seqAlignment;
+
+		PlainTranscript(TranscriptModelBuilder builder, GenomeInterval txRegion) {
+			this.accession = builder.getAccession();
+			this.geneSymbol = builder.getGeneSymbol();
+			this.txRegion = txRegion;
+			this.cdsRegion = txRegion;
+			this.exonRegions = ImmutableList.copyOf(builder.getExonRegions());
+			this.sequence = builder.getSequence();
+			this.geneID = builder.getGeneID();
+			this.altGeneIDs = ImmutableSortedMap.copyOf(builder.getAltGeneIDs());
+			this.seqAlignment = Alignment.createUngappedAlignment(sequence.length());
+		}
+	}
+
+	/**
+	 * @return live heap in bytes from the class histogram, after a full GC
+	 */
+	private static long liveHeapBytes() {
+		// objects that just became unreachable may survive the first GC, take the second histogram
+		histogramTotalBytes();
+		return histogramTotalBytes();
+	}
+
+	/**
+	 * @return total bytes of the class histogram of the running JVM
+	 */
+	private static long histogramTotalBytes() {
+		final String histogram;
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			histogram = (String) server.invoke(new ObjectName("com.sun.management:type=DiagnosticCommand"),
+				"gcClassHistogram", new Object[]{null}, new String[]{String[].class.getName()});
+		} catch (Exception e) {
+			Assumptions.assumeTrue(false, "Heap histogram not available: " + e);
+			return 0;
+		}
+		for (String line : histogram.split("\n")) {
+			if (line.trim().startsWith("Total")) {
+				final String[] fields = line.trim().split("\\s+");
+				return Long.parseLong(fields[2]);
+			}
+		}
+		Assumptions.assumeTrue(false, "Could not parse heap histogram");
+		return 0;
+	}
+
+	/**
+	 * @return builder for the <code>i</code>-th synthetic transcript, the same for the same <code>i</code>
+	 */
+	private static TranscriptModelBuilder buildTranscript(int i) {
+		final Random rng = new Random(i);
+		TranscriptModelBuilder builder = new TranscriptModelBuilder();
+		builder.setAccession("NM_" + (100000 + i) + ".1");
+		final int gene = i / TRANSCRIPTS_PER_GENE;
+		builder.setGeneSymbol("GENE" + gene);
+		builder.setGeneID("ENTREZ" + gene);
+		builder.getAltGeneIDs().put("HGNC_ID", "HGNC:" + gene);
+		builder.getAltGeneIDs().put("ENTREZ_ID", "" + gene);
+		builder.getAltGeneIDs().put("ENSEMBL_GENE_ID", "ENSG" + (10000000 + gene));
+		builder.setStrand((i % 2 == 0) ? Strand.FWD : Strand.REV);
+		final int beginPos = 1_000_000 + 100_000 * i;
+		final int endPos = beginPos + 2 * NUM_EXONS * EXON_LENGTH;
+		builder.setTXRegion(new GenomeInterval(refDict, Strand.FWD, 1, beginPos, endPos).withStrand(
+			builder.getStrand()));
+		builder.setCDSRegion(builder.getTXRegion());
+		for (int j = 0; j < NUM_EXONS; ++j) {
+			final int exonBeginPos = builder.getTXRegion().getBeginPos() + 2 * j * EXON_LENGTH;
+			builder.addExonRegion(new GenomeInterval(refDict, builder.getStrand(), 1, exonBeginPos,
+				exonBeginPos + EXON_LENGTH));
+		}
+		StringBuilder seq = new StringBuilder();
+		for (int j = 0; j < NUM_EXONS * EXON_LENGTH; ++j)
+			seq.append("ACGT".charAt(rng.nextInt(4)));
+		builder.setSequence(seq.toString());
+		return builder;
+	}
+
+	/**
+	 * @return growth of the live heap for holding the objects created by <code>supplier</code>
+	 */
+	private static long retainedBytes(Supplier<List<?>> supplier) {
+		final long before = liveHeapBytes();
+		final List<?> objects = supplier.get();
+		final long after = liveHeapBytes();
+		// keep objects reachable until after the measurement
+		Assertions.assertEquals(NUM_TRANSCRIPTS, objects.size());
+		return after - before;
+	}
+
+	@Test
+	public void testCompactIsSmaller() {
+		final long plainBytes = retainedBytes(() -> {
+			List<PlainTranscript> result = new ArrayList<>();
+			for (int i = 0; i < NUM_TRANSCRIPTS; ++i) {
+				TranscriptModelBuilder builder = buildTranscript(i);
+				result.add(new PlainTranscript(builder, builder.getTXRegion()));
+			}
+			return result;
+		});
+		final long compactBytes = retainedBytes(() -> {
+			List<TranscriptModel> result = new ArrayList<>();
+			for (int i = 0; i < NUM_TRANSCRIPTS; ++i)
+				result.add(buildTranscript(i).build());
+			return result;
+		});
+
+		Assertions.assertTrue(2 * compactBytes < plainBytes,
+			"Compact transcripts use " + compactBytes + " bytes, plain ones " + plainBytes + " bytes");
+	}
+
+}
@@ -5,6 +5,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.ref.WeakReference;
+
 /**
  * Tests for the {@link TranscriptModel} class.
  *
@@ -58,4 +65,72 @@ public class TranscriptModelTest {
 		Assertions.assertEquals(info, infoReverse);
 	}
 
+	@Test
+	public void testExonAccessors() {
+		for (TranscriptModel info : new TranscriptModel[]{infoForward, infoReverse}) {
+			Assertions.assertEquals(info.getExonRegions().size(), info.getExonCount());
+			int length = 0;
+			for (int i = 0; i < info.getExonCount(); ++i) {
+				GenomeInterval region = info.getExonRegions().get(i);
+				Assertions.assertEquals(info.getStrand(), region.getStrand());
+				Assertions.assertEquals(region.getBeginPos(), info.getExonBeginPos(i));
+				Assertions.assertEquals(region.getEndPos(), info.getExonEndPos(i));
+				length += region.length();
+			}
+			Assertions.assertEquals(length, info.transcriptLength());
+		}
+	}
+
+	@Test
+	public void testSequenceAndAlignment() {
+		builderReverse.setSequence("ACGTNACGT");
+		TranscriptModel info = builderReverse.build();
+		Assertions.assertEquals("ACGTNACGT", info.getSequence());
+		Assertions.assertEquals("ACGTNACGT", info.getTrimmedSequence());
+		Assertions.assertEquals(Alignment.createUngappedAlignment(info.transcriptLength()), info.getSeqAlignment());
+	}
+
+	@Test
+	public void testExpandedTranscriptIsNotPinnedByThread() {
+		builderForward.setSequence("ACGTNACGT");
+		TranscriptModel info = builderForward.build();
+		Assertions.assertEquals("ACGTNACGT", info.getSequence());
+		WeakReference<TranscriptModel> ref = new WeakReference<>(info);
+		info = null;
+
+		for (int i = 0; i < 20 && ref.get() != null; ++i)
+			System.gc();
+		Assertions.assertNull(ref.get());
+	}
+
+	@Test
+	public void testAltGeneIDsAreShared() {
+		builderForward.getAltGeneIDs().put("HGNC_ID", "HGNC:" + 12345);
+		builderForward.getAltGeneIDs().put("ENTREZ_ID", "" + 54321);
+		TranscriptModel info1 = builderForward.build();
+		TranscriptModel info2 = builderForward.build();
+		Assertions.assertEquals("HGNC:12345", info1.getAltGeneIDs().get("HGNC_ID"));
+		Assertions.assertSame(info1.getAltGeneIDs(), info2.getAltGeneIDs());
+	}
+
+	@Test
+	public void testSerialization() throws IOException, ClassNotFoundException {
+		builderForward.setSequence("ACGTNACGT");
+		builderForward.getAltGeneIDs().put("HGNC_ID", "HGNC:12345");
+		TranscriptModel info = builderForward.build();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(info);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			TranscriptModel copy = (TranscriptModel) in.readObject();
+			Assertions.assertEquals(info, copy);
+			Assertions.assertEquals(info.getSequence(), copy.getSequence());
+			Assertions.assertEquals(info.getExonRegions(), copy.getExonRegions());
+			Assertions.assertEquals(info.getSeqAlignment(), copy.getSeqAlignment());
+			Assertions.assertSame(info.getAltGeneIDs(), copy.getAltGeneIDs());
+		}
+	}
+
 }
@@ -0,0 +1,123 @@
+package de.charite.compbio.jannovar.reference;
+
+import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.impl.util.Translator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class TranscriptSequenceCacheTest {
+
+	/**
+	 * this test uses this static hg19 reference dictionary
+	 */
+	static final ReferenceDictionary refDict = HG19RefDictBuilder.build();
+
+	/**
+	 * transcript info for the forward strand
+	 */
+	TranscriptModel infoForward;
+	/**
+	 * transcript info for the reverse strand
+	 */
+	TranscriptModel infoReverse;
+
+	@BeforeEach
+	public void setUp() {
+		this.infoForward = buildWithRandomSequence(
+			"uc001anx.3\tchr1\t+\t6640062\t6649340\t6640669\t6649272\t11"
+				+ "\t6640062,6640600,6642117,6645978,6646754,6647264,6647537,"
+				+ "6648119,6648337,6648815,6648975,\t6640196,6641359,6642359,"
+				+ "6646090,6646847,6647351,6647692,6648256,6648502,6648904,6649340,\tP10074\tuc001anx.3", 1);
+		this.infoReverse = buildWithRandomSequence(
+			"uc001bgu.3\tchr1\t-\t23685940\t23696357\t23688461\t23694498\t4"
+				+ "\t23685940,23693534,23694465,23695858,\t23689714,23693661,23694558,"
+				+ "23696357,\tQ9C0F3\tuc001bgu.3", 2);
+	}
+
+	private static TranscriptModel buildWithRandomSequence(String line, int seed) {
+		TranscriptModelBuilder builder = TranscriptModelFactory.parseKnownGenesLine(refDict, line);
+		builder.setSequence(randomSequence(new Random(seed), builder.build().transcriptLength()));
+		return builder.build();
+	}
+
+	private static String randomSequence(Random rand, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; ++i)
+			builder.append("ACGT".charAt(rand.nextInt(4)));
+		return builder.toString();
+	}
+
+	@Test
+	public void testCDSSequenceAndProtein() {
+		TranscriptSequenceCache.Entry entry = new TranscriptSequenceCache(10).get(infoForward);
+		final String cdsSeq = new TranscriptProjectionDecorator(infoForward).getTranscriptStartingAtCDS();
+		Assertions.assertEquals(cdsSeq, entry.getCDSSequence());
+		Assertions.assertEquals(Translator.getTranslator().translateDNA(cdsSeq, true), entry.getProtein());
+	}
+
+	@Test
+	public void testTranslateVariantCDSMatchesFullTranslation() {
+		final Translator t = Translator.getTranslator();
+		final Random rand = new Random(42);
+		for (TranscriptModel tm : new TranscriptModel[]{infoForward, infoReverse}) {
+			TranscriptSequenceCache.Entry entry = new TranscriptSequenceCache(10).get(tm);
+			final String wtCDSSeq = entry.getCDSSequence();
+			for (int i = 0; i < 2_000; ++i) {
+				final int pos = rand.nextInt(wtCDSSeq.length());
+				final int delLen = Math.min(rand.nextInt(7), wtCDSSeq.length() - pos);
+				// use invalid characters from time to time as they stop the translation
+				String ins = randomSequence(rand, rand.nextInt(7));
+				if (!ins.isEmpty() && rand.nextInt(10) == 0)
+					ins = "R" + ins.substring(1);
+				final String varCDSSeq = wtCDSSeq.substring(0, pos) + ins + wtCDSSeq.substring(pos + delLen);
+				Assertions.assertEquals(t.translateDNA(varCDSSeq, true), entry.translateVariantCDS(pos, pos + delLen, ins),
+					"pos=" + pos + ", delLen=" + delLen + ", ins=" + ins);
+			}
+		}
+	}
+
+	@Test
+	public void testProjectionWithPrecomputedExons() {
+		for (TranscriptModel tm : new TranscriptModel[]{infoForward, infoReverse}) {
+			TranscriptProjectionDecorator plain = new TranscriptProjectionDecorator(tm);
+			TranscriptProjectionDecorator cached = new TranscriptProjectionDecorator(tm,
+				new TranscriptSequenceCache(10).get(tm));
+			Assertions.assertEquals(plain.getTranscriptStartingAtCDS(), cached.getTranscriptStartingAtCDS());
+
+			final GenomeInterval txRegion = tm.getTXRegion();
+			for (int i = txRegion.getBeginPos() - 2; i < txRegion.getEndPos() + 2; ++i) {
+				GenomePosition pos = new GenomePosition(refDict, txRegion.getStrand(), txRegion.getChr(), i);
+				String expected;
+				try {
+					expected = plain.genomeToTranscriptPos(pos).toString();
+				} catch (ProjectionException e) {
+					expected = "error";
+				}
+				String actual;
+				try {
+					actual = cached.genomeToTranscriptPos(pos).toString();
+				} catch (ProjectionException e) {
+					actual = "error";
+				}
+				Assertions.assertEquals(expected, actual, "pos=" + pos);
+			}
+		}
+	}
+
+	@Test
+	public void testCacheReturnsSameEntry() {
+		TranscriptSequenceCache cache = new TranscriptSequenceCache(1);
+		TranscriptSequenceCache.Entry entry = cache.get(infoForward);
+		Assertions.assertSame(entry, cache.get(infoForward));
+		Assertions.assertSame(infoForward, entry.getTranscript());
+
+		cache.get(infoReverse);
+		Assertions.assertTrue(cache.size() <= 1);
+		cache.invalidateAll();
+		Assertions.assertEquals(0, cache.size());
+	}
+
+}
@@ -1,10 +1,13 @@
 package de.charite.compbio.jannovar.reference;
 
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
+import de.charite.compbio.jannovar.impl.util.Translator;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 public class TranscriptSequenceChangeHelperTest {
 
 	/**
@@ -489,4 +492,40 @@ public class TranscriptSequenceChangeHelperTest {
 		Assertions.assertEquals(expectedBuilder.toString(), resultTranscript);
 	}
 
+
+	@Test
+	public void testTranslateCDSWithGenomeVariantMatchesFullTranslation() {
+		final Translator t = Translator.getTranslator();
+		final Random rand = new Random(42);
+		for (TranscriptModel tm : new TranscriptModel[]{infoForward, infoReverse}) {
+			final TranscriptSequenceChangeHelper helper = new TranscriptSequenceChangeHelper(tm);
+			final TranscriptSequenceCache.Entry sequences = new TranscriptSequenceCache(10).get(tm);
+			final GenomeInterval txRegion = tm.getTXRegion().withStrand(Strand.FWD);
+			for (int i = 0; i < 5_000; ++i) {
+				// SNVs, insertions, deletions, and block substitutions, also around the transcript boundaries
+				final int pos = txRegion.getBeginPos() - 10 + rand.nextInt(txRegion.length() + 20);
+				final String ref = randomSequence(rand, rand.nextInt(4) == 0 ? 1 : rand.nextInt(20));
+				final String alt = ref.length() == 1 && rand.nextBoolean()
+					? randomSequence(rand, 1) : randomSequence(rand, rand.nextInt(8));
+				final GenomeVariant change = new GenomeVariant(new GenomePosition(refDict, Strand.FWD, 1, pos,
+					PositionType.ZERO_BASED), ref, alt);
+				if (ref.equals(alt))
+					continue;
+
+				final String varCDSSeq = helper.getCDSWithGenomeVariant(change);
+				Assertions.assertEquals(t.translateDNA(varCDSSeq, true),
+					helper.translateCDSWithGenomeVariant(change, sequences), change.toString());
+				Assertions.assertEquals(varCDSSeq.length() - sequences.getCDSSequence().length(),
+					helper.getCDSLengthChange(change), change.toString());
+			}
+		}
+	}
+
+	private static String randomSequence(Random rand, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; ++i)
+			builder.append("ACGT".charAt(rand.nextInt(4)));
+		return builder.toString();
+	}
+
 }
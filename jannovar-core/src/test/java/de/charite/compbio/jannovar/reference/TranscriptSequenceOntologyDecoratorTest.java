@@ -388,4 +388,85 @@ public class TranscriptSequenceOntologyDecoratorTest {
 			6649341, PositionType.ZERO_BASED)));
 
 	}
+
+	/**
+	 * Check the primitive overloads against the definitions of the regions via {@link GenomeInterval} objects, using
+	 * query intervals on both strands.
+	 */
+	@Test
+	public void testPrimitiveOverloadsMatchIntervalSemantics() {
+		for (TranscriptModel tm : ImmutableList.of(infoForward, infoReverse)) {
+			TranscriptSequenceOntologyDecorator decorator = new TranscriptSequenceOntologyDecorator(tm);
+			final GenomeInterval txRegion = tm.getTXRegion().withStrand(Strand.FWD);
+			for (int pos = txRegion.getBeginPos() - 5_010; pos < txRegion.getEndPos() + 5_010; ++pos) {
+				for (int len = 0; len <= 3; ++len) {
+					for (Strand strand : ImmutableList.of(Strand.FWD, Strand.REV)) {
+						final GenomeInterval itv = new GenomeInterval(refDict, Strand.FWD, 1, pos, pos + len,
+							PositionType.ZERO_BASED).withStrand(strand);
+						final int b = itv.getBeginPos();
+						final int e = itv.getEndPos();
+						final String msg = "itv=" + itv + ", tx=" + tm.getAccession();
+
+						Assertions.assertEquals(itv.overlapsWith(decorator.getUpstreamInterval()),
+							decorator.overlapsWithUpstreamRegion(1, strand, b, e), msg);
+						Assertions.assertEquals(itv.overlapsWith(decorator.getDownstreamInterval()),
+							decorator.overlapsWithDownstreamRegion(1, strand, b, e), msg);
+						Assertions.assertEquals(itv.overlapsWith(decorator.getFivePrimeUTRInterval()),
+							decorator.overlapsWithFivePrimeUTR(1, strand, b, e), msg);
+						Assertions.assertEquals(itv.overlapsWith(decorator.getThreePrimeUTRInterval()),
+							decorator.overlapsWithThreePrimeUTR(1, strand, b, e), msg);
+						Assertions.assertEquals(itv.overlapsWith(decorator.getStartCodonInterval()),
+							decorator.overlapsWithTranslationalStartSite(1, strand, b, e), msg);
+						Assertions.assertEquals(itv.overlapsWith(decorator.getStopCodonInterval()),
+							decorator.overlapsWithTranslationalStopSite(1, strand, b, e), msg);
+						Assertions.assertEquals(itv.overlapsWith(tm.getCDSRegion()),
+							decorator.overlapsWithCDS(1, strand, b, e), msg);
+						Assertions.assertEquals(
+							tm.getExonRegions().stream().anyMatch(exon -> exon.overlapsWith(itv)),
+							decorator.overlapsWithExon(1, strand, b, e), msg);
+						if (len > 0)
+							Assertions.assertEquals(tm.getExonRegions().stream().anyMatch(exon -> exon.contains(itv)),
+								decorator.liesInExon(1, strand, b, e), msg);
+						Assertions.assertEquals(tm.getExonRegions().stream().anyMatch(itv::contains),
+							decorator.containsExon(1, strand, b, e), msg);
+						Assertions.assertEquals(
+							decorator.getThreePrimeUTRExonIntervals().stream().anyMatch(x -> x.overlapsWith(itv)),
+							decorator.overlapsWithThreePrimeUTRExon(1, strand, b, e), msg);
+						Assertions.assertEquals(
+							decorator.getFivePrimeUTRExonIntervals().stream().anyMatch(x -> x.overlapsWith(itv)),
+							decorator.overlapsWithFivePrimeUTRExon(1, strand, b, e), msg);
+
+						if (len > 0) {
+							boolean inIntron = false;
+							for (int i = 0; i + 1 < tm.getExonRegions().size(); ++i)
+								inIntron = inIntron || tm.intronRegion(i).contains(itv);
+							Assertions.assertEquals(inIntron, decorator.liesInIntron(1, strand, b, e), msg);
+						}
+
+						if (len == 1) {
+							final GenomePosition gPos = itv.getGenomeBeginPos();
+							Assertions.assertEquals(itv.overlapsWith(decorator.getStartCodonInterval()),
+								decorator.liesInTranslationalStartSite(1, strand, gPos.getPos()), msg);
+							Assertions.assertEquals(tm.getCDSRegion().contains(gPos),
+								decorator.liesInCDS(1, strand, gPos.getPos()), msg);
+							Assertions.assertEquals(decorator.overlapsWithSpliceDonorSite(1, strand, b, e),
+								decorator.liesInSpliceDonorSite(1, strand, gPos.getPos()), msg);
+							Assertions.assertEquals(decorator.overlapsWithSpliceAcceptorSite(1, strand, b, e),
+								decorator.liesInSpliceAcceptorSite(1, strand, gPos.getPos()), msg);
+							Assertions.assertEquals(decorator.overlapsWithSpliceRegion(1, strand, b, e),
+								decorator.liesInSpliceRegion(1, strand, gPos.getPos()), msg);
+							Assertions.assertEquals(decorator.overlapsWithIntron(1, strand, b, e),
+								decorator.liesInIntron(1, strand, gPos.getPos()), msg);
+						}
+					}
+				}
+			}
+
+			// different chromosome
+			Assertions.assertFalse(decorator.overlapsWithExon(2, tm.getStrand(), txRegion.getBeginPos(),
+				txRegion.getEndPos()));
+			Assertions.assertFalse(decorator.liesInUpstreamRegion(2, tm.getStrand(), txRegion.getBeginPos() - 1));
+		}
+	}
+
 }
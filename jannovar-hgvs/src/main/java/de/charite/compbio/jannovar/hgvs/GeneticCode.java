@@ -0,0 +1,205 @@
+package de.charite.compbio.jannovar.hgvs;
+
+import java.util.Arrays;
+
+/**
+ * Table-driven translation of DNA sequences with a genetic code.
+ * <p>
+ * Each codon is encoded into an index in <code>0..63</code> with two bits per base, in the order <code>T, C, A,
+ * G</code> of the NCBI translation tables. The amino acids are then looked up in a 64-entry table, such that no
+ * substrings or map lookups are needed. The tables are built on class initialization and never modified, so all
+ * functions are thread-safe.
+ * <p>
+ * As in the translation of Jannovar so far, translation stops at the first codon with a character other than
+ * <code>A</code>, <code>C</code>, <code>G</code>, <code>T</code>, and <code>N</code>. Codons with an <code>N</code> are
+ * translated to <code>X</code>, trailing bases not forming a full codon are ignored.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public enum GeneticCode {
+
+	/**
+	 * The standard code (NCBI translation table 1)
+	 */
+	STANDARD("FFLLSSSSYY**CC*WLLLLPPPPHHQQRRRRIIIMTTTTNNKKSSRRVVVVAAAADDEEGGGG"),
+	/**
+	 * The vertebrate mitochondrial code (NCBI translation table 2)
+	 */
+	VERTEBRATE_MITOCHONDRIAL("FFLLSSSSYY**CCWWLLLLPPPPHHQQRRRRIIMMTTTTNNKKSS**VVVVAAAADDEEGGGG");
+
+	/**
+	 * One-letter code of unknown amino acids, for codons with an <code>N</code>
+	 */
+	public static final char UNKNOWN_AA = 'X';
+
+	/**
+	 * Lookup tables shared by the codes, in a nested class as the enum constants are initialized before the static
+	 * fields of the enum
+	 */
+	private static final class Tables {
+
+		/**
+		 * Two-bit code of each base by ASCII character, <code>-1</code> for characters other than <code>ACGT</code>
+		 */
+		static final byte[] BASE_CODES = new byte[128];
+
+		/**
+		 * Three-letter codes of amino acids by ASCII character of the one-letter code, <code>null</code> if unknown
+		 */
+		static final String[] THREE_LETTER_CODES = new String[128];
+
+		static {
+			Arrays.fill(BASE_CODES, (byte) -1);
+			BASE_CODES['T'] = 0;
+			BASE_CODES['C'] = 1;
+			BASE_CODES['A'] = 2;
+			BASE_CODES['G'] = 3;
+
+			final String oneLetter = "ACDEFGHIKLMNOPQRSTUVWY*";
+			final String[] threeLetter = {"Ala", "Cys", "Asp", "Glu", "Phe", "Gly", "His", "Ile", "Lys", "Leu",
+				"Met", "Asn", "Pyl", "Pro", "Gln", "Arg", "Ser", "Thr", "Sec", "Val", "Trp", "Tyr", "*"};
+			for (int i = 0; i < oneLetter.length(); ++i)
+				THREE_LETTER_CODES[oneLetter.charAt(i)] = threeLetter[i];
+		}
+
+	}
+
+	/**
+	 * One-letter amino acid by codon index
+	 */
+	private final char[] aminoAcids;
+
+	/**
+	 * Three-letter amino acid by codon index
+	 */
+	private final String[] aminoAcids3;
+
+	GeneticCode(String aminoAcids) {
+		this.aminoAcids = aminoAcids.toCharArray();
+		this.aminoAcids3 = new String[aminoAcids.length()];
+		for (int i = 0; i < aminoAcids.length(); ++i)
+			this.aminoAcids3[i] = Tables.THREE_LETTER_CODES[aminoAcids.charAt(i)];
+	}
+
+	/**
+	 * @return the genetic code for the given flag, as used by {@link Translator}
+	 */
+	public static GeneticCode forStandardCode(boolean useStandardCode) {
+		return useStandardCode ? STANDARD : VERTEBRATE_MITOCHONDRIAL;
+	}
+
+	/**
+	 * @return two-bit code of the base <code>c</code>, <code>-1</code> for characters other than <code>ACGT</code>
+	 */
+	private static int getBaseCode(int c) {
+		return (c >= 0 && c < Tables.BASE_CODES.length) ? Tables.BASE_CODES[c] : -1;
+	}
+
+	/**
+	 * @return index of the codon <code>b1 b2 b3</code> in <code>0..63</code>, <code>-1</code> if any of the bases is
+	 * not one of <code>ACGT</code>
+	 */
+	public static int getCodonIndex(int b1, int b2, int b3) {
+		final int c1 = getBaseCode(b1);
+		final int c2 = getBaseCode(b2);
+		final int c3 = getBaseCode(b3);
+		if ((c1 | c2 | c3) < 0)
+			return -1;
+		return (c1 << 4) | (c2 << 2) | c3;
+	}
+
+	/**
+	 * @param codonIndex codon index as returned by {@link #getCodonIndex}
+	 * @return one-letter code of the amino acid, <code>*</code> for stop codons
+	 */
+	public char getAminoAcid(int codonIndex) {
+		return aminoAcids[codonIndex];
+	}
+
+	/**
+	 * @param codonIndex codon index as returned by {@link #getCodonIndex}
+	 * @return three-letter code of the amino acid, <code>*</code> for stop codons
+	 */
+	public String getAminoAcid3(int codonIndex) {
+		return aminoAcids3[codonIndex];
+	}
+
+	/**
+	 * @param aa one-letter code of an amino acid or <code>*</code>
+	 * @return three-letter code of <code>aa</code>, <code>null</code> if unknown
+	 */
+	public static String toThreeLetterCode(char aa) {
+		return (aa < Tables.THREE_LETTER_CODES.length) ? Tables.THREE_LETTER_CODES[aa] : null;
+	}
+
+	/**
+	 * @param dna the upper-case DNA sequence to translate
+	 * @return the amino acid sequence in one-letter code
+	 */
+	public String translate(CharSequence dna) {
+		final int len = dna.length() - dna.length() % 3;
+		final char[] result = new char[len / 3];
+		int n = 0;
+		for (int i = 0; i < len; i += 3) {
+			final char b1 = dna.charAt(i);
+			final char b2 = dna.charAt(i + 1);
+			final char b3 = dna.charAt(i + 2);
+			final int codon = getCodonIndex(b1, b2, b3);
+			if (codon >= 0)
+				result[n++] = aminoAcids[codon];
+			else if (b1 == 'N' || b2 == 'N' || b3 == 'N')
+				result[n++] = UNKNOWN_AA;
+			else
+				break; // stop translation
+		}
+		return new String(result, 0, n);
+	}
+
+	/**
+	 * @param dna the upper-case DNA sequence to translate
+	 * @return the amino acid sequence in three-letter code
+	 */
+	public String translate3(CharSequence dna) {
+		final int len = dna.length() - dna.length() % 3;
+		final StringBuilder result = new StringBuilder(len);
+		for (int i = 0; i < len; i += 3) {
+			final char b1 = dna.charAt(i);
+			final char b2 = dna.charAt(i + 1);
+			final char b3 = dna.charAt(i + 2);
+			final int codon = getCodonIndex(b1, b2, b3);
+			if (codon >= 0)
+				result.append(aminoAcids3[codon]);
+			else if (b1 == 'N' || b2 == 'N' || b3 == 'N')
+				result.append(UNKNOWN_AA);
+			else
+				break; // stop translation
+		}
+		return result.toString();
+	}
+
+	/**
+	 * @param dna   buffer with the upper-case DNA sequence in ASCII
+	 * @param begin begin position of the sequence in <code>dna</code>
+	 * @param end   end position of the sequence in <code>dna</code>
+	 * @return the amino acid sequence in one-letter code, in ASCII
+	 */
+	public byte[] translate(byte[] dna, int begin, int end) {
+		final int len = (end - begin) - (end - begin) % 3;
+		final byte[] result = new byte[len / 3];
+		int n = 0;
+		for (int i = begin; i < begin + len; i += 3) {
+			final byte b1 = dna[i];
+			final byte b2 = dna[i + 1];
+			final byte b3 = dna[i + 2];
+			final int codon = getCodonIndex(b1, b2, b3);
+			if (codon >= 0)
+				result[n++] = (byte) aminoAcids[codon];
+			else if (b1 == 'N' || b2 == 'N' || b3 == 'N')
+				result[n++] = UNKNOWN_AA;
+			else
+				break; // stop translation
+		}
+		return (n == result.length) ? result : Arrays.copyOf(result, n);
+	}
+
+}
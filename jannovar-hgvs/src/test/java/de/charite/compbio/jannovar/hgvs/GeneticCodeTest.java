@@ -0,0 +1,69 @@
+package de.charite.compbio.jannovar.hgvs;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link GeneticCode}
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class GeneticCodeTest {
+
+	@Test
+	public void testCodonIndex() {
+		Assertions.assertEquals(0, GeneticCode.getCodonIndex('T', 'T', 'T'));
+		Assertions.assertEquals(14, GeneticCode.getCodonIndex('T', 'G', 'A'));
+		Assertions.assertEquals(35, GeneticCode.getCodonIndex('A', 'T', 'G'));
+		Assertions.assertEquals(63, GeneticCode.getCodonIndex('G', 'G', 'G'));
+		Assertions.assertEquals(-1, GeneticCode.getCodonIndex('A', 'N', 'G'));
+		Assertions.assertEquals(-1, GeneticCode.getCodonIndex('a', 'T', 'G'));
+		Assertions.assertEquals(-1, GeneticCode.getCodonIndex('A', 'T', 0x100 + 'G'));
+	}
+
+	@Test
+	public void testTranslateStandard() {
+		Assertions.assertEquals("M*S", GeneticCode.STANDARD.translate("ATGTAGAGT"));
+		Assertions.assertEquals("MetTrp*", GeneticCode.STANDARD.translate3("ATGTGGTGA"));
+		Assertions.assertEquals("R", GeneticCode.STANDARD.translate("AGA"));
+	}
+
+	@Test
+	public void testTranslateMitochondrial() {
+		Assertions.assertEquals("W*S", GeneticCode.VERTEBRATE_MITOCHONDRIAL.translate("TGATAGAGT"));
+		Assertions.assertEquals("Met**", GeneticCode.VERTEBRATE_MITOCHONDRIAL.translate3("ATAAGAAGG"));
+	}
+
+	@Test
+	public void testTranslateAmbiguous() {
+		Assertions.assertEquals("MXS", GeneticCode.STANDARD.translate("ATGANTAGTA"));
+		Assertions.assertEquals("MetXSer", GeneticCode.STANDARD.translate3("ATGANTAGTA"));
+		// translation stops at other characters
+		Assertions.assertEquals("M", GeneticCode.STANDARD.translate("ATGAcTAGT"));
+		Assertions.assertEquals("Met", GeneticCode.STANDARD.translate3("ATGAcTAGT"));
+	}
+
+	@Test
+	public void testTranslateBytes() {
+		final byte[] dna = "xxATGANTAGTTAGcATGyy".getBytes(StandardCharsets.US_ASCII);
+		for (GeneticCode code : GeneticCode.values())
+			for (int begin = 0; begin < dna.length; ++begin)
+				for (int end = begin; end <= dna.length; ++end) {
+					final String expected = code.translate(new String(dna, begin, end - begin, StandardCharsets.US_ASCII));
+					Assertions.assertEquals(expected,
+						new String(code.translate(dna, begin, end), StandardCharsets.US_ASCII));
+				}
+	}
+
+	@Test
+	public void testToThreeLetterCode() {
+		Assertions.assertEquals("Ala", GeneticCode.toThreeLetterCode('A'));
+		Assertions.assertEquals("Sec", GeneticCode.toThreeLetterCode('U'));
+		Assertions.assertEquals("*", GeneticCode.toThreeLetterCode('*'));
+		Assertions.assertNull(GeneticCode.toThreeLetterCode('X'));
+		Assertions.assertNull(GeneticCode.toThreeLetterCode('Ä'));
+	}
+
+}
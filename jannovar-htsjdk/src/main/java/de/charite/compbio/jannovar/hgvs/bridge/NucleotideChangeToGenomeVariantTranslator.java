@@ -7,6 +7,7 @@ import de.charite.compbio.jannovar.hgvs.SequenceType;
 import de.charite.compbio.jannovar.hgvs.nts.change.*;
 import de.charite.compbio.jannovar.hgvs.nts.variant.SingleAlleleNucleotideVariant;
 import de.charite.compbio.jannovar.htsjdk.GenomeRegionSequenceExtractor;
+import de.charite.compbio.jannovar.impl.util.ReferenceSequenceCache;
 import de.charite.compbio.jannovar.reference.GenomeVariant;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
@@ -39,6 +40,11 @@ public class NucleotideChangeToGenomeVariantTranslator {
 		this.seqExtractor = new GenomeRegionSequenceExtractor(jvDB, indexedFasta);
 	}
 
+	public NucleotideChangeToGenomeVariantTranslator(JannovarData jvDB, ReferenceSequenceCache reference) {
+		this.jvDB = jvDB;
+		this.seqExtractor = new GenomeRegionSequenceExtractor(jvDB, reference);
+	}
+
 	/**
 	 * Shortcut to {@link #translateNucleotideVariantToGenomeVariant(SingleAlleleNucleotideVariant, boolean)} with
 	 * using
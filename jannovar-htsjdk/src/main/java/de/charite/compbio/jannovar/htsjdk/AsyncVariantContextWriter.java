@@ -0,0 +1,280 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.tribble.SimpleFeature;
+import htsjdk.tribble.index.Index;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFHeader;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * {@link VariantContextWriter} that hands the records to a writer thread through a bounded queue.
+ * <p>
+ * Encoding the records as VCF text (through the wrapped writer) happens on the writer thread, such that
+ * {@link #add(VariantContext)} only blocks if the queue is full. If the wrapped writer writes to a
+ * {@link ParallelBlockCompressedOutputStream}, the BGZF compression runs on further threads, and a tabix index can be
+ * built on the fly. The records must then be sorted by coordinate.
+ * <p>
+ * Problems on the writer thread are reported by the next call to {@link #add(VariantContext)} or {@link #close()}.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class AsyncVariantContextWriter implements VariantContextWriter {
+
+	/**
+	 * Default capacity of the record queue
+	 */
+	public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+	/**
+	 * Marker for the end of the records in {@link #queue}
+	 */
+	private static final QueueItem END_OF_RECORDS = new QueueItem(null);
+
+	/**
+	 * The writer that performs the encoding, only used on {@link #writerThread} after the header has been written
+	 */
+	private final VariantContextWriter delegate;
+
+	/**
+	 * The BGZF stream that {@link #delegate} writes to, <code>null</code> if not block-compressed
+	 */
+	private final ParallelBlockCompressedOutputStream bgzfStream;
+
+	/**
+	 * Index creator, <code>null</code> if no index is to be written
+	 */
+	private final TabixIndexCreator indexCreator;
+
+	/**
+	 * Path to write the index to
+	 */
+	private final File indexFile;
+
+	/**
+	 * Records whose block address is not known yet, for building the index
+	 */
+	private final ArrayDeque<PendingFeature> pendingFeatures = new ArrayDeque<>();
+
+	/**
+	 * Records to be written, followed by {@link #END_OF_RECORDS}
+	 */
+	private final BlockingQueue<QueueItem> queue;
+
+	/**
+	 * Thread running {@link #writeRecords()}
+	 */
+	private final Thread writerThread;
+
+	/**
+	 * First problem on {@link #writerThread}, if any
+	 */
+	private volatile Throwable error = null;
+
+	/**
+	 * Whether or not {@link #close()} has been called
+	 */
+	private boolean closed = false;
+
+	/**
+	 * Construct without index creation.
+	 *
+	 * @param delegate   the writer to use for encoding the records, the header must be written before the first
+	 *                   record is added
+	 * @param bgzfStream the stream that <code>delegate</code> writes to, if block-compressed, <code>null</code>
+	 *                   otherwise
+	 * @param queueSize  capacity of the record queue
+	 */
+	public AsyncVariantContextWriter(VariantContextWriter delegate, ParallelBlockCompressedOutputStream bgzfStream,
+									 int queueSize) {
+		this(delegate, bgzfStream, queueSize, null, null);
+	}
+
+	/**
+	 * Construct with optional index creation.
+	 *
+	 * @param delegate     the writer to use for encoding the records, the header must be written before the first
+	 *                     record is added
+	 * @param bgzfStream   the stream that <code>delegate</code> writes to, if block-compressed, <code>null</code>
+	 *                     otherwise
+	 * @param queueSize    capacity of the record queue
+	 * @param indexCreator index creator to feed with the records, <code>null</code> for no index, requires
+	 *                     <code>bgzfStream</code>
+	 * @param indexFile    path to write the index to on {@link #close()}
+	 */
+	public AsyncVariantContextWriter(VariantContextWriter delegate, ParallelBlockCompressedOutputStream bgzfStream,
+									 int queueSize, TabixIndexCreator indexCreator, File indexFile) {
+		if (indexCreator != null && (bgzfStream == null || indexFile == null))
+			throw new IllegalArgumentException("Index creation requires block-compressed output and index path");
+		this.delegate = delegate;
+		this.bgzfStream = bgzfStream;
+		this.indexCreator = indexCreator;
+		this.indexFile = indexFile;
+		this.queue = new ArrayBlockingQueue<>(queueSize);
+		if (indexCreator != null)
+			bgzfStream.setBlockListener(this::indexBlock);
+
+		this.writerThread = new Thread(this::writeRecords, "vcf-writer");
+		this.writerThread.setDaemon(true);
+		this.writerThread.start();
+	}
+
+	@Override
+	public void writeHeader(VCFHeader header) {
+		delegate.writeHeader(header);
+	}
+
+	@Override
+	public void setHeader(VCFHeader header) {
+		delegate.setHeader(header);
+	}
+
+	@Override
+	public void add(VariantContext vc) {
+		checkForError();
+		try {
+			queue.put(new QueueItem(vc));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedJannovarException("Interrupted while queueing record for writing", e);
+		}
+	}
+
+	@Override
+	public boolean checkError() {
+		return error != null;
+	}
+
+	/**
+	 * Wait for all records to be written, close the wrapped writer, and write out the index, if any.
+	 */
+	@Override
+	public void close() {
+		if (closed)
+			return;
+		closed = true;
+
+		try {
+			queue.put(END_OF_RECORDS);
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedJannovarException("Interrupted while waiting for VCF writer thread", e);
+		}
+
+		Index index = null;
+		if (error == null && indexCreator != null) {
+			try {
+				bgzfStream.flush();
+				index = indexCreator.finalizeIndex(bgzfStream.getFilePointer());
+			} catch (IOException | RuntimeException e) {
+				error = e;
+			}
+		}
+		delegate.close();
+		checkForError();
+
+		if (index != null) {
+			try {
+				index.write(indexFile.toPath());
+			} catch (IOException e) {
+				throw new RuntimeIOException("Problem writing index to " + indexFile, e);
+			}
+		}
+	}
+
+	/**
+	 * Throw an exception if there was a problem on {@link #writerThread}.
+	 */
+	private void checkForError() {
+		final Throwable t = error;
+		if (t == null)
+			return;
+		else if (t instanceof RuntimeException)
+			throw (RuntimeException) t;
+		else if (t instanceof Error)
+			throw (Error) t;
+		else
+			throw new UncheckedJannovarException("Problem writing VCF records", t);
+	}
+
+	/**
+	 * Main loop of {@link #writerThread}, records are discarded after an error to not block the producer.
+	 */
+	private void writeRecords() {
+		while (true) {
+			final QueueItem item;
+			try {
+				item = queue.take();
+			} catch (InterruptedException e) {
+				error = e;
+				return;
+			}
+			if (item == END_OF_RECORDS)
+				return;
+			if (error != null)
+				continue;
+
+			final VariantContext vc = item.vc;
+			try {
+				if (indexCreator != null)
+					pendingFeatures.add(new PendingFeature(vc, bgzfStream.getBlockNumber(),
+						bgzfStream.getBlockOffset()));
+				delegate.add(vc);
+			} catch (RuntimeException | Error e) {
+				error = e;
+			}
+		}
+	}
+
+	/**
+	 * Pass records in block <code>blockNumber</code> to the index creator, now that the block address is known.
+	 */
+	private void indexBlock(long blockNumber, long blockAddress) {
+		while (!pendingFeatures.isEmpty() && pendingFeatures.peek().blockNumber == blockNumber) {
+			final PendingFeature pending = pendingFeatures.remove();
+			indexCreator.addFeature(pending.feature,
+				BlockCompressedFilePointerUtil.makeFilePointer(blockAddress, pending.blockOffset));
+		}
+	}
+
+	/**
+	 * Wrapper for records in {@link #queue}, such that the end can be marked with {@link #END_OF_RECORDS}.
+	 */
+	private static final class QueueItem {
+
+		final VariantContext vc;
+
+		QueueItem(VariantContext vc) {
+			this.vc = vc;
+		}
+
+	}
+
+	/**
+	 * Record position for the index, before the block address is known.
+	 */
+	private static final class PendingFeature {
+
+		final SimpleFeature feature;
+		final long blockNumber;
+		final int blockOffset;
+
+		PendingFeature(VariantContext vc, long blockNumber, int blockOffset) {
+			this.feature = new SimpleFeature(vc.getContig(), vc.getStart(), vc.getEnd());
+			this.blockNumber = blockNumber;
+			this.blockOffset = blockOffset;
+		}
+
+	}
+
+}
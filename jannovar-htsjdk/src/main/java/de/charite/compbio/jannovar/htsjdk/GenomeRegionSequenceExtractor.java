@@ -2,14 +2,19 @@ package de.charite.compbio.jannovar.htsjdk;
 
 import de.charite.compbio.jannovar.UncheckedJannovarException;
 import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.impl.util.ReferenceSequenceCache;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.Strand;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.reference.IndexedFastaSequenceFile;
 import htsjdk.samtools.reference.ReferenceSequence;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * Extract sequence for a {@link GenomeInterval} from a {@link IndexedFastaSequenceFile}.
+ * Extract sequence for a {@link GenomeInterval} from a {@link IndexedFastaSequenceFile} or through a
+ * {@link ReferenceSequenceCache}.
  *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
@@ -20,14 +25,19 @@ public class GenomeRegionSequenceExtractor {
 	 */
 	final JannovarData jannovarData;
 	/**
-	 * object to load sequences from
+	 * object to load sequences from, <code>null</code> if {@link #reference} is used
 	 */
 	IndexedFastaSequenceFile indexedFile;
+	/**
+	 * cache to load sequences through, <code>null</code> if {@link #indexedFile} is used
+	 */
+	final ReferenceSequenceCache reference;
 
 	public GenomeRegionSequenceExtractor(JannovarData jannovarData, IndexedFastaSequenceFile indexedFile) {
 		super();
 		this.jannovarData = jannovarData;
 		this.indexedFile = indexedFile;
+		this.reference = null;
 		if (this.indexedFile.getSequenceDictionary() == null) {
 			throw new UncheckedJannovarException(
 				"FASTA file has no sequence dictionary. Are you missing the REFERENCE.dict file? "
@@ -36,15 +46,28 @@ public class GenomeRegionSequenceExtractor {
 	}
 
 	/**
-	 * Load sequence from the given <code>region</code> from {@link #indexedFile}
+	 * Construct with a {@link ReferenceSequenceCache}, the contig names are taken from the FAI file, so no sequence
+	 * dictionary is needed.
+	 */
+	public GenomeRegionSequenceExtractor(JannovarData jannovarData, ReferenceSequenceCache reference) {
+		super();
+		this.jannovarData = jannovarData;
+		this.indexedFile = null;
+		this.reference = reference;
+	}
+
+	/**
+	 * Load sequence from the given <code>region</code> from the FASTA file
 	 *
 	 * @param region {@link GenomeInterval} to load sequence for
-	 * @return String with the selected sequenced loaded from {@link #indexedFile}.
+	 * @return String with the selected sequenced loaded from the FASTA file.
 	 */
 	public String load(GenomeInterval region) {
 		region = region.withStrand(Strand.FWD);
 		String contigName = region.getRefDict().getContigIDToName().get(region.getChr());
 		contigName = mapContigToFasta(contigName);
+		if (reference != null)
+			return reference.getString(contigName, region.getBeginPos(), region.getEndPos());
 		ReferenceSequence seq = indexedFile.getSubsequenceAt(contigName, region.getBeginPos() + 1, region.getEndPos());
 		return new String(seq.getBases());
 	}
@@ -59,9 +82,8 @@ public class GenomeRegionSequenceExtractor {
 			throw new UncheckedJannovarException("Unknown contig name " + contigName);
 		// Try to find matching contig in fasta
 		String nameInFasta = null;
-		for (SAMSequenceRecord record : indexedFile.getSequenceDictionary().getSequences()) {
-			if (jannovarData.getRefDict().getContigNameToID().containsKey(record.getSequenceName())) {
-				String contigInFasta = record.getSequenceName();
+		for (String contigInFasta : getFastaContigNames()) {
+			if (jannovarData.getRefDict().getContigNameToID().containsKey(contigInFasta)) {
 				if (jannovarData.getRefDict().getContigNameToID().get(contigInFasta) == contigID) {
 					nameInFasta = contigInFasta;
 					break;
@@ -75,4 +97,16 @@ public class GenomeRegionSequenceExtractor {
 		return nameInFasta;
 	}
 
+	/**
+	 * @return names of the contigs in the FASTA file
+	 */
+	private List<String> getFastaContigNames() {
+		if (reference != null)
+			return reference.getContigNames();
+		final List<String> result = new ArrayList<>();
+		for (SAMSequenceRecord record : indexedFile.getSequenceDictionary().getSequences())
+			result.add(record.getSequenceName());
+		return result;
+	}
+
 }
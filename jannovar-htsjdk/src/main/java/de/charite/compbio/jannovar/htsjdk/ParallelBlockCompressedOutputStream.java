@@ -0,0 +1,333 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import de.charite.compbio.jannovar.UncheckedJannovarException;
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * {@link OutputStream} writing BGZF (block gzip) that compresses the blocks on a pool of threads.
+ * <p>
+ * The output has the same format as the one of htsjdk's <code>BlockCompressedOutputStream</code>: blocks of at most
+ * {@link BlockCompressedStreamConstants#DEFAULT_UNCOMPRESSED_BLOCK_SIZE} bytes, each compressed on its own and
+ * followed by the empty EOF block. Full blocks are compressed by the worker threads, as <code>bgzip -@</code> does,
+ * and written to the underlying stream in order on the thread that calls the <code>write</code> functions.
+ * <p>
+ * The address of a block in the output is only known once all blocks before it have been compressed. Because of
+ * this, the current position is available as block number and offset ({@link #getBlockNumber()},
+ * {@link #getBlockOffset()}), and a {@link BlockListener} is notified of the address of each block once it has been
+ * written. This allows building an index (e.g., tabix) while writing.
+ * <p>
+ * This class is not thread-safe, all calls must be made from the same thread (or be properly synchronized).
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class ParallelBlockCompressedOutputStream extends OutputStream {
+
+	/**
+	 * Receives the addresses of the blocks once written.
+	 */
+	public interface BlockListener {
+
+		/**
+		 * Called after a block has been written to the underlying stream.
+		 *
+		 * @param blockNumber  0-based number of the block
+		 * @param blockAddress offset of the block in the compressed output
+		 */
+		void blockWritten(long blockNumber, long blockAddress);
+
+	}
+
+	/**
+	 * Size of the BGZF block header, including the extra field with the block size
+	 */
+	private static final int HEADER_LENGTH = BlockCompressedStreamConstants.BLOCK_HEADER_LENGTH;
+
+	/**
+	 * Size of the BGZF block footer (CRC32 and uncompressed size)
+	 */
+	private static final int FOOTER_LENGTH = BlockCompressedStreamConstants.BLOCK_FOOTER_LENGTH;
+
+	/**
+	 * Maximal size of the compressed data in a block
+	 */
+	private static final int MAX_DEFLATED_LENGTH = BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE
+		- HEADER_LENGTH - FOOTER_LENGTH;
+
+	/**
+	 * The stream to write the compressed blocks to
+	 */
+	private final OutputStream out;
+
+	/**
+	 * Compression level for the {@link Deflater}s
+	 */
+	private final int compressionLevel;
+
+	/**
+	 * Compressor threads
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Maximal number of blocks that are submitted but not written yet
+	 */
+	private final int maxBlocksInFlight;
+
+	/**
+	 * Submitted blocks not written yet, in output order
+	 */
+	private final ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+
+	/**
+	 * {@link Deflater} of the current compressor thread, using {@link #compressionLevel}
+	 */
+	private final ThreadLocal<Deflater> deflater;
+
+	/**
+	 * {@link Deflater} of the current compressor thread without compression, for blocks that do not shrink
+	 */
+	private final ThreadLocal<Deflater> noCompressionDeflater;
+
+	/**
+	 * Uncompressed data of the current block
+	 */
+	private byte[] buffer = new byte[BlockCompressedStreamConstants.DEFAULT_UNCOMPRESSED_BLOCK_SIZE];
+
+	/**
+	 * Number of bytes in {@link #buffer}
+	 */
+	private int numBuffered = 0;
+
+	/**
+	 * Number of blocks submitted for compression so far, the number of the current block
+	 */
+	private long numBlocksSubmitted = 0;
+
+	/**
+	 * Number of blocks written to {@link #out}
+	 */
+	private long numBlocksWritten = 0;
+
+	/**
+	 * Number of compressed bytes written to {@link #out}
+	 */
+	private long address = 0;
+
+	/**
+	 * Notified of written blocks, if any
+	 */
+	private BlockListener blockListener = null;
+
+	/**
+	 * Whether or not {@link #close()} has been called
+	 */
+	private boolean closed = false;
+
+	/**
+	 * Construct with the given number of compressor threads.
+	 *
+	 * @param out              the stream to write the compressed output to, closed on {@link #close()}
+	 * @param threads          number of compressor threads
+	 * @param compressionLevel compression level (0-9) to use
+	 */
+	public ParallelBlockCompressedOutputStream(OutputStream out, int threads, int compressionLevel) {
+		if (threads < 1)
+			throw new IllegalArgumentException("Number of threads must be at least 1 but was " + threads);
+		this.out = out;
+		this.compressionLevel = compressionLevel;
+		this.maxBlocksInFlight = 2 * threads;
+		this.deflater = ThreadLocal.withInitial(() -> new Deflater(this.compressionLevel, true));
+		this.noCompressionDeflater = ThreadLocal.withInitial(() -> new Deflater(Deflater.NO_COMPRESSION, true));
+
+		final AtomicInteger threadNo = new AtomicInteger(0);
+		this.executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread thread = new Thread(r, "bgzf-compressor-" + threadNo.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @param blockListener notified of each written block, <code>null</code> for none
+	 */
+	public void setBlockListener(BlockListener blockListener) {
+		this.blockListener = blockListener;
+	}
+
+	/**
+	 * @return 0-based number of the block that the next byte will be written to
+	 */
+	public long getBlockNumber() {
+		return numBlocksSubmitted;
+	}
+
+	/**
+	 * @return offset in the uncompressed data of the current block that the next byte will be written to
+	 */
+	public int getBlockOffset() {
+		return numBuffered;
+	}
+
+	/**
+	 * Return virtual file pointer of the next byte, only possible if all previous blocks have been written.
+	 *
+	 * @return BGZF virtual file pointer of the next byte, see {@link BlockCompressedFilePointerUtil}
+	 * @throws IllegalStateException if blocks are pending, call {@link #flush()} first
+	 */
+	public long getFilePointer() {
+		if (!inFlight.isEmpty())
+			throw new IllegalStateException("Blocks are pending, cannot compute file pointer");
+		return BlockCompressedFilePointerUtil.makeFilePointer(address, numBuffered);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		buffer[numBuffered++] = (byte) b;
+		if (numBuffered == buffer.length)
+			submitBlock();
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			final int n = Math.min(len, buffer.length - numBuffered);
+			System.arraycopy(b, off, buffer, numBuffered, n);
+			numBuffered += n;
+			off += n;
+			len -= n;
+			if (numBuffered == buffer.length)
+				submitBlock();
+		}
+	}
+
+	/**
+	 * Compress the current block (even if not full) and write out all pending blocks.
+	 * <p>
+	 * As with htsjdk's <code>BlockCompressedOutputStream</code>, this creates a short block, so only call this when
+	 * necessary.
+	 */
+	@Override
+	public void flush() throws IOException {
+		if (numBuffered > 0)
+			submitBlock();
+		while (!inFlight.isEmpty())
+			writeBlock(inFlight.remove());
+		out.flush();
+	}
+
+	/**
+	 * Write out all data, the EOF block, and close the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			flush();
+			out.write(BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK);
+			out.close();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Submit {@link #buffer} for compression and write out the blocks that are done.
+	 */
+	private void submitBlock() throws IOException {
+		final byte[] data = buffer;
+		final int length = numBuffered;
+		inFlight.add(executor.submit(() -> compressBlock(data, length)));
+		buffer = new byte[buffer.length];
+		numBuffered = 0;
+		++numBlocksSubmitted;
+
+		while (!inFlight.isEmpty() && (inFlight.size() >= maxBlocksInFlight || inFlight.peek().isDone()))
+			writeBlock(inFlight.remove());
+	}
+
+	/**
+	 * Wait for <code>future</code> and write out the block.
+	 */
+	private void writeBlock(Future<byte[]> future) throws IOException {
+		final byte[] block;
+		try {
+			block = future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedJannovarException("Interrupted while waiting for block compression", e);
+		} catch (ExecutionException e) {
+			throw new UncheckedJannovarException("Problem compressing block", e.getCause());
+		}
+
+		out.write(block);
+		if (blockListener != null)
+			blockListener.blockWritten(numBlocksWritten, address);
+		++numBlocksWritten;
+		address += block.length;
+	}
+
+	/**
+	 * Compress the first <code>length</code> bytes of <code>data</code> into a complete BGZF block.
+	 */
+	private byte[] compressBlock(byte[] data, int length) {
+		final byte[] result = new byte[BlockCompressedStreamConstants.MAX_COMPRESSED_BLOCK_SIZE];
+		int deflatedLength = deflate(deflater.get(), data, length, result);
+		if (deflatedLength < 0) // did not fit, store without compression
+			deflatedLength = deflate(noCompressionDeflater.get(), data, length, result);
+		if (deflatedLength < 0)
+			throw new IllegalStateException("Could not fit block of " + length + " bytes into BGZF block");
+
+		final CRC32 crc32 = new CRC32();
+		crc32.update(data, 0, length);
+		final int blockLength = HEADER_LENGTH + deflatedLength + FOOTER_LENGTH;
+
+		// BGZF header: gzip header with the "BC" extra field holding the block size minus one
+		System.arraycopy(BlockCompressedStreamConstants.GZIP_BLOCK_PREAMBLE, 0, result, 0,
+			BlockCompressedStreamConstants.GZIP_BLOCK_PREAMBLE.length);
+		writeInt16(result, BlockCompressedStreamConstants.GZIP_BLOCK_PREAMBLE.length, blockLength - 1);
+
+		// gzip footer: CRC32 and uncompressed length
+		writeInt32(result, HEADER_LENGTH + deflatedLength, (int) crc32.getValue());
+		writeInt32(result, HEADER_LENGTH + deflatedLength + 4, length);
+		return Arrays.copyOf(result, blockLength);
+	}
+
+	/**
+	 * Deflate <code>data</code> into <code>result</code> after the BGZF header.
+	 *
+	 * @return number of compressed bytes, -1 if they did not fit into the block
+	 */
+	private static int deflate(Deflater deflater, byte[] data, int length, byte[] result) {
+		deflater.reset();
+		deflater.setInput(data, 0, length);
+		deflater.finish();
+		final int deflatedLength = deflater.deflate(result, HEADER_LENGTH, MAX_DEFLATED_LENGTH);
+		return deflater.finished() ? deflatedLength : -1;
+	}
+
+	private static void writeInt16(byte[] buf, int offset, int value) {
+		buf[offset] = (byte) (value & 0xff);
+		buf[offset + 1] = (byte) ((value >> 8) & 0xff);
+	}
+
+	private static void writeInt32(byte[] buf, int offset, int value) {
+		writeInt16(buf, offset, value & 0xffff);
+		writeInt16(buf, offset + 2, (value >> 16) & 0xffff);
+	}
+
+}
@@ -0,0 +1,193 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import htsjdk.samtools.util.CloseableIterator;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answer overlap queries against a coordinate-sorted, indexed file by streaming through it in lockstep with sorted
+ * queries.
+ * <p>
+ * Calling {@code query()} on an indexed reader for every record to annotate seeks and decompresses the BGZF blocks
+ * around each record again. For queries sorted by begin position, this class instead opens one stream from the
+ * first query position to the end of the contig and keeps a sliding window of the records that may overlap the
+ * current and later queries. The stream is only reopened at the query position (i.e., random access through the
+ * index) when the contig changes, the begin position decreases (unsorted input), or more than {@code maxGap}
+ * positions would have to be skipped. Thus, unsorted queries give the same results, just without the speedup.
+ * <p>
+ * The overlap semantics are given by an {@link OverlapPredicate} that must match the one of the underlying reader,
+ * so the results are the same as from querying the reader directly.
+ * <p>
+ * Objects of this class are not thread-safe.
+ *
+ * @param <T> type of the records
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public final class StreamingOverlapQuery<T> implements Closeable {
+
+	/**
+	 * Default number of positions up to which to skip records instead of reopening the stream
+	 */
+	public static final int DEFAULT_MAX_GAP = 100_000;
+
+	/**
+	 * Open streams of records from a position to the end of a contig.
+	 *
+	 * @param <T> type of the records
+	 */
+	@FunctionalInterface
+	public interface Source<T> {
+
+		/**
+		 * @param contig   name of the contig to stream
+		 * @param beginPos begin position of the first query, as passed to {@link #query}
+		 * @return iterator over all records that might overlap {@code beginPos} or any later position on
+		 * {@code contig}, sorted by begin position
+		 */
+		CloseableIterator<T> openStream(String contig, int beginPos);
+
+	}
+
+	/**
+	 * Overlap test between a record and a query.
+	 *
+	 * @param <T> type of the records
+	 */
+	@FunctionalInterface
+	public interface OverlapPredicate<T> {
+
+		/**
+		 * Note that {@link Integer#MIN_VALUE} and {@link Integer#MAX_VALUE} are passed for open-ended queries.
+		 *
+		 * @param record   the record to test
+		 * @param beginPos begin position of the query
+		 * @param endPos   end position of the query
+		 * @return whether {@code record} overlaps with the query
+		 */
+		boolean overlaps(T record, int beginPos, int endPos);
+
+	}
+
+	/**
+	 * Source of the record streams
+	 */
+	private final Source<T> source;
+	/**
+	 * Overlap semantics of the source
+	 */
+	private final OverlapPredicate<T> predicate;
+	/**
+	 * Number of positions up to which to skip records instead of reopening the stream
+	 */
+	private final int maxGap;
+
+	/**
+	 * Contig of the current stream, <code>null</code> if none
+	 */
+	private String contig;
+	/**
+	 * Begin position of the last query
+	 */
+	private int lastBeginPos;
+	/**
+	 * Current stream
+	 */
+	private CloseableIterator<T> stream;
+	/**
+	 * First record from {@link #stream} that has not been added to {@link #window} yet, <code>null</code> if none
+	 */
+	private T pending;
+	/**
+	 * Records that may overlap with the current and later queries, sorted by begin position
+	 */
+	private final ArrayDeque<T> window = new ArrayDeque<>();
+	/**
+	 * Number of times that a stream was opened
+	 */
+	private int numStreamsOpened;
+
+	/**
+	 * Construct with {@link #DEFAULT_MAX_GAP}.
+	 *
+	 * @param source    source of the record streams
+	 * @param predicate overlap semantics of <code>source</code>
+	 */
+	public StreamingOverlapQuery(Source<T> source, OverlapPredicate<T> predicate) {
+		this(source, predicate, DEFAULT_MAX_GAP);
+	}
+
+	/**
+	 * @param source    source of the record streams
+	 * @param predicate overlap semantics of <code>source</code>
+	 * @param maxGap    number of positions up to which to skip records instead of reopening the stream
+	 */
+	public StreamingOverlapQuery(Source<T> source, OverlapPredicate<T> predicate, int maxGap) {
+		this.source = source;
+		this.predicate = predicate;
+		this.maxGap = maxGap;
+	}
+
+	/**
+	 * Query for records overlapping with the given region.
+	 *
+	 * @param contig   name of the contig
+	 * @param beginPos begin position of the query
+	 * @param endPos   end position of the query
+	 * @return records overlapping with the query according to the {@link OverlapPredicate}, in the order of the
+	 * {@link Source}
+	 */
+	public List<T> query(String contig, int beginPos, int endPos) {
+		if (stream == null || !contig.equals(this.contig) || beginPos < lastBeginPos ||
+			(pending != null && predicate.overlaps(pending, Integer.MIN_VALUE, beginPos - maxGap)))
+			openStream(contig, beginPos);
+		lastBeginPos = beginPos;
+
+		// Drop records that cannot overlap with this or any later query.
+		window.removeIf(record -> !predicate.overlaps(record, beginPos, Integer.MAX_VALUE));
+		// Advance stream to the first record beginning after the query.
+		while (pending != null && predicate.overlaps(pending, Integer.MIN_VALUE, endPos)) {
+			if (predicate.overlaps(pending, beginPos, Integer.MAX_VALUE))
+				window.add(pending);
+			pending = stream.hasNext() ? stream.next() : null;
+		}
+
+		List<T> result = new ArrayList<>();
+		for (T record : window)
+			if (predicate.overlaps(record, beginPos, endPos))
+				result.add(record);
+		return result;
+	}
+
+	/**
+	 * @return number of times that a stream was opened, i.e., the number of random accesses
+	 */
+	public int getNumStreamsOpened() {
+		return numStreamsOpened;
+	}
+
+	@Override
+	public void close() {
+		if (stream != null) {
+			stream.close();
+			stream = null;
+		}
+		contig = null;
+		pending = null;
+		window.clear();
+	}
+
+	/**
+	 * Reopen stream at the given position, discarding the current window.
+	 */
+	private void openStream(String contig, int beginPos) {
+		close();
+		this.contig = contig;
+		this.stream = source.openStream(contig, beginPos);
+		this.pending = stream.hasNext() ? stream.next() : null;
+		++numStreamsOpened;
+	}
+
+}
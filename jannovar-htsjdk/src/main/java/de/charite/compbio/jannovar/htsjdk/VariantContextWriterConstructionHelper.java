@@ -3,6 +3,11 @@ package de.charite.compbio.jannovar.htsjdk;
 import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.annotation.Annotation;
 import de.charite.compbio.jannovar.annotation.SVAnnotation;
+import htsjdk.samtools.util.BlockCompressedOutputStream;
+import htsjdk.samtools.util.FileExtensions;
+import htsjdk.samtools.util.RuntimeIOException;
+import htsjdk.tribble.index.tabix.TabixFormat;
+import htsjdk.tribble.index.tabix.TabixIndexCreator;
 import htsjdk.variant.variantcontext.writer.Options;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
@@ -12,7 +17,10 @@ import htsjdk.variant.vcf.VCFHeaderLineType;
 import htsjdk.variant.vcf.VCFInfoHeaderLine;
 import htsjdk.variant.vcf.VCFHeaderLineCount;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.util.Collection;
 
@@ -49,6 +57,28 @@ public final class VariantContextWriterConstructionHelper {
 		return out;
 	}
 
+	/**
+	 * Return a new {@link VariantContextWriter} that writes only the records, using the header from
+	 * <code>reader</code> extended through {@link #extendHeaderFields}.
+	 * <p>
+	 * The output is meant to be appended to the header written by
+	 * {@link #openVariantContextWriter(VCFHeader, OutputStream, Collection)}, e.g., when annotating shards of a file
+	 * independently.
+	 *
+	 * @param header    the VCF header to use for the construction
+	 * @param outStream {@link OutputStream} to write to
+	 * @return A correct writer for variantContexts
+	 */
+	public static VariantContextWriter openHeaderlessVariantContextWriter(VCFHeader header, OutputStream outStream) {
+		VariantContextWriterBuilder builder = makeBuilder(header);
+		builder.unsetOption(Options.INDEX_ON_THE_FLY);
+		builder.setOutputStream(outStream);
+
+		VariantContextWriter out = builder.build();
+		out.setHeader(extendHeaderFields(new VCFHeader(header)));
+		return out;
+	}
+
 	/**
 	 * Return a new {@link VariantContextWriter} that uses the header from <code>reader</code> but has the header
 	 * extended header through {@link #extendHeaderFields}.
@@ -89,6 +119,59 @@ public final class VariantContextWriterConstructionHelper {
 		return out;
 	}
 
+	/**
+	 * Return a new {@link AsyncVariantContextWriter} that uses the header from <code>reader</code> but has the header
+	 * extended header through {@link #extendHeaderFields}.
+	 * <p>
+	 * The records are encoded on a separate writer thread. If <code>fileName</code> ends in <code>.gz</code> or
+	 * <code>.bgz</code> then the output is block-compressed by <code>compressionThreads</code> threads using
+	 * {@link ParallelBlockCompressedOutputStream}. In this case, a tabix index can be written next to the file, which
+	 * requires the records to be added in sorted order.
+	 *
+	 * @param header                the VCF header to use for the construction
+	 * @param fileName              path to output file
+	 * @param additionalHeaderLines additional {@link VCFHeaderLine}s to add
+	 * @param compressionThreads    number of threads to use for block compression
+	 * @param generateIndex         whether or not to generate a tabix index at <code>fileName + ".tbi"</code>
+	 * @return A correct writer for variantContexts
+	 * @throws IllegalArgumentException if an index is to be generated for output that is not block-compressed
+	 */
+	public static VariantContextWriter openAsyncVariantContextWriter(VCFHeader header, String fileName,
+																	 Collection<VCFHeaderLine> additionalHeaderLines,
+																	 int compressionThreads, boolean generateIndex) {
+		final boolean compress = fileName.endsWith(".gz") || fileName.endsWith(".bgz");
+		if (generateIndex && !compress)
+			throw new IllegalArgumentException("Tabix index requires block-compressed output but was " + fileName);
+
+		final FileOutputStream fileStream;
+		try {
+			fileStream = new FileOutputStream(fileName);
+		} catch (FileNotFoundException e) {
+			throw new RuntimeIOException("Could not open " + fileName + " for writing", e);
+		}
+		ParallelBlockCompressedOutputStream bgzfStream = null;
+		final OutputStream outStream;
+		if (compress) {
+			bgzfStream = new ParallelBlockCompressedOutputStream(fileStream, compressionThreads,
+				BlockCompressedOutputStream.getDefaultCompressionLevel());
+			outStream = bgzfStream;
+		} else {
+			outStream = new BufferedOutputStream(fileStream);
+		}
+
+		final VariantContextWriter out = openVariantContextWriter(header, outStream, additionalHeaderLines);
+		if (!generateIndex)
+			return new AsyncVariantContextWriter(out, bgzfStream, AsyncVariantContextWriter.DEFAULT_QUEUE_SIZE);
+
+		final TabixIndexCreator indexCreator;
+		if (header.getSequenceDictionary() != null)
+			indexCreator = new TabixIndexCreator(header.getSequenceDictionary(), TabixFormat.VCF);
+		else
+			indexCreator = new TabixIndexCreator(TabixFormat.VCF);
+		return new AsyncVariantContextWriter(out, bgzfStream, AsyncVariantContextWriter.DEFAULT_QUEUE_SIZE,
+			indexCreator, new File(fileName + FileExtensions.TABIX_INDEX));
+	}
+
 	/**
 	 * Common parts of {@link VariantContextWriterBuilder} creation for the openVariantContextWriter functions.
 	 */
@@ -14,7 +14,6 @@ import htsjdk.variant.variantcontext.VariantContextBuilder;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * Helper class for annotating one {@link VariantContext} or a
@@ -182,12 +181,12 @@ public class VariantContextMendelianAnnotator {
 	public ImmutableMap<ModeOfInheritance, ImmutableList<VariantContext>> computeCompatibleInheritanceModes(
 		List<VariantContext> vcs)
 		throws CannotAnnotateMendelianInheritance {
-		// Perform annotation, preceded by building GenotypeCalls list
-		List<GenotypeCalls> gcs = buildGenotypeCalls(vcs);
-		List<GenotypeCalls> recessiveGCs = buildRecessiveGenotypeCalls(vcs);
+		// Perform annotation, preceded by building the genotype matrices
+		final GenotypeMatrix matrix = buildGenotypeMatrix(vcs);
+		final GenotypeMatrix recessiveMatrix = matrix.selectRows(selectRecessiveRows(vcs));
 		ImmutableMap<ModeOfInheritance, ImmutableList<GenotypeCalls>> checkResult;
 		try {
-			checkResult = mendelChecker.checkMendelianInheritance(gcs, recessiveGCs);
+			checkResult = mendelChecker.checkMendelianInheritance(matrix, recessiveMatrix);
 		} catch (IncompatiblePedigreeException e) {
 			throw new CannotAnnotateMendelianInheritance(
 				"Problem with annotating VariantContext for Mendelian inheritance.",
@@ -221,12 +220,12 @@ public class VariantContextMendelianAnnotator {
 	public ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>> computeCompatibleInheritanceSubModes(
 		List<VariantContext> vcs)
 		throws CannotAnnotateMendelianInheritance {
-		// Perform annotation, preceded by building GenotypeCalls list
-		List<GenotypeCalls> gcs = buildGenotypeCalls(vcs);
-		List<GenotypeCalls> recessiveGCs = buildRecessiveGenotypeCalls(vcs);
+		// Perform annotation, preceded by building the genotype matrices
+		final GenotypeMatrix matrix = buildGenotypeMatrix(vcs);
+		final GenotypeMatrix recessiveMatrix = matrix.selectRows(selectRecessiveRows(vcs));
 		ImmutableMap<SubModeOfInheritance, ImmutableList<GenotypeCalls>> checkResult;
 		try {
-			checkResult = mendelChecker.checkMendelianInheritanceSub(gcs, recessiveGCs);
+			checkResult = mendelChecker.checkMendelianInheritanceSub(matrix, recessiveMatrix);
 		} catch (IncompatiblePedigreeException e) {
 			throw new CannotAnnotateMendelianInheritance(
 				"Problem with annotating VariantContext for Mendelian inheritance.",
@@ -248,80 +247,90 @@ public class VariantContextMendelianAnnotator {
 	}
 
 	/**
-	 * Convert a {@link List} of {@link VariantContext} objects into a list of
-	 * {@link GenotypeCalls} objects
+	 * Convert a {@link List} of {@link VariantContext} objects into a {@link GenotypeMatrix}
 	 *
-	 * @param vcs input {@link Collection} of {@link VariantContext} objects
-	 * @return {@link List} of corresponding {@link GenotypeCalls} objects
+	 * @param vcs input {@link List} of {@link VariantContext} objects
+	 * @return {@link GenotypeMatrix} with one row for each element of <code>vcs</code>, with the index in
+	 * <code>vcs</code> as the payload
 	 */
-	private List<GenotypeCalls> buildGenotypeCalls(
-		Collection<VariantContext> vcs) {
-		ArrayList<GenotypeCalls> result = new ArrayList<>();
-
+	private GenotypeMatrix buildGenotypeMatrix(List<VariantContext> vcs) {
 		// Somewhat hacky but working inclusion of X and mitochondrial genomes
 		final ImmutableList<String> xNames =
 			ImmutableList.of("x", "X", "23", "chrx", "chrX", "chr23");
 		final ImmutableList<String> mtNames = ImmutableList.of("m", "M", "mt",
 			"MT", "chrm", "chrM", "chrmt", "chrMT");
 
-		int i = 0;
-		for (VariantContext vc : vcs) {
-			GenotypeCallsBuilder builder = new GenotypeCallsBuilder();
-			builder.setPayload(i++);
-
+		// The columns are the samples of all records, usually the samples of the VCF file
+		final LinkedHashSet<String> sampleNames = new LinkedHashSet<>();
+		for (VariantContext vc : vcs)
+			sampleNames.addAll(vc.getSampleNames());
+		final GenotypeMatrixBuilder builder = new GenotypeMatrixBuilder(ImmutableList.copyOf(sampleNames));
+		final ImmutableList<String> columnNames = builder.getSampleNames();
+		final Map<String, Integer> columns = new HashMap<>();
+		for (int i = 0; i < columnNames.size(); ++i)
+			columns.put(columnNames.get(i), i);
+
+		final byte[] rowCodes = new byte[columnNames.size()];
+		for (int i = 0; i < vcs.size(); ++i) {
+			final VariantContext vc = vcs.get(i);
+
+			final ChromosomeType chromType;
 			if (xNames.contains(vc.getContig()))
-				builder.setChromType(ChromosomeType.X_CHROMOSOMAL);
+				chromType = ChromosomeType.X_CHROMOSOMAL;
 			else if (mtNames.contains(vc.getContig()))
-				builder.setChromType(ChromosomeType.MITOCHONDRIAL);
+				chromType = ChromosomeType.MITOCHONDRIAL;
 			else
-				builder.setChromType(ChromosomeType.AUTOSOMAL);
+				chromType = ChromosomeType.AUTOSOMAL;
 
+			Arrays.fill(rowCodes, GenotypeMatrix.NOT_OBSERVED);
+			int k = 0;
 			for (Genotype gt : vc.getGenotypes()) {
-				List<String> gtFilters = new ArrayList<String>();
-				if (gt.getFilters() != null)
-					gtFilters.addAll(Arrays.asList(gt.getFilters().split(";")));
-
-				boolean isFiltered = false;
-				if (gt.isHet()) {
-					if (interpretGenotypeFilters && isFiltered(gtFilters,
-						GT_FILTERS, GT_FILTERS_HET))
-						isFiltered = true;
-				} else if (gt.isHomRef()) {
-					if (interpretGenotypeFilters && isFiltered(gtFilters,
-						GT_FILTERS, GT_FILTERS_HOM_REF))
-						isFiltered = true;
-				} else { // hom-alt or two overlapping hets, treated the same
-					// for filtration
-					if (interpretGenotypeFilters && isFiltered(gtFilters,
-						GT_FILTERS, GT_FILTERS_HOM_ALT))
-						isFiltered = true;
-				}
-
-				GenotypeBuilder gtBuilder = new GenotypeBuilder();
-				for (Allele allele : gt.getAlleles()) {
-					if (isFiltered) {
-						gtBuilder.getAlleleNumbers().add(
-							de.charite.compbio.jannovar.mendel.Genotype.NO_CALL);
-					} else {
-						final int aIDX = vc.getAlleleIndex(allele);
-						gtBuilder.getAlleleNumbers().add(aIDX);
-					}
-				}
-				builder.getSampleToGenotype().put(gt.getSampleName(),
-					gtBuilder.build());
+				// samples are usually in the same order for all records
+				final int column = (k < columnNames.size() && columnNames.get(k).equals(gt.getSampleName())) ? k
+					: columns.get(gt.getSampleName());
+				rowCodes[column] = encodeGenotype(vc, gt);
+				++k;
 			}
+			builder.addRow(chromType, rowCodes, i);
+		}
 
-			result.add(builder.build());
+		return builder.build();
+	}
+
+	/**
+	 * @return genotype code of <code>gt</code>, see {@link GenotypeMatrix#encode(int...)}, genotypes removed by
+	 * genotype filters are not observed
+	 */
+	private byte encodeGenotype(VariantContext vc, Genotype gt) {
+		if (interpretGenotypeFilters) {
+			List<String> gtFilters = new ArrayList<String>();
+			if (gt.getFilters() != null)
+				gtFilters.addAll(Arrays.asList(gt.getFilters().split(";")));
+
+			final boolean isFiltered;
+			if (gt.isHet())
+				isFiltered = isFiltered(gtFilters, GT_FILTERS, GT_FILTERS_HET);
+			else if (gt.isHomRef())
+				isFiltered = isFiltered(gtFilters, GT_FILTERS, GT_FILTERS_HOM_REF);
+			else // hom-alt or two overlapping hets, treated the same for filtration
+				isFiltered = isFiltered(gtFilters, GT_FILTERS, GT_FILTERS_HOM_ALT);
+			if (isFiltered)
+				return GenotypeMatrix.NOT_OBSERVED;
 		}
 
-		return result;
+		final List<Allele> alleles = gt.getAlleles();
+		final int[] alleleNumbers = new int[alleles.size()];
+		for (int i = 0; i < alleleNumbers.length; ++i)
+			alleleNumbers[i] = vc.getAlleleIndex(alleles.get(i));
+		return GenotypeMatrix.encode(alleleNumbers);
 	}
 
 	/**
-	 * Build and return List of GenotypeCalls object filtered with recessive
-	 * filter settings.
+	 * Select records to use for the recessive modes of inheritance with the recessive filter settings.
+	 *
+	 * @return indices of the selected records in <code>vcs</code>
 	 */
-	List<GenotypeCalls> buildRecessiveGenotypeCalls(List<VariantContext> vcs) {
+	BitSet selectRecessiveRows(List<VariantContext> vcs) {
 		// TODO: filter for synonymous variant currently broken if annotating
 		// with all variants... :(
 		final String synonymous =
@@ -340,8 +349,11 @@ public class VariantContextMendelianAnnotator {
 			keepFreqRecessive = vc -> true;
 		}
 
-		return buildGenotypeCalls(vcs.stream().filter(keepFreqRecessive)
-			.collect(Collectors.toList()));
+		final BitSet result = new BitSet(vcs.size());
+		for (int i = 0; i < vcs.size(); ++i)
+			if (keepFreqRecessive.test(vcs.get(i)))
+				result.set(i);
+		return result;
 	}
 
 	/**
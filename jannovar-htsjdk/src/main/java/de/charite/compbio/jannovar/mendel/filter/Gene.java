@@ -1,35 +1,42 @@
 package de.charite.compbio.jannovar.mendel.filter;
 
 import com.google.common.collect.ImmutableList;
+import de.charite.compbio.jannovar.data.GeneIndex;
+import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
-import de.charite.compbio.jannovar.reference.Strand;
 import de.charite.compbio.jannovar.reference.TranscriptModel;
 
 /**
- * Simple representation of a gene.
+ * Simple representation of a gene, an entry of the {@link GeneIndex} of a {@link JannovarData}.
  * <p>
  * Genes are identified by their name, {@link #equals} and {@link #hashCode} only consider the field {@link #name}!
  */
 class Gene {
 	private final String name;
-	private final ImmutableList<TranscriptModel> transcripts;
+	private final JannovarData jannovarData;
+	private final int number;
 	private final ReferenceDictionary refDict;
 	private final GenomeInterval region;
 
-	public Gene(ReferenceDictionary refDict, String name, ImmutableList<TranscriptModel> transcripts) {
-		this.refDict = refDict;
-		this.name = name;
-		this.transcripts = transcripts;
-		this.region = buildGeneRegion();
+	public Gene(JannovarData jannovarData, int number) {
+		final GeneIndex geneIndex = jannovarData.getGeneIndex();
+		this.jannovarData = jannovarData;
+		this.number = number;
+		this.refDict = jannovarData.getRefDict();
+		this.name = geneIndex.getGeneSymbol(number);
+		this.region = geneIndex.getRegion(refDict, number);
 	}
 
 	public String getName() {
 		return name;
 	}
 
+	/**
+	 * @return the transcripts of the gene, looked up in the {@link GeneIndex} on each call
+	 */
 	public ImmutableList<TranscriptModel> getTranscripts() {
-		return transcripts;
+		return jannovarData.getGeneIndex().getTranscripts(jannovarData, number);
 	}
 
 	public ReferenceDictionary getRefDict() {
@@ -40,30 +47,6 @@ class Gene {
 		return region;
 	}
 
-	/**
-	 * @return {@link GenomeInterval} of this gene (smallest begin and largest end position of all transcripts).
-	 */
-	private GenomeInterval buildGeneRegion() {
-		if (transcripts.isEmpty())
-			return null;
-
-		GenomeInterval region = transcripts.get(0).getTXRegion().withStrand(Strand.FWD);
-		for (TranscriptModel tm : transcripts)
-			region = mergeRegions(region, tm.getTXRegion());
-		return region;
-	}
-
-	/**
-	 * @return {@link GenomeInterval} from the smaller begin to the larger end position of <code>lhs</code> and
-	 * <code>rhs</code>.
-	 */
-	private GenomeInterval mergeRegions(GenomeInterval lhs, GenomeInterval rhs) {
-		lhs = lhs.withStrand(Strand.FWD);
-		rhs = rhs.withStrand(Strand.FWD);
-		return new GenomeInterval(lhs.getGenomeBeginPos().getRefDict(), Strand.FWD, lhs.getGenomeBeginPos().getChr(), Math.min(
-			lhs.getBeginPos(), rhs.getBeginPos()), Math.max(lhs.getEndPos(), rhs.getEndPos()));
-	}
-
 	@Override
 	public String toString() {
 		return this.name + "(" + this.region + ")";
@@ -2,7 +2,9 @@ package de.charite.compbio.jannovar.mendel.filter;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.data.GeneIndex;
+import de.charite.compbio.jannovar.data.JannovarData;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -10,8 +12,11 @@ import java.util.Map;
 
 /**
  * List of genes, accessible through an interval tree.
+ * <p>
+ * The list is immutable after construction and can be shared by multiple {@link GeneWiseMendelianAnnotationProcessor}
+ * objects, e.g., when annotating shards of a VCF file in parallel.
  */
-class GeneList {
+public class GeneList {
 
 	/**
 	 * overall gene list
@@ -20,22 +25,68 @@ class GeneList {
 	/**
 	 * map from numeric chromosome id to interval tree of genes
 	 */
-	private final ImmutableMap<Integer, IntervalArray<Gene>> gIntervalTree;
+	private final ImmutableMap<Integer, IntervalIndex<Gene>> gIntervalTree;
 
-	public GeneList(ImmutableList<Gene> genes) {
+	GeneList(ImmutableList<Gene> genes) {
 		this.genes = genes;
 		this.gIntervalTree = buildIntervalTree();
 	}
 
-	public ImmutableList<Gene> getGenes() {
+	/**
+	 * Build {@link GeneList} from the {@link GeneIndex} of a {@link JannovarData}, in which the transcripts are
+	 * grouped by gene symbol.
+	 * <p>
+	 * The {@link GeneIndex} is stored in the database file, such that the transcripts need not be grouped again.
+	 *
+	 * @param jannovarDB data base to use for building gene list
+	 * @return list of genes, built from <code>jannovarDB</code>.
+	 */
+	public static GeneList build(JannovarData jannovarDB) {
+		final GeneIndex geneIndex = jannovarDB.getGeneIndex();
+		ImmutableList.Builder<Gene> builder = new ImmutableList.Builder<Gene>();
+		for (int i = 0; i < geneIndex.size(); ++i)
+			builder.add(new Gene(jannovarDB, i));
+		return new GeneList(builder.build());
+	}
+
+	ImmutableList<Gene> getGenes() {
 		return genes;
 	}
 
-	public ImmutableMap<Integer, IntervalArray<Gene>> getGeneIntervalTree() {
+	ImmutableMap<Integer, IntervalIndex<Gene>> getGeneIntervalTree() {
 		return gIntervalTree;
 	}
 
-	private ImmutableMap<Integer, IntervalArray<Gene>> buildIntervalTree() {
+	/**
+	 * Find the first position at or right of <code>pos</code> that does not lie within a gene.
+	 * <p>
+	 * A position <code>pos</code> lies within a gene if the gene begins left of it and ends right of it, i.e., if
+	 * splitting the contig between <code>pos - 1</code> and <code>pos</code> would split the gene.
+	 *
+	 * @param chr numeric contig ID
+	 * @param pos zero-based position on the contig
+	 * @return smallest position <code>&gt;= pos</code> such that no gene starts left and ends right of it
+	 */
+	public int getGeneFreePosition(int chr, int pos) {
+		final IntervalIndex<Gene> tree = gIntervalTree.get(chr);
+		if (tree == null)
+			return pos;
+
+		final ArrayList<Gene> overlapping = new ArrayList<>();
+		while (pos > 0) {
+			overlapping.clear();
+			tree.findOverlappingWithPoint(pos - 1, overlapping);
+			int end = pos;
+			for (Gene gene : overlapping)
+				end = Math.max(end, gene.getRegion().getEndPos());
+			if (end == pos)
+				return pos;
+			pos = end;
+		}
+		return pos;
+	}
+
+	private ImmutableMap<Integer, IntervalIndex<Gene>> buildIntervalTree() {
 		HashMap<Integer, ArrayList<Gene>> chrToGene = new HashMap<Integer, ArrayList<Gene>>();
 		for (Gene gene : genes) {
 			if (!chrToGene.containsKey(gene.getRegion().getChr()))
@@ -43,9 +94,9 @@ class GeneList {
 			chrToGene.get(gene.getRegion().getChr()).add(gene);
 		}
 
-		ImmutableMap.Builder<Integer, IntervalArray<Gene>> builder = new ImmutableMap.Builder<Integer, IntervalArray<Gene>>();
+		ImmutableMap.Builder<Integer, IntervalIndex<Gene>> builder = new ImmutableMap.Builder<Integer, IntervalIndex<Gene>>();
 		for (Map.Entry<Integer, ArrayList<Gene>> entry : chrToGene.entrySet())
-			builder.put(entry.getKey(), new IntervalArray<Gene>(entry.getValue(), new GeneIntervalEndExtractor()));
+			builder.put(entry.getKey(), new IntervalIndex<Gene>(entry.getValue(), new GeneIntervalEndExtractor()));
 		return builder.build();
 	}
 
@@ -3,11 +3,9 @@ package de.charite.compbio.jannovar.mendel.filter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import de.charite.compbio.jannovar.UncheckedJannovarException;
-import de.charite.compbio.jannovar.data.Chromosome;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.ReferenceDictionary;
-import de.charite.compbio.jannovar.impl.intervals.Interval;
-import de.charite.compbio.jannovar.impl.intervals.IntervalArray;
+import de.charite.compbio.jannovar.impl.intervals.IntervalIndex;
 import de.charite.compbio.jannovar.mendel.IncompatiblePedigreeException;
 import de.charite.compbio.jannovar.mendel.SubModeOfInheritance;
 import de.charite.compbio.jannovar.mendel.bridge.CannotAnnotateMendelianInheritance;
@@ -16,7 +14,6 @@ import de.charite.compbio.jannovar.mendel.bridge.VariantContextMendelianAnnotato
 import de.charite.compbio.jannovar.pedigree.Pedigree;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.Strand;
-import de.charite.compbio.jannovar.reference.TranscriptModel;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.vcf.VCFHeader;
@@ -74,17 +71,31 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	/**
 	 * Currently active genes and variants assigned to them.
 	 */
-	HashMap<Gene, ArrayList<VariantContext>> activeGenes = new HashMap<>();
+	HashMap<Gene, ArrayList<VariantContextCounter>> activeGenes = new HashMap<>();
 	/**
-	 * Currently buffered variants.
+	 * The keys of {@link #activeGenes}, ordered by contig and end position, such that the genes left of the current
+	 * position can be retired from the head.
 	 */
-	HashMap<VariantContext, VariantContextCounter> activeVariants = new HashMap<>();
+	PriorityQueue<Gene> activeGenesByEnd = new PriorityQueue<>(
+		Comparator.comparingInt((Gene gene) -> gene.getRegion().getChr())
+			.thenComparingInt(gene -> gene.getRegion().getEndPos())
+			.thenComparing(Gene::getName));
+	/**
+	 * Currently buffered variants, in the order they were put into the processor. The counter of each variant is the
+	 * number of active genes it is assigned to.
+	 */
+	ArrayDeque<VariantContextCounter> activeVariants = new ArrayDeque<>();
 
 	/**
 	 * List of genes, indexed by interval tree
 	 */
 	private final GeneList geneList;
 
+	/**
+	 * Buffer for the genes overlapping with the current variant, reused for each query.
+	 */
+	private final ArrayList<Gene> overlappingGenes = new ArrayList<>();
+
 	/**
 	 * Construct processor with the path to the PED file to use
 	 *
@@ -95,6 +106,21 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	 */
 	public GeneWiseMendelianAnnotationProcessor(Pedigree pedigree, JannovarData jannovarData,
 												Consumer<VariantContext> sink, boolean interpretFilters) {
+		this(pedigree, jannovarData, GeneList.build(jannovarData), sink, interpretFilters);
+	}
+
+	/**
+	 * Construct processor with a {@link GeneList} that was built from <code>jannovarData</code> before, such that
+	 * multiple processors can share it
+	 *
+	 * @param pedigree         the {@link Pedigree} object to use
+	 * @param jannovarData     {@link JannovarData} object to use for getting the genes from
+	 * @param geneList         the genes of <code>jannovarData</code>, as built by {@link GeneList#build}
+	 * @param sink             location to write the {@link VariantContext} to
+	 * @param interpretFilters whether or not to interpret genotype- or variant-wise filters
+	 */
+	public GeneWiseMendelianAnnotationProcessor(Pedigree pedigree, JannovarData jannovarData, GeneList geneList,
+												Consumer<VariantContext> sink, boolean interpretFilters) {
 		this.pedigree = pedigree;
 		this.jannovarData = jannovarData;
 		this.sink = sink;
@@ -102,7 +128,7 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		this.interpretGenotypeFilters = interpretFilters;
 		this.interpretVariantFilters = interpretFilters;
 
-		this.geneList = buildGeneList(this.jannovarData);
+		this.geneList = geneList;
 		this.annotator = new VariantContextMendelianAnnotator(this.pedigree, interpretGenotypeFilters,
 			interpretVariantFilters);
 
@@ -116,6 +142,8 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		// Map contig name to number of yet unknown
 		if (contigInfoProvider.getCurrentContig() == null
 			|| !contigInfoProvider.getCurrentContig().equals(vc.getContig())) {
+			// The contigs need not be in the order of the reference dictionary, retire all genes of the previous one
+			markDoneGenes(-1, -1);
 			contigInfoProvider.registerContig(vc.getContig());
 		} else {
 			// Contig already known, check that variants are sorted by contig
@@ -129,7 +157,7 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		final ReferenceDictionary refDict = jannovarData.getRefDict();
 		// The contig name may not be known to the
 		Optional<Integer> contigID = Optional.ofNullable(refDict.getContigNameToID().get(vc.getContig()));
-		Optional<IntervalArray<Gene>> iTree = contigID.map(x -> geneList.getGeneIntervalTree().get(x));
+		Optional<IntervalIndex<Gene>> iTree = contigID.map(x -> geneList.getGeneIntervalTree().get(x));
 		// Unknown contig or contig with annotation, simply write out
 		if (!iTree.isPresent()) {
 			LOGGER.trace("Unknown contig or contig without annotation in " + vc.getContig()
@@ -140,25 +168,22 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 		}
 
 		// Consider this variant for each affected gene
-		Optional<GenomeInterval> changeInterval = contigID
-			.map(x -> new GenomeInterval(refDict, Strand.FWD, x, vc.getStart() - 1, vc.getEnd()));
-		Optional<IntervalArray<Gene>.QueryResult> qr = Optional.empty();
-		if (changeInterval.isPresent()) {
-			if (changeInterval.get().length() == 0)
-				qr = iTree.map(x -> x.findOverlappingWithPoint(changeInterval.get().getBeginPos()));
-			else
-				qr = iTree.map(x -> x.findOverlappingWithInterval(changeInterval.get().getBeginPos(),
-					changeInterval.get().getEndPos()));
-		}
+		final GenomeInterval changeInterval = new GenomeInterval(refDict, Strand.FWD, contigID.get(),
+			vc.getStart() - 1, vc.getEnd());
+		overlappingGenes.clear();
+		if (changeInterval.length() == 0)
+			iTree.get().findOverlappingWithPoint(changeInterval.getBeginPos(), overlappingGenes);
+		else
+			iTree.get().findOverlappingWithInterval(changeInterval.getBeginPos(), changeInterval.getEndPos(),
+				overlappingGenes);
 
-		if (qr.isPresent()) {
-			if (qr.get().getEntries().isEmpty()) {
-				putVariantForGene(vc, null);
-			} else {
-				for (Gene gene : qr.get().getEntries())
-					if (isGeneAffectedByChange(gene, vc))
-						putVariantForGene(vc, gene);
-			}
+		if (overlappingGenes.isEmpty()) {
+			putVariantForGene(vc, null, null);
+		} else {
+			VariantContextCounter counter = null;
+			for (Gene gene : overlappingGenes)
+				if (isGeneAffectedByChange(gene, vc))
+					counter = putVariantForGene(vc, counter, gene);
 		}
 
 		// Write out all variants left of variant. If contig ID not known then write out everything currently in cache
@@ -206,38 +231,22 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	}
 
 	/**
-	 * Build {@link GeneList} to be used in the filter.
-	 *
-	 * @param jannovarDB data base to use for building gene list
-	 * @return list of genes, built from <code>jannovarDB</code>.
-	 */
-	private static GeneList buildGeneList(JannovarData jannovarDB) {
-		// create one GeneBuilder for each gene, collect all transcripts for the gene
-		HashMap<String, GeneBuilder> geneMap = new HashMap<String, GeneBuilder>();
-		for (Chromosome chrom : jannovarDB.getChromosomes().values())
-			for (Interval<TranscriptModel> itv : chrom.getTMIntervalTree().getIntervals()) {
-				TranscriptModel tm = itv.getValue();
-				if (!geneMap.containsKey(tm.getGeneSymbol()))
-					geneMap.put(tm.getGeneSymbol(), new GeneBuilder(jannovarDB.getRefDict(), tm.getGeneSymbol()));
-				geneMap.get(tm.getGeneSymbol()).addTranscriptModel(tm);
-			}
-
-		// construct GeneList from geneMap
-		ImmutableList.Builder<Gene> builder = new ImmutableList.Builder<Gene>();
-		for (GeneBuilder gene : geneMap.values())
-			builder.add(gene.build());
-		return new GeneList(builder.build());
-	}
-
-	/**
-	 * Register {@link FlaggedVariant} as active for the given gene.
+	 * Register {@link VariantContext} as active for the given gene.
 	 *
+	 * @param vc      the variant to register
+	 * @param counter the counter of <code>vc</code> if it was already registered for another gene, <code>null</code>
+	 *                otherwise
+	 * @param gene    the gene to register <code>vc</code> for, <code>null</code> for variants outside of genes
+	 * @return the counter of <code>vc</code>
 	 * @throws UncheckedJannovarException on problems with annotation of the variant
 	 */
-	private void putVariantForGene(VariantContext vc, Gene gene) {
+	private VariantContextCounter putVariantForGene(VariantContext vc, VariantContextCounter counter, Gene gene) {
 		LOGGER.trace("Assigning variant {} to gene {}", new Object[]{vc, gene});
 		// Register VariantContext as active
-		activeVariants.computeIfAbsent(vc, x -> new VariantContextCounter(x, 0));
+		if (counter == null) {
+			counter = new VariantContextCounter(vc);
+			activeVariants.add(counter);
+		}
 
 		if (gene == null) {
 			// Compute modes of inheritance on its own, don't assign to any gene, just marked as active
@@ -246,42 +255,45 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 			} catch (CannotAnnotateMendelianInheritance e) {
 				throw new UncheckedJannovarException("Problem with mendelian variant annotation in variant context", e);
 			}
-			return;
+			return counter;
 		}
 
-		activeVariants.get(vc).increment();
+		counter.increment();
 		// Register VariantContext for gene
-		activeGenes.computeIfAbsent(gene, x -> new ArrayList<>());
-		activeGenes.get(gene).add(vc);
+		ArrayList<VariantContextCounter> variantsForGene = activeGenes.get(gene);
+		if (variantsForGene == null) {
+			variantsForGene = new ArrayList<>();
+			activeGenes.put(gene, variantsForGene);
+			activeGenesByEnd.add(gene);
+		}
+		variantsForGene.add(counter);
+		return counter;
 	}
 
 	/**
-	 * Mark genes left of <code>(contigID, pos)</code> as done.
+	 * Mark genes left of <code>(contigID, pos)</code> as done, as well as all genes on other contigs, and write out
+	 * the variants that are not assigned to any active gene any more.
 	 *
-	 * @param contigID numeric contig ID, as taken from {@link JannovarDB#refDict} from {@link #jannovarDB}.
+	 * @param contigID numeric contig ID, as taken from {@link JannovarData#getRefDict()} of {@link #jannovarData}.
 	 * @param pos      zero-based position on the given contig
 	 * @throws VariantContextFilterException on problems with filtration
 	 */
 	private void markDoneGenes(int contigID, int pos) throws VariantContextFilterException {
-		ArrayList<Gene> doneGenes = new ArrayList<Gene>();
-		for (Entry<Gene, ArrayList<VariantContext>> entry : activeGenes.entrySet()) {
-			Gene gene = entry.getKey();
-			if (gene.getRegion().getChr() != contigID)
-				doneGenes.add(gene);
-			else if (gene.getRegion().getEndPos() <= pos)
-				doneGenes.add(gene);
+		// All genes of other contigs are retired when the contig changes in put(), so the active genes are on the
+		// current contig, ordered by end position.
+		boolean anyDone = false;
+		while (!activeGenesByEnd.isEmpty()) {
+			final Gene gene = activeGenesByEnd.peek();
+			if (gene.getRegion().getChr() == contigID && gene.getRegion().getEndPos() > pos)
+				break;
+			activeGenesByEnd.poll();
+			processedGene(gene);
+			anyDone = true;
 		}
 
-		if (doneGenes.isEmpty()) {
-			processedGene(null);
-		} else {
-			for (Gene gene : doneGenes) {
-				processedGene(gene);
-				activeGenes.remove(gene);
-			}
-		}
+		writeDoneVariants();
 
-		if (!doneGenes.isEmpty() && activeGenes.isEmpty() && !activeVariants.isEmpty())
+		if (anyDone && activeGenes.isEmpty() && !activeVariants.isEmpty())
 			throw new RuntimeException("All genes inactive, there should be no active variant");
 	}
 
@@ -292,30 +304,35 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 	 * @throws VariantContextFilterException      in case of problems with processing the variant
 	 * @throws CannotAnnotateMendelianInheritance in case of problems with Mendelian inheritance annotation
 	 */
-	private void checkVariantsForGene(Gene gene)
+	private void checkVariantsForGene(List<VariantContextCounter> countersForGene)
 		throws VariantContextFilterException, CannotAnnotateMendelianInheritance {
 		// Compute compatible modes for all variants in the gene
-		final ArrayList<VariantContext> variantsForGene = activeGenes.get(gene);
+		final ArrayList<VariantContext> variantsForGene = new ArrayList<>(countersForGene.size());
+		final IdentityHashMap<VariantContext, VariantContextCounter> counters = new IdentityHashMap<>();
+		for (VariantContextCounter counter : countersForGene) {
+			variantsForGene.add(counter.getVariantContext());
+			counters.put(counter.getVariantContext(), counter);
+		}
 		ImmutableMap<SubModeOfInheritance, ImmutableList<VariantContext>> compatibleMap = annotator
 			.computeCompatibleInheritanceSubModes(variantsForGene);
 		// Annotate the variants with new compatible modes
 		for (Entry<SubModeOfInheritance, ImmutableList<VariantContext>> e : compatibleMap.entrySet()) {
 			for (VariantContext vc : e.getValue()) {
-				activeVariants.get(vc).addCompatibleMode(e.getKey());
+				counters.get(vc).addCompatibleMode(e.getKey());
 			}
 		}
 	}
 
 	/**
-	 * Decrease counter for all variants located in <code>gene</code>.
+	 * Check the variants of <code>gene</code> for compatibility, decrease their counters, and mark the gene as
+	 * inactive.
 	 *
-	 * @param gene the {@link Gene} to mark the variants for, <code>null</code> to trigger processing variants without
-	 *             marking a gene as processed
+	 * @param gene the {@link Gene} to mark the variants for
 	 */
 	private void processedGene(Gene gene) throws VariantContextFilterException {
+		final ArrayList<VariantContextCounter> countersForGene = activeGenes.remove(gene);
 		try {
-			if (gene != null)
-				checkVariantsForGene(gene);
+			checkVariantsForGene(countersForGene);
 		} catch (CannotAnnotateMendelianInheritance e) {
 			if (e.getCause().getClass().equals(IncompatiblePedigreeException.class))
 				throw new VariantContextFilterException(
@@ -324,46 +341,26 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 				throw new VariantContextFilterException("Problem with annotating variant for Mendelian inheritance", e);
 		}
 
-		if (gene != null)
-			LOGGER.trace("Gene done {}", new Object[]{gene.getName()});
-		else
-			LOGGER.trace("Marking variants as done without any gene");
+		LOGGER.trace("Gene done {}", new Object[]{gene.getName()});
 
 		// Decrease count of variants that lie in gene (that is now ignored)
-		for (VariantContextCounter var : activeVariants.values()) {
-			if (gene != null && isGeneAffectedByChange(gene, var.getVariantContext())) {
-				LOGGER.trace("Gene {} done for variant {}", new Object[]{gene.getName(),
-					var.getVariantContext().getContig() + ":" + var.getVariantContext().getStart()});
-				var.decrement();
-			}
+		for (VariantContextCounter var : countersForGene) {
+			LOGGER.trace("Gene {} done for variant {}", new Object[]{gene.getName(),
+				var.getVariantContext().getContig() + ":" + var.getVariantContext().getStart()});
+			var.decrement();
 		}
 
-		// Comparator for comparing two VariantContextCounter objects
-		Comparator<VariantContextCounter> cmp = new Comparator<VariantContextCounter>() {
-			@Override
-			public int compare(VariantContextCounter lhs, VariantContextCounter rhs) {
-				final int idxLhs = contigInfoProvider.getContigNoForName(lhs.getVariantContext().getContig());
-				final int idxRhs = contigInfoProvider.getContigNoForName(rhs.getVariantContext().getContig());
-				if (idxLhs != idxRhs)
-					return (idxLhs - idxRhs);
-				else
-					return (lhs.getVariantContext().getStart() - rhs.getVariantContext().getStart());
-			}
-		};
-
-		// Get leftmost variant that is not processed
-		Optional<VariantContextCounter> leftmost = activeVariants.values().stream().filter(x -> x.getCounter() != 0)
-			.min(cmp);
-		List<VariantContextCounter> done = activeVariants.values().stream()
-			.filter(x -> (!leftmost.isPresent() || cmp.compare(x, leftmost.get()) < 0))
-			.collect(Collectors.toList());
-
-		// Sort done by coordinate
-		Collections.sort(done, cmp);
+		LOGGER.trace("Gene {} is inactive now", new Object[]{gene.getName()});
+	}
 
-		// Remove completed variants and write out if passing
-		for (VariantContextCounter var : done) {
-			activeVariants.remove(var.getVariantContext());
+	/**
+	 * Write out the leading variants that are not assigned to any active gene any more.
+	 * <p>
+	 * The variants are buffered in input order, so they are written in input order as well.
+	 */
+	private void writeDoneVariants() {
+		while (!activeVariants.isEmpty() && activeVariants.peek().getCounter() == 0) {
+			final VariantContextCounter var = activeVariants.poll();
 
 			ArrayList<String> modes = new ArrayList<>();
 			modes.addAll(var.getCompatibleModes().stream().map(m -> m.toModeOfInheritance().getAbbreviation())
@@ -383,12 +380,6 @@ public class GeneWiseMendelianAnnotationProcessor implements VariantContextProce
 				sink.accept(vcBuilder.make());
 			}
 		}
-
-		if (gene != null) {
-			LOGGER.trace("Gene {} is inactive now", new Object[]{gene.getName()});
-			// Mark gene as done
-			activeGenes.remove(gene);
-		}
 	}
 
 	/**
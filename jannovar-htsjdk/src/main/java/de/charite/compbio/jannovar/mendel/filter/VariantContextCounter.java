@@ -3,10 +3,13 @@ package de.charite.compbio.jannovar.mendel.filter;
 import de.charite.compbio.jannovar.mendel.SubModeOfInheritance;
 import htsjdk.variant.variantcontext.VariantContext;
 
-import java.util.TreeSet;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * A {@link VariantContext} with an integer counter and set of compatible modes
+ * <p>
+ * Counters are compared by identity, such that neither the {@link VariantContext} nor the mutable state is hashed.
  *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
@@ -14,7 +17,7 @@ public class VariantContextCounter {
 
 	private VariantContext variantContext;
 	private int counter;
-	private TreeSet<SubModeOfInheritance> compatibleModes;
+	private EnumSet<SubModeOfInheritance> compatibleModes;
 
 	public VariantContextCounter(VariantContext variantContext) {
 		this(variantContext, 0);
@@ -23,7 +26,7 @@ public class VariantContextCounter {
 	public VariantContextCounter(VariantContext variantContext, int counter) {
 		this.variantContext = variantContext;
 		this.counter = counter;
-		this.compatibleModes = new TreeSet<>();
+		this.compatibleModes = EnumSet.noneOf(SubModeOfInheritance.class);
 	}
 
 	public int increment() {
@@ -59,12 +62,13 @@ public class VariantContextCounter {
 		this.compatibleModes.add(mode);
 	}
 
-	public TreeSet<SubModeOfInheritance> getCompatibleModes() {
+	public Set<SubModeOfInheritance> getCompatibleModes() {
 		return compatibleModes;
 	}
 
-	public void setCompatibleModes(TreeSet<SubModeOfInheritance> compatibleModes) {
-		this.compatibleModes = compatibleModes;
+	public void setCompatibleModes(Set<SubModeOfInheritance> compatibleModes) {
+		this.compatibleModes = EnumSet.noneOf(SubModeOfInheritance.class);
+		this.compatibleModes.addAll(compatibleModes);
 	}
 
 	@Override
@@ -73,38 +77,4 @@ public class VariantContextCounter {
 			+ compatibleModes + "]";
 	}
 
-	@Override
-	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + ((compatibleModes == null) ? 0 : compatibleModes.hashCode());
-		result = prime * result + counter;
-		result = prime * result + ((variantContext == null) ? 0 : variantContext.hashCode());
-		return result;
-	}
-
-	@Override
-	public boolean equals(Object obj) {
-		if (this == obj)
-			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
-			return false;
-		VariantContextCounter other = (VariantContextCounter) obj;
-		if (compatibleModes == null) {
-			if (other.compatibleModes != null)
-				return false;
-		} else if (!compatibleModes.equals(other.compatibleModes))
-			return false;
-		if (counter != other.counter)
-			return false;
-		if (variantContext == null) {
-			if (other.variantContext != null)
-				return false;
-		} else if (!variantContext.equals(other.variantContext))
-			return false;
-		return true;
-	}
-
 }
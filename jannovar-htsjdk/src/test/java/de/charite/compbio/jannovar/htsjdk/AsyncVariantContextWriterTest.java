@@ -0,0 +1,140 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFFileReader;
+import htsjdk.variant.vcf.VCFHeader;
+import htsjdk.variant.vcf.VCFHeaderLine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class AsyncVariantContextWriterTest {
+
+	@TempDir
+	public File tmpFolder;
+
+	VCFHeader header;
+
+	List<VariantContext> records;
+
+	@BeforeEach
+	public void setUp() {
+		final SAMSequenceDictionary dict = new SAMSequenceDictionary(ImmutableList.of(
+			new SAMSequenceRecord("1", 10_000_000), new SAMSequenceRecord("2", 10_000_000),
+			new SAMSequenceRecord("X", 10_000_000)));
+		header = new VCFHeader();
+		header.setSequenceDictionary(dict);
+
+		final Random rand = new Random(42);
+		final String[] bases = {"A", "C", "G", "T"};
+		records = new ArrayList<>();
+		for (SAMSequenceRecord contig : dict.getSequences()) {
+			int pos = 1;
+			for (int i = 0; i < 20_000; ++i) {
+				pos += 1 + rand.nextInt(400);
+				final int refIdx = rand.nextInt(4);
+				final String ref = bases[refIdx];
+				final String alt = bases[(refIdx + 1 + rand.nextInt(3)) % 4];
+				records.add(new VariantContextBuilder().chr(contig.getSequenceName()).start(pos).stop(pos)
+					.alleles(ImmutableList.of(Allele.create(ref, true), Allele.create(alt, false))).make());
+			}
+		}
+	}
+
+	private void writeRecords(VariantContextWriter writer) {
+		try (VariantContextWriter w = writer) {
+			for (VariantContext vc : records)
+				w.add(vc);
+		}
+	}
+
+	private static String readCompressed(File file) throws IOException {
+		try (InputStream in = new BlockCompressedInputStream(new FileInputStream(file))) {
+			return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Test
+	public void testSameOutputAsSynchronousWriter() throws IOException {
+		final File syncFile = new File(tmpFolder, "sync.vcf.gz");
+		final File asyncFile = new File(tmpFolder, "async.vcf.gz");
+		writeRecords(VariantContextWriterConstructionHelper.openVariantContextWriter(header, syncFile.toString(),
+			ImmutableList.<VCFHeaderLine>of(), false));
+		writeRecords(VariantContextWriterConstructionHelper.openAsyncVariantContextWriter(header,
+			asyncFile.toString(), ImmutableList.<VCFHeaderLine>of(), 4, false));
+
+		Assertions.assertEquals(readCompressed(syncFile), readCompressed(asyncFile));
+		Assertions.assertFalse(new File(asyncFile + ".tbi").exists());
+	}
+
+	@Test
+	public void testSameOutputAsSynchronousWriterUncompressed() throws IOException {
+		final File syncFile = new File(tmpFolder, "sync.vcf");
+		final File asyncFile = new File(tmpFolder, "async.vcf");
+		writeRecords(VariantContextWriterConstructionHelper.openVariantContextWriter(header, syncFile.toString(),
+			ImmutableList.<VCFHeaderLine>of(), false));
+		writeRecords(VariantContextWriterConstructionHelper.openAsyncVariantContextWriter(header,
+			asyncFile.toString(), ImmutableList.<VCFHeaderLine>of(), 1, false));
+
+		Assertions.assertEquals(new String(Files.readAllBytes(syncFile.toPath()), StandardCharsets.UTF_8),
+			new String(Files.readAllBytes(asyncFile.toPath()), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testTabixIndexOnTheFly() {
+		final File file = new File(tmpFolder, "async.vcf.gz");
+		writeRecords(VariantContextWriterConstructionHelper.openAsyncVariantContextWriter(header, file.toString(),
+			ImmutableList.<VCFHeaderLine>of(), 3, true));
+		Assertions.assertTrue(new File(file + ".tbi").exists());
+
+		final Random rand = new Random(23);
+		try (VCFFileReader reader = new VCFFileReader(file, true)) {
+			for (int i = 0; i < 100; ++i) {
+				final String contig = new String[]{"1", "2", "X"}[rand.nextInt(3)];
+				final int beginPos = 1 + rand.nextInt(8_000_000);
+				final int endPos = beginPos + rand.nextInt(10_000);
+
+				final List<String> expected = new ArrayList<>();
+				for (VariantContext vc : records)
+					if (vc.getContig().equals(contig) && vc.getStart() <= endPos && vc.getEnd() >= beginPos)
+						expected.add(vc.getContig() + ":" + vc.getStart());
+				final List<String> actual = new ArrayList<>();
+				try (CloseableIterator<VariantContext> it = reader.query(contig, beginPos, endPos)) {
+					while (it.hasNext()) {
+						final VariantContext vc = it.next();
+						actual.add(vc.getContig() + ":" + vc.getStart());
+					}
+				}
+				Assertions.assertEquals(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void testIndexRequiresCompressedOutput() {
+		Assertions.assertThrows(IllegalArgumentException.class,
+			() -> VariantContextWriterConstructionHelper.openAsyncVariantContextWriter(header,
+				new File(tmpFolder, "out.vcf").toString(), ImmutableList.<VCFHeaderLine>of(), 1, true));
+	}
+
+}
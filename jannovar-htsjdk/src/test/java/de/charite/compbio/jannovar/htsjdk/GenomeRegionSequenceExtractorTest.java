@@ -4,6 +4,7 @@ import com.google.common.io.Files;
 import de.charite.compbio.jannovar.data.JannovarData;
 import de.charite.compbio.jannovar.data.JannovarDataSerializer;
 import de.charite.compbio.jannovar.data.SerializationException;
+import de.charite.compbio.jannovar.impl.util.ReferenceSequenceCache;
 import de.charite.compbio.jannovar.reference.GenomeInterval;
 import de.charite.compbio.jannovar.reference.GenomePosition;
 import de.charite.compbio.jannovar.reference.Strand;
@@ -62,4 +63,13 @@ public class GenomeRegionSequenceExtractorTest {
 		Assertions.assertEquals("CTTTAGGCCTGGGAATCAGGAGTGCTATGACAATTTCCTCCAAAGTGGAGA", seq);
 	}
 
+	@Test
+	public void testLoadGenomeIntervalThroughCache() throws Exception {
+		GenomeRegionSequenceExtractor extractor = new GenomeRegionSequenceExtractor(jannovarData,
+			ReferenceSequenceCache.getShared(fastaPath));
+		GenomeInterval region = new GenomeInterval(new GenomePosition(jannovarData.getRefDict(), Strand.FWD, 1, 99), 51);
+		String seq = extractor.load(region);
+		Assertions.assertEquals("CTTTAGGCCTGGGAATCAGGAGTGCTATGACAATTTCCTCCAAAGTGGAGA", seq);
+	}
+
 }
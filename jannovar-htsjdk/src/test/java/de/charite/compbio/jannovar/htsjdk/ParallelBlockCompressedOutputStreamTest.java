@@ -0,0 +1,84 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import htsjdk.samtools.util.BlockCompressedFilePointerUtil;
+import htsjdk.samtools.util.BlockCompressedInputStream;
+import htsjdk.samtools.util.BlockCompressedStreamConstants;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ParallelBlockCompressedOutputStreamTest {
+
+	@TempDir
+	public File tmpFolder;
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		final Random rand = new Random(42);
+		final byte[] data = new byte[1_000_000];
+		// mix of compressible and incompressible data
+		for (int i = 0; i < data.length; ++i)
+			data[i] = (byte) ((i / 100_000) % 2 == 0 ? 'A' + rand.nextInt(4) : rand.nextInt(256));
+
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ParallelBlockCompressedOutputStream out = new ParallelBlockCompressedOutputStream(bos, 4, 5)) {
+			out.write(data, 0, 12345);
+			out.write(data[12345]);
+			out.write(data, 12346, data.length - 12346);
+		}
+
+		final byte[] compressed = bos.toByteArray();
+		final byte[] eofBlock = BlockCompressedStreamConstants.EMPTY_GZIP_BLOCK;
+		Assertions.assertArrayEquals(eofBlock,
+			Arrays.copyOfRange(compressed, compressed.length - eofBlock.length, compressed.length));
+
+		final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+		try (BlockCompressedInputStream in = new BlockCompressedInputStream(new ByteArrayInputStream(compressed))) {
+			final byte[] buf = new byte[4096];
+			int n;
+			while ((n = in.read(buf)) > 0)
+				decompressed.write(buf, 0, n);
+		}
+		Assertions.assertArrayEquals(data, decompressed.toByteArray());
+	}
+
+	@Test
+	public void testVirtualFilePointers() throws IOException {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final Map<Long, Long> blockAddresses = new HashMap<>();
+		final List<long[]> lineStarts = new ArrayList<>(); // (line no, block number, block offset)
+		try (ParallelBlockCompressedOutputStream out = new ParallelBlockCompressedOutputStream(bos, 3, 5)) {
+			out.setBlockListener(blockAddresses::put);
+			for (int i = 0; i < 50_000; ++i) {
+				lineStarts.add(new long[]{i, out.getBlockNumber(), out.getBlockOffset()});
+				out.write(("line\t" + i + "\n").getBytes(StandardCharsets.UTF_8));
+			}
+			out.flush();
+			Assertions.assertEquals(blockAddresses.size(), (int) out.getBlockNumber());
+		}
+
+		final File file = new File(tmpFolder, "lines.txt.gz");
+		Files.write(file.toPath(), bos.toByteArray());
+		try (BlockCompressedInputStream in = new BlockCompressedInputStream(file)) {
+			for (int i = 0; i < lineStarts.size(); i += 997) {
+				final long[] start = lineStarts.get(i);
+				in.seek(BlockCompressedFilePointerUtil.makeFilePointer(blockAddresses.get(start[1]), (int) start[2]));
+				Assertions.assertEquals("line\t" + start[0], in.readLine());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,145 @@
+package de.charite.compbio.jannovar.htsjdk;
+
+import htsjdk.samtools.util.CloseableIterator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+public class StreamingOverlapQueryTest {
+
+	static class Record {
+
+		final String contig;
+		final int beginPos;
+		final int endPos;
+
+		Record(String contig, int beginPos, int endPos) {
+			this.contig = contig;
+			this.beginPos = beginPos;
+			this.endPos = endPos;
+		}
+
+		@Override
+		public String toString() {
+			return "Record [contig=" + contig + ", beginPos=" + beginPos + ", endPos=" + endPos + "]";
+		}
+
+	}
+
+	static boolean overlaps(Record record, int beginPos, int endPos) {
+		return record.beginPos <= endPos && record.endPos >= beginPos;
+	}
+
+	List<Record> records;
+
+	int numQueries;
+
+	@BeforeEach
+	public void setUp() {
+		final Random rand = new Random(42);
+		records = new ArrayList<>();
+		for (String contig : new String[]{"1", "2", "X"}) {
+			for (int i = 0; i < 2_000; ++i) {
+				final int beginPos = rand.nextInt(1_000_000);
+				// mostly short records with some long ones
+				final int length = rand.nextInt(10) == 0 ? rand.nextInt(50_000) : rand.nextInt(10);
+				records.add(new Record(contig, beginPos, beginPos + length));
+			}
+		}
+		records.sort(Comparator.<Record, String>comparing(r -> r.contig).thenComparingInt(r -> r.beginPos));
+		numQueries = 0;
+	}
+
+	/**
+	 * Indexed query to the end of the contig, as tabix does it.
+	 */
+	CloseableIterator<Record> openStream(String contig, int beginPos) {
+		++numQueries;
+		final Iterator<Record> iter = records.stream()
+			.filter(r -> r.contig.equals(contig) && overlaps(r, beginPos, Integer.MAX_VALUE))
+			.iterator();
+		return new CloseableIterator<Record>() {
+			@Override
+			public boolean hasNext() {
+				return iter.hasNext();
+			}
+
+			@Override
+			public Record next() {
+				return iter.next();
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+
+	List<Record> bruteForce(String contig, int beginPos, int endPos) {
+		return records.stream().filter(r -> r.contig.equals(contig) && overlaps(r, beginPos, endPos))
+			.collect(Collectors.toList());
+	}
+
+	List<Record> buildQueries(Random rand, boolean sorted) {
+		List<Record> queries = new ArrayList<>();
+		for (String contig : new String[]{"1", "2", "X"}) {
+			for (int i = 0; i < 1_000; ++i) {
+				final int beginPos = rand.nextInt(1_010_000);
+				queries.add(new Record(contig, beginPos, beginPos + rand.nextInt(20)));
+			}
+		}
+		if (sorted)
+			queries.sort(Comparator.<Record, String>comparing(r -> r.contig).thenComparingInt(r -> r.beginPos));
+		return queries;
+	}
+
+	@Test
+	public void testSortedQueries() {
+		StreamingOverlapQuery<Record> query = new StreamingOverlapQuery<>(this::openStream,
+			StreamingOverlapQueryTest::overlaps, Integer.MAX_VALUE);
+		for (Record q : buildQueries(new Random(1), true))
+			Assertions.assertEquals(bruteForce(q.contig, q.beginPos, q.endPos),
+				query.query(q.contig, q.beginPos, q.endPos));
+
+		// one sequential pass per contig
+		Assertions.assertEquals(3, numQueries);
+		Assertions.assertEquals(3, query.getNumStreamsOpened());
+	}
+
+	@Test
+	public void testSortedQueriesWithGaps() {
+		StreamingOverlapQuery<Record> query = new StreamingOverlapQuery<>(this::openStream,
+			StreamingOverlapQueryTest::overlaps, 1_000);
+		for (Record q : buildQueries(new Random(1), true))
+			Assertions.assertEquals(bruteForce(q.contig, q.beginPos, q.endPos),
+				query.query(q.contig, q.beginPos, q.endPos));
+
+		Assertions.assertTrue(query.getNumStreamsOpened() > 3);
+		Assertions.assertTrue(query.getNumStreamsOpened() < 3_000);
+	}
+
+	@Test
+	public void testUnsortedQueries() {
+		StreamingOverlapQuery<Record> query = new StreamingOverlapQuery<>(this::openStream,
+			StreamingOverlapQueryTest::overlaps);
+		for (Record q : buildQueries(new Random(1), false))
+			Assertions.assertEquals(bruteForce(q.contig, q.beginPos, q.endPos),
+				query.query(q.contig, q.beginPos, q.endPos));
+	}
+
+	@Test
+	public void testUnknownContig() {
+		StreamingOverlapQuery<Record> query = new StreamingOverlapQuery<>(this::openStream,
+			StreamingOverlapQueryTest::overlaps);
+		Assertions.assertTrue(query.query("Y", 1, 1_000_000).isEmpty());
+		Assertions.assertFalse(query.query("1", 1, 1_000_000).isEmpty());
+	}
+
+}
@@ -166,4 +166,40 @@ public class GeneWiseInheritanceProcessorOneAffectedTest {
 		Assertions.assertNull(result.get(6).getAttribute(KEY));
 		Assertions.assertNull(result.get(6).getAttribute(KEY_SUB));
 	}
+
+	@Test
+	public void testContigsNotInDictionaryOrder() {
+		loadVariants("b37.");
+		// put the variants on chromosome 10 before those on chromosome 1
+		ArrayList<VariantContext> input = new ArrayList<>();
+		variants.stream().filter(vc -> vc.getContig().equals("10")).forEach(input::add);
+		variants.stream().filter(vc -> !vc.getContig().equals("10")).forEach(input::add);
+
+		ArrayList<VariantContext> result = new ArrayList<>();
+		try (GeneWiseMendelianAnnotationProcessor proc = new GeneWiseMendelianAnnotationProcessor(trio, jannovarDB,
+			vc -> result.add(vc), false)) {
+			for (VariantContext vc : input) {
+				proc.put(vc);
+				// the genes on chromosome 10 are done as soon as the contig changes, not only on close()
+				if (vc.getContig().equals("1"))
+					Assertions.assertTrue(result.size() >= 2);
+			}
+		}
+
+		Assertions.assertEquals(7, result.size());
+		for (int i = 0; i < input.size(); ++i) {
+			Assertions.assertEquals(input.get(i).getContig(), result.get(i).getContig());
+			Assertions.assertEquals(input.get(i).getStart(), result.get(i).getStart());
+		}
+
+		Assertions.assertEquals(123239370, result.get(0).getStart());
+		Assertions.assertEquals("[AR]", result.get(0).getAttribute(KEY).toString());
+		Assertions.assertEquals("[AR_HOM_ALT]", result.get(0).getAttribute(KEY_SUB).toString());
+		Assertions.assertEquals(145513532, result.get(2).getStart());
+		Assertions.assertEquals("[AR]", result.get(2).getAttribute(KEY).toString());
+		Assertions.assertEquals("[AR_COMP_HET]", result.get(2).getAttribute(KEY_SUB).toString());
+		Assertions.assertEquals(145515898, result.get(5).getStart());
+		Assertions.assertEquals("[AD]", result.get(5).getAttribute(KEY).toString());
+	}
+
 }
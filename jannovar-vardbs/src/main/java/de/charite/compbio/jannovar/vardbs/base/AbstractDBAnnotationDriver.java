@@ -45,7 +45,10 @@ public abstract class AbstractDBAnnotationDriver<RecordType> implements DBAnnota
 	public AbstractDBAnnotationDriver(DatabaseVariantContextProvider variantProvider, String fastaPath,
 									  DBAnnotationOptions options, VariantContextToRecordConverter<RecordType> vcToRecord)
 		throws JannovarVarDBException {
-		this.variantProvider = variantProvider;
+		if (options.isStreamDatabase())
+			this.variantProvider = new StreamingVariantContextProvider(variantProvider);
+		else
+			this.variantProvider = variantProvider;
 		this.matcher = new AlleleMatcher(fastaPath);
 		this.vcToRecord = vcToRecord;
 		this.options = options;
@@ -54,8 +54,19 @@ public final class AnnotateCommand {
 				vcfReader.getFileHeader(), options.getOutputVcfPath(), buildAdditionalHeaderLines(),
 				options.getOutputVcfPath().endsWith(".vcf.gz")
 			)) {
-			for (VariantContext record : vcfReader) {
-				vcfWriter.add(annotateVC(record, conn));
+			final List<QueryRunner> queryRunners = openQueryRunners(conn);
+			try {
+				if (options.getBatchSize() > 1) {
+					annotateBatched(vcfReader, vcfWriter, queryRunners);
+				} else {
+					for (VariantContext record : vcfReader) {
+						vcfWriter.add(annotateVC(record, queryRunners));
+					}
+				}
+			} finally {
+				for (QueryRunner queryRunner : queryRunners) {
+					queryRunner.close();
+				}
 			}
 		}
 
@@ -64,6 +75,53 @@ public final class AnnotateCommand {
 			(endTime - startTime) / 1000.0 / 1000.0 / 1000.0));
 	}
 
+	/**
+	 * Annotate windows of up to {@code options.getBatchSize()} records on the same contig with one query per table.
+	 */
+	private void annotateBatched(
+		Iterable<VariantContext> records, VariantContextWriter vcfWriter, List<QueryRunner> queryRunners
+	) throws JannovarVarDBException {
+		final List<VariantContext> window = new ArrayList<>(options.getBatchSize());
+		for (VariantContext record : records) {
+			if (!window.isEmpty() && (window.size() == options.getBatchSize() ||
+				!window.get(0).getContig().equals(record.getContig()))) {
+				annotateWindow(window, vcfWriter, queryRunners);
+				window.clear();
+			}
+			window.add(record);
+		}
+		annotateWindow(window, vcfWriter, queryRunners);
+	}
+
+	private void annotateWindow(
+		List<VariantContext> window, VariantContextWriter vcfWriter, List<QueryRunner> queryRunners
+	) throws JannovarVarDBException {
+		final List<VariantContextBuilder> resultBuilders = new ArrayList<>(window.size());
+		for (VariantContext record : window) {
+			resultBuilders.add(new VariantContextBuilder(record));
+		}
+		for (int i = 0; i < tableInfos.size(); ++i) {
+			final List<QueryRunner.Result> results = queryRunners.get(i).runBatch(options.getGenomeBuild(), window);
+			for (int j = 0; j < window.size(); ++j) {
+				annotateRecord(resultBuilders.get(j), results.get(j), tableInfos.get(i));
+			}
+		}
+		for (VariantContextBuilder resultBuilder : resultBuilders) {
+			vcfWriter.add(resultBuilder.make());
+		}
+	}
+
+	/**
+	 * @return One {@code QueryRunner} for each table in {@code tableInfos}, to be closed by the caller.
+	 */
+	private List<QueryRunner> openQueryRunners(Connection conn) {
+		final List<QueryRunner> result = new ArrayList<>();
+		for (Table tableInfo : tableInfos) {
+			result.add(new QueryRunner(tableInfo, conn));
+		}
+		return result;
+	}
+
 	/**
 	 * Augment VCF file header with INFO fields.
 	 *
@@ -106,24 +164,30 @@ public final class AnnotateCommand {
 	 * @throws JannovarVarDBException in case there is a problem with the database access.
 	 */
 	public VariantContext annotateVC(VariantContext record, Connection conn) throws JannovarVarDBException {
+		final List<QueryRunner> queryRunners = openQueryRunners(conn);
+		try {
+			return annotateVC(record, queryRunners);
+		} finally {
+			for (QueryRunner queryRunner : queryRunners) {
+				queryRunner.close();
+			}
+		}
+	}
+
+	private VariantContext annotateVC(VariantContext record, List<QueryRunner> queryRunners)
+		throws JannovarVarDBException {
 		final VariantContextBuilder resultBuilder = new VariantContextBuilder(record);
 
-		for (Table tableInfo : tableInfos) {
-			final ImmutableList.Builder<String> altAllelesBuilder = ImmutableList.builder();
-			for (int i = 0; i < record.getAlternateAlleles().size(); ++i) {
-				altAllelesBuilder.add(record.getAlternateAllele(i).getBaseString());
-			}
-			final QueryRunner queryRunner = new QueryRunner(tableInfo);
-			final QueryRunner.Result result = queryRunner.run(
+		for (int i = 0; i < tableInfos.size(); ++i) {
+			final QueryRunner.Result result = queryRunners.get(i).run(
 				options.getGenomeBuild(),
 				record.getContig(),
 				record.getStart(),
 				record.getEnd(),
 				record.getReference().getBaseString(),
-				altAllelesBuilder.build(),
-				conn
+				QueryRunner.getAltAlleles(record)
 			);
-			annotateRecord(resultBuilder, result, tableInfo);
+			annotateRecord(resultBuilder, result, tableInfos.get(i));
 		}
 
 		return resultBuilder.make();
@@ -10,11 +10,15 @@ import java.util.Objects;
  */
 @Immutable
 public final class AnnotateOptions {
+	/** Default number of records to query for at once, 1 disables batching */
+	public static final int DEFAULT_BATCH_SIZE = 1;
+
 	private final String genomeBuild;
 	private final String dbPath;
 	private final String inputVcfPath;
 	private final String outputVcfPath;
 	private final ImmutableList<String> tableNames;
+	private final int batchSize;
 
 	/**
 	 * Constructor.
@@ -26,11 +30,27 @@ public final class AnnotateOptions {
 	 * @param tableNames		Name of the table(s) to use for annotation.
 	 */
 	public AnnotateOptions(String genomeBuild, String dbPath, String inputVcfPath, String outputVcfPath, Iterable<String> tableNames) {
+		this(genomeBuild, dbPath, inputVcfPath, outputVcfPath, tableNames, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param genomeBuild 		Name of the genome build.
+	 * @param dbPath			Path to the H2 database to use for annotation.
+	 * @param inputVcfPath		Path to input VCF file to annotate.
+	 * @param outputVcfPath		Path to output VCF file to write to.
+	 * @param tableNames		Name of the table(s) to use for annotation.
+	 * @param batchSize			Number of records on the same contig to query for at once.
+	 */
+	public AnnotateOptions(String genomeBuild, String dbPath, String inputVcfPath, String outputVcfPath,
+						   Iterable<String> tableNames, int batchSize) {
 		this.genomeBuild = genomeBuild;
 		this.dbPath = dbPath;
 		this.inputVcfPath = inputVcfPath;
 		this.outputVcfPath = outputVcfPath;
 		this.tableNames = ImmutableList.copyOf(tableNames);
+		this.batchSize = batchSize;
 	}
 
 	public String getGenomeBuild() {
@@ -53,6 +73,10 @@ public final class AnnotateOptions {
 		return tableNames;
 	}
 
+	public int getBatchSize() {
+		return batchSize;
+	}
+
 	@Override
 	public String toString() {
 		return "AnnotateOptions{" +
@@ -61,6 +85,7 @@ public final class AnnotateOptions {
 			", inputVcfPath='" + inputVcfPath + '\'' +
 			", outputVcfPaths='" + outputVcfPath + '\'' +
 			", tableNames=" + tableNames +
+			", batchSize=" + batchSize +
 			'}';
 	}
 
@@ -69,11 +94,11 @@ public final class AnnotateOptions {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		AnnotateOptions that = (AnnotateOptions) o;
-		return Objects.equals(genomeBuild, that.genomeBuild) && Objects.equals(dbPath, that.dbPath) && Objects.equals(inputVcfPath, that.inputVcfPath) && Objects.equals(outputVcfPath, that.outputVcfPath) && Objects.equals(tableNames, that.tableNames);
+		return batchSize == that.batchSize && Objects.equals(genomeBuild, that.genomeBuild) && Objects.equals(dbPath, that.dbPath) && Objects.equals(inputVcfPath, that.inputVcfPath) && Objects.equals(outputVcfPath, that.outputVcfPath) && Objects.equals(tableNames, that.tableNames);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(genomeBuild, dbPath, inputVcfPath, outputVcfPath, tableNames);
+		return Objects.hash(genomeBuild, dbPath, inputVcfPath, outputVcfPath, tableNames, batchSize);
 	}
 }
@@ -46,6 +46,11 @@ public class DBAnnotationOptions {
 	 * Behaviour on multiple matching annotations
 	 */
 	private MultipleMatchBehaviour multiMatchBehaviour;
+	/**
+	 * Whether or not to stream the database in lockstep with coordinate-sorted input instead of querying it for each
+	 * record (default: false)
+	 */
+	private boolean streamDatabase = false;
 
 	public DBAnnotationOptions(boolean reportOverlapping, boolean reportOverlappingAsIdentical,
 							   String identifierPrefix, MultipleMatchBehaviour multiMatchBehaviour) {
@@ -94,12 +99,20 @@ public class DBAnnotationOptions {
 		return identifierPrefix;
 	}
 
+	public boolean isStreamDatabase() {
+		return streamDatabase;
+	}
+
+	public void setStreamDatabase(boolean streamDatabase) {
+		this.streamDatabase = streamDatabase;
+	}
+
 	@Override
 	public String toString() {
 		return "DBAnnotationOptions [reportOverlapping=" + reportOverlapping
 			+ ", reportOverlappingAsMatching=" + reportOverlappingAsMatching
 			+ ", identifierPrefix=" + identifierPrefix + ", multiMatchBehaviour="
-			+ multiMatchBehaviour + "]";
+			+ multiMatchBehaviour + ", streamDatabase=" + streamDatabase + "]";
 	}
 
 }
@@ -23,4 +23,20 @@ public interface DatabaseVariantContextProvider {
 	 */
 	CloseableIterator<VariantContext> query(String contig, int beginPos, int endPos);
 
+	/**
+	 * Overlap test with the same semantics as {@link #query}, used for streaming the database with
+	 * {@link StreamingVariantContextProvider}.
+	 * <p>
+	 * The default implementation is the one of tabix-indexed VCF files, i.e., the record overlaps with the closed
+	 * interval from <code>beginPos</code> to <code>endPos</code>.
+	 *
+	 * @param vc       {@link VariantContext} returned by {@link #query}
+	 * @param beginPos begin position of the query
+	 * @param endPos   end position of the query
+	 * @return whether or not <code>vc</code> would be returned by the query
+	 */
+	default boolean overlaps(VariantContext vc, int beginPos, int endPos) {
+		return vc.getStart() <= endPos && vc.getEnd() >= beginPos;
+	}
+
 }
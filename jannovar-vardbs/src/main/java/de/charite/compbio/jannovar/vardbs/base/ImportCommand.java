@@ -3,6 +3,9 @@ package de.charite.compbio.jannovar.vardbs.base;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.Immutable;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.tribble.index.IndexFactory;
+import htsjdk.tribble.util.TabixUtils;
 import htsjdk.variant.variantcontext.CommonInfo;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFFileReader;
@@ -17,6 +20,12 @@ import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 // TODO: add versions table
 //       - add jannovar version
@@ -24,9 +33,20 @@ import java.util.List;
 
 /**
  * Import a VCF file to a Jannovar H2 database file.
+ *
+ * <p>Rows are sent to the database in JDBC batches and committed periodically.  In bulk mode, an empty table is
+ * loaded with plain {@code INSERT} statements and the primary key is only created after loading.  If the input
+ * contains a variant more than once, the duplicates are removed before creating the key, keeping the last row as
+ * {@code MERGE} does.  With more than one thread, tabix-indexed VCF files are read by contig in parallel.</p>
  */
 @Immutable
 public final class ImportCommand {
+	/** Number of rows passed at once from the reader threads to the writing thread. */
+	private static final int CHUNK_SIZE = 1_000;
+
+	/** Marker put into the queue by reader threads when done with a contig. */
+	private static final List<Object[]> END_OF_CONTIG = new ArrayList<>();
+
 	private final ImportOptions options;
 
 	/**
@@ -45,149 +65,296 @@ public final class ImportCommand {
 		final TableDao tableDao = new TableDao(conn);
 		tableDao.initializeDatabase();
 		final Table table = buildTable(options);
+		final boolean tableExisted = tableDao.getTable(table.getName()) != null;
 		System.err.println("Creating table " + table);
 		tableDao.createTable(table);
 		maybeTruncateTable(conn, table);
-		runImport(conn, table);
+		runImport(conn, tableDao, table, !tableExisted || options.isTruncateTable());
 	}
 
-	private void runImport(Connection conn, Table table) throws JannovarVarDBException {
-		for (String vcfPath : options.getVcfPaths()) {
-			importVcfFile(conn, vcfPath, table);
+	private void runImport(Connection conn, TableDao tableDao, Table table, boolean tableEmpty)
+		throws JannovarVarDBException {
+		// Without pre-existing rows, there is nothing to merge with and the key can be created after loading.
+		final boolean deferPrimaryKey = options.isBulk() && tableEmpty;
+		if (options.isBulk() && !tableEmpty) {
+			System.err.println("Table is not empty, using MERGE and keeping primary key in bulk mode");
 		}
-	}
 
-	private void importVcfFile(Connection conn, String vcfPath, Table table) throws JannovarVarDBException {
-		final List<String> fieldNames = new ArrayList<>();
-		final List<String> placeHolders = new ArrayList<>();
-		for (TableField field : table.getFields()) {
-			fieldNames.add(field.getName());
-			placeHolders.add("?");
+		try {
+			final boolean autoCommit = conn.getAutoCommit();
+			conn.setAutoCommit(false);
+			if (deferPrimaryKey) {
+				System.err.println("Dropping primary key for bulk import");
+				tableDao.dropPrimaryKey(table);
+				conn.commit();
+			}
+
+			try (RowWriter writer = new RowWriter(conn, table, deferPrimaryKey ? "INSERT" : "MERGE")) {
+				for (String vcfPath : options.getVcfPaths()) {
+					System.err.println("Starting import of " + vcfPath);
+					if (options.getThreads() > 1) {
+						importVcfFileParallel(vcfPath, table, writer);
+					} else {
+						importVcfFile(vcfPath, table, writer);
+					}
+				}
+				writer.finish();
+			}
+
+			if (deferPrimaryKey) {
+				System.err.println("Creating primary key");
+				final long startTime = System.nanoTime();
+				try {
+					tableDao.createPrimaryKey(table);
+				} catch (JannovarVarDBException e) {
+					// Repeated records or overlapping input files, remove the duplicates and try again.
+					conn.rollback();
+					System.err.println("Could not create primary key, removing duplicate variants");
+					final int numDeleted = tableDao.deleteDuplicateVariants(table);
+					conn.commit();
+					System.err.println("Removed " + numDeleted + " duplicate rows");
+					tableDao.createPrimaryKey(table);
+				}
+				conn.commit();
+				System.err.println(String.format("Creating primary key took %.2f sec.",
+					(System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0));
+			}
+			conn.setAutoCommit(autoCommit);
+		} catch (SQLException e) {
+			throw new JannovarVarDBException("Problem with insert statement", e);
 		}
-		final String sqlInsert = "MERGE INTO " + table.getName() +
-			" (genome_build, contig, start, end, ref, alt, " + Joiner.on(", ").join(fieldNames) + ")" +
-			"VALUES (?, ?, ?, ?, ?, ?, " + Joiner.on(", ").join(placeHolders) + ")";
+	}
 
-		System.err.println("Starting import of " + vcfPath);
-		try (VCFFileReader reader = new VCFFileReader(new File(vcfPath));
-			PreparedStatement stmt = conn.prepareStatement(sqlInsert)) {
+	private void importVcfFile(String vcfPath, Table table, RowWriter writer)
+		throws SQLException {
+		try (VCFFileReader reader = new VCFFileReader(new File(vcfPath))) {
 			for (VariantContext ctx : reader) {
-				if (ctx.getReference().getBaseString().length() > TableDao.MAX_ALLELE_LENGTH) {
-					System.err.println("Skipping because reference too long: " + ctx);
-					continue;
+				for (Object[] row : buildRows(ctx, table)) {
+					writer.add(row);
 				}
+			}
+		}
+	}
 
-				stmt.setString(1, options.getGenomeBuild());
-				stmt.setString(2, ctx.getContig());
-				stmt.setInt(3, ctx.getStart());
-				stmt.setInt(4, ctx.getEnd());
-				stmt.setString(5, ctx.getReference().getBaseString());
+	/**
+	 * Import a tabix-indexed VCF file, reading the contigs in parallel.
+	 *
+	 * <p>The reader threads convert records to rows and the calling thread writes them to the database since the
+	 * connection cannot be shared.  The records of each contig are written in order.</p>
+	 */
+	private void importVcfFileParallel(String vcfPath, Table table, RowWriter writer)
+		throws JannovarVarDBException, SQLException {
+		final String indexPath = vcfPath + TabixUtils.STANDARD_INDEX_EXTENSION;
+		if (!new File(indexPath).exists()) {
+			throw new JannovarVarDBException("Reading with multiple threads requires tabix index " + indexPath);
+		}
+		final List<String> contigs = IndexFactory.loadIndex(indexPath).getSequenceNames();
 
-				for (int i = 0; i < ctx.getAlternateAlleles().size(); ++i) {
-					if (ctx.getAlternateAllele(i).getBaseString().length() > TableDao.MAX_ALLELE_LENGTH) {
-						System.err.println("Skipping because alt #" + i + " too long: " + ctx);
-						continue;
-					}
-					stmt.setString(6, ctx.getAlternateAllele(i).getBaseString());
-
-					final CommonInfo info = ctx.getCommonInfo();
-					for (int j = 0; j < table.getFields().size(); ++j) {
-						final TableField field = table.getFields().get(j);
-						switch (field.getType()) {
-							case "Integer":
-								switch (field.getCount()) {
-									case "A":
-										final List<Object> lst = info.getAttributeAsList(field.getName());
-										if (!info.hasAttribute(field.getName()) || lst.size() < i) {
-											stmt.setNull(j + 7, Types.INTEGER);
-										} else {
-											stmt.setInt(j + 7, Integer.parseInt((String)lst.get(i)));
-										}
-										break;
-									case "1":
-										if (!info.hasAttribute(field.getName())) {
-											stmt.setNull(j + 7, Types.INTEGER);
-										} else {
-											stmt.setInt(j + 7, Integer.parseInt((String)info.getAttribute(field.getName())));
-										}
-										break;
-									default:
-										throw new RuntimeException("Invalid count " + field.getCount());
-								}
-								break;
-							case "Float":
-								switch (field.getCount()) {
-									case "A":
-										final List<Object> lst = info.getAttributeAsList(field.getName());
-										if (!info.hasAttribute(field.getName()) || lst.size() < i) {
-											stmt.setNull(j + 7, Types.DOUBLE);
-										} else {
-											stmt.setDouble(j + 7, Double.parseDouble((String)lst.get(i)));
-										}
-										break;
-									case "1":
-										if (!info.hasAttribute(field.getName())) {
-											stmt.setNull(j + 7, Types.DOUBLE);
-										} else {
-											stmt.setDouble(j + 7, Double.parseDouble((String)info.getAttribute(field.getName())));
-										}
-										break;
-									default:
-										throw new RuntimeException("Invalid count " + field.getCount());
-								}
-								break;
-							case "Boolean":
-								switch (field.getCount()) {
-									case "A":
-										final List<Object> lst = info.getAttributeAsList(field.getName());
-										if (!info.hasAttribute(field.getName()) || lst.size() < i) {
-											stmt.setNull(j + 7, Types.BOOLEAN);
-										} else {
-											stmt.setBoolean(j + 7, (Boolean) lst.get(i));
-										}
-										break;
-									case "1":
-										if (!info.hasAttribute(field.getName())) {
-											stmt.setNull(j + 7, Types.DOUBLE);
-										} else {
-											stmt.setBoolean(j + 7, (Boolean) info.getAttribute(field.getName()));
-										}
-										break;
-									default:
-										throw new RuntimeException("Invalid count " + field.getCount());
-								}
-								break;
-							case "String":
-								switch (field.getCount()) {
-									case "A":
-										final List<Object> lst = info.getAttributeAsList(field.getName());
-										if (!info.hasAttribute(field.getName()) || lst.size() < i) {
-											stmt.setNull(j + 7, Types.VARCHAR);
-										} else {
-											stmt.setString(j + 7, (String) lst.get(i));
-										}
-										break;
-									case "1":
-										if (!info.hasAttribute(field.getName())) {
-											stmt.setNull(j + 7, Types.VARCHAR);
-										} else {
-											stmt.setString(j + 7, (String) info.getAttribute(field.getName()));
-										}
-										break;
-									default:
-										throw new RuntimeException("Invalid count " + field.getCount());
-								}
-								break;
-							default:
-								throw new RuntimeException("Invalid field type " + field.getType());
+		final BlockingQueue<List<Object[]>> queue = new ArrayBlockingQueue<>(4 * options.getThreads());
+		final ExecutorService executor = Executors.newFixedThreadPool(options.getThreads());
+		try {
+			final List<Future<Void>> futures = new ArrayList<>();
+			for (String contig : contigs) {
+				futures.add(executor.submit(() -> {
+					try (VCFFileReader reader = new VCFFileReader(new File(vcfPath), true);
+						 CloseableIterator<VariantContext> it = reader.query(contig, 1, Integer.MAX_VALUE)) {
+						List<Object[]> chunk = new ArrayList<>(CHUNK_SIZE);
+						while (it.hasNext()) {
+							chunk.addAll(buildRows(it.next(), table));
+							if (chunk.size() >= CHUNK_SIZE) {
+								queue.put(chunk);
+								chunk = new ArrayList<>(CHUNK_SIZE);
+							}
+						}
+						if (!chunk.isEmpty()) {
+							queue.put(chunk);
 						}
+					} finally {
+						queue.put(END_OF_CONTIG);
 					}
+					return null;
+				}));
+			}
 
-					stmt.executeUpdate();
+			int remaining = contigs.size();
+			while (remaining > 0) {
+				final List<Object[]> chunk = queue.take();
+				if (chunk == END_OF_CONTIG) {
+					--remaining;
+				} else {
+					for (Object[] row : chunk) {
+						writer.add(row);
+					}
 				}
 			}
-		} catch (SQLException e) {
-			throw new JannovarVarDBException("Problem with insert statement", e);
+
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JannovarVarDBException("Interrupted while importing " + vcfPath, e);
+		} catch (ExecutionException e) {
+			throw new JannovarVarDBException("Problem reading " + vcfPath, e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Convert record to one row for each alternative allele.
+	 *
+	 * @return list of rows, the first six values are genome build, contig, start, end, ref, and alt, followed by the
+	 * values of {@code table}'s fields; {@code null} values become SQL {@code NULL}
+	 */
+	private List<Object[]> buildRows(VariantContext ctx, Table table) {
+		final List<Object[]> result = new ArrayList<>();
+		if (ctx.getReference().getBaseString().length() > TableDao.MAX_ALLELE_LENGTH) {
+			System.err.println("Skipping because reference too long: " + ctx);
+			return result;
+		}
+
+		final CommonInfo info = ctx.getCommonInfo();
+		for (int i = 0; i < ctx.getAlternateAlleles().size(); ++i) {
+			if (ctx.getAlternateAllele(i).getBaseString().length() > TableDao.MAX_ALLELE_LENGTH) {
+				System.err.println("Skipping because alt #" + i + " too long: " + ctx);
+				continue;
+			}
+
+			final Object[] row = new Object[6 + table.getFields().size()];
+			row[0] = options.getGenomeBuild();
+			row[1] = ctx.getContig();
+			row[2] = ctx.getStart();
+			row[3] = ctx.getEnd();
+			row[4] = ctx.getReference().getBaseString();
+			row[5] = ctx.getAlternateAllele(i).getBaseString();
+
+			for (int j = 0; j < table.getFields().size(); ++j) {
+				final TableField field = table.getFields().get(j);
+				final Object value;
+				switch (field.getCount()) {
+					case "A":
+						final List<Object> lst = info.getAttributeAsList(field.getName());
+						value = (!info.hasAttribute(field.getName()) || lst.size() <= i) ? null : lst.get(i);
+						break;
+					case "1":
+						value = info.getAttribute(field.getName());
+						break;
+					default:
+						throw new RuntimeException("Invalid count " + field.getCount());
+				}
+				row[6 + j] = (value == null) ? null : convertValue(field, value);
+			}
+			result.add(row);
+		}
+		return result;
+	}
+
+	private static Object convertValue(TableField field, Object value) {
+		switch (field.getType()) {
+			case "Integer":
+				return Integer.parseInt((String) value);
+			case "Float":
+				return Double.parseDouble((String) value);
+			case "Boolean":
+				return (Boolean) value;
+			case "String":
+				return (String) value;
+			default:
+				throw new RuntimeException("Invalid field type " + field.getType());
+		}
+	}
+
+	private static int sqlType(TableField field) {
+		switch (field.getType()) {
+			case "Integer":
+				return Types.INTEGER;
+			case "Float":
+				return Types.DOUBLE;
+			case "Boolean":
+				return Types.BOOLEAN;
+			case "String":
+				return Types.VARCHAR;
+			default:
+				throw new RuntimeException("Invalid field type " + field.getType());
+		}
+	}
+
+	/**
+	 * Write rows in batches with periodic commits and progress reports.
+	 */
+	private final class RowWriter implements AutoCloseable {
+		private final Connection conn;
+		private final Table table;
+		private final PreparedStatement stmt;
+		private final long startTime = System.nanoTime();
+		private int pendingRows = 0;
+		private long totalRows = 0;
+
+		RowWriter(Connection conn, Table table, String verb) throws SQLException {
+			final List<String> fieldNames = new ArrayList<>();
+			final List<String> placeHolders = new ArrayList<>();
+			for (TableField field : table.getFields()) {
+				fieldNames.add(field.getName());
+				placeHolders.add("?");
+			}
+			final String sqlInsert = verb + " INTO " + table.getName() +
+				" (genome_build, contig, start, end, ref, alt, " + Joiner.on(", ").join(fieldNames) + ")" +
+				"VALUES (?, ?, ?, ?, ?, ?, " + Joiner.on(", ").join(placeHolders) + ")";
+			this.conn = conn;
+			this.table = table;
+			this.stmt = conn.prepareStatement(sqlInsert);
+		}
+
+		void add(Object[] row) throws SQLException {
+			stmt.setString(1, (String) row[0]);
+			stmt.setString(2, (String) row[1]);
+			stmt.setInt(3, (Integer) row[2]);
+			stmt.setInt(4, (Integer) row[3]);
+			stmt.setString(5, (String) row[4]);
+			stmt.setString(6, (String) row[5]);
+			for (int j = 0; j < table.getFields().size(); ++j) {
+				if (row[6 + j] == null) {
+					stmt.setNull(7 + j, sqlType(table.getFields().get(j)));
+				} else {
+					stmt.setObject(7 + j, row[6 + j]);
+				}
+			}
+			stmt.addBatch();
+
+			++totalRows;
+			if (++pendingRows >= options.getBatchSize()) {
+				flush();
+			}
+			if (totalRows % options.getCommitInterval() == 0) {
+				flush();
+				conn.commit();
+				reportProgress();
+			}
+		}
+
+		void finish() throws SQLException {
+			flush();
+			conn.commit();
+			reportProgress();
+		}
+
+		private void flush() throws SQLException {
+			if (pendingRows > 0) {
+				stmt.executeBatch();
+				pendingRows = 0;
+			}
+		}
+
+		private void reportProgress() {
+			final double seconds = (System.nanoTime() - startTime) / 1000.0 / 1000.0 / 1000.0;
+			System.err.println(String.format("Imported %d rows in %.2f sec. (%.0f rows/sec)", totalRows, seconds,
+				seconds > 0 ? totalRows / seconds : 0.0));
+		}
+
+		@Override
+		public void close() throws SQLException {
+			stmt.close();
 		}
 	}
 
@@ -10,6 +10,11 @@ import java.util.Objects;
  */
 @Immutable
 public final class ImportOptions {
+	/** Default number of rows to send to the database in one JDBC batch. */
+	public static final int DEFAULT_BATCH_SIZE = 10_000;
+	/** Default number of rows after which to commit. */
+	public static final int DEFAULT_COMMIT_INTERVAL = 500_000;
+
 	private final String genomeBuild;
 	private final String dbName;
 	private final String dbVersion;
@@ -19,9 +24,13 @@ public final class ImportOptions {
 	private final String defaultPrefix;
 	private final ImmutableList<String> vcfInfoFields;
 	private final boolean truncateTable;
+	private final int batchSize;
+	private final int commitInterval;
+	private final boolean bulk;
+	private final int threads;
 
 	/**
-	 * Construct object.
+	 * Construct object with default batch size and commit interval, no bulk mode and a single thread.
 	 *
 	 * @param genomeBuild   Genome build name.
 	 * @param dbName		Name of the database to import.
@@ -37,6 +46,33 @@ public final class ImportOptions {
 	public ImportOptions(String genomeBuild, String dbName, String dbVersion, String dbPath, Iterable<String> vcfPaths,
 						 String tableName, String defaultPrefix, Iterable<String> vcfInfoFields,
 						 boolean truncateTable) {
+		this(genomeBuild, dbName, dbVersion, dbPath, vcfPaths, tableName, defaultPrefix, vcfInfoFields,
+			truncateTable, DEFAULT_BATCH_SIZE, DEFAULT_COMMIT_INTERVAL, false, 1);
+	}
+
+	/**
+	 * Construct object.
+	 *
+	 * @param genomeBuild    Genome build name.
+	 * @param dbName         Name of the database to import.
+	 * @param dbVersion      Version of the database to import.
+	 * @param dbPath         Path to the H2 database.
+	 * @param vcfPaths       Paths to the VCF files to import.
+	 * @param tableName      The name to use for the table internally.  Users will refer to the data
+	 *                       by this name after import.
+	 * @param defaultPrefix  The default prefix to use
+	 * @param vcfInfoFields  The VCF INFO fields to import.
+	 * @param truncateTable  Whether or not to truncate table before importing.
+	 * @param batchSize      Number of rows to send to the database in one JDBC batch.
+	 * @param commitInterval Number of rows after which to commit.
+	 * @param bulk           Whether to use plain {@code INSERT} and create the primary key after loading, only
+	 *                       has an effect if the table is empty before the import.
+	 * @param threads        Number of threads for reading the VCF files, more than one requires tabix-indexed
+	 *                       files.
+	 */
+	public ImportOptions(String genomeBuild, String dbName, String dbVersion, String dbPath, Iterable<String> vcfPaths,
+						 String tableName, String defaultPrefix, Iterable<String> vcfInfoFields,
+						 boolean truncateTable, int batchSize, int commitInterval, boolean bulk, int threads) {
 		this.genomeBuild = genomeBuild;
 		this.dbName = dbName;
 		this.dbVersion = dbVersion;
@@ -46,6 +82,10 @@ public final class ImportOptions {
 		this.defaultPrefix = defaultPrefix;
 		this.vcfInfoFields = ImmutableList.copyOf(vcfInfoFields);
 		this.truncateTable = truncateTable;
+		this.batchSize = batchSize;
+		this.commitInterval = commitInterval;
+		this.bulk = bulk;
+		this.threads = threads;
 	}
 
 	public String getGenomeBuild() {
@@ -84,6 +124,22 @@ public final class ImportOptions {
 		return truncateTable;
 	}
 
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public int getCommitInterval() {
+		return commitInterval;
+	}
+
+	public boolean isBulk() {
+		return bulk;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
 	@Override
 	public String toString() {
 		return "ImportOptions{" +
@@ -96,6 +152,10 @@ public final class ImportOptions {
 			", defaultPrefix='" + defaultPrefix + '\'' +
 			", vcfInfoFields=" + vcfInfoFields +
 			", truncateTable=" + truncateTable +
+			", batchSize=" + batchSize +
+			", commitInterval=" + commitInterval +
+			", bulk=" + bulk +
+			", threads=" + threads +
 			'}';
 	}
 }
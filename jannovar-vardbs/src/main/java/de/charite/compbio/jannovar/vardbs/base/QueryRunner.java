@@ -3,28 +3,39 @@ package de.charite.compbio.jannovar.vardbs.base;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import de.charite.compbio.jannovar.Immutable;
+import htsjdk.variant.variantcontext.VariantContext;
 
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * Helper class for running queries on Jannovar H2 databases.
+ * <p>
+ * The prepared statements are cached by the number of alternative alleles (for single-variant queries) and by the
+ * number of positions (for batch queries), so close the runner after use.
  */
-@Immutable
-final class QueryRunner {
+final class QueryRunner implements AutoCloseable {
 	private final Table table;
+	private final Connection conn;
+	/**
+	 * Prepared single-variant statements, by number of alternative alleles
+	 */
+	private final Map<Integer, PreparedStatement> variantStatements = new HashMap<>();
+	/**
+	 * Prepared batch statements, by number of positions
+	 */
+	private final Map<Integer, PreparedStatement> batchStatements = new HashMap<>();
 
 	/**
 	 * Constructor.
 	 *
 	 * @param table The {@code Table} to run queries on.
+	 * @param conn  {@code Connection} to use for accessing the Jannovar H2 database.
 	 */
-	public QueryRunner(Table table) {
+	public QueryRunner(Table table, Connection conn) {
 		this.table = table;
+		this.conn = conn;
 	}
 
 	/**
@@ -36,7 +47,6 @@ final class QueryRunner {
 	 * @param end			End position.
 	 * @param refAllele		Reference allele.
 	 * @param altAlleles	Alternative alleles.
-	 * @param conn			{@code Connection} to use for accessing the Jannovar H2 database.
 	 * @return The query result.
 	 */
 	public Result run(
@@ -45,29 +55,11 @@ final class QueryRunner {
 		int start,
 		int end,
 		String refAllele,
-		List<String> altAlleles,
-		Connection conn
+		List<String> altAlleles
 	) throws JannovarVarDBException {
-		// Prepare containers for collecting annotations.
-		final Map<String, Annotation> posAnnos = new HashMap<>();
-		final List<Map<String, Annotation>> alleleAnnos = new ArrayList<>();
-		for (int i = 0; i < altAlleles.size(); i++) {
-			alleleAnnos.add(new HashMap<>());
-		}
-
+		final List<Row> rows = new ArrayList<>();
 		try {
-			// Prepare query.
-			final List<String> fields = table.getFields().stream().map(field -> field.getName()).collect(Collectors.toList());
-			final List<String> altClauses = new ArrayList<>();
-			for (String ignored : altAlleles) {
-				altClauses.add("alt = ?");
-			}
-			final PreparedStatement stmt = conn.prepareStatement(
-				"SELECT genome_build, contig, start, end, ref, alt, " + Joiner.on(", ").join(fields) +
-					" FROM " + table.getName() +
-					" WHERE genome_build = ? AND contig = ? AND start = ? AND end = ? AND ref = ? AND (" +
-					Joiner.on(" OR ").join(altClauses) + ")"
-			);
+			final PreparedStatement stmt = getVariantStatement(altAlleles.size());
 			stmt.setString(1, genomeBuild);
 			stmt.setString(2, contig);
 			stmt.setInt(3, start);
@@ -77,53 +69,211 @@ final class QueryRunner {
 				stmt.setString(6 + i, altAlleles.get(i));
 			}
 
-			// Execute query.
-			final ResultSet rs = stmt.executeQuery();
-			while (rs.next()) {
-				final int altAlleleNo = altAlleles.indexOf(rs.getString(6));
-				for (TableField field: table.getFields()) {
-					final Map<String, Annotation> mapping;
-					if (field.getCount().equals("1")) {
-						mapping = posAnnos;
-					} else if (field.getCount().equals("A")) {
-						mapping = alleleAnnos.get(altAlleleNo);
-					} else {
-						throw new JannovarVarDBException("Invalid count: " + field.getCount());
-					}
-					switch (field.getType()) {
-						case "Integer":
-							mapping.put(
-								field.getName(),
-								new Annotation(field.getName(), rs.getInt(field.getName()), "Integer")
-							);
-							break;
-						case "Float":
-							mapping.put(
-								field.getName(),
-								new Annotation(field.getName(), rs.getDouble(field.getName()), "Float")
-							);
-							break;
-						case "Boolean":
-							mapping.put(
-								field.getName(),
-								new Annotation(field.getName(), rs.getBoolean(field.getName()), "Boolean")
-							);
-							break;
-						case "String":
-							mapping.put(
-								field.getName(),
-								new Annotation(field.getName(), rs.getString(field.getName()), "String")
-							);
-							break;
-						default:
-							throw new JannovarVarDBException("Unknown type: " + field.getType());
-					}
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					rows.add(readRow(rs));
+				}
+			}
+		} catch (SQLException e) {
+			throw new JannovarVarDBException("Problem with database", e);
+		}
+
+		return buildResult(altAlleles, rows);
+	}
+
+	/**
+	 * Query Jannovar H2 database for the results of a window of records on the same contig.
+	 * <p>
+	 * All rows at the start positions of the records are fetched with one query and joined to the records in memory.
+	 * The columns {@code start} and {@code end} are stored as strings, so the positions are given as a list rather
+	 * than a range such that the primary key can be used.
+	 *
+	 * @param genomeBuild Genome build to use.
+	 * @param records     Records to query for, all on the same contig.
+	 * @return The query results, one per record in {@code records}.
+	 */
+	public List<Result> runBatch(String genomeBuild, List<VariantContext> records) throws JannovarVarDBException {
+		if (records.isEmpty()) {
+			return new ArrayList<>();
+		}
+
+		// Collect the distinct start positions, padded to a power of two to limit the number of statements.
+		final List<String> starts = new ArrayList<>(records.stream()
+			.map(record -> Integer.toString(record.getStart()))
+			.collect(Collectors.toCollection(LinkedHashSet::new)));
+		final int arity = Integer.highestOneBit(starts.size()) == starts.size() ?
+			starts.size() : Integer.highestOneBit(starts.size()) << 1;
+		while (starts.size() < arity) {
+			starts.add(starts.get(starts.size() - 1));
+		}
+
+		// Fetch rows, keyed by start, end, and reference allele.
+		final Map<String, List<Row>> rowsByKey = new HashMap<>();
+		try {
+			final PreparedStatement stmt = getBatchStatement(arity);
+			stmt.setString(1, genomeBuild);
+			stmt.setString(2, records.get(0).getContig());
+			for (int i = 0; i < arity; i++) {
+				stmt.setString(3 + i, starts.get(i));
+			}
+
+			try (ResultSet rs = stmt.executeQuery()) {
+				while (rs.next()) {
+					final String key = rowKey(rs.getString(3), rs.getString(4), rs.getString(5));
+					rowsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(readRow(rs));
 				}
 			}
 		} catch (SQLException e) {
 			throw new JannovarVarDBException("Problem with database", e);
 		}
 
+		// Join rows to records.
+		final List<Result> results = new ArrayList<>(records.size());
+		for (VariantContext record : records) {
+			final List<String> altAlleles = getAltAlleles(record);
+			final List<Row> rows = rowsByKey.getOrDefault(
+				rowKey(Integer.toString(record.getStart()), Integer.toString(record.getEnd()),
+					record.getReference().getBaseString()),
+				ImmutableList.of());
+			results.add(buildResult(altAlleles, rows.stream()
+				.filter(row -> altAlleles.contains(row.alt))
+				.collect(Collectors.toList())));
+		}
+		return results;
+	}
+
+	/**
+	 * @return Base strings of the alternative alleles of {@code record}.
+	 */
+	static ImmutableList<String> getAltAlleles(VariantContext record) {
+		final ImmutableList.Builder<String> altAllelesBuilder = ImmutableList.builder();
+		for (int i = 0; i < record.getAlternateAlleles().size(); ++i) {
+			altAllelesBuilder.add(record.getAlternateAllele(i).getBaseString());
+		}
+		return altAllelesBuilder.build();
+	}
+
+	@Override
+	public void close() throws JannovarVarDBException {
+		try {
+			for (PreparedStatement stmt : variantStatements.values()) {
+				stmt.close();
+			}
+			for (PreparedStatement stmt : batchStatements.values()) {
+				stmt.close();
+			}
+		} catch (SQLException e) {
+			throw new JannovarVarDBException("Problem with database", e);
+		} finally {
+			variantStatements.clear();
+			batchStatements.clear();
+		}
+	}
+
+	private PreparedStatement getVariantStatement(int numAltAlleles) throws SQLException {
+		PreparedStatement stmt = variantStatements.get(numAltAlleles);
+		if (stmt == null) {
+			final List<String> altClauses = new ArrayList<>();
+			for (int i = 0; i < numAltAlleles; i++) {
+				altClauses.add("alt = ?");
+			}
+			stmt = conn.prepareStatement(
+				buildSelect() +
+					" WHERE genome_build = ? AND contig = ? AND start = ? AND end = ? AND ref = ? AND (" +
+					Joiner.on(" OR ").join(altClauses) + ")"
+			);
+			variantStatements.put(numAltAlleles, stmt);
+		}
+		return stmt;
+	}
+
+	private PreparedStatement getBatchStatement(int numPositions) throws SQLException {
+		PreparedStatement stmt = batchStatements.get(numPositions);
+		if (stmt == null) {
+			stmt = conn.prepareStatement(
+				buildSelect() +
+					" WHERE genome_build = ? AND contig = ? AND start IN (" +
+					Joiner.on(", ").join(Collections.nCopies(numPositions, "?")) + ")"
+			);
+			batchStatements.put(numPositions, stmt);
+		}
+		return stmt;
+	}
+
+	private String buildSelect() {
+		final List<String> fields = table.getFields().stream().map(field -> field.getName()).collect(Collectors.toList());
+		return "SELECT genome_build, contig, start, end, ref, alt, " + Joiner.on(", ").join(fields) +
+			" FROM " + table.getName();
+	}
+
+	private static String rowKey(String start, String end, String ref) {
+		return start + ":" + end + ":" + ref;
+	}
+
+	/**
+	 * Read the alternative allele and the field values of the current row of {@code rs}.
+	 */
+	private Row readRow(ResultSet rs) throws SQLException, JannovarVarDBException {
+		final Map<String, Annotation> annotations = new HashMap<>();
+		for (TableField field: table.getFields()) {
+			switch (field.getType()) {
+				case "Integer":
+					annotations.put(
+						field.getName(),
+						new Annotation(field.getName(), rs.getInt(field.getName()), "Integer")
+					);
+					break;
+				case "Float":
+					annotations.put(
+						field.getName(),
+						new Annotation(field.getName(), rs.getDouble(field.getName()), "Float")
+					);
+					break;
+				case "Boolean":
+					annotations.put(
+						field.getName(),
+						new Annotation(field.getName(), rs.getBoolean(field.getName()), "Boolean")
+					);
+					break;
+				case "String":
+					annotations.put(
+						field.getName(),
+						new Annotation(field.getName(), rs.getString(field.getName()), "String")
+					);
+					break;
+				default:
+					throw new JannovarVarDBException("Unknown type: " + field.getType());
+			}
+		}
+		return new Row(rs.getString(6), annotations);
+	}
+
+	/**
+	 * Build {@code Result} from the rows matching a variant with the given alternative alleles.
+	 */
+	private Result buildResult(List<String> altAlleles, List<Row> rows) throws JannovarVarDBException {
+		// Prepare containers for collecting annotations.
+		final Map<String, Annotation> posAnnos = new HashMap<>();
+		final List<Map<String, Annotation>> alleleAnnos = new ArrayList<>();
+		for (int i = 0; i < altAlleles.size(); i++) {
+			alleleAnnos.add(new HashMap<>());
+		}
+
+		for (Row row : rows) {
+			final int altAlleleNo = altAlleles.indexOf(row.alt);
+			for (TableField field: table.getFields()) {
+				final Map<String, Annotation> mapping;
+				if (field.getCount().equals("1")) {
+					mapping = posAnnos;
+				} else if (field.getCount().equals("A")) {
+					mapping = alleleAnnos.get(altAlleleNo);
+				} else {
+					throw new JannovarVarDBException("Invalid count: " + field.getCount());
+				}
+				mapping.put(field.getName(), row.annotations.get(field.getName()));
+			}
+		}
+
 		final ImmutableList.Builder<Annotation> posAnnoBuilder = ImmutableList.builder();
 		final ImmutableList.Builder<ImmutableList<Annotation>> alleleAnnoBuilder = ImmutableList.builder();
 		for (TableField field : table.getFields()) {
@@ -155,6 +305,19 @@ final class QueryRunner {
 		return new Result(posAnnoBuilder.build(), alleleAnnoBuilder.build());
 	}
 
+	/**
+	 * Alternative allele and annotations of one database row.
+	 */
+	private static final class Row {
+		private final String alt;
+		private final Map<String, Annotation> annotations;
+
+		Row(String alt, Map<String, Annotation> annotations) {
+			this.alt = alt;
+			this.annotations = annotations;
+		}
+	}
+
 	/**
 	 * Represent result of running a query.
 	 */
@@ -0,0 +1,93 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import de.charite.compbio.jannovar.htsjdk.StreamingOverlapQuery;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Provider of {@link VariantContext}s that streams through another provider in lockstep with coordinate-sorted
+ * queries, instead of running one indexed query per record.
+ * <p>
+ * See {@link StreamingOverlapQuery} for the details. The results are the same as the ones of the wrapped provider,
+ * also for unsorted queries, which fall back to random access.
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+@Deprecated
+public class StreamingVariantContextProvider implements DatabaseVariantContextProvider, Closeable {
+
+	/**
+	 * Wrapped provider
+	 */
+	private final DatabaseVariantContextProvider delegate;
+
+	/**
+	 * Sliding window over the records of {@link #delegate}
+	 */
+	private final StreamingOverlapQuery<VariantContext> streamingQuery;
+
+	public StreamingVariantContextProvider(DatabaseVariantContextProvider delegate) {
+		this(delegate, StreamingOverlapQuery.DEFAULT_MAX_GAP);
+	}
+
+	/**
+	 * @param delegate provider to stream through
+	 * @param maxGap   number of positions up to which to skip records instead of querying the index
+	 */
+	public StreamingVariantContextProvider(DatabaseVariantContextProvider delegate, int maxGap) {
+		this.delegate = delegate;
+		this.streamingQuery = new StreamingOverlapQuery<>(
+			(contig, beginPos) -> delegate.query(contig, beginPos, Integer.MAX_VALUE),
+			delegate::overlaps, maxGap);
+	}
+
+	/**
+	 * @return the wrapped provider
+	 */
+	public DatabaseVariantContextProvider getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * @return number of queries to the wrapped provider so far
+	 */
+	public int getNumDelegateQueries() {
+		return streamingQuery.getNumStreamsOpened();
+	}
+
+	@Override
+	public CloseableIterator<VariantContext> query(String contig, int beginPos, int endPos) {
+		final Iterator<VariantContext> iter = streamingQuery.query(contig, beginPos, endPos).iterator();
+		return new CloseableIterator<VariantContext>() {
+			@Override
+			public boolean hasNext() {
+				return iter.hasNext();
+			}
+
+			@Override
+			public VariantContext next() {
+				return iter.next();
+			}
+
+			@Override
+			public void close() {
+				/* nop, the window stays open for the next query */
+			}
+		};
+	}
+
+	@Override
+	public boolean overlaps(VariantContext vc, int beginPos, int endPos) {
+		return delegate.overlaps(vc, beginPos, endPos);
+	}
+
+	@Override
+	public void close() {
+		streamingQuery.close();
+	}
+
+}
@@ -28,6 +28,8 @@ public final class TableDao implements Closeable {
 	public static final String TABLE_NAME_TABLE = "jannovar_meta_table";
 	/** Database table name that store fields. */
 	public static final String TABLE_NAME_FIELD = "jannovar_meta_field";
+	/** Columns of the primary key of the variant tables. */
+	public static final String PRIMARY_KEY_COLUMNS = "genome_build, contig, start, end, ref, alt";
 
 	private final Connection conn;
 
@@ -189,10 +191,7 @@ public final class TableDao implements Closeable {
 					Joiner.on(", \n  ").join(fieldLines) +
 				"\n)"
 			).executeUpdate();
-			this.conn.prepareStatement(
-				"CREATE PRIMARY KEY ON " + table.getName() +
-					" (genome_build, contig, start, end, ref, alt);"
-			).executeUpdate();
+			createPrimaryKey(table);
 
 			final PreparedStatement stmt = this.conn.prepareStatement(
 				"INSERT INTO " + TABLE_NAME_VERSIONS + " (name, table_name, genome_build, version) VALUES " +
@@ -207,6 +206,57 @@ public final class TableDao implements Closeable {
 		}
 	}
 
+	/**
+	 * Create the primary key on the variant columns of the given table.
+	 *
+	 * @param table The {@code Table} to create the primary key for.
+	 * @throws JannovarVarDBException In the case of problems with the H2 database, e.g., duplicate variants.
+	 */
+	public void createPrimaryKey(Table table) throws JannovarVarDBException {
+		try {
+			this.conn.prepareStatement(
+				"ALTER TABLE " + table.getName() + " ADD PRIMARY KEY (" + PRIMARY_KEY_COLUMNS + ");"
+			).executeUpdate();
+		} catch (SQLException e) {
+			throw new JannovarVarDBException("Could not create primary key on " + table.getName() +
+				", does the table contain duplicate variants?", e);
+		}
+	}
+
+	/**
+	 * Delete all but the last inserted row of each variant, e.g., after bulk loading without primary key.
+	 *
+	 * <p>This yields the same rows as loading with {@code MERGE}.</p>
+	 *
+	 * @param table The {@code Table} to delete the duplicate variants from.
+	 * @return The number of deleted rows.
+	 * @throws JannovarVarDBException In the case of problems with the H2 database.
+	 */
+	public int deleteDuplicateVariants(Table table) throws JannovarVarDBException {
+		try {
+			return this.conn.prepareStatement(
+				"DELETE FROM " + table.getName() + " WHERE _ROWID_ NOT IN (SELECT MAX(_ROWID_) FROM " +
+					table.getName() + " GROUP BY " + PRIMARY_KEY_COLUMNS + ");"
+			).executeUpdate();
+		} catch (SQLException e) {
+			throw new JannovarVarDBException("Problem with H2 query", e);
+		}
+	}
+
+	/**
+	 * Drop the primary key of the given table, e.g., before bulk loading.
+	 *
+	 * @param table The {@code Table} to drop the primary key of.
+	 * @throws JannovarVarDBException In the case of problems with the H2 database.
+	 */
+	public void dropPrimaryKey(Table table) throws JannovarVarDBException {
+		try {
+			this.conn.prepareStatement("ALTER TABLE " + table.getName() + " DROP PRIMARY KEY;").executeUpdate();
+		} catch (SQLException e) {
+			throw new JannovarVarDBException("Problem with H2 query", e);
+		}
+	}
+
 	/**
 	 * Update (delete and re-create) the table with the given name.
 	 *
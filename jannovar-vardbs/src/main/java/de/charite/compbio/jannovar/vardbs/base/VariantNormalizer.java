@@ -1,9 +1,7 @@
 package de.charite.compbio.jannovar.vardbs.base;
 
-import htsjdk.samtools.reference.IndexedFastaSequenceFile;
-
-import java.io.File;
-import java.io.FileNotFoundException;
+import de.charite.compbio.jannovar.JannovarException;
+import de.charite.compbio.jannovar.impl.util.ReferenceSequenceCache;
 
 /**
  * Helper class for normalizing two variants
@@ -13,6 +11,9 @@ import java.io.FileNotFoundException;
  * <p>
  * Tan, Adrian, Gonçalo R. Abecasis, and Hyun Min Kang. "Unified representation of genetic variants." Bioinformatics
  * (2015): btv112.
+ * <p>
+ * The reference bases are read through a {@link ReferenceSequenceCache}, by default the one shared by all users of the
+ * FASTA file. Left-shifting fetches windows of {@link #SHIFT_WINDOW_SIZE} bases at once.
  *
  * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
  */
@@ -20,29 +21,38 @@ import java.io.FileNotFoundException;
 public final class VariantNormalizer {
 
 	/**
-	 * Path to indexed FASTA path to use
+	 * Number of reference bases to fetch at once when shifting left
 	 */
-	final String fastaPath;
+	static final int SHIFT_WINDOW_SIZE = 128;
+
 	/**
 	 * Random access in FASTA files using FAI
 	 */
-	final IndexedFastaSequenceFile fai;
+	final ReferenceSequenceCache reference;
 
 	/**
-	 * Construct new variant normalizer object
+	 * Construct new variant normalizer object, using the shared {@link ReferenceSequenceCache} for the FASTA file
 	 *
 	 * @param fastaPath Path to indexed FASTA file
 	 * @throws JannovarVarDBException On problems with opening the FASTA/FAI file
 	 */
 	public VariantNormalizer(String fastaPath) throws JannovarVarDBException {
-		this.fastaPath = fastaPath;
 		try {
-			this.fai = new IndexedFastaSequenceFile(new File(fastaPath));
-		} catch (FileNotFoundException e) {
-			throw new JannovarVarDBException("Could not find FASTA/FAI file", e);
+			this.reference = ReferenceSequenceCache.getShared(fastaPath);
+		} catch (JannovarException e) {
+			throw new JannovarVarDBException("Could not open FASTA/FAI file", e);
 		}
 	}
 
+	/**
+	 * Construct new variant normalizer object
+	 *
+	 * @param reference Reference sequence to use
+	 */
+	public VariantNormalizer(ReferenceSequenceCache reference) {
+		this.reference = reference;
+	}
+
 	/**
 	 * Normalize a variant given as a start coordinate, reference, and variant sequence
 	 * <p>
@@ -70,6 +80,10 @@ public final class VariantNormalizer {
 		String ref = desc.getRef();
 		String alt = desc.getAlt();
 
+		// Reference bases [windowBegin, windowBegin + window.length) left of the original position
+		byte[] window = null;
+		int windowBegin = pos;
+
 		boolean anyChange = true;
 		while (anyChange) {
 			anyChange = false;
@@ -85,7 +99,13 @@ public final class VariantNormalizer {
 			}
 			// Extend alleles to the left if there is an empty allele
 			if (ref.length() == 0 || alt.length() == 0) {
-				char extension = (char) fai.getSubsequenceAt(desc.getChrom(), pos, pos).getBases()[0];
+				if (pos == 0)
+					break; // reached the beginning of the contig
+				if (pos - 1 < windowBegin) {
+					windowBegin = Math.max(0, pos - SHIFT_WINDOW_SIZE);
+					window = reference.getBases(desc.getChrom(), windowBegin, pos);
+				}
+				char extension = (char) window[pos - 1 - windowBegin];
 				ref = extension + ref;
 				alt = extension + alt;
 				pos -= 1;
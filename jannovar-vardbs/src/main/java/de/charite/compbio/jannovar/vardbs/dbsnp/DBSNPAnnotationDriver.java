@@ -33,7 +33,11 @@ final public class DBSNPAnnotationDriver extends AbstractDBAnnotationDriver<DBSN
 	public DBSNPAnnotationDriver(String vcfPath, String fastaPath, DBAnnotationOptions options)
 		throws JannovarVarDBException {
 		super(new VCFReaderVariantProvider(vcfPath), fastaPath, options, new DBSNPVariantContextToRecordConverter());
-		VCFReaderVariantProvider vcfProvider = (VCFReaderVariantProvider) this.variantProvider;
+		final VCFReaderVariantProvider vcfProvider;
+		if (this.variantProvider instanceof StreamingVariantContextProvider)
+			vcfProvider = (VCFReaderVariantProvider) ((StreamingVariantContextProvider) this.variantProvider).getDelegate();
+		else
+			vcfProvider = (VCFReaderVariantProvider) this.variantProvider;
 
 		this.dbSNPInfo = new DBSNPInfoFactory().build(vcfProvider.getVcfReader().getFileHeader());
 		if (dbSNPInfo.dbSNPBuildID != 147)
@@ -30,7 +30,10 @@ public final class GenericTSVAnnotationDriver implements DBAnnotationDriver {
 
 	public GenericTSVAnnotationDriver(String fastaPath, GenericTSVAnnotationOptions options)
 		throws JannovarVarDBException {
-		this.variantProvider = new GenericTSVVariantContextProvider(options);
+		if (options.isStreamDatabase())
+			this.variantProvider = new StreamingVariantContextProvider(new GenericTSVVariantContextProvider(options));
+		else
+			this.variantProvider = new GenericTSVVariantContextProvider(options);
 		this.matcher = new AlleleMatcher(fastaPath);
 		this.options = options;
 	}
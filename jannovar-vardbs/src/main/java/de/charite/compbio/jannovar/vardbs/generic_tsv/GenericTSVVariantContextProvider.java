@@ -45,6 +45,17 @@ public class GenericTSVVariantContextProvider implements DatabaseVariantContextP
 		return new TabixIteratorWrapper(tabixReader.query(contig, beginPos, endPos));
 	}
 
+	/**
+	 * {@link TabixReader} interprets the query as 0-based half-open interval and compares it with the 0-based
+	 * half-open interval of the begin and end column, which is reconstructed from <code>vc</code> here.
+	 */
+	@Override
+	public boolean overlaps(VariantContext vc, int beginPos, int endPos) {
+		final int tabixBegin = options.isOneBasedPositions() ? vc.getStart() - 1 : vc.getStart() + 1;
+		final int tabixEnd = options.isOneBasedPositions() ? vc.getEnd() : vc.getEnd() + 1;
+		return tabixBegin < endPos && tabixEnd > beginPos;
+	}
+
 	/**
 	 * Wrapper for iterator from {@link TabixReader}.
 	 *
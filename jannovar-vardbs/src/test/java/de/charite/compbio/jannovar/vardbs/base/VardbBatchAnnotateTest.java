@@ -0,0 +1,107 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class VardbBatchAnnotateTest {
+
+	protected File tmpDir;
+	protected String inputVcfPath;
+	protected Connection conn;
+
+	@BeforeEach
+	public void setUp() throws SQLException, JannovarVarDBException {
+		tmpDir = Files.createTempDir();
+		final String dbVcfPath = tmpDir + "/gnomad.exomes.head.vcf.gz";
+		ResourceUtils.copyResourceToFile("/gnomad.exomes.r2.1.1.sites.head.vcf.gz", new File(dbVcfPath));
+		ResourceUtils.copyResourceToFile("/gnomad.exomes.r2.1.1.sites.head.vcf.gz.tbi",
+			new File(dbVcfPath + ".tbi"));
+
+		conn = DriverManager.getConnection(
+			"jdbc:h2:" + tmpDir + "/db;TRACE_LEVEL_FILE=0;MV_STORE=FALSE;DB_CLOSE_ON_EXIT=FALSE",
+			"sa",
+			"");
+		new ImportCommand(new ImportOptions(
+			"GRCh37",
+			"gnomad.exomes",
+			"2.1.1",
+			tmpDir + "/db",
+			ImmutableList.of(dbVcfPath),
+			"gnomad_exomes_r2_1_1",
+			"GNOMAD_EXOMES_",
+			ImmutableList.of("AC", "AN", "AF"),
+			false
+		)).run(conn);
+
+		// Input with known, unknown, and triallelic variants.
+		inputVcfPath = tmpDir + "/input.vcf";
+		try (VCFFileReader reader = new VCFFileReader(new File(dbVcfPath));
+			 VariantContextWriter writer = new VariantContextWriterBuilder()
+				 .setOutputFile(inputVcfPath)
+				 .unsetOption(Options.INDEX_ON_THE_FLY)
+				 .build()) {
+			writer.writeHeader(reader.getFileHeader());
+			int i = 0;
+			for (VariantContext ctx : reader) {
+				final List<Allele> alleles = new ArrayList<>(ctx.getAlleles());
+				if (i % 3 == 1) {
+					alleles.set(1, Allele.create("ACGTACGT"));
+				} else if (i % 3 == 2) {
+					alleles.add(1, Allele.create("ACGTACGT"));
+				}
+				writer.add(new VariantContextBuilder(ctx).alleles(alleles).make());
+				++i;
+			}
+		}
+	}
+
+	@AfterEach
+	public void tearDown() throws SQLException {
+		conn.close();
+	}
+
+	private List<String> annotate(int batchSize) throws JannovarVarDBException, IOException {
+		final String outputVcfPath = tmpDir + "/output." + batchSize + ".vcf";
+		final AnnotateOptions options = new AnnotateOptions(
+			"GRCh37",
+			tmpDir + "/db.h2.db",
+			inputVcfPath,
+			outputVcfPath,
+			ImmutableList.of("gnomad_exomes_r2_1_1"),
+			batchSize
+		);
+		new AnnotateCommand(options, conn).run(conn);
+		return Files.readLines(new File(outputVcfPath), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testBatchAnnotationYieldsSameRecords() throws JannovarVarDBException, IOException {
+		final List<String> expected = annotate(1);
+		Assertions.assertTrue(expected.stream().anyMatch(line -> line.contains("GNOMAD_EXOMES_AC=.,")));
+
+		Assertions.assertEquals(expected, annotate(7));
+		Assertions.assertEquals(expected, annotate(1000));
+	}
+
+}
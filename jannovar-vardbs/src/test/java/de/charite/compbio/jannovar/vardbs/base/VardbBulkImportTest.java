@@ -0,0 +1,174 @@
+package de.charite.compbio.jannovar.vardbs.base;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import de.charite.compbio.jannovar.utils.ResourceUtils;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.variantcontext.VariantContextBuilder;
+import htsjdk.variant.variantcontext.writer.Options;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.variantcontext.writer.VariantContextWriterBuilder;
+import htsjdk.variant.vcf.VCFFileReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class VardbBulkImportTest {
+
+	protected File tmpDir;
+	protected String dbGnomadExomesPath;
+
+	@BeforeEach
+	public void setUp() {
+		tmpDir = Files.createTempDir();
+		final String resourcePath = tmpDir + "/gnomad.exomes.head.vcf.gz";
+		ResourceUtils.copyResourceToFile("/gnomad.exomes.r2.1.1.sites.head.vcf.gz", new File(resourcePath));
+		ResourceUtils.copyResourceToFile("/gnomad.exomes.r2.1.1.sites.head.vcf.gz.tbi",
+			new File(resourcePath + ".tbi"));
+
+		// Move the second half of the records to chromosome 2 for having more than one contig.
+		dbGnomadExomesPath = tmpDir + "/gnomad.exomes.vcf.gz";
+		try (VCFFileReader reader = new VCFFileReader(new File(resourcePath));
+			 VariantContextWriter writer = new VariantContextWriterBuilder()
+				 .setOutputFile(dbGnomadExomesPath)
+				 .setReferenceDictionary(reader.getFileHeader().getSequenceDictionary())
+				 .setOption(Options.INDEX_ON_THE_FLY)
+				 .build()) {
+			writer.writeHeader(reader.getFileHeader());
+			final List<VariantContext> records = new ArrayList<>();
+			for (VariantContext ctx : reader) {
+				records.add(ctx);
+			}
+			for (int i = 0; i < records.size(); ++i) {
+				if (i < records.size() / 2) {
+					writer.add(records.get(i));
+				} else {
+					writer.add(new VariantContextBuilder(records.get(i)).chr("2").make());
+				}
+			}
+		}
+	}
+
+	private Connection connect(String name) throws SQLException {
+		return DriverManager.getConnection(
+			"jdbc:h2:" + tmpDir + "/" + name + ";TRACE_LEVEL_FILE=0;MV_STORE=FALSE;DB_CLOSE_ON_EXIT=FALSE",
+			"sa",
+			"");
+	}
+
+	private ImportOptions buildOptions(boolean truncateTable, boolean bulk, int threads) {
+		return buildOptions(ImmutableList.of(dbGnomadExomesPath), truncateTable, bulk, threads);
+	}
+
+	private ImportOptions buildOptions(ImmutableList<String> vcfPaths, boolean truncateTable, boolean bulk,
+									   int threads) {
+		return new ImportOptions(
+			"GRCh37",
+			"gnomad.exomes",
+			"2.1.1",
+			tmpDir + "/db",
+			vcfPaths,
+			"gnomad_exomes_r2_1_1",
+			"GNOMAD_EXOMES_",
+			ImmutableList.of("AC", "AN", "AF"),
+			truncateTable,
+			7,
+			13,
+			bulk,
+			threads
+		);
+	}
+
+	private List<String> readRows(Connection conn) throws SQLException {
+		final List<String> result = new ArrayList<>();
+		final ResultSet rs = conn.prepareStatement(
+			"SELECT * FROM gnomad_exomes_r2_1_1 ORDER BY contig, start, end, ref, alt").executeQuery();
+		while (rs.next()) {
+			final List<String> values = new ArrayList<>();
+			for (int i = 1; i <= rs.getMetaData().getColumnCount(); ++i) {
+				values.add(rs.getString(i));
+			}
+			result.add(String.join("\t", values));
+		}
+		return result;
+	}
+
+	private boolean hasPrimaryKey(Connection conn) throws SQLException {
+		return conn.getMetaData().getPrimaryKeys(null, null, "GNOMAD_EXOMES_R2_1_1").next();
+	}
+
+	@Test
+	public void testBulkImportYieldsSameRows() throws JannovarVarDBException, SQLException {
+		try (Connection expectedConn = connect("expected");
+			 Connection actualConn = connect("actual")) {
+			new ImportCommand(buildOptions(true, false, 1)).run(expectedConn);
+			new ImportCommand(buildOptions(true, true, 2)).run(actualConn);
+
+			final List<String> expected = readRows(expectedConn);
+			Assertions.assertEquals(100, expected.size());
+			Assertions.assertEquals(expected, readRows(actualConn));
+			Assertions.assertTrue(hasPrimaryKey(actualConn));
+			Assertions.assertTrue(actualConn.getAutoCommit());
+		}
+	}
+
+	@Test
+	public void testBulkImportIntoNewTable() throws JannovarVarDBException, SQLException {
+		try (Connection expectedConn = connect("expected");
+			 Connection actualConn = connect("actual")) {
+			new ImportCommand(buildOptions(false, false, 1)).run(expectedConn);
+			new ImportCommand(buildOptions(false, true, 1)).run(actualConn);
+
+			Assertions.assertEquals(readRows(expectedConn), readRows(actualConn));
+			Assertions.assertTrue(hasPrimaryKey(actualConn));
+		}
+	}
+
+	@Test
+	public void testBulkImportWithDuplicateVariants() throws JannovarVarDBException, SQLException {
+		// The second file repeats its first record and overlaps the first file with changed counts.
+		final String overlappingPath = tmpDir + "/overlapping.vcf";
+		final List<VariantContext> records = new ArrayList<>();
+		try (VCFFileReader reader = new VCFFileReader(new File(dbGnomadExomesPath), false);
+			 VariantContextWriter writer = new VariantContextWriterBuilder()
+				 .setOutputFile(overlappingPath)
+				 .setReferenceDictionary(reader.getFileHeader().getSequenceDictionary())
+				 .setOption(Options.INDEX_ON_THE_FLY)
+				 .build()) {
+			writer.writeHeader(reader.getFileHeader());
+			for (VariantContext ctx : reader) {
+				if (records.size() < 10) {
+					records.add(new VariantContextBuilder(ctx).attribute("AN", "12345").make());
+				}
+			}
+			writer.add(records.get(0));
+			for (VariantContext ctx : records) {
+				writer.add(ctx);
+			}
+		}
+
+		final ImmutableList<String> vcfPaths = ImmutableList.of(dbGnomadExomesPath, overlappingPath);
+		try (Connection expectedConn = connect("expected");
+			 Connection actualConn = connect("actual")) {
+			new ImportCommand(buildOptions(vcfPaths, true, false, 1)).run(expectedConn);
+			new ImportCommand(buildOptions(vcfPaths, true, true, 1)).run(actualConn);
+
+			final List<String> expected = readRows(expectedConn);
+			Assertions.assertEquals(100, expected.size());
+			Assertions.assertEquals(10,
+				expected.stream().filter(row -> Arrays.asList(row.split("\t")).contains("12345")).count());
+			Assertions.assertEquals(expected, readRows(actualConn));
+			Assertions.assertTrue(hasPrimaryKey(actualConn));
+		}
+	}
+
+}
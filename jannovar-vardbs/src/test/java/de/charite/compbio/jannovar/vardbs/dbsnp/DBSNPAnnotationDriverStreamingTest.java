@@ -0,0 +1,69 @@
+package de.charite.compbio.jannovar.vardbs.dbsnp;
+
+import de.charite.compbio.jannovar.vardbs.base.JannovarVarDBException;
+import de.charite.compbio.jannovar.vardbs.base.StreamingVariantContextProvider;
+import de.charite.compbio.jannovar.vardbs.base.VCFReaderVariantProvider;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import htsjdk.variant.vcf.VCFFileReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test for annotation with dbSNP when streaming through the database
+ *
+ * @author <a href="mailto:manuel.holtgrewe@bihealth.de">Manuel Holtgrewe</a>
+ */
+public class DBSNPAnnotationDriverStreamingTest extends DBSNPAnnotationDriverBaseTest {
+
+	private static List<String> toStrings(CloseableIterator<VariantContext> iter) {
+		List<String> result = new ArrayList<>();
+		while (iter.hasNext())
+			result.add(iter.next().toString());
+		iter.close();
+		return result;
+	}
+
+	@Test
+	public void testSameQueryResults() {
+		VCFReaderVariantProvider provider = new VCFReaderVariantProvider(dbSNPVCFPath);
+		StreamingVariantContextProvider streamingProvider = new StreamingVariantContextProvider(
+			new VCFReaderVariantProvider(dbSNPVCFPath));
+
+		int numNonEmpty = 0;
+		for (int beginPos = 9_990; beginPos < 13_600; ++beginPos) {
+			final int endPos = beginPos + beginPos % 3;
+			final List<String> expected = toStrings(provider.query("1", beginPos, endPos));
+			Assertions.assertEquals(expected, toStrings(streamingProvider.query("1", beginPos, endPos)));
+			if (!expected.isEmpty())
+				++numNonEmpty;
+		}
+		Assertions.assertTrue(numNonEmpty > 100);
+		Assertions.assertEquals(1, streamingProvider.getNumDelegateQueries());
+
+		// Going back falls back to random access.
+		Assertions.assertEquals(toStrings(provider.query("1", 10_018, 10_020)),
+			toStrings(streamingProvider.query("1", 10_018, 10_020)));
+		Assertions.assertEquals(2, streamingProvider.getNumDelegateQueries());
+	}
+
+	@Test
+	public void testSameAnnotation() throws JannovarVarDBException {
+		options.setReportOverlapping(true);
+		DBSNPAnnotationDriver driver = new DBSNPAnnotationDriver(dbSNPVCFPath, fastaPath, options);
+		options.setStreamDatabase(true);
+		DBSNPAnnotationDriver streamingDriver = new DBSNPAnnotationDriver(dbSNPVCFPath, fastaPath, options);
+
+		// Annotate the database records themselves, i.e., sorted input with matches and overlaps.
+		try (VCFFileReader dbReader = new VCFFileReader(new File(dbSNPVCFPath), false)) {
+			for (VariantContext vc : dbReader)
+				Assertions.assertEquals(driver.annotateVariantContext(vc).toString(),
+					streamingDriver.annotateVariantContext(vc).toString());
+		}
+	}
+
+}
@@ -0,0 +1,39 @@
+package de.charite.compbio.jannovar.vardbs.generic_tsv;
+
+import de.charite.compbio.jannovar.vardbs.base.StreamingVariantContextProvider;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class GenericTSVStreamingVariantContextProviderWithDbnsfpTest extends GenericTSVAnnotationDriverWithDbnsfpBaseTest {
+
+	private static List<String> toStrings(CloseableIterator<VariantContext> iter) {
+		List<String> result = new ArrayList<>();
+		while (iter.hasNext())
+			result.add(iter.next().toString());
+		iter.close();
+		return result;
+	}
+
+	@Test
+	public void test() {
+		GenericTSVVariantContextProvider provider = new GenericTSVVariantContextProvider(options);
+		StreamingVariantContextProvider streamingProvider = new StreamingVariantContextProvider(
+			new GenericTSVVariantContextProvider(options), 100);
+
+		int numNonEmpty = 0;
+		for (int beginPos = 80; beginPos < 540; beginPos += 1 + beginPos % 7) {
+			final int endPos = beginPos + beginPos % 3;
+			final List<String> expected = toStrings(provider.query("1", beginPos, endPos));
+			Assertions.assertEquals(expected, toStrings(streamingProvider.query("1", beginPos, endPos)));
+			if (!expected.isEmpty())
+				++numNonEmpty;
+		}
+		Assertions.assertTrue(numNonEmpty > 50);
+	}
+
+}